@@ -33,13 +33,18 @@ import io.cdap.cdap.api.dataset.table.Row;
 import io.cdap.cdap.api.dataset.table.Scan;
 import io.cdap.cdap.api.dataset.table.Scanner;
 import io.cdap.cdap.api.dataset.table.Table;
+import org.apache.tephra.Transaction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
@@ -94,6 +99,23 @@ import javax.annotation.Nullable;
  * as it would break parsing of the configuration property.
  * </p>
  *
+ * <p>The scanners returned by the index reads resolve the matching index entries with batched multi-gets on the
+ * data table, rather than with one read per matching row. The maximum number of rows read in one batch can be
+ * configured with {@link #INDEX_SCAN_BATCH_SIZE}.
+ * </p>
+ *
+ * <p>Optionally, the values of some data columns can also be stored in the index rows, by listing them in
+ * {@link #COVERED_COLUMNS_CONF_KEY}. Index reads that only ask for covered columns are then answered from the
+ * index table alone, at the cost of rewriting the index rows of a data row whenever one of its covered values
+ * changes. The covered columns can be changed on an existing dataset: index rows written for a different set of
+ * covered columns are still resolved through the data table, until the data row is written again or until
+ * {@link #updateCoveredColumns(byte[], byte[], int)} is used to rewrite them. The index table records which covered
+ * columns its rows are maintained for, and the first write with different covered columns, or with none, starts a
+ * new covering generation. Index rows written in an earlier generation are resolved through the data table as well,
+ * so that covered values changed while the index was not covering are never read from the index. This costs one
+ * read of the index table in every transaction that writes to the dataset or reads covered columns by index.
+ * </p>
+ *
  * @see #INDEX_COLUMNS_CONF_KEY
  */
 public class IndexedTable extends AbstractDataset implements Table {
@@ -123,12 +145,45 @@ public class IndexedTable extends AbstractDataset implements Table {
    */
   public static final String DYNAMIC_INDEXING_PREFIX = "dynamicIndexingPrefix";
 
+  /**
+   * Configuration key for defining the names of data columns whose values are also stored in the index rows.
+   * Multiple column names should be listed as a comma-separated string, e.g. "column1,column2,etc".
+   * When dynamic indexing is enabled, the covered columns are specified in the runtime arguments.
+   */
+  public static final String COVERED_COLUMNS_CONF_KEY = "coveredColumns";
+
+  /**
+   * Configuration key for the maximum number of data rows that the index scanners read with a single multi-get.
+   * It can be set in the DatasetSpecification properties, and be overridden in the runtime arguments.
+   */
+  public static final String INDEX_SCAN_BATCH_SIZE = "indexScanBatchSize";
+
+  static final int DEFAULT_INDEX_SCAN_BATCH_SIZE = 100;
+
   /**
    * Column key used to store the existence of a row in the secondary index.
    */
   private static final byte[] IDX_COL = {'r'};
+  /**
+   * Column key used to store the set of covered columns and the covering generation that an index row has values
+   * for. In the covering state row, it stores the set of covered columns that the index rows are maintained for.
+   */
+  private static final byte[] COVERED_MARKER_COL = {'c'};
+  /**
+   * Column key used to store the current covering generation in the covering state row.
+   */
+  private static final byte[] COVERING_GENERATION_COL = {'g'};
+  /**
+   * Prefix of the column keys used to store the values of the covered columns in an index row.
+   */
+  private static final byte[] COVERED_COL_PREFIX = {'v'};
   private static final byte DELIMITER_BYTE = 0;
   private static final byte[] KEY_DELIMITER = new byte[] { DELIMITER_BYTE };
+  /**
+   * Suffix of the key prefix for the row of the index table that stores the covering state. It sorts before all
+   * index rows, since indexed column names do not start with the delimiter.
+   */
+  private static final byte[] COVERING_STATE_ROW_SUFFIX = { DELIMITER_BYTE, DELIMITER_BYTE, 's' };
 
   private final boolean hasColumnWithDelimiter;
   // the two underlying tables
@@ -136,6 +191,18 @@ public class IndexedTable extends AbstractDataset implements Table {
   // the secondary index column
   private SortedSet<byte[]> indexedColumns;
   private final byte[] keyPrefix;
+  // the columns whose values are stored in the index rows, empty if the index is not covering
+  private final SortedSet<byte[]> coveredColumns;
+  private final byte[] coveredColumnsMarker;
+  private final byte[][] indexedAndCoveredColumns;
+  private final int scanBatchSize;
+  private final byte[] coveringStateRow;
+  // the covering state is read once per transaction, since other dataset instances can change it
+  private boolean coveringStateRead;
+  private long coveringGeneration;
+  // the covered marker column of the index rows that can be read in the current transaction,
+  // null if the index rows are maintained for different covered columns
+  private byte[] coveringMarker;
 
   /**
    * Configuration time constructor.
@@ -146,12 +213,7 @@ public class IndexedTable extends AbstractDataset implements Table {
    * @param columnsToIndex the names of the data columns to index
    */
   public IndexedTable(String name, Table table, Table index, SortedSet<byte[]> columnsToIndex) {
-    super(name, table, index);
-    this.table = table;
-    this.index = index;
-    this.indexedColumns = columnsToIndex;
-    this.hasColumnWithDelimiter = hasDelimiterByte(columnsToIndex);
-    this.keyPrefix = Bytes.EMPTY_BYTE_ARRAY;
+    this(name, table, index, columnsToIndex, Bytes.EMPTY_BYTE_ARRAY);
   }
 
   /**
@@ -164,12 +226,102 @@ public class IndexedTable extends AbstractDataset implements Table {
    * @param keyPrefix the dynamic indexing prefix. See {@link IndexedTable#DYNAMIC_INDEXING_PREFIX}
    */
   public IndexedTable(String name, Table table, Table index, SortedSet<byte[]> columnsToIndex, byte[] keyPrefix) {
+    this(name, table, index, columnsToIndex, keyPrefix, new TreeSet<>(Bytes.BYTES_COMPARATOR),
+         DEFAULT_INDEX_SCAN_BATCH_SIZE);
+  }
+
+  /**
+   * Configuration time constructor.
+   *
+   * @param name the name of the table
+   * @param table table to use as the table
+   * @param index table to use as the index
+   * @param columnsToIndex the names of the data columns to index
+   * @param keyPrefix the dynamic indexing prefix. See {@link IndexedTable#DYNAMIC_INDEXING_PREFIX}
+   * @param coveredColumns the names of the data columns to store in the index rows.
+   *                       See {@link IndexedTable#COVERED_COLUMNS_CONF_KEY}
+   * @param scanBatchSize the maximum number of data rows to read in one batch when reading by index.
+   *                      See {@link IndexedTable#INDEX_SCAN_BATCH_SIZE}
+   */
+  public IndexedTable(String name, Table table, Table index, SortedSet<byte[]> columnsToIndex, byte[] keyPrefix,
+                      SortedSet<byte[]> coveredColumns, int scanBatchSize) {
     super(name, table, index);
+    if (scanBatchSize <= 0) {
+      throw new IllegalArgumentException("Index scan batch size must be positive, but is " + scanBatchSize);
+    }
     this.table = table;
     this.index = index;
     this.indexedColumns = columnsToIndex;
     this.hasColumnWithDelimiter = hasDelimiterByte(columnsToIndex);
     this.keyPrefix = keyPrefix;
+    this.coveredColumns = coveredColumns;
+    this.coveredColumnsMarker = createCoveredColumnsMarker(coveredColumns);
+    this.scanBatchSize = scanBatchSize;
+    this.coveringStateRow = Bytes.concat(keyPrefix, COVERING_STATE_ROW_SUFFIX);
+
+    SortedSet<byte[]> allColumns = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    allColumns.addAll(columnsToIndex);
+    allColumns.addAll(coveredColumns);
+    this.indexedAndCoveredColumns = allColumns.toArray(new byte[allColumns.size()][]);
+  }
+
+  /**
+   * Encodes a set of covered columns as a length-prefixed sequence of the column names, which is stored in the
+   * index rows to tell which covered columns they have values for.
+   */
+  private static byte[] createCoveredColumnsMarker(SortedSet<byte[]> coveredColumns) {
+    byte[] marker = Bytes.EMPTY_BYTE_ARRAY;
+    for (byte[] column : coveredColumns) {
+      marker = Bytes.concat(marker, Bytes.toBytes(column.length), column);
+    }
+    return marker;
+  }
+
+  private static byte[] createCoveredColumnKey(byte[] column) {
+    return Bytes.concat(COVERED_COL_PREFIX, column);
+  }
+
+  @Override
+  public void startTx(Transaction tx) {
+    super.startTx(tx);
+    coveringStateRead = false;
+  }
+
+  /**
+   * Returns the covered marker column of the index rows whose covered values can be read in the current transaction,
+   * or {@code null} if the index rows are currently maintained for different covered columns.
+   */
+  @Nullable
+  private byte[] getCoveringMarker() {
+    if (!coveringStateRead) {
+      Row state = index.get(coveringStateRow);
+      byte[] stateMarker = state.get(COVERED_MARKER_COL);
+      coveringGeneration = state.getLong(COVERING_GENERATION_COL, 0L);
+      // without a state row, the index rows were never maintained for any covered columns
+      coveringMarker = Bytes.equals(stateMarker == null ? Bytes.EMPTY_BYTE_ARRAY : stateMarker, coveredColumnsMarker)
+        ? Bytes.concat(coveredColumnsMarker, Bytes.toBytes(coveringGeneration)) : null;
+      coveringStateRead = true;
+    }
+    return coveringMarker;
+  }
+
+  /**
+   * Makes the index rows maintained for the covered columns of this instance. If they were maintained for different
+   * covered columns, a new covering generation is started, which invalidates the covered values of all existing
+   * index rows. Must be called before the data table is changed.
+   *
+   * @return the covered marker column to write to index rows in the current transaction
+   */
+  private byte[] claimCoveringGeneration() {
+    byte[] marker = getCoveringMarker();
+    if (marker != null) {
+      return marker;
+    }
+    coveringGeneration++;
+    index.put(coveringStateRow, new byte[][] { COVERED_MARKER_COL, COVERING_GENERATION_COL },
+              new byte[][] { coveredColumnsMarker, Bytes.toBytes(coveringGeneration) });
+    coveringMarker = Bytes.concat(coveredColumnsMarker, Bytes.toBytes(coveringGeneration));
+    return coveringMarker;
   }
 
   /**
@@ -250,11 +402,27 @@ public class IndexedTable extends AbstractDataset implements Table {
    */
   @ReadOnly
   public Scanner readByIndex(byte[] column, byte[] value) {
+    return readByIndex(column, value, null);
+  }
+
+  /**
+   * Reads the given columns of table rows by the given secondary index key. If all the given columns are covered
+   * columns, the rows are read from the index table only. See {@link #COVERED_COLUMNS_CONF_KEY}.
+   *
+   * @param column the column to use for the index lookup
+   * @param value the value of the column to look up
+   * @param columns the columns to read from the matching rows, or {@code null} to read all columns
+   * @return a Scanner returning the given columns of rows from the data table, whose stored value for the given
+   *         column matches the given value.
+   * @throws java.lang.IllegalArgumentException if the given column is not configured for indexing.
+   */
+  @ReadOnly
+  public Scanner readByIndex(byte[] column, byte[] value, @Nullable byte[][] columns) {
     assertIndexedColumn(column);
     byte[] rowKeyPrefix = Bytes.concat(keyPrefix, column, KEY_DELIMITER, value, KEY_DELIMITER);
     byte[] stopRow = Bytes.stopKeyForPrefix(rowKeyPrefix);
     Scanner indexScan = index.scan(rowKeyPrefix, stopRow);
-    return new IndexScanner(indexScan, column, value);
+    return new IndexScanner(indexScan, column, columns, value);
   }
 
   /**
@@ -272,6 +440,26 @@ public class IndexedTable extends AbstractDataset implements Table {
    */
   @ReadOnly
   public Scanner scanByIndex(byte[] column, @Nullable byte[] startValue, @Nullable byte[] endValue) {
+    return scanByIndex(column, startValue, endValue, null);
+  }
+
+  /**
+   * Reads the given columns of table rows within the given secondary index key range. If all the given columns are
+   * covered columns, the rows are read from the index table only. See {@link #COVERED_COLUMNS_CONF_KEY}.
+   *
+   * @param column the column to use for the index lookup
+   * @param startValue the inclusive start of the range for which rows must fall within to be returned in the scan.
+   *                   {@code null} means start from first row of the table
+   * @param endValue the exclusive end of the range for which rows must fall within to be returned in the scan
+   *                 {@code null} means end with the last row of the table
+   * @param columns the columns to read from the matching rows, or {@code null} to read all columns
+   * @return a Scanner returning the given columns of rows from the data table, whose stored value for the given
+   *         column is within the the given range.
+   * @throws java.lang.IllegalArgumentException if the given column is not configured for indexing.
+   */
+  @ReadOnly
+  public Scanner scanByIndex(byte[] column, @Nullable byte[] startValue, @Nullable byte[] endValue,
+                             @Nullable byte[][] columns) {
     assertIndexedColumn(column);
     // KEY_DELIMITER is not used at the end of the rowKeys, because they are used for a range scan,
     // instead of a fixed-match lookup
@@ -280,7 +468,16 @@ public class IndexedTable extends AbstractDataset implements Table {
     byte[] stopRow = endValue == null ? Bytes.stopKeyForPrefix(Bytes.concat(keyPrefix, column, KEY_DELIMITER)) :
       Bytes.concat(keyPrefix, column, KEY_DELIMITER, endValue);
     Scanner indexScan = index.scan(startRow, stopRow);
-    return new IndexRangeScanner(indexScan, column, startValue, endValue);
+    return new IndexRangeScanner(indexScan, column, columns, startValue, endValue);
+  }
+
+  private static boolean containsColumn(byte[][] columns, byte[] column) {
+    for (byte[] col : columns) {
+      if (Bytes.equals(col, column)) {
+        return true;
+      }
+    }
+    return false;
   }
 
   private void assertIndexedColumn(byte[] column) {
@@ -298,6 +495,7 @@ public class IndexedTable extends AbstractDataset implements Table {
   @WriteOnly
   @Override
   public void put(Put put) {
+    claimCoveringGeneration();
     // if different value exists, remove current index ref
     // add a new index ref unless same value already exists
     byte[] dataRow = put.getRow();
@@ -315,7 +513,9 @@ public class IndexedTable extends AbstractDataset implements Table {
       Row existingRow = table.get(dataRow, colsToIndex.toArray(new byte[colsToIndex.size()][]));
       for (Map.Entry<byte[], byte[]> entry : existingRow.getColumns().entrySet()) {
         if (!Arrays.equals(entry.getValue(), putColumns.get(entry.getKey()))) {
-          index.delete(createIndexKey(dataRow, entry.getKey(), entry.getValue()), IDX_COL);
+          // the whole index row is deleted, including the covered values of any set of covered columns it was
+          // written with, so that they cannot be read if the index row is written again without them
+          index.delete(createIndexKey(dataRow, entry.getKey(), entry.getValue()));
         } else {
           // value already indexed
           colsToIndex.remove(entry.getKey());
@@ -330,12 +530,95 @@ public class IndexedTable extends AbstractDataset implements Table {
 
     // store the data row
     table.put(put);
+    updateCoveredValues(dataRow, putColumns.keySet());
   }
 
   private byte[] createIndexKey(byte[] row, byte[] column, byte[] value) {
     return Bytes.concat(keyPrefix, column, KEY_DELIMITER, value, KEY_DELIMITER, row);
   }
 
+  /**
+   * Rewrites the covered values in the index rows of the given data row, if the index is covering and any of the
+   * given changed columns is indexed or covered. Must be called after the data row has been updated.
+   */
+  private void updateCoveredValues(byte[] row, Collection<byte[]> changedColumns) {
+    if (coveredColumns.isEmpty()) {
+      return;
+    }
+    for (byte[] column : changedColumns) {
+      if (indexedColumns.contains(column) || coveredColumns.contains(column)) {
+        writeCoveredValues(table.get(row, indexedAndCoveredColumns));
+        return;
+      }
+    }
+  }
+
+  /**
+   * Writes the index rows for all indexed values of the given data row, with the values of the covered columns.
+   */
+  private void writeCoveredValues(Row dataRow) {
+    byte[] row = dataRow.getRow();
+    List<byte[]> putColumns = new ArrayList<>();
+    List<byte[]> putValues = new ArrayList<>();
+    List<byte[]> deleteColumns = new ArrayList<>();
+    putColumns.add(IDX_COL);
+    putValues.add(row);
+    putColumns.add(COVERED_MARKER_COL);
+    putValues.add(claimCoveringGeneration());
+    for (byte[] column : coveredColumns) {
+      byte[] value = dataRow.get(column);
+      if (value == null) {
+        deleteColumns.add(createCoveredColumnKey(column));
+      } else {
+        putColumns.add(createCoveredColumnKey(column));
+        putValues.add(value);
+      }
+    }
+    byte[][] columns = putColumns.toArray(new byte[putColumns.size()][]);
+    byte[][] values = putValues.toArray(new byte[putValues.size()][]);
+
+    for (byte[] column : indexedColumns) {
+      byte[] value = dataRow.get(column);
+      if (value == null) {
+        continue;
+      }
+      byte[] indexKey = createIndexKey(row, column, value);
+      index.put(indexKey, columns, values);
+      if (!deleteColumns.isEmpty()) {
+        index.delete(indexKey, deleteColumns.toArray(new byte[deleteColumns.size()][]));
+      }
+    }
+  }
+
+  /**
+   * Rewrites the index rows of the data rows in the given range, so that they store the values of the currently
+   * configured covered columns. This can be used to migrate the index rows of an existing dataset after the covered
+   * columns were changed, in a sequence of transactions that each process a limited number of rows.
+   *
+   * @param startRow the inclusive start of the range of data rows, {@code null} means the first row of the table
+   * @param stopRow the exclusive end of the range of data rows, {@code null} means the end of the table
+   * @param limit the maximum number of data rows to process
+   * @return the row key to use as the start row to continue, or {@code null} if the whole range was processed
+   */
+  @ReadWrite
+  @Nullable
+  public byte[] updateCoveredColumns(@Nullable byte[] startRow, @Nullable byte[] stopRow, int limit) {
+    if (coveredColumns.isEmpty()) {
+      return null;
+    }
+    claimCoveringGeneration();
+    try (Scanner scanner = table.scan(startRow, stopRow)) {
+      int count = 0;
+      for (Row row = scanner.next(); row != null; row = scanner.next()) {
+        if (count++ == limit) {
+          return row.getRow();
+        }
+        writeCoveredValues(row);
+      }
+    }
+    return null;
+  }
+
   @WriteOnly
   @Override
   public void put(byte[] row, byte[] column, byte[] value) {
@@ -373,6 +656,7 @@ public class IndexedTable extends AbstractDataset implements Table {
   @WriteOnly
   @Override
   public void delete(byte[] row) {
+    claimCoveringGeneration();
     Row existingRow = table.get(row);
     if (existingRow.isEmpty()) {
       // no row to delete
@@ -395,6 +679,7 @@ public class IndexedTable extends AbstractDataset implements Table {
   @WriteOnly
   @Override
   public void delete(byte[] row, byte[][] columns) {
+    claimCoveringGeneration();
     Row existingRow = table.get(row, columns);
     if (existingRow.isEmpty()) {
       // no row to delete
@@ -406,13 +691,14 @@ public class IndexedTable extends AbstractDataset implements Table {
 
     // delete the row's columns
     table.delete(row, columns);
+    updateCoveredValues(row, Arrays.asList(columns));
   }
 
   private void deleteIndexEntries(Row existingRow) {
     byte[] row = existingRow.getRow();
     for (Map.Entry<byte[], byte[]> entry : existingRow.getColumns().entrySet()) {
       if (indexedColumns.contains(entry.getKey())) {
-        index.delete(createIndexKey(row, entry.getKey(), entry.getValue()), IDX_COL);
+        index.delete(createIndexKey(row, entry.getKey(), entry.getValue()));
       }
     }
   }
@@ -427,13 +713,18 @@ public class IndexedTable extends AbstractDataset implements Table {
   @ReadWrite
   @Override
   public boolean compareAndSwap(byte[] row, byte[] column, byte[] expected, byte[] newValue) {
+    claimCoveringGeneration();
     // if the swap is on a column other than the column key, then
     // the index is not affected - just execute the swap.
     // also, if the swap is on the index column, but the old value
     // is the same as the new value, then the index is not affected either.
     if (!indexedColumns.contains(column) ||
         Arrays.equals(expected, newValue)) {
-      return table.compareAndSwap(row, column, expected, newValue);
+      boolean success = table.compareAndSwap(row, column, expected, newValue);
+      if (success && !Arrays.equals(expected, newValue)) {
+        updateCoveredValues(row, Collections.singleton(column));
+      }
+      return success;
     }
 
     // the swap is on the index column. it will only succeed if the current
@@ -441,7 +732,7 @@ public class IndexedTable extends AbstractDataset implements Table {
     // then we must remove the row key from the index for that value.
     Delete idxDelete = null;
     if (expected != null) {
-      idxDelete = new Delete(createIndexKey(row, column, expected), IDX_COL);
+      idxDelete = new Delete(createIndexKey(row, column, expected));
     }
 
     // if the new value is not null, then we must add the rowkey to the index
@@ -463,6 +754,7 @@ public class IndexedTable extends AbstractDataset implements Table {
     if (idxPut != null) {
       index.put(idxPut);
     }
+    updateCoveredValues(row, Collections.singleton(column));
 
     return true;
   }
@@ -496,6 +788,7 @@ public class IndexedTable extends AbstractDataset implements Table {
     if (columns.length != amounts.length) {
       throw new IllegalArgumentException("Size of columns and amounts arguments must match");
     }
+    claimCoveringGeneration();
 
     Row existingRow = table.get(row, columns);
     byte[][] updatedValues = new byte[columns.length][];
@@ -512,7 +805,7 @@ public class IndexedTable extends AbstractDataset implements Table {
         }
         existingValue = Bytes.toLong(existingBytes);
         if (indexedColumns.contains(columns[i])) {
-          index.delete(createIndexKey(row, columns[i], existingBytes), IDX_COL);
+          index.delete(createIndexKey(row, columns[i], existingBytes));
         }
       }
       updatedValues[i] = Bytes.toBytes(existingValue + amounts[i]);
@@ -523,6 +816,7 @@ public class IndexedTable extends AbstractDataset implements Table {
     }
 
     table.put(row, columns, updatedValues);
+    updateCoveredValues(row, Arrays.asList(columns));
     return new Result(row, result);
   }
 
@@ -552,43 +846,42 @@ public class IndexedTable extends AbstractDataset implements Table {
 
   /**
    * Increments (atomically) the specified row and column by the specified amount, without returning the new value.
-   * Note that performing this operation on an indexed column throws {@link java.lang.IllegalArgumentException}.
+   * Note that performing this operation on an indexed or covered column throws
+   * {@link java.lang.IllegalArgumentException}.
    *
    * @see Table#increment(byte[], byte[], long)
    */
   @WriteOnly
   @Override
   public void increment(byte[] row, byte[] column, long amount) {
-    // read-less increments should not be used on indexed columns
-    if (indexedColumns.contains(column)) {
-      throw new IllegalArgumentException("Read-less increment is not supported on indexed column '"
-                                           + Bytes.toStringBinary(column) + "'");
-    }
+    // read-less increments should not be used on indexed or covered columns
+    assertReadlessIncrement(column);
+    claimCoveringGeneration();
     table.increment(row, column, amount);
   }
 
   /**
    * Increments (atomically) the specified row and columns by the specified amounts, without returning the new values.
-   * Note that performing this operation on an indexed column throws {@link java.lang.IllegalArgumentException}.
+   * Note that performing this operation on an indexed or covered column throws
+   * {@link java.lang.IllegalArgumentException}.
    *
    * @see Table#increment(byte[], byte[][], long[])
    */
   @WriteOnly
   @Override
   public void increment(byte[] row, byte[][] columns, long[] amounts) {
-    // read-less increments should not be used on indexed columns
+    // read-less increments should not be used on indexed or covered columns
     for (byte[] col : columns) {
-      if (indexedColumns.contains(col)) {
-        throw new IllegalArgumentException("Read-less increment is not supported on indexed column '"
-                                             + Bytes.toStringBinary(col) + "'");
-      }
+      assertReadlessIncrement(col);
     }
+    claimCoveringGeneration();
     table.increment(row, columns, amounts);
   }
 
   /**
    * Increments (atomically) the specified row and columns by the specified amounts, without returning the new values.
-   * Note that performing this operation on an indexed column throws {@link java.lang.IllegalArgumentException}.
+   * Note that performing this operation on an indexed or covered column throws
+   * {@link java.lang.IllegalArgumentException}.
    *
    * @see Table#increment(Increment)
    */
@@ -596,14 +889,23 @@ public class IndexedTable extends AbstractDataset implements Table {
   @Override
   public void increment(Increment increment) {
     for (byte[] col : increment.getValues().keySet()) {
-      if (indexedColumns.contains(col)) {
-        throw new IllegalArgumentException("Read-less increment is not supported on indexed column '"
-                                             + Bytes.toStringBinary(col) + "'");
-      }
+      assertReadlessIncrement(col);
     }
+    claimCoveringGeneration();
     table.increment(increment);
   }
 
+  private void assertReadlessIncrement(byte[] column) {
+    if (indexedColumns.contains(column)) {
+      throw new IllegalArgumentException("Read-less increment is not supported on indexed column '"
+                                           + Bytes.toStringBinary(column) + "'");
+    }
+    if (coveredColumns.contains(column)) {
+      throw new IllegalArgumentException("Read-less increment is not supported on covered column '"
+                                           + Bytes.toStringBinary(column) + "'");
+    }
+  }
+
   @ReadOnly
   @Override
   public Scanner scan(@Nullable byte[] startRow, @Nullable byte[] stopRow) {
@@ -663,10 +965,32 @@ public class IndexedTable extends AbstractDataset implements Table {
     // scanner over index table
     private final Scanner baseScanner;
     private final byte[] column;
-
-    AbstractIndexScanner(Scanner baseScanner, byte[] column) {
+    // the columns to read from the data rows, null to read all columns
+    private final byte[][] projection;
+    // the columns to read with the multi-gets, which includes the index column if it is needed to filter the rows
+    private final byte[][] getColumns;
+    // the covered marker column of the index rows that rows can be read from, null to read all rows from the data table
+    private final byte[] coveringMarker;
+    // rows resolved from the index entries read so far
+    private final Deque<Row> rows = new ArrayDeque<>();
+    // start with a single row, so that reading only the first match does not read a whole batch,
+    // and double up to the configured batch size
+    private int batchSize = 1;
+    private boolean exhausted;
+
+    AbstractIndexScanner(Scanner baseScanner, byte[] column, @Nullable byte[][] projection) {
       this.baseScanner = baseScanner;
       this.column = column;
+      this.projection = projection;
+      boolean covering = projection != null && coveredColumns.containsAll(Arrays.asList(projection))
+        && (!hasColumnWithDelimiter || coveredColumns.contains(column));
+      this.coveringMarker = covering ? getCoveringMarker() : null;
+      if (projection != null && hasColumnWithDelimiter && !containsColumn(projection, column)) {
+        this.getColumns = Arrays.copyOf(projection, projection.length + 1);
+        this.getColumns[projection.length] = column;
+      } else {
+        this.getColumns = projection;
+      }
     }
 
     /**
@@ -680,9 +1004,29 @@ public class IndexedTable extends AbstractDataset implements Table {
     @Nullable
     @Override
     public Row next() {
-      // TODO: retrieve results in batches to minimize RPC overhead (requires multi-get support in table)
-      // keep going until we hit a non-null, non-empty data row, or we exhaust the index
-      for (Row indexRow = baseScanner.next(); indexRow != null; indexRow = baseScanner.next()) {
+      // keep reading batches until there is a row to return, or we exhaust the index
+      while (rows.isEmpty() && !exhausted) {
+        readBatch();
+      }
+      return rows.poll();
+    }
+
+    /**
+     * Reads the next batch of index entries, and resolves the ones that cannot be answered from the index rows
+     * with a single multi-get on the data table.
+     */
+    private void readBatch() {
+      List<byte[]> columnValues = new ArrayList<>(batchSize);
+      // the rows read from the index rows, or null for the rows to read from the data table
+      List<Row> indexedRows = new ArrayList<>(batchSize);
+      List<Get> gets = new ArrayList<>(batchSize);
+
+      while (columnValues.size() < batchSize) {
+        Row indexRow = baseScanner.next();
+        if (indexRow == null) {
+          exhausted = true;
+          break;
+        }
         byte[] rowkey = indexRow.get(IDX_COL);
         if (rowkey == null) {
           LOG.warn("Row of Indexed table '{}' is missing index column. Row key: {}", getName(), indexRow.getRow());
@@ -693,19 +1037,64 @@ public class IndexedTable extends AbstractDataset implements Table {
                                                 indexRow.getRow().length - rowkey.length - 1);
         // Verify that datarow matches the expected row key to avoid issues with column name or value
         // containing the delimiter used. This is a sufficient check, as long as columns don't contain the null byte.
-        if (matches(columnValue)) {
-          Row row = table.get(rowkey);
-          // If a column has null byte (the key delimiter) in it, then we need to check against the data row's column
-          // to be sure this row isn't a false positive in the scan.
-          // For reference, take a look at IndexedTableTest#testIndexKeyDelimiterAmbiguity
-          if (hasColumnWithDelimiter && !Bytes.equals(row.get(column), columnValue)) {
+        if (!matches(columnValue)) {
+          continue;
+        }
+        if (coveringMarker != null && Bytes.equals(indexRow.get(COVERED_MARKER_COL), coveringMarker)) {
+          // the index column is covered if it has the delimiter, see below for the false positive check
+          if (hasColumnWithDelimiter && !Bytes.equals(indexRow.get(createCoveredColumnKey(column)), columnValue)) {
             continue;
           }
-          return row;
+          columnValues.add(columnValue);
+          indexedRows.add(createCoveredRow(rowkey, indexRow));
+        } else {
+          columnValues.add(columnValue);
+          indexedRows.add(null);
+          gets.add(getColumns == null ? new Get(rowkey) : new Get(rowkey, getColumns));
         }
       }
-      // end of index
-      return null;
+
+      List<Row> dataRows = gets.isEmpty() ? Collections.<Row>emptyList() : table.get(gets);
+      int dataRowIdx = 0;
+      for (int i = 0; i < columnValues.size(); i++) {
+        if (indexedRows.get(i) != null) {
+          rows.add(indexedRows.get(i));
+          continue;
+        }
+        Row row = dataRows.get(dataRowIdx++);
+        // If a column has null byte (the key delimiter) in it, then we need to check against the data row's column
+        // to be sure this row isn't a false positive in the scan.
+        // For reference, take a look at IndexedTableTest#testIndexKeyDelimiterAmbiguity
+        if (hasColumnWithDelimiter && !Bytes.equals(row.get(column), columnValues.get(i))) {
+          continue;
+        }
+        rows.add(getColumns == projection ? row : project(row));
+      }
+      batchSize = Math.min(batchSize * 2, scanBatchSize);
+    }
+
+    /**
+     * Creates a row with the projected columns from the covered values stored in an index row.
+     */
+    private Row createCoveredRow(byte[] rowkey, Row indexRow) {
+      NavigableMap<byte[], byte[]> columns = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      for (byte[] col : projection) {
+        byte[] value = indexRow.get(createCoveredColumnKey(col));
+        if (value != null) {
+          columns.put(col, value);
+        }
+      }
+      return new Result(rowkey, columns);
+    }
+
+    /**
+     * Removes the columns that are only read to filter the rows from a data row.
+     */
+    private Row project(Row row) {
+      NavigableMap<byte[], byte[]> columns = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      columns.putAll(row.getColumns());
+      columns.remove(column);
+      return new Result(row.getRow(), columns);
     }
 
     @Override
@@ -718,8 +1107,8 @@ public class IndexedTable extends AbstractDataset implements Table {
   private class IndexScanner extends AbstractIndexScanner {
     private final byte[] value;
 
-    IndexScanner(Scanner baseScanner, byte[] column, byte[] value) {
-      super(baseScanner, column);
+    IndexScanner(Scanner baseScanner, byte[] column, @Nullable byte[][] projection, byte[] value) {
+      super(baseScanner, column, projection);
       this.value = value;
     }
 
@@ -734,8 +1123,9 @@ public class IndexedTable extends AbstractDataset implements Table {
     private final byte[] start;
     private final byte[] end;
 
-    IndexRangeScanner(Scanner baseScanner, byte[] column, @Nullable byte[] start, @Nullable byte[] end) {
-      super(baseScanner, column);
+    IndexRangeScanner(Scanner baseScanner, byte[] column, @Nullable byte[][] projection,
+                      @Nullable byte[] start, @Nullable byte[] end) {
+      super(baseScanner, column, projection);
       this.start = start;
       this.end = end;
     }
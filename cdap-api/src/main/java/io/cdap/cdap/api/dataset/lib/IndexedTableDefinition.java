@@ -90,6 +90,7 @@ public class IndexedTableDefinition
                                  Map<String, String> arguments, ClassLoader classLoader) throws IOException {
 
     SortedSet<byte[]> columnsToIndex;
+    String coveredColumns;
     String keyPrefix = null;
     boolean dynamicIndexing = Boolean.parseBoolean(spec.getProperty(IndexedTable.DYNAMIC_INDEXING));
     if (dynamicIndexing) {
@@ -100,6 +101,7 @@ public class IndexedTableDefinition
           "columnsToIndex must be specified in runtime arguments when dynamic indexing is enabled");
       }
       columnsToIndex = parseColumns(columnsToIndexProp);
+      coveredColumns = arguments.get(IndexedTable.COVERED_COLUMNS_CONF_KEY);
 
       // Dynamic indexing also needs a key prefix
       keyPrefix = arguments.get(IndexedTable.DYNAMIC_INDEXING_PREFIX);
@@ -108,13 +110,24 @@ public class IndexedTableDefinition
       }
     } else {
       columnsToIndex = parseColumns(spec.getProperty(IndexedTable.INDEX_COLUMNS_CONF_KEY));
+      coveredColumns = spec.getProperty(IndexedTable.COVERED_COLUMNS_CONF_KEY);
+    }
+
+    // the batch size only affects reads, hence it can be overridden at runtime
+    String batchSize = arguments.get(IndexedTable.INDEX_SCAN_BATCH_SIZE);
+    if (batchSize == null) {
+      batchSize = spec.getProperty(IndexedTable.INDEX_SCAN_BATCH_SIZE);
     }
 
     Table table = getDataset(datasetContext, "d", spec, arguments, classLoader);
     Table index = getDataset(datasetContext, "i", spec, arguments, classLoader);
 
     return new IndexedTable(spec.getName(), table, index, columnsToIndex,
-                            keyPrefix == null ? Bytes.EMPTY_BYTE_ARRAY : Bytes.toBytes(keyPrefix));
+                            keyPrefix == null ? Bytes.EMPTY_BYTE_ARRAY : Bytes.toBytes(keyPrefix),
+                            coveredColumns == null || coveredColumns.isEmpty()
+                              ? new TreeSet<>(Bytes.BYTES_COMPARATOR) : parseColumns(coveredColumns),
+                            batchSize == null ? IndexedTable.DEFAULT_INDEX_SCAN_BATCH_SIZE
+                              : Integer.parseInt(batchSize));
   }
 
   /**
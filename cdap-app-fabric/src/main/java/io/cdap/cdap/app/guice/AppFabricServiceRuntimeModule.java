@@ -16,8 +16,6 @@
 
 package io.cdap.cdap.app.guice;
 
-import com.google.common.base.Supplier;
-import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.inject.AbstractModule;
 import com.google.inject.Module;
@@ -82,11 +80,8 @@ import io.cdap.cdap.internal.app.runtime.artifact.LocalArtifactRepositoryReader;
 import io.cdap.cdap.internal.app.runtime.artifact.LocalPluginFinder;
 import io.cdap.cdap.internal.app.runtime.artifact.PluginFinder;
 import io.cdap.cdap.internal.app.runtime.schedule.DistributedTimeSchedulerService;
-import io.cdap.cdap.internal.app.runtime.schedule.ExecutorThreadPool;
 import io.cdap.cdap.internal.app.runtime.schedule.LocalTimeSchedulerService;
 import io.cdap.cdap.internal.app.runtime.schedule.TimeSchedulerService;
-import io.cdap.cdap.internal.app.runtime.schedule.store.DatasetBasedTimeScheduleStore;
-import io.cdap.cdap.internal.app.runtime.schedule.store.TriggerMisfireLogger;
 import io.cdap.cdap.internal.app.runtime.workflow.BasicWorkflowStateWriter;
 import io.cdap.cdap.internal.app.runtime.workflow.WorkflowStateWriter;
 import io.cdap.cdap.internal.app.services.LocalRunRecordCorrectorService;
@@ -113,17 +108,6 @@ import io.cdap.cdap.security.impersonation.UGIProvider;
 import io.cdap.cdap.security.impersonation.UnsupportedUGIProvider;
 import io.cdap.cdap.security.store.SecureStoreHandler;
 import io.cdap.http.HttpHandler;
-import org.quartz.SchedulerException;
-import org.quartz.core.JobRunShellFactory;
-import org.quartz.core.QuartzScheduler;
-import org.quartz.core.QuartzSchedulerResources;
-import org.quartz.impl.DefaultThreadExecutor;
-import org.quartz.impl.DirectSchedulerFactory;
-import org.quartz.impl.StdJobRunShellFactory;
-import org.quartz.impl.StdScheduler;
-import org.quartz.simpl.CascadingClassLoadHelper;
-import org.quartz.spi.ClassLoadHelper;
-import org.quartz.spi.JobStore;
 
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
@@ -361,71 +345,5 @@ public final class AppFabricServiceRuntimeModule extends RuntimeModule {
       String address = cConf.get(Constants.Service.MASTER_SERVICES_BIND_ADDRESS);
       return Networks.resolve(address, new InetSocketAddress("localhost", 0).getAddress());
     }
-
-    /**
-     * Provides a supplier of quartz scheduler so that initialization of the scheduler can be done after guice
-     * injection. It returns a singleton of Scheduler.
-     */
-    @Provides
-    @SuppressWarnings("unused")
-    public Supplier<org.quartz.Scheduler> providesSchedulerSupplier(final DatasetBasedTimeScheduleStore scheduleStore,
-                                                                    final CConfiguration cConf) {
-      return new Supplier<org.quartz.Scheduler>() {
-        private org.quartz.Scheduler scheduler;
-
-        @Override
-        public synchronized org.quartz.Scheduler get() {
-          try {
-            if (scheduler == null) {
-              scheduler = getScheduler(scheduleStore, cConf);
-            }
-            return scheduler;
-          } catch (Exception e) {
-            throw Throwables.propagate(e);
-          }
-        }
-      };
-    }
-
-    /**
-     * Create a quartz scheduler. Quartz factory method is not used, because inflexible in allowing custom jobstore
-     * and turning off check for new versions.
-     * @param store JobStore.
-     * @param cConf CConfiguration.
-     * @return an instance of {@link org.quartz.Scheduler}
-     */
-    private org.quartz.Scheduler getScheduler(JobStore store,
-                                              CConfiguration cConf) throws SchedulerException {
-
-      int threadPoolSize = cConf.getInt(Constants.Scheduler.CFG_SCHEDULER_MAX_THREAD_POOL_SIZE);
-      ExecutorThreadPool threadPool = new ExecutorThreadPool(threadPoolSize);
-      threadPool.initialize();
-      String schedulerName = DirectSchedulerFactory.DEFAULT_SCHEDULER_NAME;
-      String schedulerInstanceId = DirectSchedulerFactory.DEFAULT_INSTANCE_ID;
-
-      QuartzSchedulerResources qrs = new QuartzSchedulerResources();
-      JobRunShellFactory jrsf = new StdJobRunShellFactory();
-
-      qrs.setName(schedulerName);
-      qrs.setInstanceId(schedulerInstanceId);
-      qrs.setJobRunShellFactory(jrsf);
-      qrs.setThreadPool(threadPool);
-      qrs.setThreadExecutor(new DefaultThreadExecutor());
-      qrs.setJobStore(store);
-      qrs.setRunUpdateCheck(false);
-      QuartzScheduler qs = new QuartzScheduler(qrs, -1, -1);
-
-      ClassLoadHelper cch = new CascadingClassLoadHelper();
-      cch.initialize();
-
-      store.initialize(cch, qs.getSchedulerSignaler());
-      org.quartz.Scheduler scheduler = new StdScheduler(qs);
-
-      jrsf.initialize(scheduler);
-      qs.initialize();
-
-      scheduler.getListenerManager().addTriggerListener(new TriggerMisfireLogger());
-      return scheduler;
-    }
   }
 }
@@ -23,6 +23,7 @@ import com.google.inject.util.Modules;
 import io.cdap.cdap.app.runtime.Arguments;
 import io.cdap.cdap.app.runtime.ProgramStateWriter;
 import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.guice.ConfigModule;
 import io.cdap.cdap.common.guice.DFSLocationModule;
 import io.cdap.cdap.common.guice.IOModule;
@@ -38,6 +39,7 @@ import io.cdap.cdap.data.runtime.DataFabricModules;
 import io.cdap.cdap.data.runtime.DataSetServiceModules;
 import io.cdap.cdap.data.runtime.DataSetsModules;
 import io.cdap.cdap.data2.audit.AuditModule;
+import io.cdap.cdap.data2.datafabric.dataset.DatasetMetaCache;
 import io.cdap.cdap.data2.metadata.writer.FieldLineageWriter;
 import io.cdap.cdap.data2.metadata.writer.LineageWriter;
 import io.cdap.cdap.data2.metadata.writer.MessagingLineageWriter;
@@ -197,6 +199,12 @@ public class DistributedProgramContainerModule extends AbstractModule {
       protected void configure() {
         // bind explore client to ProgramDiscoveryExploreClient which is aware of the programId
         bind(ExploreClient.class).to(ProgramDiscoveryExploreClient.class).in(Scopes.SINGLETON);
+
+        // Cache dataset metadata and types in the container to avoid calling the dataset service on every
+        // dataset instantiation. Changes made by others are only seen through the audit messages.
+        if (cConf.getLong(Constants.Dataset.META_CACHE_TTL_SECS) > 0 && cConf.getBoolean(Constants.Audit.ENABLED)) {
+          bind(DatasetMetaCache.class).toInstance(new DatasetMetaCache(cConf));
+        }
       }
     });
   }
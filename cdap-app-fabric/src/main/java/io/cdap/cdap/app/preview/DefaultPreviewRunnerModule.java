@@ -20,6 +20,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.inject.Binder;
 import com.google.inject.Inject;
 import com.google.inject.PrivateModule;
+import com.google.inject.Provider;
 import com.google.inject.Scopes;
 import com.google.inject.TypeLiteral;
 import com.google.inject.assistedinject.Assisted;
@@ -67,6 +68,8 @@ import io.cdap.cdap.security.spi.authorization.AuthorizationEnforcer;
 import io.cdap.cdap.security.spi.authorization.PrivilegesManager;
 import io.cdap.cdap.store.DefaultOwnerStore;
 
+import java.util.function.Supplier;
+
 /**
  * Provides bindings required to create injector for running preview.
  */
@@ -79,7 +82,7 @@ public class DefaultPreviewRunnerModule extends PrivateModule implements Preview
   private final PrivilegesManager privilegesManager;
   private final PreferencesService preferencesService;
   private final ProgramRuntimeProviderLoader programRuntimeProviderLoader;
-  private final PreviewRequest previewRequest;
+  private final Supplier<PreviewRequest> previewRequestSupplier;
 
   @VisibleForTesting
   @Inject
@@ -88,7 +91,7 @@ public class DefaultPreviewRunnerModule extends PrivateModule implements Preview
                                     AuthorizationEnforcer authorizationEnforcer,
                                     PrivilegesManager privilegesManager, PreferencesService preferencesService,
                                     ProgramRuntimeProviderLoader programRuntimeProviderLoader,
-                                    @Assisted PreviewRequest previewRequest) {
+                                    @Assisted Supplier<PreviewRequest> previewRequestSupplier) {
     this.artifactRepository = artifactRepository;
     this.artifactStore = artifactStore;
     this.authorizerInstantiator = authorizerInstantiator;
@@ -96,7 +99,7 @@ public class DefaultPreviewRunnerModule extends PrivateModule implements Preview
     this.privilegesManager = privilegesManager;
     this.preferencesService = preferencesService;
     this.programRuntimeProviderLoader = programRuntimeProviderLoader;
-    this.previewRequest = previewRequest;
+    this.previewRequestSupplier = previewRequestSupplier;
   }
 
   @Override
@@ -161,7 +164,12 @@ public class DefaultPreviewRunnerModule extends PrivateModule implements Preview
     bind(OwnerAdmin.class).to(DefaultOwnerAdmin.class);
     expose(OwnerAdmin.class);
 
-    bind(PreviewRequest.class).toInstance(previewRequest);
+    bind(PreviewRequest.class).toProvider(new Provider<PreviewRequest>() {
+      @Override
+      public PreviewRequest get() {
+        return previewRequestSupplier.get();
+      }
+    });
   }
 
   /**
@@ -18,10 +18,17 @@ package io.cdap.cdap.app.preview;
 
 import com.google.inject.Module;
 
+import java.util.function.Supplier;
+
 /**
  * A factory for creating guice {@link Module} for a given {@link PreviewRequest}.
  */
 public interface PreviewRunnerModuleFactory {
 
-  PreviewRunnerModule create(PreviewRequest previewRequest);
+  /**
+   * Creates the module for the {@link PreviewRequest} provided by the given supplier. The supplier is only called
+   * when the {@link PreviewRequest} is needed by the injector, which allows creating the injector before the
+   * request is known.
+   */
+  PreviewRunnerModule create(Supplier<PreviewRequest> previewRequestSupplier);
 }
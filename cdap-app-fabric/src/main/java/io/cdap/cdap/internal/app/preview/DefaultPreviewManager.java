@@ -17,6 +17,7 @@
 package io.cdap.cdap.internal.app.preview;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.common.util.concurrent.Service;
 import com.google.inject.AbstractModule;
@@ -29,6 +30,8 @@ import com.google.inject.Scopes;
 import com.google.inject.name.Named;
 import com.google.inject.name.Names;
 import com.google.inject.util.Modules;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.api.metrics.MetricsContext;
 import io.cdap.cdap.api.security.store.SecureStore;
 import io.cdap.cdap.app.guice.AppFabricServiceRuntimeModule;
 import io.cdap.cdap.app.guice.ProgramRunnerRuntimeModule;
@@ -39,6 +42,7 @@ import io.cdap.cdap.app.preview.PreviewRunnerModuleFactory;
 import io.cdap.cdap.app.preview.PreviewStatus;
 import io.cdap.cdap.common.BadRequestException;
 import io.cdap.cdap.common.NotFoundException;
+import io.cdap.cdap.common.ServiceUnavailableException;
 import io.cdap.cdap.common.app.RunIds;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
@@ -53,7 +57,9 @@ import io.cdap.cdap.config.guice.ConfigStoreModule;
 import io.cdap.cdap.data.runtime.DataSetServiceModules;
 import io.cdap.cdap.data.runtime.DataSetsModules;
 import io.cdap.cdap.data.runtime.preview.PreviewDataModules;
+import io.cdap.cdap.data2.datafabric.dataset.service.executor.DatasetOpExecutorService;
 import io.cdap.cdap.data2.dataset2.DatasetFramework;
+import io.cdap.cdap.data2.dataset2.lib.table.leveldb.LevelDBTableService;
 import io.cdap.cdap.data2.metadata.writer.MetadataServiceClient;
 import io.cdap.cdap.data2.metadata.writer.NoOpMetadataServiceClient;
 import io.cdap.cdap.internal.app.runtime.artifact.ArtifactRepository;
@@ -66,6 +72,7 @@ import io.cdap.cdap.internal.provision.ProvisionerModule;
 import io.cdap.cdap.logging.guice.LocalLogAppenderModule;
 import io.cdap.cdap.logging.read.FileLogReader;
 import io.cdap.cdap.logging.read.LogReader;
+import io.cdap.cdap.messaging.MessagingService;
 import io.cdap.cdap.messaging.guice.MessagingServerRuntimeModule;
 import io.cdap.cdap.metadata.MetadataReaderWriterModules;
 import io.cdap.cdap.metrics.guice.MetricsClientRuntimeModule;
@@ -77,10 +84,14 @@ import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.ProgramId;
 import io.cdap.cdap.security.auth.context.AuthenticationContextModules;
 import io.cdap.cdap.security.guice.preview.PreviewSecureStoreModule;
+import io.cdap.cdap.spi.data.StructuredTableAdmin;
+import io.cdap.cdap.spi.data.table.StructuredTableRegistry;
+import io.cdap.cdap.store.StoreDefinition;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.CommonConfigurationKeysPublic;
 import org.apache.hadoop.mapreduce.MRConfig;
 import org.apache.tephra.TransactionSystemClient;
+import org.apache.twill.common.Threads;
 import org.apache.twill.discovery.DiscoveryService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -89,23 +100,44 @@ import java.io.File;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 /**
  * Class responsible for creating the injector for preview and starting it.
+ *
+ * To reduce the preview startup latency, a pool of preview runner environments is initialized ahead of time,
+ * each with its own injector, data directory and storage tables. A preview request takes an environment from
+ * the pool and the pool is refilled in the background. Environments are not reused after their preview is evicted,
+ * since the {@link PreviewRunner} of an injector can only be started once.
+ *
+ * Preview requests that arrive when the maximum number of previews is retained and none of them has completed are
+ * rejected with a {@link ServiceUnavailableException}, so that the client can retry later.
  */
 public class DefaultPreviewManager extends AbstractIdleService implements PreviewManager {
 
   private static final Logger LOG = LoggerFactory.getLogger(DefaultPreviewManager.class);
+  // Prefix of the data directory of pooled environments
+  private static final String POOL_DIR_PREFIX = "pool-";
+  // File in the data directory of a pooled environment to record the preview program it was taken for
+  private static final String PROGRAM_FILE = "preview.program";
 
   private final CConfiguration cConf;
   private final Configuration hConf;
@@ -118,13 +150,18 @@ public class DefaultPreviewManager extends AbstractIdleService implements Previe
   private final ConcurrentMap<ApplicationId, Injector> appInjectors;
   private final Path previewDataDir;
   private final PreviewRunnerModuleFactory previewRunnerModuleFactory;
+  private final MetricsContext metricsContext;
+  private final int runnerPoolSize;
+  private final BlockingQueue<PooledEnvironment> runnerPool;
+  private volatile ExecutorService poolExecutor;
 
   @Inject
   DefaultPreviewManager(CConfiguration cConf, Configuration hConf,
                         SConfiguration sConf, DiscoveryService discoveryService,
                         @Named(DataSetsModules.BASE_DATASET_FRAMEWORK) DatasetFramework datasetFramework,
                         SecureStore secureStore, TransactionSystemClient transactionSystemClient,
-                        PreviewRunnerModuleFactory previewRunnerModuleFactory) {
+                        PreviewRunnerModuleFactory previewRunnerModuleFactory,
+                        MetricsCollectionService metricsCollectionService) {
     this.cConf = cConf;
     this.hConf = hConf;
     this.sConf = sConf;
@@ -136,14 +173,29 @@ public class DefaultPreviewManager extends AbstractIdleService implements Previe
     this.appInjectors = new ConcurrentHashMap<>();
     this.maxPreviews = cConf.getInt(Constants.Preview.PREVIEW_CACHE_SIZE, 10);
     this.previewRunnerModuleFactory = previewRunnerModuleFactory;
+    this.metricsContext = metricsCollectionService.getContext(ImmutableMap.of(
+      Constants.Metrics.Tag.NAMESPACE, NamespaceId.SYSTEM.getNamespace(),
+      Constants.Metrics.Tag.COMPONENT, Constants.Service.PREVIEW_HTTP));
+    this.runnerPoolSize = cConf.getInt(Constants.Preview.RUNNER_POOL_SIZE);
+    this.runnerPool = new LinkedBlockingQueue<>();
   }
 
   @Override
   protected void startUp() throws Exception {
     File previewDir = previewDataDir.toFile();
 
+    // Pooled environments that were never taken by any preview are not needed anymore
+    List<File> previewRunDirs = new ArrayList<>();
+    for (File dir : DirUtils.listFiles(previewDir, File::isDirectory)) {
+      if (dir.getName().startsWith(POOL_DIR_PREFIX) && !new File(dir, PROGRAM_FILE).isFile()) {
+        deleteDirQuietly(dir.toPath());
+      } else {
+        previewRunDirs.add(dir);
+      }
+    }
+
     // Only load the latest maxPreviews and delete the rest
-    List<File> previewRunDirs = DirUtils.listFiles(previewDir, File::isDirectory).stream()
+    previewRunDirs = previewRunDirs.stream()
       .sorted((f1, f2) -> Long.compare(f2.lastModified(), f1.lastModified()))
       .collect(Collectors.toList());
 
@@ -162,6 +214,10 @@ public class DefaultPreviewManager extends AbstractIdleService implements Previe
       ProgramId programId;
       String name = file.getName();
       try {
+        File programFile = new File(file, PROGRAM_FILE);
+        if (programFile.isFile()) {
+          name = new String(Files.readAllBytes(programFile.toPath()), StandardCharsets.UTF_8).trim();
+        }
         String[] parts = name.split("\\.");
         programId = new ProgramId(parts[0], parts[1], parts[2], parts[3]);
       } catch (Exception e) {
@@ -169,7 +225,8 @@ public class DefaultPreviewManager extends AbstractIdleService implements Previe
         LOG.debug("Failed to parse the file directory {} to a valid preview id", name, e);
         continue;
       }
-      Injector injector = createPreviewInjector(new PreviewRequest(programId));
+      PreviewRequest previewRequest = new PreviewRequest(programId);
+      Injector injector = createPreviewInjector(() -> previewRequest, file.toPath());
       PreviewRunner runner = injector.getInstance(PreviewRunner.class);
       if (runner instanceof Service) {
         try {
@@ -185,15 +242,31 @@ public class DefaultPreviewManager extends AbstractIdleService implements Previe
         appInjectors.put(programId.getParent(), injector);
       }
     }
+
+    if (runnerPoolSize > 0) {
+      poolExecutor = Executors.newSingleThreadExecutor(Threads.createDaemonThreadFactory("preview-runner-pool"));
+      for (int i = 0; i < runnerPoolSize; i++) {
+        poolExecutor.execute(this::addPooledEnvironment);
+      }
+    }
   }
 
   @Override
   protected synchronized void shutDown() throws Exception {
-    appInjectors.values().stream()
-      .map(injector -> injector.getInstance(PreviewRunner.class))
-      .filter(Service.class::isInstance)
-      .map(Service.class::cast)
-      .forEach(this::stopQuietly);
+    ExecutorService poolExecutor = this.poolExecutor;
+    if (poolExecutor != null) {
+      // Wait for the environment being initialized to be added to the pool, so that it can be stopped below
+      poolExecutor.shutdownNow();
+      poolExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+    PooledEnvironment environment = runnerPool.poll();
+    while (environment != null) {
+      stopEnvironmentServices(environment.injector);
+      deleteDirQuietly(environment.dir);
+      environment = runnerPool.poll();
+    }
+
+    appInjectors.values().forEach(this::stopEnvironment);
   }
 
   @Override
@@ -206,16 +279,8 @@ public class DefaultPreviewManager extends AbstractIdleService implements Previe
       throw new IllegalStateException("Preview service is not running. Cannot start preview for " + programId);
     }
 
-    Injector injector;
-    synchronized (this) {
-      if (!ensureCapacity()) {
-        throw new IllegalStateException("No more than " + maxPreviews + " can be executed concurrently");
-      }
-
-      PreviewRequest previewRequest = new PreviewRequest(programId, appRequest);
-      injector = createPreviewInjector(previewRequest);
-      appInjectors.put(previewApp, injector);
-    }
+    long startTime = System.currentTimeMillis();
+    Injector injector = acquireInjector(new PreviewRequest(programId, appRequest));
 
     PreviewRunner runner = injector.getInstance(PreviewRunner.class);
     if (runner instanceof Service) {
@@ -223,13 +288,12 @@ public class DefaultPreviewManager extends AbstractIdleService implements Previe
     }
     try {
       runner.startPreview();
+      metricsContext.gauge(Constants.Metrics.Preview.STARTUP_MILLIS, System.currentTimeMillis() - startTime);
       return previewApp;
     } catch (Exception e) {
-      if (runner instanceof Service) {
-        stopQuietly((Service) runner);
-      }
+      stopEnvironment(injector);
       appInjectors.remove(previewApp);
-      removePreviewDir(programId);
+      removePreviewDir(programId, injector);
       throw e;
     }
   }
@@ -254,6 +318,78 @@ public class DefaultPreviewManager extends AbstractIdleService implements Previe
     return injector.getInstance(LogReader.class);
   }
 
+  /**
+   * Acquires an injector for the given preview request.
+   *
+   * @throws ServiceUnavailableException if the maximum number of previews are retained and none of them has completed
+   */
+  private synchronized Injector acquireInjector(PreviewRequest previewRequest) throws IOException {
+    if (!ensureCapacity()) {
+      throw new ServiceUnavailableException(Constants.Service.PREVIEW_HTTP,
+                                            "No more than " + maxPreviews + " previews can be executed concurrently. "
+                                              + "Please retry after a preview has completed.");
+    }
+    Injector injector = takeInjector(previewRequest);
+    appInjectors.put(previewRequest.getProgram().getParent(), injector);
+    return injector;
+  }
+
+  /**
+   * Takes an environment from the pool for the given preview request, or creates a new injector if the pool is empty.
+   */
+  private Injector takeInjector(PreviewRequest previewRequest) throws IOException {
+    PooledEnvironment environment = runnerPool.poll();
+    if (environment == null) {
+      metricsContext.increment(Constants.Metrics.Preview.RUNNER_POOL_MISSES, 1L);
+      return createPreviewInjector(previewRequest);
+    }
+
+    metricsContext.increment(Constants.Metrics.Preview.RUNNER_POOL_HITS, 1L);
+    environment.assign(previewRequest);
+    // Record the program so that the preview can be loaded on restart
+    Files.write(environment.dir.resolve(PROGRAM_FILE),
+                getPreviewDirName(previewRequest.getProgram()).getBytes(StandardCharsets.UTF_8));
+
+    ExecutorService poolExecutor = this.poolExecutor;
+    if (poolExecutor != null && !poolExecutor.isShutdown()) {
+      poolExecutor.execute(this::addPooledEnvironment);
+    }
+    LOG.debug("Using pooled preview runner environment at {} for {}", environment.dir, previewRequest.getProgram());
+    return environment.injector;
+  }
+
+  /**
+   * Creates a new environment and adds it to the pool.
+   */
+  private void addPooledEnvironment() {
+    PooledEnvironment environment = new PooledEnvironment(previewDataDir.resolve(POOL_DIR_PREFIX + UUID.randomUUID()));
+    Path dir = environment.dir;
+    Injector injector = null;
+    try {
+      // The preview request is only needed once the PreviewRunner is instantiated, after the environment is taken
+      injector = createPreviewInjector(environment, dir);
+
+      // Create the storage tables and start the services that don't depend on the preview request
+      StoreDefinition.createAllTables(injector.getInstance(StructuredTableAdmin.class),
+                                      injector.getInstance(StructuredTableRegistry.class), false);
+      MessagingService messagingService = injector.getInstance(MessagingService.class);
+      if (messagingService instanceof Service) {
+        ((Service) messagingService).startAndWait();
+      }
+      injector.getInstance(DatasetOpExecutorService.class).startAndWait();
+
+      environment.injector = injector;
+      runnerPool.add(environment);
+      LOG.debug("Added preview runner environment at {} to the pool", dir);
+    } catch (Exception e) {
+      LOG.warn("Failed to create preview runner environment at {}", dir, e);
+      if (injector != null) {
+        stopEnvironmentServices(injector);
+      }
+      deleteDirQuietly(dir);
+    }
+  }
+
   /**
    * Ensures there is available slots for running preview.
    *
@@ -284,12 +420,9 @@ public class DefaultPreviewManager extends AbstractIdleService implements Previe
     }
 
     Injector injector = appInjectors.remove(applicationId);
-    PreviewRunner runner = injector.getInstance(PreviewRunner.class);
-    if (runner instanceof Service) {
-      stopQuietly((Service) runner);
-    }
-    ProgramId programId = runner.getPreviewRequest().getProgram();
-    removePreviewDir(programId);
+    stopEnvironment(injector);
+    ProgramId programId = injector.getInstance(PreviewRunner.class).getPreviewRequest().getProgram();
+    removePreviewDir(programId, injector);
     LOG.debug("Evicted old preview run {}", programId);
     return true;
   }
@@ -299,6 +432,15 @@ public class DefaultPreviewManager extends AbstractIdleService implements Previe
    */
   @VisibleForTesting
   Injector createPreviewInjector(PreviewRequest previewRequest) throws IOException {
+    return createPreviewInjector(() -> previewRequest, getPreviewDirPath(previewRequest.getProgram()));
+  }
+
+  /**
+   * Create injector for the preview request provided by the given supplier, using the given directory for storing
+   * the preview data.
+   */
+  private Injector createPreviewInjector(Supplier<PreviewRequest> previewRequestSupplier,
+                                         Path dir) throws IOException {
     CConfiguration previewCConf = CConfiguration.copy(cConf);
 
     // Change all services bind address to local host
@@ -308,7 +450,7 @@ public class DefaultPreviewManager extends AbstractIdleService implements Previe
       .filter(s -> s.endsWith(".bind.address"))
       .forEach(key -> previewCConf.set(key, localhost));
 
-    Path previewDir = Files.createDirectories(getPreviewDirPath(previewRequest.getProgram()));
+    Path previewDir = Files.createDirectories(dir);
 
     previewCConf.set(Constants.CFG_LOCAL_DATA_DIR, previewDir.toString());
     previewCConf.setIfUnset(Constants.CFG_DATA_LEVELDB_DIR, previewDir.toString());
@@ -332,7 +474,7 @@ public class DefaultPreviewManager extends AbstractIdleService implements Previe
       new PreviewDiscoveryRuntimeModule(discoveryService),
       new LocalLocationModule(),
       new ConfigStoreModule(),
-      previewRunnerModuleFactory.create(previewRequest),
+      previewRunnerModuleFactory.create(previewRequestSupplier),
       new ProgramRunnerRuntimeModule().getStandaloneModules(),
       new PreviewDataModules().getDataFabricModule(transactionSystemClient),
       new PreviewDataModules().getDataSetsModule(datasetFramework),
@@ -385,6 +527,11 @@ public class DefaultPreviewManager extends AbstractIdleService implements Previe
     return new HashMap<>(appInjectors);
   }
 
+  @VisibleForTesting
+  int getRunnerPoolSize() {
+    return runnerPool.size();
+  }
+
   private ProgramId getProgramIdFromRequest(ApplicationId preview, AppRequest request) throws BadRequestException {
     PreviewConfig previewConfig = request.getPreview();
     if (previewConfig == null) {
@@ -409,19 +556,86 @@ public class DefaultPreviewManager extends AbstractIdleService implements Previe
     }
   }
 
-  private void removePreviewDir(ProgramId programId) {
-    Path previewDirPath = getPreviewDirPath(programId);
+  /**
+   * Stops the preview runner of the given injector, as well as the services started for a pooled environment.
+   */
+  private void stopEnvironment(Injector injector) {
+    PreviewRunner runner = injector.getInstance(PreviewRunner.class);
+    if (runner instanceof Service) {
+      stopQuietly((Service) runner);
+    }
+    stopEnvironmentServices(injector);
+  }
+
+  /**
+   * Stops the services started when the environment was added to the pool. It is a no-op for services
+   * that are already stopped by the preview runner.
+   */
+  private void stopEnvironmentServices(Injector injector) {
+    stopQuietly(injector.getInstance(DatasetOpExecutorService.class));
+    MessagingService messagingService = injector.getInstance(MessagingService.class);
+    if (messagingService instanceof Service) {
+      stopQuietly((Service) messagingService);
+    }
+    injector.getInstance(LevelDBTableService.class).close();
+  }
+
+  private void removePreviewDir(ProgramId programId, Injector injector) {
+    DataTracerFactoryProvider.removeDataTracerFactory(programId.getParent());
+    deleteDirQuietly(Paths.get(injector.getInstance(CConfiguration.class).get(Constants.CFG_LOCAL_DATA_DIR)));
+  }
+
+  private void deleteDirQuietly(Path dir) {
     try {
-      DataTracerFactoryProvider.removeDataTracerFactory(programId.getParent());
-      DirUtils.deleteDirectoryContents(previewDirPath.toFile());
+      DirUtils.deleteDirectoryContents(dir.toFile());
     } catch (IOException e) {
-      LOG.debug("Error deleting the preview directory {}", previewDirPath, e);
+      LOG.debug("Error deleting the preview directory {}", dir, e);
     }
   }
 
   private Path getPreviewDirPath(ProgramId programId) {
+    return previewDataDir.resolve(getPreviewDirName(programId));
+  }
+
+  private String getPreviewDirName(ProgramId programId) {
     // the preview directory will be <namespace-name>.<app-id>.<program-type>.<program-name>
-    return previewDataDir.resolve(String.format("%s.%s.%s.%s", programId.getNamespace(), programId.getApplication(),
-                                                programId.getType().name(), programId.getProgram()));
+    return String.format("%s.%s.%s.%s", programId.getNamespace(), programId.getApplication(),
+                         programId.getType().name(), programId.getProgram());
+  }
+
+  /**
+   * A preview runner environment in the pool. It is initialized before the preview request it runs is known, hence
+   * it supplies the {@link PreviewRequest} to its injector once the request is assigned.
+   */
+  private static final class PooledEnvironment implements Supplier<PreviewRequest> {
+    private final Path dir;
+    // Set before the environment is added to the pool
+    private Injector injector;
+    private volatile PreviewRequest request;
+
+    PooledEnvironment(Path dir) {
+      this.dir = dir;
+    }
+
+    /**
+     * Assigns the {@link PreviewRequest} to run in this environment.
+     *
+     * @throws IllegalStateException if a request was already assigned
+     */
+    void assign(PreviewRequest request) {
+      if (this.request != null) {
+        throw new IllegalStateException("Preview request already assigned for " + this.request.getProgram());
+      }
+      this.request = request;
+    }
+
+    @Override
+    public PreviewRequest get() {
+      PreviewRequest request = this.request;
+      if (request == null) {
+        throw new IllegalStateException("Preview runner environment at " + dir + " is not assigned to any preview");
+      }
+      return request;
+    }
   }
 }
@@ -24,6 +24,7 @@ import io.cdap.cdap.app.runtime.Arguments;
 import io.cdap.cdap.app.runtime.ProgramOptions;
 import io.cdap.cdap.common.ServiceUnavailableException;
 import io.cdap.cdap.common.service.RetryStrategy;
+import io.cdap.cdap.common.trace.Tracing;
 import io.cdap.cdap.internal.app.ApplicationSpecificationAdapter;
 import io.cdap.cdap.internal.app.runtime.codec.ArgumentsCodec;
 import io.cdap.cdap.internal.app.runtime.codec.ProgramOptionsCodec;
@@ -59,7 +60,8 @@ public class MessagingProgramStatePublisher implements ProgramStatePublisher {
 
   public void publish(Notification.Type notificationType, Map<String, String> properties) {
     // ProgramRunId is always required in a notification
-    Notification programStatusNotification = new Notification(notificationType, properties);
+    Notification programStatusNotification = new Notification(notificationType,
+                                                                     Tracing.addContext(properties));
 
     int failureCount = 0;
     long startTime = -1L;
@@ -23,11 +23,8 @@ import io.cdap.cdap.app.runtime.ProgramClassLoaderProvider;
 import io.cdap.cdap.app.runtime.ProgramRunner;
 import io.cdap.cdap.app.runtime.ProgramRunnerFactory;
 import io.cdap.cdap.common.conf.CConfiguration;
-import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.lang.DirectoryClassLoader;
 import io.cdap.cdap.common.lang.FilterClassLoader;
-import io.cdap.cdap.common.lang.jar.BundleJarUtil;
-import io.cdap.cdap.common.utils.DirUtils;
 import io.cdap.cdap.internal.app.runtime.ProgramClassLoader;
 import io.cdap.cdap.proto.ProgramType;
 import io.cdap.cdap.security.impersonation.EntityImpersonator;
@@ -42,21 +39,20 @@ import java.util.Iterator;
 import java.util.concurrent.Callable;
 
 /**
- * Given an artifact, creates a {@link CloseableClassLoader} from it. Takes care of unpacking the artifact and
- * cleaning up the directory when the classloader is closed.
+ * Given an artifact, creates a {@link CloseableClassLoader} from it. Takes care of unpacking the artifact through
+ * the {@link ArtifactUnpackCache} and releasing the unpacked directory when the classloader is closed.
  */
 final class ArtifactClassLoaderFactory {
   private static final Logger LOG = LoggerFactory.getLogger(ArtifactClassLoaderFactory.class);
 
   private final CConfiguration cConf;
   private final ProgramRunnerFactory programRunnerFactory;
-  private final File tmpDir;
+  private final ArtifactUnpackCache unpackCache;
 
   ArtifactClassLoaderFactory(CConfiguration cConf, ProgramRunnerFactory programRunnerFactory) {
     this.cConf = cConf;
     this.programRunnerFactory = programRunnerFactory;
-    this.tmpDir = new File(cConf.get(Constants.CFG_LOCAL_DATA_DIR),
-                           cConf.get(Constants.AppFabric.TEMP_DIR)).getAbsoluteFile();
+    this.unpackCache = ArtifactUnpackCache.get(cConf);
   }
 
   /**
@@ -106,7 +102,7 @@ final class ArtifactClassLoaderFactory {
   }
 
   /**
-   * Unpack the given {@code artifactLocation} to a temporary directory and call
+   * Acquire the unpacked directory of the given {@code artifactLocation} from the {@link ArtifactUnpackCache} and call
    * {@link #createClassLoader(File)} to create the {@link ClassLoader}.
    *
    * @param artifactLocation the location of the artifact to create the classloader from
@@ -118,25 +114,19 @@ final class ArtifactClassLoaderFactory {
   private CloseableClassLoader createClassLoader(final Location artifactLocation,
                                                  EntityImpersonator entityImpersonator) throws IOException {
     try {
-      final File unpackDir = entityImpersonator.impersonate(new Callable<File>() {
-        @Override
-        public File call() throws IOException {
-          return BundleJarUtil.unJar(artifactLocation, DirUtils.createTempDir(tmpDir));
-        }
-      });
-
-      final CloseableClassLoader classLoader = createClassLoader(unpackDir);
+      final ArtifactUnpackCache.Lease lease = acquire(artifactLocation, entityImpersonator);
+      final CloseableClassLoader classLoader;
+      try {
+        classLoader = createClassLoader(lease.getDirectory());
+      } catch (Exception e) {
+        lease.close();
+        throw e;
+      }
       return new CloseableClassLoader(classLoader, new Closeable() {
         @Override
-        public void close() throws IOException {
-          try {
-            Closeables.closeQuietly(classLoader);
-            if (unpackDir.exists()) {
-              DirUtils.deleteDirectoryContents(unpackDir);
-            }
-          } catch (IOException e) {
-            LOG.warn("Failed to delete directory {}", unpackDir, e);
-          }
+        public void close() {
+          Closeables.closeQuietly(classLoader);
+          lease.close();
         }
       });
     } catch (Exception e) {
@@ -166,29 +156,38 @@ final class ArtifactClassLoaderFactory {
     }
 
     try {
-      final File unpackDir = entityImpersonator.impersonate(new Callable<File>() {
-        @Override
-        public File call() throws IOException {
-          return BundleJarUtil.unJar(artifactLocation, DirUtils.createTempDir(tmpDir));
-        }
-      });
-
-      final CloseableClassLoader parentClassLoader = createClassLoader(artifactLocations, entityImpersonator);
-      return new CloseableClassLoader(new DirectoryClassLoader(unpackDir, parentClassLoader, "lib"), new Closeable() {
+      final ArtifactUnpackCache.Lease lease = acquire(artifactLocation, entityImpersonator);
+      final CloseableClassLoader parentClassLoader;
+      try {
+        parentClassLoader = createClassLoader(artifactLocations, entityImpersonator);
+      } catch (Exception e) {
+        lease.close();
+        throw e;
+      }
+      return new CloseableClassLoader(new DirectoryClassLoader(lease.getDirectory(), parentClassLoader, "lib"),
+                                      new Closeable() {
         @Override
-        public void close() throws IOException {
-          try {
-            Closeables.closeQuietly(parentClassLoader);
-            if (unpackDir.exists()) {
-              DirUtils.deleteDirectoryContents(unpackDir);
-            }
-          } catch (IOException e) {
-            LOG.warn("Failed to delete directory {}", unpackDir, e);
-          }
+        public void close() {
+          Closeables.closeQuietly(parentClassLoader);
+          lease.close();
         }
       });
     } catch (Exception e) {
       throw Throwables.propagate(e);
     }
   }
+
+  /**
+   * Acquires a {@link ArtifactUnpackCache.Lease} of the unpacked directory of the given artifact, reading the
+   * artifact as the impersonated user.
+   */
+  private ArtifactUnpackCache.Lease acquire(final Location artifactLocation,
+                                            EntityImpersonator entityImpersonator) throws Exception {
+    return entityImpersonator.impersonate(new Callable<ArtifactUnpackCache.Lease>() {
+      @Override
+      public ArtifactUnpackCache.Lease call() throws IOException {
+        return unpackCache.acquire(artifactLocation);
+      }
+    });
+  }
 }
@@ -0,0 +1,358 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.runtime.artifact;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.lang.jar.BundleJarUtil;
+import io.cdap.cdap.common.utils.DirUtils;
+import org.apache.twill.filesystem.Location;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A process wide cache of unpacked artifact jars. Each jar is unpacked once into a directory named by the checksum
+ * of the jar content, which is shared by all classloaders created from the same artifact. Directories are reference
+ * counted and the least recently used ones that are not in use are deleted when the total size of the cache
+ * exceeds the configured limit.
+ *
+ * A jar is unpacked into a temporary directory first and then published by an atomic rename, hence a directory in
+ * the cache is always complete. Files in the cache are read-only. The cache directory must not be shared with other
+ * processes, since eviction only knows about references of the current process.
+ *
+ * If the maximum size is not positive, the cache is disabled and every {@link #acquire(Location)} call unpacks the
+ * jar into a new temporary directory, which is deleted on release.
+ */
+public final class ArtifactUnpackCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ArtifactUnpackCache.class);
+  private static final ConcurrentMap<File, ArtifactUnpackCache> INSTANCES = new ConcurrentHashMap<>();
+  private static final String TEMP_PREFIX = ".tmp-";
+  private static final int MAX_PUBLISH_ATTEMPTS = 3;
+
+  private final File cacheDir;
+  private final long maxSizeBytes;
+  // Access ordered map from checksum to cache entry. Guarded by this.
+  private final LinkedHashMap<String, Entry> entries;
+  // Checksum of jars, keyed by location, size and last modified time, to avoid hashing the same jar repeatedly
+  private final Cache<String, String> checksums;
+  private long totalSize;
+
+  /**
+   * Returns the {@link ArtifactUnpackCache} for the cache directory configured in the given configuration.
+   * There is one instance per cache directory, since eviction needs to know about all references to a directory.
+   *
+   * @throws IllegalArgumentException if the cache directory is already used with a different maximum size
+   */
+  public static ArtifactUnpackCache get(CConfiguration cConf) {
+    File cacheDir = new File(cConf.get(Constants.CFG_LOCAL_DATA_DIR),
+                             cConf.get(Constants.AppFabric.ARTIFACT_UNPACK_CACHE_DIR)).getAbsoluteFile();
+    long maxSizeBytes = cConf.getLong(Constants.AppFabric.ARTIFACT_UNPACK_CACHE_MAX_SIZE_MB) * 1024L * 1024L;
+    ArtifactUnpackCache cache = INSTANCES.computeIfAbsent(cacheDir, dir -> new ArtifactUnpackCache(dir, maxSizeBytes));
+    if (cache.maxSizeBytes != maxSizeBytes) {
+      throw new IllegalArgumentException(
+        String.format("The artifact unpack cache directory %s is already used with a maximum size of %d bytes. "
+                        + "It cannot be used with a maximum size of %d bytes.",
+                      cacheDir, cache.maxSizeBytes, maxSizeBytes));
+    }
+    return cache;
+  }
+
+  @VisibleForTesting
+  ArtifactUnpackCache(File cacheDir, long maxSizeBytes) {
+    this.cacheDir = cacheDir;
+    this.maxSizeBytes = maxSizeBytes;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    this.checksums = CacheBuilder.newBuilder().maximumSize(1000).build();
+    if (maxSizeBytes > 0) {
+      loadExisting();
+    }
+  }
+
+  /**
+   * Returns a {@link Lease} of a directory containing the unpacked content of the given jar. The directory is
+   * guaranteed to exist until the lease is closed.
+   *
+   * @param jarLocation the {@link Location} of the jar
+   * @return a {@link Lease} of the unpacked directory
+   * @throws IOException if failed to read or unpack the jar
+   */
+  public Lease acquire(Location jarLocation) throws IOException {
+    if (maxSizeBytes <= 0) {
+      File unpackDir = createTempDir();
+      BundleJarUtil.unJar(jarLocation, unpackDir);
+      return new Lease(unpackDir, () -> {
+        try {
+          DirUtils.deleteDirectoryContents(unpackDir);
+        } catch (IOException e) {
+          LOG.warn("Failed to delete directory {}", unpackDir, e);
+        }
+      });
+    }
+
+    String checksum = getChecksum(jarLocation);
+    Lease lease = acquireExisting(checksum);
+    if (lease != null) {
+      return lease;
+    }
+
+    // Unpack outside of the lock so that different jars can be unpacked concurrently
+    File tempDir = createTempDir();
+    File unpackDir = new File(cacheDir, checksum);
+    try {
+      BundleJarUtil.unJar(jarLocation, tempDir);
+      long size = makeReadOnly(tempDir);
+      IOException failure = null;
+      for (int attempt = 0; attempt < MAX_PUBLISH_ATTEMPTS; attempt++) {
+        try {
+          Files.move(tempDir.toPath(), unpackDir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+          LOG.debug("Unpacked {} to {}", jarLocation, unpackDir);
+          return add(checksum, unpackDir, size);
+        } catch (IOException e) {
+          // The rename fails if the same jar was unpacked and published concurrently. In that case, use the existing
+          // one. If it got evicted before it could be acquired, publish the directory unpacked by this call again.
+          lease = acquireExisting(checksum);
+          if (lease != null) {
+            return lease;
+          }
+          if (failure == null) {
+            failure = e;
+          } else {
+            failure.addSuppressed(e);
+          }
+        }
+      }
+      throw failure;
+    } finally {
+      if (tempDir.exists()) {
+        DirUtils.deleteDirectoryContents(tempDir);
+      }
+    }
+  }
+
+  @VisibleForTesting
+  synchronized long getTotalSize() {
+    return totalSize;
+  }
+
+  /**
+   * Returns a {@link Lease} for an existing cache entry or {@code null} if there is no such entry.
+   */
+  private synchronized Lease acquireExisting(String checksum) {
+    Entry entry = entries.get(checksum);
+    if (entry == null) {
+      // Another process instance might have published it already, e.g. before a restart of this process
+      File unpackDir = new File(cacheDir, checksum);
+      if (!unpackDir.isDirectory()) {
+        return null;
+      }
+      entry = new Entry(unpackDir, getSize(unpackDir));
+      entries.put(checksum, entry);
+      totalSize += entry.size;
+    }
+    return createLease(entry);
+  }
+
+  /**
+   * Adds a newly unpacked directory to the cache and returns a {@link Lease} for it.
+   */
+  private synchronized Lease add(String checksum, File unpackDir, long size) {
+    Entry entry = entries.get(checksum);
+    if (entry == null) {
+      entry = new Entry(unpackDir, size);
+      entries.put(checksum, entry);
+      totalSize += size;
+    }
+    Lease lease = createLease(entry);
+    evict();
+    return lease;
+  }
+
+  private Lease createLease(Entry entry) {
+    entry.refCount++;
+    return new Lease(entry.dir, () -> release(entry));
+  }
+
+  private synchronized void release(Entry entry) {
+    entry.refCount--;
+    evict();
+  }
+
+  /**
+   * Deletes the least recently used directories that are not in use until the total size is within the limit.
+   */
+  private synchronized void evict() {
+    Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+    while (totalSize > maxSizeBytes && iterator.hasNext()) {
+      Entry entry = iterator.next().getValue();
+      if (entry.refCount > 0) {
+        continue;
+      }
+      iterator.remove();
+      totalSize -= entry.size;
+      try {
+        DirUtils.deleteDirectoryContents(entry.dir);
+        LOG.debug("Evicted unpacked artifact directory {}", entry.dir);
+      } catch (IOException e) {
+        LOG.warn("Failed to delete directory {}", entry.dir, e);
+      }
+    }
+  }
+
+  /**
+   * Loads directories left by previous instances of this process and deletes incomplete ones.
+   */
+  private void loadExisting() {
+    if (!cacheDir.isDirectory()) {
+      return;
+    }
+    for (File file : DirUtils.listFiles(cacheDir)) {
+      try {
+        if (file.getName().startsWith(TEMP_PREFIX)) {
+          DirUtils.deleteDirectoryContents(file);
+        } else if (file.isDirectory()) {
+          Entry entry = new Entry(file, getSize(file));
+          entries.put(file.getName(), entry);
+          totalSize += entry.size;
+        }
+      } catch (IOException e) {
+        LOG.warn("Failed to load or delete directory {}", file, e);
+      }
+    }
+    evict();
+  }
+
+  /**
+   * Returns the checksum of the content of the given jar.
+   */
+  private String getChecksum(Location jarLocation) throws IOException {
+    String key = jarLocation.toURI() + ":" + jarLocation.length() + ":" + jarLocation.lastModified();
+    String checksum = checksums.getIfPresent(key);
+    if (checksum != null) {
+      return checksum;
+    }
+    Hasher hasher = Hashing.md5().newHasher();
+    byte[] buffer = new byte[65536];
+    try (InputStream is = jarLocation.getInputStream()) {
+      int len = is.read(buffer);
+      while (len >= 0) {
+        hasher.putBytes(buffer, 0, len);
+        len = is.read(buffer);
+      }
+    }
+    checksum = hasher.hash().toString();
+    checksums.put(key, checksum);
+    return checksum;
+  }
+
+  private File createTempDir() throws IOException {
+    File tempDir = new File(cacheDir, TEMP_PREFIX + UUID.randomUUID());
+    if (!DirUtils.mkdirs(tempDir)) {
+      throw new IOException("Failed to create directory " + tempDir);
+    }
+    return tempDir;
+  }
+
+  /**
+   * Makes all files under the given directory read-only and returns the total size of them. Directories are
+   * left writable so that they can be deleted on eviction.
+   */
+  private static long makeReadOnly(File dir) {
+    long size = 0L;
+    for (File file : DirUtils.listFiles(dir)) {
+      if (file.isDirectory()) {
+        size += makeReadOnly(file);
+      } else {
+        size += file.length();
+        if (!file.setReadOnly()) {
+          LOG.trace("Failed to set file {} as read-only", file);
+        }
+      }
+    }
+    return size;
+  }
+
+  private static long getSize(File dir) {
+    long size = 0L;
+    for (File file : DirUtils.listFiles(dir)) {
+      size += file.isDirectory() ? getSize(file) : file.length();
+    }
+    return size;
+  }
+
+  /**
+   * A lease of an unpacked artifact directory. The directory may be deleted after the lease is closed.
+   */
+  public static final class Lease implements Closeable {
+    private final File directory;
+    private final Runnable releaser;
+    private final AtomicBoolean closed;
+
+    private Lease(File directory, Runnable releaser) {
+      this.directory = directory;
+      this.releaser = releaser;
+      this.closed = new AtomicBoolean();
+    }
+
+    /**
+     * Returns the directory containing the unpacked artifact.
+     */
+    public File getDirectory() {
+      return directory;
+    }
+
+    @Override
+    public void close() {
+      if (closed.compareAndSet(false, true)) {
+        releaser.run();
+      }
+    }
+  }
+
+  /**
+   * An entry in the cache.
+   */
+  private static final class Entry {
+    private final File dir;
+    private final long size;
+    private int refCount;
+
+    Entry(File dir, long size) {
+      this.dir = dir;
+      this.size = size;
+    }
+  }
+}
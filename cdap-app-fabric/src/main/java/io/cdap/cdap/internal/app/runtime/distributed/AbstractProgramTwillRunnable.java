@@ -25,6 +25,7 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import com.google.inject.Key;
 import com.google.inject.Module;
 import io.cdap.cdap.api.app.ApplicationSpecification;
 import io.cdap.cdap.api.metrics.MetricsCollectionService;
@@ -41,6 +42,9 @@ import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.io.Locations;
 import io.cdap.cdap.common.logging.LoggingContextAccessor;
 import io.cdap.cdap.common.logging.common.UncaughtExceptionHandler;
+import io.cdap.cdap.common.trace.Tracing;
+import io.cdap.cdap.data2.datafabric.dataset.DatasetMetaCache;
+import io.cdap.cdap.data2.datafabric.dataset.DatasetMetaCacheInvalidator;
 import io.cdap.cdap.internal.app.ApplicationSpecificationAdapter;
 import io.cdap.cdap.internal.app.runtime.AbstractListener;
 import io.cdap.cdap.internal.app.runtime.BasicArguments;
@@ -192,6 +196,7 @@ public abstract class AbstractProgramTwillRunnable<T extends ProgramRunner> impl
     CConfiguration cConf = CConfiguration.create();
     cConf.clear();
     cConf.addResource(new File(systemArgs.getOption(ProgramOptionConstants.CDAP_CONF_FILE)).toURI().toURL());
+    Tracing.configure(cConf);
 
     maxStopSeconds = cConf.getLong(io.cdap.cdap.common.conf.Constants.AppFabric.PROGRAM_MAX_STOP_SECONDS);
 
@@ -432,6 +437,10 @@ public abstract class AbstractProgramTwillRunnable<T extends ProgramRunner> impl
     services.add(injector.getInstance(KafkaClientService.class));
     services.add(injector.getInstance(BrokerService.class));
     services.add(new ProgramRunnableResourceReporter(programOptions.getProgramId(), metricsCollectionService, context));
+    // Invalidates cached dataset metadata on dataset changes
+    if (injector.getExistingBinding(Key.get(DatasetMetaCache.class)) != null) {
+      services.add(injector.getInstance(DatasetMetaCacheInvalidator.class));
+    }
   }
 
   private void startCoreServices() {
@@ -24,6 +24,7 @@ import com.google.common.base.Throwables;
 import com.google.common.collect.Maps;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.inject.Inject;
 import io.cdap.cdap.api.annotation.TransactionControl;
 import io.cdap.cdap.api.app.ApplicationSpecification;
 import io.cdap.cdap.app.guice.ClusterMode;
@@ -125,6 +126,7 @@ public abstract class DistributedProgramRunner implements ProgramRunner, Program
   protected final ClusterMode clusterMode;
   private final TwillRunner twillRunner;
   private final Impersonator impersonator;
+  private LaunchResourceCache launchResourceCache;
 
   protected DistributedProgramRunner(CConfiguration cConf, Configuration hConf, Impersonator impersonator,
                                      ClusterMode clusterMode, TwillRunner twillRunner) {
@@ -135,6 +137,15 @@ public abstract class DistributedProgramRunner implements ProgramRunner, Program
     this.clusterMode = clusterMode;
   }
 
+  /**
+   * Sets the cache of launch resources, which is shared by all program runners. Without it, all resources are
+   * created in the temporary directory of every launch.
+   */
+  @Inject
+  void setLaunchResourceCache(LaunchResourceCache launchResourceCache) {
+    this.launchResourceCache = launchResourceCache;
+  }
+
   /**
    * Validates the options for the program.
    * Subclasses can override this to also validate the options for their sub-programs.
@@ -186,6 +197,7 @@ public abstract class DistributedProgramRunner implements ProgramRunner, Program
   @Override
   public final ProgramController run(final Program program, ProgramOptions oldOptions) {
     validateOptions(program, oldOptions);
+    final long launchTime = System.currentTimeMillis();
 
     final CConfiguration cConf = createContainerCConf(this.cConf);
     final Configuration hConf = createContainerHConf(this.hConf);
@@ -352,6 +364,9 @@ public abstract class DistributedProgramRunner implements ProgramRunner, Program
           } finally {
             ClassLoaders.setContextClassLoader(oldClassLoader);
           }
+          twillController.onRunning(() -> LOG.debug("Program {} is running {} ms after launch",
+                                                    programRunId, System.currentTimeMillis() - launchTime),
+                                    Threads.SAME_THREAD_EXECUTOR);
           return createProgramController(addCleanupListener(twillController, program, tempDir),
                                          new ProgramDescriptor(program.getId(), program.getApplicationSpecification()),
                                          ProgramRunners.getRunId(options));
@@ -374,8 +389,7 @@ public abstract class DistributedProgramRunner implements ProgramRunner, Program
       return;
     }
     String jarDir = cConf.get(Constants.Logging.LOG_APPENDER_EXT_DIR);
-    File bundleJarFile = new File(tempDir, "log-appender.jar");
-    BundleJarUtil.createJar(new File(jarDir + "/" + provider), bundleJarFile);
+    File bundleJarFile = createBundleJar(new File(jarDir + "/" + provider), "log-appender.jar", tempDir);
     String localizedDir = "log-appender";
     // set extensions dir to point to localized appender directory - appender/<log-appender-provider>
     localizeResources.put(localizedDir + "/" + provider, new LocalizeResource(bundleJarFile, true));
@@ -565,6 +579,19 @@ public abstract class DistributedProgramRunner implements ProgramRunner, Program
     });
   }
 
+  /**
+   * Creates a jar that bundles the content of a directory. The jar is taken from the launch resource cache if it
+   * is enabled, otherwise it is created in the given temporary directory.
+   */
+  private File createBundleJar(File dir, String name, File tempDir) throws IOException {
+    if (launchResourceCache != null && launchResourceCache.isEnabled()) {
+      return launchResourceCache.getBundleJar(dir, name);
+    }
+    File jarFile = new File(tempDir, name);
+    BundleJarUtil.createJar(dir, jarFile);
+    return jarFile;
+  }
+
   private File saveCConf(CConfiguration cConf, File file) throws IOException {
     try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
       cConf.writeXml(writer);
@@ -633,8 +660,7 @@ public abstract class DistributedProgramRunner implements ProgramRunner, Program
       return;
     }
 
-    final File target = new File(tempDir, "hbaseddlext.jar");
-    BundleJarUtil.createJar(new File(ddlExecutorExtensionDir), target);
+    final File target = createBundleJar(new File(ddlExecutorExtensionDir), "hbaseddlext.jar", tempDir);
     localizeResources.put(target.getName(), new LocalizeResource(target, true));
     cConf.set(Constants.HBaseDDLExecutor.EXTENSIONS_DIR, target.getName());
   }
@@ -661,6 +687,7 @@ public abstract class DistributedProgramRunner implements ProgramRunner, Program
                                     Map<String, LocalizeResource> localizeResources) throws IOException {
     List<URI> resources = new ArrayList<>();
 
+    // The configurations may contain secrets, hence they are not kept in the launch resource cache
     File cConfFile = saveCConf(cConf, new File(tempDir, CDAP_CONF_FILE_NAME));
     localizeResources.put(CDAP_CONF_FILE_NAME, new LocalizeResource(cConfFile));
     resources.add(cConfFile.toURI());
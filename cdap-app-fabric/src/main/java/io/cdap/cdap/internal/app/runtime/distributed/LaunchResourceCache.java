@@ -0,0 +1,202 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.internal.app.runtime.distributed;
+
+import com.google.common.base.Strings;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.lang.jar.BundleJarUtil;
+import io.cdap.cdap.common.utils.DirUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * A local directory of the launch resources that do not depend on the program run, such as the bundled log appender
+ * and HBase DDL executor extensions. Every resource is stored in a directory named by the hash of its content, so
+ * that it is created once and then localized from the same file by all launches that use it, instead of being
+ * recreated in the temporary directory of every launch. The configurations of the program containers are not
+ * cached, since they may contain secrets. Twill localizes every file with APPLICATION visibility, hence YARN still
+ * copies a cached resource once for each program run; the cache saves creating the resource, not localizing it.
+ *
+ * A resource is created in a temporary directory that is renamed atomically, hence a launch never sees a resource
+ * that is incomplete. Resources that have not been used for the expiration time are removed. The lock that guards
+ * their removal only covers the launches that use the same instance, hence there is a single instance for the
+ * cache directory, which is shared by all program runners.
+ * This class is thread safe.
+ */
+@Singleton
+final class LaunchResourceCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LaunchResourceCache.class);
+
+  @Nullable
+  private final File cacheDir;
+  private final long expirationMillis;
+  // Guards the lookup of entries against the removal of expired entries, so that an entry that is returned
+  // for a launch is never removed
+  private final Object lock = new Object();
+
+  @Inject
+  LaunchResourceCache(CConfiguration cConf) {
+    this(getCacheDir(cConf),
+         TimeUnit.DAYS.toMillis(cConf.getLong(Constants.AppFabric.PROGRAM_LAUNCH_CACHE_EXPIRATION_DAYS)));
+  }
+
+  /**
+   * Creates an instance.
+   *
+   * @param cacheDir the local directory to store the resources in, or {@code null} to disable the cache
+   * @param expirationMillis the time in milliseconds after which an unused resource is removed
+   */
+  LaunchResourceCache(@Nullable File cacheDir, long expirationMillis) {
+    this.cacheDir = cacheDir;
+    this.expirationMillis = expirationMillis;
+  }
+
+  /**
+   * Returns the cache directory based on the configuration.
+   *
+   * @return the directory or {@code null} if caching of launch resources is disabled
+   */
+  @Nullable
+  private static File getCacheDir(CConfiguration cConf) {
+    String cacheDir = cConf.get(Constants.AppFabric.PROGRAM_LAUNCH_CACHE_DIR);
+    if (Strings.isNullOrEmpty(cacheDir)) {
+      return null;
+    }
+    File dir = new File(cacheDir);
+    if (!dir.isAbsolute()) {
+      dir = new File(cConf.get(Constants.CFG_LOCAL_DATA_DIR), cacheDir);
+    }
+    return dir.getAbsoluteFile();
+  }
+
+  /**
+   * @return whether caching of launch resources is enabled. If it is not, resources must not be requested.
+   */
+  boolean isEnabled() {
+    return cacheDir != null;
+  }
+
+  /**
+   * Returns a jar file that bundles the content of a directory. Since bundling extension directories for every
+   * launch is expensive and reading all their files is not much cheaper, the directory is identified by the paths,
+   * sizes and modification times of its files, rather than by their content.
+   *
+   * @param dir the directory to bundle
+   * @param name the name of the jar file
+   */
+  File getBundleJar(File dir, String name) throws IOException {
+    Hasher hasher = Hashing.sha256().newHasher().putString(name).putString(dir.getAbsolutePath());
+    Deque<File> stack = new ArrayDeque<>(Collections.singleton(dir));
+    while (!stack.isEmpty()) {
+      File file = stack.pollLast();
+      hasher.putString(dir.toURI().relativize(file.toURI()).getPath()).putLong(file.length());
+      hasher.putLong(file.lastModified());
+      List<File> files = new ArrayList<>(DirUtils.listFiles(file));
+      // push the files in reverse order, so that they are hashed in the order of their names
+      files.sort(Collections.reverseOrder());
+      stack.addAll(files);
+    }
+    return get(hasher.hash().toString(), name, file -> BundleJarUtil.createJar(dir, file));
+  }
+
+  private File get(String hash, String name, ResourceWriter writer) throws IOException {
+    if (cacheDir == null) {
+      // should never happen: developer error
+      throw new IllegalStateException("Caching of launch resources is disabled");
+    }
+    File entryDir = new File(cacheDir, hash);
+    File file = new File(entryDir, name);
+    synchronized (lock) {
+      if (file.isFile()) {
+        // Mark the entry as used, so that it does not expire. Only the directory is touched, since the
+        // modification time of the file itself is part of its localization.
+        entryDir.setLastModified(System.currentTimeMillis());
+        return file;
+      }
+      removeExpired();
+    }
+
+    // The new entry is not removed by a concurrent call, since it was modified just now
+    if (!DirUtils.mkdirs(cacheDir)) {
+      throw new IOException("Failed to create launch resource cache directory " + cacheDir);
+    }
+    File tmpDir = DirUtils.createTempDir(cacheDir);
+    try {
+      writer.write(new File(tmpDir, name));
+      try {
+        Files.move(tmpDir.toPath(), entryDir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+      } catch (IOException e) {
+        // The same resource may have been created concurrently by another launch
+        if (!file.isFile()) {
+          throw e;
+        }
+      }
+      LOG.debug("Created launch resource {}", file);
+      return file;
+    } finally {
+      if (tmpDir.exists()) {
+        DirUtils.deleteDirectoryContents(tmpDir);
+      }
+    }
+  }
+
+  /**
+   * Removes all entries that have not been used for the expiration time. This is only done when a resource is
+   * created, which is rare, hence the cost of listing the cache directory does not add to most launches.
+   * It must be called with the lock held.
+   */
+  private void removeExpired() {
+    long expireBefore = System.currentTimeMillis() - expirationMillis;
+    for (File entryDir : DirUtils.listFiles(cacheDir)) {
+      if (entryDir.lastModified() >= expireBefore) {
+        continue;
+      }
+      try {
+        DirUtils.deleteDirectoryContents(entryDir);
+        LOG.debug("Removed expired launch resource {}", entryDir);
+      } catch (IOException e) {
+        LOG.warn("Failed to remove expired launch resource {}", entryDir, e);
+      }
+    }
+  }
+
+  /**
+   * Writes a resource to a file.
+   */
+  private interface ResourceWriter {
+    void write(File file) throws IOException;
+  }
+}
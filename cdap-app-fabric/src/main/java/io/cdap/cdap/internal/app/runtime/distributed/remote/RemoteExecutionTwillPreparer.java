@@ -26,6 +26,7 @@ import com.google.common.collect.Sets;
 import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
 import com.google.common.io.ByteStreams;
+import io.cdap.cdap.api.metrics.MetricsContext;
 import io.cdap.cdap.app.runtime.ProgramOptions;
 import io.cdap.cdap.common.app.RunIds;
 import io.cdap.cdap.common.conf.CConfiguration;
@@ -148,6 +149,8 @@ class RemoteExecutionTwillPreparer implements TwillPreparer {
   private final KeyStore clientKeyStore;
   private final LocationFactory locationFactory;
   private final RemoteExecutionTwillControllerFactory controllerFactory;
+  private final RemoteFileCache remoteFileCache;
+  private final MetricsContext metricsContext;
 
   private String extraOptions;
   private JvmOptions.DebugOptions debugOptions;
@@ -159,7 +162,8 @@ class RemoteExecutionTwillPreparer implements TwillPreparer {
                                TwillSpecification twillSpec, ProgramRunId programRunId, ProgramOptions programOptions,
                                @Nullable String extraOptions,
                                LocationCache locationCache, LocationFactory locationFactory,
-                               RemoteExecutionTwillControllerFactory controllerFactory) {
+                               RemoteExecutionTwillControllerFactory controllerFactory,
+                               RemoteFileCache remoteFileCache, MetricsContext metricsContext) {
     // Check to prevent future mistake
     if (twillSpec.getRunnables().size() != 1) {
       throw new IllegalArgumentException("Only one TwillRunnable is supported");
@@ -180,6 +184,8 @@ class RemoteExecutionTwillPreparer implements TwillPreparer {
     this.locationFactory = locationFactory;
     this.extraOptions = cConf.get(io.cdap.cdap.common.conf.Constants.AppFabric.PROGRAM_JVM_OPTS);
     this.controllerFactory = controllerFactory;
+    this.remoteFileCache = remoteFileCache;
+    this.metricsContext = metricsContext;
   }
 
   private void confirmRunnableName(String runnableName) {
@@ -406,6 +412,7 @@ class RemoteExecutionTwillPreparer implements TwillPreparer {
       try {
         Map<String, LocalFile> localFiles = Maps.newHashMap();
 
+        long bundleStartTime = System.currentTimeMillis();
         createLauncherJar(localFiles);
         createTwillJar(createBundler(classAcceptor, stagingDir), localFiles);
         createApplicationJar(createBundler(classAcceptor, stagingDir), localFiles);
@@ -427,6 +434,8 @@ class RemoteExecutionTwillPreparer implements TwillPreparer {
         } finally {
           Paths.deleteRecursively(runtimeConfigDir);
         }
+        metricsContext.gauge(io.cdap.cdap.common.conf.Constants.Metrics.Program.LAUNCH_BUNDLE_MILLIS,
+                             System.currentTimeMillis() - bundleStartTime);
 
         throwIfTimeout(startTime, timeout, timeoutUnit);
 
@@ -487,48 +496,35 @@ class RemoteExecutionTwillPreparer implements TwillPreparer {
   }
 
   /**
-   * Localize files to the target host.
+   * Localize files to the target host. Files are uploaded to the cache directory on the target host, unless they
+   * are present there already, and are linked or expanded from there.
    */
   private void localizeFiles(SSHSession session, Map<String, LocalFile> localFiles,
                              String targetPath, RuntimeSpecification runtimeSpec) throws IOException {
+    Iterable<LocalFile> files = Iterables.concat(localFiles.values(), runtimeSpec.getLocalFiles());
+    Map<URI, String> cachedFiles = remoteFileCache.localize(session, files, this::openURI, metricsContext);
 
-    // A map to remember what URI has already been uploaded to what target path.
-    // This helps reducing the bandwidth when same file is uploaded to different target path.
-    Map<URI, String> localizedFiles = new HashMap<>();
-    String localizedDir = targetPath + "/.localized";
-    session.executeAndWait("mkdir -p " + localizedDir);
-
-    for (LocalFile localFile : Iterables.concat(localFiles.values(), runtimeSpec.getLocalFiles())) {
-      URI uri = localFile.getURI();
-
-      // If not yet uploaded, upload it
-      String localizedFile = localizedFiles.get(uri);
-      if (localizedFile == null) {
-        String fileName = Hashing.md5().hashString(uri.toString()).toString() + "-" + getFileName(uri);
-        localizedFile = localizedDir + "/" + fileName;
-        try (InputStream inputStream = openURI(uri)) {
-          LOG.debug("Upload file {} to {}@{}:{}", uri, session.getUsername(), session.getAddress(), localizedFile);
-          //noinspection OctalInteger
-          session.copy(inputStream, localizedDir, fileName, localFile.getSize(), 0644,
-                       localFile.getLastModified(), localFile.getLastModified());
-        }
-        localizedFiles.put(uri, localizedFile);
-      }
+    for (LocalFile localFile : files) {
+      String cachedFile = cachedFiles.get(localFile.getURI());
 
-      // If it is an archive, expand it. If is a file, create a hardlink.
+      // If it is an archive, expand it. If is a file, create a hardlink, or a copy if the cache directory
+      // is on a different file system.
       if (localFile.isArchive()) {
         String expandedDir = targetPath + "/" + localFile.getName();
         LOG.debug("Expanding archive {} on host {} to {}",
-                  localizedFile, session.getAddress().getHostName(), expandedDir);
+                  cachedFile, session.getAddress().getHostName(), expandedDir);
         session.executeAndWait(
-          "mkdir -p " + expandedDir,
-          "cd " + expandedDir,
-          String.format("jar xf %s", localizedFile)
+          "mkdir -p " + RemoteFileCache.quote(expandedDir),
+          "cd " + RemoteFileCache.quote(expandedDir),
+          "jar xf " + RemoteFileCache.quote(cachedFile)
         );
       } else {
-        LOG.debug("Create hardlink {} on host {} to {}/{}",
-                  localizedFile, session.getAddress().getHostName(), targetPath, localFile.getName());
-        session.executeAndWait(String.format("ln %s %s/%s", localizedFile, targetPath, localFile.getName()));
+        String targetFile = targetPath + "/" + localFile.getName();
+        LOG.debug("Create hardlink {} on host {} to {}",
+                  cachedFile, session.getAddress().getHostName(), targetFile);
+        String source = RemoteFileCache.quote(cachedFile);
+        String target = RemoteFileCache.quote(targetFile);
+        session.executeAndWait(String.format("ln %s %s || cp %s %s", source, target, source, target));
       }
     }
   }
@@ -638,9 +634,23 @@ class RemoteExecutionTwillPreparer implements TwillPreparer {
       return;
     }
 
+    // The location name is computed from the MD5 of the resource URIs, along with their size and modification time,
+    // so that it can be reused across different launches as long as the resources are not changed
+    Hasher hasher = Hashing.md5().newHasher();
+    for (URI uri : resources) {
+      LocalFile resource = resolveLocalFile(new DefaultLocalFile(Constants.Files.RESOURCES_JAR, uri,
+                                                                 -1L, -1L, false, null), stagingDir);
+      hasher.putString(uri.toString()).putLong(resource.getSize()).putLong(resource.getLastModified());
+    }
+    String name = hasher.hash().toString() + "-" + Constants.Files.RESOURCES_JAR;
+
     LOG.debug("Create and copy {}", Constants.Files.RESOURCES_JAR);
-    Location location = Locations.toLocation(Files.createTempFile(stagingDir, Constants.Files.RESOURCES_JAR, null));
-    bundler.createBundle(location, Collections.emptyList(), resources);
+    Location location = locationCache.get(name, new LocationCache.Loader() {
+      @Override
+      public void load(String name, Location targetLocation) throws IOException {
+        bundler.createBundle(targetLocation, Collections.emptyList(), resources);
+      }
+    });
     LOG.debug("Done {}", Constants.Files.RESOURCES_JAR);
     localFiles.put(Constants.Files.RESOURCES_JAR, createLocalFile(Constants.Files.RESOURCES_JAR, location, true));
   }
@@ -883,15 +893,6 @@ class RemoteExecutionTwillPreparer implements TwillPreparer {
     return uri.toURL().openStream();
   }
 
-  /**
-   * Returns the file name of a given {@link URI}. The file name is the last part of the path, separated by {@code /}.
-   */
-  private String getFileName(URI uri) {
-    String path = uri.getPath();
-    int idx = path.lastIndexOf('/');
-    return idx >= 0 ? path.substring(idx + 1) : path;
-  }
-
   /**
    * Generates the shell script for launching the JVM process of the runnable that will run on the remote host.
    */
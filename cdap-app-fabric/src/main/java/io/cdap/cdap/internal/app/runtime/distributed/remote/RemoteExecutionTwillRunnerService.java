@@ -25,6 +25,7 @@ import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.gson.Gson;
 import com.google.inject.Inject;
 import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.api.metrics.MetricsContext;
 import io.cdap.cdap.api.retry.RetryableException;
 import io.cdap.cdap.app.runtime.Arguments;
 import io.cdap.cdap.app.runtime.ProgramOptions;
@@ -108,6 +109,7 @@ import java.security.GeneralSecurityException;
 import java.security.KeyStore;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -160,6 +162,7 @@ public class RemoteExecutionTwillRunnerService implements TwillRunnerService {
   private final ServiceSocksProxy serviceSocksProxy;
   private final RuntimeServiceSocksProxyAuthenticator serviceSocksProxyAuthenticator;
   private final TransactionRunner transactionRunner;
+  private final RemoteFileCache remoteFileCache;
 
   private LocationCache locationCache;
   private Path cachePath;
@@ -189,6 +192,8 @@ public class RemoteExecutionTwillRunnerService implements TwillRunnerService {
     this.monitorSocksProxy = new MonitorSocksProxy(cConf, sshSessionManager);
     this.serviceSocksProxyAuthenticator = new RuntimeServiceSocksProxyAuthenticator();
     this.serviceSocksProxy = new ServiceSocksProxy(discoveryServiceClient, serviceSocksProxyAuthenticator);
+    this.remoteFileCache = new RemoteFileCache(cConf.get(Constants.RuntimeMonitor.REMOTE_CACHE_DIR),
+                                               cConf.getInt(Constants.RuntimeMonitor.REMOTE_CACHE_EXPIRATION_DAYS));
   }
 
   @Override
@@ -290,11 +295,13 @@ public class RemoteExecutionTwillRunnerService implements TwillRunnerService {
       saveKeyStores(serverKeyStore, clientKeyStore, keysDir);
 
       ClusterKeyInfo clusterKeyInfo = new ClusterKeyInfo(cConf, programOptions, locationFactory);
+      MetricsContext metricsContext = createLaunchMetricsContext(programRunId, programOptions);
       return new RemoteExecutionTwillPreparer(cConf, config, clusterKeyInfo.getSSHConfig(),
                                               serverKeyStore, clientKeyStore,
                                               application.configure(), programRunId, programOptions, null,
                                               locationCache, locationFactory,
-                                              new ControllerFactory(programRunId, programOptions, clusterKeyInfo)) {
+                                              new ControllerFactory(programRunId, programOptions, clusterKeyInfo),
+                                              remoteFileCache, metricsContext) {
         @Override
         public TwillController start(long timeout, TimeUnit timeoutUnit) {
           try {
@@ -372,6 +379,24 @@ public class RemoteExecutionTwillRunnerService implements TwillRunnerService {
     return () -> { };
   }
 
+  /**
+   * Creates a {@link MetricsContext} for emitting metrics about launching the given program run.
+   */
+  private MetricsContext createLaunchMetricsContext(ProgramRunId programRunId, ProgramOptions programOptions) {
+    Map<String, String> tags = new HashMap<>();
+    SystemArguments.getProfileIdFromArgs(programRunId.getNamespaceId(), programOptions.getArguments().asMap())
+      .ifPresent(profileId -> {
+        tags.put(Constants.Metrics.Tag.PROFILE_SCOPE, profileId.getScope().name());
+        tags.put(Constants.Metrics.Tag.PROFILE, profileId.getProfile());
+      });
+    tags.put(Constants.Metrics.Tag.NAMESPACE, programRunId.getNamespace());
+    tags.put(Constants.Metrics.Tag.PROGRAM_TYPE, programRunId.getType().getPrettyName());
+    tags.put(Constants.Metrics.Tag.APP, programRunId.getApplication());
+    tags.put(Constants.Metrics.Tag.PROGRAM, programRunId.getProgram());
+    tags.put(Constants.Metrics.Tag.RUN_ID, programRunId.getRun());
+    return metricsCollectionService.getContext(tags);
+  }
+
   /**
    * Creates a {@link ProfileMetricService} for the profile being used for the given program run.
    */
@@ -0,0 +1,199 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.internal.app.runtime.distributed.remote;
+
+import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import io.cdap.cdap.api.metrics.MetricsContext;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.runtime.spi.ssh.SSHSession;
+import org.apache.twill.api.LocalFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * A cache of files on the remote hosts that programs are launched on. Files are uploaded through a
+ * {@link SSHSession} into a cache directory that is shared by all runs on the same host, under a name that is
+ * derived from the hash of their content. Before uploading, the remote host is asked which of the files it has
+ * already, and only the missing files are uploaded. Files that have not been used for a configurable number of
+ * days are removed from the cache directory.
+ *
+ * This class is thread safe.
+ */
+final class RemoteFileCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RemoteFileCache.class);
+  private static final int MAX_CACHED_HASHES = 1000;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final String cacheDir;
+  private final int expirationDays;
+  // The content hash of local files, keyed by the URI, size and last modified time of the file
+  private final Cache<String, String> contentHashes;
+
+  /**
+   * Creates an instance.
+   *
+   * @param cacheDir the cache directory on the remote hosts; a relative path is resolved against the home
+   *                 directory of the SSH user
+   * @param expirationDays the number of days after which an unused file is removed from the cache directory
+   */
+  RemoteFileCache(String cacheDir, int expirationDays) {
+    this.cacheDir = cacheDir;
+    this.expirationDays = expirationDays;
+    this.contentHashes = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_HASHES).build();
+  }
+
+  /**
+   * Makes sure that the given files are present in the cache directory of the remote host.
+   *
+   * @param session the session to the remote host
+   * @param files the files to be present on the remote host
+   * @param opener opens the content of the files
+   * @param metricsContext the context for emitting the number of bytes uploaded and the number of bytes that
+   *                       did not need to be uploaded
+   * @return the absolute path on the remote host of each file, keyed by the URI of the file
+   */
+  Map<URI, String> localize(SSHSession session, Iterable<? extends LocalFile> files,
+                            Opener opener, MetricsContext metricsContext) throws IOException {
+    Map<URI, String> cacheNames = new LinkedHashMap<>();
+    Map<String, LocalFile> filesByName = new LinkedHashMap<>();
+    for (LocalFile file : files) {
+      if (!cacheNames.containsKey(file.getURI())) {
+        String name = getCacheName(file, opener);
+        cacheNames.put(file.getURI(), name);
+        filesByName.putIfAbsent(name, file);
+      }
+    }
+    if (filesByName.isEmpty()) {
+      return cacheNames;
+    }
+
+    // Find out in one round trip which of the files are already present on the remote host.
+    // Present files are touched, so that only files not used for the expiration period are removed.
+    String output = session.executeAndWait(
+      "mkdir -p " + cacheDir,
+      "cd " + cacheDir,
+      "pwd",
+      "for f in " + filesByName.keySet().stream().map(RemoteFileCache::quote).collect(Collectors.joining(" "))
+        + "; do if [ -f \"$f\" ]; then touch \"$f\"; echo \"$f\"; fi; done",
+      "find . -maxdepth 1 -type f -mtime +" + expirationDays + " -delete || true");
+    Iterator<String> lines = Splitter.on('\n').trimResults().omitEmptyStrings().split(output).iterator();
+    if (!lines.hasNext()) {
+      throw new IOException("Failed to determine the cache directory " + cacheDir + " on host " + session.getAddress());
+    }
+    String remoteDir = lines.next();
+    Set<String> existing = new HashSet<>();
+    lines.forEachRemaining(existing::add);
+
+    // Upload the missing files under a temporary name, so that a partial upload is never used.
+    // The modification time is left to be the upload time, which starts the expiration period.
+    long uploadedBytes = 0L;
+    long cachedBytes = 0L;
+    List<String> renames = new ArrayList<>();
+    for (Map.Entry<String, LocalFile> entry : filesByName.entrySet()) {
+      String name = entry.getKey();
+      LocalFile file = entry.getValue();
+      if (existing.contains(name)) {
+        LOG.debug("File {} is already present as {}/{} on host {}", file.getURI(), remoteDir, name,
+                  session.getAddress());
+        cachedBytes += file.getSize();
+        continue;
+      }
+      String tmpName = name + "." + UUID.randomUUID() + ".tmp";
+      LOG.debug("Upload file {} to {}@{}:{}/{}", file.getURI(), session.getUsername(), session.getAddress(),
+                remoteDir, name);
+      try (InputStream is = opener.open(file.getURI())) {
+        //noinspection OctalInteger
+        session.copy(is, remoteDir, tmpName, file.getSize(), 0644, null, null);
+      }
+      renames.add(String.format("mv -f %s %s", quote(remoteDir + "/" + tmpName), quote(remoteDir + "/" + name)));
+      uploadedBytes += file.getSize();
+    }
+    if (!renames.isEmpty()) {
+      session.executeAndWait(renames);
+    }
+    metricsContext.increment(Constants.Metrics.Program.LAUNCH_UPLOAD_BYTES, uploadedBytes);
+    metricsContext.increment(Constants.Metrics.Program.LAUNCH_CACHED_BYTES, cachedBytes);
+    LOG.debug("Uploaded {} bytes to host {}, {} bytes were present in the cache already",
+              uploadedBytes, session.getAddress(), cachedBytes);
+
+    Map<URI, String> result = new LinkedHashMap<>();
+    cacheNames.forEach((uri, name) -> result.put(uri, remoteDir + "/" + name));
+    return result;
+  }
+
+  /**
+   * Returns the name of a file in the cache directory, which is the hash of its content followed by its file name.
+   */
+  private String getCacheName(LocalFile file, Opener opener) throws IOException {
+    URI uri = file.getURI();
+    String key = uri + ":" + file.getSize() + ":" + file.getLastModified();
+    String hash = contentHashes.getIfPresent(key);
+    if (hash == null) {
+      Hasher hasher = Hashing.md5().newHasher();
+      byte[] buffer = new byte[BUFFER_SIZE];
+      try (InputStream is = opener.open(uri)) {
+        int len = is.read(buffer);
+        while (len >= 0) {
+          hasher.putBytes(buffer, 0, len);
+          len = is.read(buffer);
+        }
+      }
+      hash = hasher.hash().toString();
+      contentHashes.put(key, hash);
+    }
+    String path = uri.getPath();
+    return hash + "-" + path.substring(path.lastIndexOf('/') + 1);
+  }
+
+  /**
+   * Quotes a string as a single word for the shell of the remote host. The names of the files come from the
+   * local file names, which may contain spaces or other characters that are special to the shell.
+   */
+  static String quote(String str) {
+    return "'" + str.replace("'", "'\\''") + "'";
+  }
+
+  /**
+   * Opens the content of a file to be localized.
+   */
+  interface Opener {
+
+    /**
+     * Opens an {@link InputStream} that reads the content of the given {@link URI}.
+     */
+    InputStream open(URI uri) throws IOException;
+  }
+}
@@ -42,12 +42,10 @@ import io.cdap.cdap.api.plugin.PluginConfig;
 import io.cdap.cdap.api.plugin.PluginProperties;
 import io.cdap.cdap.api.plugin.PluginPropertyField;
 import io.cdap.cdap.common.conf.CConfiguration;
-import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.io.Locations;
 import io.cdap.cdap.common.lang.CombineClassLoader;
 import io.cdap.cdap.common.lang.InstantiatorFactory;
-import io.cdap.cdap.common.lang.jar.BundleJarUtil;
-import io.cdap.cdap.common.utils.DirUtils;
+import io.cdap.cdap.internal.app.runtime.artifact.ArtifactUnpackCache;
 import io.cdap.cdap.internal.app.runtime.artifact.Artifacts;
 import io.cdap.cdap.internal.lang.FieldVisitor;
 import io.cdap.cdap.internal.lang.Fields;
@@ -74,6 +72,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import javax.annotation.Nullable;
 
@@ -81,7 +81,8 @@ import javax.annotation.Nullable;
  * This class helps creating new instances of plugins. It also contains a ClassLoader cache to
  * save ClassLoader creation.
  *
- * This class implements {@link Closeable} as well for cleanup of temporary directories created for the ClassLoaders.
+ * This class implements {@link Closeable} as well for releasing the unpacked artifact directories used by the
+ * ClassLoaders.
  */
 public class PluginInstantiator implements Closeable {
   private static final Logger LOG = LoggerFactory.getLogger(PluginInstantiator.class);
@@ -100,7 +101,8 @@ public class PluginInstantiator implements Closeable {
 
   private final LoadingCache<ClassLoaderKey, PluginClassLoader> classLoaders;
   private final InstantiatorFactory instantiatorFactory;
-  private final File tmpDir;
+  private final ArtifactUnpackCache unpackCache;
+  private final ConcurrentMap<ClassLoaderKey, ArtifactUnpackCache.Lease> unpackLeases;
   private final File pluginDir;
   private final ClassLoader parentClassLoader;
   private final boolean ownedParentClassLoader;
@@ -112,11 +114,9 @@ public class PluginInstantiator implements Closeable {
   public PluginInstantiator(CConfiguration cConf, ClassLoader parentClassLoader, File pluginDir,
                             boolean filterClassloader) {
     this.instantiatorFactory = new InstantiatorFactory(false);
-    File tmpDir = new File(cConf.get(Constants.CFG_LOCAL_DATA_DIR),
-                           cConf.get(Constants.AppFabric.TEMP_DIR)).getAbsoluteFile();
-
     this.pluginDir = pluginDir;
-    this.tmpDir = DirUtils.createTempDir(tmpDir);
+    this.unpackCache = ArtifactUnpackCache.get(cConf);
+    this.unpackLeases = new ConcurrentHashMap<>();
     this.classLoaders = CacheBuilder.newBuilder()
       .removalListener(new ClassLoaderRemovalListener())
       .build(new ClassLoaderCacheLoader());
@@ -399,17 +399,16 @@ public class PluginInstantiator implements Closeable {
 
   @Override
   public void close() throws IOException {
-    // Cleanup the ClassLoader cache and the temporary directory for the expanded plugin jar.
+    // Cleanup the ClassLoader cache, which also releases the unpacked directories of the plugin jars.
     classLoaders.invalidateAll();
     if (ownedParentClassLoader) {
       Closeables.closeQuietly((Closeable) parentClassLoader);
     }
-    try {
-      DirUtils.deleteDirectoryContents(tmpDir);
-    } catch (IOException e) {
-      // It's the cleanup step. Nothing much can be done if cleanup failed.
-      LOG.warn("Failed to delete directory {}", tmpDir);
+    // Release leases of classloaders that failed to load
+    for (ArtifactUnpackCache.Lease lease : unpackLeases.values()) {
+      lease.close();
     }
+    unpackLeases.clear();
   }
 
   /**
@@ -455,9 +454,13 @@ public class PluginInstantiator implements Closeable {
 
     @Override
     public PluginClassLoader load(ClassLoaderKey key) throws Exception {
-      File unpackedDir = DirUtils.createTempDir(tmpDir);
       File artifact = new File(pluginDir, Artifacts.getFileName(key.artifact));
-      BundleJarUtil.unJar(Locations.toLocation(artifact), unpackedDir);
+      ArtifactUnpackCache.Lease lease = unpackCache.acquire(Locations.toLocation(artifact));
+      ArtifactUnpackCache.Lease oldLease = unpackLeases.put(key, lease);
+      if (oldLease != null) {
+        oldLease.close();
+      }
+      File unpackedDir = lease.getDirectory();
 
       Iterator<ArtifactId> parentIter = key.parents.iterator();
       if (!parentIter.hasNext()) {
@@ -491,13 +494,17 @@ public class PluginInstantiator implements Closeable {
   }
 
   /**
-   * A RemovalListener for closing plugin ClassLoader.
+   * A RemovalListener for closing plugin ClassLoader and releasing its unpacked directory.
    */
-  private static final class ClassLoaderRemovalListener implements RemovalListener<ClassLoaderKey, PluginClassLoader> {
+  private final class ClassLoaderRemovalListener implements RemovalListener<ClassLoaderKey, PluginClassLoader> {
 
     @Override
     public void onRemoval(RemovalNotification<ClassLoaderKey, PluginClassLoader> notification) {
       Closeables.closeQuietly(notification.getValue());
+      ArtifactUnpackCache.Lease lease = unpackLeases.remove(notification.getKey());
+      if (lease != null) {
+        lease.close();
+      }
     }
   }
 
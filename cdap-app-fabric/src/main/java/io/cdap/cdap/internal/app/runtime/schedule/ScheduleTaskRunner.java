@@ -27,6 +27,9 @@ import io.cdap.cdap.common.ProgramNotFoundException;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.id.Id;
 import io.cdap.cdap.common.namespace.NamespaceQueryAdmin;
+import io.cdap.cdap.common.trace.Span;
+import io.cdap.cdap.common.trace.SpanContext;
+import io.cdap.cdap.common.trace.Tracing;
 import io.cdap.cdap.internal.UserErrors;
 import io.cdap.cdap.internal.UserMessages;
 import io.cdap.cdap.internal.app.runtime.ProgramOptionConstants;
@@ -35,6 +38,7 @@ import io.cdap.cdap.internal.app.runtime.schedule.trigger.SatisfiableTrigger;
 import io.cdap.cdap.internal.app.runtime.schedule.trigger.TriggerInfoContext;
 import io.cdap.cdap.internal.app.services.ProgramLifecycleService;
 import io.cdap.cdap.internal.app.services.PropertiesResolver;
+import io.cdap.cdap.proto.Notification;
 import io.cdap.cdap.proto.id.ProgramId;
 import io.cdap.cdap.security.impersonation.SecurityUtil;
 import io.cdap.cdap.security.spi.authentication.SecurityRequestContext;
@@ -44,6 +48,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 
 /**
  * Task runner that runs a schedule.
@@ -71,6 +76,28 @@ public final class ScheduleTaskRunner {
   }
 
   public void launch(Job job) throws Exception {
+    try (Span span = Tracing.startSpan("schedule.launch", getTraceContext(job))) {
+      span.tag("schedule", job.getSchedule().getScheduleId());
+      span.tag("program", job.getSchedule().getProgramId());
+      doLaunch(job);
+    }
+  }
+
+  /**
+   * Returns the trace context of the first notification of the job that has one, or null if there is none.
+   */
+  @Nullable
+  private SpanContext getTraceContext(Job job) {
+    for (Notification notification : job.getNotifications()) {
+      SpanContext context = Tracing.getContext(notification.getProperties());
+      if (context != null) {
+        return context;
+      }
+    }
+    return null;
+  }
+
+  private void doLaunch(Job job) throws Exception {
     ProgramSchedule schedule = job.getSchedule();
     ProgramId programId = schedule.getProgramId();
 
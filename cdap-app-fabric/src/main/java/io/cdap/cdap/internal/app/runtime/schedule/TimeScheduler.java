@@ -1,5 +1,5 @@
 /*
- * Copyright © 2015-2017 Cask Data, Inc.
+ * Copyright © 2014-2020 Cask Data, Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not
  * use this file except in compliance with the License. You may obtain a copy of
@@ -16,270 +16,258 @@
 
 package io.cdap.cdap.internal.app.runtime.schedule;
 
-import com.google.common.base.Supplier;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.util.concurrent.ListeningExecutorService;
-import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.Inject;
 import io.cdap.cdap.api.schedule.SchedulableProgramType;
 import io.cdap.cdap.common.AlreadyExistsException;
 import io.cdap.cdap.common.NotFoundException;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.trace.Span;
+import io.cdap.cdap.common.trace.Tracing;
+import io.cdap.cdap.internal.app.runtime.ProgramOptionConstants;
+import io.cdap.cdap.internal.app.runtime.schedule.store.ProgramScheduleStoreDataset;
 import io.cdap.cdap.internal.app.runtime.schedule.store.Schedulers;
+import io.cdap.cdap.internal.app.runtime.schedule.store.TimeTriggerRecord;
+import io.cdap.cdap.internal.app.runtime.schedule.store.TimeTriggerTable;
 import io.cdap.cdap.internal.app.runtime.schedule.trigger.AbstractSatisfiableCompositeTrigger;
 import io.cdap.cdap.internal.app.runtime.schedule.trigger.SatisfiableTrigger;
 import io.cdap.cdap.internal.app.runtime.schedule.trigger.TimeTrigger;
 import io.cdap.cdap.messaging.MessagingService;
+import io.cdap.cdap.proto.Notification;
 import io.cdap.cdap.proto.ProtoTrigger;
 import io.cdap.cdap.proto.ScheduledRuntime;
 import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.ProgramId;
-import io.cdap.cdap.proto.id.TopicId;
+import io.cdap.cdap.spi.data.StructuredTableContext;
+import io.cdap.cdap.spi.data.transaction.TransactionRunner;
+import io.cdap.cdap.spi.data.transaction.TransactionRunners;
 import org.apache.twill.common.Threads;
-import org.quartz.CronScheduleBuilder;
-import org.quartz.Job;
-import org.quartz.JobBuilder;
-import org.quartz.JobDetail;
-import org.quartz.JobExecutionContext;
-import org.quartz.JobExecutionException;
-import org.quartz.JobKey;
-import org.quartz.ObjectAlreadyExistsException;
-import org.quartz.Trigger;
-import org.quartz.TriggerBuilder;
-import org.quartz.TriggerKey;
-import org.quartz.impl.matchers.GroupMatcher;
-import org.quartz.spi.JobFactory;
-import org.quartz.spi.TriggerFiredBundle;
-import org.quartz.utils.Key;
+import org.quartz.CronExpression;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Set;
-import java.util.concurrent.Executors;
+import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 
 /**
- * Class that wraps Quartz scheduler. Needed to delegate start stop operations to classes that extend
- * DefaultSchedulerService.
+ * Fires the time triggers of schedules by publishing time events to the time event topic.
+ *
+ * The next fire time of every trigger is precomputed from its cron expression and kept in memory in a queue ordered by
+ * fire time, which is served by a single firing thread. Only the identity, status and fire times of the triggers are
+ * persisted in the {@link TimeTriggerTable}, from which the state is rebuilt on startup. Triggers that are due at the
+ * same time are published in batches.
+ *
+ * If a trigger could not fire at its fire time, for example because the scheduler was down, it fires once as soon as
+ * possible if it is late by no more than the misfire threshold, otherwise the missed fire times are skipped.
+ *
+ * Updates of the triggers are persisted before they are applied in memory. The store is never accessed while holding
+ * the lock of this instance, so that reads and the firing thread are not blocked by the store.
+ *
+ * Upgrade from versions that kept the time triggers in the Quartz job store ("schedules" table): the Quartz triggers
+ * are not migrated. On the first start the triggers are recreated from the schedule store with their status, and the
+ * next fire time of each trigger is computed from the time of the upgrade. Hence fire times missed while CDAP was
+ * down for the upgrade are skipped rather than caught up according to the misfire threshold, and the previous fire
+ * times are unknown until each trigger fires again. The "schedules" table is no longer read and can be dropped.
  */
 public final class TimeScheduler {
   private static final Logger LOG = LoggerFactory.getLogger(TimeScheduler.class);
-  private static final String PAUSED_NEW_TRIGGERS_GROUP = "NewPausedTriggers";
-
-  private org.quartz.Scheduler scheduler;
-  private final Supplier<org.quartz.Scheduler> schedulerSupplier;
-  private final MessagingService messagingService;
-  private ListeningExecutorService taskExecutorService;
+  // Keep the same format of scheduled runtime ids as the ones returned by previous versions
+  private static final String SCHEDULED_RUNTIME_ID_PREFIX = "DEFAULT.";
+  // Next fire time of a trigger that will not fire anymore
+  private static final long NEVER = -1L;
+  private static final long PUBLISH_RETRY_DELAY_MILLIS = 1000L;
+  private static final Comparator<TimeTriggerRecord> FIRE_TIME_COMPARATOR =
+    Comparator.comparingLong(TimeTriggerRecord::getNextFireTime)
+      .thenComparing(TimeTriggerRecord::getScheduleName)
+      .thenComparing(TimeTriggerRecord::getCronExpression)
+      .thenComparing(record -> record.getProgramId().getNamespace())
+      .thenComparing(record -> record.getProgramId().getApplication())
+      .thenComparing(record -> record.getProgramId().getVersion());
+
+  private final TransactionRunner transactionRunner;
+  private final NotificationPublisher notificationPublisher;
+  private final long misfireThresholdMillis;
+  private final int publishBatchSize;
+  // Serializes the updates of the triggers, so that they are persisted and applied in memory in the same order.
+  // It is always acquired before the lock of this instance and held while accessing the store.
+  private final Object updateLock;
+
+  // All the fields below are guarded by this.
+  // From trigger name to the trigger
+  private final Map<String, TimeTriggerRecord> triggers;
+  // From the program id and type as returned by AbstractTimeSchedulerService#programIdFor to names of its triggers
+  private final Map<String, Set<String>> programTriggers;
+  // Triggers that are not suspended and will fire, ordered by their next fire time
+  private final NavigableSet<TimeTriggerRecord> fireQueue;
+  // Parsed cron expressions, shared by triggers with the same cron expression
+  private final Map<String, CronExpression> cronExpressions;
+  private Thread firingThread;
   private boolean schedulerStarted;
-  private final TopicId topicId;
+  private boolean stopped;
 
   @Inject
-  TimeScheduler(Supplier<org.quartz.Scheduler> schedulerSupplier, MessagingService messagingService,
-                CConfiguration cConf) {
-    this.schedulerSupplier = schedulerSupplier;
-    this.messagingService = messagingService;
-    this.scheduler = null;
-    this.schedulerStarted = false;
-    this.topicId = NamespaceId.SYSTEM.topic(cConf.get(Constants.Scheduler.TIME_EVENT_TOPIC));
+  TimeScheduler(MessagingService messagingService, CConfiguration cConf, TransactionRunner transactionRunner) {
+    this(transactionRunner,
+         new ScheduleTaskPublisher(messagingService, NamespaceId.SYSTEM.topic(
+           cConf.get(Constants.Scheduler.TIME_EVENT_TOPIC)))::publishNotifications,
+         cConf.getLong(Constants.Scheduler.CFG_SCHEDULER_MISFIRE_THRESHOLD_MS),
+         cConf.getInt(Constants.Scheduler.TIME_EVENT_PUBLISH_BATCH_SIZE));
   }
 
-  void init() throws SchedulerException {
-    try {
-      taskExecutorService = MoreExecutors.listeningDecorator(
-        Executors.newCachedThreadPool(Threads.createDaemonThreadFactory("time-schedule-task")));
-      scheduler = schedulerSupplier.get();
-      scheduler.setJobFactory(createJobFactory());
-    } catch (org.quartz.SchedulerException e) {
-      throw new SchedulerException(e);
-    }
+  @VisibleForTesting
+  TimeScheduler(TransactionRunner transactionRunner, NotificationPublisher notificationPublisher,
+                long misfireThresholdMillis, int publishBatchSize) {
+    this.transactionRunner = transactionRunner;
+    this.notificationPublisher = notificationPublisher;
+    this.misfireThresholdMillis = misfireThresholdMillis;
+    this.publishBatchSize = publishBatchSize;
+    this.updateLock = new Object();
+    this.triggers = new HashMap<>();
+    this.programTriggers = new HashMap<>();
+    this.fireQueue = new TreeSet<>(FIRE_TIME_COMPARATOR);
+    this.cronExpressions = new HashMap<>();
   }
 
   /**
-   * Creates a paused group TimeScheduler#PAUSED_NEW_TRIGGERS_GROUP by adding a dummy job to it if it does not exist
-   * already. This is needed so that we can add new triggers to this paused group and they will be paused too.
-   *
-   * @throws org.quartz.SchedulerException
+   * Loads all time triggers from the store.
    */
-  private void initNewPausedTriggersGroup() throws org.quartz.SchedulerException {
-    // if the dummy job does not already exists in the TimeScheduler#PAUSED_NEW_TRIGGERS_GROUP
-    // then create a dummy job which will create the TimeScheduler#PAUSED_NEW_TRIGGERS_GROUP
-    if (!scheduler.checkExists(new JobKey(EmptyJob.class.getSimpleName(), PAUSED_NEW_TRIGGERS_GROUP))) {
-      JobDetail job = JobBuilder.newJob(EmptyJob.class)
-        .withIdentity(EmptyJob.class.getSimpleName(), PAUSED_NEW_TRIGGERS_GROUP)
-        .storeDurably(true)
-        .build();
-      scheduler.addJob(job, true);
+  void init() throws SchedulerException {
+    synchronized (updateLock) {
+      load();
     }
-    // call pause on this group this ensures that all the new triggers added to this group will also be paused
-    scheduler.pauseTriggers(GroupMatcher.triggerGroupEquals(PAUSED_NEW_TRIGGERS_GROUP));
   }
 
-  void start() throws SchedulerException {
+  private void load() throws SchedulerException {
+    List<TimeTriggerRecord> records;
     try {
-      scheduler.start();
-      schedulerStarted = true;
-      initNewPausedTriggersGroup();
-    } catch (org.quartz.SchedulerException e) {
-      throw new SchedulerException(e);
+      records = TransactionRunners.run(transactionRunner, context -> {
+        TimeTriggerTable table = TimeTriggerTable.create(context);
+        if (table.isEmpty()) {
+          // Time triggers were kept by a different scheduler before, hence recreate them from the schedules
+          createFromSchedules(context, table);
+        }
+        return table.list();
+      }, IOException.class);
+    } catch (IOException e) {
+      throw new SchedulerException("Failed to load time triggers", e);
     }
-  }
-
-  boolean isStarted() {
-    return schedulerStarted;
-  }
 
-  void stop() throws SchedulerException {
-    try {
-      if (scheduler != null) {
-        scheduler.shutdown();
-      }
-      if (taskExecutorService != null) {
-        taskExecutorService.shutdownNow();
+    synchronized (this) {
+      triggers.clear();
+      programTriggers.clear();
+      fireQueue.clear();
+      for (TimeTriggerRecord record : records) {
+        try {
+          getCronExpression(record.getCronExpression());
+        } catch (SchedulerException e) {
+          LOG.warn("Ignoring time trigger {} with invalid cron expression", record, e);
+          continue;
+        }
+        putTrigger(record);
       }
-    } catch (org.quartz.SchedulerException e) {
-      throw new SchedulerException(e);
     }
+    LOG.info("Loaded {} time triggers", records.size());
   }
 
-  public void addProgramSchedule(ProgramSchedule schedule) throws AlreadyExistsException, SchedulerException {
-    // Verify every trigger does not exist first before adding any of them to Quartz scheduler
-    try {
-      Map<String, TriggerKey> cronTriggerKeyMap = getCronTriggerKeyMap(schedule);
-      for (TriggerKey triggerKey : cronTriggerKeyMap.values()) {
-        assertTriggerDoesNotExist(triggerKey);
-      }
-      ProgramId program = schedule.getProgramId();
-      SchedulableProgramType programType = program.getType().getSchedulableType();
-      JobDetail job = addJob(program, programType);
-      for (Map.Entry<String, TriggerKey> entry : cronTriggerKeyMap.entrySet()) {
-        scheduleJob(entry.getValue(), schedule.getName(), entry.getKey(), job);
-      }
-    } catch (org.quartz.SchedulerException e) {
-      throw new SchedulerException(e);
+  synchronized void start() {
+    if (schedulerStarted) {
+      return;
     }
+    // The scheduler can be started again after it was stopped
+    stopped = false;
+    firingThread = Threads.createDaemonThreadFactory("time-scheduler").newThread(this::fireTriggers);
+    firingThread.start();
+    schedulerStarted = true;
   }
 
-  public void deleteProgramSchedule(ProgramSchedule schedule) throws NotFoundException, SchedulerException {
-    try {
-      Collection<TriggerKey> triggerKeys = getGroupedTriggerKeys(schedule);
-      // Must assert all trigger keys exist before processing each trigger key
-      assertTriggerKeysExist(triggerKeys);
-      for (TriggerKey triggerKey : triggerKeys) {
-        Trigger trigger = getTrigger(triggerKey, schedule.getProgramId(), schedule.getName());
-        scheduler.unscheduleJob(trigger.getKey());
-
-        JobKey jobKey = trigger.getJobKey();
-        if (scheduler.getTriggersOfJob(jobKey).isEmpty()) {
-          scheduler.deleteJob(jobKey);
-        }
-      }
-    } catch (org.quartz.SchedulerException e) {
-      throw new SchedulerException(e);
-    }
+  synchronized boolean isStarted() {
+    return schedulerStarted;
   }
 
-  public void suspendProgramSchedule(ProgramSchedule schedule) throws NotFoundException, SchedulerException {
-    try {
-      Collection<TriggerKey> triggerKeys = getGroupedTriggerKeys(schedule);
-      // Must assert all trigger keys exist before processing each trigger key
-      assertTriggerKeysExist(triggerKeys);
-      for (TriggerKey triggerKey : triggerKeys) {
-        scheduler.pauseTrigger(triggerKey);
+  void stop() {
+    Thread thread;
+    synchronized (this) {
+      stopped = true;
+      schedulerStarted = false;
+      thread = firingThread;
+      firingThread = null;
+      notifyAll();
+    }
+    if (thread != null) {
+      thread.interrupt();
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
       }
-    } catch (org.quartz.SchedulerException e) {
-      throw new SchedulerException(e);
     }
   }
 
-  public void resumeProgramSchedule(ProgramSchedule schedule) throws NotFoundException, SchedulerException {
-    try {
-      Collection<TriggerKey> triggerKeys = getGroupedTriggerKeys(schedule);
-      // Must assert all trigger keys exist before processing each trigger key
-      assertTriggerKeysExist(triggerKeys);
-      for (TriggerKey triggerKey : triggerKeys) {
-        if (triggerKey.getGroup().equals(PAUSED_NEW_TRIGGERS_GROUP)) {
-          Trigger neverScheduledTrigger = scheduler.getTrigger(triggerKey);
-          TriggerBuilder<? extends Trigger> triggerBuilder = neverScheduledTrigger.getTriggerBuilder();
-          // move this key from TimeScheduler#PAUSED_NEW_TRIGGERS_GROUP to the Key#DEFAULT_GROUP group
-          // (when no group name is provided default is used)
-          Trigger resumedTrigger = triggerBuilder.withIdentity(triggerKey.getName()).build();
-          scheduler.rescheduleJob(neverScheduledTrigger.getKey(), resumedTrigger);
-          triggerKey = resumedTrigger.getKey();
+  public void addProgramSchedule(ProgramSchedule schedule) throws AlreadyExistsException, SchedulerException {
+    Map<String, TimeTriggerRecord> newTriggers = createTriggers(schedule, ProgramScheduleStatus.SUSPENDED);
+    synchronized (updateLock) {
+      // Verify every trigger does not exist first before adding any of them
+      synchronized (this) {
+        for (String triggerName : newTriggers.keySet()) {
+          if (triggers.containsKey(triggerName)) {
+            throw new SchedulerException("Unable to store Trigger with name '" + triggerName +
+                                           "' because one already exists with this identification.");
+          }
         }
-        scheduler.resumeTrigger(triggerKey);
       }
-    } catch (org.quartz.SchedulerException e) {
-      throw new SchedulerException(e);
+      LOG.debug("Adding time triggers for schedule {}", schedule.getScheduleId());
+      persist(newTriggers.values(), Collections.emptyList());
+      applyUpdates(newTriggers.values(), Collections.emptyList());
     }
   }
 
-  /**
-   * Assert the schedule with a given name and of a given program does not exist
-   *
-   * @throws ObjectAlreadyExistsException if the corresponding schedule already exists
-   */
-  private void assertTriggerDoesNotExist(TriggerKey triggerKey) throws org.quartz.SchedulerException {
-    // Once the schedule is resumed we move the trigger from TimeScheduler#PAUSED_NEW_TRIGGERS_GROUP to
-    // Key#DEFAULT_GROUP so before adding check if this schedule does not exist.
-    // We do not need to check for same schedule in the current list as its already checked in app configuration stage
-    if (scheduler.checkExists(triggerKey)) {
-      throw new ObjectAlreadyExistsException("Unable to store Trigger with name " + triggerKey.getName() +
-                                               "because one already exists with this identification.");
+  public void deleteProgramSchedule(ProgramSchedule schedule) throws NotFoundException, SchedulerException {
+    synchronized (updateLock) {
+      List<TimeTriggerRecord> existing = getExistingTriggers(schedule);
+      persist(Collections.emptyList(), existing);
+      applyUpdates(Collections.emptyList(), existing);
     }
   }
 
-  /**
-   * Asserts all the given trigger keys exist
-   */
-  private void assertTriggerKeysExist(Collection<TriggerKey> triggerKeys)
-    throws SchedulerException, org.quartz.SchedulerException {
-    for (TriggerKey triggerKey : triggerKeys) {
-      if (!scheduler.checkExists(triggerKey)) {
-        throw new SchedulerException("Trigger with name '" + triggerKey.getName() + "' does not exist");
+  public void suspendProgramSchedule(ProgramSchedule schedule) throws NotFoundException, SchedulerException {
+    synchronized (updateLock) {
+      List<TimeTriggerRecord> updated = new ArrayList<>();
+      for (TimeTriggerRecord record : getExistingTriggers(schedule)) {
+        updated.add(record.withStatus(ProgramScheduleStatus.SUSPENDED, record.getNextFireTime()));
       }
+      persist(updated, Collections.emptyList());
+      applyUpdates(updated, Collections.emptyList());
     }
   }
 
-  /**
-   * Construct a {@link JobDetail} from the given {@link ProgramId} and {@link SchedulableProgramType}.
-   * Add the {@link JobDetail} the scheduler and return it
-   */
-  private JobDetail addJob(ProgramId program, SchedulableProgramType programType) throws SchedulerException {
-    String jobKey = jobKeyFor(program, programType).getName();
-    JobDetail job = JobBuilder.newJob(DefaultSchedulerService.ScheduledJob.class)
-      .withIdentity(jobKey)
-      .storeDurably(true)
-      .build();
-    try {
-      scheduler.addJob(job, true);
-      return job;
-    } catch (org.quartz.SchedulerException e) {
-      throw new SchedulerException(e);
-    }
-  }
-
-  private void scheduleJob(TriggerKey triggerKey, String scheduleName, String cronEntry, JobDetail job)
-    throws SchedulerException {
-    try {
-      LOG.debug("Scheduling job {} with cron {}", scheduleName, cronEntry);
-
-      TriggerBuilder trigger = TriggerBuilder.newTrigger()
-        // all new triggers are added to the paused group which will ensure that the triggers are paused too
-        .withIdentity(triggerKey.getName(), PAUSED_NEW_TRIGGERS_GROUP)
-        .forJob(job)
-        .withSchedule(CronScheduleBuilder
-                        .cronSchedule(Schedulers.getQuartzCronExpression(cronEntry))
-                        .withMisfireHandlingInstructionDoNothing());
-      scheduler.scheduleJob(trigger.build());
-    } catch (org.quartz.SchedulerException e) {
-      throw new SchedulerException(e);
+  public void resumeProgramSchedule(ProgramSchedule schedule) throws NotFoundException, SchedulerException {
+    synchronized (updateLock) {
+      // Fire times while the schedule was suspended are not fired, start from the next fire time
+      long now = System.currentTimeMillis();
+      List<TimeTriggerRecord> updated = new ArrayList<>();
+      for (TimeTriggerRecord record : getExistingTriggers(schedule)) {
+        updated.add(record.withStatus(ProgramScheduleStatus.SCHEDULED,
+                                      getNextFireTime(record.getCronExpression(), now)));
+      }
+      persist(updated, Collections.emptyList());
+      applyUpdates(updated, Collections.emptyList());
     }
   }
 
@@ -308,169 +296,447 @@ public final class TimeScheduler {
    *         or if the program is not found
    * @throws SchedulerException on unforeseen error.
    */
-  public List<ScheduledRuntime> getAllScheduledRunTimes(ProgramId program, SchedulableProgramType programType,
-                                                        long startTimeSecs, long endTimeSecs)
+  public synchronized List<ScheduledRuntime> getAllScheduledRunTimes(ProgramId program,
+                                                                     SchedulableProgramType programType,
+                                                                     long startTimeSecs, long endTimeSecs)
     throws SchedulerException {
     // decrease the start time by one second to include the next fire time that is equal to the start time
     Date startTime = new Date(TimeUnit.SECONDS.toMillis(startTimeSecs - 1));
     long endTimeMillis = TimeUnit.SECONDS.toMillis(endTimeSecs);
     List<ScheduledRuntime> scheduledRuntimes = new ArrayList<>();
-    try {
-      for (Trigger trigger : scheduler.getTriggersOfJob(jobKeyFor(program, programType))) {
-        // skip the trigger that is not enabled, since it cannot launch program as scheduled
-        if (Trigger.TriggerState.PAUSED.equals(scheduler.getTriggerState(trigger.getKey()))) {
-          continue;
-        }
-        Date nextFireTime = trigger.getFireTimeAfter(startTime);
-        String triggerKeyString = trigger.getKey().toString();
-        while (nextFireTime != null && nextFireTime.getTime() < endTimeMillis) {
-          ScheduledRuntime runtime = new ScheduledRuntime(triggerKeyString, nextFireTime.getTime());
-          scheduledRuntimes.add(runtime);
-          nextFireTime = trigger.getFireTimeAfter(nextFireTime);
-        }
+    for (TimeTriggerRecord record : getProgramTriggers(program, programType)) {
+      // skip the trigger that is not enabled, since it cannot launch program as scheduled
+      if (record.getStatus() != ProgramScheduleStatus.SCHEDULED) {
+        continue;
+      }
+      CronExpression cronExpression = getCronExpression(record.getCronExpression());
+      String runtimeId = getScheduledRuntimeId(record);
+      Date nextFireTime = cronExpression.getNextValidTimeAfter(startTime);
+      while (nextFireTime != null && nextFireTime.getTime() < endTimeMillis) {
+        scheduledRuntimes.add(new ScheduledRuntime(runtimeId, nextFireTime.getTime()));
+        nextFireTime = cronExpression.getNextValidTimeAfter(nextFireTime);
       }
-    } catch (org.quartz.SchedulerException e) {
-      throw new SchedulerException(e);
     }
     return scheduledRuntimes;
   }
 
-  private List<ScheduledRuntime> getScheduledRuntime(ProgramId program,
-                                                     boolean previousRuntimeRequested) throws SchedulerException {
-    List<ScheduledRuntime> scheduledRuntimes = new ArrayList<>();
+  private synchronized List<ScheduledRuntime> getScheduledRuntime(ProgramId program,
+                                                                  boolean previousRuntimeRequested) {
     SchedulableProgramType schedulableType = program.getType().getSchedulableType();
     if (schedulableType == null) {
       throw new IllegalArgumentException("Program " + program + " cannot be scheduled");
     }
 
-    try {
-      for (Trigger trigger : scheduler.getTriggersOfJob(jobKeyFor(program, schedulableType))) {
-        long time;
-        if (previousRuntimeRequested) {
-          if (trigger.getPreviousFireTime() == null) {
-            // previous fire time can be null for the triggers which are not yet fired
+    List<ScheduledRuntime> scheduledRuntimes = new ArrayList<>();
+    for (TimeTriggerRecord record : getProgramTriggers(program, schedulableType)) {
+      long time;
+      if (previousRuntimeRequested) {
+        if (record.getPreviousFireTime() == null) {
+          // previous fire time can be null for the triggers which are not yet fired
+          continue;
+        }
+        time = record.getPreviousFireTime();
+      } else {
+        // skip the trigger that is not enabled, since it cannot launch program as scheduled
+        if (record.getStatus() != ProgramScheduleStatus.SCHEDULED || record.getNextFireTime() == NEVER) {
+          continue;
+        }
+        time = record.getNextFireTime();
+      }
+      scheduledRuntimes.add(new ScheduledRuntime(getScheduledRuntimeId(record), time));
+    }
+    return scheduledRuntimes;
+  }
+
+  /**
+   * Body of the firing thread. Waits for the due triggers, publishes time events for them and updates their
+   * fire times.
+   */
+  private void fireTriggers() {
+    while (true) {
+      List<TimeTriggerRecord> dueTriggers;
+      try {
+        dueTriggers = takeDueTriggers();
+      } catch (InterruptedException e) {
+        break;
+      }
+      if (dueTriggers.isEmpty()) {
+        break;
+      }
+
+      long now = System.currentTimeMillis();
+      List<Notification> notifications = new ArrayList<>();
+      List<TimeTriggerRecord> firedTriggers = new ArrayList<>();
+      // the spans of the fired triggers, which stay open until their notifications are published
+      List<Span> spans = new ArrayList<>();
+      try {
+        for (TimeTriggerRecord record : dueTriggers) {
+          long fireTime = record.getNextFireTime();
+          // Missed fire times are coalesced, hence the next fire time is always in the future
+          long nextFireTime = getNextFireTime(record.getCronExpression(), Math.max(fireTime, now));
+          if (now - fireTime > misfireThresholdMillis) {
+            LOG.warn("Time trigger of schedule {} with cron expression '{}' misfired at {}. Should have fired at {}. " +
+                       "Next fire time is {}.", record.getScheduleId(), record.getCronExpression(), new Date(now),
+                     new Date(fireTime), nextFireTime == NEVER ? "never" : new Date(nextFireTime));
+            firedTriggers.add(record.withFireTimes(nextFireTime, record.getPreviousFireTime()));
             continue;
           }
-          time = trigger.getPreviousFireTime().getTime();
-        } else {
-          // skip the trigger that is not enabled, since it cannot launch program as scheduled
-          if (scheduler.getTriggerState(trigger.getKey()) == Trigger.TriggerState.PAUSED) {
-            continue;
+          LOG.debug("Emitting time notification for schedule {} with cron expression '{}'.",
+                    record.getScheduleId(), record.getCronExpression());
+          // every firing starts a new trace, which is continued by the notification subscriber and the program launch
+          Span span = Tracing.startTrace("schedule.time.trigger");
+          if (span.isRecording()) {
+            spans.add(span);
           }
-          time = trigger.getNextFireTime().getTime();
+          span.tag("schedule", record.getScheduleId());
+          notifications.add(createNotification(record, fireTime));
+          firedTriggers.add(record.withFireTimes(nextFireTime, fireTime));
         }
 
-        ScheduledRuntime runtime = new ScheduledRuntime(trigger.getKey().toString(), time);
-        scheduledRuntimes.add(runtime);
+        try {
+          notificationPublisher.publish(notifications);
+        } catch (Exception e) {
+          LOG.warn("Failed to publish time notifications for {} time triggers. Will retry.", notifications.size(), e);
+          spans.forEach(span -> span.error(e));
+          if (!requeue(dueTriggers)) {
+            break;
+          }
+          continue;
+        }
+      } finally {
+        // close the spans in reverse order, so that none of them remains the current span of this thread
+        for (int i = spans.size() - 1; i >= 0; i--) {
+          spans.get(i).close();
+        }
       }
-    } catch (org.quartz.SchedulerException e) {
-      throw new SchedulerException(e);
+      updateFiredTriggers(dueTriggers, firedTriggers);
     }
-    return scheduledRuntimes;
+    LOG.debug("Time scheduler firing thread completed");
   }
 
-  private static JobKey jobKeyFor(ProgramId program, SchedulableProgramType programType) {
-    return new JobKey(AbstractTimeSchedulerService.programIdFor(program, programType));
+  /**
+   * Waits until there are due triggers and removes them from the fire queue.
+   *
+   * @return a list of due triggers of at most the publish batch size, or an empty list if the scheduler is stopped
+   */
+  private synchronized List<TimeTriggerRecord> takeDueTriggers() throws InterruptedException {
+    while (!stopped) {
+      long now = System.currentTimeMillis();
+      if (fireQueue.isEmpty()) {
+        wait();
+        continue;
+      }
+      long delay = fireQueue.first().getNextFireTime() - now;
+      if (delay > 0) {
+        wait(delay);
+        continue;
+      }
+      List<TimeTriggerRecord> dueTriggers = new ArrayList<>();
+      while (!fireQueue.isEmpty() && fireQueue.first().getNextFireTime() <= now &&
+        dueTriggers.size() < publishBatchSize) {
+        dueTriggers.add(fireQueue.pollFirst());
+      }
+      return dueTriggers;
+    }
+    return Collections.emptyList();
   }
 
-  private JobFactory createJobFactory() {
-    return new JobFactory() {
-      @Override
-      public Job newJob(TriggerFiredBundle bundle, org.quartz.Scheduler scheduler)
-        throws org.quartz.SchedulerException {
-        Class<? extends Job> jobClass = bundle.getJobDetail().getJobClass();
+  /**
+   * Puts the given due triggers back to the fire queue after a delay, if they are not modified in the meantime.
+   *
+   * @return {@code false} if the scheduler is stopped
+   */
+  private synchronized boolean requeue(List<TimeTriggerRecord> dueTriggers) {
+    for (TimeTriggerRecord record : dueTriggers) {
+      if (record.equals(triggers.get(getTriggerName(record)))) {
+        fireQueue.add(record);
+      }
+    }
+    try {
+      wait(PUBLISH_RETRY_DELAY_MILLIS);
+    } catch (InterruptedException e) {
+      return false;
+    }
+    return !stopped;
+  }
 
-        if (DefaultSchedulerService.ScheduledJob.class.isAssignableFrom(jobClass)) {
-          return new DefaultSchedulerService.ScheduledJob(messagingService, topicId);
-        } else {
-          try {
-            return jobClass.newInstance();
-          } catch (Exception e) {
-            throw new org.quartz.SchedulerException("Failed to create instance of " + jobClass, e);
+  /**
+   * Persists and updates the fire times of the triggers that fired, unless they are modified in the meantime.
+   */
+  private void updateFiredTriggers(List<TimeTriggerRecord> dueTriggers, List<TimeTriggerRecord> firedTriggers) {
+    synchronized (updateLock) {
+      List<TimeTriggerRecord> updates = new ArrayList<>();
+      synchronized (this) {
+        for (int i = 0; i < dueTriggers.size(); i++) {
+          if (dueTriggers.get(i).equals(triggers.get(getTriggerName(dueTriggers.get(i))))) {
+            updates.add(firedTriggers.get(i));
           }
         }
       }
-    };
+      try {
+        persist(updates, Collections.emptyList());
+      } catch (SchedulerException e) {
+        // The stored fire times are only used after a restart, in which case the triggers may fire again
+        LOG.warn("Failed to persist fire times of {} time triggers", updates.size(), e);
+      }
+      applyUpdates(updates, Collections.emptyList());
+    }
+  }
+
+  /**
+   * Writes and deletes the given triggers in the store in a single transaction. Must be called with the update lock
+   * held and without holding the lock of this instance.
+   */
+  private void persist(Collection<TimeTriggerRecord> writes,
+                       Collection<TimeTriggerRecord> deletes) throws SchedulerException {
+    if (writes.isEmpty() && deletes.isEmpty()) {
+      return;
+    }
+    try {
+      TransactionRunners.run(transactionRunner, context -> {
+        TimeTriggerTable table = TimeTriggerTable.create(context);
+        for (TimeTriggerRecord record : deletes) {
+          table.delete(record);
+        }
+        for (TimeTriggerRecord record : writes) {
+          table.write(record);
+        }
+      }, IOException.class);
+    } catch (IOException e) {
+      throw new SchedulerException("Failed to persist time triggers", e);
+    }
+  }
+
+  /**
+   * Adds or replaces and removes the given triggers in memory.
+   */
+  private synchronized void applyUpdates(Collection<TimeTriggerRecord> puts, Collection<TimeTriggerRecord> removes) {
+    removes.forEach(this::removeTrigger);
+    puts.forEach(this::putTrigger);
+  }
+
+  /**
+   * Adds or replaces a trigger in memory.
+   */
+  private void putTrigger(TimeTriggerRecord record) {
+    String triggerName = getTriggerName(record);
+    TimeTriggerRecord existing = triggers.put(triggerName, record);
+    if (existing != null) {
+      fireQueue.remove(existing);
+    }
+    programTriggers.computeIfAbsent(getProgramKey(record.getProgramId()), k -> new LinkedHashSet<>())
+      .add(triggerName);
+    if (record.getStatus() == ProgramScheduleStatus.SCHEDULED && record.getNextFireTime() != NEVER) {
+      fireQueue.add(record);
+    }
+    notifyAll();
   }
 
   /**
-   * @return Trigger keys in the map returned by {@link #getCronTriggerKeyMap(ProgramSchedule)}
-   * @throws org.quartz.SchedulerException
+   * Removes a trigger from memory.
    */
-  private Collection<TriggerKey> getGroupedTriggerKeys(ProgramSchedule schedule)
-    throws org.quartz.SchedulerException {
-    return getCronTriggerKeyMap(schedule).values();
+  private void removeTrigger(TimeTriggerRecord record) {
+    String triggerName = getTriggerName(record);
+    TimeTriggerRecord existing = triggers.remove(triggerName);
+    if (existing != null) {
+      fireQueue.remove(existing);
+    }
+    String programKey = getProgramKey(record.getProgramId());
+    Set<String> names = programTriggers.get(programKey);
+    if (names != null) {
+      names.remove(triggerName);
+      if (names.isEmpty()) {
+        programTriggers.remove(programKey);
+      }
+    }
+    notifyAll();
   }
 
   /**
-   * @return A Map with cron expression as keys and corresponding trigger key as values.
-   * Trigger keys are created from program name, programType and scheduleName (and cron expression if the trigger
-   * in the schedule is a composite trigger) and TimeScheuler#PAUSED_NEW_TRIGGERS_GROUP
-   * if it exists in this group else returns the {@link TriggerKey} prepared with null which gets it with
-   * {@link Key#DEFAULT_GROUP}
-   * @throws org.quartz.SchedulerException
+   * Returns the existing triggers of the given schedule.
+   *
+   * @throws SchedulerException if any of the triggers does not exist
    */
-  private Map<String, TriggerKey> getCronTriggerKeyMap(ProgramSchedule schedule)
-    throws org.quartz.SchedulerException {
+  private synchronized List<TimeTriggerRecord> getExistingTriggers(ProgramSchedule schedule)
+    throws SchedulerException {
+    List<TimeTriggerRecord> result = new ArrayList<>();
     ProgramId program = schedule.getProgramId();
-    SchedulableProgramType programType = program.getType().getSchedulableType();
-    io.cdap.cdap.api.schedule.Trigger trigger = schedule.getTrigger();
-    Map<String, TriggerKey> cronTriggerKeyMap = new HashMap<>();
-    // Get a set of TimeTrigger if the schedule's trigger is a composite trigger
-    if (trigger instanceof AbstractSatisfiableCompositeTrigger) {
-      Set<SatisfiableTrigger> triggerSet =
-        ((AbstractSatisfiableCompositeTrigger) trigger).getUnitTriggers().get(ProtoTrigger.Type.TIME);
-      if (triggerSet == null) {
-        return ImmutableMap.of();
+    boolean composite = schedule.getTrigger() instanceof AbstractSatisfiableCompositeTrigger;
+    // Must assert all triggers exist before processing any of them
+    for (String cronExpression : getCronExpressions(schedule)) {
+      String triggerName = getTriggerName(program, schedule.getName(), cronExpression, composite);
+      TimeTriggerRecord record = triggers.get(triggerName);
+      if (record == null) {
+        throw new SchedulerException("Trigger with name '" + triggerName + "' does not exist");
       }
-      for (SatisfiableTrigger timeTrigger : triggerSet) {
-        String cron = ((TimeTrigger) timeTrigger).getCronExpression();
-        String triggerName =
-          AbstractTimeSchedulerService.getTriggerName(program, programType, schedule.getName(), cron);
-        cronTriggerKeyMap.put(cron, triggerKeyForName(triggerName));
+      result.add(record);
+    }
+    return result;
+  }
+
+  private List<TimeTriggerRecord> getProgramTriggers(ProgramId program, SchedulableProgramType programType) {
+    Set<String> names = programTriggers.get(AbstractTimeSchedulerService.programIdFor(program, programType));
+    if (names == null) {
+      return Collections.emptyList();
+    }
+    List<TimeTriggerRecord> result = new ArrayList<>(names.size());
+    for (String name : names) {
+      TimeTriggerRecord record = triggers.get(name);
+      if (record != null) {
+        result.add(record);
       }
-      return cronTriggerKeyMap;
     }
-    // No need to include cron expression in trigger key if the trigger is not composite trigger
-    String triggerName = AbstractTimeSchedulerService.scheduleIdFor(program, programType, schedule.getName());
-    cronTriggerKeyMap.put(((TimeTrigger) schedule.getTrigger()).getCronExpression(), triggerKeyForName(triggerName));
-    return cronTriggerKeyMap;
+    return result;
   }
 
   /**
-   * @return Trigger keys created from trigger name and TimeScheuler#PAUSED_NEW_TRIGGERS_GROUP
-   * if it exists in this group else returns the {@link TriggerKey} prepared with null which gets it with
-   * {@link Key#DEFAULT_GROUP}
-   * @throws org.quartz.SchedulerException
+   * Creates the time triggers for the given schedule, keyed by trigger name.
    */
-  private synchronized TriggerKey triggerKeyForName(String name) throws org.quartz.SchedulerException {
-    TriggerKey neverResumedTriggerKey = new TriggerKey(name, PAUSED_NEW_TRIGGERS_GROUP);
-    if (scheduler.checkExists(neverResumedTriggerKey)) {
-      return neverResumedTriggerKey;
+  private Map<String, TimeTriggerRecord> createTriggers(ProgramSchedule schedule,
+                                                        ProgramScheduleStatus status) throws SchedulerException {
+    long now = System.currentTimeMillis();
+    ProgramId program = schedule.getProgramId();
+    boolean composite = schedule.getTrigger() instanceof AbstractSatisfiableCompositeTrigger;
+    Map<String, TimeTriggerRecord> result = new HashMap<>();
+    for (String cronExpression : getCronExpressions(schedule)) {
+      TimeTriggerRecord record = new TimeTriggerRecord(program, schedule.getName(), cronExpression, composite,
+                                                       status, getNextFireTime(cronExpression, now), null);
+      result.put(getTriggerName(record), record);
+    }
+    return result;
+  }
+
+  /**
+   * Creates the time triggers of all existing schedules in the given table. This happens on the first start after
+   * an upgrade from the Quartz job store, in which case the next fire times start from now, as described in the
+   * class documentation.
+   */
+  private void createFromSchedules(StructuredTableContext context, TimeTriggerTable table) throws IOException {
+    ProgramScheduleStoreDataset scheduleStore = Schedulers.getScheduleStore(context);
+    int count = 0;
+    for (ProgramScheduleRecord scheduleRecord :
+      scheduleStore.listScheduleRecords(schedule -> !getCronExpressions(schedule).isEmpty())) {
+      try {
+        for (TimeTriggerRecord record : createTriggers(scheduleRecord.getSchedule(),
+                                                       scheduleRecord.getMeta().getStatus()).values()) {
+          table.write(record);
+          count++;
+        }
+      } catch (SchedulerException e) {
+        LOG.warn("Failed to create time triggers for schedule {}", scheduleRecord.getSchedule().getScheduleId(), e);
+      }
+    }
+    if (count > 0) {
+      LOG.info("Created {} time triggers from existing schedules", count);
     }
-    return new TriggerKey(name);
   }
 
   /**
-   * Gets a {@link Trigger} associated with this program name, type and schedule name
+   * Returns the time in milliseconds that the given cron expression fires next after the given time,
+   * or {@link #NEVER} if it will not fire anymore.
    */
-  private synchronized Trigger getTrigger(TriggerKey key, ProgramId program, String scheduleName)
-    throws org.quartz.SchedulerException, NotFoundException {
-    Trigger trigger = scheduler.getTrigger(key);
-    if (trigger == null) {
-      throw new NotFoundException(String.format("Time trigger with trigger key '%s' in schedule '%s' was not found",
-                                                key.getName(), program.getParent().schedule(scheduleName).toString()));
+  private long getNextFireTime(String cronExpression, long afterTime) {
+    try {
+      Date nextFireTime = getCronExpression(cronExpression).getNextValidTimeAfter(new Date(afterTime));
+      return nextFireTime == null ? NEVER : nextFireTime.getTime();
+    } catch (SchedulerException e) {
+      // This shouldn't happen, since the cron expression of every trigger is validated when it is added or loaded
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private synchronized CronExpression getCronExpression(String cronExpression) throws SchedulerException {
+    CronExpression result = cronExpressions.get(cronExpression);
+    if (result == null) {
+      try {
+        result = new CronExpression(Schedulers.getQuartzCronExpression(cronExpression));
+      } catch (ParseException | IllegalArgumentException e) {
+        throw new SchedulerException("Invalid cron expression '" + cronExpression + "'", e);
+      }
+      cronExpressions.put(cronExpression, result);
     }
-    return trigger;
+    return result;
+  }
+
+  private Notification createNotification(TimeTriggerRecord record, long fireTime) {
+    ImmutableMap.Builder<String, String> systemOverrides = ImmutableMap.builder();
+    if (record.isComposite()) {
+      systemOverrides.put(ProgramOptionConstants.CRON_EXPRESSION, record.getCronExpression());
+    }
+    systemOverrides.put(ProgramOptionConstants.SCHEDULE_NAME, record.getScheduleName());
+    Map<String, String> userOverrides = ImmutableMap.of(ProgramOptionConstants.LOGICAL_START_TIME,
+                                                        Long.toString(fireTime));
+    return ScheduleTaskPublisher.createNotification(Notification.Type.TIME, record.getScheduleId(),
+                                                    systemOverrides.build(), userOverrides);
   }
 
   /**
-   * An empty {@link Job} to create a group in the scheduler
+   * Returns the distinct cron expressions of the time triggers in the given schedule.
    */
-  private final class EmptyJob implements Job {
-    @Override
-    public void execute(JobExecutionContext context) throws JobExecutionException {
-      // no-op
+  @VisibleForTesting
+  static Set<String> getCronExpressions(ProgramSchedule schedule) {
+    io.cdap.cdap.api.schedule.Trigger trigger = schedule.getTrigger();
+    if (trigger instanceof TimeTrigger) {
+      return Collections.singleton(((TimeTrigger) trigger).getCronExpression());
     }
+    if (!(trigger instanceof AbstractSatisfiableCompositeTrigger)) {
+      return Collections.emptySet();
+    }
+    // Get a set of TimeTrigger if the schedule's trigger is a composite trigger
+    Set<SatisfiableTrigger> triggerSet =
+      ((AbstractSatisfiableCompositeTrigger) trigger).getUnitTriggers().get(ProtoTrigger.Type.TIME);
+    if (triggerSet == null) {
+      return Collections.emptySet();
+    }
+    Set<String> result = new HashSet<>();
+    for (SatisfiableTrigger timeTrigger : triggerSet) {
+      result.add(((TimeTrigger) timeTrigger).getCronExpression());
+    }
+    return result;
+  }
+
+  private static String getTriggerName(TimeTriggerRecord record) {
+    return getTriggerName(record.getProgramId(), record.getScheduleName(), record.getCronExpression(),
+                          record.isComposite());
+  }
+
+  /**
+   * Returns the name of a trigger, which is created from program name, programType and scheduleName, and
+   * cron expression if the trigger in the schedule is a composite trigger.
+   */
+  private static String getTriggerName(ProgramId program, String scheduleName, String cronExpression,
+                                       boolean composite) {
+    SchedulableProgramType programType = program.getType().getSchedulableType();
+    if (composite) {
+      return AbstractTimeSchedulerService.getTriggerName(program, programType, scheduleName, cronExpression);
+    }
+    // No need to include cron expression in trigger name if the trigger is not composite trigger
+    return AbstractTimeSchedulerService.scheduleIdFor(program, programType, scheduleName);
+  }
+
+  private static String getProgramKey(ProgramId program) {
+    return AbstractTimeSchedulerService.programIdFor(program, program.getType().getSchedulableType());
+  }
+
+  private static String getScheduledRuntimeId(TimeTriggerRecord record) {
+    return SCHEDULED_RUNTIME_ID_PREFIX + getTriggerName(record);
+  }
+
+  @Nullable
+  @VisibleForTesting
+  synchronized TimeTriggerRecord getTrigger(String triggerName) {
+    return triggers.get(triggerName);
+  }
+
+  /**
+   * Publishes the notifications of fired triggers to the time event topic.
+   */
+  @VisibleForTesting
+  interface NotificationPublisher {
+
+    /**
+     * Publishes the given notifications in a single request.
+     */
+    void publish(Collection<Notification> notifications) throws Exception;
   }
 }
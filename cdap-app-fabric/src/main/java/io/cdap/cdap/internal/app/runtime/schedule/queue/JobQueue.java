@@ -59,8 +59,11 @@ public interface JobQueue {
    *
    * @param schedule the schedule for which jobs will be update
    * @param notification the new notification to update the schedule jobs with
+   * @return the new or updated Job that the notification was added to, or {@code null} if the notification
+   *         was ignored because the schedule is not enabled
    */
-  void addNotification(ProgramScheduleRecord schedule, Notification notification) throws IOException;
+  @Nullable
+  Job addNotification(ProgramScheduleRecord schedule, Notification notification) throws IOException;
 
   /**
    * Marks all jobs associated with the given schedule Id for deletion, recording the time of deletion.
@@ -138,14 +138,14 @@ public class JobQueueTable implements JobQueue {
     return newJob;
   }
 
+  @Nullable
   @Override
-  public void addNotification(ProgramScheduleRecord record, Notification notification) throws IOException {
-    boolean jobExists = false;
+  public Job addNotification(ProgramScheduleRecord record, Notification notification) throws IOException {
     ProgramSchedule schedule = record.getSchedule();
 
     // Only add notifications for enabled schedules
     if (record.getMeta().getStatus() != ProgramScheduleStatus.SCHEDULED) {
-      return;
+      return null;
     }
 
     int nextGenerationId = 0;
@@ -170,24 +170,22 @@ public class JobQueueTable implements JobQueue {
             // job has timed out; mark it obsolete
             writeJobObsolete(job, System.currentTimeMillis());
           } else {
-            jobExists = true;
-            addNotification(job, notification);
-            break;
+            return addNotification(job, notification);
           }
         }
       }
     }
     // if no job exists for the scheduleId, add a new job with the first notification
-    if (!jobExists) {
-      List<Notification> notifications = Collections.singletonList(notification);
-      Job.State jobState = isTriggerSatisfied(schedule, notifications)
-        ? Job.State.PENDING_CONSTRAINT : Job.State.PENDING_TRIGGER;
-      writeJob(new SimpleJob(schedule, nextGenerationId, System.currentTimeMillis(), notifications, jobState,
-                        record.getMeta().getLastUpdated()));
-    }
+    List<Notification> notifications = Collections.singletonList(notification);
+    Job.State jobState = isTriggerSatisfied(schedule, notifications)
+      ? Job.State.PENDING_CONSTRAINT : Job.State.PENDING_TRIGGER;
+    Job newJob = new SimpleJob(schedule, nextGenerationId, System.currentTimeMillis(), notifications, jobState,
+                               record.getMeta().getLastUpdated());
+    writeJob(newJob);
+    return newJob;
   }
 
-  private void addNotification(Job job, Notification notification) throws IOException {
+  private Job addNotification(Job job, Notification notification) throws IOException {
     List<Notification> notifications = new ArrayList<>(job.getNotifications());
     notifications.add(notification);
 
@@ -199,6 +197,7 @@ public class JobQueueTable implements JobQueue {
     Job newJob = new SimpleJob(job.getSchedule(), job.getGenerationId(), job.getCreationTime(), notifications, newState,
                                job.getScheduleLastUpdatedTime());
     writeJob(newJob);
+    return newJob;
   }
 
   private boolean isTriggerSatisfied(ProgramSchedule schedule, List<Notification> notifications) {
@@ -402,6 +401,17 @@ public class JobQueueTable implements JobQueue {
 
   @VisibleForTesting
   int getPartition(ScheduleId scheduleId) {
+    return getPartition(scheduleId, numPartitions);
+  }
+
+  /**
+   * Returns the partition of the job queue that stores the jobs of the given schedule.
+   *
+   * @param scheduleId the schedule id
+   * @param numPartitions the number of partitions of the job queue
+   * @return the partition of the schedule, between {@code 0} inclusive and {@code numPartitions} exclusive
+   */
+  public static int getPartition(ScheduleId scheduleId, int numPartitions) {
     // Similar to ScheduleId#hashCode, but that is not consistent across runtimes due to how Enum#hashCode works.
     // Ensure that the hash won't change across runtimes:
     int hash = Hashing.murmur3_32().newHasher()
@@ -465,6 +465,16 @@ public class ProgramScheduleStoreDataset {
                                           schedule -> programId.equals(schedule.getProgramId()));
   }
 
+  /**
+   * Retrieve the schedule records of all namespaces that can pass the given filter.
+   *
+   * @param filter a filter that only returns true if the schedule record will be returned in the result
+   * @return a list of schedule records that can pass the filter; never null
+   */
+  public List<ProgramScheduleRecord> listScheduleRecords(Predicate<ProgramSchedule> filter) throws IOException {
+    return listSchedulesRecordsInRange(Range.all(), filter);
+  }
+
   /**
    * Find all schedules that have a trigger with a given trigger key.
    *
@@ -540,9 +550,20 @@ public class ProgramScheduleStoreDataset {
   private List<ProgramScheduleRecord> listSchedulesRecordsWithPrefix(Collection<Field<?>> prefixKeys,
                                                                      Predicate<ProgramSchedule> filter)
     throws IOException {
+    return listSchedulesRecordsInRange(Range.singleton(prefixKeys), filter);
+  }
+
+  /**
+   * List schedule records in the given range and only returns the schedule records that can pass the filter.
+   *
+   * @param range the range of the schedule records to be listed
+   * @param filter a filter that only returns true if the schedule record will be returned in the result
+   * @return the schedule records in the given range that can pass the filter
+   */
+  private List<ProgramScheduleRecord> listSchedulesRecordsInRange(Range range, Predicate<ProgramSchedule> filter)
+    throws IOException {
     List<ProgramScheduleRecord> result = new ArrayList<>();
-    try (CloseableIterator<StructuredRow> iterator =
-           scheduleStore.scan(Range.singleton(prefixKeys), Integer.MAX_VALUE)) {
+    try (CloseableIterator<StructuredRow> iterator = scheduleStore.scan(range, Integer.MAX_VALUE)) {
       while (iterator.hasNext()) {
         StructuredRow row = iterator.next();
         String serializedSchedule = row.getString(StoreDefinition.ProgramScheduleStore.SCHEDULE);
@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.runtime.schedule.store;
+
+import com.google.common.base.Objects;
+import io.cdap.cdap.internal.app.runtime.schedule.ProgramScheduleStatus;
+import io.cdap.cdap.proto.id.ProgramId;
+import io.cdap.cdap.proto.id.ScheduleId;
+
+import javax.annotation.Nullable;
+
+/**
+ * The state of a time trigger of a schedule as stored in the {@link TimeTriggerTable}. A schedule has one time
+ * trigger if its trigger is a time trigger, or one time trigger for each distinct cron expression in its
+ * composite trigger.
+ */
+public final class TimeTriggerRecord {
+
+  private final ProgramId programId;
+  private final String scheduleName;
+  private final String cronExpression;
+  private final boolean composite;
+  private final ProgramScheduleStatus status;
+  private final long nextFireTime;
+  private final Long previousFireTime;
+
+  public TimeTriggerRecord(ProgramId programId, String scheduleName, String cronExpression, boolean composite,
+                           ProgramScheduleStatus status, long nextFireTime, @Nullable Long previousFireTime) {
+    this.programId = programId;
+    this.scheduleName = scheduleName;
+    this.cronExpression = cronExpression;
+    this.composite = composite;
+    this.status = status;
+    this.nextFireTime = nextFireTime;
+    this.previousFireTime = previousFireTime;
+  }
+
+  public ProgramId getProgramId() {
+    return programId;
+  }
+
+  public String getScheduleName() {
+    return scheduleName;
+  }
+
+  public ScheduleId getScheduleId() {
+    return programId.getParent().schedule(scheduleName);
+  }
+
+  /**
+   * Returns the cron expression of the trigger, in the format used by {@link
+   * io.cdap.cdap.internal.app.runtime.schedule.trigger.TimeTrigger}.
+   */
+  public String getCronExpression() {
+    return cronExpression;
+  }
+
+  /**
+   * Returns whether the trigger is part of a composite trigger.
+   */
+  public boolean isComposite() {
+    return composite;
+  }
+
+  public ProgramScheduleStatus getStatus() {
+    return status;
+  }
+
+  /**
+   * Returns the next time in milliseconds that the trigger fires.
+   */
+  public long getNextFireTime() {
+    return nextFireTime;
+  }
+
+  /**
+   * Returns the time in milliseconds that the trigger fired last time, or {@code null} if it never fired.
+   */
+  @Nullable
+  public Long getPreviousFireTime() {
+    return previousFireTime;
+  }
+
+  /**
+   * Returns a copy of this record with the given status and next fire time.
+   */
+  public TimeTriggerRecord withStatus(ProgramScheduleStatus status, long nextFireTime) {
+    return new TimeTriggerRecord(programId, scheduleName, cronExpression, composite, status, nextFireTime,
+                                 previousFireTime);
+  }
+
+  /**
+   * Returns a copy of this record with the given fire times.
+   */
+  public TimeTriggerRecord withFireTimes(long nextFireTime, @Nullable Long previousFireTime) {
+    return new TimeTriggerRecord(programId, scheduleName, cronExpression, composite, status, nextFireTime,
+                                 previousFireTime);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    TimeTriggerRecord that = (TimeTriggerRecord) o;
+    return composite == that.composite &&
+      nextFireTime == that.nextFireTime &&
+      Objects.equal(programId, that.programId) &&
+      Objects.equal(scheduleName, that.scheduleName) &&
+      Objects.equal(cronExpression, that.cronExpression) &&
+      status == that.status &&
+      Objects.equal(previousFireTime, that.previousFireTime);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(programId, scheduleName, cronExpression, composite, status, nextFireTime,
+                            previousFireTime);
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(this)
+      .add("programId", programId)
+      .add("scheduleName", scheduleName)
+      .add("cronExpression", cronExpression)
+      .add("composite", composite)
+      .add("status", status)
+      .add("nextFireTime", nextFireTime)
+      .add("previousFireTime", previousFireTime)
+      .toString();
+  }
+}
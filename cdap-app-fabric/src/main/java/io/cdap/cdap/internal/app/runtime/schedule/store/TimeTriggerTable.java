@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.runtime.schedule.store;
+
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.internal.app.runtime.schedule.ProgramScheduleStatus;
+import io.cdap.cdap.proto.ProgramType;
+import io.cdap.cdap.proto.id.ApplicationId;
+import io.cdap.cdap.proto.id.ProgramId;
+import io.cdap.cdap.spi.data.StructuredRow;
+import io.cdap.cdap.spi.data.StructuredTable;
+import io.cdap.cdap.spi.data.StructuredTableContext;
+import io.cdap.cdap.spi.data.table.field.Field;
+import io.cdap.cdap.spi.data.table.field.Fields;
+import io.cdap.cdap.spi.data.table.field.Range;
+import io.cdap.cdap.store.StoreDefinition;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Provides data logic for the time triggers of schedules. Only the identity, status and fire times of each trigger
+ * are stored, from which the time scheduler rebuilds its in-memory state on startup.
+ */
+public class TimeTriggerTable {
+
+  private final StructuredTable table;
+
+  /**
+   * Gets an instance of {@link TimeTriggerTable}.
+   *
+   * @return a new instance of {@link TimeTriggerTable}
+   */
+  public static TimeTriggerTable create(StructuredTableContext structuredTableContext) {
+    return new TimeTriggerTable(structuredTableContext.getTable(StoreDefinition.TimeTriggerStore.TIME_TRIGGERS));
+  }
+
+  private TimeTriggerTable(StructuredTable table) {
+    this.table = table;
+  }
+
+  /**
+   * Returns whether there is no time trigger stored.
+   */
+  public boolean isEmpty() throws IOException {
+    try (CloseableIterator<StructuredRow> iterator = table.scan(Range.all(), 1)) {
+      return !iterator.hasNext();
+    }
+  }
+
+  /**
+   * Lists all time triggers.
+   */
+  public List<TimeTriggerRecord> list() throws IOException {
+    List<TimeTriggerRecord> result = new ArrayList<>();
+    try (CloseableIterator<StructuredRow> iterator = table.scan(Range.all(), Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        result.add(fromRow(iterator.next()));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Writes the given time trigger, replacing the existing one with the same key.
+   */
+  public void write(TimeTriggerRecord record) throws IOException {
+    List<Field<?>> fields = getKey(record);
+    fields.add(Fields.intField(StoreDefinition.TimeTriggerStore.COMPOSITE_FIELD, record.isComposite() ? 1 : 0));
+    fields.add(Fields.stringField(StoreDefinition.TimeTriggerStore.STATUS_FIELD, record.getStatus().name()));
+    fields.add(Fields.longField(StoreDefinition.TimeTriggerStore.NEXT_FIRE_TIME_FIELD, record.getNextFireTime()));
+    fields.add(Fields.longField(StoreDefinition.TimeTriggerStore.PREVIOUS_FIRE_TIME_FIELD,
+                                record.getPreviousFireTime()));
+    table.upsert(fields);
+  }
+
+  /**
+   * Deletes the given time trigger.
+   */
+  public void delete(TimeTriggerRecord record) throws IOException {
+    table.delete(getKey(record));
+  }
+
+  private List<Field<?>> getKey(TimeTriggerRecord record) {
+    ProgramId programId = record.getProgramId();
+    List<Field<?>> fields = new ArrayList<>();
+    fields.add(Fields.stringField(StoreDefinition.TimeTriggerStore.NAMESPACE_FIELD, programId.getNamespace()));
+    fields.add(Fields.stringField(StoreDefinition.TimeTriggerStore.APPLICATION_FIELD, programId.getApplication()));
+    fields.add(Fields.stringField(StoreDefinition.TimeTriggerStore.VERSION_FIELD, programId.getVersion()));
+    fields.add(Fields.stringField(StoreDefinition.TimeTriggerStore.PROGRAM_TYPE_FIELD, programId.getType().name()));
+    fields.add(Fields.stringField(StoreDefinition.TimeTriggerStore.PROGRAM_FIELD, programId.getProgram()));
+    fields.add(Fields.stringField(StoreDefinition.TimeTriggerStore.SCHEDULE_FIELD, record.getScheduleName()));
+    fields.add(Fields.stringField(StoreDefinition.TimeTriggerStore.CRON_EXPRESSION_FIELD,
+                                  record.getCronExpression()));
+    return fields;
+  }
+
+  private TimeTriggerRecord fromRow(StructuredRow row) {
+    ProgramId programId =
+      new ApplicationId(row.getString(StoreDefinition.TimeTriggerStore.NAMESPACE_FIELD),
+                        row.getString(StoreDefinition.TimeTriggerStore.APPLICATION_FIELD),
+                        row.getString(StoreDefinition.TimeTriggerStore.VERSION_FIELD))
+        .program(ProgramType.valueOf(row.getString(StoreDefinition.TimeTriggerStore.PROGRAM_TYPE_FIELD)),
+                 row.getString(StoreDefinition.TimeTriggerStore.PROGRAM_FIELD));
+    Integer composite = row.getInteger(StoreDefinition.TimeTriggerStore.COMPOSITE_FIELD);
+    Long nextFireTime = row.getLong(StoreDefinition.TimeTriggerStore.NEXT_FIRE_TIME_FIELD);
+    return new TimeTriggerRecord(programId,
+                                 row.getString(StoreDefinition.TimeTriggerStore.SCHEDULE_FIELD),
+                                 row.getString(StoreDefinition.TimeTriggerStore.CRON_EXPRESSION_FIELD),
+                                 composite != null && composite != 0,
+                                 ProgramScheduleStatus.valueOf(
+                                   row.getString(StoreDefinition.TimeTriggerStore.STATUS_FIELD)),
+                                 nextFireTime == null ? 0L : nextFireTime,
+                                 row.getLong(StoreDefinition.TimeTriggerStore.PREVIOUS_FIRE_TIME_FIELD));
+  }
+}
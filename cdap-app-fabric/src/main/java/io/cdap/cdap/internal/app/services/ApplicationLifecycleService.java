@@ -48,6 +48,8 @@ import io.cdap.cdap.common.NotFoundException;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.id.Id;
+import io.cdap.cdap.common.trace.Span;
+import io.cdap.cdap.common.trace.Tracing;
 import io.cdap.cdap.config.PreferencesService;
 import io.cdap.cdap.data2.metadata.writer.MetadataServiceClient;
 import io.cdap.cdap.data2.registry.UsageRegistry;
@@ -679,11 +681,17 @@ public class ApplicationLifecycleService extends AbstractIdleService {
     Manager<AppDeploymentInfo, ApplicationWithPrograms> manager = managerFactory.create(programTerminator);
     // TODO: (CDAP-3258) Manager needs MUCH better error handling.
     ApplicationWithPrograms applicationWithPrograms;
-    try {
-      applicationWithPrograms = manager.deploy(deploymentInfo).get();
-    } catch (ExecutionException e) {
-      Throwables.propagateIfPossible(e.getCause(), Exception.class);
-      throw Throwables.propagate(e.getCause());
+    // the deploy pipeline runs synchronously, hence its stages are recorded as children of this span
+    try (Span span = Tracing.startSpan("app.deploy")) {
+      span.tag("namespace", namespaceId.getNamespace());
+      span.tag("artifact", artifactDetail.getDescriptor().getArtifactId());
+      try {
+        applicationWithPrograms = manager.deploy(deploymentInfo).get();
+      } catch (ExecutionException e) {
+        span.error(e.getCause());
+        Throwables.propagateIfPossible(e.getCause(), Exception.class);
+        throw Throwables.propagate(e.getCause());
+      }
     }
 
     adminEventPublisher.publishAppCreation(applicationWithPrograms.getApplicationId(),
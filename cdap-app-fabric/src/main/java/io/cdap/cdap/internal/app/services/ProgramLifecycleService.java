@@ -46,6 +46,8 @@ import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.id.Id;
 import io.cdap.cdap.common.io.CaseInsensitiveEnumTypeAdapterFactory;
+import io.cdap.cdap.common.trace.Span;
+import io.cdap.cdap.common.trace.Tracing;
 import io.cdap.cdap.config.PreferencesService;
 import io.cdap.cdap.internal.app.ApplicationSpecificationAdapter;
 import io.cdap.cdap.internal.app.runtime.BasicArguments;
@@ -496,27 +498,32 @@ public class ProgramLifecycleService {
   public RunId runInternal(ProgramId programId, Map<String, String> userArgs, Map<String, String> sysArgs,
                            boolean debug) throws NotFoundException, IOException, ConflictException {
     RunId runId = RunIds.generate();
-    ProgramOptions programOptions = createProgramOptions(programId, userArgs, sysArgs, debug);
-    ProgramDescriptor programDescriptor = store.loadProgram(programId);
-    String userId = SecurityRequestContext.getUserId();
-    userId = userId == null ? "" : userId;
-
-    synchronized (this) {
-      if (maxConcurrentRuns > 0 && maxConcurrentRuns <= store.countActiveRuns(maxConcurrentRuns)) {
-        ConflictException e = new ConflictException(
-          String.format("Program %s cannot start because the maximum of %d concurrent runs is exceeded",
-                        programId, maxConcurrentRuns));
-
-        programStateWriter.reject(programId.run(runId), programOptions, programDescriptor, userId, e);
-        throw e;
+    // the provisioning notification carries the trace context to the provisioning and the program launch
+    try (Span span = Tracing.startSpan("program.run")) {
+      span.tag("program", programId);
+      span.tag("run", runId.getId());
+      ProgramOptions programOptions = createProgramOptions(programId, userArgs, sysArgs, debug);
+      ProgramDescriptor programDescriptor = store.loadProgram(programId);
+      String userId = SecurityRequestContext.getUserId();
+      userId = userId == null ? "" : userId;
+
+      synchronized (this) {
+        if (maxConcurrentRuns > 0 && maxConcurrentRuns <= store.countActiveRuns(maxConcurrentRuns)) {
+          ConflictException e = new ConflictException(
+            String.format("Program %s cannot start because the maximum of %d concurrent runs is exceeded",
+                          programId, maxConcurrentRuns));
+
+          programStateWriter.reject(programId.run(runId), programOptions, programDescriptor, userId, e);
+          throw e;
+        }
       }
-    }
 
-    LOG.info("Attempt to run {} program {} as user {}", programId.getType(), programId.getProgram(),
-             authenticationContext.getPrincipal().getName());
+      LOG.info("Attempt to run {} program {} as user {}", programId.getType(), programId.getProgram(),
+               authenticationContext.getPrincipal().getName());
 
-    provisionerNotifier.provisioning(programId.run(runId), programOptions, programDescriptor, userId);
-    return runId;
+      provisionerNotifier.provisioning(programId.run(runId), programOptions, programDescriptor, userId);
+      return runId;
+    }
   }
 
   @VisibleForTesting
@@ -609,12 +616,16 @@ public class ProgramLifecycleService {
                                   ProgramOptions programOptions, ProgramRunId programRunId) {
     RunId runId = RunIds.fromString(programRunId.getRun());
 
-    synchronized (this) {
-      RuntimeInfo runtimeInfo = runtimeService.lookup(programRunId.getParent(), runId);
-      if (runtimeInfo != null) {
-        return runtimeInfo.getController();
+    try (Span span = Tracing.startSpan("program.launch")) {
+      span.tag("program", programRunId.getParent());
+      span.tag("run", runId.getId());
+      synchronized (this) {
+        RuntimeInfo runtimeInfo = runtimeService.lookup(programRunId.getParent(), runId);
+        if (runtimeInfo != null) {
+          return runtimeInfo.getController();
+        }
+        return runtimeService.run(programDescriptor, programOptions, runId).getController();
       }
-      return runtimeService.run(programDescriptor, programOptions, runId).getController();
     }
   }
 
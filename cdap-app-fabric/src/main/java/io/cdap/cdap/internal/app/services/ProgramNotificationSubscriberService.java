@@ -34,6 +34,9 @@ import io.cdap.cdap.app.runtime.ProgramStateWriter;
 import io.cdap.cdap.common.app.RunIds;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.trace.Span;
+import io.cdap.cdap.common.trace.SpanContext;
+import io.cdap.cdap.common.trace.Tracing;
 import io.cdap.cdap.common.utils.ImmutablePair;
 import io.cdap.cdap.common.utils.ProjectInfo;
 import io.cdap.cdap.internal.app.ApplicationSpecificationAdapter;
@@ -151,10 +154,15 @@ public class ProgramNotificationSubscriberService extends AbstractNotificationSu
     List<Runnable> tasks = new LinkedList<>();
     while (messages.hasNext()) {
       ImmutablePair<String, Notification> messagePair = messages.next();
-      List<Runnable> runnables = processNotification(heartbeatDataset,
-                                                     messagePair.getFirst().getBytes(StandardCharsets.UTF_8),
-                                                     messagePair.getSecond(), structuredTableContext);
-      tasks.addAll(runnables);
+      Map<String, String> properties = messagePair.getSecond().getProperties();
+      try (Span span = Tracing.startSpan("program.notification", Tracing.getContext(properties))) {
+        span.tag("status", properties.get(ProgramOptionConstants.PROGRAM_STATUS));
+        span.tag("clusterStatus", properties.get(ProgramOptionConstants.CLUSTER_STATUS));
+        List<Runnable> runnables = processNotification(heartbeatDataset,
+                                                       messagePair.getFirst().getBytes(StandardCharsets.UTF_8),
+                                                       messagePair.getSecond(), structuredTableContext);
+        tasks.addAll(span.isRecording() ? traced(runnables, span.getContext()) : runnables);
+      }
     }
 
     // Only add post processing tasks if all messages are processed. If there is exception in the processNotifiation,
@@ -171,6 +179,21 @@ public class ProgramNotificationSubscriberService extends AbstractNotificationSu
     }
   }
 
+  /**
+   * Wraps the post processing tasks of a notification, so that they continue the trace of the notification.
+   */
+  private static List<Runnable> traced(List<Runnable> runnables, SpanContext context) {
+    List<Runnable> result = new ArrayList<>(runnables.size());
+    for (Runnable runnable : runnables) {
+      result.add(() -> {
+        try (Span span = Tracing.startSpan("program.notification.task", context)) {
+          runnable.run();
+        }
+      });
+    }
+    return result;
+  }
+
   /**
    * Process a {@link Notification} received from TMS.
    *
@@ -531,7 +554,7 @@ public class ProgramNotificationSubscriberService extends AbstractNotificationSu
         // If we skipped recording the run status, that means this was a duplicate message,
         // or an invalid state transition. In both cases, we should not try to deprovision the cluster.
         if (recordedMeta != null) {
-          return Optional.of(provisioningService.deprovision(programRunId, context));
+          return Optional.of(provisioningService.deprovision(programRunId, recordedMeta.getStatus(), context));
         }
         break;
       case DEPROVISIONED:
@@ -18,6 +18,8 @@ package io.cdap.cdap.internal.pipeline;
 
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import io.cdap.cdap.common.trace.Span;
+import io.cdap.cdap.common.trace.Tracing;
 import io.cdap.cdap.pipeline.Pipeline;
 import io.cdap.cdap.pipeline.Stage;
 import org.slf4j.Logger;
@@ -54,7 +56,9 @@ public final class SynchronousPipeline<T> extends AbstractPipeline<T> {
     StageContext ctx = new StageContext(o);
     try {
       for (Stage stage : getStages()) {
-        stage.process(ctx);
+        try (Span span = Tracing.startSpan("pipeline." + stage.getClass().getSimpleName())) {
+          stage.process(ctx);
+        }
         // Output of previous stage is input to next stage
         ctx = StageContext.next(ctx);
       }
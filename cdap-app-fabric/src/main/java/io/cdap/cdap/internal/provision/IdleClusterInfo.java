@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.provision;
+
+import io.cdap.cdap.proto.id.ProgramRunId;
+import io.cdap.cdap.runtime.spi.provisioner.Cluster;
+
+/**
+ * Information about a cluster that was kept after the program run using it completed, so that it can be reused
+ * by a later program run with the same profile and provisioner properties.
+ */
+public class IdleClusterInfo {
+  private final String reuseKey;
+  private final long idleSince;
+  private final ProvisioningTaskInfo taskInfo;
+
+  public IdleClusterInfo(String reuseKey, long idleSince, ProvisioningTaskInfo taskInfo) {
+    this.reuseKey = reuseKey;
+    this.idleSince = idleSince;
+    this.taskInfo = taskInfo;
+  }
+
+  /**
+   * Returns the key for matching program runs that can reuse this cluster.
+   */
+  public String getReuseKey() {
+    return reuseKey;
+  }
+
+  /**
+   * Returns the time in milliseconds since when the cluster was idle.
+   */
+  public long getIdleSince() {
+    return idleSince;
+  }
+
+  /**
+   * Returns the {@link ProvisioningTaskInfo} of the provision task of the last program run that used the cluster.
+   */
+  public ProvisioningTaskInfo getTaskInfo() {
+    return taskInfo;
+  }
+
+  /**
+   * Returns the {@link ProgramRunId} of the last program run that used the cluster.
+   */
+  public ProgramRunId getProgramRunId() {
+    return taskInfo.getProgramRunId();
+  }
+
+  /**
+   * Returns the idle {@link Cluster}.
+   */
+  public Cluster getCluster() {
+    return taskInfo.getCluster();
+  }
+}
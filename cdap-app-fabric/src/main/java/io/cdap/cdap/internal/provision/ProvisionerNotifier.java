@@ -29,6 +29,7 @@ import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.service.Retries;
 import io.cdap.cdap.common.service.RetryStrategies;
 import io.cdap.cdap.common.service.RetryStrategy;
+import io.cdap.cdap.common.trace.Tracing;
 import io.cdap.cdap.internal.app.ApplicationSpecificationAdapter;
 import io.cdap.cdap.internal.app.runtime.ProgramOptionConstants;
 import io.cdap.cdap.messaging.MessagingService;
@@ -124,8 +125,9 @@ public class ProvisionerNotifier {
   }
 
   private void publish(Map<String, String> properties) {
+    Notification notification = new Notification(Notification.Type.PROGRAM_STATUS, Tracing.addContext(properties));
     final StoreRequest storeRequest = StoreRequestBuilder.of(topic)
-      .addPayload(GSON.toJson(new Notification(Notification.Type.PROGRAM_STATUS, properties)))
+      .addPayload(GSON.toJson(notification))
       .build();
     Retries.supplyWithRetries(
       () -> {
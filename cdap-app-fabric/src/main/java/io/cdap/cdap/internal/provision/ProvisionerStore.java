@@ -73,6 +73,18 @@ final class ProvisionerStore {
     }, IOException.class);
   }
 
+  List<IdleClusterInfo> listIdleClusters() throws IOException {
+    return TransactionRunners.run(txRunner, context -> {
+      return getProvisionerTable(context).listIdleClusters();
+    }, IOException.class);
+  }
+
+  void putIdleCluster(IdleClusterInfo idleCluster) throws IOException {
+    TransactionRunners.run(txRunner, context -> {
+      getProvisionerTable(context).putIdleCluster(idleCluster);
+    }, IOException.class);
+  }
+
   @Nullable
   ProvisioningTaskInfo getExistingAndCancel(final ProvisioningTaskKey taskKey) throws IOException {
     return TransactionRunners.run(txRunner, context -> {
@@ -37,6 +37,7 @@ import io.cdap.cdap.store.StoreDefinition;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import javax.annotation.Nullable;
@@ -46,12 +47,14 @@ import javax.annotation.Nullable;
  */
 public class ProvisionerTable {
   private final StructuredTable table;
+  private final StructuredTable idleClusterTable;
   private static final Gson GSON = ApplicationSpecificationAdapter.addTypeAdapters(new GsonBuilder())
     .registerTypeAdapter(ProgramOptions.class, new ProgramOptionsCodec())
     .registerTypeAdapter(Arguments.class, new ArgumentsCodec())
     .create();
   public ProvisionerTable(StructuredTableContext context) throws TableNotFoundException {
     this.table = context.getTable(StoreDefinition.ProvisionerStore.PROVISIONER_TABLE);
+    this.idleClusterTable = context.getTable(StoreDefinition.ProvisionerStore.IDLE_CLUSTER_TABLE);
   }
 
   /**
@@ -106,6 +109,91 @@ public class ProvisionerTable {
     table.deleteAll(Range.singleton(createPrimaryKey(runId, null)));
   }
 
+  /**
+   * @return List of {@link IdleClusterInfo} of all idle clusters
+   * @throws IOException if there is an error reading from underlying structured table.
+   */
+  public List<IdleClusterInfo> listIdleClusters() throws IOException {
+    List<IdleClusterInfo> result = new ArrayList<>();
+    try (CloseableIterator<StructuredRow> iterator = idleClusterTable.scan(Range.all(), Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        result.add(deserializeIdleCluster(iterator.next()));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Persist the idle cluster info.
+   * @param idleCluster {@link IdleClusterInfo} to be persisted.
+   * @throws IOException if there is an issue writing to the underlying structured table.
+   */
+  public void putIdleCluster(IdleClusterInfo idleCluster) throws IOException {
+    List<Field<?>> fields = createIdleClusterKey(idleCluster.getReuseKey(), idleCluster.getProgramRunId());
+    fields.add(Fields.longField(StoreDefinition.ProvisionerStore.IDLE_SINCE_FIELD, idleCluster.getIdleSince()));
+    fields.add(Fields.stringField(StoreDefinition.ProvisionerStore.IDLE_CLUSTER_INFO_FIELD,
+                                  serialize(idleCluster.getTaskInfo())));
+    idleClusterTable.upsert(fields);
+  }
+
+  /**
+   * Removes the most recently idled cluster with the given reuse key that became idle at or after the given time.
+   * @param reuseKey the reuse key to match
+   * @param minIdleSince the minimum idle since time in milliseconds
+   * @return the {@link IdleClusterInfo} that was removed or {@code null} if there is no matching idle cluster
+   * @throws IOException if there is an issue reading from or writing to the underlying structured table.
+   */
+  @Nullable
+  public IdleClusterInfo takeIdleCluster(String reuseKey, long minIdleSince) throws IOException {
+    IdleClusterInfo result = null;
+    Range range = Range.singleton(
+      Collections.singletonList(Fields.stringField(StoreDefinition.ProvisionerStore.REUSE_KEY_FIELD, reuseKey)));
+    try (CloseableIterator<StructuredRow> iterator = idleClusterTable.scan(range, Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        StructuredRow row = iterator.next();
+        Long idleSince = row.getLong(StoreDefinition.ProvisionerStore.IDLE_SINCE_FIELD);
+        if (idleSince == null || idleSince < minIdleSince) {
+          // Expired cluster will get deleted
+          continue;
+        }
+        if (result == null || result.getIdleSince() < idleSince) {
+          result = deserializeIdleCluster(row);
+        }
+      }
+    }
+    if (result != null) {
+      idleClusterTable.delete(createIdleClusterKey(reuseKey, result.getProgramRunId()));
+    }
+    return result;
+  }
+
+  /**
+   * Deletes the idle cluster info.
+   * @param idleCluster the {@link IdleClusterInfo} to delete
+   * @return {@code true} if the idle cluster info was deleted, or {@code false} if it no longer exists
+   * @throws IOException if there is an issue reading from or writing to the underlying structured table.
+   */
+  public boolean deleteIdleCluster(IdleClusterInfo idleCluster) throws IOException {
+    List<Field<?>> key = createIdleClusterKey(idleCluster.getReuseKey(), idleCluster.getProgramRunId());
+    if (!idleClusterTable.read(key).isPresent()) {
+      return false;
+    }
+    idleClusterTable.delete(key);
+    return true;
+  }
+
+  private List<Field<?>> createIdleClusterKey(String reuseKey, ProgramRunId runId) {
+    return Lists.newArrayList(Fields.stringField(StoreDefinition.ProvisionerStore.REUSE_KEY_FIELD, reuseKey),
+                              Fields.stringField(StoreDefinition.ProvisionerStore.RUN_FIELD, runId.getRun()));
+  }
+
+  private IdleClusterInfo deserializeIdleCluster(StructuredRow row) {
+    Long idleSince = row.getLong(StoreDefinition.ProvisionerStore.IDLE_SINCE_FIELD);
+    return new IdleClusterInfo(row.getString(StoreDefinition.ProvisionerStore.REUSE_KEY_FIELD),
+                               idleSince == null ? 0L : idleSince,
+                               deserialize(row.getString(StoreDefinition.ProvisionerStore.IDLE_CLUSTER_INFO_FIELD)));
+  }
+
   private List<Field<?>> createPrimaryKey(ProgramRunId runId, @Nullable ProvisioningOp.Type type) {
     List<Field<?>> fields = Lists.newArrayList(
       Fields.stringField(StoreDefinition.ProvisionerStore.NAMESPACE_FIELD, runId.getNamespace()),
@@ -17,8 +17,12 @@
 package io.cdap.cdap.internal.provision;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
@@ -26,12 +30,15 @@ import com.google.inject.Inject;
 import io.cdap.cdap.api.macro.InvalidMacroException;
 import io.cdap.cdap.api.macro.MacroEvaluator;
 import io.cdap.cdap.api.macro.MacroParserOptions;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
 import io.cdap.cdap.api.plugin.Requirements;
 import io.cdap.cdap.api.security.store.SecureStore;
 import io.cdap.cdap.app.runtime.ProgramOptions;
 import io.cdap.cdap.app.runtime.ProgramStateWriter;
 import io.cdap.cdap.common.NotFoundException;
+import io.cdap.cdap.common.app.RunIds;
 import io.cdap.cdap.common.async.KeyedExecutor;
+import io.cdap.cdap.common.async.RepeatedTask;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.logging.LogSamplers;
@@ -40,8 +47,13 @@ import io.cdap.cdap.common.logging.LoggingContext;
 import io.cdap.cdap.common.logging.LoggingContextAccessor;
 import io.cdap.cdap.common.service.Retries;
 import io.cdap.cdap.common.service.RetryStrategies;
+import io.cdap.cdap.common.trace.Span;
+import io.cdap.cdap.common.trace.SpanContext;
+import io.cdap.cdap.common.trace.Tracing;
 import io.cdap.cdap.common.utils.Networks;
+import io.cdap.cdap.internal.app.runtime.BasicArguments;
 import io.cdap.cdap.internal.app.runtime.ProgramOptionConstants;
+import io.cdap.cdap.internal.app.runtime.SimpleProgramOptions;
 import io.cdap.cdap.internal.app.runtime.SystemArguments;
 import io.cdap.cdap.internal.app.runtime.plugin.MacroParser;
 import io.cdap.cdap.internal.app.spark.SparkCompatReader;
@@ -50,6 +62,8 @@ import io.cdap.cdap.internal.provision.task.DeprovisionTask;
 import io.cdap.cdap.internal.provision.task.ProvisionTask;
 import io.cdap.cdap.internal.provision.task.ProvisioningTask;
 import io.cdap.cdap.logging.context.LoggingContextHelper;
+import io.cdap.cdap.proto.ProgramRunStatus;
+import io.cdap.cdap.proto.id.ProfileId;
 import io.cdap.cdap.proto.id.ProgramRunId;
 import io.cdap.cdap.proto.provisioner.ProvisionerDetail;
 import io.cdap.cdap.runtime.spi.SparkCompat;
@@ -66,6 +80,7 @@ import io.cdap.cdap.runtime.spi.ssh.SSHKeyPair;
 import io.cdap.cdap.security.spi.authentication.SecurityRequestContext;
 import io.cdap.cdap.spi.data.StructuredTableContext;
 import io.cdap.cdap.spi.data.transaction.TransactionRunner;
+import io.cdap.cdap.spi.data.transaction.TransactionRunners;
 import org.apache.twill.common.Cancellable;
 import org.apache.twill.common.Threads;
 import org.apache.twill.filesystem.Location;
@@ -86,9 +101,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
@@ -96,7 +114,13 @@ import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 
 /**
- * Service for provisioning related operations
+ * Service for provisioning related operations.
+ *
+ * If {@link Constants.Provisioner#CLUSTER_REUSE_IDLE_TTL_SECS} is positive, clusters are not deleted when program
+ * runs complete. Instead they are kept idle in the {@link ProvisionerStore} and assigned to later program runs
+ * with the same profile, provisioner properties and user. Only clusters of runs that completed successfully are kept.
+ * Idle clusters that are not reused within the TTL get deleted. The deletion is tracked under a run id of its own,
+ * so that it doesn't touch the state of the program run the cluster was created for.
  */
 public class ProvisioningService extends AbstractIdleService {
 
@@ -104,6 +128,8 @@ public class ProvisioningService extends AbstractIdleService {
   private static final Logger SAMPLING_LOG = Loggers.sampling(LOG, LogSamplers.onceEvery(20));
   private static final Gson GSON = new Gson();
   private static final Type PLUGIN_REQUIREMENT_SET_TYPE = new TypeToken<Set<PluginRequirement>>() { }.getType();
+  // System argument set on the deprovision task of an idle cluster, holding the run id the cluster was created for
+  private static final String IDLE_CLUSTER_RUN_ID = "provisioner.idle.cluster.run.id";
 
   private final CConfiguration cConf;
   private final AtomicReference<ProvisionerInfo> provisionerInfo;
@@ -118,13 +144,19 @@ public class ProvisioningService extends AbstractIdleService {
   private KeyedExecutor<ProvisioningTaskKey> taskExecutor;
   private final ProvisionerStore provisionerStore;
   private final TransactionRunner transactionRunner;
+  private final MetricsCollectionService metricsCollectionService;
+  private final long clusterIdleTTLMillis;
+  // Last observed time in milliseconds for creating a cluster with each provisioner
+  private final Map<String, Long> clusterCreateMillis;
+  private ScheduledExecutorService idleClusterExecutor;
 
   @Inject
   ProvisioningService(CConfiguration cConf, ProvisionerProvider provisionerProvider,
                       ProvisionerConfigProvider provisionerConfigProvider,
                       ProvisionerNotifier provisionerNotifier, LocationFactory locationFactory,
                       SecureStore secureStore, ProgramStateWriter programStateWriter,
-                      ProvisionerStore provisionerStore, TransactionRunner transactionRunner) {
+                      ProvisionerStore provisionerStore, TransactionRunner transactionRunner,
+                      MetricsCollectionService metricsCollectionService) {
     this.cConf = cConf;
     this.provisionerProvider = provisionerProvider;
     this.provisionerConfigProvider = provisionerConfigProvider;
@@ -136,6 +168,10 @@ public class ProvisioningService extends AbstractIdleService {
     this.programStateWriter = programStateWriter;
     this.provisionerStore = provisionerStore;
     this.transactionRunner = transactionRunner;
+    this.metricsCollectionService = metricsCollectionService;
+    this.clusterIdleTTLMillis =
+      TimeUnit.SECONDS.toMillis(cConf.getLong(Constants.Provisioner.CLUSTER_REUSE_IDLE_TTL_SECS, 0L));
+    this.clusterCreateMillis = new ConcurrentHashMap<>();
     this.taskStateCleanup = programRunId -> {
       try {
         provisionerStore.deleteTaskInfo(programRunId);
@@ -152,11 +188,21 @@ public class ProvisioningService extends AbstractIdleService {
     this.taskExecutor = new KeyedExecutor<>(Executors.newScheduledThreadPool(
       0, Threads.createDaemonThreadFactory("provisioning-service-%d")));
     resumeTasks(taskStateCleanup);
+
+    if (clusterIdleTTLMillis > 0) {
+      long interval = cConf.getLong(Constants.Provisioner.CLUSTER_REUSE_CHECK_INTERVAL_SECS, 60L);
+      idleClusterExecutor = Executors.newSingleThreadScheduledExecutor(
+        Threads.createDaemonThreadFactory("provisioning-idle-cluster-cleanup"));
+      idleClusterExecutor.scheduleWithFixedDelay(this::deleteExpiredIdleClusters, interval, interval, TimeUnit.SECONDS);
+    }
   }
 
   @Override
   protected void shutDown() throws Exception {
     LOG.info("Stopping {}", getClass().getSimpleName());
+    if (idleClusterExecutor != null) {
+      idleClusterExecutor.shutdownNow();
+    }
     try {
       // Shutdown the executor, which will issue an interrupt to the running thread.
       // Wait for a moment for threads to complete. Even if they don't, however, it also ok since we have
@@ -242,7 +288,9 @@ public class ProvisioningService extends AbstractIdleService {
         // can happen if CDAP is shut down in the middle of a task, and a provisioner is removed
         LOG.error("Could not provision cluster for program run {} because provisioner {} no longer exists.",
                   programRunId, provisionerName);
-        provisionerNotifier.orphaned(programRunId);
+        if (!isIdleClusterDeletion(provisioningTaskInfo)) {
+          provisionerNotifier.orphaned(programRunId);
+        }
         provisionerStore.deleteTaskInfo(provisioningTaskInfo.getProgramRunId());
         continue;
       }
@@ -346,15 +394,52 @@ public class ProvisioningService extends AbstractIdleService {
     }
 
     Map<String, String> properties = SystemArguments.getProfileProperties(args);
-    ProvisioningOp provisioningOp = new ProvisioningOp(ProvisioningOp.Type.PROVISION,
-                                                       ProvisioningOp.Status.REQUESTING_CREATE);
-    ProvisioningTaskInfo provisioningTaskInfo =
-      new ProvisioningTaskInfo(programRunId, provisionRequest.getProgramDescriptor(), programOptions,
-                               properties, name, provisionRequest.getUser(), provisioningOp,
-                               createKeysDirectory(programRunId).toURI(), null);
     ProvisionerTable provisionerTable = new ProvisionerTable(context);
+    IdleClusterInfo idleCluster = null;
+    if (clusterIdleTTLMillis > 0) {
+      String reuseKey = getReuseKey(programRunId, args, name, properties, provisionRequest.getUser());
+      idleCluster = provisionerTable.takeIdleCluster(reuseKey, System.currentTimeMillis() - clusterIdleTTLMillis);
+    }
+
+    ProvisioningTaskInfo provisioningTaskInfo;
+    if (idleCluster == null) {
+      ProvisioningOp provisioningOp = new ProvisioningOp(ProvisioningOp.Type.PROVISION,
+                                                         ProvisioningOp.Status.REQUESTING_CREATE);
+      provisioningTaskInfo = new ProvisioningTaskInfo(programRunId, provisionRequest.getProgramDescriptor(),
+                                                      programOptions, properties, name, provisionRequest.getUser(),
+                                                      provisioningOp, createKeysDirectory(programRunId).toURI(), null);
+    } else {
+      // Start by polling the idle cluster. If it no longer exists, the provision task will create a new one.
+      // The keys of the idle cluster are needed to connect to it, hence the keys directory is carried over.
+      ProvisioningOp provisioningOp = new ProvisioningOp(ProvisioningOp.Type.PROVISION,
+                                                         ProvisioningOp.Status.POLLING_CREATE);
+      provisioningTaskInfo = new ProvisioningTaskInfo(programRunId, provisionRequest.getProgramDescriptor(),
+                                                      programOptions, properties, name, provisionRequest.getUser(),
+                                                      provisioningOp, idleCluster.getTaskInfo().getSecureKeysDir(),
+                                                      idleCluster.getCluster());
+    }
     provisionerTable.putTaskInfo(provisioningTaskInfo);
-    return createProvisionTask(provisioningTaskInfo, provisioner);
+    Runnable task = createProvisionTask(provisioningTaskInfo, provisioner);
+    if (clusterIdleTTLMillis <= 0) {
+      return task;
+    }
+
+    IdleClusterInfo reusedCluster = idleCluster;
+    return () -> {
+      if (reusedCluster == null) {
+        emitMetric(programRunId, args, Constants.Metrics.Provisioner.CLUSTER_REUSE_MISSES, 1L);
+      } else {
+        runWithProgramLogging(programRunId, args, () -> LOG.info("Reusing idle cluster {} of program run {}.",
+                                                                  reusedCluster.getCluster().getName(),
+                                                                  reusedCluster.getProgramRunId()));
+        emitMetric(programRunId, args, Constants.Metrics.Provisioner.CLUSTER_REUSE_HITS, 1L);
+        Long savedMillis = clusterCreateMillis.get(name);
+        if (savedMillis != null) {
+          emitMetric(programRunId, args, Constants.Metrics.Provisioner.CLUSTER_REUSE_SAVED_MILLIS, savedMillis);
+        }
+      }
+      task.run();
+    };
   }
 
   /**
@@ -365,16 +450,18 @@ public class ProvisioningService extends AbstractIdleService {
    * tracked by this service. The caller does not need to submit the runnable using their own executor.
    *
    * @param programRunId the program run to deprovision
+   * @param runStatus the end status of the program run. Only the cluster of a completed run can be reused.
    * @param context context for the transaction
    * @return runnable that will actually execute the cluster deprovisioning
    */
-  public Runnable deprovision(ProgramRunId programRunId, StructuredTableContext context) throws IOException {
-    return deprovision(programRunId, context, taskStateCleanup);
+  public Runnable deprovision(ProgramRunId programRunId, ProgramRunStatus runStatus,
+                              StructuredTableContext context) throws IOException {
+    return deprovision(programRunId, runStatus, context, taskStateCleanup);
   }
 
   // This is visible for testing, where we may not want to delete the task information after it completes
   @VisibleForTesting
-  Runnable deprovision(ProgramRunId programRunId, StructuredTableContext context,
+  Runnable deprovision(ProgramRunId programRunId, ProgramRunStatus runStatus, StructuredTableContext context,
                        Consumer<ProgramRunId> taskCleanup) throws IOException {
     // look up information for the corresponding provision operation
     ProvisioningTaskInfo existing =
@@ -408,11 +495,24 @@ public class ProvisioningService extends AbstractIdleService {
       return () -> taskCleanup.accept(existing.getProgramRunId());
     }
 
+    ProvisionerTable provisionerTable = new ProvisionerTable(context);
+
+    // Keep the cluster for reuse if it was provisioned successfully and the program run completed on it.
+    // The cluster of a failed or killed run may be left in a bad state, hence it is deleted.
+    if (clusterIdleTTLMillis > 0 && runStatus == ProgramRunStatus.COMPLETED
+      && existing.getProvisioningOp().getStatus() == ProvisioningOp.Status.CREATED) {
+      String reuseKey = getReuseKey(programRunId, existing.getProgramOptions().getArguments().asMap(),
+                                    existing.getProvisionerName(), existing.getProvisionerProperties(),
+                                    existing.getUser());
+      provisionerTable.putIdleCluster(new IdleClusterInfo(reuseKey, System.currentTimeMillis(), existing));
+      provisionerNotifier.deprovisioned(programRunId);
+      return () -> taskCleanup.accept(programRunId);
+    }
+
     ProvisioningOp provisioningOp = new ProvisioningOp(ProvisioningOp.Type.DEPROVISION,
                                                        ProvisioningOp.Status.REQUESTING_DELETE);
     ProvisioningTaskInfo provisioningTaskInfo = new ProvisioningTaskInfo(existing, provisioningOp,
                                                                          existing.getCluster());
-    ProvisionerTable provisionerTable = new ProvisionerTable(context);
     provisionerTable.putTaskInfo(provisioningTaskInfo);
 
     return createDeprovisionTask(provisioningTaskInfo, provisioner, taskCleanup);
@@ -563,9 +663,17 @@ public class ProvisioningService extends AbstractIdleService {
                                               provisionerNotifier, programStateWriter, 300);
 
     ProvisioningTaskKey taskKey = new ProvisioningTaskKey(programRunId, ProvisioningOp.Type.PROVISION);
-    return () -> taskExecutor.submit(taskKey, () -> callWithProgramLogging(programRunId, systemArgs, () -> {
+    // Track the time for creating new clusters, which is the time saved when a cluster is reused
+    boolean trackCreateTime = clusterIdleTTLMillis > 0
+      && taskInfo.getProvisioningOp().getStatus() == ProvisioningOp.Status.REQUESTING_CREATE;
+    long startTime = System.currentTimeMillis();
+    return createTask(taskKey, systemArgs, () -> {
       try {
-        return task.executeOnce();
+        long delay = task.executeOnce();
+        if (delay < 0 && trackCreateTime) {
+          recordClusterCreateTime(taskKey, taskInfo.getProvisionerName(), System.currentTimeMillis() - startTime);
+        }
+        return delay;
       } catch (InterruptedException e) {
         LOG.debug("Provision task for program run {} interrupted.", taskInfo.getProgramRunId());
         throw e;
@@ -573,7 +681,7 @@ public class ProvisioningService extends AbstractIdleService {
         LOG.info("Provision task for program run {} failed.", taskInfo.getProgramRunId(), e);
         throw e;
       }
-    }));
+    });
   }
 
   private Runnable createDeprovisionTask(ProvisioningTaskInfo taskInfo, Provisioner provisioner,
@@ -590,6 +698,8 @@ public class ProvisioningService extends AbstractIdleService {
 
     ProgramRunId programRunId = taskInfo.getProgramRunId();
     Map<String, String> systemArgs = taskInfo.getProgramOptions().getArguments().asMap();
+    // The deletion of an idle cluster is not part of any program run, hence there is no run state to notify
+    ProvisionerNotifier notifier = isIdleClusterDeletion(taskInfo) ? null : provisionerNotifier;
     try {
       context = createContext(programRunId, taskInfo.getUser(), properties,
                               new DefaultSSHContext(Networks.getAddress(cConf, Constants.NETWORK_PROXY_ADDRESS),
@@ -598,14 +708,16 @@ public class ProvisioningService extends AbstractIdleService {
       runWithProgramLogging(programRunId, systemArgs,
                             () -> LOG.error("Could not evaluate macros while deprovisoning. "
                                               + "The cluster will be marked as orphaned.", e));
-      provisionerNotifier.orphaned(programRunId);
+      if (notifier != null) {
+        notifier.orphaned(programRunId);
+      }
       return () -> { };
     }
     DeprovisionTask task = new DeprovisionTask(taskInfo, transactionRunner, 300,
-                                               provisioner, context, provisionerNotifier, locationFactory);
+                                               provisioner, context, notifier, locationFactory);
     ProvisioningTaskKey taskKey = new ProvisioningTaskKey(programRunId, ProvisioningOp.Type.DEPROVISION);
 
-    return () -> taskExecutor.submit(taskKey, () -> callWithProgramLogging(programRunId, systemArgs, () -> {
+    return createTask(taskKey, systemArgs, () -> {
       try {
         long delay = task.executeOnce();
         if (delay < 0) {
@@ -624,7 +736,159 @@ public class ProvisioningService extends AbstractIdleService {
         taskCleanup.accept(programRunId);
         throw e;
       }
-    }));
+    });
+  }
+
+  /**
+   * Creates a {@link Runnable} that submits a provisioning task to the task executor. Every execution of the task
+   * runs with the program logging context, and continues the trace that was current when the runnable was run.
+   */
+  private Runnable createTask(ProvisioningTaskKey taskKey, Map<String, String> systemArgs, RepeatedTask task) {
+    ProgramRunId programRunId = taskKey.getProgramRunId();
+    return () -> {
+      SpanContext parent = Tracing.currentContext();
+      taskExecutor.submit(taskKey, () -> callWithProgramLogging(programRunId, systemArgs, () -> {
+        try (Span span = Tracing.startSpan("provision.task", parent)) {
+          span.tag("type", taskKey.getType());
+          span.tag("run", programRunId.getRun());
+          return task.executeOnce();
+        }
+      }));
+    };
+  }
+
+  /**
+   * Records the time taken to create a cluster if the provision task completed successfully.
+   */
+  private void recordClusterCreateTime(ProvisioningTaskKey taskKey, String provisionerName, long createMillis) {
+    try {
+      ProvisioningTaskInfo taskInfo = provisionerStore.getTaskInfo(taskKey);
+      if (taskInfo != null && taskInfo.getProvisioningOp().getStatus() == ProvisioningOp.Status.CREATED) {
+        clusterCreateMillis.put(provisionerName, createMillis);
+      }
+    } catch (IOException e) {
+      LOG.debug("Failed to read provision task state for program run {}.", taskKey.getProgramRunId(), e);
+    }
+  }
+
+  /**
+   * Deletes idle clusters that were not reused within the idle TTL. Each idle cluster is removed from the
+   * {@link ProvisionerStore} in the same transaction that records the deprovision task, so that it can't be
+   * assigned to a program run once it is being deleted. The deprovision task is recorded under a newly generated
+   * run id, so that it neither overwrites the task state of the program run the cluster was created for, nor
+   * sends any cluster state notification for that run.
+   */
+  @VisibleForTesting
+  void deleteExpiredIdleClusters() {
+    long minIdleSince = System.currentTimeMillis() - clusterIdleTTLMillis;
+    List<IdleClusterInfo> idleClusters;
+    try {
+      idleClusters = provisionerStore.listIdleClusters();
+    } catch (IOException e) {
+      LOG.warn("Failed to list idle clusters. Will be retried in next run.", e);
+      return;
+    }
+
+    for (IdleClusterInfo idleCluster : idleClusters) {
+      if (idleCluster.getIdleSince() >= minIdleSince) {
+        continue;
+      }
+      ProvisioningTaskInfo existing = idleCluster.getTaskInfo();
+      ProgramRunId programRunId = existing.getProgramRunId();
+      Provisioner provisioner = provisionerInfo.get().provisioners.get(existing.getProvisionerName());
+      try {
+        ProvisioningTaskInfo taskInfo = TransactionRunners.run(transactionRunner, context -> {
+          ProvisionerTable provisionerTable = new ProvisionerTable(context);
+          // The cluster might have been assigned to a program run already
+          if (!provisionerTable.deleteIdleCluster(idleCluster) || provisioner == null) {
+            return null;
+          }
+          ProvisioningTaskInfo deprovisionInfo = createIdleClusterDeletionInfo(existing);
+          provisionerTable.putTaskInfo(deprovisionInfo);
+          return deprovisionInfo;
+        }, IOException.class);
+
+        if (provisioner == null) {
+          LOG.warn("Could not delete idle cluster {} of program run {} because provisioner {} does not exist. "
+                     + "The cluster is orphaned.", idleCluster.getCluster().getName(), programRunId,
+                   existing.getProvisionerName());
+          continue;
+        }
+        if (taskInfo != null) {
+          LOG.debug("Deleting idle cluster {} of program run {} with deprovision task {}.",
+                    idleCluster.getCluster().getName(), programRunId, taskInfo.getProgramRunId().getRun());
+          emitMetric(programRunId, existing.getProgramOptions().getArguments().asMap(),
+                     Constants.Metrics.Provisioner.CLUSTER_IDLE_EXPIRED, 1L);
+          createDeprovisionTask(taskInfo, provisioner, taskStateCleanup).run();
+        }
+      } catch (Exception e) {
+        LOG.warn("Failed to delete idle cluster {} of program run {}. Will be retried in next run.",
+                 idleCluster.getCluster().getName(), programRunId, e);
+      }
+    }
+  }
+
+  /**
+   * Creates the {@link ProvisioningTaskInfo} for deleting an idle cluster. It has the same program, options and
+   * cluster as the given task info of the program run that created the cluster, but a newly generated run id.
+   */
+  private ProvisioningTaskInfo createIdleClusterDeletionInfo(ProvisioningTaskInfo existing) {
+    ProgramRunId programRunId = existing.getProgramRunId();
+    ProgramRunId deletionRunId = programRunId.getParent().run(RunIds.generate());
+    ProgramOptions programOptions = existing.getProgramOptions();
+    Map<String, String> systemArgs = new HashMap<>(programOptions.getArguments().asMap());
+    systemArgs.put(IDLE_CLUSTER_RUN_ID, programRunId.getRun());
+    ProgramOptions deletionOptions = new SimpleProgramOptions(deletionRunId.getParent(),
+                                                              new BasicArguments(systemArgs),
+                                                              programOptions.getUserArguments(),
+                                                              programOptions.isDebug());
+    ProvisioningOp provisioningOp = new ProvisioningOp(ProvisioningOp.Type.DEPROVISION,
+                                                       ProvisioningOp.Status.REQUESTING_DELETE);
+    return new ProvisioningTaskInfo(deletionRunId, existing.getProgramDescriptor(), deletionOptions,
+                                    existing.getProvisionerProperties(), existing.getProvisionerName(),
+                                    existing.getUser(), provisioningOp, existing.getSecureKeysDir(),
+                                    existing.getCluster());
+  }
+
+  /**
+   * Returns whether the given task info is for deleting an idle cluster rather than for a program run.
+   */
+  private boolean isIdleClusterDeletion(ProvisioningTaskInfo taskInfo) {
+    return taskInfo.getProgramOptions().getArguments().hasOption(IDLE_CLUSTER_RUN_ID);
+  }
+
+  /**
+   * Returns the key for matching idle clusters with program runs. A cluster can only be reused by program runs in
+   * the same namespace, with the same profile, provisioner, provisioner properties and user.
+   */
+  private String getReuseKey(ProgramRunId programRunId, Map<String, String> systemArgs, String provisionerName,
+                             Map<String, String> properties, String user) {
+    ProfileId profileId = SystemArguments.getProfileIdFromArgs(programRunId.getNamespaceId(), systemArgs)
+      .orElse(ProfileId.NATIVE);
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putString(programRunId.getNamespace(), Charsets.UTF_8).putByte((byte) 0);
+    hasher.putString(profileId.getScopedName(), Charsets.UTF_8).putByte((byte) 0);
+    hasher.putString(provisionerName, Charsets.UTF_8).putByte((byte) 0);
+    hasher.putString(String.valueOf(user), Charsets.UTF_8).putByte((byte) 0);
+    for (Map.Entry<String, String> property : new TreeMap<>(properties).entrySet()) {
+      hasher.putString(property.getKey(), Charsets.UTF_8).putByte((byte) 0);
+      hasher.putString(String.valueOf(property.getValue()), Charsets.UTF_8).putByte((byte) 0);
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Emits a cluster reuse metric with the program run namespace and profile as tags.
+   */
+  private void emitMetric(ProgramRunId programRunId, Map<String, String> systemArgs, String metricName, long value) {
+    ProfileId profileId = SystemArguments.getProfileIdFromArgs(programRunId.getNamespaceId(), systemArgs)
+      .orElse(ProfileId.NATIVE);
+    Map<String, String> tags = ImmutableMap.of(
+      Constants.Metrics.Tag.NAMESPACE, programRunId.getNamespace(),
+      Constants.Metrics.Tag.PROFILE_SCOPE, profileId.getScope().name(),
+      Constants.Metrics.Tag.PROFILE, profileId.getProfile()
+    );
+    metricsCollectionService.getContext(tags).increment(metricName, value);
   }
 
   private List<ProvisioningTaskInfo> getInProgressTasks() throws IOException {
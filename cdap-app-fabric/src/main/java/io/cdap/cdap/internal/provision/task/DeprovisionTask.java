@@ -32,6 +32,7 @@ import org.slf4j.LoggerFactory;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import javax.annotation.Nullable;
 
 /**
  * Performs steps to deprovision a cluster for a program run. Before any operation is performed, state is persisted
@@ -48,6 +49,8 @@ import java.util.Optional;
  *
  * PollingDelete -- (state == CREATING) --> Orphaned
  *
+ * The cluster state of the program run is notified on the end states, unless the task is created without a
+ * {@link ProvisionerNotifier}, which is the case for clusters that are not bound to a program run.
  */
 public class DeprovisionTask extends ProvisioningTask {
   private static final Logger LOG = LoggerFactory.getLogger(DeprovisionTask.class);
@@ -57,7 +60,7 @@ public class DeprovisionTask extends ProvisioningTask {
 
   public DeprovisionTask(ProvisioningTaskInfo initialTaskInfo, TransactionRunner transactionRunner,
                          int retryTimeLimitSecs, Provisioner provisioner,
-                         ProvisionerContext provisionerContext, ProvisionerNotifier provisionerNotifier,
+                         ProvisionerContext provisionerContext, @Nullable ProvisionerNotifier provisionerNotifier,
                          LocationFactory locationFactory) {
     super(provisioner, provisionerContext, initialTaskInfo, transactionRunner, retryTimeLimitSecs);
     this.provisionerNotifier = provisionerNotifier;
@@ -81,7 +84,9 @@ public class DeprovisionTask extends ProvisioningTask {
           return Optional.of(ProvisioningOp.Status.POLLING_DELETE);
         case NOT_EXISTS:
           try {
-            provisionerNotifier.deprovisioned(programRunId);
+            if (provisionerNotifier != null) {
+              provisionerNotifier.deprovisioned(programRunId);
+            }
           } finally {
             // Delete the keys. We only delete when the cluster is gone.
             Locations.deleteQuietly(keysDir, true);
@@ -94,7 +99,7 @@ public class DeprovisionTask extends ProvisioningTask {
         case ORPHANED:
           LOG.warn("Got unexpected cluster state {} while trying to delete the cluster. "
                      + "The cluster will be marked as orphaned.", cluster.getStatus());
-          provisionerNotifier.orphaned(programRunId);
+          notifyOrphaned();
           return Optional.of(ProvisioningOp.Status.ORPHANED);
       }
       // should never get here
@@ -113,11 +118,17 @@ public class DeprovisionTask extends ProvisioningTask {
 
   @Override
   protected void handleSubtaskFailure(ProvisioningTaskInfo taskInfo, Exception e) {
-    provisionerNotifier.orphaned(programRunId);
+    notifyOrphaned();
   }
 
   @Override
   protected void handleStateSaveFailure(ProvisioningTaskInfo taskInfo, Exception e) {
-    provisionerNotifier.orphaned(programRunId);
+    notifyOrphaned();
+  }
+
+  private void notifyOrphaned() {
+    if (provisionerNotifier != null) {
+      provisionerNotifier.orphaned(programRunId);
+    }
   }
 }
@@ -38,6 +38,7 @@ import io.cdap.cdap.common.logging.LoggingContextAccessor;
 import io.cdap.cdap.common.logging.common.UncaughtExceptionHandler;
 import io.cdap.cdap.common.options.OptionsParser;
 import io.cdap.cdap.common.runtime.DaemonMain;
+import io.cdap.cdap.common.trace.Tracing;
 import io.cdap.cdap.common.utils.ProjectInfo;
 import io.cdap.cdap.data.runtime.ConstantTransactionSystemClient;
 import io.cdap.cdap.data.runtime.DataFabricModules;
@@ -140,6 +141,7 @@ public abstract class AbstractServiceMain<T extends EnvironmentOptions> extends
       cConf.addResource(new File(options.getExtraConfPath(), "cdap-site.xml").toURI().toURL());
       sConf.addResource(new File(options.getExtraConfPath(), "cdap-security.xml").toURI().toURL());
     }
+    Tracing.configure(cConf);
 
     Configuration hConf = new Configuration();
 
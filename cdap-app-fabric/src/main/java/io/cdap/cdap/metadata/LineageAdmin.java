@@ -17,6 +17,8 @@
 package io.cdap.cdap.metadata;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Iterables;
@@ -29,6 +31,8 @@ import io.cdap.cdap.api.workflow.WorkflowNode;
 import io.cdap.cdap.api.workflow.WorkflowSpecification;
 import io.cdap.cdap.app.store.Store;
 import io.cdap.cdap.common.app.RunIds;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.data2.metadata.lineage.AccessType;
 import io.cdap.cdap.data2.metadata.lineage.DefaultLineageStoreReader;
 import io.cdap.cdap.data2.metadata.lineage.Lineage;
@@ -76,11 +80,27 @@ public class LineageAdmin {
 
   private final LineageStoreReader lineageStoreReader;
   private final Store store;
+  // Lineage computed recently, keyed by the request and the program runs in the time range of the request
+  private final Cache<LineageKey, Lineage> lineageCache;
 
   @Inject
+  LineageAdmin(LineageStoreReader lineageStoreReader, Store store, CConfiguration cConf) {
+    this(lineageStoreReader, store, cConf.getInt(Constants.Metadata.LINEAGE_CACHE_SIZE),
+         cConf.getLong(Constants.Metadata.LINEAGE_CACHE_EXPIRY_SECONDS));
+  }
+
+  @VisibleForTesting
   LineageAdmin(LineageStoreReader lineageStoreReader, Store store) {
+    this(lineageStoreReader, store, 0, 0L);
+  }
+
+  private LineageAdmin(LineageStoreReader lineageStoreReader, Store store, int cacheSize, long cacheExpirySeconds) {
     this.lineageStoreReader = lineageStoreReader;
     this.store = store;
+    this.lineageCache = CacheBuilder.newBuilder()
+      .maximumSize(cacheSize)
+      .expireAfterWrite(cacheExpirySeconds, TimeUnit.SECONDS)
+      .build();
   }
 
   /**
@@ -123,6 +143,15 @@ public class LineageAdmin {
                                                         TimeUnit.MILLISECONDS.toSeconds(endMillis));
     LOG.trace("Got {} rundIds in time range ({}, {})", runningInRange.size(), startMillis, endMillis);
 
+    // The lineage only depends on the runs in range, hence a cached lineage can be used unless there are new runs
+    LineageKey lineageKey = new LineageKey(sourceData, runningInRange, levels, rollUpWorkflow);
+    Lineage lineage = lineageCache.getIfPresent(lineageKey);
+    if (lineage != null) {
+      LOG.trace("Got cached lineage {}", lineage);
+      return lineage;
+    }
+
+    long startTime = System.currentTimeMillis();
     ScanRangeWithFilter scanRange = getScanRange(runningInRange);
     LOG.trace("Using scan start = {}, scan end = {}", scanRange.getStart(), scanRange.getEnd());
 
@@ -139,52 +168,61 @@ public class LineageAdmin {
     for (int i = 0; i < levels; ++i) {
       LOG.trace("Level {}", i);
       toVisitPrograms.clear();
-      for (DatasetId d : toVisitDatasets) {
-        if (visitedDatasets.add(d)) {
-          LOG.trace("Visiting dataset {}", d);
-          // Fetch related programs, the programs will be the inner programs which access the datasets. For example,
-          // mapreduce or spark program in a workflow
-          Set<Relation> programRelations = lineageStoreReader.getRelations(d, scanRange.getStart(), scanRange.getEnd(),
-                                                                           scanRange.getFilter());
-          LOG.trace("Got program relations {}", programRelations);
-
-          // if we want to roll up lineage for workflow, we need to figure out what workflow these programs are related
-          // to and find out all the inner programs of that workflow, the workflow run id can also be used to
-          // determine if a dataset is local dataset. The local dataset always ends with the workflow run id
-          if (rollUpWorkflow) {
-            computeWorkflowInnerPrograms(toVisitPrograms, programWorkflowMap, programRelations);
-          }
-
-          // add to the relations, replace the inner program with the workflow using the map, ignore the
-          // local datasets relations, the local dataset always ends with the run id of the workflow
-          filterAndAddRelations(rollUpWorkflow, relations, programWorkflowMap, programRelations);
-          toVisitPrograms.addAll(programRelations.stream().map(Relation::getProgram).collect(Collectors.toSet()));
-        }
+      // Fetch the relations of all datasets of the level at once
+      toVisitDatasets.removeAll(visitedDatasets);
+      visitedDatasets.addAll(toVisitDatasets);
+      LOG.trace("Visiting datasets {}", toVisitDatasets);
+      // Fetch related programs, the programs will be the inner programs which access the datasets. For example,
+      // mapreduce or spark program in a workflow
+      Set<Relation> programRelations = flatten(
+        lineageStoreReader.getDatasetRelations(toVisitDatasets, scanRange.getStart(), scanRange.getEnd(),
+                                               scanRange.getFilter()));
+      LOG.trace("Got program relations {}", programRelations);
+
+      // if we want to roll up lineage for workflow, we need to figure out what workflow these programs are related
+      // to and find out all the inner programs of that workflow, the workflow run id can also be used to
+      // determine if a dataset is local dataset. The local dataset always ends with the workflow run id
+      if (rollUpWorkflow) {
+        computeWorkflowInnerPrograms(toVisitPrograms, programWorkflowMap, programRelations);
       }
 
+      // add to the relations, replace the inner program with the workflow using the map, ignore the
+      // local datasets relations, the local dataset always ends with the run id of the workflow
+      filterAndAddRelations(rollUpWorkflow, relations, programWorkflowMap, programRelations);
+      toVisitPrograms.addAll(programRelations.stream().map(Relation::getProgram).collect(Collectors.toSet()));
+
       toVisitDatasets.clear();
-      for (ProgramId p : toVisitPrograms) {
-        if (visitedPrograms.add(p)) {
-          LOG.trace("Visiting program {}", p);
-          // Fetch related datasets
-          Set<Relation> datasetRelations = lineageStoreReader.getRelations(p, scanRange.getStart(),
-                                                                           scanRange.getEnd(), scanRange.getFilter());
-          LOG.trace("Got data relations {}", datasetRelations);
-          Set<DatasetId> localDatasets = filterAndAddRelations(rollUpWorkflow, relations,
-                                                               programWorkflowMap, datasetRelations);
-          toVisitDatasets.addAll(
-            datasetRelations.stream().map(relation -> (DatasetId) relation.getData())
-              .filter(datasetId -> !localDatasets.contains(datasetId)).collect(Collectors.toSet()));
-        }
-      }
+      toVisitPrograms.removeAll(visitedPrograms);
+      visitedPrograms.addAll(toVisitPrograms);
+      LOG.trace("Visiting programs {}", toVisitPrograms);
+      // Fetch related datasets
+      Set<Relation> datasetRelations = flatten(
+        lineageStoreReader.getProgramRelations(toVisitPrograms, scanRange.getStart(), scanRange.getEnd(),
+                                               scanRange.getFilter()));
+      LOG.trace("Got data relations {}", datasetRelations);
+      Set<DatasetId> localDatasets = filterAndAddRelations(rollUpWorkflow, relations,
+                                                           programWorkflowMap, datasetRelations);
+      toVisitDatasets.addAll(
+        datasetRelations.stream().map(relation -> (DatasetId) relation.getData())
+          .filter(datasetId -> !localDatasets.contains(datasetId)).collect(Collectors.toSet()));
     }
 
-    Lineage lineage = new Lineage(
+    lineage = new Lineage(
       Iterables.concat(Maps.transformValues(relations.asMap(), COLLAPSE_UNKNOWN_TYPE_FUNCTION::apply).values()));
     LOG.trace("Got lineage {}", lineage);
+    LOG.debug("Computed lineage of {} levels for data {} with {} datasets and {} programs in {} ms",
+              levels, sourceData, visitedDatasets.size(), visitedPrograms.size(),
+              System.currentTimeMillis() - startTime);
+    lineageCache.put(lineageKey, lineage);
     return lineage;
   }
 
+  private <T> Set<Relation> flatten(Map<T, Set<Relation>> relations) {
+    Set<Relation> result = new HashSet<>();
+    relations.values().forEach(result::addAll);
+    return result;
+  }
+
   /**
    * Filter the relations based on the rollUp flag, if set to true, the method will replace the inner program with
    * the workflow using the map and ignore the local datasets relations. The local dataset always ends with the run
@@ -350,6 +388,43 @@ public class LineageAdmin {
     }
   }
 
+  /**
+   * Key of a computed lineage in the lineage cache.
+   */
+  private static final class LineageKey {
+    private final DatasetId dataset;
+    private final Set<RunId> runIds;
+    private final int levels;
+    private final boolean rollUpWorkflow;
+    private final int hashCode;
+
+    private LineageKey(DatasetId dataset, Set<RunId> runIds, int levels, boolean rollUpWorkflow) {
+      this.dataset = dataset;
+      this.runIds = runIds;
+      this.levels = levels;
+      this.rollUpWorkflow = rollUpWorkflow;
+      this.hashCode = Objects.hash(dataset, runIds, levels, rollUpWorkflow);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      LineageKey other = (LineageKey) o;
+      return levels == other.levels && rollUpWorkflow == other.rollUpWorkflow &&
+        Objects.equals(dataset, other.dataset) && Objects.equals(runIds, other.runIds);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
   /**
    * This class helps collapsing access type of {@link Relation} by ignoring the access type in equals and hashCode
    * so that it can be used as the map key for Relations of different access types.
@@ -0,0 +1,191 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.metadata;
+
+import io.cdap.cdap.api.metadata.MetadataEntity;
+import io.cdap.cdap.spi.metadata.Metadata;
+import io.cdap.cdap.spi.metadata.MetadataKind;
+import io.cdap.cdap.spi.metadata.MetadataMutation;
+import io.cdap.cdap.spi.metadata.MetadataStorage;
+import io.cdap.cdap.spi.metadata.MutationOptions;
+import io.cdap.cdap.spi.metadata.ScopedName;
+import io.cdap.cdap.spi.metadata.ScopedNameOfKind;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * Collects {@link MetadataMutation}s and coalesces the consecutive mutations of each entity into fewer mutations
+ * with the same net effect, so that they can be applied with few calls to {@link MetadataStorage#batch}.
+ * Mutations of different entities are independent of each other, hence only the order of the mutations of
+ * each entity is preserved.
+ *
+ * This class is not thread safe.
+ */
+final class MetadataMutationBatch {
+
+  // the pending mutations of each entity, in the order in which the entities were first added
+  private final Map<MetadataEntity, List<MetadataMutation>> mutations = new LinkedHashMap<>();
+  private int addedCount;
+
+  /**
+   * Adds a mutation to apply after all mutations added so far.
+   */
+  void add(MetadataMutation mutation) {
+    addedCount++;
+    List<MetadataMutation> entityMutations = mutations.computeIfAbsent(mutation.getEntity(), e -> new ArrayList<>());
+    if (mutation.getType() == MetadataMutation.Type.DROP) {
+      // a drop removes all metadata of the entity, which makes all earlier mutations irrelevant
+      entityMutations.clear();
+    }
+    entityMutations.add(mutation);
+    while (entityMutations.size() > 1) {
+      int last = entityMutations.size() - 1;
+      MetadataMutation coalesced = coalesce(entityMutations.get(last - 1), entityMutations.get(last));
+      if (coalesced == null) {
+        break;
+      }
+      entityMutations.remove(last);
+      entityMutations.set(last - 1, coalesced);
+    }
+  }
+
+  boolean isEmpty() {
+    return mutations.isEmpty();
+  }
+
+  /**
+   * Returns the number of mutations added since this batch was last applied.
+   */
+  int getAddedCount() {
+    return addedCount;
+  }
+
+  /**
+   * Applies all pending mutations to the given storage and clears this batch.
+   *
+   * @return the number of mutations applied after coalescing
+   */
+  int apply(MetadataStorage storage, MutationOptions options) throws IOException {
+    int count = 0;
+    // each call to batch() contains at most one mutation per entity, so that the storage can apply them
+    // in bulk, without having to preserve the order among them
+    for (int round = 0; !mutations.isEmpty(); round++) {
+      List<MetadataMutation> batch = new ArrayList<>(mutations.size());
+      Iterator<List<MetadataMutation>> iterator = mutations.values().iterator();
+      while (iterator.hasNext()) {
+        List<MetadataMutation> entityMutations = iterator.next();
+        batch.add(entityMutations.get(round));
+        if (entityMutations.size() == round + 1) {
+          iterator.remove();
+        }
+      }
+      storage.batch(batch, options);
+      count += batch.size();
+    }
+    addedCount = 0;
+    return count;
+  }
+
+  /**
+   * Coalesces two consecutive mutations of the same entity.
+   *
+   * @return a mutation with the same effect as applying both mutations in order,
+   *         or {@code null} if they cannot be coalesced
+   */
+  @Nullable
+  private static MetadataMutation coalesce(MetadataMutation first, MetadataMutation second) {
+    if (first.getType() == MetadataMutation.Type.UPDATE && second.getType() == MetadataMutation.Type.UPDATE) {
+      Metadata firstUpdates = ((MetadataMutation.Update) first).getUpdates();
+      Metadata secondUpdates = ((MetadataMutation.Update) second).getUpdates();
+      Set<ScopedName> tags = new HashSet<>(firstUpdates.getTags());
+      tags.addAll(secondUpdates.getTags());
+      Map<ScopedName, String> properties = new HashMap<>(firstUpdates.getProperties());
+      properties.putAll(secondUpdates.getProperties());
+      return new MetadataMutation.Update(first.getEntity(), new Metadata(tags, properties));
+    }
+    if (second.getType() != MetadataMutation.Type.REMOVE) {
+      return null;
+    }
+
+    MetadataMutation.Remove remove = (MetadataMutation.Remove) second;
+    if (first.getType() == MetadataMutation.Type.UPDATE) {
+      // if the remove undoes all of the update, the update has no effect
+      Metadata updates = ((MetadataMutation.Update) first).getUpdates();
+      for (ScopedName tag : updates.getTags()) {
+        if (!removes(remove, new ScopedNameOfKind(MetadataKind.TAG, tag))) {
+          return null;
+        }
+      }
+      for (ScopedName property : updates.getProperties().keySet()) {
+        if (!removes(remove, new ScopedNameOfKind(MetadataKind.PROPERTY, property))) {
+          return null;
+        }
+      }
+      return second;
+    }
+    if (first.getType() != MetadataMutation.Type.REMOVE) {
+      return null;
+    }
+
+    MetadataMutation.Remove firstRemove = (MetadataMutation.Remove) first;
+    if (firstRemove.getRemovals() != null && remove.getRemovals() != null) {
+      Set<ScopedNameOfKind> removals = new HashSet<>(firstRemove.getRemovals());
+      removals.addAll(remove.getRemovals());
+      return new MetadataMutation.Remove(first.getEntity(), removals);
+    }
+    // if one of the removes includes everything the other removes, it has the same effect as both
+    if (removesAll(firstRemove, remove)) {
+      return first;
+    }
+    if (removesAll(remove, firstRemove)) {
+      return second;
+    }
+    return null;
+  }
+
+  /**
+   * Returns whether the first remove includes all metadata removed by the second.
+   */
+  private static boolean removesAll(MetadataMutation.Remove first, MetadataMutation.Remove second) {
+    if (second.getRemovals() != null) {
+      for (ScopedNameOfKind removal : second.getRemovals()) {
+        if (!removes(first, removal)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return first.getRemovals() == null
+      && first.getScopes().containsAll(second.getScopes()) && first.getKinds().containsAll(second.getKinds());
+  }
+
+  private static boolean removes(MetadataMutation.Remove remove, ScopedNameOfKind name) {
+    if (remove.getRemovals() != null) {
+      return remove.getRemovals().contains(name);
+    }
+    return remove.getScopes().contains(name.getScope()) && remove.getKinds().contains(name.getKind());
+  }
+}
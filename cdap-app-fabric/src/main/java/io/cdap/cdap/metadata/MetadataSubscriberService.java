@@ -77,6 +77,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
 /**
@@ -183,6 +184,8 @@ public class MetadataSubscriberService extends AbstractMessagingSubscriberServic
                                  Iterator<ImmutablePair<String, MetadataMessage>> messages)
     throws IOException, ConflictException {
     Map<MetadataMessage.Type, MetadataMessageProcessor> processors = new HashMap<>();
+    // mutations from metadata operations are collected and applied together
+    MetadataMutationBatch mutations = new MetadataMutationBatch();
 
     // Loop over all fetched messages and process them with corresponding MetadataMessageProcessor
     while (messages.hasNext()) {
@@ -202,7 +205,7 @@ public class MetadataSubscriberService extends AbstractMessagingSubscriberServic
           case WORKFLOW_STATE:
             return new WorkflowProcessor();
           case METADATA_OPERATION:
-            return new MetadataOperationProcessor(cConf);
+            return new MetadataOperationProcessor(cConf, mutations);
           case PROFILE_ASSIGNMENT:
           case PROFILE_UNASSIGNMENT:
           case ENTITY_CREATION:
@@ -220,6 +223,10 @@ public class MetadataSubscriberService extends AbstractMessagingSubscriberServic
         LOG.warn("Unsupported metadata message type {}. Message ignored.", message.getType());
         continue;
       }
+      if (processor instanceof ProfileMetadataMessageProcessor) {
+        // this processor changes metadata directly, hence the mutations collected so far must be applied first
+        applyMutations(mutations);
+      }
       try {
         processor.processMessage(message, structuredTableContext);
         conflictCount = 0;
@@ -238,6 +245,18 @@ public class MetadataSubscriberService extends AbstractMessagingSubscriberServic
         throw e;
       }
     }
+    applyMutations(mutations);
+  }
+
+  private void applyMutations(MetadataMutationBatch mutations) throws IOException {
+    if (mutations.isEmpty()) {
+      return;
+    }
+    int operations = mutations.getAddedCount();
+    long startTime = System.nanoTime();
+    int applied = mutations.apply(metadataStorage, MutationOptions.DEFAULT);
+    LOG.debug("Applied {} metadata mutations for {} metadata operations in {} ms", applied, operations,
+              TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
   }
 
   /**
@@ -344,12 +363,15 @@ public class MetadataSubscriberService extends AbstractMessagingSubscriberServic
 
   /**
    * The {@link MetadataMessageProcessor} for metadata operations.
-   * It receives operations and applies them to the metadata store.
+   * It receives operations and collects the resulting mutations, to be applied to the metadata store in batches.
    */
   private class MetadataOperationProcessor extends MetadataValidator implements MetadataMessageProcessor {
 
-    MetadataOperationProcessor(CConfiguration cConf) {
+    private final MetadataMutationBatch mutations;
+
+    MetadataOperationProcessor(CConfiguration cConf, MetadataMutationBatch mutations) {
       super(cConf);
+      this.mutations = mutations;
     }
 
     @Override
@@ -364,11 +386,11 @@ public class MetadataSubscriberService extends AbstractMessagingSubscriberServic
           MetadataOperation.Create create = (MetadataOperation.Create) operation;
           MetadataMutation mutation = new MetadataMutation.Create(
             entity, new Metadata(MetadataScope.SYSTEM, create.getTags(), create.getProperties()), CREATE_DIRECTIVES);
-          metadataStorage.apply(mutation, MutationOptions.DEFAULT);
+          mutations.add(mutation);
           break;
         }
         case DROP: {
-          metadataStorage.apply(new MetadataMutation.Drop(operation.getEntity()), MutationOptions.DEFAULT);
+          mutations.add(new MetadataMutation.Drop(operation.getEntity()));
           break;
         }
         case PUT: {
@@ -380,8 +402,7 @@ public class MetadataSubscriberService extends AbstractMessagingSubscriberServic
               validateProperties(entity, props);
               validateTags(entity, tags);
             }
-            metadataStorage.apply(
-              new MetadataMutation.Update(entity, new Metadata(put.getScope(), tags, props)), MutationOptions.DEFAULT);
+            mutations.add(new MetadataMutation.Update(entity, new Metadata(put.getScope(), tags, props)));
           } catch (InvalidMetadataException e) {
             LOG.warn("Ignoring invalid metadata operation {} from TMS: {}", operation,
                      GSON.toJson(message.getRawPayload()), e);
@@ -399,23 +420,22 @@ public class MetadataSubscriberService extends AbstractMessagingSubscriberServic
             delete.getTags().forEach(
               name -> toDelete.add(new ScopedNameOfKind(MetadataKind.TAG, delete.getScope(), name)));
           }
-          metadataStorage.apply(new MetadataMutation.Remove(entity, toDelete), MutationOptions.DEFAULT);
+          mutations.add(new MetadataMutation.Remove(entity, toDelete));
           break;
         }
         case DELETE_ALL: {
           MetadataScope scope = ((MetadataOperation.DeleteAll) operation).getScope();
-          metadataStorage.apply(new MetadataMutation.Remove(entity, scope), MutationOptions.DEFAULT);
+          mutations.add(new MetadataMutation.Remove(entity, scope));
           break;
         }
         case DELETE_ALL_PROPERTIES: {
           MetadataScope scope = ((MetadataOperation.DeleteAllProperties) operation).getScope();
-          metadataStorage.apply(new MetadataMutation.Remove(entity, scope, MetadataKind.PROPERTY),
-                                MutationOptions.DEFAULT);
+          mutations.add(new MetadataMutation.Remove(entity, scope, MetadataKind.PROPERTY));
           break;
         }
         case DELETE_ALL_TAGS: {
           MetadataScope scope = ((MetadataOperation.DeleteAllTags) operation).getScope();
-          metadataStorage.apply(new MetadataMutation.Remove(entity, scope, MetadataKind.TAG), MutationOptions.DEFAULT);
+          mutations.add(new MetadataMutation.Remove(entity, scope, MetadataKind.TAG));
           break;
         }
         default:
@@ -22,6 +22,7 @@ import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.app.store.Store;
 import io.cdap.cdap.common.ConflictException;
@@ -31,15 +32,18 @@ import io.cdap.cdap.common.namespace.NamespaceQueryAdmin;
 import io.cdap.cdap.common.service.RetryStrategy;
 import io.cdap.cdap.internal.app.runtime.schedule.ScheduleTaskRunner;
 import io.cdap.cdap.internal.app.runtime.schedule.constraint.CheckableConstraint;
+import io.cdap.cdap.internal.app.runtime.schedule.constraint.ConcurrencyConstraint;
 import io.cdap.cdap.internal.app.runtime.schedule.constraint.ConstraintContext;
 import io.cdap.cdap.internal.app.runtime.schedule.constraint.ConstraintResult;
 import io.cdap.cdap.internal.app.runtime.schedule.queue.Job;
+import io.cdap.cdap.internal.app.runtime.schedule.queue.JobKey;
 import io.cdap.cdap.internal.app.runtime.schedule.queue.JobQueue;
 import io.cdap.cdap.internal.app.runtime.schedule.queue.JobQueueTable;
 import io.cdap.cdap.internal.app.runtime.schedule.store.Schedulers;
 import io.cdap.cdap.internal.app.services.ProgramLifecycleService;
 import io.cdap.cdap.internal.app.services.PropertiesResolver;
 import io.cdap.cdap.internal.schedule.constraint.Constraint;
+import io.cdap.cdap.proto.id.ProgramId;
 import io.cdap.cdap.spi.data.transaction.TransactionException;
 import io.cdap.cdap.spi.data.transaction.TransactionRunner;
 import io.cdap.cdap.spi.data.transaction.TransactionRunners;
@@ -48,16 +52,36 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Polls the JobQueue, checks the jobs for constraint satisfaction, and launches them.
+ * Checks the jobs in the JobQueue for constraint satisfaction, and launches them.
+ *
+ * Jobs are checked when they become pending constraint, at the time that their unsatisfied constraints may become
+ * satisfied, and when a run of the scheduled program ended if they are waiting for the concurrency constraint.
+ * The JobQueue is still scanned periodically to pick up deleted and timed out jobs, as well as jobs that were
+ * not notified to this service, for example, after a restart.
  */
+@Singleton
 class ConstraintCheckerService extends AbstractIdleService {
   private static final Logger LOG = LoggerFactory.getLogger(ConstraintCheckerService.class);
+  private static final long CHECK_TICK_MILLIS = 1000L;
+  private static final int CHECK_WHEEL_BUCKETS = 512;
 
   private final Store store;
   private final ProgramLifecycleService lifecycleService;
@@ -65,8 +89,10 @@ class ConstraintCheckerService extends AbstractIdleService {
   private final NamespaceQueryAdmin namespaceQueryAdmin;
   private final CConfiguration cConf;
   private final TransactionRunner transactionRunner;
+  private final long fullScanIntervalMillis;
   private ScheduleTaskRunner taskRunner;
   private ListeningExecutorService taskExecutorService;
+  private volatile List<ConstraintCheckerThread> checkerThreads = Collections.emptyList();
   private volatile boolean stopping = false;
 
   @Inject
@@ -81,6 +107,36 @@ class ConstraintCheckerService extends AbstractIdleService {
     this.namespaceQueryAdmin = namespaceQueryAdmin;
     this.cConf = cConf;
     this.transactionRunner = transactionRunner;
+    this.fullScanIntervalMillis =
+      TimeUnit.SECONDS.toMillis(cConf.getLong(Constants.Scheduler.JOB_QUEUE_SCAN_INTERVAL_SECS));
+  }
+
+  /**
+   * Notifies that the given jobs became pending constraint, so that they are checked without waiting for
+   * the next scan of the JobQueue. This method must be called after the jobs are committed to the JobQueue.
+   */
+  void jobsPendingConstraint(Collection<Job> jobs) {
+    List<ConstraintCheckerThread> threads = checkerThreads;
+    if (threads.isEmpty()) {
+      return;
+    }
+    for (Job job : jobs) {
+      int partition = JobQueueTable.getPartition(job.getSchedule().getScheduleId(), threads.size());
+      threads.get(partition).jobPendingConstraint(job.getJobKey());
+    }
+  }
+
+  /**
+   * Notifies that runs of the given programs have ended, so that jobs waiting for the concurrency constraint
+   * of those programs are checked again.
+   */
+  void programRunsEnded(Collection<ProgramId> programIds) {
+    if (programIds.isEmpty()) {
+      return;
+    }
+    for (ConstraintCheckerThread thread : checkerThreads) {
+      thread.programRunsEnded(programIds);
+    }
   }
 
   @Override
@@ -91,9 +147,13 @@ class ConstraintCheckerService extends AbstractIdleService {
     taskRunner = new ScheduleTaskRunner(store, lifecycleService, propertiesResolver, namespaceQueryAdmin, cConf);
 
     int numPartitions = cConf.getInt(Constants.Scheduler.JOB_QUEUE_NUM_PARTITIONS);
+    List<ConstraintCheckerThread> threads = new ArrayList<>(numPartitions);
     for (int partition = 0; partition < numPartitions; partition++) {
-      taskExecutorService.submit(new ConstraintCheckerThread(partition));
+      ConstraintCheckerThread thread = new ConstraintCheckerThread(partition);
+      threads.add(thread);
+      taskExecutorService.submit(thread);
     }
+    checkerThreads = Collections.unmodifiableList(threads);
     LOG.info("Started ConstraintCheckerService. state: " + state());
   }
 
@@ -101,6 +161,9 @@ class ConstraintCheckerService extends AbstractIdleService {
   protected void shutDown() throws Exception {
     stopping = true;
     LOG.info("Stopping ConstraintCheckerService.");
+    for (ConstraintCheckerThread thread : checkerThreads) {
+      thread.wakeup();
+    }
     try {
       // Shutdown the executor and wait for all pending task to be completed for max of 5 seconds
       taskExecutorService.shutdown();
@@ -119,7 +182,19 @@ class ConstraintCheckerService extends AbstractIdleService {
     private final RetryStrategy scheduleStrategy;
     private final int partition;
     private final Deque<Job> readyJobs = new ArrayDeque<>();
+    // Events from other threads
+    private final Queue<JobKey> pendingConstraintJobs = new ConcurrentLinkedQueue<>();
+    private final Queue<ProgramId> endedPrograms = new ConcurrentLinkedQueue<>();
+    private final Semaphore wakeupSemaphore = new Semaphore(0);
+    // The time that each tracked job pending constraint needs to be checked next
+    private final TimerWheel<JobKey> checkTimes;
+    // Tracked jobs that are waiting for a run of the given program to end to satisfy the concurrency constraint
+    private final Map<ProgramId, Set<JobKey>> concurrencyWaiters = new HashMap<>();
+    private final Map<JobKey, ProgramId> waitingPrograms = new HashMap<>();
+    // Jobs that are due for checking. A job is only removed after the check is committed.
+    private final Set<JobKey> dueJobs = new LinkedHashSet<>();
     private Job lastConsumed;
+    private long nextFullScanTime;
     private int failureCount;
 
     ConstraintCheckerThread(int partition) {
@@ -127,6 +202,21 @@ class ConstraintCheckerService extends AbstractIdleService {
       scheduleStrategy =
         io.cdap.cdap.common.service.RetryStrategies.exponentialDelay(100, 30000, TimeUnit.MILLISECONDS);
       this.partition = partition;
+      this.checkTimes = new TimerWheel<>(CHECK_TICK_MILLIS, CHECK_WHEEL_BUCKETS, System.currentTimeMillis());
+    }
+
+    void jobPendingConstraint(JobKey jobKey) {
+      pendingConstraintJobs.add(jobKey);
+      wakeup();
+    }
+
+    void programRunsEnded(Collection<ProgramId> programIds) {
+      endedPrograms.addAll(programIds);
+      wakeup();
+    }
+
+    void wakeup() {
+      wakeupSemaphore.release();
     }
 
     @Override
@@ -138,7 +228,9 @@ class ConstraintCheckerService extends AbstractIdleService {
           long sleepTime = checkJobQueue();
           // Don't sleep if sleepTime returned is 0
           if (sleepTime > 0) {
-            TimeUnit.MILLISECONDS.sleep(sleepTime);
+            // Sleep until the next check is due, or until there is a new event
+            wakeupSemaphore.tryAcquire(sleepTime, TimeUnit.MILLISECONDS);
+            wakeupSemaphore.drainPermits();
           }
         } catch (InterruptedException e) {
           // sleep is interrupted, just exit without doing anything
@@ -149,14 +241,30 @@ class ConstraintCheckerService extends AbstractIdleService {
     /**
      * Check jobs in job queue for constraint satisfaction.
      *
-     * @return sleep time in milliseconds before next fetch
+     * @return sleep time in milliseconds before next check
      */
     private long checkJobQueue() {
-      boolean emptyFetch = false;
+      long now = System.currentTimeMillis();
       try {
-        emptyFetch = TransactionRunners.run(transactionRunner, context -> {
-          return checkJobConstraints(JobQueueTable.getJobQueue(context, cConf));
-        });
+        drainEvents();
+
+        // Continue the scan if it was interrupted by the batch limit, or start a new one periodically
+        if (lastConsumed != null || now >= nextFullScanTime) {
+          TransactionRunners.run(transactionRunner, context -> {
+            scanJobConstraints(JobQueueTable.getJobQueue(context, cConf));
+          });
+          if (lastConsumed == null) {
+            nextFullScanTime = now + fullScanIntervalMillis;
+          }
+        }
+
+        dueJobs.addAll(checkTimes.advance(now));
+        if (!dueJobs.isEmpty()) {
+          List<JobKey> checkedJobs = TransactionRunners.run(transactionRunner, context -> {
+            return checkDueJobs(JobQueueTable.getJobQueue(context, cConf));
+          });
+          dueJobs.removeAll(checkedJobs);
+        }
 
         // run any ready jobs
         runReadyJobs();
@@ -172,33 +280,119 @@ class ConstraintCheckerService extends AbstractIdleService {
         return scheduleStrategy.nextRetry(failureCount, 0);
       }
 
-      // Sleep for 2 seconds if there's no jobs in the queue
-      return emptyFetch && readyJobs.isEmpty() ? 2000L : 0L;
+      if (lastConsumed != null || !dueJobs.isEmpty() || !readyJobs.isEmpty()) {
+        return 0L;
+      }
+
+      // Sleep until the next scan or the next check of a tracked job
+      long wakeupTime = Math.min(nextFullScanTime, checkTimes.getNextDueTime());
+      return Math.max(0L, wakeupTime - System.currentTimeMillis());
     }
 
-    private boolean checkJobConstraints(JobQueue jobQueue) throws IOException {
-      boolean emptyScan = true;
+    /**
+     * Moves jobs of the events received from other threads to the due jobs.
+     */
+    private void drainEvents() {
+      JobKey jobKey = pendingConstraintJobs.poll();
+      while (jobKey != null) {
+        checkTimes.cancel(jobKey);
+        dueJobs.add(jobKey);
+        jobKey = pendingConstraintJobs.poll();
+      }
+
+      ProgramId programId = endedPrograms.poll();
+      while (programId != null) {
+        Set<JobKey> waiters = concurrencyWaiters.remove(programId);
+        if (waiters != null) {
+          for (JobKey waiter : waiters) {
+            waitingPrograms.remove(waiter);
+            checkTimes.cancel(waiter);
+            dueJobs.add(waiter);
+          }
+        }
+        programId = endedPrograms.poll();
+      }
+    }
 
+    private void scanJobConstraints(JobQueue jobQueue) throws IOException {
       try (CloseableIterator<Job> jobQueueIter = jobQueue.getJobs(partition, lastConsumed)) {
         Stopwatch stopWatch = new Stopwatch().start();
         // limit the batches of the scan to 1000ms
         while (!stopping && stopWatch.elapsedMillis() < 1000) {
           if (!jobQueueIter.hasNext()) {
             lastConsumed = null;
-            return emptyScan;
+            return;
           }
           Job job = jobQueueIter.next();
           lastConsumed = job;
-          emptyScan = false;
-          checkAndUpdateJob(jobQueue, job);
+          checkAndUpdateJob(jobQueue, job, true);
         }
       }
-      return emptyScan;
     }
 
-    private void checkAndUpdateJob(JobQueue jobQueue, Job job) throws IOException {
+    /**
+     * Checks the due jobs, limited to a batch of 1000ms.
+     *
+     * @return the keys of the jobs that were checked
+     */
+    private List<JobKey> checkDueJobs(JobQueue jobQueue) throws IOException {
+      List<JobKey> checkedJobs = new ArrayList<>();
+      Stopwatch stopWatch = new Stopwatch().start();
+      Iterator<JobKey> iterator = dueJobs.iterator();
+      while (!stopping && iterator.hasNext() && stopWatch.elapsedMillis() < 1000) {
+        JobKey jobKey = iterator.next();
+        Job job = jobQueue.getJob(jobKey);
+        if (job == null) {
+          untrack(jobKey);
+        } else {
+          checkAndUpdateJob(jobQueue, job, false);
+        }
+        checkedJobs.add(jobKey);
+      }
+      return checkedJobs;
+    }
+
+    /**
+     * Tracks a job that is not satisfied, so that it is checked again at the given time, or when a run of
+     * the scheduled program ended if it is waiting for the concurrency constraint.
+     */
+    private void track(Job job, long nextCheckTime, boolean waitForRunEnd) {
+      JobKey jobKey = job.getJobKey();
+      untrack(jobKey);
+      checkTimes.schedule(jobKey, nextCheckTime);
+      if (waitForRunEnd) {
+        ProgramId programId = job.getSchedule().getProgramId();
+        concurrencyWaiters.computeIfAbsent(programId, k -> new HashSet<>()).add(jobKey);
+        waitingPrograms.put(jobKey, programId);
+      }
+    }
+
+    private void untrack(JobKey jobKey) {
+      checkTimes.cancel(jobKey);
+      ProgramId programId = waitingPrograms.remove(jobKey);
+      if (programId == null) {
+        return;
+      }
+      Set<JobKey> waiters = concurrencyWaiters.get(programId);
+      if (waiters != null) {
+        waiters.remove(jobKey);
+        if (waiters.isEmpty()) {
+          concurrencyWaiters.remove(programId);
+        }
+      }
+    }
+
+    /**
+     * Checks a job and updates its state in the JobQueue.
+     *
+     * @param fromScan {@code true} if the job is from a scan of the JobQueue, in which case the constraints
+     *                 are not checked if the job is already tracked for checking at a later time
+     */
+    private void checkAndUpdateJob(JobQueue jobQueue, Job job, boolean fromScan) throws IOException {
       long now = System.currentTimeMillis();
+      JobKey jobKey = job.getJobKey();
       if (job.isToBeDeleted()) {
+        untrack(jobKey);
         // only delete jobs that are pending trigger or pending constraint. If pending launch, the launcher will delete
         if ((job.getState() == Job.State.PENDING_CONSTRAINT ||
           // if pending trigger, we need to check if now - deletionTime > 2 * txTimeout. Otherwise the subscriber thread
@@ -215,17 +409,28 @@ class ConstraintCheckerService extends AbstractIdleService {
       if (now - job.getCreationTime() >= job.getSchedule().getTimeoutMillis() +
         2 * Schedulers.SUBSCRIBER_TX_TIMEOUT_MILLIS) {
         LOG.info("Deleted job {}, due to timeout value of {}.", job.getJobKey(), job.getSchedule().getTimeoutMillis());
+        untrack(jobKey);
         jobQueue.deleteJob(job);
         return;
       }
       if (job.getState() != Job.State.PENDING_CONSTRAINT) {
+        untrack(jobKey);
         return;
       }
-      ConstraintResult.SatisfiedState satisfiedState = constraintsSatisfied(job, now);
-      if (satisfiedState == ConstraintResult.SatisfiedState.NOT_SATISFIED) {
+      if (fromScan && (checkTimes.contains(jobKey) || dueJobs.contains(jobKey))) {
         return;
       }
-      if (satisfiedState == ConstraintResult.SatisfiedState.NEVER_SATISFIED) {
+      ConstraintCheckResult checkResult = constraintsSatisfied(job, now);
+      if (checkResult.satisfiedState == ConstraintResult.SatisfiedState.NOT_SATISFIED) {
+        // If the job is only waiting for a program run to end, still check it again after the full scan interval,
+        // in case the run end was not observed by this service.
+        long nextCheckTime = checkResult.nextCheckTime == null
+          ? now + fullScanIntervalMillis : checkResult.nextCheckTime;
+        track(job, nextCheckTime, checkResult.waitForRunEnd);
+        return;
+      }
+      untrack(jobKey);
+      if (checkResult.satisfiedState == ConstraintResult.SatisfiedState.NEVER_SATISFIED) {
         jobQueue.deleteJob(job);
         return;
       }
@@ -283,8 +488,8 @@ class ConstraintCheckerService extends AbstractIdleService {
       return true;
     }
 
-    private ConstraintResult.SatisfiedState constraintsSatisfied(Job job, long now) {
-      ConstraintResult.SatisfiedState satisfiedState = ConstraintResult.SatisfiedState.SATISFIED;
+    private ConstraintCheckResult constraintsSatisfied(Job job, long now) {
+      ConstraintCheckResult checkResult = new ConstraintCheckResult();
 
       ConstraintContext constraintContext = new ConstraintContext(job, now, store);
       for (Constraint constraint : job.getSchedule().getConstraints()) {
@@ -299,14 +504,33 @@ class ConstraintCheckerService extends AbstractIdleService {
         ConstraintResult result = abstractConstraint.check(job.getSchedule(), constraintContext);
         if (result.getSatisfiedState() == ConstraintResult.NEVER_SATISFIED.getSatisfiedState()) {
           // if any of the constraints are NEVER_SATISFIED, return NEVER_SATISFIED
-          return ConstraintResult.NEVER_SATISFIED.getSatisfiedState();
+          checkResult.satisfiedState = ConstraintResult.SatisfiedState.NEVER_SATISFIED;
+          return checkResult;
         }
         if (result.getSatisfiedState() == ConstraintResult.SatisfiedState.NOT_SATISFIED) {
-          satisfiedState = ConstraintResult.SatisfiedState.NOT_SATISFIED;
+          checkResult.satisfiedState = ConstraintResult.SatisfiedState.NOT_SATISFIED;
+          if (constraint instanceof ConcurrencyConstraint) {
+            // The concurrency constraint can only become satisfied when a run ends
+            checkResult.waitForRunEnd = true;
+          } else {
+            // All other unsatisfied constraints must be satisfied before the job can be launched
+            Long nextCheckTime = result.getNextCheckTime();
+            checkResult.nextCheckTime = checkResult.nextCheckTime == null
+              ? nextCheckTime : Math.max(checkResult.nextCheckTime, nextCheckTime);
+          }
         }
       }
-      return satisfiedState;
+      return checkResult;
     }
+  }
 
+  /**
+   * The result of checking all constraints of a job.
+   */
+  private static final class ConstraintCheckResult {
+    private ConstraintResult.SatisfiedState satisfiedState = ConstraintResult.SatisfiedState.SATISFIED;
+    // The earliest time that all unsatisfied constraints other than the concurrency constraint may be satisfied
+    private Long nextCheckTime;
+    private boolean waitForRunEnd;
   }
 }
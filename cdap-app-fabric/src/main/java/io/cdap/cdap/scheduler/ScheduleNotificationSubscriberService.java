@@ -27,9 +27,12 @@ import io.cdap.cdap.api.metrics.MetricsCollectionService;
 import io.cdap.cdap.common.NotFoundException;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.trace.Span;
+import io.cdap.cdap.common.trace.Tracing;
 import io.cdap.cdap.common.utils.ImmutablePair;
 import io.cdap.cdap.internal.app.runtime.ProgramOptionConstants;
 import io.cdap.cdap.internal.app.runtime.schedule.ProgramScheduleRecord;
+import io.cdap.cdap.internal.app.runtime.schedule.queue.Job;
 import io.cdap.cdap.internal.app.runtime.schedule.queue.JobQueueTable;
 import io.cdap.cdap.internal.app.runtime.schedule.store.ProgramScheduleStoreDataset;
 import io.cdap.cdap.internal.app.runtime.schedule.store.Schedulers;
@@ -48,10 +51,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -68,16 +74,19 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
   private final CConfiguration cConf;
   private final MessagingService messagingService;
   private final MetricsCollectionService metricsCollectionService;
+  private final ConstraintCheckerService constraintCheckerService;
   private final List<Service> subscriberServices;
   private ScheduledExecutorService subscriberExecutor;
 
   @Inject
   ScheduleNotificationSubscriberService(CConfiguration cConf, MessagingService messagingService,
                                         MetricsCollectionService metricsCollectionService,
+                                        ConstraintCheckerService constraintCheckerService,
                                         TransactionRunner transactionRunner) {
     this.cConf = cConf;
     this.messagingService = messagingService;
     this.metricsCollectionService = metricsCollectionService;
+    this.constraintCheckerService = constraintCheckerService;
     this.subscriberServices = Arrays.asList(new SchedulerEventSubscriberService(transactionRunner),
                                             new DataEventSubscriberService(transactionRunner),
                                             new ProgramStatusEventSubscriberService(transactionRunner));
@@ -120,6 +129,11 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
    */
   private abstract class AbstractSchedulerSubscriberService extends AbstractNotificationSubscriberService {
 
+    // Jobs that became pending constraint and programs that have runs ended in the last processed batch,
+    // which are handed to the ConstraintCheckerService after the batch is committed
+    private final List<Job> pendingConstraintJobs = new ArrayList<>();
+    private final Set<ProgramId> endedPrograms = new HashSet<>();
+
     AbstractSchedulerSubscriberService(String name, String topic, int fetchSize,
                                        TransactionRunner transactionRunner) {
       super(name, cConf, topic, fetchSize, cConf.getLong(Constants.Scheduler.EVENT_POLL_DELAY_MILLIS),
@@ -143,8 +157,27 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
       ProgramScheduleStoreDataset scheduleStore = getScheduleStore(structuredTableContext);
       JobQueueTable jobQueue = getJobQueue(structuredTableContext);
 
+      // Messages are replayed if the transaction failed, hence only keep the events of the last attempt
+      pendingConstraintJobs.clear();
+      endedPrograms.clear();
       while (messages.hasNext()) {
-        processNotification(scheduleStore, jobQueue, messages.next().getSecond());
+        Notification notification = messages.next().getSecond();
+        try (Span span = Tracing.startSpan("schedule.notification", Tracing.getContext(notification.getProperties()))) {
+          span.tag("type", notification.getNotificationType());
+          processNotification(scheduleStore, jobQueue, notification);
+        }
+      }
+    }
+
+    @Override
+    protected void postProcess() {
+      if (!pendingConstraintJobs.isEmpty()) {
+        constraintCheckerService.jobsPendingConstraint(pendingConstraintJobs);
+        pendingConstraintJobs.clear();
+      }
+      if (!endedPrograms.isEmpty()) {
+        constraintCheckerService.programRunsEnded(endedPrograms);
+        endedPrograms.clear();
       }
     }
 
@@ -159,6 +192,24 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
     protected abstract void processNotification(ProgramScheduleStoreDataset scheduleStore,
                                                 JobQueueTable jobQueue, Notification notification) throws IOException;
 
+    /**
+     * Adds the given {@link Notification} to the job queue for the given schedule.
+     */
+    protected void addNotification(JobQueueTable jobQueue, ProgramScheduleRecord schedule,
+                                   Notification notification) throws IOException {
+      Job job = jobQueue.addNotification(schedule, notification);
+      if (job != null && job.getState() == Job.State.PENDING_CONSTRAINT) {
+        pendingConstraintJobs.add(job);
+      }
+    }
+
+    /**
+     * Records that a run of the given program has ended.
+     */
+    protected void programRunEnded(ProgramId programId) {
+      endedPrograms.add(programId);
+    }
+
     private JobQueueTable getJobQueue(StructuredTableContext context) {
       return JobQueueTable.getJobQueue(context, cConf);
     }
@@ -206,7 +257,7 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
         LOG.warn("Ignore notification that doesn't have a schedule {} associated with, {}", scheduleId, notification);
         return;
       }
-      jobQueue.addNotification(record, notification);
+      addNotification(jobQueue, record, notification);
     }
   }
 
@@ -231,7 +282,7 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
       DatasetId datasetId = DatasetId.fromString(datasetIdString);
       for (ProgramScheduleRecord schedule :
         scheduleStore.findSchedules(Schedulers.triggerKeyForPartition(datasetId))) {
-        jobQueue.addNotification(schedule, notification);
+        addNotification(jobQueue, schedule, notification);
       }
     }
   }
@@ -253,6 +304,12 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
       String programRunIdString = notification.getProperties().get(ProgramOptionConstants.PROGRAM_RUN_ID);
       String programRunStatusString = notification.getProperties().get(ProgramOptionConstants.PROGRAM_STATUS);
 
+      // Jobs waiting for the concurrency constraint need to be checked again when a run ends
+      if (programRunIdString != null && programRunStatusString != null &&
+        ProgramRunStatus.isEndState(programRunStatusString)) {
+        programRunEnded(GSON.fromJson(programRunIdString, ProgramRunId.class).getParent());
+      }
+
       ProgramStatus programStatus;
       try {
         programStatus = ProgramRunStatus.toProgramStatus(ProgramRunStatus.valueOf(programRunStatusString));
@@ -271,7 +328,7 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
       String triggerKeyForProgramStatus = Schedulers.triggerKeyForProgramStatus(programId, programStatus);
 
       for (ProgramScheduleRecord schedule : scheduleStore.findSchedules(triggerKeyForProgramStatus)) {
-        jobQueue.addNotification(schedule, notification);
+        addNotification(jobQueue, schedule, notification);
       }
     }
   }
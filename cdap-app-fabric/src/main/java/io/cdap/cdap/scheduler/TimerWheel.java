@@ -0,0 +1,157 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.scheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * A hashed timer wheel for keeping track of keys that are due at some time in the future. Time is divided into
+ * ticks of fixed duration and each tick is mapped to one of a fixed number of buckets. Advancing the wheel only
+ * visits the buckets of the elapsed ticks. The number of keys due at each tick is also kept in a sorted map, so that
+ * the caller can sleep until the next due key. Hence scheduling and cancelling a key take time logarithmic in the
+ * number of distinct ticks that have due keys, which is usually much smaller than the number of keys, since cron
+ * schedules are due at the top of a minute.
+ *
+ * Due times are rounded up to the start of the next tick, hence a key never expires before its due time. A key is
+ * returned by the first call to {@link #advance(long)} at or after the rounded due time, so how late it expires
+ * depends on when the caller advances the wheel. Advancing at {@link #getNextDueTime()} expires keys less than one
+ * tick after their due time.
+ * This class is not thread safe.
+ *
+ * @param <K> type of the key
+ */
+final class TimerWheel<K> {
+
+  private final long tickMillis;
+  private final List<Map<K, Long>> buckets;
+  // From key to the tick that the key is due
+  private final Map<K, Long> ticks;
+  // From tick to the number of keys due at the tick
+  private final NavigableMap<Long, Integer> tickCounts;
+  // The next tick to be processed
+  private long currentTick;
+
+  TimerWheel(long tickMillis, int numBuckets, long startTimeMillis) {
+    if (tickMillis <= 0 || numBuckets <= 0) {
+      throw new IllegalArgumentException("Tick duration and number of buckets must be positive");
+    }
+    this.tickMillis = tickMillis;
+    this.buckets = new ArrayList<>(numBuckets);
+    for (int i = 0; i < numBuckets; i++) {
+      buckets.add(new HashMap<>());
+    }
+    this.ticks = new HashMap<>();
+    this.tickCounts = new TreeMap<>();
+    this.currentTick = startTimeMillis / tickMillis;
+  }
+
+  /**
+   * Schedules the given key to be due at the given time. If the key is already scheduled, it will be rescheduled.
+   * A due time before the next tick, including one in the past, makes the key due at the next tick, hence it expires
+   * on the first call to {@link #advance(long)} at or after the time of the next tick.
+   */
+  void schedule(K key, long dueTimeMillis) {
+    cancel(key);
+    // Round up so that the key never expires before the due time
+    long tick = Math.max(currentTick, (dueTimeMillis + tickMillis - 1) / tickMillis);
+    ticks.put(key, tick);
+    tickCounts.merge(tick, 1, Integer::sum);
+    getBucket(tick).put(key, tick);
+  }
+
+  /**
+   * Cancels the given key.
+   *
+   * @return {@code true} if the key was scheduled
+   */
+  boolean cancel(K key) {
+    Long tick = ticks.remove(key);
+    if (tick == null) {
+      return false;
+    }
+    getBucket(tick).remove(key);
+    removeTickCount(tick);
+    return true;
+  }
+
+  /**
+   * Returns whether the given key is scheduled.
+   */
+  boolean contains(K key) {
+    return ticks.containsKey(key);
+  }
+
+  /**
+   * Returns the number of scheduled keys.
+   */
+  int size() {
+    return ticks.size();
+  }
+
+  /**
+   * Returns the earliest time that a call to {@link #advance(long)} expires any key, or {@link Long#MAX_VALUE} if
+   * there is no scheduled key.
+   */
+  long getNextDueTime() {
+    return tickCounts.isEmpty() ? Long.MAX_VALUE : tickCounts.firstKey() * tickMillis;
+  }
+
+  /**
+   * Advances the wheel to the given time.
+   *
+   * @return the keys that are due at or before the given time, in no particular order
+   */
+  List<K> advance(long nowMillis) {
+    long nowTick = nowMillis / tickMillis;
+    List<K> expired = new ArrayList<>();
+    if (nowTick < currentTick) {
+      return expired;
+    }
+
+    // No need to visit a bucket more than once, even if the wheel went around more than a round
+    long endTick = Math.min(nowTick, currentTick + buckets.size() - 1);
+    for (long tick = currentTick; tick <= endTick; tick++) {
+      Iterator<Map.Entry<K, Long>> iterator = getBucket(tick).entrySet().iterator();
+      while (iterator.hasNext()) {
+        Map.Entry<K, Long> entry = iterator.next();
+        // Keys in the same bucket can be due in later rounds
+        if (entry.getValue() <= nowTick) {
+          expired.add(entry.getKey());
+          ticks.remove(entry.getKey());
+          iterator.remove();
+          removeTickCount(entry.getValue());
+        }
+      }
+    }
+    currentTick = nowTick + 1;
+    return expired;
+  }
+
+  private void removeTickCount(long tick) {
+    tickCounts.computeIfPresent(tick, (t, count) -> count == 1 ? null : count - 1);
+  }
+
+  private Map<K, Long> getBucket(long tick) {
+    return buckets.get((int) (tick % buckets.size()));
+  }
+}
@@ -38,12 +38,14 @@ import io.cdap.cdap.app.preview.PreviewRunner;
 import io.cdap.cdap.app.preview.PreviewRunnerModule;
 import io.cdap.cdap.app.preview.PreviewRunnerModuleFactory;
 import io.cdap.cdap.app.preview.PreviewStatus;
+import io.cdap.cdap.common.ServiceUnavailableException;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.guice.ConfigModule;
 import io.cdap.cdap.common.guice.IOModule;
 import io.cdap.cdap.common.guice.InMemoryDiscoveryModule;
 import io.cdap.cdap.common.guice.NonCustomLocationUnitTestModule;
+import io.cdap.cdap.common.utils.Tasks;
 import io.cdap.cdap.config.PreferencesService;
 import io.cdap.cdap.config.guice.ConfigStoreModule;
 import io.cdap.cdap.data.runtime.DataFabricModules;
@@ -66,6 +68,7 @@ import io.cdap.cdap.metrics.query.MetricsQueryHelper;
 import io.cdap.cdap.proto.ProgramType;
 import io.cdap.cdap.proto.artifact.AppRequest;
 import io.cdap.cdap.proto.artifact.preview.PreviewConfig;
+import io.cdap.cdap.proto.id.ApplicationId;
 import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.ProgramRunId;
 import io.cdap.cdap.security.authorization.AuthorizationEnforcementModule;
@@ -80,6 +83,7 @@ import io.cdap.cdap.security.spi.authorization.PrivilegesManager;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.tephra.TransactionManager;
 import org.junit.After;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.ClassRule;
 import org.junit.Test;
@@ -88,7 +92,9 @@ import org.junit.rules.TemporaryFolder;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
  * Unit test for {@link PreviewManager}.
@@ -107,6 +113,7 @@ public class PreviewManagerTest {
     CConfiguration cConf = CConfiguration.create();
     cConf.set(Constants.CFG_LOCAL_DATA_DIR, TEMP_FOLDER.newFolder().getAbsolutePath());
     cConf.setInt(Constants.Preview.PREVIEW_CACHE_SIZE, 2);
+    cConf.setInt(Constants.Preview.RUNNER_POOL_SIZE, 1);
 
     Injector injector = Guice.createInjector(
       new ConfigModule(cConf, new Configuration()),
@@ -168,7 +175,7 @@ public class PreviewManagerTest {
     txManager.stopAndWait();
   }
 
-  @Test(expected = IllegalStateException.class)
+  @Test(expected = ServiceUnavailableException.class)
   public void testLimit() throws Exception {
     PreviewConfig previewConfig = new PreviewConfig("test", ProgramType.WORKFLOW, null, null);
     previewManager.start(NamespaceId.DEFAULT, new AppRequest<>(new ArtifactSummary("test", "1.0"), null,
@@ -198,6 +205,22 @@ public class PreviewManagerTest {
                                                                previewConfig));
   }
 
+  @Test
+  public void testRunnerPool() throws Exception {
+    DefaultPreviewManager defaultPreviewManager = (DefaultPreviewManager) previewManager;
+    Tasks.waitFor(1, defaultPreviewManager::getRunnerPoolSize, 30, TimeUnit.SECONDS);
+
+    // The preview should be started with the pooled environment, which is assigned with the preview request
+    PreviewConfig previewConfig = new PreviewConfig("test", ProgramType.WORKFLOW, null, null);
+    ApplicationId previewApp = previewManager.start(NamespaceId.DEFAULT, new AppRequest<>(
+      new ArtifactSummary("test", "1.0"), null, previewConfig));
+    Assert.assertEquals(previewApp.program(ProgramType.WORKFLOW, "test"),
+                        previewManager.getRunner(previewApp).getPreviewRequest().getProgram());
+
+    // The pool should be refilled
+    Tasks.waitFor(1, defaultPreviewManager::getRunnerPoolSize, 30, TimeUnit.SECONDS);
+  }
+
   /**
    * Mocking the {@link Module} to provide a binding to the {@link MockPreviewRunner}.
    */
@@ -208,9 +231,9 @@ public class PreviewManagerTest {
                             AuthorizerInstantiator authorizerInstantiator, AuthorizationEnforcer authorizationEnforcer,
                             PrivilegesManager privilegesManager, PreferencesService preferencesService,
                             ProgramRuntimeProviderLoader programRuntimeProviderLoader,
-                            @Assisted PreviewRequest previewRequest) {
+                            @Assisted Supplier<PreviewRequest> previewRequestSupplier) {
       super(artifactRepository, artifactStore, authorizerInstantiator, authorizationEnforcer,
-            privilegesManager, preferencesService, programRuntimeProviderLoader, previewRequest);
+            privilegesManager, preferencesService, programRuntimeProviderLoader, previewRequestSupplier);
     }
 
     @Override
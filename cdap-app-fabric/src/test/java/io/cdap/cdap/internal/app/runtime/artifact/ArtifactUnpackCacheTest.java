@@ -0,0 +1,157 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.runtime.artifact;
+
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.io.Locations;
+import org.apache.twill.filesystem.Location;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Unit tests for {@link ArtifactUnpackCache}.
+ */
+public class ArtifactUnpackCacheTest {
+
+  @ClassRule
+  public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
+
+  @Test
+  public void testSharedDirectory() throws IOException {
+    ArtifactUnpackCache cache = new ArtifactUnpackCache(TEMP_FOLDER.newFolder(), 1024 * 1024);
+    Location jar = createJar("content");
+
+    try (ArtifactUnpackCache.Lease lease1 = cache.acquire(jar);
+         ArtifactUnpackCache.Lease lease2 = cache.acquire(jar)) {
+      // The same jar should be unpacked once only
+      Assert.assertEquals(lease1.getDirectory(), lease2.getDirectory());
+      File file = new File(lease1.getDirectory(), "test.txt");
+      Assert.assertEquals("content", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+      Assert.assertFalse(Files.getPosixFilePermissions(file.toPath()).contains(PosixFilePermission.OWNER_WRITE));
+
+      // A jar with different content should be unpacked to a different directory
+      try (ArtifactUnpackCache.Lease lease3 = cache.acquire(createJar("other"))) {
+        Assert.assertNotEquals(lease1.getDirectory(), lease3.getDirectory());
+      }
+    }
+  }
+
+  @Test
+  public void testEviction() throws IOException {
+    // The cache is only large enough to hold one of the unpacked jars
+    ArtifactUnpackCache cache = new ArtifactUnpackCache(TEMP_FOLDER.newFolder(), 10);
+    Location jar1 = createJar("content1");
+    Location jar2 = createJar("content2");
+
+    ArtifactUnpackCache.Lease lease1 = cache.acquire(jar1);
+    ArtifactUnpackCache.Lease lease2 = cache.acquire(jar2);
+
+    // Both directories are in use, hence none of them can be evicted
+    Assert.assertTrue(lease1.getDirectory().isDirectory());
+    Assert.assertTrue(lease2.getDirectory().isDirectory());
+    Assert.assertEquals(16L, cache.getTotalSize());
+
+    // Releasing one of them should evict it
+    lease1.close();
+    Assert.assertFalse(lease1.getDirectory().exists());
+    Assert.assertEquals(8L, cache.getTotalSize());
+
+    // Closing a lease again should have no effect
+    lease1.close();
+    Assert.assertTrue(lease2.getDirectory().isDirectory());
+
+    // Within the size limit, the directory should be kept after release
+    lease2.close();
+    Assert.assertTrue(lease2.getDirectory().isDirectory());
+    try (ArtifactUnpackCache.Lease lease = cache.acquire(jar2)) {
+      Assert.assertEquals(lease2.getDirectory(), lease.getDirectory());
+    }
+  }
+
+  @Test
+  public void testReload() throws IOException {
+    File cacheDir = TEMP_FOLDER.newFolder();
+    Location jar = createJar("content");
+
+    File unpackDir;
+    try (ArtifactUnpackCache.Lease lease = new ArtifactUnpackCache(cacheDir, 1024 * 1024).acquire(jar)) {
+      unpackDir = lease.getDirectory();
+    }
+
+    // A new cache instance should pick up the existing directory
+    ArtifactUnpackCache cache = new ArtifactUnpackCache(cacheDir, 1024 * 1024);
+    Assert.assertEquals(7L, cache.getTotalSize());
+    try (ArtifactUnpackCache.Lease lease = cache.acquire(jar)) {
+      Assert.assertEquals(unpackDir, lease.getDirectory());
+    }
+  }
+
+  @Test
+  public void testDisabled() throws IOException {
+    ArtifactUnpackCache cache = new ArtifactUnpackCache(TEMP_FOLDER.newFolder(), 0);
+    Location jar = createJar("content");
+
+    try (ArtifactUnpackCache.Lease lease1 = cache.acquire(jar);
+         ArtifactUnpackCache.Lease lease2 = cache.acquire(jar)) {
+      Assert.assertNotEquals(lease1.getDirectory(), lease2.getDirectory());
+      lease1.close();
+      Assert.assertFalse(lease1.getDirectory().exists());
+      Assert.assertTrue(new File(lease2.getDirectory(), "test.txt").isFile());
+    }
+  }
+
+  @Test
+  public void testSharedInstance() throws IOException {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_LOCAL_DATA_DIR, TEMP_FOLDER.newFolder().getAbsolutePath());
+    cConf.setLong(Constants.AppFabric.ARTIFACT_UNPACK_CACHE_MAX_SIZE_MB, 1L);
+    ArtifactUnpackCache cache = ArtifactUnpackCache.get(cConf);
+    Assert.assertSame(cache, ArtifactUnpackCache.get(cConf));
+
+    // The same directory cannot be used with a different size limit
+    CConfiguration otherConf = CConfiguration.copy(cConf);
+    otherConf.setLong(Constants.AppFabric.ARTIFACT_UNPACK_CACHE_MAX_SIZE_MB, 2L);
+    try {
+      ArtifactUnpackCache.get(otherConf);
+      Assert.fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  private Location createJar(String content) throws IOException {
+    File file = TEMP_FOLDER.newFile();
+    try (JarOutputStream output = new JarOutputStream(new FileOutputStream(file))) {
+      output.putNextEntry(new JarEntry("test.txt"));
+      output.write(content.getBytes(StandardCharsets.UTF_8));
+      output.closeEntry();
+    }
+    return Locations.toLocation(file);
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.internal.app.runtime.distributed;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.guice.ConfigModule;
+import io.cdap.cdap.common.utils.DirUtils;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Unit test for {@link LaunchResourceCache}.
+ */
+public class LaunchResourceCacheTest {
+
+  @ClassRule
+  public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
+
+  @Test
+  public void testBundleJar() throws Exception {
+    LaunchResourceCache cache = new LaunchResourceCache(TEMP_FOLDER.newFolder(), TimeUnit.DAYS.toMillis(7));
+
+    File dir = TEMP_FOLDER.newFolder();
+    Files.write(new File(dir, "a.jar").toPath(), "a".getBytes(StandardCharsets.UTF_8));
+    File subDir = new File(dir, "lib");
+    Assert.assertTrue(subDir.mkdirs());
+    Files.write(new File(subDir, "b.jar").toPath(), "b".getBytes(StandardCharsets.UTF_8));
+
+    File jar = cache.getBundleJar(dir, "ext.jar");
+    Assert.assertEquals("ext.jar", jar.getName());
+    try (JarFile jarFile = new JarFile(jar)) {
+      JarEntry entry = jarFile.getJarEntry("lib/b.jar");
+      Assert.assertNotNull(entry);
+    }
+    Assert.assertEquals(jar, cache.getBundleJar(dir, "ext.jar"));
+
+    // Adding a file to the directory creates a new jar
+    Files.write(new File(subDir, "c.jar").toPath(), "c".getBytes(StandardCharsets.UTF_8));
+    File newJar = cache.getBundleJar(dir, "ext.jar");
+    Assert.assertNotEquals(jar, newJar);
+    try (JarFile jarFile = new JarFile(newJar)) {
+      Assert.assertNotNull(jarFile.getJarEntry("lib/c.jar"));
+    }
+  }
+
+  @Test
+  public void testExpiration() throws Exception {
+    File cacheDir = TEMP_FOLDER.newFolder();
+    LaunchResourceCache cache = new LaunchResourceCache(cacheDir, TimeUnit.DAYS.toMillis(7));
+
+    File dir1 = createDir("1");
+    File dir2 = createDir("2");
+    File jar1 = cache.getBundleJar(dir1, "ext.jar");
+    File jar2 = cache.getBundleJar(dir2, "ext.jar");
+
+    // Make both entries look unused for longer than the expiration time, then use the first one
+    long expired = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(8);
+    Assert.assertTrue(jar1.getParentFile().setLastModified(expired));
+    Assert.assertTrue(jar2.getParentFile().setLastModified(expired));
+    Assert.assertEquals(jar1, cache.getBundleJar(dir1, "ext.jar"));
+
+    // Creating a new entry removes the unused one
+    cache.getBundleJar(createDir("3"), "ext.jar");
+    Assert.assertTrue(jar1.isFile());
+    Assert.assertFalse(jar2.exists());
+    Assert.assertEquals(2, DirUtils.listFiles(cacheDir).size());
+  }
+
+  @Test
+  public void testConcurrentExpiration() throws Exception {
+    File cacheDir = TEMP_FOLDER.newFolder();
+    LaunchResourceCache cache = new LaunchResourceCache(cacheDir, TimeUnit.DAYS.toMillis(7));
+
+    // An expired entry that is used while other entries are created must never be removed
+    File dir = createDir("used");
+    File jar = cache.getBundleJar(dir, "ext.jar");
+    long expired = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(8);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      for (int i = 0; i < 20; i++) {
+        Assert.assertTrue(jar.getParentFile().setLastModified(expired));
+        File newDir = createDir("new" + i);
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        Future<File> used = executor.submit(() -> {
+          barrier.await();
+          return cache.getBundleJar(dir, "ext.jar");
+        });
+        Future<File> created = executor.submit(() -> {
+          barrier.await();
+          return cache.getBundleJar(newDir, "ext.jar");
+        });
+        created.get(10, TimeUnit.SECONDS);
+        Assert.assertTrue(used.get(10, TimeUnit.SECONDS).isFile());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testSharedInstance() throws Exception {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.AppFabric.PROGRAM_LAUNCH_CACHE_DIR, TEMP_FOLDER.newFolder().getAbsolutePath());
+    Injector injector = Guice.createInjector(new ConfigModule(cConf));
+    LaunchResourceCache cache = injector.getInstance(LaunchResourceCache.class);
+    Assert.assertTrue(cache.isEnabled());
+    Assert.assertSame(cache, injector.getInstance(LaunchResourceCache.class));
+    // program runners of child injectors, such as the Spark program runner, use the same instance
+    Assert.assertSame(cache, injector.createChildInjector().getInstance(LaunchResourceCache.class));
+
+    cConf.set(Constants.AppFabric.PROGRAM_LAUNCH_CACHE_DIR, "");
+    Assert.assertFalse(Guice.createInjector(new ConfigModule(cConf)).getInstance(LaunchResourceCache.class)
+                         .isEnabled());
+  }
+
+  private static File createDir(String content) throws Exception {
+    File dir = TEMP_FOLDER.newFolder();
+    Files.write(new File(dir, "file.jar").toPath(), content.getBytes(StandardCharsets.UTF_8));
+    return dir;
+  }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.internal.app.runtime.distributed.remote;
+
+import com.google.common.io.ByteStreams;
+import io.cdap.cdap.api.metrics.NoopMetricsContext;
+import io.cdap.cdap.runtime.spi.ssh.PortForwarding;
+import io.cdap.cdap.runtime.spi.ssh.RemotePortForwarding;
+import io.cdap.cdap.runtime.spi.ssh.SSHProcess;
+import io.cdap.cdap.runtime.spi.ssh.SSHSession;
+import org.apache.twill.api.LocalFile;
+import org.apache.twill.internal.DefaultLocalFile;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Unit test for {@link RemoteFileCache}.
+ */
+public class RemoteFileCacheTest {
+
+  @ClassRule
+  public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
+
+  @Test
+  public void testLocalize() throws Exception {
+    LocalHostSession session = new LocalHostSession(TEMP_FOLDER.newFolder());
+    RemoteFileCache cache = new RemoteFileCache("cache", 7);
+
+    LocalFile file1 = createLocalFile("file1.jar", "content1");
+    LocalFile file2 = createLocalFile("file2.jar", "content2");
+
+    // Initially, all files are uploaded
+    Map<URI, String> paths = cache.localize(session, Arrays.asList(file1, file2, file1),
+                                            RemoteFileCacheTest::open, new NoopMetricsContext());
+    Assert.assertEquals(2, session.getUploads().size());
+    Assert.assertEquals("content1", read(paths.get(file1.getURI())));
+    Assert.assertEquals("content2", read(paths.get(file2.getURI())));
+
+    // Files with the same content are not uploaded again, even if they are different local files
+    LocalFile file3 = createLocalFile("file1.jar", "content1");
+    Assert.assertNotEquals(file1.getURI(), file3.getURI());
+    paths = cache.localize(session, Arrays.asList(file2, file3), RemoteFileCacheTest::open, new NoopMetricsContext());
+    Assert.assertEquals(2, session.getUploads().size());
+    Assert.assertEquals("content1", read(paths.get(file3.getURI())));
+    Assert.assertEquals("content2", read(paths.get(file2.getURI())));
+
+    // A file with changed content is uploaded again
+    Files.write(new File(file2.getURI()).toPath(), "changed".getBytes(StandardCharsets.UTF_8));
+    LocalFile changed = new DefaultLocalFile("file2.jar", file2.getURI(), file2.getLastModified() + 1000L,
+                                             "changed".length(), false, null);
+    paths = cache.localize(session, Arrays.asList(file1, changed), RemoteFileCacheTest::open,
+                           new NoopMetricsContext());
+    Assert.assertEquals(3, session.getUploads().size());
+    Assert.assertEquals("changed", read(paths.get(changed.getURI())));
+
+    // No temporary files are left behind in the cache directory
+    File[] cached = new File(session.getHome(), "cache").listFiles();
+    Assert.assertNotNull(cached);
+    Assert.assertEquals(3, cached.length);
+  }
+
+  @Test
+  public void testExpiration() throws Exception {
+    LocalHostSession session = new LocalHostSession(TEMP_FOLDER.newFolder());
+    RemoteFileCache cache = new RemoteFileCache("cache", 7);
+
+    LocalFile file1 = createLocalFile("file1.jar", "content1");
+    LocalFile file2 = createLocalFile("file2.jar", "content2");
+    LocalFile file3 = createLocalFile("file3.jar", "content3");
+    Map<URI, String> paths = cache.localize(session, Arrays.asList(file1, file2), RemoteFileCacheTest::open,
+                                            new NoopMetricsContext());
+
+    // Make both files appear unused for longer than the expiration period
+    long expired = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(8);
+    Assert.assertTrue(new File(paths.get(file1.getURI())).setLastModified(expired));
+    Assert.assertTrue(new File(paths.get(file2.getURI())).setLastModified(expired));
+
+    // Localizing file1 keeps it in the cache, but file2 gets removed
+    cache.localize(session, Arrays.asList(file1, file3), RemoteFileCacheTest::open, new NoopMetricsContext());
+    Assert.assertEquals(3, session.getUploads().size());
+    Assert.assertTrue(new File(paths.get(file1.getURI())).exists());
+    Assert.assertFalse(new File(paths.get(file2.getURI())).exists());
+  }
+
+  @Test
+  public void testSpecialCharacters() throws Exception {
+    LocalHostSession session = new LocalHostSession(TEMP_FOLDER.newFolder());
+    RemoteFileCache cache = new RemoteFileCache("cache", 7);
+
+    // The file name must be passed to the shell as is, without being expanded or split
+    LocalFile file = createLocalFile("it's a $(touch injected) `touch injected` file*.jar", "content");
+    Map<URI, String> paths = cache.localize(session, Collections.singletonList(file), RemoteFileCacheTest::open,
+                                            new NoopMetricsContext());
+    Assert.assertEquals(1, session.getUploads().size());
+    Assert.assertEquals("content", read(paths.get(file.getURI())));
+
+    // The file is found in the cache on the next localization
+    cache.localize(session, Collections.singletonList(file), RemoteFileCacheTest::open, new NoopMetricsContext());
+    Assert.assertEquals(1, session.getUploads().size());
+    Assert.assertFalse(new File(session.getHome(), "injected").exists());
+    Assert.assertFalse(new File(new File(session.getHome(), "cache"), "injected").exists());
+  }
+
+  private static LocalFile createLocalFile(String name, String content) throws IOException {
+    File file = new File(TEMP_FOLDER.newFolder(), name);
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    return new DefaultLocalFile(name, file.toURI(), file.lastModified(), file.length(), false, null);
+  }
+
+  private static InputStream open(URI uri) throws IOException {
+    return new FileInputStream(new File(uri));
+  }
+
+  private static String read(String path) throws IOException {
+    return new String(Files.readAllBytes(new File(path).toPath()), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * A stand-in for a SSH session to a remote host, which runs commands with bash on the local host,
+   * in the given home directory.
+   */
+  private static final class LocalHostSession implements SSHSession {
+
+    private final File home;
+    private final List<String> uploads = new ArrayList<>();
+
+    LocalHostSession(File home) {
+      this.home = home;
+    }
+
+    File getHome() {
+      return home;
+    }
+
+    List<String> getUploads() {
+      return uploads;
+    }
+
+    @Override
+    public boolean isAlive() {
+      return true;
+    }
+
+    @Override
+    public InetSocketAddress getAddress() {
+      return new InetSocketAddress(InetAddress.getLoopbackAddress(), 22);
+    }
+
+    @Override
+    public String getUsername() {
+      return "cdap";
+    }
+
+    @Override
+    public SSHProcess execute(List<String> commands) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String executeAndWait(List<String> commands) throws IOException {
+      Process process = new ProcessBuilder("bash", "-c", String.join(";", commands))
+        .directory(home).redirectErrorStream(true).start();
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      ByteStreams.copy(process.getInputStream(), output);
+      try {
+        if (process.waitFor() != 0) {
+          throw new IOException("Commands failed: " + commands + ", output: " + output);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException(e);
+      }
+      return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void copy(Path sourceFile, String targetPath) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void copy(InputStream input, String targetPath, String targetName, long size, int permission,
+                     @Nullable Long lastAccessTime, @Nullable Long lastModifiedTime) throws IOException {
+      Files.copy(input, new File(targetPath, targetName).toPath());
+      uploads.add(targetName);
+    }
+
+    @Override
+    public PortForwarding createLocalPortForward(String targetHost, int targetPort, int originatePort,
+                                                 PortForwarding.DataConsumer dataConsumer) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public RemotePortForwarding createRemotePortForward(int remotePort, int localPort) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+      // no-op
+    }
+  }
+}
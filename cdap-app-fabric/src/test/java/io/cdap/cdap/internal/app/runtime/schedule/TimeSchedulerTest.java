@@ -17,20 +17,36 @@
 package io.cdap.cdap.internal.app.runtime.schedule;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
 import io.cdap.cdap.api.schedule.SchedulableProgramType;
+import io.cdap.cdap.common.utils.Tasks;
+import io.cdap.cdap.internal.app.runtime.ProgramOptionConstants;
+import io.cdap.cdap.internal.app.runtime.schedule.store.TimeTriggerRecord;
+import io.cdap.cdap.internal.app.runtime.schedule.store.TimeTriggerTable;
 import io.cdap.cdap.internal.app.runtime.schedule.trigger.TimeTrigger;
 import io.cdap.cdap.internal.app.services.http.AppFabricTestBase;
+import io.cdap.cdap.proto.Notification;
 import io.cdap.cdap.proto.ScheduledRuntime;
 import io.cdap.cdap.proto.id.ApplicationId;
 import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.ScheduleId;
 import io.cdap.cdap.proto.id.WorkflowId;
+import io.cdap.cdap.spi.data.transaction.TransactionRunner;
+import io.cdap.cdap.spi.data.transaction.TransactionRunners;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * Tests {@link TimeScheduler}
@@ -41,11 +57,16 @@ public class TimeSchedulerTest extends AppFabricTestBase {
   private static final ApplicationId APP1_ID = NS_ID.app("app1");
   private static final WorkflowId PROG1_ID = APP1_ID.workflow("wf1");
 
+  private static final Gson GSON = new Gson();
+  private static final Type MAP_TYPE = new TypeToken<Map<String, String>>() { }.getType();
+
   private static TimeScheduler timeScheduler;
+  private static TransactionRunner transactionRunner;
 
   @BeforeClass
   public static void beforeClass() throws Throwable {
     AppFabricTestBase.beforeClass();
+    transactionRunner = getInjector().getInstance(TransactionRunner.class);
     timeScheduler = getInjector().getInstance(TimeScheduler.class);
     timeScheduler.init();
     timeScheduler.start();
@@ -71,4 +92,195 @@ public class TimeSchedulerTest extends AppFabricTestBase {
     // and from 2:05 pm to 2:55pm will have 11 schedules as end time is exclusive. in total we expect 24 schedules.
     Assert.assertEquals(24, nextRuntimes.size());
   }
+
+  @Test
+  public void testReloadTriggers() throws Exception {
+    ProgramSchedule sched = new ProgramSchedule("tsched12", "hourly schedule", PROG1_ID,
+      ImmutableMap.of(), new TimeTrigger("0 * * * *"), Collections.emptyList());
+    timeScheduler.addProgramSchedule(sched);
+    // schedule is suspended after being added, hence it has no next runtime
+    Assert.assertTrue(getRuntimes(timeScheduler.nextScheduledRuntime(PROG1_ID), sched).isEmpty());
+    timeScheduler.resumeProgramSchedule(sched);
+    List<ScheduledRuntime> nextRuntimes = getRuntimes(timeScheduler.nextScheduledRuntime(PROG1_ID), sched);
+    Assert.assertEquals(1, nextRuntimes.size());
+    Assert.assertTrue(nextRuntimes.get(0).getTime() > System.currentTimeMillis());
+
+    // the triggers loaded from the store should have the same state
+    timeScheduler.init();
+    List<ScheduledRuntime> reloadedRuntimes = getRuntimes(timeScheduler.nextScheduledRuntime(PROG1_ID), sched);
+    Assert.assertEquals(1, reloadedRuntimes.size());
+    Assert.assertEquals(nextRuntimes.get(0).getTime(), reloadedRuntimes.get(0).getTime());
+
+    timeScheduler.suspendProgramSchedule(sched);
+    timeScheduler.init();
+    Assert.assertTrue(getRuntimes(timeScheduler.nextScheduledRuntime(PROG1_ID), sched).isEmpty());
+
+    timeScheduler.deleteProgramSchedule(sched);
+    try {
+      timeScheduler.resumeProgramSchedule(sched);
+      Assert.fail("Expected SchedulerException for a deleted schedule");
+    } catch (SchedulerException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testMisfire() throws Exception {
+    long now = System.currentTimeMillis();
+    // the scheduler was down for two top of the hours, which is within the misfire threshold of three hours
+    TimeTriggerRecord late = createTrigger("tsched13", "0 * * * *", now - TimeUnit.MINUTES.toMillis(150));
+    // the scheduler was down for five hours, which is beyond the misfire threshold
+    TimeTriggerRecord misfired = createTrigger("tsched14", "0 * * * *", now - TimeUnit.HOURS.toMillis(5));
+    writeTriggers(Arrays.asList(late, misfired));
+
+    List<List<Notification>> published = Collections.synchronizedList(new ArrayList<>());
+    TimeScheduler scheduler = new TimeScheduler(transactionRunner,
+                                                notifications -> published.add(new ArrayList<>(notifications)),
+                                                TimeUnit.HOURS.toMillis(3), 100);
+    try {
+      scheduler.init();
+      scheduler.start();
+      Tasks.waitFor(true, () -> getTrigger(scheduler, late).getNextFireTime() > now
+        && getTrigger(scheduler, misfired).getNextFireTime() > now, 10, TimeUnit.SECONDS, 50, TimeUnit.MILLISECONDS);
+    } finally {
+      scheduler.stop();
+      deleteTriggers(Arrays.asList(late, misfired));
+    }
+
+    // the missed fire times of the late trigger are coalesced into a single firing at its original fire time
+    Assert.assertEquals(Collections.singletonList(late.getNextFireTime()),
+                        getLogicalStartTimes(published, late.getScheduleName(), now));
+    Assert.assertEquals(Long.valueOf(late.getNextFireTime()), getTrigger(scheduler, late).getPreviousFireTime());
+    // the misfired trigger skips the missed fire times
+    Assert.assertEquals(Collections.emptyList(), getLogicalStartTimes(published, misfired.getScheduleName(), now));
+    Assert.assertNull(getTrigger(scheduler, misfired).getPreviousFireTime());
+  }
+
+  @Test
+  public void testBatchPublish() throws Exception {
+    long now = System.currentTimeMillis();
+    List<TimeTriggerRecord> records = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      records.add(createTrigger("tsched15" + i, "0 0 1 1 *", now - 1000L));
+    }
+    writeTriggers(records);
+
+    List<List<Notification>> published = Collections.synchronizedList(new ArrayList<>());
+    TimeScheduler scheduler = new TimeScheduler(transactionRunner,
+                                                notifications -> published.add(new ArrayList<>(notifications)),
+                                                TimeUnit.HOURS.toMillis(1), 2);
+    try {
+      scheduler.init();
+      scheduler.start();
+      Tasks.waitFor(true, () -> records.stream()
+                      .allMatch(record -> getTrigger(scheduler, record).getNextFireTime() > now),
+                    10, TimeUnit.SECONDS, 50, TimeUnit.MILLISECONDS);
+    } finally {
+      scheduler.stop();
+      deleteTriggers(records);
+    }
+
+    // every trigger fires once, in requests of at most the publish batch size
+    for (TimeTriggerRecord record : records) {
+      Assert.assertEquals(Collections.singletonList(record.getNextFireTime()),
+                          getLogicalStartTimes(published, record.getScheduleName(), now));
+    }
+    int maxBatch = 0;
+    for (List<Notification> notifications : published) {
+      Assert.assertTrue(notifications.size() <= 2);
+      maxBatch = Math.max(maxBatch, (int) notifications.stream()
+        .filter(notification -> getScheduleName(notification).startsWith("tsched15")).count());
+    }
+    Assert.assertEquals(2, maxBatch);
+  }
+
+  @Test
+  public void testRestart() throws Exception {
+    long now = System.currentTimeMillis();
+    TimeTriggerRecord record = createTrigger("tsched16", "0 0 1 1 *", now - 1000L);
+    writeTriggers(Collections.singletonList(record));
+
+    List<List<Notification>> published = Collections.synchronizedList(new ArrayList<>());
+    TimeScheduler scheduler = new TimeScheduler(transactionRunner,
+                                                notifications -> published.add(new ArrayList<>(notifications)),
+                                                TimeUnit.HOURS.toMillis(1), 100);
+    try {
+      scheduler.init();
+      // a stopped scheduler should fire triggers again once it is started
+      scheduler.stop();
+      scheduler.start();
+      Tasks.waitFor(true, () -> getTrigger(scheduler, record).getNextFireTime() > now,
+                    10, TimeUnit.SECONDS, 50, TimeUnit.MILLISECONDS);
+    } finally {
+      scheduler.stop();
+      deleteTriggers(Collections.singletonList(record));
+    }
+    Assert.assertEquals(Collections.singletonList(record.getNextFireTime()),
+                        getLogicalStartTimes(published, record.getScheduleName(), now));
+  }
+
+  private TimeTriggerRecord createTrigger(String scheduleName, String cronExpression, long nextFireTime) {
+    return new TimeTriggerRecord(PROG1_ID, scheduleName, cronExpression, false, ProgramScheduleStatus.SCHEDULED,
+                                 nextFireTime, null);
+  }
+
+  private void writeTriggers(Collection<TimeTriggerRecord> records) {
+    TransactionRunners.run(transactionRunner, context -> {
+      TimeTriggerTable table = TimeTriggerTable.create(context);
+      for (TimeTriggerRecord record : records) {
+        table.write(record);
+      }
+    });
+  }
+
+  private void deleteTriggers(Collection<TimeTriggerRecord> records) {
+    TransactionRunners.run(transactionRunner, context -> {
+      TimeTriggerTable table = TimeTriggerTable.create(context);
+      for (TimeTriggerRecord record : records) {
+        table.delete(record);
+      }
+    });
+  }
+
+  private TimeTriggerRecord getTrigger(TimeScheduler scheduler, TimeTriggerRecord record) {
+    TimeTriggerRecord trigger = scheduler.getTrigger(
+      AbstractTimeSchedulerService.scheduleIdFor(PROG1_ID, SchedulableProgramType.WORKFLOW, record.getScheduleName()));
+    Assert.assertNotNull(trigger);
+    return trigger;
+  }
+
+  /**
+   * Returns the logical start times of the published notifications of the given schedule that are not after the
+   * given time.
+   */
+  private List<Long> getLogicalStartTimes(List<List<Notification>> published, String scheduleName, long maxTime) {
+    List<Long> result = new ArrayList<>();
+    synchronized (published) {
+      for (List<Notification> notifications : published) {
+        for (Notification notification : notifications) {
+          if (!scheduleName.equals(getScheduleName(notification))) {
+            continue;
+          }
+          Map<String, String> userOverrides =
+            GSON.fromJson(notification.getProperties().get(ProgramOptionConstants.USER_OVERRIDES), MAP_TYPE);
+          long logicalStartTime = Long.parseLong(userOverrides.get(ProgramOptionConstants.LOGICAL_START_TIME));
+          if (logicalStartTime <= maxTime) {
+            result.add(logicalStartTime);
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  private String getScheduleName(Notification notification) {
+    return GSON.fromJson(notification.getProperties().get(ProgramOptionConstants.SCHEDULE_ID),
+                         ScheduleId.class).getSchedule();
+  }
+
+  private List<ScheduledRuntime> getRuntimes(List<ScheduledRuntime> runtimes, ProgramSchedule schedule) {
+    String id = "DEFAULT." + AbstractTimeSchedulerService.scheduleIdFor(PROG1_ID, SchedulableProgramType.WORKFLOW,
+                                                                         schedule.getName());
+    return runtimes.stream().filter(runtime -> id.equals(runtime.getId())).collect(Collectors.toList());
+  }
 }
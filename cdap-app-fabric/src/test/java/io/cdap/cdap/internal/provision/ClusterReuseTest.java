@@ -0,0 +1,240 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.provision;
+
+import com.google.common.util.concurrent.Service;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import io.cdap.cdap.api.app.ApplicationSpecification;
+import io.cdap.cdap.api.artifact.ArtifactId;
+import io.cdap.cdap.app.program.ProgramDescriptor;
+import io.cdap.cdap.app.runtime.ProgramOptions;
+import io.cdap.cdap.common.app.RunIds;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.utils.Tasks;
+import io.cdap.cdap.data2.datafabric.dataset.service.DatasetService;
+import io.cdap.cdap.internal.app.DefaultApplicationSpecification;
+import io.cdap.cdap.internal.app.runtime.BasicArguments;
+import io.cdap.cdap.internal.app.runtime.SimpleProgramOptions;
+import io.cdap.cdap.internal.app.runtime.SystemArguments;
+import io.cdap.cdap.internal.guice.AppFabricTestModule;
+import io.cdap.cdap.messaging.MessagingService;
+import io.cdap.cdap.proto.ProgramRunStatus;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.ProfileId;
+import io.cdap.cdap.proto.id.ProgramRunId;
+import io.cdap.cdap.proto.profile.Profile;
+import io.cdap.cdap.proto.provisioner.ProvisionerInfo;
+import io.cdap.cdap.spi.data.StructuredTableAdmin;
+import io.cdap.cdap.spi.data.table.StructuredTableRegistry;
+import io.cdap.cdap.spi.data.transaction.TransactionRunner;
+import io.cdap.cdap.spi.data.transaction.TransactionRunners;
+import io.cdap.cdap.store.StoreDefinition;
+import org.apache.tephra.TransactionManager;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Tests for reusing idle clusters in the {@link ProvisioningService}.
+ */
+public class ClusterReuseTest {
+
+  @ClassRule
+  public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
+
+  private static ProvisioningService provisioningService;
+  private static TransactionManager txManager;
+  private static DatasetService datasetService;
+  private static MessagingService messagingService;
+  private static ProvisionerStore provisionerStore;
+  private static TransactionRunner transactionRunner;
+
+  @BeforeClass
+  public static void setupClass() throws Exception {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_LOCAL_DATA_DIR, TEMP_FOLDER.newFolder().getAbsolutePath());
+    cConf.setLong(Constants.Provisioner.CLUSTER_REUSE_IDLE_TTL_SECS, 3600L);
+    // Expired idle clusters are deleted explicitly by the test
+    cConf.setLong(Constants.Provisioner.CLUSTER_REUSE_CHECK_INTERVAL_SECS, 3600L);
+
+    Injector injector = Guice.createInjector(new AppFabricTestModule(cConf));
+    txManager = injector.getInstance(TransactionManager.class);
+    txManager.startAndWait();
+    StructuredTableRegistry structuredTableRegistry = injector.getInstance(StructuredTableRegistry.class);
+    structuredTableRegistry.initialize();
+    StoreDefinition.createAllTables(injector.getInstance(StructuredTableAdmin.class), structuredTableRegistry);
+    datasetService = injector.getInstance(DatasetService.class);
+    datasetService.startAndWait();
+    messagingService = injector.getInstance(MessagingService.class);
+    if (messagingService instanceof Service) {
+      ((Service) messagingService).startAndWait();
+    }
+    provisionerStore = injector.getInstance(ProvisionerStore.class);
+    provisioningService = injector.getInstance(ProvisioningService.class);
+    provisioningService.startAndWait();
+    transactionRunner = injector.getInstance(TransactionRunner.class);
+  }
+
+  @AfterClass
+  public static void cleanupClass() {
+    provisioningService.stopAndWait();
+    datasetService.stopAndWait();
+    txManager.stopAndWait();
+    if (messagingService instanceof Service) {
+      ((Service) messagingService).stopAndWait();
+    }
+  }
+
+  @Test
+  public void testReuseIdleCluster() throws Exception {
+    ProvisionerInfo provisionerInfo = new MockProvisioner.PropertyBuilder().build();
+
+    ProgramRunId run1 = provision(provisionerInfo);
+    String clusterName = getCluster(run1);
+    deprovision(run1, ProgramRunStatus.COMPLETED);
+
+    // The cluster should be kept idle instead of being deleted
+    Assert.assertNull(provisionerStore.getTaskInfo(new ProvisioningTaskKey(run1, ProvisioningOp.Type.DEPROVISION)));
+    Assert.assertEquals(Collections.singletonList(run1), getIdleRuns(run1));
+
+    // A run with the same profile properties should get the idle cluster
+    ProgramRunId run2 = provision(provisionerInfo);
+    Assert.assertEquals(clusterName, getCluster(run2));
+    Assert.assertTrue(getIdleRuns(run1).isEmpty());
+
+    // A run with different profile properties should get a new cluster
+    ProgramRunId run3 = provision(new MockProvisioner.PropertyBuilder().waitCreate(1, TimeUnit.MILLISECONDS).build());
+    Assert.assertNotEquals(clusterName, getCluster(run3));
+  }
+
+  @Test
+  public void testFailedRunClusterNotReused() throws Exception {
+    ProvisionerInfo provisionerInfo = new MockProvisioner.PropertyBuilder()
+      .waitDelete(1, TimeUnit.MILLISECONDS).build();
+
+    // The cluster of a run that didn't complete successfully should be deleted instead of being kept idle
+    ProgramRunId run = provision(provisionerInfo);
+    deprovision(run, ProgramRunStatus.FAILED);
+    Assert.assertTrue(getIdleRuns(run).isEmpty());
+
+    ProvisioningTaskKey taskKey = new ProvisioningTaskKey(run, ProvisioningOp.Type.DEPROVISION);
+    Tasks.waitFor(ProvisioningOp.Status.DELETED, () -> {
+      ProvisioningTaskInfo taskInfo = provisionerStore.getTaskInfo(taskKey);
+      return taskInfo == null ? null : taskInfo.getProvisioningOp().getStatus();
+    }, 60, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testExpiredIdleCluster() throws Exception {
+    ProvisionerInfo provisionerInfo = new MockProvisioner.PropertyBuilder()
+      .waitDelete(1, TimeUnit.MILLISECONDS).build();
+
+    ProgramRunId run1 = provision(provisionerInfo);
+    String clusterName = getCluster(run1);
+    deprovision(run1, ProgramRunStatus.COMPLETED);
+
+    // Make the idle cluster expired
+    List<IdleClusterInfo> idleClusters = provisionerStore.listIdleClusters().stream()
+      .filter(info -> info.getProgramRunId().equals(run1))
+      .collect(Collectors.toList());
+    Assert.assertEquals(1, idleClusters.size());
+    IdleClusterInfo idleCluster = idleClusters.get(0);
+    provisionerStore.putIdleCluster(new IdleClusterInfo(idleCluster.getReuseKey(), 0L, idleCluster.getTaskInfo()));
+
+    // Expired cluster shouldn't be reused
+    ProgramRunId run2 = provision(provisionerInfo);
+    Assert.assertNotEquals(clusterName, getCluster(run2));
+
+    // Expired cluster should get deleted by a task of its own, which is cleaned up once the cluster is deleted
+    provisioningService.deleteExpiredIdleClusters();
+    Assert.assertTrue(getIdleRuns(run1).isEmpty());
+    Tasks.waitFor(true, () -> provisionerStore.listTaskInfo().stream()
+      .filter(info -> info.getProvisioningOp().getType() == ProvisioningOp.Type.DEPROVISION)
+      .filter(info -> info.getCluster() != null)
+      .noneMatch(info -> clusterName.equals(info.getCluster().getName())), 60, TimeUnit.SECONDS);
+
+    // The state of the program run that created the cluster should be left untouched
+    Assert.assertNull(provisionerStore.getTaskInfo(new ProvisioningTaskKey(run1, ProvisioningOp.Type.DEPROVISION)));
+    Assert.assertEquals(ProvisioningOp.Status.CREATED,
+                        provisionerStore.getTaskInfo(new ProvisioningTaskKey(run1, ProvisioningOp.Type.PROVISION))
+                          .getProvisioningOp().getStatus());
+  }
+
+  private ProgramRunId provision(ProvisionerInfo provisionerInfo) throws Exception {
+    ProgramRunId programRunId = NamespaceId.DEFAULT.app("app").workflow("wf").run(RunIds.generate());
+    Map<String, String> systemArgs = new HashMap<>();
+    Profile profile = new Profile(ProfileId.NATIVE.getProfile(), "label", "desc", provisionerInfo);
+    SystemArguments.addProfileArgs(systemArgs, profile);
+    ProgramOptions programOptions = new SimpleProgramOptions(programRunId.getParent(),
+                                                             new BasicArguments(systemArgs),
+                                                             new BasicArguments(new HashMap<>()));
+    ArtifactId artifactId = NamespaceId.DEFAULT.artifact("testArtifact", "1.0").toApiArtifactId();
+    ApplicationSpecification appSpec = new DefaultApplicationSpecification(
+      "name", "1.0.0", "desc", null, artifactId,
+      Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(),
+      Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(),
+      Collections.emptyMap());
+    ProgramDescriptor programDescriptor = new ProgramDescriptor(programRunId.getParent(), appSpec);
+    ProvisionRequest provisionRequest = new ProvisionRequest(programRunId, programOptions, programDescriptor, "Bob");
+
+    Runnable task = TransactionRunners.run(transactionRunner, context -> {
+      return provisioningService.provision(provisionRequest, context);
+    });
+    task.run();
+
+    ProvisioningTaskKey taskKey = new ProvisioningTaskKey(programRunId, ProvisioningOp.Type.PROVISION);
+    Tasks.waitFor(ProvisioningOp.Status.CREATED, () -> {
+      ProvisioningTaskInfo taskInfo = provisionerStore.getTaskInfo(taskKey);
+      return taskInfo == null ? null : taskInfo.getProvisioningOp().getStatus();
+    }, 60, TimeUnit.SECONDS);
+    return programRunId;
+  }
+
+  private void deprovision(ProgramRunId programRunId, ProgramRunStatus runStatus) {
+    Runnable task = TransactionRunners.run(transactionRunner, context -> {
+      return provisioningService.deprovision(programRunId, runStatus, context, t -> { });
+    });
+    task.run();
+  }
+
+  private String getCluster(ProgramRunId programRunId) throws Exception {
+    ProvisioningTaskInfo taskInfo =
+      provisionerStore.getTaskInfo(new ProvisioningTaskKey(programRunId, ProvisioningOp.Type.PROVISION));
+    Assert.assertNotNull(taskInfo);
+    Assert.assertNotNull(taskInfo.getCluster());
+    return taskInfo.getCluster().getName();
+  }
+
+  private List<ProgramRunId> getIdleRuns(ProgramRunId programRunId) throws Exception {
+    return provisionerStore.listIdleClusters().stream()
+      .map(IdleClusterInfo::getProgramRunId)
+      .filter(programRunId::equals)
+      .collect(Collectors.toList());
+  }
+}
@@ -41,6 +41,7 @@ import io.cdap.cdap.internal.app.runtime.SystemArguments;
 import io.cdap.cdap.internal.guice.AppFabricTestModule;
 import io.cdap.cdap.internal.pipeline.PluginRequirement;
 import io.cdap.cdap.messaging.MessagingService;
+import io.cdap.cdap.proto.ProgramRunStatus;
 import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.ProfileId;
 import io.cdap.cdap.proto.id.ProgramRunId;
@@ -229,7 +230,7 @@ public class ProvisioningServiceTest {
                                               new MockProvisioner.PropertyBuilder().failCreate().build()).programRunId;
 
     Runnable task = TransactionRunners.run(transactionRunner, context -> {
-      return provisioningService.deprovision(programRunId, context);
+      return provisioningService.deprovision(programRunId, ProgramRunStatus.COMPLETED, context);
     });
     task.run();
 
@@ -293,7 +294,7 @@ public class ProvisioningServiceTest {
     TaskFields taskFields = testProvision(ProvisioningOp.Status.CREATED, provisionerInfo);
 
     Runnable task = TransactionRunners.run(transactionRunner, context -> {
-      return provisioningService.deprovision(taskFields.programRunId, context, t -> { });
+      return provisioningService.deprovision(taskFields.programRunId, ProgramRunStatus.COMPLETED, context, t -> { });
     });
     task.run();
     Assert.assertTrue(provisioningService.cancelDeprovisionTask(taskFields.programRunId).isPresent());
@@ -322,7 +323,7 @@ public class ProvisioningServiceTest {
   private void testDeprovision(ProgramRunId programRunId, ProvisioningOp.Status expectedState)
     throws InterruptedException, ExecutionException, TimeoutException, IOException {
     Runnable task = TransactionRunners.run(transactionRunner, context -> {
-      return provisioningService.deprovision(programRunId, context, t -> { });
+      return provisioningService.deprovision(programRunId, ProgramRunStatus.COMPLETED, context, t -> { });
     });
     task.run();
     ProvisioningTaskKey taskKey = new ProvisioningTaskKey(programRunId, ProvisioningOp.Type.DEPROVISION);
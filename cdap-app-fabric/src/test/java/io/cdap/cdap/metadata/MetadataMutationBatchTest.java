@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.metadata;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.cdap.cdap.api.metadata.MetadataEntity;
+import io.cdap.cdap.api.metadata.MetadataScope;
+import io.cdap.cdap.spi.metadata.Metadata;
+import io.cdap.cdap.spi.metadata.MetadataChange;
+import io.cdap.cdap.spi.metadata.MetadataKind;
+import io.cdap.cdap.spi.metadata.MetadataMutation;
+import io.cdap.cdap.spi.metadata.MutationOptions;
+import io.cdap.cdap.spi.metadata.ScopedNameOfKind;
+import io.cdap.cdap.spi.metadata.noop.NoopMetadataStorage;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests for {@link MetadataMutationBatch}.
+ */
+public class MetadataMutationBatchTest {
+
+  private static final MetadataEntity DS1 = MetadataEntity.ofDataset("ns", "ds1");
+  private static final MetadataEntity DS2 = MetadataEntity.ofDataset("ns", "ds2");
+
+  @Test
+  public void testCoalesceUpdatesAndRemoves() throws IOException {
+    MetadataMutationBatch batch = new MetadataMutationBatch();
+    batch.add(new MetadataMutation.Update(DS1, new Metadata(MetadataScope.USER, ImmutableSet.of("t1"),
+                                                            ImmutableMap.of("k1", "v1", "k2", "v2"))));
+    batch.add(new MetadataMutation.Update(DS2, new Metadata(MetadataScope.USER, ImmutableSet.of("t1"))));
+    batch.add(new MetadataMutation.Update(DS1, new Metadata(MetadataScope.USER, ImmutableSet.of("t2"),
+                                                            ImmutableMap.of("k2", "v3"))));
+    // removes all metadata added to ds2, which makes the update irrelevant
+    batch.add(new MetadataMutation.Remove(DS2, MetadataScope.USER));
+    batch.add(new MetadataMutation.Remove(DS2, ImmutableSet.of(
+      new ScopedNameOfKind(MetadataKind.TAG, MetadataScope.USER, "t1"))));
+    Assert.assertEquals(5, batch.getAddedCount());
+
+    RecordingMetadataStorage storage = new RecordingMetadataStorage();
+    Assert.assertEquals(2, batch.apply(storage, MutationOptions.DEFAULT));
+    Assert.assertTrue(batch.isEmpty());
+    Assert.assertEquals(0, batch.getAddedCount());
+    Assert.assertEquals(ImmutableList.of(ImmutableList.of(
+      new MetadataMutation.Update(DS1, new Metadata(MetadataScope.USER, ImmutableSet.of("t1", "t2"),
+                                                    ImmutableMap.of("k1", "v1", "k2", "v3"))),
+      new MetadataMutation.Remove(DS2, MetadataScope.USER))), storage.batches);
+  }
+
+  @Test
+  public void testOrderPreserved() throws IOException {
+    MetadataMutationBatch batch = new MetadataMutationBatch();
+    MetadataMutation create = new MetadataMutation.Create(
+      DS1, new Metadata(MetadataScope.SYSTEM, ImmutableMap.of("k", "v")), Collections.emptyMap());
+    MetadataMutation removeTag = new MetadataMutation.Remove(DS1, ImmutableSet.of(
+      new ScopedNameOfKind(MetadataKind.TAG, MetadataScope.USER, "t")));
+    MetadataMutation update = new MetadataMutation.Update(DS1, new Metadata(MetadataScope.USER, ImmutableSet.of("t")));
+    MetadataMutation drop = new MetadataMutation.Drop(DS2);
+    batch.add(create);
+    batch.add(drop);
+    batch.add(removeTag);
+    batch.add(update);
+
+    // mutations of the same entity that cannot be coalesced are applied in order, in separate batches
+    RecordingMetadataStorage storage = new RecordingMetadataStorage();
+    Assert.assertEquals(4, batch.apply(storage, MutationOptions.DEFAULT));
+    Assert.assertEquals(ImmutableList.of(ImmutableList.of(create, drop), ImmutableList.of(removeTag),
+                                         ImmutableList.of(update)), storage.batches);
+  }
+
+  @Test
+  public void testDropSupersedes() throws IOException {
+    MetadataMutationBatch batch = new MetadataMutationBatch();
+    batch.add(new MetadataMutation.Create(
+      DS1, new Metadata(MetadataScope.SYSTEM, ImmutableMap.of("k", "v")), Collections.emptyMap()));
+    batch.add(new MetadataMutation.Update(DS1, new Metadata(MetadataScope.USER, ImmutableSet.of("t"))));
+    batch.add(new MetadataMutation.Drop(DS1));
+    MetadataMutation update = new MetadataMutation.Update(DS1, new Metadata(MetadataScope.USER,
+                                                                            ImmutableSet.of("t2")));
+    batch.add(update);
+
+    RecordingMetadataStorage storage = new RecordingMetadataStorage();
+    Assert.assertEquals(2, batch.apply(storage, MutationOptions.DEFAULT));
+    Assert.assertEquals(ImmutableList.of(ImmutableList.of(new MetadataMutation.Drop(DS1)), ImmutableList.of(update)),
+                        storage.batches);
+  }
+
+  /**
+   * A {@link NoopMetadataStorage} that records the batches of mutations applied.
+   */
+  private static final class RecordingMetadataStorage extends NoopMetadataStorage {
+
+    private final List<List<MetadataMutation>> batches = new ArrayList<>();
+
+    @Override
+    public List<MetadataChange> batch(List<? extends MetadataMutation> mutations, MutationOptions options) {
+      batches.add(new ArrayList<>(mutations));
+      return super.batch(mutations, options);
+    }
+  }
+}
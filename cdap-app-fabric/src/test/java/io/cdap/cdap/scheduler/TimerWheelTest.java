@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.scheduler;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+
+/**
+ * Unit tests for {@link TimerWheel}.
+ */
+public class TimerWheelTest {
+
+  @Test
+  public void testAdvance() {
+    TimerWheel<String> wheel = new TimerWheel<>(100, 8, 1000);
+    wheel.schedule("a", 1050);
+    wheel.schedule("b", 1200);
+    wheel.schedule("c", 1200);
+    Assert.assertEquals(3, wheel.size());
+    // Due times are rounded up to the tick
+    Assert.assertEquals(1100, wheel.getNextDueTime());
+
+    // Keys never expire before the due time
+    Assert.assertEquals(Collections.emptyList(), wheel.advance(1099));
+    Assert.assertEquals(Collections.singletonList("a"), wheel.advance(1100));
+    Assert.assertEquals(1200, wheel.getNextDueTime());
+    Assert.assertEquals(ImmutableSet.of("b", "c"), new HashSet<>(wheel.advance(1250)));
+    Assert.assertEquals(0, wheel.size());
+    Assert.assertEquals(Long.MAX_VALUE, wheel.getNextDueTime());
+
+    // Going back in time has no effect
+    Assert.assertEquals(Collections.emptyList(), wheel.advance(1000));
+
+    // Due time in the past is due at the next tick
+    wheel.schedule("d", 0);
+    Assert.assertEquals(1300, wheel.getNextDueTime());
+    Assert.assertEquals(Collections.emptyList(), wheel.advance(1299));
+    Assert.assertEquals(Collections.singletonList("d"), wheel.advance(1300));
+  }
+
+  @Test
+  public void testMultipleRounds() {
+    TimerWheel<String> wheel = new TimerWheel<>(100, 4, 0);
+    // Both keys are in the same bucket, but in different rounds
+    wheel.schedule("a", 100);
+    wheel.schedule("b", 500);
+
+    Assert.assertEquals(Collections.singletonList("a"), wheel.advance(400));
+    Assert.assertTrue(wheel.contains("b"));
+    Assert.assertEquals(Collections.singletonList("b"), wheel.advance(500));
+
+    // Advancing more than one round should expire everything that is due
+    wheel.schedule("c", 700);
+    wheel.schedule("d", 1800);
+    wheel.schedule("e", 10000);
+    Assert.assertEquals(ImmutableSet.of("c", "d"), new HashSet<>(wheel.advance(5000)));
+    // The next due time is not bound to the next tick or round
+    Assert.assertEquals(10000, wheel.getNextDueTime());
+    Assert.assertEquals(Collections.singletonList("e"), wheel.advance(10000));
+  }
+
+  @Test
+  public void testReschedule() {
+    TimerWheel<String> wheel = new TimerWheel<>(100, 8, 0);
+    wheel.schedule("a", 200);
+    wheel.schedule("a", 600);
+    Assert.assertEquals(1, wheel.size());
+    Assert.assertEquals(600, wheel.getNextDueTime());
+    Assert.assertEquals(Collections.emptyList(), wheel.advance(500));
+    Assert.assertEquals(Collections.singletonList("a"), wheel.advance(600));
+
+    wheel.schedule("b", 800);
+    Assert.assertTrue(wheel.cancel("b"));
+    Assert.assertFalse(wheel.cancel("b"));
+    Assert.assertFalse(wheel.contains("b"));
+    Assert.assertEquals(Long.MAX_VALUE, wheel.getNextDueTime());
+    Assert.assertEquals(Collections.emptyList(), wheel.advance(1000));
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.datastreams;
+
+import io.cdap.cdap.api.metrics.Metrics;
+import io.cdap.cdap.etl.spark.streaming.StreamingBatchListener;
+import io.cdap.cdap.etl.spark.streaming.StreamingRateLimit;
+import org.apache.spark.SparkConf;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link StreamingBatchListener} that watches the processing time of completed batches and updates the
+ * {@link StreamingRateLimit} of the streaming sources with a {@link PIDRateEstimator}, so that the scheduling delay
+ * of batches stays below the batch interval when a stage slows down. The batch statistics and the rate decisions
+ * are emitted as metrics.
+ *
+ * The estimator uses the same configuration as the Spark backpressure of receivers.
+ */
+public class BatchRateController implements StreamingBatchListener {
+  private static final Logger LOG = LoggerFactory.getLogger(BatchRateController.class);
+
+  private final Metrics metrics;
+  private final StreamingRateLimit rateLimit;
+  private final PIDRateEstimator rateEstimator;
+  private final int numSources;
+
+  public BatchRateController(Metrics metrics, StreamingRateLimit rateLimit, SparkConf sparkConf,
+                             long batchIntervalMillis, int numSources) {
+    this.metrics = metrics;
+    this.rateLimit = rateLimit;
+    this.rateEstimator = new PIDRateEstimator(
+      batchIntervalMillis,
+      sparkConf.getDouble("spark.streaming.backpressure.pid.proportional", 1.0D),
+      sparkConf.getDouble("spark.streaming.backpressure.pid.integral", 0.2D),
+      sparkConf.getDouble("spark.streaming.backpressure.pid.derived", 0.0D),
+      sparkConf.getDouble("spark.streaming.backpressure.pid.minRate", 100D));
+    this.numSources = Math.max(1, numSources);
+
+    long initialRate = sparkConf.getLong("spark.streaming.backpressure.initialRate", Long.MAX_VALUE);
+    rateLimit.setMaxRecordsPerSecond(initialRate);
+  }
+
+  @Override
+  public void onBatchCompleted(long batchTime, long numRecords, long processingDelay, long schedulingDelay) {
+    metrics.gauge("batch.records", numRecords);
+    metrics.gauge("batch.processing.delay.ms", processingDelay);
+    metrics.gauge("batch.scheduling.delay.ms", schedulingDelay);
+
+    double rate = rateEstimator.compute(batchTime, numRecords, processingDelay, schedulingDelay);
+    if (rate < 0) {
+      return;
+    }
+    long maxRecordsPerSecond = Math.max(1L, (long) (rate / numSources));
+    LOG.trace("Limiting the rate of streaming sources to {} records per second after batch {}",
+              maxRecordsPerSecond, batchTime);
+    rateLimit.setMaxRecordsPerSecond(maxRecordsPerSecond);
+    metrics.gauge("batch.rate.limit", (long) rate);
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.datastreams;
+
+/**
+ * Estimates the rate at which records should be ingested so that batches are processed within the batch interval,
+ * using a proportional-integral-derivative controller on the processing rate of completed batches.
+ *
+ * The proportional term reacts to the difference between the current rate and the processing rate of the latest
+ * batch. The integral term accounts for the records accumulated in the scheduling delay of the latest batch,
+ * which lowers the rate until the backlog has been processed. The derivative term reacts to changes of the error.
+ * This class is not thread safe.
+ */
+final class PIDRateEstimator {
+
+  private final long batchIntervalMillis;
+  private final double proportional;
+  private final double integral;
+  private final double derivative;
+  private final double minRate;
+
+  private boolean firstRun = true;
+  private long latestTime = -1L;
+  private double latestRate = -1D;
+  private double latestError = -1D;
+
+  PIDRateEstimator(long batchIntervalMillis, double proportional, double integral, double derivative,
+                   double minRate) {
+    if (batchIntervalMillis <= 0 || proportional < 0 || integral < 0 || derivative < 0 || minRate <= 0) {
+      throw new IllegalArgumentException(
+        String.format("Invalid rate estimator parameters: batchInterval=%d, proportional=%f, integral=%f, " +
+                        "derivative=%f, minRate=%f", batchIntervalMillis, proportional, integral, derivative, minRate));
+    }
+    this.batchIntervalMillis = batchIntervalMillis;
+    this.proportional = proportional;
+    this.integral = integral;
+    this.derivative = derivative;
+    this.minRate = minRate;
+  }
+
+  /**
+   * Computes the rate from a completed batch.
+   *
+   * @param time the time of the batch in milliseconds
+   * @param numRecords the number of records in the batch
+   * @param processingDelay the time in milliseconds that it took to process the batch
+   * @param schedulingDelay the time in milliseconds that the batch waited before it was processed
+   * @return the new rate in records per second, or {@code -1} if the batch does not give a new estimate
+   */
+  double compute(long time, long numRecords, long processingDelay, long schedulingDelay) {
+    if (time <= latestTime || numRecords <= 0 || processingDelay <= 0) {
+      return -1D;
+    }
+
+    double delaySinceUpdate = (time - latestTime) / 1000D;
+    double processingRate = numRecords * 1000D / processingDelay;
+    double error = latestRate - processingRate;
+    // the number of records that accumulated during the scheduling delay, relative to the batch interval
+    double historicalError = schedulingDelay * processingRate / batchIntervalMillis;
+    double errorChange = (error - latestError) / delaySinceUpdate;
+
+    latestTime = time;
+    if (firstRun) {
+      // there is no previous rate or error to correct on the first batch
+      firstRun = false;
+      latestRate = processingRate;
+      latestError = 0D;
+      return -1D;
+    }
+
+    double newRate = Math.max(latestRate - proportional * error - integral * historicalError
+                                - derivative * errorChange, minRate);
+    latestRate = newRate;
+    latestError = error;
+    return newRate;
+  }
+}
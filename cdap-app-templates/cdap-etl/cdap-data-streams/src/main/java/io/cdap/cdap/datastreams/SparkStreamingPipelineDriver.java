@@ -45,11 +45,13 @@ import io.cdap.cdap.etl.common.PipelinePhase;
 import io.cdap.cdap.etl.common.plugin.PipelinePluginContext;
 import io.cdap.cdap.etl.proto.v2.spec.StageSpec;
 import io.cdap.cdap.etl.spark.StreamingCompat;
+import io.cdap.cdap.etl.spark.streaming.StreamingRateLimit;
 import io.cdap.cdap.internal.io.SchemaTypeAdapter;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.spark.SparkConf;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.api.java.function.Function0;
 import org.apache.spark.streaming.Durations;
@@ -164,6 +166,16 @@ public class SparkStreamingPipelineDriver implements JavaSparkMain {
     }
 
     JavaStreamingContext jssc = run(pipelineSpec, pipelinePhase, sec, checkpointDir, context);
+    SparkConf sparkConf = jssc.sparkContext().getConf();
+    StreamingRateLimit rateLimit = new StreamingRateLimit(sec.getNamespace(),
+                                                          sec.getApplicationSpecification().getName());
+    if (sparkConf.getBoolean(Constants.SPARK_PIPELINE_RATE_CONTROL_ENABLE_FLAG, false)) {
+      // the listener is not part of the checkpoint, so it is added even if the context is restored from the checkpoint
+      int numSources = pipelinePhase.getStagesOfType(StreamingSource.PLUGIN_TYPE).size();
+      StreamingCompat.addBatchListener(jssc, new BatchRateController(sec.getMetrics(), rateLimit, sparkConf,
+                                                                     pipelineSpec.getBatchIntervalMillis(),
+                                                                     numSources));
+    }
     jssc.start();
 
     boolean stopped = false;
@@ -176,6 +188,7 @@ public class SparkStreamingPipelineDriver implements JavaSparkMain {
       if (!stopped) {
         jssc.stop(true, pipelineSpec.isStopGracefully());
       }
+      rateLimit.clear();
     }
 
   }
@@ -203,6 +216,12 @@ public class SparkStreamingPipelineDriver implements JavaSparkMain {
       PipelinePluginContext pluginContext = new PipelinePluginContext(sec.getPluginContext(), sec.getMetrics(),
                                                                       pipelineSpec.isStageLoggingEnabled(),
                                                                       pipelineSpec.isProcessTimingEnabled());
+      // set the checkpoint directory before the pipeline is run, since stateful stages like incremental
+      // aggregations are only used if there is a checkpoint directory to store their state
+      if (checkpointDir != null) {
+        jssc.checkpoint(checkpointDir);
+        jssc.sparkContext().hadoopConfiguration().set("fs.defaultFS", checkpointDir);
+      }
       // TODO: figure out how to get partitions to use for aggregators and joiners.
       // Seems like they should be set at configure time instead of runtime? but that requires an API change.
       try {
@@ -211,10 +230,6 @@ public class SparkStreamingPipelineDriver implements JavaSparkMain {
       } catch (Exception e) {
         throw new RuntimeException(e);
       }
-      if (checkpointDir != null) {
-        jssc.checkpoint(checkpointDir);
-        jssc.sparkContext().hadoopConfiguration().set("fs.defaultFS", checkpointDir);
-      }
       return jssc;
     };
     return checkpointDir == null
@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.datastreams;
+
+import io.cdap.cdap.etl.mock.common.MockMetrics;
+import io.cdap.cdap.etl.spark.streaming.StreamingRateLimit;
+import org.apache.spark.SparkConf;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link BatchRateController}.
+ */
+public class BatchRateControllerTest {
+
+  private final StreamingRateLimit rateLimit = new StreamingRateLimit("default", "pipeline");
+
+  @After
+  public void resetRateLimit() {
+    rateLimit.clear();
+  }
+
+  @Test
+  public void testRateAdjustments() {
+    SparkConf sparkConf = new SparkConf(false).set("spark.streaming.backpressure.initialRate", "5000");
+    MockMetrics metrics = new MockMetrics();
+    BatchRateController controller = new BatchRateController(metrics, rateLimit, sparkConf, 1000L, 2);
+    Assert.assertEquals(5000L, rateLimit.getMaxRecordsPerSecond());
+
+    // the first batch only gives the processing rate, the initial rate is kept
+    controller.onBatchCompleted(1000L, 1000L, 500L, 0L);
+    Assert.assertEquals(5000L, rateLimit.getMaxRecordsPerSecond());
+    Assert.assertEquals(1000L, metrics.getGauge("batch.records"));
+    Assert.assertEquals(500L, metrics.getGauge("batch.processing.delay.ms"));
+
+    // processing slowed down to 1000 records per second, which is split across the two sources
+    controller.onBatchCompleted(2000L, 1000L, 1000L, 0L);
+    Assert.assertEquals(500L, rateLimit.getMaxRecordsPerSecond());
+    Assert.assertEquals(1000L, metrics.getGauge("batch.rate.limit"));
+
+    // batches are delayed, the rate is lowered further to process the backlog
+    controller.onBatchCompleted(3000L, 1000L, 1000L, 500L);
+    Assert.assertEquals(450L, rateLimit.getMaxRecordsPerSecond());
+    Assert.assertEquals(900L, metrics.getGauge("batch.rate.limit"));
+    Assert.assertEquals(500L, metrics.getGauge("batch.scheduling.delay.ms"));
+
+    // empty batches don't change the rate
+    controller.onBatchCompleted(4000L, 0L, 10L, 0L);
+    Assert.assertEquals(450L, rateLimit.getMaxRecordsPerSecond());
+    Assert.assertEquals(0L, metrics.getGauge("batch.records"));
+
+    // the rate never goes below the minimum rate
+    controller.onBatchCompleted(5000L, 10L, 1000L, 10000L);
+    Assert.assertEquals(50L, rateLimit.getMaxRecordsPerSecond());
+    Assert.assertEquals(100L, metrics.getGauge("batch.rate.limit"));
+  }
+
+  @Test
+  public void testUnlimitedWithoutInitialRate() {
+    rateLimit.setMaxRecordsPerSecond(10L);
+    new BatchRateController(new MockMetrics(), rateLimit, new SparkConf(false), 1000L, 1);
+    Assert.assertEquals(Long.MAX_VALUE, new StreamingRateLimit("default", "pipeline").getMaxRecordsPerSecond());
+  }
+
+  @Test
+  public void testRatePerPipeline() {
+    StreamingRateLimit otherRateLimit = new StreamingRateLimit("default", "otherPipeline");
+    SparkConf sparkConf = new SparkConf(false).set("spark.streaming.backpressure.initialRate", "5000");
+    new BatchRateController(new MockMetrics(), rateLimit, sparkConf, 1000L, 1);
+    Assert.assertEquals(5000L, rateLimit.getMaxRecordsPerSecond());
+    Assert.assertEquals(Long.MAX_VALUE, otherRateLimit.getMaxRecordsPerSecond());
+
+    // the rate of a stopped pipeline is removed
+    rateLimit.clear();
+    Assert.assertEquals(Long.MAX_VALUE, new StreamingRateLimit("default", "pipeline").getMaxRecordsPerSecond());
+  }
+}
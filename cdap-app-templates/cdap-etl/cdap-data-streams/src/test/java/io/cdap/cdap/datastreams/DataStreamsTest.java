@@ -40,6 +40,7 @@ import io.cdap.cdap.etl.mock.alert.NullAlertTransform;
 import io.cdap.cdap.etl.mock.alert.TMSAlertPublisher;
 import io.cdap.cdap.etl.mock.batch.MockSink;
 import io.cdap.cdap.etl.mock.batch.aggregator.FieldCountAggregator;
+import io.cdap.cdap.etl.mock.batch.aggregator.FieldCountReducibleAggregator;
 import io.cdap.cdap.etl.mock.batch.aggregator.GroupFilterAggregator;
 import io.cdap.cdap.etl.mock.batch.joiner.DupeFlagger;
 import io.cdap.cdap.etl.mock.batch.joiner.MockJoiner;
@@ -87,6 +88,7 @@ import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  *
@@ -578,6 +580,95 @@ public class DataStreamsTest extends HydratorTestBase {
     validateMetric(appId, "sink2.records.in", 5);
   }
 
+  @Test
+  public void testIncrementalAggregator() throws Exception {
+    String sink1Name = "groupedAggOutput";
+    String sink2Name = "reducedAggOutput";
+
+    Schema inputSchema = Schema.recordOf(
+      "testRecord",
+      Schema.Field.of("user", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("item", Schema.of(Schema.Type.LONG))
+    );
+
+    List<StructuredRecord> input1 = ImmutableList.of(
+      StructuredRecord.builder(inputSchema).set("user", "samuel").set("item", 1L).build(),
+      StructuredRecord.builder(inputSchema).set("user", "samuel").set("item", 2L).build());
+
+    List<StructuredRecord> input2 = ImmutableList.of(
+      StructuredRecord.builder(inputSchema).set("user", "samuel").set("item", 3L).build(),
+      StructuredRecord.builder(inputSchema).set("user", "john").set("item", 4L).build(),
+      StructuredRecord.builder(inputSchema).set("user", "john").set("item", 3L).build());
+
+    /*
+       source1 --|--> grouped agg --> sink1
+                 |
+       source2 --|--> reduced agg --> sink2
+
+       The reduced aggregator is a ReducibleAggregator, so with incremental aggregation enabled it goes through
+       combineByKey and mapWithState instead of groupByKey. Both should output the same counts.
+     */
+    DataStreamsConfig pipelineConfig = DataStreamsConfig.builder()
+      .setBatchInterval("5s")
+      .addStage(new ETLStage("source1", MockSource.getPlugin(inputSchema, input1)))
+      .addStage(new ETLStage("source2", MockSource.getPlugin(inputSchema, input2)))
+      .addStage(new ETLStage("sink1", MockSink.getPlugin(sink1Name)))
+      .addStage(new ETLStage("sink2", MockSink.getPlugin(sink2Name)))
+      .addStage(new ETLStage("agg1", FieldCountAggregator.getPlugin("user", "string")))
+      .addStage(new ETLStage("agg2", FieldCountReducibleAggregator.getPlugin("user", "string")))
+      .addConnection("source1", "agg1")
+      .addConnection("source1", "agg2")
+      .addConnection("source2", "agg1")
+      .addConnection("source2", "agg2")
+      .addConnection("agg1", "sink1")
+      .addConnection("agg2", "sink2")
+      .setCheckpointDir(checkpointDir)
+      .setProperties(ImmutableMap.of(
+        io.cdap.cdap.etl.common.Constants.SPARK_PIPELINE_INCREMENTAL_AGGREGATE_ENABLE_FLAG, "true"))
+      .build();
+
+    AppRequest<DataStreamsConfig> appRequest = new AppRequest<>(APP_ARTIFACT, pipelineConfig);
+    ApplicationId appId = NamespaceId.DEFAULT.app("IncrementalAggApp");
+    ApplicationManager appManager = deployApplication(appId, appRequest);
+
+    SparkManager sparkManager = appManager.getSparkManager(DataStreamsSparkLauncher.NAME);
+    sparkManager.start();
+    sparkManager.waitForRun(ProgramRunStatus.RUNNING, 10, TimeUnit.SECONDS);
+
+    Schema outputSchema = Schema.recordOf(
+      "user.count",
+      Schema.Field.of("user", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("ct", Schema.of(Schema.Type.LONG))
+    );
+    Set<StructuredRecord> expected = ImmutableSet.of(
+      StructuredRecord.builder(outputSchema).set("user", "all").set("ct", 5L).build(),
+      StructuredRecord.builder(outputSchema).set("user", "samuel").set("ct", 3L).build(),
+      StructuredRecord.builder(outputSchema).set("user", "john").set("ct", 2L).build());
+
+    // check that both aggregators output the same records
+    DataSetManager<Table> sinkManager1 = getDataset(sink1Name);
+    DataSetManager<Table> sinkManager2 = getDataset(sink2Name);
+    Tasks.waitFor(
+      true,
+      () -> {
+        sinkManager1.flush();
+        sinkManager2.flush();
+        Set<StructuredRecord> groupedRecords = new HashSet<>(MockSink.readOutput(sinkManager1));
+        Set<StructuredRecord> reducedRecords = new HashSet<>(MockSink.readOutput(sinkManager2));
+        return expected.equals(groupedRecords) && expected.equals(reducedRecords);
+      },
+      1,
+      TimeUnit.MINUTES);
+
+    sparkManager.stop();
+    sparkManager.waitForStopped(10, TimeUnit.SECONDS);
+
+    validateMetric(appId, "agg1.records.in", 5);
+    validateMetric(appId, "agg1.records.out", 3);
+    validateMetric(appId, "agg2.records.in", 5);
+    validateMetric(appId, "agg2.records.out", 3);
+  }
+
   @Test
   public void testWindower() throws Exception {
     /*
@@ -603,6 +694,8 @@ public class DataStreamsTest extends HydratorTestBase {
       .addConnection("filter", "sink")
       .setBatchInterval("1s")
       .setCheckpointDir(checkpointDir)
+      // also run with the batch rate controller, which must be compatible with the Spark version
+      .setProperties(ImmutableMap.of(io.cdap.cdap.etl.common.Constants.SPARK_PIPELINE_RATE_CONTROL_ENABLE_FLAG, "true"))
       .build();
 
     AppRequest<DataStreamsConfig> appRequest = new AppRequest<>(APP_ARTIFACT, etlConfig);
@@ -640,6 +733,82 @@ public class DataStreamsTest extends HydratorTestBase {
     sparkManager.stop();
   }
 
+  @Test
+  public void testRateControl() throws Exception {
+    Schema schema = Schema.recordOf("data", Schema.Field.of("x", Schema.of(Schema.Type.INT)));
+    List<StructuredRecord> input = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      input.add(StructuredRecord.builder(schema).set("x", i).build());
+    }
+
+    // without an initial rate, the first batch reads all the records, which takes about 10 seconds to process.
+    // the batches created in the meantime wait for it.
+    long unlimitedDelay = getMaxSchedulingDelay("UnlimitedRateApp", schema, input, ImmutableMap.of(
+      io.cdap.cdap.etl.common.Constants.SPARK_PIPELINE_RATE_CONTROL_ENABLE_FLAG, "true"));
+
+    // with an initial rate, the batches only read about as many records as can be processed within the batch interval
+    long limitedDelay = getMaxSchedulingDelay("LimitedRateApp", schema, input, ImmutableMap.of(
+      io.cdap.cdap.etl.common.Constants.SPARK_PIPELINE_RATE_CONTROL_ENABLE_FLAG, "true",
+      "spark.streaming.backpressure.initialRate", "50",
+      "spark.streaming.backpressure.pid.minRate", "10"));
+
+    Assert.assertTrue(String.format("Scheduling delay of %d ms with rate control is not below the %d ms without",
+                                    limitedDelay, unlimitedDelay),
+                      limitedDelay < unlimitedDelay);
+  }
+
+  /**
+   * Runs a pipeline that reads the given records at the rate limit of the pipeline, and takes 10 milliseconds to
+   * process each record. Returns the maximum scheduling delay of the batches seen until all records are processed.
+   */
+  private long getMaxSchedulingDelay(String appName, Schema schema, List<StructuredRecord> input,
+                                     Map<String, String> properties) throws Exception {
+    String sinkName = appName + "Output";
+    DataStreamsConfig etlConfig = DataStreamsConfig.builder()
+      .addStage(new ETLStage("source", MockSource.getRateLimitedPlugin(schema, input)))
+      .addStage(new ETLStage("sleep", SleepTransform.getPlugin(10L)))
+      .addStage(new ETLStage("sink", MockSink.getPlugin(sinkName)))
+      .addConnection("source", "sleep")
+      .addConnection("sleep", "sink")
+      .setBatchInterval("1s")
+      .disableCheckpoints()
+      .setProperties(properties)
+      .build();
+
+    AppRequest<DataStreamsConfig> appRequest = new AppRequest<>(APP_ARTIFACT, etlConfig);
+    ApplicationId appId = NamespaceId.DEFAULT.app(appName);
+    ApplicationManager appManager = deployApplication(appId, appRequest);
+
+    SparkManager sparkManager = appManager.getSparkManager(DataStreamsSparkLauncher.NAME);
+    sparkManager.start();
+    sparkManager.waitForRun(ProgramRunStatus.RUNNING, 10, TimeUnit.SECONDS);
+
+    AtomicLong maxDelay = new AtomicLong();
+    DataSetManager<Table> outputManager = getDataset(sinkName);
+    Tasks.waitFor(
+      input.size(),
+      () -> {
+        maxDelay.accumulateAndGet(getMetric(appId, "batch.scheduling.delay.ms"), Math::max);
+        outputManager.flush();
+        return MockSink.readOutput(outputManager).size();
+      },
+      2,
+      TimeUnit.MINUTES,
+      100,
+      TimeUnit.MILLISECONDS);
+
+    // the batches that waited for the last records complete right after them
+    long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+    while (System.currentTimeMillis() < end) {
+      maxDelay.accumulateAndGet(getMetric(appId, "batch.scheduling.delay.ms"), Math::max);
+      TimeUnit.MILLISECONDS.sleep(100);
+    }
+
+    sparkManager.stop();
+    sparkManager.waitForStopped(10, TimeUnit.SECONDS);
+    return maxDelay.get();
+  }
+
   @Test
   public void testJoin() throws Exception {
     /*
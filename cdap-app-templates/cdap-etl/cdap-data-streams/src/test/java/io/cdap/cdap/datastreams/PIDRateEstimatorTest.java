@@ -0,0 +1,49 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.datastreams;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link PIDRateEstimator}.
+ */
+public class PIDRateEstimatorTest {
+
+  @Test
+  public void testCompute() {
+    PIDRateEstimator estimator = new PIDRateEstimator(1000L, 1.0D, 0.2D, 0.0D, 10D);
+
+    // no estimate from the first batch
+    Assert.assertEquals(-1D, estimator.compute(1000L, 1000L, 500L, 0L), 0D);
+    // processing slowed down, the rate follows the processing rate
+    Assert.assertEquals(1000D, estimator.compute(2000L, 1000L, 1000L, 0L), 0.001D);
+    // batches are delayed, the rate is lowered further to process the backlog
+    Assert.assertEquals(900D, estimator.compute(3000L, 1000L, 1000L, 500L), 0.001D);
+    // batches that are out of order, empty or not processed are ignored
+    Assert.assertEquals(-1D, estimator.compute(3000L, 1000L, 1000L, 0L), 0D);
+    Assert.assertEquals(-1D, estimator.compute(3500L, 0L, 1000L, 0L), 0D);
+    Assert.assertEquals(-1D, estimator.compute(3500L, 1000L, 0L, 0L), 0D);
+    // the rate is never lower than the minimum rate
+    Assert.assertEquals(10D, estimator.compute(4000L, 10L, 1000L, 10000L), 0.001D);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidParameters() {
+    new PIDRateEstimator(0L, 1.0D, 0.2D, 0.0D, 100D);
+  }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.etl.spark.function;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import io.cdap.cdap.api.preview.DataTracer;
+import io.cdap.cdap.etl.api.Emitter;
+import io.cdap.cdap.etl.api.ReducibleAggregator;
+import io.cdap.cdap.etl.api.StageMetrics;
+import io.cdap.cdap.etl.api.batch.BatchAggregator;
+import io.cdap.cdap.etl.common.DefaultEmitter;
+import io.cdap.cdap.etl.common.NoopStageStatisticsCollector;
+import io.cdap.cdap.etl.common.RecordInfo;
+import io.cdap.cdap.etl.common.RecordType;
+import io.cdap.cdap.etl.spark.streaming.function.AggregatorStateFunction;
+import org.apache.spark.streaming.State;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import scala.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Tests for the functions that run a {@link ReducibleAggregator} in Spark.
+ */
+public class ReducibleAggregatorFunctionsTest {
+  private static final String STAGE_NAME = "agg";
+
+  @Test
+  public void testReduce() throws Exception {
+    PluginFunctionContext context = createContext(new SumAggregator());
+    AggregatorInitializeFunction<Integer, Long> initializeFunction = new AggregatorInitializeFunction<>(context);
+    AggregatorMergeValueFunction<Integer, Long> mergeValueFunction = new AggregatorMergeValueFunction<>(context);
+    AggregatorMergePartitionFunction<Long> mergePartitionFunction = new AggregatorMergePartitionFunction<>(context);
+
+    // same sequence of calls as combineByKey, with values 1, 2 in one partition and 3, 4 in another
+    Long partition1 = mergeValueFunction.call(initializeFunction.call(1), 2);
+    Long partition2 = mergeValueFunction.call(initializeFunction.call(3), 4);
+    Assert.assertEquals(3L, (long) partition1);
+    Assert.assertEquals(7L, (long) partition2);
+    Assert.assertEquals(10L, (long) mergePartitionFunction.call(partition1, partition2));
+  }
+
+  @Test
+  public void testFinalize() throws Exception {
+    PluginFunctionContext context = createContext(new SumAggregator());
+    AggregatorFinalizeFunction<String, Long, String> finalizeFunction = new AggregatorFinalizeFunction<>(context);
+
+    List<RecordInfo<Object>> output = ImmutableList.copyOf(finalizeFunction.call(new Tuple2<>("a", 10L)));
+    Assert.assertEquals(1, output.size());
+    Assert.assertEquals("a=10", output.get(0).getValue());
+    Assert.assertEquals(STAGE_NAME, output.get(0).getFromStage());
+    Assert.assertEquals(RecordType.OUTPUT, output.get(0).getType());
+
+    // output of a previous group should not be emitted again
+    output = ImmutableList.copyOf(finalizeFunction.call(new Tuple2<>("b", 5L)));
+    Assert.assertEquals(1, output.size());
+    Assert.assertEquals("b=5", output.get(0).getValue());
+  }
+
+  @Test
+  public void testStateMerge() throws Exception {
+    PluginFunctionContext context = createContext(new SumAggregator());
+    AggregatorStateFunction<String, Long> stateFunction = new AggregatorStateFunction<>(context);
+    TestState<Long> state = new TestState<>();
+
+    // first batch for the group initializes the state
+    Assert.assertEquals(new Tuple2<>("a", 3L), stateFunction.call("a", Optional.of(3L), state));
+    Assert.assertEquals(3L, (long) state.get());
+
+    // later batches are merged into the state
+    Assert.assertEquals(new Tuple2<>("a", 7L), stateFunction.call("a", Optional.of(4L), state));
+    Assert.assertEquals(7L, (long) state.get());
+  }
+
+  @Test
+  public void testStateTimeout() throws Exception {
+    PluginFunctionContext context = createContext(new SumAggregator());
+    AggregatorStateFunction<String, Long> stateFunction = new AggregatorStateFunction<>(context);
+    TestState<Long> state = new TestState<>();
+    state.update(5L);
+    state.timingOut = true;
+
+    // nothing is emitted for a group whose state times out, and the state is not updated
+    Assert.assertNull(stateFunction.call("a", Optional.<Long>absent(), state));
+    Assert.assertEquals(5L, (long) state.get());
+    Assert.assertEquals(1, state.updates);
+  }
+
+  @Test
+  public void testReduceMatchesAggregate() throws Exception {
+    List<Integer> values = ImmutableList.of(1, 2, 3, 4, 5);
+    SumAggregator aggregator = new SumAggregator();
+    PluginFunctionContext context = createContext(aggregator);
+    AggregatorInitializeFunction<Integer, Long> initializeFunction = new AggregatorInitializeFunction<>(context);
+    AggregatorMergeValueFunction<Integer, Long> mergeValueFunction = new AggregatorMergeValueFunction<>(context);
+    AggregatorMergePartitionFunction<Long> mergePartitionFunction = new AggregatorMergePartitionFunction<>(context);
+    AggregatorStateFunction<String, Long> stateFunction = new AggregatorStateFunction<>(context);
+    AggregatorFinalizeFunction<String, Long, String> finalizeFunction = new AggregatorFinalizeFunction<>(context);
+
+    // reduce the values in two batches, with the first batch split across two partitions
+    Long batch1 = mergePartitionFunction.call(mergeValueFunction.call(initializeFunction.call(1), 2),
+                                              initializeFunction.call(3));
+    Long batch2 = mergeValueFunction.call(initializeFunction.call(4), 5);
+    TestState<Long> state = new TestState<>();
+    stateFunction.call("a", Optional.of(batch1), state);
+    Tuple2<String, Long> merged = stateFunction.call("a", Optional.of(batch2), state);
+
+    List<Object> reduced = new ArrayList<>();
+    for (RecordInfo<Object> recordInfo : finalizeFunction.call(merged)) {
+      reduced.add(recordInfo.getValue());
+    }
+    DefaultEmitter<String> aggregated = new DefaultEmitter<>();
+    aggregator.aggregate("a", values.iterator(), aggregated);
+    Assert.assertEquals(ImmutableList.of("a=15"), reduced);
+    Assert.assertEquals(ImmutableList.copyOf(aggregated.getEntries()), reduced);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testNotReducible() throws Exception {
+    PluginFunctionContext context = createContext(new CountAggregator());
+    new AggregatorInitializeFunction<Integer, Long>(context).call(1);
+  }
+
+  private static PluginFunctionContext createContext(BatchAggregator<?, ?, ?> aggregator) throws Exception {
+    PluginFunctionContext context = Mockito.mock(PluginFunctionContext.class);
+    Mockito.doReturn(aggregator).when(context).createPlugin();
+    Mockito.when(context.getStageName()).thenReturn(STAGE_NAME);
+    Mockito.when(context.createStageMetrics()).thenReturn(Mockito.mock(StageMetrics.class));
+    Mockito.when(context.getDataTracer()).thenReturn(Mockito.mock(DataTracer.class));
+    Mockito.when(context.getStageStatisticsCollector()).thenReturn(new NoopStageStatisticsCollector());
+    return context;
+  }
+
+  /**
+   * Sums the values of each group.
+   */
+  private static class SumAggregator extends BatchAggregator<String, Integer, String>
+    implements ReducibleAggregator<String, Integer, Long, String> {
+
+    @Override
+    public void groupBy(Integer groupValue, Emitter<String> emitter) {
+      emitter.emit(String.valueOf(groupValue % 2));
+    }
+
+    @Override
+    public Long initializeAggregateValue(Integer groupValue) {
+      return (long) groupValue;
+    }
+
+    @Override
+    public Long mergeValues(Long aggValue, Integer groupValue) {
+      return aggValue + groupValue;
+    }
+
+    @Override
+    public Long mergePartitions(Long value1, Long value2) {
+      return value1 + value2;
+    }
+
+    @Override
+    public void finalize(String groupKey, Long aggValue, Emitter<String> emitter) {
+      emitter.emit(groupKey + "=" + aggValue);
+    }
+  }
+
+  /**
+   * Counts the values of each group, without being a {@link ReducibleAggregator}.
+   */
+  private static class CountAggregator extends BatchAggregator<String, Integer, String> {
+
+    @Override
+    public void groupBy(Integer groupValue, Emitter<String> emitter) {
+      emitter.emit(String.valueOf(groupValue % 2));
+    }
+
+    @Override
+    public void aggregate(String groupKey, Iterator<Integer> groupValues, Emitter<String> emitter) {
+      int count = 0;
+      while (groupValues.hasNext()) {
+        groupValues.next();
+        count++;
+      }
+      emitter.emit(groupKey + "=" + count);
+    }
+  }
+
+  /**
+   * State of a single group, as kept by mapWithState.
+   *
+   * @param <S> type of state
+   */
+  private static final class TestState<S> extends State<S> {
+    private S value;
+    private boolean timingOut;
+    private int updates;
+
+    @Override
+    public boolean exists() {
+      return value != null;
+    }
+
+    @Override
+    public S get() {
+      return value;
+    }
+
+    @Override
+    public void update(S newState) {
+      value = newState;
+      updates++;
+    }
+
+    @Override
+    public void remove() {
+      value = null;
+    }
+
+    @Override
+    public boolean isTimingOut() {
+      return timingOut;
+    }
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.api.streaming;
+
+import io.cdap.cdap.api.annotation.Beta;
+
+import java.io.Serializable;
+
+/**
+ * The maximum rate at which a {@link StreamingSource} should ingest records, estimated from the processing time
+ * of the previous batches of the pipeline so that each batch can be processed within the batch interval.
+ * The rate can change from batch to batch, so sources that decide how many records to read for a batch should
+ * read the rate each time a batch is created. The rate is only available in the Spark driver.
+ *
+ * The rate is only estimated if the pipeline sets the {@code spark.cdap.pipeline.ratecontrol.enable} property to
+ * {@code true}, otherwise it is not limited.
+ */
+@Beta
+public interface RateLimit extends Serializable {
+
+  /**
+   * A rate limit that never limits the rate.
+   */
+  RateLimit UNLIMITED = new RateLimit() {
+    @Override
+    public long getMaxRecordsPerSecond() {
+      return Long.MAX_VALUE;
+    }
+  };
+
+  /**
+   * @return the maximum number of records per second that the source should ingest, or {@link Long#MAX_VALUE}
+   *         if the rate is not limited
+   */
+  long getMaxRecordsPerSecond();
+}
@@ -41,6 +41,13 @@ public interface StreamingContext extends StageContext, Transactional {
    */
   JavaSparkExecutionContext getSparkExecutionContext();
 
+  /**
+   * @return the {@link RateLimit} that the streaming source of this stage should respect when ingesting records
+   */
+  default RateLimit getRateLimit() {
+    return RateLimit.UNLIMITED;
+  }
+
   /**
    * Register dataset lineage for this Spark program using the given reference name
    *
@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.api;
+
+import io.cdap.cdap.api.annotation.Beta;
+
+import java.util.Iterator;
+
+/**
+ * An {@link Aggregator} whose aggregation can be computed by reducing the group values one at a time into an
+ * aggregate value, and by merging aggregate values computed separately. This allows the aggregation to be
+ * computed partially before the values are shuffled, and to be computed incrementally across multiple batches
+ * of data in streaming pipelines.
+ *
+ * If the aggregator is being used in spark, the aggregate value must implement the {@link java.io.Serializable}
+ * interface, in addition to the group key and value.
+ *
+ * @param <GROUP_KEY> Type of group key
+ * @param <GROUP_VALUE> Type of values to group
+ * @param <AGG_VALUE> Type of the aggregate value
+ * @param <OUT> Type of output object
+ */
+@Beta
+public interface ReducibleAggregator<GROUP_KEY, GROUP_VALUE, AGG_VALUE, OUT>
+  extends Aggregator<GROUP_KEY, GROUP_VALUE, OUT> {
+
+  /**
+   * Create the aggregate value for the first value of a group.
+   *
+   * @param groupValue the first value of a group
+   * @return the aggregate value that only contains the given value
+   * @throws Exception if there is some error creating the aggregate value
+   */
+  AGG_VALUE initializeAggregateValue(GROUP_VALUE groupValue) throws Exception;
+
+  /**
+   * Merge a value of a group into the aggregate value of the group. The given aggregate value can be modified
+   * and returned.
+   *
+   * @param aggValue the aggregate value of the group
+   * @param groupValue the value to merge
+   * @return the aggregate value that contains the given value
+   * @throws Exception if there is some error merging the value
+   */
+  AGG_VALUE mergeValues(AGG_VALUE aggValue, GROUP_VALUE groupValue) throws Exception;
+
+  /**
+   * Merge two aggregate values of the same group that were computed separately. The first aggregate value
+   * can be modified and returned.
+   *
+   * @param value1 the first aggregate value
+   * @param value2 the second aggregate value
+   * @return the aggregate value that contains the values of both aggregate values
+   * @throws Exception if there is some error merging the aggregate values
+   */
+  AGG_VALUE mergePartitions(AGG_VALUE value1, AGG_VALUE value2) throws Exception;
+
+  /**
+   * Emit zero or more output objects for the aggregate value of a group.
+   *
+   * @param groupKey the key for the group
+   * @param aggValue the aggregate value of the group
+   * @param emitter the emitter to emit aggregate values for the group
+   * @throws Exception if there is some error emitting the output
+   */
+  void finalize(GROUP_KEY groupKey, AGG_VALUE aggValue, Emitter<OUT> emitter) throws Exception;
+
+  /**
+   * Aggregate all objects in the same group by reducing them into an aggregate value, then emitting the
+   * output for the aggregate value.
+   *
+   * @param groupKey the key for the group
+   * @param groupValues an iterator over all input objects that have the same group key
+   * @param emitter the emitter to emit aggregate values for the group
+   * @throws Exception if there is some error aggregating
+   */
+  @Override
+  default void aggregate(GROUP_KEY groupKey, Iterator<GROUP_VALUE> groupValues,
+                         Emitter<OUT> emitter) throws Exception {
+    if (!groupValues.hasNext()) {
+      return;
+    }
+    AGG_VALUE aggValue = initializeAggregateValue(groupValues.next());
+    while (groupValues.hasNext()) {
+      aggValue = mergeValues(aggValue, groupValues.next());
+    }
+    finalize(groupKey, aggValue, emitter);
+  }
+}
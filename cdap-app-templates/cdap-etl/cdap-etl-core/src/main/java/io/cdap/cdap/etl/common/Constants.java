@@ -33,6 +33,12 @@ public final class Constants {
   public static final String SPARK_PIPELINE_AUTOCACHE_ENABLE_FLAG = "spark.cdap.pipeline.autocache.enable";
   public static final String SPARK_PIPELINE_CACHING_STORAGE_LEVEL = "spark.cdap.pipeline.caching.storage.level";
   public static final String DEFAULT_CACHING_STORAGE_LEVEL = "MEMORY_AND_DISK"; 
+  public static final String SPARK_PIPELINE_INCREMENTAL_AGGREGATE_ENABLE_FLAG =
+    "spark.cdap.pipeline.aggregate.incremental.enable";
+  public static final String SPARK_PIPELINE_AGGREGATE_STATE_TTL_SECONDS =
+    "spark.cdap.pipeline.aggregate.state.ttl.seconds";
+  public static final long DEFAULT_AGGREGATE_STATE_TTL_SECONDS = 3600L;
+  public static final String SPARK_PIPELINE_RATE_CONTROL_ENABLE_FLAG = "spark.cdap.pipeline.ratecontrol.enable";
 
   private Constants() {
     throw new AssertionError("Suppress default constructor for noninstantiability");
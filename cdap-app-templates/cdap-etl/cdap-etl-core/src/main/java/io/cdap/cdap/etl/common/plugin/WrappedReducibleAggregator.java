@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.etl.common.plugin;
+
+import io.cdap.cdap.etl.api.Emitter;
+import io.cdap.cdap.etl.api.ReducibleAggregator;
+import io.cdap.cdap.etl.api.batch.BatchAggregator;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Wrapper around a {@link BatchAggregator} that is also a {@link ReducibleAggregator}. It makes sure logging,
+ * classloading, and other pipeline capabilities are setup correctly, while keeping the wrapped plugin
+ * recognizable as a {@link ReducibleAggregator}.
+ *
+ * @param <GROUP_KEY> group key type. Must be a supported type
+ * @param <GROUP_VALUE> group value type. Must be a supported type
+ * @param <AGG_VALUE> aggregate value type
+ * @param <OUT> output object type
+ */
+public class WrappedReducibleAggregator<GROUP_KEY, GROUP_VALUE, AGG_VALUE, OUT>
+  extends WrappedBatchAggregator<GROUP_KEY, GROUP_VALUE, OUT>
+  implements ReducibleAggregator<GROUP_KEY, GROUP_VALUE, AGG_VALUE, OUT> {
+  private final ReducibleAggregator<GROUP_KEY, GROUP_VALUE, AGG_VALUE, OUT> aggregator;
+  private final Caller caller;
+  private final OperationTimer operationTimer;
+
+  @SuppressWarnings("unchecked")
+  public WrappedReducibleAggregator(BatchAggregator<GROUP_KEY, GROUP_VALUE, OUT> aggregator, Caller caller,
+                                    OperationTimer operationTimer) {
+    super(aggregator, caller, operationTimer);
+    this.aggregator = (ReducibleAggregator<GROUP_KEY, GROUP_VALUE, AGG_VALUE, OUT>) aggregator;
+    this.caller = caller;
+    this.operationTimer = operationTimer;
+  }
+
+  @Override
+  public AGG_VALUE initializeAggregateValue(GROUP_VALUE groupValue) throws Exception {
+    operationTimer.start();
+    try {
+      return caller.call(() -> aggregator.initializeAggregateValue(groupValue));
+    } finally {
+      operationTimer.reset();
+    }
+  }
+
+  @Override
+  public AGG_VALUE mergeValues(AGG_VALUE aggValue, GROUP_VALUE groupValue) throws Exception {
+    operationTimer.start();
+    try {
+      return caller.call(() -> aggregator.mergeValues(aggValue, groupValue));
+    } finally {
+      operationTimer.reset();
+    }
+  }
+
+  @Override
+  public AGG_VALUE mergePartitions(AGG_VALUE value1, AGG_VALUE value2) throws Exception {
+    operationTimer.start();
+    try {
+      return caller.call(() -> aggregator.mergePartitions(value1, value2));
+    } finally {
+      operationTimer.reset();
+    }
+  }
+
+  @Override
+  public void finalize(GROUP_KEY groupKey, AGG_VALUE aggValue, Emitter<OUT> emitter) throws Exception {
+    operationTimer.start();
+    try {
+      caller.call((Callable<Void>) () -> {
+        aggregator.finalize(groupKey, aggValue, new UntimedEmitter<>(emitter, operationTimer));
+        return null;
+      });
+    } finally {
+      operationTimer.reset();
+    }
+  }
+}
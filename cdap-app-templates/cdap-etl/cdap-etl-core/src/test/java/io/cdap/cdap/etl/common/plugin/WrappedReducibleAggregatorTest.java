@@ -0,0 +1,194 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.etl.common.plugin;
+
+import com.google.common.collect.ImmutableList;
+import io.cdap.cdap.api.macro.MacroEvaluator;
+import io.cdap.cdap.api.plugin.PluginContext;
+import io.cdap.cdap.api.plugin.PluginProperties;
+import io.cdap.cdap.etl.api.Emitter;
+import io.cdap.cdap.etl.api.ReducibleAggregator;
+import io.cdap.cdap.etl.api.batch.BatchAggregator;
+import io.cdap.cdap.etl.common.DefaultEmitter;
+import io.cdap.cdap.etl.common.MockMetrics;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * Tests for {@link ReducibleAggregator} and {@link WrappedReducibleAggregator}.
+ */
+public class WrappedReducibleAggregatorTest {
+
+  @Test
+  public void testAggregateReducesValues() throws Exception {
+    SumAggregator aggregator = new SumAggregator();
+    DefaultEmitter<String> emitter = new DefaultEmitter<>();
+
+    aggregator.aggregate("a", ImmutableList.of(1, 2, 3).iterator(), emitter);
+    Assert.assertEquals(ImmutableList.of("a=6"), ImmutableList.copyOf(emitter.getEntries()));
+
+    // an empty group is not finalized
+    emitter.reset();
+    aggregator.aggregate("b", Collections.<Integer>emptyIterator(), emitter);
+    Assert.assertTrue(emitter.getEntries().isEmpty());
+  }
+
+  @Test
+  public void testMergePartitions() throws Exception {
+    SumAggregator aggregator = new SumAggregator();
+
+    // reducing the values in two partitions and merging them gives the same value as reducing all values
+    Long value1 = aggregator.mergeValues(aggregator.initializeAggregateValue(1), 2);
+    Long value2 = aggregator.mergeValues(aggregator.initializeAggregateValue(3), 4);
+    Long merged = aggregator.mergePartitions(value1, value2);
+
+    DefaultEmitter<String> mergedEmitter = new DefaultEmitter<>();
+    aggregator.finalize("a", merged, mergedEmitter);
+    DefaultEmitter<String> aggregateEmitter = new DefaultEmitter<>();
+    aggregator.aggregate("a", ImmutableList.of(1, 2, 3, 4).iterator(), aggregateEmitter);
+    Assert.assertEquals(ImmutableList.copyOf(aggregateEmitter.getEntries()),
+                        ImmutableList.copyOf(mergedEmitter.getEntries()));
+    Assert.assertEquals(ImmutableList.of("a=10"), ImmutableList.copyOf(mergedEmitter.getEntries()));
+  }
+
+  @Test
+  public void testWrappedPlugin() throws Exception {
+    PipelinePluginContext pluginContext = new PipelinePluginContext(new SinglePluginContext(new SumAggregator()),
+                                                                    new MockMetrics(), false, true);
+    Object plugin = pluginContext.newPluginInstance("agg");
+    Assert.assertTrue(plugin instanceof WrappedReducibleAggregator);
+
+    @SuppressWarnings("unchecked")
+    ReducibleAggregator<String, Integer, Long, String> aggregator =
+      (ReducibleAggregator<String, Integer, Long, String>) plugin;
+    Long value = aggregator.mergePartitions(aggregator.mergeValues(aggregator.initializeAggregateValue(1), 2),
+                                            aggregator.initializeAggregateValue(3));
+    DefaultEmitter<String> emitter = new DefaultEmitter<>();
+    aggregator.finalize("a", value, emitter);
+    Assert.assertEquals(ImmutableList.of("a=6"), ImmutableList.copyOf(emitter.getEntries()));
+
+    emitter.reset();
+    aggregator.aggregate("a", ImmutableList.of(1, 2, 3).iterator(), emitter);
+    Assert.assertEquals(ImmutableList.of("a=6"), ImmutableList.copyOf(emitter.getEntries()));
+  }
+
+  @Test
+  public void testWrappedNonReduciblePlugin() throws Exception {
+    PipelinePluginContext pluginContext = new PipelinePluginContext(new SinglePluginContext(new CountAggregator()),
+                                                                    new MockMetrics(), false, false);
+    Object plugin = pluginContext.newPluginInstance("agg");
+    Assert.assertTrue(plugin instanceof WrappedBatchAggregator);
+    Assert.assertFalse(plugin instanceof ReducibleAggregator);
+  }
+
+  /**
+   * Sums the values of each group.
+   */
+  private static class SumAggregator extends BatchAggregator<String, Integer, String>
+    implements ReducibleAggregator<String, Integer, Long, String> {
+
+    @Override
+    public void groupBy(Integer groupValue, Emitter<String> emitter) {
+      emitter.emit(String.valueOf(groupValue % 2));
+    }
+
+    @Override
+    public Long initializeAggregateValue(Integer groupValue) {
+      return (long) groupValue;
+    }
+
+    @Override
+    public Long mergeValues(Long aggValue, Integer groupValue) {
+      return aggValue + groupValue;
+    }
+
+    @Override
+    public Long mergePartitions(Long value1, Long value2) {
+      return value1 + value2;
+    }
+
+    @Override
+    public void finalize(String groupKey, Long aggValue, Emitter<String> emitter) {
+      emitter.emit(groupKey + "=" + aggValue);
+    }
+  }
+
+  /**
+   * Counts the values of each group.
+   */
+  private static class CountAggregator extends BatchAggregator<String, Integer, String> {
+
+    @Override
+    public void groupBy(Integer groupValue, Emitter<String> emitter) {
+      emitter.emit(String.valueOf(groupValue % 2));
+    }
+
+    @Override
+    public void aggregate(String groupKey, Iterator<Integer> groupValues, Emitter<String> emitter) {
+      int count = 0;
+      while (groupValues.hasNext()) {
+        groupValues.next();
+        count++;
+      }
+      emitter.emit(groupKey + "=" + count);
+    }
+  }
+
+  /**
+   * PluginContext that always returns the same plugin instance.
+   */
+  private static class SinglePluginContext implements PluginContext {
+    private final Object plugin;
+
+    SinglePluginContext(Object plugin) {
+      this.plugin = plugin;
+    }
+
+    @Override
+    public PluginProperties getPluginProperties(String pluginId) {
+      return PluginProperties.builder().build();
+    }
+
+    @Override
+    public PluginProperties getPluginProperties(String pluginId, MacroEvaluator evaluator) {
+      return PluginProperties.builder().build();
+    }
+
+    @Override
+    public <T> Class<T> loadPluginClass(String pluginId) {
+      @SuppressWarnings("unchecked")
+      Class<T> cls = (Class<T>) plugin.getClass();
+      return cls;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T newPluginInstance(String pluginId) {
+      return (T) plugin;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T newPluginInstance(String pluginId, MacroEvaluator evaluator) {
+      return (T) plugin;
+    }
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark.function;
+
+import io.cdap.cdap.etl.api.ReducibleAggregator;
+import org.apache.spark.api.java.function.Function2;
+
+/**
+ * Function that uses a ReducibleAggregator to merge two aggregate values of the same group.
+ * Non-serializable fields are lazily created since this is used in a Spark closure.
+ *
+ * @param <AGG_VAL> type of aggregate value
+ */
+public class AggregatorMergePartitionFunction<AGG_VAL> implements Function2<AGG_VAL, AGG_VAL, AGG_VAL> {
+  private final PluginFunctionContext pluginFunctionContext;
+  private transient ReducibleAggregator<?, ?, AGG_VAL, ?> aggregator;
+
+  public AggregatorMergePartitionFunction(PluginFunctionContext pluginFunctionContext) {
+    this.pluginFunctionContext = pluginFunctionContext;
+  }
+
+  @Override
+  public AGG_VAL call(AGG_VAL value1, AGG_VAL value2) throws Exception {
+    if (aggregator == null) {
+      aggregator = ReducibleAggregators.create(pluginFunctionContext);
+    }
+    return aggregator.mergePartitions(value1, value2);
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark.function;
+
+import io.cdap.cdap.etl.api.ReducibleAggregator;
+import io.cdap.cdap.etl.api.batch.BatchAggregator;
+
+/**
+ * Utility methods for instantiating a {@link ReducibleAggregator} in Spark closures.
+ */
+public final class ReducibleAggregators {
+
+  private ReducibleAggregators() {
+    // no-op
+  }
+
+  /**
+   * Creates and initializes the aggregator plugin of the stage, which must be a {@link ReducibleAggregator}.
+   */
+  @SuppressWarnings("unchecked")
+  public static <GROUP_KEY, GROUP_VAL, AGG_VAL, OUT> ReducibleAggregator<GROUP_KEY, GROUP_VAL, AGG_VAL, OUT> create(
+    PluginFunctionContext pluginFunctionContext) throws Exception {
+    BatchAggregator<GROUP_KEY, GROUP_VAL, OUT> aggregator = pluginFunctionContext.createPlugin();
+    if (!(aggregator instanceof ReducibleAggregator)) {
+      // should never happen, since the aggregator is checked before these functions are used
+      throw new IllegalStateException(String.format("Aggregator '%s' in stage '%s' is not a ReducibleAggregator.",
+                                                    aggregator.getClass().getName(),
+                                                    pluginFunctionContext.getStageName()));
+    }
+    aggregator.initialize(pluginFunctionContext.createBatchRuntimeContext());
+    return (ReducibleAggregator<GROUP_KEY, GROUP_VAL, AGG_VAL, OUT>) aggregator;
+  }
+}
@@ -16,11 +16,13 @@
 
 package io.cdap.cdap.etl.spark.streaming;
 
+import com.google.common.base.Throwables;
 import io.cdap.cdap.api.Transactionals;
 import io.cdap.cdap.api.TxRunnable;
 import io.cdap.cdap.api.data.DatasetContext;
 import io.cdap.cdap.api.spark.JavaSparkExecutionContext;
 import io.cdap.cdap.etl.api.Alert;
+import io.cdap.cdap.etl.api.ReducibleAggregator;
 import io.cdap.cdap.etl.api.batch.SparkCompute;
 import io.cdap.cdap.etl.api.batch.SparkExecutionPluginContext;
 import io.cdap.cdap.etl.api.batch.SparkSink;
@@ -35,17 +37,22 @@ import io.cdap.cdap.etl.spark.Compat;
 import io.cdap.cdap.etl.spark.SparkCollection;
 import io.cdap.cdap.etl.spark.SparkPairCollection;
 import io.cdap.cdap.etl.spark.SparkPipelineRuntime;
+import io.cdap.cdap.etl.spark.StreamingCompat;
 import io.cdap.cdap.etl.spark.batch.BasicSparkExecutionPluginContext;
+import io.cdap.cdap.etl.spark.streaming.function.AggregatorStateFunction;
 import io.cdap.cdap.etl.spark.streaming.function.ComputeTransformFunction;
 import io.cdap.cdap.etl.spark.streaming.function.CountingTransformFunction;
 import io.cdap.cdap.etl.spark.streaming.function.DynamicAggregatorAggregate;
+import io.cdap.cdap.etl.spark.streaming.function.DynamicAggregatorFinalize;
 import io.cdap.cdap.etl.spark.streaming.function.DynamicAggregatorGroupBy;
+import io.cdap.cdap.etl.spark.streaming.function.DynamicAggregatorReduce;
 import io.cdap.cdap.etl.spark.streaming.function.DynamicSparkCompute;
 import io.cdap.cdap.etl.spark.streaming.function.DynamicTransform;
 import io.cdap.cdap.etl.spark.streaming.function.StreamingAlertPublishFunction;
 import io.cdap.cdap.etl.spark.streaming.function.StreamingBatchSinkFunction;
 import io.cdap.cdap.etl.spark.streaming.function.StreamingSparkSinkFunction;
 import org.apache.spark.SparkConf;
+import org.apache.spark.SparkContext;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.api.java.function.FlatMapFunction;
 import org.apache.spark.api.java.function.PairFlatMapFunction;
@@ -53,6 +60,9 @@ import org.apache.spark.storage.StorageLevel;
 import org.apache.spark.streaming.Durations;
 import org.apache.spark.streaming.api.java.JavaDStream;
 import org.apache.spark.streaming.api.java.JavaPairDStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import scala.Tuple2;
 
 import javax.annotation.Nullable;
 
@@ -63,6 +73,8 @@ import javax.annotation.Nullable;
  */
 public class DStreamCollection<T> implements SparkCollection<T> {
 
+  private static final Logger LOG = LoggerFactory.getLogger(DStreamCollection.class);
+
   private final JavaSparkExecutionContext sec;
   private final JavaDStream<T> stream;
 
@@ -124,6 +136,10 @@ public class DStreamCollection<T> implements SparkCollection<T> {
     JavaPairDStream<Object, T> keyedCollection =
       stream.transformToPair(new DynamicAggregatorGroupBy<Object, T>(dynamicDriverContext));
 
+    if (isIncrementalAggregate(dynamicDriverContext)) {
+      return incrementalAggregate(dynamicDriverContext, keyedCollection, partitions);
+    }
+
     JavaPairDStream<Object, Iterable<T>> groupedCollection = partitions == null ?
       keyedCollection.groupByKey() : keyedCollection.groupByKey(partitions);
 
@@ -184,6 +200,55 @@ public class DStreamCollection<T> implements SparkCollection<T> {
                                                              sec.getDataTracer(stageName))));
   }
 
+  /**
+   * Returns whether the aggregator should keep its aggregate values across batches. This is only done if enabled,
+   * if the aggregator is a {@link ReducibleAggregator}, and if there is a checkpoint directory to store the state.
+   */
+  private boolean isIncrementalAggregate(DynamicDriverContext dynamicDriverContext) {
+    SparkContext sparkContext = stream.context().sparkContext();
+    if (!sparkContext.getConf().getBoolean(Constants.SPARK_PIPELINE_INCREMENTAL_AGGREGATE_ENABLE_FLAG, false)) {
+      return false;
+    }
+    try {
+      Object aggregator = dynamicDriverContext.getPluginFunctionContext().createPlugin();
+      if (!(aggregator instanceof ReducibleAggregator)) {
+        return false;
+      }
+    } catch (Exception e) {
+      throw Throwables.propagate(e);
+    }
+    if (sparkContext.getCheckpointDir().isEmpty()) {
+      LOG.warn("Aggregations in stage '{}' are not kept across batches since checkpointing is disabled.",
+               dynamicDriverContext.getPluginFunctionContext().getStageName());
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Aggregates the groups of each batch into aggregate values, which are merged with the aggregate values of
+   * previous batches kept in the streaming state. The output for the updated aggregate values of the groups
+   * in the batch is emitted. The state of a group is removed if it is not updated within the state timeout.
+   */
+  private <AGG_VALUE> SparkCollection<RecordInfo<Object>> incrementalAggregate(
+    DynamicDriverContext dynamicDriverContext, JavaPairDStream<Object, T> keyedCollection,
+    @Nullable Integer partitions) {
+    long stateTTL = stream.context().sparkContext().getConf()
+      .getLong(Constants.SPARK_PIPELINE_AGGREGATE_STATE_TTL_SECONDS, Constants.DEFAULT_AGGREGATE_STATE_TTL_SECONDS);
+
+    // values are combined within each partition before they are shuffled
+    JavaPairDStream<Object, AGG_VALUE> reducedCollection =
+      keyedCollection.transformToPair(new DynamicAggregatorReduce<Object, T, AGG_VALUE>(dynamicDriverContext,
+                                                                                         partitions));
+    JavaDStream<Tuple2<Object, AGG_VALUE>> updatedCollection = StreamingCompat.mapWithState(
+      reducedCollection,
+      new AggregatorStateFunction<Object, AGG_VALUE>(dynamicDriverContext.getPluginFunctionContext()),
+      Durations.seconds(stateTTL), partitions);
+
+    return wrap(updatedCollection.transform(
+      new DynamicAggregatorFinalize<Object, AGG_VALUE, Object>(dynamicDriverContext)));
+  }
+
   private <U> SparkCollection<U> wrap(JavaDStream<U> stream) {
     return new DStreamCollection<>(sec, stream);
   }
@@ -26,6 +26,7 @@ import io.cdap.cdap.api.dataset.DatasetProperties;
 import io.cdap.cdap.api.dataset.InstanceConflictException;
 import io.cdap.cdap.api.spark.JavaSparkExecutionContext;
 import io.cdap.cdap.etl.api.lineage.field.FieldOperation;
+import io.cdap.cdap.etl.api.streaming.RateLimit;
 import io.cdap.cdap.etl.api.streaming.StreamingContext;
 import io.cdap.cdap.etl.common.AbstractStageContext;
 import io.cdap.cdap.etl.common.BasicArguments;
@@ -69,6 +70,11 @@ public class DefaultStreamingContext extends AbstractStageContext implements Str
     return sec;
   }
 
+  @Override
+  public RateLimit getRateLimit() {
+    return new StreamingRateLimit(sec.getNamespace(), sec.getApplicationSpecification().getName());
+  }
+
   @Override
   public void registerLineage(String referenceName)
     throws DatasetManagementException, TransactionFailureException {
@@ -0,0 +1,35 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark.streaming;
+
+/**
+ * Listens to the batches completed by a streaming pipeline. It is registered through
+ * {@link io.cdap.cdap.etl.spark.StreamingCompat#addBatchListener}, which adapts it to the Spark
+ * {@code StreamingListener} of the Spark version the pipeline runs with.
+ */
+public interface StreamingBatchListener {
+
+  /**
+   * Called on the driver when a batch completed.
+   *
+   * @param batchTime the time of the batch in milliseconds
+   * @param numRecords the number of records received in the batch
+   * @param processingDelay the time in milliseconds that it took to process the batch
+   * @param schedulingDelay the time in milliseconds that the batch waited before it was processed
+   */
+  void onBatchCompleted(long batchTime, long numRecords, long processingDelay, long schedulingDelay);
+}
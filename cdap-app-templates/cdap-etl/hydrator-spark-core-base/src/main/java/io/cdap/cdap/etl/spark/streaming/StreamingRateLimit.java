@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark.streaming;
+
+import io.cdap.cdap.etl.api.streaming.RateLimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The {@link RateLimit} of the streaming sources of a pipeline, which is updated in the driver as batches complete.
+ * The rate is kept by pipeline outside of the instance, since instances held by streams are restored from the
+ * checkpoint when the pipeline restarts. A pipeline has at most one run at a time, so its namespace and name
+ * identify the rate of the run, also after a restart. Pipelines that don't set a rate are not limited.
+ */
+public final class StreamingRateLimit implements RateLimit {
+  private static final long serialVersionUID = 4571262245638214531L;
+  private static final ConcurrentMap<String, Long> RATES = new ConcurrentHashMap<>();
+
+  private final String pipeline;
+
+  public StreamingRateLimit(String namespace, String pipelineName) {
+    this.pipeline = namespace + ":" + pipelineName;
+  }
+
+  /**
+   * Sets the maximum number of records per second that each streaming source of the pipeline should ingest.
+   */
+  public void setMaxRecordsPerSecond(long maxRecordsPerSecond) {
+    RATES.put(pipeline, maxRecordsPerSecond);
+  }
+
+  /**
+   * Removes the rate of the pipeline, after which its sources are not limited.
+   */
+  public void clear() {
+    RATES.remove(pipeline);
+  }
+
+  @Override
+  public long getMaxRecordsPerSecond() {
+    Long maxRecordsPerSecond = RATES.get(pipeline);
+    return maxRecordsPerSecond == null ? Long.MAX_VALUE : maxRecordsPerSecond;
+  }
+}
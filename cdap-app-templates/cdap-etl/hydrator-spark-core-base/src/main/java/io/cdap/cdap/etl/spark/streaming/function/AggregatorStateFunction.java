@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark.streaming.function;
+
+import com.google.common.base.Optional;
+import io.cdap.cdap.etl.api.ReducibleAggregator;
+import io.cdap.cdap.etl.spark.function.PluginFunctionContext;
+import io.cdap.cdap.etl.spark.function.ReducibleAggregators;
+import org.apache.spark.api.java.function.Function3;
+import org.apache.spark.streaming.State;
+import scala.Tuple2;
+
+/**
+ * Function that uses a ReducibleAggregator to merge the aggregate value of a group in a batch into the aggregate
+ * value of the group kept in the streaming state. Returns the merged aggregate value, or {@code null} if the state
+ * of the group is being removed because it has not been updated within the state timeout.
+ *
+ * Since this function is part of the streaming state, it is stored in the checkpoint and cannot instantiate the
+ * plugin from the driver context. Macros used by the merge are evaluated with the arguments of the run that
+ * created the checkpoint.
+ *
+ * @param <GROUP_KEY> type of group key
+ * @param <AGG_VAL> type of aggregate value
+ */
+public class AggregatorStateFunction<GROUP_KEY, AGG_VAL>
+  implements Function3<GROUP_KEY, Optional<AGG_VAL>, State<AGG_VAL>, Tuple2<GROUP_KEY, AGG_VAL>> {
+  private final PluginFunctionContext pluginFunctionContext;
+  private transient ReducibleAggregator<GROUP_KEY, ?, AGG_VAL, ?> aggregator;
+
+  public AggregatorStateFunction(PluginFunctionContext pluginFunctionContext) {
+    this.pluginFunctionContext = pluginFunctionContext;
+  }
+
+  @Override
+  public Tuple2<GROUP_KEY, AGG_VAL> call(GROUP_KEY groupKey, Optional<AGG_VAL> batchValue,
+                                         State<AGG_VAL> state) throws Exception {
+    if (!batchValue.isPresent()) {
+      // the state is timing out, nothing to emit for the group
+      return null;
+    }
+    AGG_VAL aggValue = batchValue.get();
+    if (state.exists()) {
+      aggValue = getAggregator().mergePartitions(state.get(), aggValue);
+    }
+    state.update(aggValue);
+    return new Tuple2<>(groupKey, aggValue);
+  }
+
+  private ReducibleAggregator<GROUP_KEY, ?, AGG_VAL, ?> getAggregator() throws Exception {
+    if (aggregator == null) {
+      aggregator = ReducibleAggregators.create(pluginFunctionContext);
+    }
+    return aggregator;
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark.streaming.function;
+
+import io.cdap.cdap.etl.common.RecordInfo;
+import io.cdap.cdap.etl.spark.Compat;
+import io.cdap.cdap.etl.spark.function.AggregatorFinalizeFunction;
+import io.cdap.cdap.etl.spark.streaming.DynamicDriverContext;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.function.FlatMapFunction;
+import org.apache.spark.api.java.function.Function;
+import org.apache.spark.api.java.function.Function2;
+import org.apache.spark.streaming.Time;
+import scala.Tuple2;
+
+/**
+ * Serializable function that can be used to emit the output for the aggregate values of a ReducibleAggregator.
+ * Dynamically instantiates the Aggregator plugin used to ensure that code changes are picked up and to ensure
+ * that macro substitution occurs. Groups without an aggregate value are skipped.
+ *
+ * @param <GROUP_KEY> type of group key
+ * @param <AGG_VAL> type of aggregate value
+ * @param <OUT> type of output object
+ */
+public class DynamicAggregatorFinalize<GROUP_KEY, AGG_VAL, OUT>
+  implements Function2<JavaRDD<Tuple2<GROUP_KEY, AGG_VAL>>, Time, JavaRDD<RecordInfo<Object>>> {
+  private final DynamicDriverContext dynamicDriverContext;
+  private transient FlatMapFunction<Tuple2<GROUP_KEY, AGG_VAL>, RecordInfo<Object>> function;
+
+  public DynamicAggregatorFinalize(DynamicDriverContext dynamicDriverContext) {
+    this.dynamicDriverContext = dynamicDriverContext;
+  }
+
+  @Override
+  public JavaRDD<RecordInfo<Object>> call(JavaRDD<Tuple2<GROUP_KEY, AGG_VAL>> input, Time batchTime) throws Exception {
+    if (function == null) {
+      function = Compat.convert(
+        new AggregatorFinalizeFunction<GROUP_KEY, AGG_VAL, OUT>(dynamicDriverContext.getPluginFunctionContext()));
+    }
+    return input.filter(new NotNullFilter<Tuple2<GROUP_KEY, AGG_VAL>>()).flatMap(function);
+  }
+
+  /**
+   * Filters out null objects.
+   *
+   * @param <T> type of object
+   */
+  private static final class NotNullFilter<T> implements Function<T, Boolean> {
+    @Override
+    public Boolean call(T t) {
+      return t != null;
+    }
+  }
+}
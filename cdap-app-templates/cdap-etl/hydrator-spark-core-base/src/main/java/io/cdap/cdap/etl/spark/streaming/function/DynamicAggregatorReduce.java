@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark.streaming.function;
+
+import io.cdap.cdap.etl.spark.function.AggregatorInitializeFunction;
+import io.cdap.cdap.etl.spark.function.AggregatorMergePartitionFunction;
+import io.cdap.cdap.etl.spark.function.AggregatorMergeValueFunction;
+import io.cdap.cdap.etl.spark.function.PluginFunctionContext;
+import io.cdap.cdap.etl.spark.streaming.DynamicDriverContext;
+import org.apache.spark.api.java.JavaPairRDD;
+import org.apache.spark.api.java.function.Function2;
+import org.apache.spark.streaming.Time;
+
+import javax.annotation.Nullable;
+
+/**
+ * Serializable function that can be used to reduce the values of each group in a batch into an aggregate value
+ * using a ReducibleAggregator. Values are combined within each partition before they are shuffled.
+ * Dynamically instantiates the Aggregator plugin used to ensure that code changes are picked up and to ensure
+ * that macro substitution occurs.
+ *
+ * @param <GROUP_KEY> type of group key
+ * @param <GROUP_VAL> type of group val
+ * @param <AGG_VAL> type of aggregate value
+ */
+public class DynamicAggregatorReduce<GROUP_KEY, GROUP_VAL, AGG_VAL>
+  implements Function2<JavaPairRDD<GROUP_KEY, GROUP_VAL>, Time, JavaPairRDD<GROUP_KEY, AGG_VAL>> {
+  private final DynamicDriverContext dynamicDriverContext;
+  private final Integer partitions;
+  private transient AggregatorInitializeFunction<GROUP_VAL, AGG_VAL> initializeFunction;
+  private transient AggregatorMergeValueFunction<GROUP_VAL, AGG_VAL> mergeValueFunction;
+  private transient AggregatorMergePartitionFunction<AGG_VAL> mergePartitionFunction;
+
+  public DynamicAggregatorReduce(DynamicDriverContext dynamicDriverContext, @Nullable Integer partitions) {
+    this.dynamicDriverContext = dynamicDriverContext;
+    this.partitions = partitions;
+  }
+
+  @Override
+  public JavaPairRDD<GROUP_KEY, AGG_VAL> call(JavaPairRDD<GROUP_KEY, GROUP_VAL> input,
+                                              Time batchTime) throws Exception {
+    if (initializeFunction == null) {
+      PluginFunctionContext pluginFunctionContext = dynamicDriverContext.getPluginFunctionContext();
+      initializeFunction = new AggregatorInitializeFunction<>(pluginFunctionContext);
+      mergeValueFunction = new AggregatorMergeValueFunction<>(pluginFunctionContext);
+      mergePartitionFunction = new AggregatorMergePartitionFunction<>(pluginFunctionContext);
+    }
+    return partitions == null ?
+      input.combineByKey(initializeFunction, mergeValueFunction, mergePartitionFunction) :
+      input.combineByKey(initializeFunction, mergeValueFunction, mergePartitionFunction, partitions);
+  }
+}
@@ -17,16 +17,34 @@
 package io.cdap.cdap.etl.spark;
 
 import com.google.common.base.Optional;
+import io.cdap.cdap.etl.spark.streaming.StreamingBatchListener;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.function.Function0;
 import org.apache.spark.api.java.function.Function2;
+import org.apache.spark.api.java.function.Function3;
+import org.apache.spark.streaming.Duration;
+import org.apache.spark.streaming.State;
+import org.apache.spark.streaming.StateSpec;
 import org.apache.spark.streaming.Time;
 import org.apache.spark.streaming.api.java.JavaDStream;
 import org.apache.spark.streaming.api.java.JavaPairDStream;
 import org.apache.spark.streaming.api.java.JavaStreamingContext;
+import org.apache.spark.streaming.scheduler.BatchInfo;
+import org.apache.spark.streaming.scheduler.StreamingListener;
+import org.apache.spark.streaming.scheduler.StreamingListenerBatchCompleted;
+import org.apache.spark.streaming.scheduler.StreamingListenerBatchStarted;
+import org.apache.spark.streaming.scheduler.StreamingListenerBatchSubmitted;
+import org.apache.spark.streaming.scheduler.StreamingListenerOutputOperationCompleted;
+import org.apache.spark.streaming.scheduler.StreamingListenerOutputOperationStarted;
+import org.apache.spark.streaming.scheduler.StreamingListenerReceiverError;
+import org.apache.spark.streaming.scheduler.StreamingListenerReceiverStarted;
+import org.apache.spark.streaming.scheduler.StreamingListenerReceiverStopped;
+import scala.Option;
 import scala.Tuple2;
 
+import javax.annotation.Nullable;
+
 /**
  * Utility class to handle incompatibilities between Spark1 and Spark2 streaming.
  * All hydrator-spark-core modules must have this class with the exact same method signatures.
@@ -38,6 +56,11 @@ import scala.Tuple2;
  * Outer join methods in Spark1 use guava's Optional whereas Spark2 uses its own Optional.
  *
  * JavaStreamingContext.getOrCreate() does not use a JavaStreamingContextFactory in Spark2, but requires it in Spark1.2.
+ *
+ * The mapWithState state function in Spark1 uses guava's Optional whereas Spark2 uses its own Optional.
+ *
+ * The StreamingListener trait gains methods in later Spark versions, which a class compiled against an older
+ * version does not implement.
  */
 public final class StreamingCompat {
 
@@ -75,4 +98,72 @@ public final class StreamingCompat {
     return left.fullOuterJoin(right, numPartitions);
   }
 
+  public static <K, V, S, M> JavaDStream<M> mapWithState(JavaPairDStream<K, V> stream,
+                                                         Function3<K, Optional<V>, State<S>, M> func,
+                                                         Duration timeout, @Nullable Integer numPartitions) {
+    StateSpec<K, V, S, M> spec = StateSpec.function(func).timeout(timeout);
+    return stream.mapWithState(numPartitions == null ? spec : spec.numPartitions(numPartitions));
+  }
+
+  public static void addBatchListener(JavaStreamingContext jssc, StreamingBatchListener listener) {
+    jssc.addStreamingListener(new BatchListenerAdapter(listener));
+  }
+
+  private static long getDelay(Option<Object> delay) {
+    return delay.isDefined() ? (Long) delay.get() : 0L;
+  }
+
+  /**
+   * Adapts a {@link StreamingBatchListener} to the Spark1 {@link StreamingListener}, which has no further methods
+   * in later Spark1 versions.
+   */
+  private static final class BatchListenerAdapter implements StreamingListener {
+    private final StreamingBatchListener listener;
+
+    BatchListenerAdapter(StreamingBatchListener listener) {
+      this.listener = listener;
+    }
+
+    @Override
+    public void onBatchCompleted(StreamingListenerBatchCompleted batchCompleted) {
+      BatchInfo batchInfo = batchCompleted.batchInfo();
+      listener.onBatchCompleted(batchInfo.batchTime().milliseconds(), batchInfo.numRecords(),
+                                getDelay(batchInfo.processingDelay()), getDelay(batchInfo.schedulingDelay()));
+    }
+
+    @Override
+    public void onReceiverStarted(StreamingListenerReceiverStarted receiverStarted) {
+      // no-op
+    }
+
+    @Override
+    public void onReceiverError(StreamingListenerReceiverError receiverError) {
+      // no-op
+    }
+
+    @Override
+    public void onReceiverStopped(StreamingListenerReceiverStopped receiverStopped) {
+      // no-op
+    }
+
+    @Override
+    public void onBatchSubmitted(StreamingListenerBatchSubmitted batchSubmitted) {
+      // no-op
+    }
+
+    @Override
+    public void onBatchStarted(StreamingListenerBatchStarted batchStarted) {
+      // no-op
+    }
+
+    @Override
+    public void onOutputOperationStarted(StreamingListenerOutputOperationStarted outputOperationStarted) {
+      // no-op
+    }
+
+    @Override
+    public void onOutputOperationCompleted(StreamingListenerOutputOperationCompleted outputOperationCompleted) {
+      // no-op
+    }
+  }
 }
@@ -17,17 +17,31 @@
 package io.cdap.cdap.etl.spark;
 
 import com.google.common.base.Optional;
+import io.cdap.cdap.etl.spark.streaming.StreamingBatchListener;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.function.Function0;
 import org.apache.spark.api.java.function.Function2;
+import org.apache.spark.api.java.function.Function3;
 import org.apache.spark.api.java.function.VoidFunction2;
+import org.apache.spark.streaming.Duration;
+import org.apache.spark.streaming.State;
+import org.apache.spark.streaming.StateSpec;
 import org.apache.spark.streaming.Time;
 import org.apache.spark.streaming.api.java.JavaDStream;
 import org.apache.spark.streaming.api.java.JavaPairDStream;
 import org.apache.spark.streaming.api.java.JavaStreamingContext;
+import org.apache.spark.streaming.scheduler.BatchInfo;
+import org.apache.spark.streaming.scheduler.StreamingListener;
+import org.apache.spark.streaming.scheduler.StreamingListenerBatchCompleted;
+import scala.Option;
 import scala.Tuple2;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import javax.annotation.Nullable;
+
 /**
  * Utility class to handle incompatibilities between Spark1 and Spark2 streaming.
  * All hydrator-spark-core modules must have this class with the exact same method signatures.
@@ -39,6 +53,11 @@ import scala.Tuple2;
  * Outer join methods in Spark1 use guava's Optional whereas Spark2 uses its own Optional.
  *
  * JavaStreamingContext.getOrCreate() does not use a JavaStreamingContextFactory in Spark2, but requires it in Spark1.2.
+ *
+ * The mapWithState state function in Spark1 uses guava's Optional whereas Spark2 uses its own Optional.
+ *
+ * The StreamingListener trait gains methods in later Spark versions, which a class compiled against an older
+ * version does not implement.
  */
 public final class StreamingCompat {
 
@@ -80,4 +99,75 @@ public final class StreamingCompat {
     JavaPairDStream<K, V1> left, JavaPairDStream<K, V2> right, int numPartitions) {
     return left.fullOuterJoin(right, numPartitions).mapValues(new Compat.ConvertOptional2<V1, V2>());
   }
+
+  public static <K, V, S, M> JavaDStream<M> mapWithState(JavaPairDStream<K, V> stream,
+                                                         Function3<K, Optional<V>, State<S>, M> func,
+                                                         Duration timeout, @Nullable Integer numPartitions) {
+    StateSpec<K, V, S, M> spec = StateSpec.function(new ConvertStateFunction<>(func)).timeout(timeout);
+    return stream.mapWithState(numPartitions == null ? spec : spec.numPartitions(numPartitions));
+  }
+
+  /**
+   * Adapts a state function that takes guava's Optional to a state function that takes Spark's Optional.
+   */
+  private static final class ConvertStateFunction<K, V, S, M>
+    implements Function3<K, org.apache.spark.api.java.Optional<V>, State<S>, M> {
+    private final Function3<K, Optional<V>, State<S>, M> func;
+
+    ConvertStateFunction(Function3<K, Optional<V>, State<S>, M> func) {
+      this.func = func;
+    }
+
+    @Override
+    public M call(K key, org.apache.spark.api.java.Optional<V> value, State<S> state) throws Exception {
+      return func.call(key, value.isPresent() ? Optional.of(value.get()) : Optional.<V>absent(), state);
+    }
+  }
+
+  public static void addBatchListener(JavaStreamingContext jssc, StreamingBatchListener listener) {
+    // Spark 2.2 added onStreamingStarted to the StreamingListener trait. A Java class compiled against Spark 2.1
+    // would fail with an AbstractMethodError on later versions, hence the listener is a proxy that handles
+    // any method of the trait.
+    StreamingListener streamingListener = (StreamingListener) Proxy.newProxyInstance(
+      StreamingCompat.class.getClassLoader(), new Class<?>[] { StreamingListener.class },
+      new BatchListenerHandler(listener));
+    jssc.addStreamingListener(streamingListener);
+  }
+
+  private static long getDelay(Option<Object> delay) {
+    return delay.isDefined() ? (Long) delay.get() : 0L;
+  }
+
+  /**
+   * Handles the methods of a {@link StreamingListener} proxy. Completed batches are passed to a
+   * {@link StreamingBatchListener}, all other events are ignored.
+   */
+  private static final class BatchListenerHandler implements InvocationHandler {
+    private final StreamingBatchListener listener;
+
+    BatchListenerHandler(StreamingBatchListener listener) {
+      this.listener = listener;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+      if (method.getDeclaringClass() == Object.class) {
+        switch (method.getName()) {
+          case "equals":
+            return proxy == args[0];
+          case "hashCode":
+            return System.identityHashCode(proxy);
+          default:
+            return "BatchListener{" + listener + "}";
+        }
+      }
+      if ("onBatchCompleted".equals(method.getName()) && args != null && args.length == 1
+        && args[0] instanceof StreamingListenerBatchCompleted) {
+        BatchInfo batchInfo = ((StreamingListenerBatchCompleted) args[0]).batchInfo();
+        listener.onBatchCompleted(batchInfo.batchTime().milliseconds(), batchInfo.numRecords(),
+                                  getDelay(batchInfo.processingDelay()), getDelay(batchInfo.schedulingDelay()));
+      }
+      return null;
+    }
+  }
 }
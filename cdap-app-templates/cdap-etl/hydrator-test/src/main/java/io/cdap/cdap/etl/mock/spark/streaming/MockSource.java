@@ -29,11 +29,13 @@ import io.cdap.cdap.api.plugin.PluginConfig;
 import io.cdap.cdap.api.plugin.PluginPropertyField;
 import io.cdap.cdap.etl.api.PipelineConfigurer;
 import io.cdap.cdap.etl.api.lineage.field.FieldReadOperation;
+import io.cdap.cdap.etl.api.streaming.RateLimit;
 import io.cdap.cdap.etl.api.streaming.StreamingContext;
 import io.cdap.cdap.etl.api.streaming.StreamingSource;
 import io.cdap.cdap.etl.api.streaming.StreamingSourceContext;
 import io.cdap.cdap.etl.proto.v2.ETLPlugin;
 import io.cdap.cdap.format.StructuredRecordStringConverter;
+import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.storage.StorageLevel;
 import org.apache.spark.streaming.api.java.JavaDStream;
 import org.apache.spark.streaming.api.java.JavaStreamingContext;
@@ -44,9 +46,11 @@ import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 
@@ -101,6 +105,9 @@ public class MockSource extends StreamingSource<StructuredRecord> {
     }
 
     JavaStreamingContext jsc = context.getSparkStreamingContext();
+    if (Boolean.TRUE.equals(conf.rateLimited)) {
+      return getRateLimitedStream(jsc, context.getRateLimit(), inputRecords);
+    }
     return jsc.receiverStream(new Receiver<StructuredRecord>(StorageLevel.MEMORY_ONLY()) {
       @Override
       public StorageLevel storageLevel() {
@@ -139,6 +146,30 @@ public class MockSource extends StreamingSource<StructuredRecord> {
     });
   }
 
+  /**
+   * Creates a stream that reads the records in the driver when a batch is created, up to the number of records that
+   * the rate limit allows for the batch interval. The records that are not read stay for the next batches.
+   */
+  private JavaDStream<StructuredRecord> getRateLimitedStream(JavaStreamingContext jsc, RateLimit rateLimit,
+                                                             List<StructuredRecord> records) {
+    // the queue stays empty, it only creates an empty RDD for every batch
+    JavaDStream<StructuredRecord> batches =
+      jsc.queueStream(new LinkedList<>(), true, jsc.sparkContext().<StructuredRecord>emptyRDD());
+    long batchIntervalMillis = batches.dstream().slideDuration().milliseconds();
+    AtomicInteger position = new AtomicInteger();
+    return batches.transform(rdd -> {
+      long maxRecordsPerSecond = rateLimit.getMaxRecordsPerSecond();
+      long maxRecords = maxRecordsPerSecond >= Long.MAX_VALUE / batchIntervalMillis
+        ? Long.MAX_VALUE : Math.max(1L, maxRecordsPerSecond * batchIntervalMillis / 1000);
+      int start = position.get();
+      int end = (int) Math.min(records.size(), start + maxRecords);
+      position.set(end);
+      // a single partition, so that the records of a batch are processed one after the other
+      return JavaSparkContext.fromSparkContext(rdd.context()).parallelize(new ArrayList<>(records.subList(start, end)),
+                                                                          1);
+    });
+  }
+
   /**
    * Config for mock source.
    */
@@ -149,9 +180,12 @@ public class MockSource extends StreamingSource<StructuredRecord> {
     private Long intervalMillis;
     @Nullable
     private String referenceName;
+    @Nullable
+    private Boolean rateLimited;
 
     public Conf() {
       intervalMillis = 0L;
+      rateLimited = false;
     }
   }
 
@@ -184,12 +218,29 @@ public class MockSource extends StreamingSource<StructuredRecord> {
                          builder.build(), null);
   }
 
+  /**
+   * Returns a source that reads the records in the driver, at most at the rate limit of the pipeline. Since the
+   * records are not kept in the checkpoint, the pipeline must disable checkpoints.
+   */
+  public static ETLPlugin getRateLimitedPlugin(Schema schema, List<StructuredRecord> records) throws IOException {
+    List<String> recordsStrs = new ArrayList<>(records.size());
+    for (StructuredRecord record : records) {
+      recordsStrs.add(StructuredRecordStringConverter.toJsonString(record));
+    }
+    return new ETLPlugin("Mock", StreamingSource.PLUGIN_TYPE,
+                         ImmutableMap.of("schema", schema.toString(),
+                                         "records", GSON.toJson(recordsStrs),
+                                         "rateLimited", "true"),
+                         null);
+  }
+
   private static PluginClass getPluginClass() {
     Map<String, PluginPropertyField> properties = new HashMap<>();
     properties.put("schema", new PluginPropertyField("schema", "", "string", true, false));
     properties.put("records", new PluginPropertyField("records", "", "string", true, false));
     properties.put("intervalMillis", new PluginPropertyField("intervalMillis", "", "long", false, false));
     properties.put("referenceName", new PluginPropertyField("referenceName", "", "string", false, false));
+    properties.put("rateLimited", new PluginPropertyField("rateLimited", "", "boolean", false, false));
     return new PluginClass(StreamingSource.PLUGIN_TYPE, "Mock", "", MockSource.class.getName(), "conf", properties);
   }
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.api.common;
+
+import io.cdap.cdap.benchmark.BenchmarkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the {@link Bytes} conversions and comparisons that are used for every row key and value
+ * read from or written to a table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BytesBenchmark {
+
+  @Param({"16", "256"})
+  private int size;
+
+  private String string;
+  private byte[] stringBytes;
+  private byte[] left;
+  private byte[] right;
+  private byte[] longBytes;
+  private long value;
+
+  @Setup
+  public void setup() {
+    Random random = BenchmarkData.newRandom();
+    StringBuilder builder = new StringBuilder();
+    while (builder.length() < size) {
+      builder.append(BenchmarkData.generateText(random, 1)).append('.');
+    }
+    string = builder.substring(0, size);
+    stringBytes = Bytes.toBytes(string);
+
+    // Two keys that only differ in the last byte, which is the worst case for comparison
+    left = BenchmarkData.generateBytes(random, size);
+    right = Arrays.copyOf(left, size);
+    right[size - 1]++;
+
+    value = random.nextLong();
+    longBytes = Bytes.toBytes(value);
+  }
+
+  @Benchmark
+  public byte[] stringToBytes() {
+    return Bytes.toBytes(string);
+  }
+
+  @Benchmark
+  public String bytesToString() {
+    return Bytes.toString(stringBytes);
+  }
+
+  @Benchmark
+  public int compareTo() {
+    return Bytes.compareTo(left, right);
+  }
+
+  @Benchmark
+  public boolean bytesEquals() {
+    return Bytes.equals(left, right);
+  }
+
+  @Benchmark
+  public int bytesHashCode() {
+    return Bytes.hashCode(left);
+  }
+
+  @Benchmark
+  public byte[] add() {
+    return Bytes.add(left, right);
+  }
+
+  @Benchmark
+  public byte[] stopKeyForPrefix() {
+    return Bytes.stopKeyForPrefix(left);
+  }
+
+  @Benchmark
+  public String toStringBinary() {
+    return Bytes.toStringBinary(left);
+  }
+
+  @Benchmark
+  public byte[] longToBytes() {
+    return Bytes.toBytes(value);
+  }
+
+  @Benchmark
+  public long bytesToLong() {
+    return Bytes.toLong(longBytes);
+  }
+}
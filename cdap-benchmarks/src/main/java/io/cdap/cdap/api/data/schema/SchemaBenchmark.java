@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.api.data.schema;
+
+import io.cdap.cdap.benchmark.BenchmarkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for parsing {@link Schema} from JSON and computing the {@link SchemaHash}, which happen whenever
+ * a schema is read from a specification, a runtime argument or the header of a serialized record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchemaBenchmark {
+
+  // see BenchmarkData#schemaOf
+  @Param({"wide-20", "wide-500", "nested-3", "nested-8"})
+  private String shape;
+
+  private Schema schema;
+  private String json;
+
+  @Setup
+  public void setup() {
+    schema = BenchmarkData.schemaOf(shape);
+    json = schema.toString();
+  }
+
+  @Benchmark
+  public Schema parseJson() throws IOException {
+    return Schema.parseJson(json);
+  }
+
+  @Benchmark
+  public SchemaHash schemaHash() {
+    return new SchemaHash(schema);
+  }
+
+  /**
+   * Parses a schema and compares it to a known schema, which computes the hash of the parsed schema.
+   */
+  @Benchmark
+  public boolean parseAndCompare() throws IOException {
+    return schema.equals(Schema.parseJson(json));
+  }
+}
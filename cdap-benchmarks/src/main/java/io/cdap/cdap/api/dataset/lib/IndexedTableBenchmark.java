@@ -0,0 +1,187 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.api.dataset.lib;
+
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.dataset.DatasetContext;
+import io.cdap.cdap.api.dataset.DatasetProperties;
+import io.cdap.cdap.api.dataset.DatasetSpecification;
+import io.cdap.cdap.api.dataset.table.Scanner;
+import io.cdap.cdap.api.dataset.table.Table;
+import io.cdap.cdap.benchmark.BenchmarkData;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.utils.DirUtils;
+import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryTable;
+import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableService;
+import io.cdap.cdap.data2.dataset2.lib.table.leveldb.LevelDBTable;
+import io.cdap.cdap.data2.dataset2.lib.table.leveldb.LevelDBTableAdmin;
+import io.cdap.cdap.data2.dataset2.lib.table.leveldb.LevelDBTableService;
+import org.apache.tephra.Transaction;
+import org.apache.tephra.TransactionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks reading rows by index value from an {@link IndexedTable} on in-memory and on LevelDB tables, as in
+ * local and unit test deployments. Every index value matches {@code NUM_ROWS / NUM_INDEX_VALUES} rows. Reading
+ * whole rows resolves the index entries through the data table, with one multi-get per batch of
+ * {@code scanBatchSize} entries, so a batch size of {@code 1} is the read per index entry that the scanners did
+ * before. Reading only the covered column is answered from the index table alone.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndexedTableBenchmark {
+
+  private static final String DATA_TABLE = "indexedTableBenchmarkData";
+  private static final String INDEX_TABLE = "indexedTableBenchmarkIndex";
+  private static final DatasetContext CONTEXT = DatasetContext.from("benchmark");
+  private static final int NUM_ROWS = 10000;
+  private static final int NUM_INDEX_VALUES = 100;
+  private static final int NUM_COLUMNS = 10;
+  private static final byte[] INDEX_COLUMN = Bytes.toBytes("index");
+  private static final byte[] COVERED_COLUMN = Bytes.toBytes("column0");
+
+  /**
+   * The kind of the underlying tables, either {@code inmemory} or {@code leveldb}.
+   */
+  @Param({"inmemory", "leveldb"})
+  private String tableType;
+
+  /**
+   * The maximum number of data rows that the index scanners read with one multi-get.
+   */
+  @Param({"1", "100"})
+  private int scanBatchSize;
+
+  private final Random random = BenchmarkData.newRandom();
+  private CConfiguration cConf;
+  private LevelDBTableService levelDBService;
+  private IndexedTable table;
+
+  @Setup
+  public void setup() throws Exception {
+    if ("leveldb".equals(tableType)) {
+      cConf = CConfiguration.create();
+      cConf.set(Constants.CFG_DATA_LEVELDB_DIR, Files.createTempDirectory("leveldb").toString());
+      levelDBService = new LevelDBTableService();
+      levelDBService.setConfiguration(cConf);
+    }
+
+    SortedSet<byte[]> indexedColumns = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    indexedColumns.add(INDEX_COLUMN);
+    SortedSet<byte[]> coveredColumns = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    coveredColumns.add(COVERED_COLUMN);
+    table = new IndexedTable("indexedTableBenchmark", createTable(DATA_TABLE), createTable(INDEX_TABLE),
+                             indexedColumns, Bytes.EMPTY_BYTE_ARRAY, coveredColumns, scanBatchSize);
+
+    table.startTx(new Transaction(0L, 1L, new long[0], new long[0], Transaction.NO_TX_IN_PROGRESS,
+                                  TransactionType.SHORT));
+    byte[][] columns = new byte[NUM_COLUMNS + 1][];
+    columns[0] = INDEX_COLUMN;
+    for (int i = 0; i < NUM_COLUMNS; i++) {
+      columns[i + 1] = Bytes.toBytes("column" + i);
+    }
+    for (int i = 0; i < NUM_ROWS; i++) {
+      byte[][] values = new byte[NUM_COLUMNS + 1][];
+      values[0] = indexValue(i % NUM_INDEX_VALUES);
+      for (int j = 1; j < values.length; j++) {
+        values[j] = BenchmarkData.generateBytes(random, 32);
+      }
+      table.put(Bytes.toBytes(String.format("row%08d", i)), columns, values);
+    }
+    table.commitTx();
+    table.postTxCommit();
+
+    // Start the transaction that the benchmarks read in
+    table.startTx(new Transaction(1L, 2L, new long[0], new long[0], Transaction.NO_TX_IN_PROGRESS,
+                                  TransactionType.SHORT));
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    table.close();
+    if (levelDBService != null) {
+      levelDBService.close();
+      DirUtils.deleteDirectoryContents(new File(cConf.get(Constants.CFG_DATA_LEVELDB_DIR)));
+    } else {
+      InMemoryTableService.drop(DATA_TABLE);
+      InMemoryTableService.drop(INDEX_TABLE);
+    }
+  }
+
+  @Benchmark
+  public int readByIndex() {
+    return count(table.readByIndex(INDEX_COLUMN, indexValue(random.nextInt(NUM_INDEX_VALUES))));
+  }
+
+  @Benchmark
+  public int readByIndexCovered() {
+    return count(table.readByIndex(INDEX_COLUMN, indexValue(random.nextInt(NUM_INDEX_VALUES)),
+                                   new byte[][] { COVERED_COLUMN }));
+  }
+
+  private Table createTable(String name) throws Exception {
+    if (levelDBService == null) {
+      InMemoryTableService.create(name);
+      return new InMemoryTable(name);
+    }
+    DatasetSpecification spec = DatasetSpecification.builder(name, "table")
+      .properties(DatasetProperties.EMPTY.getProperties())
+      .build();
+    new LevelDBTableAdmin(CONTEXT, spec, levelDBService, cConf).create();
+    return new LevelDBTable(CONTEXT, name, levelDBService, cConf, spec);
+  }
+
+  private static byte[] indexValue(int value) {
+    return Bytes.toBytes(String.format("value%04d", value));
+  }
+
+  private static int count(Scanner scanner) {
+    int count = 0;
+    try {
+      while (scanner.next() != null) {
+        count++;
+      }
+    } finally {
+      scanner.close();
+    }
+    return count;
+  }
+}
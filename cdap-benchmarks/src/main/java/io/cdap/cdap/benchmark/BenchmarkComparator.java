@@ -0,0 +1,232 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.benchmark;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares the JSON results of a benchmark run to the results of a baseline run, and flags the benchmarks
+ * that regressed by more than a threshold. A benchmark is only flagged if the difference of the scores is also
+ * larger than the combined error margins of the two scores, so that noisy benchmarks don't cause false alarms.
+ *
+ * When run as a program, it prints a report of all benchmarks and exits with a non-zero status if any of them
+ * regressed, so that it can be used to fail a build.
+ */
+public final class BenchmarkComparator {
+
+  static final double DEFAULT_THRESHOLD_PERCENT = 10.0d;
+
+  /**
+   * The outcome of comparing a benchmark to its baseline.
+   */
+  public enum Status {
+    REGRESSION, IMPROVEMENT, UNCHANGED, NEW, MISSING
+  }
+
+  private final double threshold;
+
+  /**
+   * Creates an instance.
+   *
+   * @param thresholdPercent the relative change of a score in percent, beyond which it is considered changed
+   */
+  public BenchmarkComparator(double thresholdPercent) {
+    if (thresholdPercent < 0) {
+      throw new IllegalArgumentException("Threshold must not be negative: " + thresholdPercent);
+    }
+    this.threshold = thresholdPercent / 100;
+  }
+
+  /**
+   * Compares the results of a benchmark run to the results of the baseline run.
+   *
+   * @param baseline the JSON results of the baseline run
+   * @param current the JSON results of the current run
+   * @return the comparison for every benchmark in either of the results, in the order of the current results
+   */
+  public List<Comparison> compare(Reader baseline, Reader current) {
+    Map<String, Result> baselineResults = parse(baseline);
+    Map<String, Result> currentResults = parse(current);
+
+    List<Comparison> comparisons = new ArrayList<>();
+    for (Map.Entry<String, Result> entry : currentResults.entrySet()) {
+      Result base = baselineResults.get(entry.getKey());
+      comparisons.add(new Comparison(entry.getKey(), base, entry.getValue(),
+                                     base == null ? Status.NEW : compare(base, entry.getValue())));
+    }
+    for (Map.Entry<String, Result> entry : baselineResults.entrySet()) {
+      if (!currentResults.containsKey(entry.getKey())) {
+        comparisons.add(new Comparison(entry.getKey(), entry.getValue(), null, Status.MISSING));
+      }
+    }
+    return comparisons;
+  }
+
+  private Status compare(Result baseline, Result current) {
+    if (!baseline.mode.equals(current.mode) || !baseline.unit.equals(current.unit)) {
+      // The scores are not comparable
+      return Status.NEW;
+    }
+    double difference = current.score - baseline.score;
+    if (Math.abs(difference) <= baseline.error + current.error
+      || Math.abs(difference) <= Math.abs(baseline.score) * threshold) {
+      return Status.UNCHANGED;
+    }
+    // For the throughput mode, a higher score is better. For all other modes, the score is a time.
+    boolean higherIsBetter = "thrpt".equals(current.mode);
+    return (difference > 0) == higherIsBetter ? Status.IMPROVEMENT : Status.REGRESSION;
+  }
+
+  /**
+   * Parses the results in the JSON format written by JMH.
+   *
+   * @return the results keyed by the name and the parameters of the benchmark
+   */
+  private static Map<String, Result> parse(Reader reader) {
+    Map<String, Result> results = new LinkedHashMap<>();
+    for (JsonElement element : new JsonParser().parse(reader).getAsJsonArray()) {
+      JsonObject benchmark = element.getAsJsonObject();
+      StringBuilder key = new StringBuilder(benchmark.get("benchmark").getAsString());
+      if (benchmark.has("params")) {
+        // Sort the parameters, so that the key doesn't depend on their order
+        Map<String, String> params = new TreeMap<>();
+        for (Map.Entry<String, JsonElement> param : benchmark.getAsJsonObject("params").entrySet()) {
+          params.put(param.getKey(), param.getValue().getAsString());
+        }
+        String separator = ":";
+        for (Map.Entry<String, String> param : params.entrySet()) {
+          key.append(separator).append(param.getKey()).append('=').append(param.getValue());
+          separator = ",";
+        }
+      }
+      JsonObject metric = benchmark.getAsJsonObject("primaryMetric");
+      double error = metric.has("scoreError") ? metric.get("scoreError").getAsDouble() : 0d;
+      results.put(key.toString(), new Result(benchmark.get("mode").getAsString(),
+                                             metric.get("score").getAsDouble(),
+                                             // The error is NaN if there were too few iterations to compute it
+                                             Double.isNaN(error) ? 0d : error,
+                                             metric.get("scoreUnit").getAsString()));
+    }
+    return results;
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2 || args.length > 3) {
+      System.err.println("Usage: " + BenchmarkComparator.class.getName()
+                           + " <baseline-results.json> <current-results.json> [threshold-percent]");
+      System.exit(2);
+    }
+    double thresholdPercent = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+
+    List<Comparison> comparisons;
+    try (Reader baseline = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8);
+         Reader current = Files.newBufferedReader(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+      comparisons = new BenchmarkComparator(thresholdPercent).compare(baseline, current);
+    }
+
+    int regressions = 0;
+    for (Comparison comparison : comparisons) {
+      System.out.println(comparison);
+      if (comparison.getStatus() == Status.REGRESSION) {
+        regressions++;
+      }
+    }
+    if (regressions > 0) {
+      System.err.printf("%d benchmark(s) regressed by more than %.1f%%%n", regressions, thresholdPercent);
+      System.exit(1);
+    }
+  }
+
+  /**
+   * The comparison of the results of a benchmark.
+   */
+  public static final class Comparison {
+    private final String benchmark;
+    private final Result baseline;
+    private final Result current;
+    private final Status status;
+
+    private Comparison(String benchmark, Result baseline, Result current, Status status) {
+      this.benchmark = benchmark;
+      this.baseline = baseline;
+      this.current = current;
+      this.status = status;
+    }
+
+    /**
+     * @return the name of the benchmark, followed by its parameters if it has any
+     */
+    public String getBenchmark() {
+      return benchmark;
+    }
+
+    public Status getStatus() {
+      return status;
+    }
+
+    /**
+     * @return the relative change of the score in percent, or {@link Double#NaN} if the benchmark is not in
+     *         both results
+     */
+    public double getChangePercent() {
+      if (baseline == null || current == null || baseline.score == 0d) {
+        return Double.NaN;
+      }
+      return (current.score - baseline.score) / baseline.score * 100;
+    }
+
+    @Override
+    public String toString() {
+      Result result = current == null ? baseline : current;
+      return String.format("%-11s %s [%s]: %s -> %s %s (%+.1f%%)", status, benchmark, result.mode,
+                           baseline == null ? "-" : String.format("%.3f", baseline.score),
+                           current == null ? "-" : String.format("%.3f", current.score),
+                           result.unit, getChangePercent());
+    }
+  }
+
+  /**
+   * The primary result of a benchmark.
+   */
+  private static final class Result {
+    private final String mode;
+    private final double score;
+    private final double error;
+    private final String unit;
+
+    private Result(String mode, double score, double error, String unit) {
+      this.mode = mode;
+      this.score = score;
+      this.error = error;
+      this.unit = unit;
+    }
+  }
+}
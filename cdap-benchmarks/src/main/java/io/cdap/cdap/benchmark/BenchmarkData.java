@@ -0,0 +1,248 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.benchmark;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.dataset.lib.cube.DimensionValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Generators of the data used by the benchmarks. All data is generated from a {@link Random} with a fixed seed,
+ * so that every run of a benchmark works on the same data, and results of different runs can be compared.
+ */
+public final class BenchmarkData {
+
+  private static final String[] PROGRAM_TYPES = { "Workflow", "Spark", "MapReduce", "Service", "Worker" };
+  private static final String[] WORDS = {
+    "customer", "order", "purchase", "price", "item", "quantity", "address", "city", "country", "status",
+    "timestamp", "amount", "currency", "account", "region", "product", "category", "discount", "shipping", "user"
+  };
+  private static final Schema[] FIELD_TYPES = {
+    Schema.of(Schema.Type.STRING),
+    Schema.of(Schema.Type.INT),
+    Schema.of(Schema.Type.LONG),
+    Schema.of(Schema.Type.DOUBLE),
+    Schema.of(Schema.Type.BOOLEAN),
+    Schema.nullableOf(Schema.of(Schema.Type.STRING)),
+    Schema.of(Schema.Type.BYTES),
+    Schema.arrayOf(Schema.of(Schema.Type.STRING)),
+    Schema.mapOf(Schema.of(Schema.Type.STRING), Schema.of(Schema.Type.LONG)),
+  };
+
+  private BenchmarkData() {
+    // no-op
+  }
+
+  /**
+   * Creates a new {@link Random} with a fixed seed.
+   */
+  public static Random newRandom() {
+    return new Random(0x5eedL);
+  }
+
+  /**
+   * Creates a flat record schema with the given number of fields, as it is common for the output of a pipeline
+   * stage that reads a database table or a CSV file. The fields cycle through all scalar types, nullable fields,
+   * arrays and maps.
+   */
+  public static Schema wideSchema(int numFields) {
+    List<Schema.Field> fields = new ArrayList<>(numFields);
+    for (int i = 0; i < numFields; i++) {
+      fields.add(Schema.Field.of(WORDS[i % WORDS.length] + "_" + i, FIELD_TYPES[i % FIELD_TYPES.length]));
+    }
+    return Schema.recordOf("wide" + numFields, fields);
+  }
+
+  /**
+   * Creates a schema of records nested to the given depth. Every level has the given number of scalar fields,
+   * an array of strings and a nullable record of the next level.
+   */
+  public static Schema nestedSchema(int depth, int fieldsPerLevel) {
+    Schema schema = null;
+    for (int level = depth; level > 0; level--) {
+      List<Schema.Field> fields = new ArrayList<>();
+      for (int i = 0; i < fieldsPerLevel; i++) {
+        fields.add(Schema.Field.of(WORDS[i % WORDS.length] + "_" + i, FIELD_TYPES[i % 5]));
+      }
+      fields.add(Schema.Field.of("tags", Schema.arrayOf(Schema.of(Schema.Type.STRING))));
+      if (schema != null) {
+        fields.add(Schema.Field.of("child", Schema.nullableOf(schema)));
+      }
+      schema = Schema.recordOf("level" + level, fields);
+    }
+    return schema;
+  }
+
+  /**
+   * Creates a schema of the given shape, which is either "wide-N" for a {@link #wideSchema(int) wide schema}
+   * with N fields, or "nested-D" for a {@link #nestedSchema(int, int) nested schema} with a depth of D and
+   * ten fields per level.
+   */
+  public static Schema schemaOf(String shape) {
+    int size = Integer.parseInt(shape.substring(shape.indexOf('-') + 1));
+    if (shape.startsWith("wide-")) {
+      return wideSchema(size);
+    }
+    if (shape.startsWith("nested-")) {
+      return nestedSchema(size, 10);
+    }
+    throw new IllegalArgumentException("Unknown schema shape " + shape);
+  }
+
+  /**
+   * Generates a record with random values for the given record schema.
+   */
+  public static StructuredRecord generateRecord(Schema schema, Random random) {
+    StructuredRecord.Builder builder = StructuredRecord.builder(schema);
+    //noinspection ConstantConditions
+    for (Schema.Field field : schema.getFields()) {
+      builder.set(field.getName(), generateValue(field.getSchema(), random));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Generates the given number of records with random values for the given record schema.
+   */
+  public static List<StructuredRecord> generateRecords(Schema schema, int count, Random random) {
+    List<StructuredRecord> records = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      records.add(generateRecord(schema, random));
+    }
+    return records;
+  }
+
+  /**
+   * Generates a random value for the given schema.
+   */
+  public static Object generateValue(Schema schema, Random random) {
+    switch (schema.getType()) {
+      case NULL:
+        return null;
+      case BOOLEAN:
+        return random.nextBoolean();
+      case INT:
+        return random.nextInt();
+      case LONG:
+        return random.nextLong();
+      case FLOAT:
+        return random.nextFloat();
+      case DOUBLE:
+        return random.nextDouble();
+      case STRING:
+        return generateText(random, 1 + random.nextInt(4));
+      case BYTES:
+        return generateBytes(random, 16 + random.nextInt(48));
+      case ENUM:
+        return schema.getEnumValue(random.nextInt(schema.getEnumValues().size()));
+      case ARRAY: {
+        int size = random.nextInt(8);
+        List<Object> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+          list.add(generateValue(schema.getComponentSchema(), random));
+        }
+        return list;
+      }
+      case MAP: {
+        int size = random.nextInt(8);
+        Map<Object, Object> map = new HashMap<>();
+        //noinspection ConstantConditions
+        for (int i = 0; i < size; i++) {
+          map.put(generateValue(schema.getMapSchema().getKey(), random),
+                  generateValue(schema.getMapSchema().getValue(), random));
+        }
+        return map;
+      }
+      case RECORD:
+        return generateRecord(schema, random);
+      case UNION:
+        //noinspection ConstantConditions
+        if (schema.isNullable()) {
+          // Most values of nullable fields are set
+          return random.nextInt(4) == 0 ? null : generateValue(schema.getNonNullable(), random);
+        }
+        return generateValue(schema.getUnionSchemas().get(random.nextInt(schema.getUnionSchemas().size())), random);
+      default:
+        throw new IllegalArgumentException("Unsupported schema type " + schema.getType());
+    }
+  }
+
+  /**
+   * Generates text of the given number of words.
+   */
+  public static String generateText(Random random, int numWords) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < numWords; i++) {
+      if (i > 0) {
+        builder.append(' ');
+      }
+      builder.append(WORDS[random.nextInt(WORDS.length)]);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Generates random bytes of the given size.
+   */
+  public static byte[] generateBytes(Random random, int size) {
+    byte[] bytes = new byte[size];
+    random.nextBytes(bytes);
+    return bytes;
+  }
+
+  /**
+   * Generates the metrics dimensions of a volume of program runs, as they are emitted for every run of every program.
+   * The dimensions are ordered by namespace, application and program, the same as the runs would be if they were
+   * listed from the run record store.
+   *
+   * @param namespaces the number of namespaces
+   * @param appsPerNamespace the number of applications in every namespace
+   * @param programsPerApp the number of programs in every application
+   * @param runsPerProgram the number of runs of every program
+   * @return the dimension values for every run
+   */
+  public static List<List<DimensionValue>> generateRunDimensions(int namespaces, int appsPerNamespace,
+                                                                 int programsPerApp, int runsPerProgram) {
+    Random random = newRandom();
+    List<List<DimensionValue>> runs = new ArrayList<>();
+    for (int ns = 0; ns < namespaces; ns++) {
+      for (int app = 0; app < appsPerNamespace; app++) {
+        for (int program = 0; program < programsPerApp; program++) {
+          String programType = PROGRAM_TYPES[program % PROGRAM_TYPES.length];
+          for (int run = 0; run < runsPerProgram; run++) {
+            runs.add(Arrays.asList(new DimensionValue("ns", "namespace" + ns),
+                                   new DimensionValue("app", "application" + app),
+                                   new DimensionValue("prt", programType.substring(0, 1)),
+                                   new DimensionValue("prg", programType.toLowerCase() + program),
+                                   new DimensionValue("run", new UUID(random.nextLong(), random.nextLong()).toString()),
+                                   new DimensionValue("ins", "0")));
+          }
+        }
+      }
+    }
+    return runs;
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The main class for running the benchmarks. It accepts the same command line options as the JMH main class,
+ * for example a regular expression to select the benchmarks to run. Unless another result format is given,
+ * the results are written in the JSON format to {@value #DEFAULT_RESULT_FILE}, so that they can be compared
+ * to the results of another run with the {@link BenchmarkComparator}.
+ */
+public final class BenchmarkRunner {
+
+  static final String DEFAULT_RESULT_FILE = "benchmark-results.json";
+
+  private BenchmarkRunner() {
+    // no-op
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    CommandLineOptions cmdOptions;
+    try {
+      cmdOptions = new CommandLineOptions(args);
+    } catch (CommandLineOptionException e) {
+      System.err.println("Error parsing command line: " + e.getMessage());
+      System.exit(1);
+      return;
+    }
+
+    if (cmdOptions.shouldHelp()) {
+      try {
+        cmdOptions.showHelp();
+      } catch (Exception e) {
+        System.err.println("Failed to show help: " + e.getMessage());
+      }
+      return;
+    }
+    if (cmdOptions.shouldList()) {
+      new Runner(cmdOptions).list();
+      return;
+    }
+
+    ChainedOptionsBuilder options = new OptionsBuilder().parent(cmdOptions);
+    if (!cmdOptions.getResultFormat().hasValue()) {
+      options.resultFormat(ResultFormatType.JSON);
+      if (!cmdOptions.getResult().hasValue()) {
+        options.result(DEFAULT_RESULT_FILE);
+      }
+    }
+    new Runner(options.build()).run();
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.common.internal.remote;
+
+import io.cdap.cdap.common.http.DefaultHttpRequestConfig;
+import io.cdap.common.http.HttpMethod;
+import io.cdap.common.http.HttpRequest;
+import io.cdap.common.http.HttpResponse;
+import io.cdap.http.AbstractHttpHandler;
+import io.cdap.http.HttpResponder;
+import io.cdap.http.NettyHttpService;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.apache.twill.common.Threads;
+import org.apache.twill.discovery.Discoverable;
+import org.apache.twill.discovery.InMemoryDiscoveryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+
+/**
+ * Benchmarks a program container making many concurrent calls to an internal service, such as metadata and dataset
+ * calls, with the blocking {@link RemoteClient} and with the {@link AsyncRemoteClient}. Each operation makes
+ * {@code concurrency} calls to a loopback service and waits for all of them. The blocking client needs a thread for
+ * each outstanding call, so it runs on a pool of {@code concurrency} threads, while the asynchronous client issues
+ * all calls from the benchmark thread and handles them on {@code eventLoopThreads} event loop threads, with at most
+ * {@code maxConnections} connections to the service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RemoteClientBenchmark {
+
+  /**
+   * Number of calls that are outstanding at the same time.
+   */
+  @Param({"16", "256"})
+  private int concurrency;
+
+  /**
+   * Number of event loop threads of the asynchronous client.
+   */
+  @Param({"1"})
+  private int eventLoopThreads;
+
+  /**
+   * Maximum number of connections the asynchronous client keeps to the service.
+   */
+  @Param({"16"})
+  private int maxConnections;
+
+  private NettyHttpService httpService;
+  private ExecutorService callerThreads;
+  private EventLoopGroup eventLoopGroup;
+  private RemoteClient remoteClient;
+  private AsyncRemoteClient asyncRemoteClient;
+
+  @Setup
+  public void setup() throws Exception {
+    httpService = NettyHttpService.builder("benchmark")
+      .setHttpHandlers(new MetadataHandler())
+      .setExecThreadPoolSize(16)
+      .build();
+    httpService.start();
+
+    InMemoryDiscoveryService discoveryService = new InMemoryDiscoveryService();
+    discoveryService.register(new Discoverable("benchmark", httpService.getBindAddress()));
+
+    callerThreads = Executors.newFixedThreadPool(concurrency, Threads.createDaemonThreadFactory("caller-%d"));
+    eventLoopGroup = new NioEventLoopGroup(eventLoopThreads, Threads.createDaemonThreadFactory("async-client-%d"));
+    remoteClient = new RemoteClient(discoveryService, "benchmark", new DefaultHttpRequestConfig(false), "/v3/");
+    asyncRemoteClient = new AsyncRemoteClient(discoveryService, "benchmark", new DefaultHttpRequestConfig(false),
+                                              "/v3/", eventLoopGroup, maxConnections);
+  }
+
+  @TearDown
+  public void teardown() throws Exception {
+    asyncRemoteClient.close();
+    eventLoopGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS).await();
+    callerThreads.shutdownNow();
+    httpService.stop();
+  }
+
+  @Benchmark
+  public void blocking(Blackhole blackhole) throws Exception {
+    HttpRequest request = remoteClient.requestBuilder(HttpMethod.GET, "metadata").build();
+    List<Future<HttpResponse>> futures = new ArrayList<>(concurrency);
+    for (int i = 0; i < concurrency; i++) {
+      futures.add(callerThreads.submit(() -> remoteClient.execute(request)));
+    }
+    for (Future<HttpResponse> future : futures) {
+      blackhole.consume(future.get().getResponseBody());
+    }
+  }
+
+  @Benchmark
+  public void async(Blackhole blackhole) throws Exception {
+    HttpRequest request = asyncRemoteClient.requestBuilder(HttpMethod.GET, "metadata").build();
+    List<CompletableFuture<HttpResponse>> futures = new ArrayList<>(concurrency);
+    for (int i = 0; i < concurrency; i++) {
+      futures.add(asyncRemoteClient.execute(request));
+    }
+    for (CompletableFuture<HttpResponse> future : futures) {
+      blackhole.consume(future.get().getResponseBody());
+    }
+  }
+
+  /**
+   * Handler that answers like a small metadata lookup.
+   */
+  public static final class MetadataHandler extends AbstractHttpHandler {
+
+    @GET
+    @Path("/v3/metadata")
+    public void metadata(io.netty.handler.codec.http.HttpRequest request, HttpResponder responder) {
+      responder.sendJson(HttpResponseStatus.OK, "{\"properties\":{\"owner\":\"benchmark\"},\"tags\":[\"tag\"]}");
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.common.trace;
+
+import io.cdap.http.internal.HandlerInfo;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the overhead that tracing adds to every request and instrumented operation. With the default sample
+ * rate of 0, no request is traced, hence the {@link TraceHook} of every http service and the spans started by
+ * instrumented code should cost next to nothing. A sample rate of 1 shows the cost of recording every span.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TracingBenchmark {
+
+  private static final int BUFFER_SIZE = 10000;
+
+  /**
+   * Fraction of the requests that start a new trace, see {@link io.cdap.cdap.common.conf.Constants.Trace#SAMPLE_RATE}.
+   */
+  @Param({"0", "1"})
+  private double sampleRate;
+
+  private TraceHook hook;
+  private HttpRequest request;
+  private HandlerInfo handlerInfo;
+
+  @Setup
+  public void setup() {
+    Tracing.reset(sampleRate, BUFFER_SIZE);
+    hook = new TraceHook("benchmark");
+    request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/v3/namespaces/default/apps");
+    handlerInfo = new HandlerInfo("io.cdap.cdap.gateway.handlers.AppLifecycleHttpHandler", "getAllApps");
+  }
+
+  @TearDown
+  public void tearDown() {
+    Tracing.clearCurrent();
+  }
+
+  /**
+   * The calls that the http service makes to the hook around every handler method.
+   */
+  @Benchmark
+  public void traceHook() {
+    hook.preCall(request, null, handlerInfo);
+    hook.postCall(request, HttpResponseStatus.OK, handlerInfo);
+  }
+
+  /**
+   * A span started by instrumented code in a thread that is not in a trace, such as a store operation of a
+   * request that is not sampled.
+   */
+  @Benchmark
+  public void startSpanWithoutTrace(Blackhole blackhole) {
+    try (Span span = Tracing.startSpan("store.read")) {
+      span.tag("table", "app_meta");
+      blackhole.consume(span);
+    }
+  }
+
+  /**
+   * A root span and a child span, such as for a fired schedule that writes to the store.
+   */
+  @Benchmark
+  public void startTraceWithSpan(Blackhole blackhole) {
+    try (Span root = Tracing.startTrace("schedule.time.trigger")) {
+      root.tag("schedule", "benchmark");
+      try (Span child = Tracing.startSpan("store.write")) {
+        blackhole.consume(child);
+      }
+    }
+  }
+}
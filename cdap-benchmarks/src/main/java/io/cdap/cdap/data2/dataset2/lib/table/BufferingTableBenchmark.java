@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.data2.dataset2.lib.table;
+
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.dataset.table.Row;
+import io.cdap.cdap.api.dataset.table.Scanner;
+import io.cdap.cdap.benchmark.BenchmarkData;
+import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryTable;
+import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableService;
+import org.apache.tephra.Transaction;
+import org.apache.tephra.TransactionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for reads from a {@link BufferingTable} inside of a transaction that has written to the table,
+ * so that the reads have to merge the persisted rows with the rows in the write buffer. The table is an
+ * {@link InMemoryTable}, so that the benchmarks measure the merging rather than the storage.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BufferingTableBenchmark {
+
+  private static final String TABLE_NAME = "bufferingTableBenchmark";
+  private static final int NUM_ROWS = 10000;
+  private static final int NUM_COLUMNS = 10;
+  private static final int SCAN_ROWS = 100;
+
+  /**
+   * The percentage of the rows that are written again in the transaction that reads.
+   */
+  @Param({"0", "10", "50"})
+  private int bufferedPercent;
+
+  private final Random random = BenchmarkData.newRandom();
+  private byte[][] columns;
+  private InMemoryTable table;
+
+  @Setup
+  public void setup() throws Exception {
+    InMemoryTableService.create(TABLE_NAME);
+    columns = new byte[NUM_COLUMNS][];
+    for (int i = 0; i < NUM_COLUMNS; i++) {
+      columns[i] = Bytes.toBytes("column" + i);
+    }
+
+    table = new InMemoryTable(TABLE_NAME);
+    table.startTx(new Transaction(0L, 1L, new long[0], new long[0], Transaction.NO_TX_IN_PROGRESS,
+                                  TransactionType.SHORT));
+    for (int i = 0; i < NUM_ROWS; i++) {
+      table.put(rowKey(i), columns, values());
+    }
+    table.commitTx();
+    table.postTxCommit();
+
+    // Start the transaction that the benchmarks read in, and update some of the rows in the write buffer
+    table.startTx(new Transaction(1L, 2L, new long[0], new long[0], Transaction.NO_TX_IN_PROGRESS,
+                                  TransactionType.SHORT));
+    for (int i = 0; i < NUM_ROWS; i++) {
+      if (random.nextInt(100) < bufferedPercent) {
+        table.put(rowKey(i), columns, values());
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    table.close();
+    InMemoryTableService.drop(TABLE_NAME);
+  }
+
+  @Benchmark
+  public Row get() {
+    return table.get(rowKey(random.nextInt(NUM_ROWS)));
+  }
+
+  @Benchmark
+  public Row getColumns() {
+    return table.get(rowKey(random.nextInt(NUM_ROWS)), new byte[][] { columns[1], columns[NUM_COLUMNS / 2] });
+  }
+
+  @Benchmark
+  public int scan() {
+    int start = random.nextInt(NUM_ROWS - SCAN_ROWS);
+    int count = 0;
+    try (Scanner scanner = table.scan(rowKey(start), rowKey(start + SCAN_ROWS))) {
+      while (scanner.next() != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static byte[] rowKey(int row) {
+    return Bytes.toBytes(String.format("row%08d", row));
+  }
+
+  private byte[][] values() {
+    byte[][] values = new byte[NUM_COLUMNS][];
+    for (int i = 0; i < NUM_COLUMNS; i++) {
+      values[i] = BenchmarkData.generateBytes(random, 32);
+    }
+    return values;
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.dataset2.lib.table;
+
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.dataset.DatasetContext;
+import io.cdap.cdap.api.dataset.DatasetSpecification;
+import io.cdap.cdap.benchmark.BenchmarkData;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryTable;
+import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableAdmin;
+import org.apache.tephra.Transaction;
+import org.apache.tephra.TransactionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for a transaction that writes more to a {@link BufferingTable} than fits in its write buffer, so that
+ * the buffered changes are persisted before the transaction commits. Compares a write buffer of limited size with
+ * an unbounded write buffer, which keeps all changes in memory until commit. The table is an {@link InMemoryTable},
+ * so that the benchmarks measure the buffering rather than the storage.
+ *
+ * The memory used by the write buffer is not measured directly. Run with the JMH gc profiler ({@code -prof gc})
+ * to compare the allocations per transaction.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BufferingTableWriteBenchmark {
+
+  private static final String NAMESPACE = "benchmark";
+  private static final String TABLE_NAME = "bufferingTableWriteBenchmark";
+  private static final int NUM_ROWS = 10000;
+  private static final int NUM_COLUMNS = 10;
+  private static final int VALUE_SIZE = 64;
+
+  /**
+   * The maximum size of the write buffer in bytes, or 0 for an unbounded write buffer.
+   */
+  @Param({"0", "1048576"})
+  private long writeBufferMaxBytes;
+
+  private final Random random = BenchmarkData.newRandom();
+  private byte[][] rows;
+  private byte[][] columns;
+  private byte[][][] values;
+  private InMemoryTableAdmin admin;
+  private InMemoryTable table;
+  private long writePointer;
+
+  @Setup
+  public void setup() throws Exception {
+    rows = new byte[NUM_ROWS][];
+    values = new byte[NUM_ROWS][][];
+    for (int i = 0; i < NUM_ROWS; i++) {
+      rows[i] = Bytes.toBytes(String.format("row%08d", i));
+      values[i] = new byte[NUM_COLUMNS][];
+      for (int j = 0; j < NUM_COLUMNS; j++) {
+        values[i][j] = BenchmarkData.generateBytes(random, VALUE_SIZE);
+      }
+    }
+    columns = new byte[NUM_COLUMNS][];
+    for (int i = 0; i < NUM_COLUMNS; i++) {
+      columns[i] = Bytes.toBytes("column" + i);
+    }
+
+    CConfiguration cConf = CConfiguration.create();
+    DatasetContext datasetContext = DatasetContext.from(NAMESPACE);
+    admin = new InMemoryTableAdmin(datasetContext, TABLE_NAME, cConf);
+    admin.create();
+    DatasetSpecification spec = DatasetSpecification.builder(TABLE_NAME, "table")
+      .properties(ImmutableMap.of(BufferingTable.PROPERTY_WRITE_BUFFER_MAX_BYTES, String.valueOf(writeBufferMaxBytes)))
+      .build();
+    table = new InMemoryTable(datasetContext, spec, cConf);
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    table.close();
+    admin.drop();
+  }
+
+  /**
+   * Removes the rows written by an invocation, so that the table does not accumulate versions across invocations.
+   * This is fine at invocation level, since each invocation writes many rows.
+   */
+  @TearDown(Level.Invocation)
+  public void truncate() {
+    admin.truncate();
+  }
+
+  /**
+   * Writes all rows in one transaction and commits it.
+   */
+  @Benchmark
+  public boolean writeTransaction() throws Exception {
+    long readPointer = writePointer;
+    writePointer++;
+    table.startTx(new Transaction(readPointer, writePointer, new long[0], new long[0],
+                                  Transaction.NO_TX_IN_PROGRESS, TransactionType.SHORT));
+    for (int i = 0; i < NUM_ROWS; i++) {
+      table.put(rows[i], columns, values[i]);
+    }
+    boolean committed = table.commitTx();
+    table.postTxCommit();
+    return committed;
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.dataset2.lib.timeseries;
+
+import io.cdap.cdap.api.dataset.lib.cube.DimensionValue;
+import io.cdap.cdap.benchmark.BenchmarkData;
+import io.cdap.cdap.data2.dataset2.lib.table.MetricsTable;
+import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryMetricsTable;
+import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the {@link FactCodec}, which encodes the row key of every metric written to and read from
+ * the metrics tables. The dimensions are those of the program run metrics, and all entity ids are assigned
+ * during the setup, so that the benchmarks measure the encoding with a warm entity cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FactCodecBenchmark {
+
+  private static final String TABLE_NAME = "FactCodecBenchmark";
+  private static final String MEASURE_NAME = "system.process.events.processed";
+  private static final int RESOLUTION = 1;
+  private static final int ROLL_TIME_BASE_INTERVAL = 3600;
+
+  private final Random random = BenchmarkData.newRandom();
+  private FactCodec codec;
+  private List<List<DimensionValue>> runs;
+  private List<byte[]> rowKeys;
+  private long timestamp;
+
+  @Setup
+  public void setup() {
+    InMemoryTableService.create(TABLE_NAME);
+    MetricsTable table = new InMemoryMetricsTable(TABLE_NAME);
+    codec = new FactCodec(new EntityTable(table), RESOLUTION, ROLL_TIME_BASE_INTERVAL);
+
+    runs = BenchmarkData.generateRunDimensions(2, 10, 5, 20);
+    timestamp = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+    rowKeys = new ArrayList<>(runs.size());
+    for (List<DimensionValue> run : runs) {
+      rowKeys.add(codec.createRowKey(run, MEASURE_NAME, timestamp));
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    InMemoryTableService.drop(TABLE_NAME);
+  }
+
+  @Benchmark
+  public byte[] createRowKey() {
+    return codec.createRowKey(runs.get(random.nextInt(runs.size())), MEASURE_NAME, timestamp);
+  }
+
+  @Benchmark
+  public byte[] createColumn() {
+    return codec.createColumn(timestamp + random.nextInt(ROLL_TIME_BASE_INTERVAL));
+  }
+
+  @Benchmark
+  public List<DimensionValue> getDimensionValues() {
+    return codec.getDimensionValues(rowKeys.get(random.nextInt(rowKeys.size())));
+  }
+
+  @Benchmark
+  public String getMeasureName() {
+    return codec.getMeasureName(rowKeys.get(random.nextInt(rowKeys.size())));
+  }
+
+  @Benchmark
+  public byte[] createFuzzyRowMask() {
+    return codec.createFuzzyRowMask(runs.get(random.nextInt(runs.size())), MEASURE_NAME);
+  }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.etl.spark.streaming;
+
+import io.cdap.cdap.benchmark.BenchmarkData;
+import io.cdap.cdap.etl.api.Emitter;
+import io.cdap.cdap.etl.api.InvalidEntry;
+import io.cdap.cdap.etl.api.ReducibleAggregator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the work done for one batch of a streaming count over the last hour, at 50k events per second.
+ * Compares recomputing the count from all the events of the window on every batch, as a window stage followed by
+ * an aggregator does, with the incremental aggregation of {@link DStreamCollection}, which reduces the events of
+ * the batch and merges them into the aggregate values kept in the streaming state.
+ *
+ * Both paths call a {@link ReducibleAggregator} the way the Spark functions do, without Spark itself, so only the
+ * aggregation cost is measured. The recompute path reduces the events of the window as they are read, which is a
+ * lower bound on the cost of grouping them with groupByKey. The events of the window are not kept in memory, but
+ * are derived from a fixed set of group keys.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StreamingAggregateBenchmark {
+
+  @Param({"50000"})
+  private int eventsPerSecond;
+
+  /**
+   * The batch interval of the pipeline in seconds.
+   */
+  @Param({"10"})
+  private int batchSeconds;
+
+  /**
+   * The width of the window in seconds, which is also the state timeout of the incremental aggregation.
+   */
+  @Param({"3600"})
+  private int windowSeconds;
+
+  /**
+   * The number of distinct groups in the events.
+   */
+  @Param({"1000"})
+  private int numGroups;
+
+  private CountAggregator aggregator;
+  private CountingEmitter emitter;
+  private int[] groupKeys;
+  private int batchesInWindow;
+  private Map<Integer, Long> state;
+  private Map<Integer, Integer> stateUpdateBatch;
+  private int batch;
+
+  @Setup
+  public void setup() {
+    Random random = BenchmarkData.newRandom();
+    groupKeys = new int[eventsPerSecond * batchSeconds];
+    for (int i = 0; i < groupKeys.length; i++) {
+      groupKeys[i] = random.nextInt(numGroups);
+    }
+    batchesInWindow = windowSeconds / batchSeconds;
+    aggregator = new CountAggregator();
+    emitter = new CountingEmitter();
+    state = new HashMap<>();
+    stateUpdateBatch = new HashMap<>();
+    batch = 0;
+  }
+
+  /**
+   * Counts all the events of the window, then emits the count of every group.
+   */
+  @Benchmark
+  public long windowRecompute() throws Exception {
+    Map<Integer, Long> aggValues = new HashMap<>();
+    for (int windowBatch = batch - batchesInWindow + 1; windowBatch <= batch; windowBatch++) {
+      reduceBatch(windowBatch, aggValues);
+    }
+    for (Map.Entry<Integer, Long> entry : aggValues.entrySet()) {
+      aggregator.finalize(entry.getKey(), entry.getValue(), emitter);
+    }
+    batch++;
+    return emitter.count;
+  }
+
+  /**
+   * Counts the events of the batch, merges the counts into the state, and emits the count of the groups in the
+   * batch. Groups that are not updated within the window are removed from the state.
+   */
+  @Benchmark
+  public long incremental() throws Exception {
+    Map<Integer, Long> batchValues = new HashMap<>();
+    reduceBatch(batch, batchValues);
+    for (Map.Entry<Integer, Long> entry : batchValues.entrySet()) {
+      Long stateValue = state.get(entry.getKey());
+      Long aggValue = stateValue == null ? entry.getValue() : aggregator.mergePartitions(stateValue, entry.getValue());
+      state.put(entry.getKey(), aggValue);
+      stateUpdateBatch.put(entry.getKey(), batch);
+      aggregator.finalize(entry.getKey(), aggValue, emitter);
+    }
+    Iterator<Map.Entry<Integer, Integer>> iterator = stateUpdateBatch.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Integer, Integer> entry = iterator.next();
+      if (entry.getValue() <= batch - batchesInWindow) {
+        state.remove(entry.getKey());
+        iterator.remove();
+      }
+    }
+    batch++;
+    return emitter.count;
+  }
+
+  /**
+   * Reduces the events of the given batch into the given aggregate values, as combineByKey does.
+   */
+  private void reduceBatch(int batch, Map<Integer, Long> aggValues) throws Exception {
+    // every batch reads the group keys from a different offset, so that batches differ
+    int offset = Math.floorMod(batch * 7919, groupKeys.length);
+    for (int i = 0; i < groupKeys.length; i++) {
+      Integer groupKey = groupKeys[(offset + i) % groupKeys.length];
+      Long aggValue = aggValues.get(groupKey);
+      aggValues.put(groupKey, aggValue == null
+        ? aggregator.initializeAggregateValue(groupKey) : aggregator.mergeValues(aggValue, groupKey));
+    }
+  }
+
+  /**
+   * Aggregator that counts the events of each group.
+   */
+  private static final class CountAggregator implements ReducibleAggregator<Integer, Integer, Long, Long> {
+
+    @Override
+    public void groupBy(Integer groupValue, Emitter<Integer> emitter) {
+      emitter.emit(groupValue);
+    }
+
+    @Override
+    public Long initializeAggregateValue(Integer groupValue) {
+      return 1L;
+    }
+
+    @Override
+    public Long mergeValues(Long aggValue, Integer groupValue) {
+      return aggValue + 1;
+    }
+
+    @Override
+    public Long mergePartitions(Long value1, Long value2) {
+      return value1 + value2;
+    }
+
+    @Override
+    public void finalize(Integer groupKey, Long aggValue, Emitter<Long> emitter) {
+      emitter.emit(aggValue);
+    }
+  }
+
+  /**
+   * Emitter that only keeps the number of emitted values, so that the output is not optimized away.
+   */
+  private static final class CountingEmitter implements Emitter<Long> {
+
+    private long count;
+
+    @Override
+    public void emit(Long value) {
+      count++;
+    }
+
+    @Override
+    public void emitAlert(Map<String, String> payload) {
+      // no-op
+    }
+
+    @Override
+    public void emitError(InvalidEntry<Long> invalidEntry) {
+      // no-op
+    }
+  }
+}
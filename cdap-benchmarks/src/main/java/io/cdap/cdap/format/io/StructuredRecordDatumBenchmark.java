@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.format.io;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.benchmark.BenchmarkData;
+import io.cdap.cdap.common.io.BinaryDecoder;
+import io.cdap.cdap.common.io.BinaryEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the binary encoding and decoding of {@link StructuredRecord} with the
+ * {@link StructuredRecordDatumWriter} and {@link StructuredRecordDatumReader}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StructuredRecordDatumBenchmark {
+
+  private static final int NUM_RECORDS = 64;
+
+  // see BenchmarkData#schemaOf
+  @Param({"wide-20", "wide-200", "nested-4"})
+  private String shape;
+
+  private final StructuredRecordDatumWriter writer = new StructuredRecordDatumWriter();
+  private final StructuredRecordDatumReader reader = new StructuredRecordDatumReader();
+  private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+  private Schema schema;
+  private List<StructuredRecord> records;
+  private byte[][] encoded;
+  private int next;
+
+  @Setup
+  public void setup() throws IOException {
+    schema = BenchmarkData.schemaOf(shape);
+    // Cycle through different records, so that the benchmark is not tuned to the values of a single record
+    records = BenchmarkData.generateRecords(schema, NUM_RECORDS, BenchmarkData.newRandom());
+    encoded = new byte[NUM_RECORDS][];
+    for (int i = 0; i < NUM_RECORDS; i++) {
+      output.reset();
+      writer.encode(records.get(i), new BinaryEncoder(output));
+      encoded[i] = output.toByteArray();
+    }
+  }
+
+  @Benchmark
+  public int encode() throws IOException {
+    output.reset();
+    writer.encode(records.get(nextIndex()), new BinaryEncoder(output));
+    return output.size();
+  }
+
+  @Benchmark
+  public StructuredRecord decode() throws IOException {
+    return reader.read(new BinaryDecoder(new ByteArrayInputStream(encoded[nextIndex()])), schema);
+  }
+
+  private int nextIndex() {
+    next = (next + 1) % NUM_RECORDS;
+    return next;
+  }
+}
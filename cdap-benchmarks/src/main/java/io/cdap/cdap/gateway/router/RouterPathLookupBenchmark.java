@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.gateway.router;
+
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the routing decision that the router makes for every request: taking the normalized path of the request
+ * URI with {@link RouterServiceLookup#getPath(String)}, and choosing the destination service with
+ * {@link RouterPathLookup#getRoutingService(String, HttpRequest)}. The requests cycle through a mix of user service
+ * calls, program lifecycle, metadata, metrics, logs, dataset and explore calls. Parsing the URIs with {@link URI}, as
+ * the router did for every request before, is measured for comparison.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouterPathLookupBenchmark {
+
+  private static final String[][] REQUESTS = {
+    { "GET", "/v3/namespaces/default/apps/PurchaseHistory/services/CatalogLookup/methods/v1/product/1234" },
+    { "POST", "/v3/namespaces/default/apps/PurchaseHistory/versions/1.0/services/CatalogLookup/methods/lookup" },
+    { "POST", "/v3/namespaces/default/apps/PurchaseHistory/workflows/PurchaseWorkflow/start" },
+    { "GET", "/v3/namespaces/default/apps/PurchaseHistory/workflows/PurchaseWorkflow/runs?limit=10&status=running" },
+    { "GET", "/v3/namespaces/default/apps/PurchaseHistory/metadata/tags?scope=USER" },
+    { "POST", "/v3/metrics/query?tag=namespace:default&metric=system.process.events.processed&aggregate=true" },
+    { "GET", "/v3/namespaces/default/apps/PurchaseHistory/spark/PurchaseSpark/logs?start=0&stop=1000" },
+    { "GET", "/v3/namespaces/default/data/datasets/purchases" },
+    { "POST", "/v3/namespaces/default/data/explore/queries" },
+    { "GET", "/v3/namespaces/default/apps" },
+    { "HEAD", "/v3/namespaces/default/apps/PurchaseHistory" },
+    { "GET", "/ping" },
+  };
+
+  private final RouterPathLookup pathLookup = new RouterPathLookup();
+  private HttpRequest[] requests;
+  private String[] paths;
+  private int next;
+
+  @Setup
+  public void setup() {
+    requests = new HttpRequest[REQUESTS.length];
+    paths = new String[REQUESTS.length];
+    for (int i = 0; i < REQUESTS.length; i++) {
+      requests[i] = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.valueOf(REQUESTS[i][0]), REQUESTS[i][1]);
+      paths[i] = RouterServiceLookup.getPath(REQUESTS[i][1]);
+    }
+  }
+
+  @Benchmark
+  public String getPath() {
+    return RouterServiceLookup.getPath(requests[nextIndex()].uri());
+  }
+
+  @Benchmark
+  public String getPathWithURI() {
+    return URI.create(requests[nextIndex()].uri()).normalize().getPath();
+  }
+
+  @Benchmark
+  public void getRoutingService(Blackhole blackhole) {
+    int index = nextIndex();
+    blackhole.consume(pathLookup.getRoutingService(paths[index], requests[index]));
+  }
+
+  @Benchmark
+  public void route(Blackhole blackhole) {
+    HttpRequest request = requests[nextIndex()];
+    blackhole.consume(pathLookup.getRoutingService(RouterServiceLookup.getPath(request.uri()), request));
+  }
+
+  private int nextIndex() {
+    int index = next;
+    next = index + 1 == REQUESTS.length ? 0 : index + 1;
+    return index;
+  }
+}
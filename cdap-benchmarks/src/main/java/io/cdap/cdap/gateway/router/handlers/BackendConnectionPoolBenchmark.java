@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.gateway.router.handlers;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.apache.twill.discovery.Discoverable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks getting a connection to an internal service for a request forwarded by the router, and giving it back
+ * after the response, as the {@link HttpRequestRouter} does with the {@link BackendConnectionPool}. With a maximum
+ * of {@code 0} idle connections, every request makes a new loopback TCP connection and closes it afterwards, which
+ * is what the router did before pooling. Otherwise the connection of the previous request is reused.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BackendConnectionPoolBenchmark {
+
+  /**
+   * The maximum number of idle connections per internal service, or 0 for no pooling.
+   */
+  @Param({"0", "16"})
+  private int maxIdlePerHost;
+
+  private EventLoopGroup serverGroup;
+  private EventLoopGroup clientGroup;
+  private Channel serverChannel;
+  private Bootstrap bootstrap;
+  private EventLoop eventLoop;
+  private Discoverable discoverable;
+  private BackendConnectionPool pool;
+
+  @Setup
+  public void setup() throws InterruptedException {
+    serverGroup = new NioEventLoopGroup(1);
+    serverChannel = new ServerBootstrap()
+      .group(serverGroup)
+      .channel(NioServerSocketChannel.class)
+      .childHandler(new ChannelInboundHandlerAdapter())
+      .bind(InetAddress.getLoopbackAddress(), 0).sync().channel();
+    InetSocketAddress serverAddress = (InetSocketAddress) serverChannel.localAddress();
+    discoverable = new Discoverable("service", serverAddress);
+
+    // a single event loop, as for the requests of one client connection
+    clientGroup = new NioEventLoopGroup(1);
+    eventLoop = clientGroup.next();
+    bootstrap = new Bootstrap()
+      .group(eventLoop)
+      .channel(NioSocketChannel.class)
+      // closed connections are reset, so that the many connections without pooling don't use up the local ports
+      .option(ChannelOption.SO_LINGER, 0)
+      .handler(new ChannelInboundHandlerAdapter())
+      .remoteAddress(serverAddress);
+    pool = new BackendConnectionPool(maxIdlePerHost);
+  }
+
+  @TearDown
+  public void tearDown() throws InterruptedException {
+    pool.close();
+    serverChannel.close().sync();
+    clientGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+    serverGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+  }
+
+  @Benchmark
+  public Channel acquireAndRelease() throws InterruptedException, ExecutionException {
+    // the pool is only accessed from the event loop of the connections
+    Channel channel = eventLoop.submit(() -> pool.acquire(eventLoop, discoverable)).get();
+    if (channel == null) {
+      long startNanos = System.nanoTime();
+      channel = bootstrap.connect().sync().channel();
+      pool.connected(System.nanoTime() - startNanos);
+    }
+    Channel releaseChannel = channel;
+    eventLoop.submit(() -> pool.release(releaseChannel, discoverable)).get();
+    return channel;
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.internal.app.runtime.artifact;
+
+import io.cdap.cdap.benchmark.BenchmarkData;
+import io.cdap.cdap.common.io.Locations;
+import io.cdap.cdap.common.utils.DirUtils;
+import org.apache.twill.filesystem.Location;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Benchmarks for getting the unpacked directory of an artifact jar from the {@link ArtifactUnpackCache}, as it
+ * happens for every program classloader created from the artifact. Compares the cache with the maximum size of
+ * {@code 0}, which unpacks the jar into a new directory on every call, with a cache large enough to keep the jar
+ * unpacked, in which case only the checksum lookup and the reference counting remain.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArtifactUnpackCacheBenchmark {
+
+  private static final int ENTRY_SIZE = 4096;
+
+  /**
+   * The maximum size of the cache in bytes, or 0 for unpacking on every call.
+   */
+  @Param({"0", "1073741824"})
+  private long maxSizeBytes;
+
+  @Param({"1000"})
+  private int numEntries;
+
+  private File baseDir;
+  private Location jarLocation;
+  private ArtifactUnpackCache cache;
+
+  @Setup
+  public void setup() throws IOException {
+    baseDir = Files.createTempDirectory("artifact-unpack-benchmark").toFile();
+    File jarFile = new File(baseDir, "artifact.jar");
+    Random random = BenchmarkData.newRandom();
+    try (JarOutputStream output = new JarOutputStream(new FileOutputStream(jarFile))) {
+      for (int i = 0; i < numEntries; i++) {
+        output.putNextEntry(new JarEntry("package" + (i % 20) + "/Class" + i + ".class"));
+        output.write(BenchmarkData.generateBytes(random, ENTRY_SIZE));
+        output.closeEntry();
+      }
+    }
+    jarLocation = Locations.toLocation(jarFile);
+    cache = new ArtifactUnpackCache(new File(baseDir, "cache"), maxSizeBytes);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    DirUtils.deleteDirectoryContents(baseDir);
+  }
+
+  @Benchmark
+  public File acquire() throws IOException {
+    try (ArtifactUnpackCache.Lease lease = cache.acquire(jarLocation)) {
+      return lease.getDirectory();
+    }
+  }
+
+  @Benchmark
+  @Threads(4)
+  public File acquireConcurrent() throws IOException {
+    try (ArtifactUnpackCache.Lease lease = cache.acquire(jarLocation)) {
+      return lease.getDirectory();
+    }
+  }
+}
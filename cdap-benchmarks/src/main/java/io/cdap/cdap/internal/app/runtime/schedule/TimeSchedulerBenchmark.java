@@ -0,0 +1,306 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.runtime.schedule;
+
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.internal.app.runtime.schedule.store.TimeTriggerRecord;
+import io.cdap.cdap.internal.app.runtime.schedule.store.TimeTriggerTable;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.ProgramId;
+import io.cdap.cdap.spi.data.StructuredRow;
+import io.cdap.cdap.spi.data.StructuredTable;
+import io.cdap.cdap.spi.data.table.field.Field;
+import io.cdap.cdap.spi.data.table.field.Range;
+import io.cdap.cdap.spi.data.transaction.TransactionException;
+import io.cdap.cdap.spi.data.transaction.TransactionRunner;
+import io.cdap.cdap.spi.data.transaction.TransactionRunners;
+import io.cdap.cdap.store.StoreDefinition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the {@link TimeScheduler} with a large number of time schedules. Measures the startup, which loads
+ * all the time triggers from the store, and the firing of triggers that are due at the same time, for example hourly
+ * schedules at the top of the hour. The time to fire all the due triggers is the firing delay of the last one.
+ *
+ * The triggers are kept in an in-memory table and the notifications are discarded, so that the benchmarks measure the
+ * scheduler rather than the storage and the messaging system.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeSchedulerBenchmark {
+
+  private static final NamespaceId NAMESPACE = new NamespaceId("benchmark");
+  private static final int NUM_APPS = 1000;
+
+  @Param({"50000"})
+  private int numSchedules;
+
+  private CConfiguration cConf;
+  private InMemoryTable table;
+  private TransactionRunner transactionRunner;
+
+  @Setup
+  public void setup() {
+    cConf = CConfiguration.create();
+    table = new InMemoryTable(StoreDefinition.TimeTriggerStore.TIME_TRIGGERS_SPEC.getPrimaryKeys());
+    transactionRunner = runnable -> {
+      try {
+        runnable.run(tableId -> table);
+      } catch (Exception e) {
+        throw new TransactionException("Failed to run the transaction", e);
+      }
+    };
+    // None of the triggers is due during the startup benchmark
+    writeTriggers(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+  }
+
+  @Benchmark
+  public TimeScheduler startup() throws SchedulerException {
+    TimeScheduler scheduler = createScheduler(notifications -> { });
+    scheduler.init();
+    return scheduler;
+  }
+
+  /**
+   * State of the firing benchmark, which makes all the triggers due before every invocation.
+   */
+  @State(Scope.Thread)
+  public static class FiringState {
+
+    private TimeScheduler scheduler;
+    private CountDownLatch fired;
+
+    @Setup(Level.Invocation)
+    public void setup(TimeSchedulerBenchmark benchmark) throws SchedulerException {
+      // All the triggers are due and late by less than the misfire threshold, hence they all fire
+      benchmark.writeTriggers(System.currentTimeMillis() - 1000L);
+      fired = new CountDownLatch(benchmark.numSchedules);
+      scheduler = benchmark.createScheduler(notifications -> notifications.forEach(notification -> fired.countDown()));
+      scheduler.init();
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+      scheduler.stop();
+    }
+  }
+
+  @Benchmark
+  public void fireDueTriggers(FiringState state) throws InterruptedException {
+    state.scheduler.start();
+    state.fired.await();
+  }
+
+  private TimeScheduler createScheduler(TimeScheduler.NotificationPublisher publisher) {
+    return new TimeScheduler(transactionRunner, publisher,
+                             cConf.getLong(Constants.Scheduler.CFG_SCHEDULER_MISFIRE_THRESHOLD_MS),
+                             cConf.getInt(Constants.Scheduler.TIME_EVENT_PUBLISH_BATCH_SIZE));
+  }
+
+  private void writeTriggers(long nextFireTime) {
+    TransactionRunners.run(transactionRunner, context -> {
+      TimeTriggerTable triggerTable = TimeTriggerTable.create(context);
+      for (int i = 0; i < numSchedules; i++) {
+        ProgramId program = NAMESPACE.app("app" + (i % NUM_APPS)).workflow("workflow");
+        // Hourly schedules at different minutes
+        String cronExpression = (i % 60) + " * * * *";
+        triggerTable.write(new TimeTriggerRecord(program, "schedule" + i, cronExpression, false,
+                                                 ProgramScheduleStatus.SCHEDULED, nextFireTime, null));
+      }
+    });
+  }
+
+  /**
+   * A {@link StructuredTable} in memory, which only supports the operations used by the {@link TimeTriggerTable}.
+   */
+  private static final class InMemoryTable implements StructuredTable {
+
+    private final Collection<String> primaryKeys;
+    private final Map<List<Object>, Map<String, Object>> rows;
+
+    InMemoryTable(Collection<String> primaryKeys) {
+      this.primaryKeys = primaryKeys;
+      this.rows = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void upsert(Collection<Field<?>> fields) {
+      Map<String, Object> row = new HashMap<>();
+      for (Field<?> field : fields) {
+        row.put(field.getName(), field.getValue());
+      }
+      List<Object> key = new ArrayList<>();
+      for (String primaryKey : primaryKeys) {
+        key.add(row.get(primaryKey));
+      }
+      rows.put(key, row);
+    }
+
+    @Override
+    public Optional<StructuredRow> read(Collection<Field<?>> keys) {
+      return Optional.ofNullable(rows.get(getKey(keys))).map(InMemoryRow::new);
+    }
+
+    @Override
+    public Optional<StructuredRow> read(Collection<Field<?>> keys, Collection<String> columns) {
+      return read(keys);
+    }
+
+    @Override
+    public CloseableIterator<StructuredRow> scan(Range keyRange, int limit) {
+      if (!keyRange.equals(Range.all())) {
+        throw new UnsupportedOperationException("Only scanning all rows is supported");
+      }
+      Iterator<Map<String, Object>> iterator = new ArrayList<>(rows.values()).stream().limit(limit).iterator();
+      return new CloseableIterator<StructuredRow>() {
+        @Override
+        public boolean hasNext() {
+          return iterator.hasNext();
+        }
+
+        @Override
+        public StructuredRow next() {
+          return new InMemoryRow(iterator.next());
+        }
+
+        @Override
+        public void close() {
+          // no-op
+        }
+      };
+    }
+
+    @Override
+    public CloseableIterator<StructuredRow> scan(Field<?> index) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CloseableIterator<StructuredRow> multiScan(Collection<Range> keyRanges, int limit) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean compareAndSwap(Collection<Field<?>> keys, Field<?> oldValue, Field<?> newValue) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void increment(Collection<Field<?>> keys, String column, long amount) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void delete(Collection<Field<?>> keys) {
+      rows.remove(getKey(keys));
+    }
+
+    @Override
+    public void deleteAll(Range keyRange) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+      // no-op
+    }
+
+    private List<Object> getKey(Collection<Field<?>> keys) {
+      List<Object> key = new ArrayList<>();
+      for (Field<?> field : keys) {
+        key.add(field.getValue());
+      }
+      return key;
+    }
+  }
+
+  /**
+   * A {@link StructuredRow} of the {@link InMemoryTable}.
+   */
+  private static final class InMemoryRow implements StructuredRow {
+
+    private final Map<String, Object> fields;
+
+    InMemoryRow(Map<String, Object> fields) {
+      this.fields = fields;
+    }
+
+    @Override
+    public Integer getInteger(String fieldName) {
+      return (Integer) fields.get(fieldName);
+    }
+
+    @Override
+    public Long getLong(String fieldName) {
+      return (Long) fields.get(fieldName);
+    }
+
+    @Override
+    public String getString(String fieldName) {
+      return (String) fields.get(fieldName);
+    }
+
+    @Override
+    public Float getFloat(String fieldName) {
+      return (Float) fields.get(fieldName);
+    }
+
+    @Override
+    public Double getDouble(String fieldName) {
+      return (Double) fields.get(fieldName);
+    }
+
+    @Override
+    public byte[] getBytes(String fieldName) {
+      return (byte[]) fields.get(fieldName);
+    }
+
+    @Override
+    public Collection<Field<?>> getPrimaryKeys() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
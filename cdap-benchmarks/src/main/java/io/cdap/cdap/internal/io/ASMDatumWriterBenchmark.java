@@ -0,0 +1,166 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.internal.io;
+
+import com.google.common.reflect.TypeToken;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.data.schema.UnsupportedTypeException;
+import io.cdap.cdap.benchmark.BenchmarkData;
+import io.cdap.cdap.common.io.BinaryEncoder;
+import io.cdap.cdap.common.io.DatumWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the {@link DatumWriter} generated by the {@link ASMDatumWriterFactory}, compared to the
+ * {@link ReflectionDatumWriter} for the same type, and for obtaining a writer from the factory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ASMDatumWriterBenchmark {
+
+  private static final int NUM_EVENTS = 64;
+  private static final TypeToken<RunEvent> TYPE = TypeToken.of(RunEvent.class);
+
+  private final ASMDatumWriterFactory factory = new ASMDatumWriterFactory(new ASMFieldAccessorFactory());
+  private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+  private final BinaryEncoder encoder = new BinaryEncoder(output);
+  private Schema schema;
+  private DatumWriter<RunEvent> asmWriter;
+  private DatumWriter<RunEvent> reflectionWriter;
+  private List<RunEvent> events;
+  private int next;
+
+  @Setup
+  public void setup() throws UnsupportedTypeException {
+    schema = new ReflectionSchemaGenerator().generate(TYPE.getType());
+    asmWriter = factory.create(TYPE, schema);
+    reflectionWriter = new ReflectionDatumWriter<>(schema);
+
+    Random random = BenchmarkData.newRandom();
+    events = new ArrayList<>(NUM_EVENTS);
+    for (int i = 0; i < NUM_EVENTS; i++) {
+      events.add(new RunEvent(random));
+    }
+  }
+
+  @Benchmark
+  public int asmWriter() throws IOException {
+    output.reset();
+    asmWriter.encode(nextEvent(), encoder);
+    return output.size();
+  }
+
+  @Benchmark
+  public int reflectionWriter() throws IOException {
+    output.reset();
+    reflectionWriter.encode(nextEvent(), encoder);
+    return output.size();
+  }
+
+  /**
+   * Obtains a writer for a type and schema that the factory has generated a writer class for already,
+   * as it is done for every metrics or log publisher that is created.
+   */
+  @Benchmark
+  public DatumWriter<RunEvent> createWriter() {
+    return factory.create(TYPE, schema);
+  }
+
+  private RunEvent nextEvent() {
+    next = (next + 1) % NUM_EVENTS;
+    return events.get(next);
+  }
+
+  /**
+   * The status of a {@link RunEvent}.
+   */
+  public enum Status {
+    STARTING, RUNNING, COMPLETED, FAILED, KILLED
+  }
+
+  /**
+   * The resources of a {@link RunEvent}.
+   */
+  public static final class Resources {
+    private final int memoryMB;
+    private final int virtualCores;
+
+    Resources(int memoryMB, int virtualCores) {
+      this.memoryMB = memoryMB;
+      this.virtualCores = virtualCores;
+    }
+  }
+
+  /**
+   * An event about a program run, with the mix of field types of the records that are written by the system.
+   */
+  public static final class RunEvent {
+    private final String namespace;
+    private final String application;
+    private final String program;
+    private final String runId;
+    private final long startTime;
+    private final Long endTime;
+    private final Status status;
+    private final Resources resources;
+    private final List<String> tags;
+    private final Map<String, String> properties;
+
+    RunEvent(Random random) {
+      this.namespace = "namespace" + random.nextInt(10);
+      this.application = "application" + random.nextInt(100);
+      this.program = BenchmarkData.generateText(random, 2).replace(' ', '_');
+      this.runId = new UUID(random.nextLong(), random.nextLong()).toString();
+      this.startTime = System.currentTimeMillis() - random.nextInt(1000000);
+      this.endTime = random.nextBoolean() ? null : startTime + random.nextInt(100000);
+      this.status = Status.values()[random.nextInt(Status.values().length)];
+      this.resources = new Resources(512 << random.nextInt(4), 1 + random.nextInt(4));
+      this.tags = new ArrayList<>();
+      for (int i = random.nextInt(5); i > 0; i--) {
+        tags.add(BenchmarkData.generateText(random, 1));
+      }
+      this.properties = new HashMap<>();
+      for (int i = random.nextInt(10); i > 0; i--) {
+        properties.put("property" + i, BenchmarkData.generateText(random, 3));
+      }
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.logging.serialize;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.spi.ThrowableProxy;
+import io.cdap.cdap.benchmark.BenchmarkData;
+import io.cdap.cdap.common.conf.Constants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the {@link LoggingEventSerializer}, which encodes every log event that a program emits and
+ * decodes it again for saving and querying the logs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingEventSerializerBenchmark {
+
+  /**
+   * The kind of event: "info" for a plain message, "error" for a message with an exception and caller data.
+   */
+  @Param({"info", "error"})
+  private String kind;
+
+  private final LoggingEventSerializer serializer = new LoggingEventSerializer();
+  private ILoggingEvent event;
+  private byte[] bytes;
+
+  @Setup
+  public void setup() {
+    Random random = BenchmarkData.newRandom();
+
+    LoggingEvent loggingEvent = new LoggingEvent();
+    loggingEvent.setThreadName("pool-3-thread-1");
+    loggingEvent.setLoggerName("io.cdap.plugin.db.batch.source.DBSource");
+    loggingEvent.setTimeStamp(System.currentTimeMillis());
+    loggingEvent.setMessage("Processed {} records of {} in {} ms");
+    loggingEvent.setArgumentArray(new Object[] { random.nextInt(100000), BenchmarkData.generateText(random, 2),
+      random.nextInt(10000) });
+
+    // The tags of a program logging context, as they are set for every event emitted by a program
+    Map<String, String> mdc = new HashMap<>();
+    mdc.put(Constants.Logging.TAG_NAMESPACE_ID, "default");
+    mdc.put(Constants.Logging.TAG_APPLICATION_ID, "PurchasePipeline");
+    mdc.put(Constants.Logging.TAG_WORKFLOW_ID, "DataPipelineWorkflow");
+    mdc.put(Constants.Logging.TAG_RUN_ID, new UUID(random.nextLong(), random.nextLong()).toString());
+    mdc.put(Constants.Logging.TAG_INSTANCE_ID, "0");
+    mdc.put(Constants.Logging.EVENT_TYPE_TAG, Constants.Logging.USER_LOG_TAG_VALUE);
+    loggingEvent.setMDCPropertyMap(mdc);
+
+    if ("error".equals(kind)) {
+      loggingEvent.setLevel(Level.ERROR);
+      Exception cause = new IllegalStateException("Connection reset");
+      loggingEvent.setThrowableProxy(new ThrowableProxy(new IOException("Failed to read from source", cause)));
+      loggingEvent.setCallerData(new Throwable().getStackTrace());
+    } else {
+      loggingEvent.setLevel(Level.INFO);
+      loggingEvent.setCallerData(new StackTraceElement[0]);
+    }
+    loggingEvent.prepareForDeferredProcessing();
+    event = loggingEvent;
+    bytes = serializer.toBytes(loggingEvent);
+  }
+
+  @Benchmark
+  public byte[] toBytes() {
+    return serializer.toBytes(event);
+  }
+
+  @Benchmark
+  public ILoggingEvent fromBytes() throws IOException {
+    return serializer.fromBytes(ByteBuffer.wrap(bytes));
+  }
+
+  @Benchmark
+  public long decodeEventTimestamp() throws IOException {
+    return serializer.decodeEventTimestamp(ByteBuffer.wrap(bytes));
+  }
+}
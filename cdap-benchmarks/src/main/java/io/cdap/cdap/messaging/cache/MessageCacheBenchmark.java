@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.cache;
+
+import io.cdap.cdap.api.metrics.NoopMetricsContext;
+import io.cdap.cdap.benchmark.BenchmarkData;
+import io.cdap.cdap.messaging.store.MessageFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Benchmarks for scanning the {@link MessageCache}, which serves the reads of recently published messages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageCacheBenchmark {
+
+  private static final int NUM_MESSAGES = 100000;
+  private static final int SCAN_LIMIT = 100;
+
+  @Param({"100", "1000"})
+  private int payloadSize;
+
+  private MessageCache<Message> cache;
+  private MessageFilter<Message> evenFilter;
+
+  @Setup
+  public void setup() {
+    Random random = BenchmarkData.newRandom();
+    List<Message> messages = new ArrayList<>(NUM_MESSAGES);
+    for (int i = 0; i < NUM_MESSAGES; i++) {
+      messages.add(new Message(i, BenchmarkData.generateBytes(random, payloadSize)));
+    }
+
+    // Limits large enough to keep all messages in the cache
+    long weight = (long) NUM_MESSAGES * (payloadSize + Message.OVERHEAD) * 2;
+    cache = new MessageCache<>(Comparator.comparingLong(message -> message.id), Message::weight,
+                               new MessageCache.Limits(weight, weight, weight), new NoopMetricsContext());
+    cache.addAll(messages.iterator());
+
+    evenFilter = new MessageFilter<Message>() {
+      @Override
+      public Result apply(@Nullable Message input) {
+        return input != null && input.id % 2 == 0 ? Result.ACCEPT : Result.SKIP;
+      }
+    };
+  }
+
+  @Benchmark
+  public void scan(Blackhole blackhole) {
+    scan(MessageFilter.alwaysAccept(), blackhole);
+  }
+
+  @Benchmark
+  public void scanFiltered(Blackhole blackhole) {
+    scan(evenFilter, blackhole);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void scanConcurrent(Blackhole blackhole) {
+    scan(MessageFilter.alwaysAccept(), blackhole);
+  }
+
+  private void scan(MessageFilter<Message> filter, Blackhole blackhole) {
+    Message start = new Message(ThreadLocalRandom.current().nextInt(NUM_MESSAGES - SCAN_LIMIT * 2), null);
+    try (MessageCache.Scanner<Message> scanner = cache.scan(start, true, SCAN_LIMIT, filter)) {
+      while (scanner.hasNext()) {
+        blackhole.consume(scanner.next());
+      }
+    }
+  }
+
+  /**
+   * A cached message, which only carries what the cache needs for ordering and weighing.
+   */
+  private static final class Message {
+
+    // Some fixed overhead for the object header and the fields, similar to the one of the message table entries
+    private static final int OVERHEAD = 32;
+
+    private final long id;
+    private final byte[] payload;
+
+    private Message(long id, @Nullable byte[] payload) {
+      this.id = id;
+      this.payload = payload;
+    }
+
+    private int weight() {
+      return OVERHEAD + (payload == null ? 0 : payload.length);
+    }
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.service;
+
+import io.cdap.cdap.benchmark.BenchmarkData;
+import io.cdap.cdap.common.utils.TimeProvider;
+import io.cdap.cdap.messaging.StoreRequest;
+import io.cdap.cdap.messaging.TopicMetadata;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.TopicId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Benchmarks for the {@link ConcurrentMessageWriter}, which batches the messages published concurrently
+ * to the same topic into a single write to the message table. The write itself is simulated by consuming
+ * CPU in proportion to the number of entries, so that the benchmark measures the batching and the
+ * contention rather than the storage.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentMessageWriterBenchmark {
+
+  private static final int PAYLOAD_SIZE = 256;
+
+  @Param({"1", "10"})
+  private int messagesPerRequest;
+
+  private TopicMetadata metadata;
+  private ConcurrentMessageWriter writer;
+  private StoreRequest request;
+
+  @Setup
+  public void setup() {
+    TopicId topicId = NamespaceId.DEFAULT.topic("benchmark");
+    metadata = new TopicMetadata(topicId, new HashMap<>(), 1);
+    writer = new ConcurrentMessageWriter(new SimulatedStoreRequestWriter());
+
+    Random random = BenchmarkData.newRandom();
+    List<byte[]> payloads = new ArrayList<>(messagesPerRequest);
+    for (int i = 0; i < messagesPerRequest; i++) {
+      payloads.add(BenchmarkData.generateBytes(random, PAYLOAD_SIZE));
+    }
+    request = new PayloadStoreRequest(topicId, payloads);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    writer.close();
+  }
+
+  @Benchmark
+  public Object persist() throws IOException {
+    return writer.persist(request, metadata);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Object persistConcurrent() throws IOException {
+    return writer.persist(request, metadata);
+  }
+
+  /**
+   * A {@link StoreRequestWriter} that simulates the cost of writing the entries.
+   */
+  private static final class SimulatedStoreRequestWriter extends StoreRequestWriter<byte[]> {
+
+    // The CPU tokens consumed for a write, and for every entry written
+    private static final long WRITE_TOKENS = 1000;
+    private static final long ENTRY_TOKENS = 50;
+
+    SimulatedStoreRequestWriter() {
+      super(TimeProvider.SYSTEM_TIME, false);
+    }
+
+    @Override
+    byte[] getEntry(TopicMetadata metadata, boolean transactional, long transactionWritePointer,
+                    long writeTimestamp, short sequenceId, @Nullable byte[] payload) {
+      return payload;
+    }
+
+    @Override
+    void doWrite(Iterator<byte[]> entries) {
+      long tokens = WRITE_TOKENS;
+      while (entries.hasNext()) {
+        entries.next();
+        tokens += ENTRY_TOKENS;
+      }
+      Blackhole.consumeCPU(tokens);
+    }
+
+    @Override
+    public void close() {
+      // No-op
+    }
+  }
+
+  /**
+   * A {@link StoreRequest} with a fixed list of payloads.
+   */
+  private static final class PayloadStoreRequest extends StoreRequest {
+
+    private final List<byte[]> payloads;
+
+    PayloadStoreRequest(TopicId topicId, List<byte[]> payloads) {
+      super(topicId, false, -1L);
+      this.payloads = payloads;
+    }
+
+    @Override
+    public boolean hasPayload() {
+      return !payloads.isEmpty();
+    }
+
+    @Override
+    public Iterator<byte[]> iterator() {
+      return payloads.iterator();
+    }
+  }
+}
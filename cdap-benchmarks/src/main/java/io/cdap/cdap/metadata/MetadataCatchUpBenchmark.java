@@ -0,0 +1,209 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.metadata;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import io.cdap.cdap.api.metadata.MetadataEntity;
+import io.cdap.cdap.api.metadata.MetadataScope;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.guice.ConfigModule;
+import io.cdap.cdap.common.utils.DirUtils;
+import io.cdap.cdap.data.runtime.SystemDatasetRuntimeModule;
+import io.cdap.cdap.proto.ProgramType;
+import io.cdap.cdap.proto.id.ApplicationId;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.spi.metadata.Metadata;
+import io.cdap.cdap.spi.metadata.MetadataKind;
+import io.cdap.cdap.spi.metadata.MetadataMutation;
+import io.cdap.cdap.spi.metadata.MetadataStorage;
+import io.cdap.cdap.spi.metadata.MutationOptions;
+import io.cdap.cdap.spi.metadata.ScopedNameOfKind;
+import io.cdap.cdap.spi.metadata.dataset.DatasetMetadataStorage;
+import io.cdap.cdap.spi.metadata.local.LocalMetadataStorage;
+import org.apache.tephra.TransactionManager;
+import org.apache.tephra.runtime.TransactionInMemoryModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the time the {@link MetadataSubscriberService} takes to catch up with the metadata operations of a bulk
+ * deployment. The mutations are either applied one at a time, as the subscriber did before, or collected per fetch
+ * of {@code fetchSize} messages in a {@link MetadataMutationBatch}, which coalesces the mutations of each entity and
+ * applies them with few calls to {@link MetadataStorage#batch}. Every application, program and dataset of the
+ * deployment first gets its system metadata created, followed by user tag and property updates and removals, as
+ * made by pipelines that annotate the datasets they write to.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MetadataCatchUpBenchmark {
+
+  private static final NamespaceId NAMESPACE = new NamespaceId("benchmark");
+  private static final int PROGRAMS_PER_APP = 10;
+  private static final int DATASETS_PER_APP = 5;
+
+  /**
+   * The metadata storage, either {@code local} for the {@link LocalMetadataStorage}, or {@code dataset} for the
+   * {@link DatasetMetadataStorage} on in-memory tables.
+   */
+  @Param({"local", "dataset"})
+  private String storageType;
+
+  /**
+   * Number of applications deployed.
+   */
+  @Param({"100"})
+  private int numApps;
+
+  /**
+   * Number of messages that the subscriber fetches at a time, see {@link Constants.Metadata#MESSAGING_FETCH_SIZE}.
+   */
+  @Param({"100"})
+  private int fetchSize;
+
+  private List<MetadataMutation> mutations;
+  private MetadataStorage storage;
+  private TransactionManager txManager;
+  private File localDir;
+
+  @Setup
+  public void setup() throws IOException {
+    mutations = createMutations();
+    if ("dataset".equals(storageType)) {
+      Injector injector = Guice.createInjector(new ConfigModule(), new TransactionInMemoryModule(),
+                                               new SystemDatasetRuntimeModule().getInMemoryModules());
+      txManager = injector.getInstance(TransactionManager.class);
+      txManager.startAndWait();
+      storage = injector.getInstance(DatasetMetadataStorage.class);
+    } else {
+      localDir = Files.createTempDirectory("metadata").toFile();
+      CConfiguration cConf = CConfiguration.create();
+      cConf.set(Constants.Metadata.LOCAL_STORAGE_DIR, localDir.getAbsolutePath());
+      storage = new LocalMetadataStorage(cConf);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    storage.close();
+    if (txManager != null) {
+      txManager.stopAndWait();
+    }
+    if (localDir != null) {
+      DirUtils.deleteDirectoryContents(localDir);
+    }
+  }
+
+  /**
+   * State that gives every invocation an empty storage.
+   */
+  @State(Scope.Thread)
+  public static class EmptyStorage {
+
+    private MetadataStorage storage;
+
+    @Setup(Level.Invocation)
+    public void setup(MetadataCatchUpBenchmark benchmark) throws IOException {
+      storage = benchmark.storage;
+      storage.createIndex();
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() throws IOException {
+      storage.dropIndex();
+    }
+  }
+
+  @Benchmark
+  public void applyOneByOne(EmptyStorage state) throws IOException {
+    for (MetadataMutation mutation : mutations) {
+      state.storage.apply(mutation, MutationOptions.DEFAULT);
+    }
+  }
+
+  @Benchmark
+  public void applyCoalesced(EmptyStorage state) throws IOException {
+    MetadataMutationBatch batch = new MetadataMutationBatch();
+    int fetched = 0;
+    for (MetadataMutation mutation : mutations) {
+      batch.add(mutation);
+      if (++fetched == fetchSize) {
+        batch.apply(state.storage, MutationOptions.DEFAULT);
+        fetched = 0;
+      }
+    }
+    batch.apply(state.storage, MutationOptions.DEFAULT);
+  }
+
+  private List<MetadataMutation> createMutations() {
+    List<MetadataMutation> result = new ArrayList<>();
+    for (int i = 0; i < numApps; i++) {
+      ApplicationId app = NAMESPACE.app("app" + i);
+      addMutations(result, app.toMetadataEntity(), "app" + i);
+      for (int j = 0; j < PROGRAMS_PER_APP; j++) {
+        addMutations(result, app.program(ProgramType.SPARK, "program" + j).toMetadataEntity(), "program" + j);
+      }
+      for (int j = 0; j < DATASETS_PER_APP; j++) {
+        String dataset = "dataset" + i + "_" + j;
+        addMutations(result, NAMESPACE.dataset(dataset).toMetadataEntity(), dataset);
+      }
+    }
+    return result;
+  }
+
+  private static void addMutations(List<MetadataMutation> result, MetadataEntity entity, String name) {
+    Metadata system = new Metadata(MetadataScope.SYSTEM, ImmutableSet.of(entity.getType()),
+                                   ImmutableMap.of("entity-name", name,
+                                                   "creation-time", String.valueOf(System.currentTimeMillis()),
+                                                   "description", "Benchmark entity " + name));
+    result.add(new MetadataMutation.Create(entity, system, Collections.emptyMap()));
+    result.add(new MetadataMutation.Update(entity, new Metadata(MetadataScope.USER, ImmutableSet.of("bulk"))));
+    result.add(new MetadataMutation.Update(entity, new Metadata(MetadataScope.USER,
+                                                                ImmutableMap.of("owner", "etl", "stage", "new"))));
+    result.add(new MetadataMutation.Update(entity, new Metadata(MetadataScope.USER,
+                                                                ImmutableMap.of("stage", "deployed"))));
+    result.add(new MetadataMutation.Remove(entity, Collections.singleton(
+      new ScopedNameOfKind(MetadataKind.TAG, MetadataScope.USER, "bulk"))));
+    result.add(new MetadataMutation.Update(entity, new Metadata(MetadataScope.USER, ImmutableSet.of("verified"))));
+  }
+}
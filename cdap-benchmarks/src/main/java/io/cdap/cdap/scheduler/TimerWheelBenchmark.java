@@ -0,0 +1,134 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.scheduler;
+
+import io.cdap.cdap.benchmark.BenchmarkData;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the {@link TimerWheel} that the {@link ConstraintCheckerService} uses to check jobs pending
+ * constraint at the time that their constraints may become satisfied. Simulates jobs of different schedules that are
+ * checked again at random times within the next hour, for example because of time range constraints. Every operation
+ * wakes up at the next due time of the simulated clock, takes the due jobs and schedules their next check.
+ *
+ * Besides the time per wakeup, the following are reported per simulated minute: the number of job checks, each of
+ * which reads the job from the store, and the number of wakeups. The maximum delay between the due time of a job and
+ * its check is reported as well. Before the timer wheel, every job pending constraint was read on each scan of the
+ * job queue, and the scans ran back to back as long as the queue was not empty.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimerWheelBenchmark {
+
+  // Same as the ConstraintCheckerService
+  private static final long TICK_MILLIS = 1000L;
+  private static final int NUM_BUCKETS = 512;
+  private static final long MAX_CHECK_DELAY_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+  @Param({"10000"})
+  private int numJobs;
+
+  private final Random random = BenchmarkData.newRandom();
+  private TimerWheel<Integer> wheel;
+  private long[] dueTimes;
+  private long now;
+
+  @Setup
+  public void setup() {
+    wheel = new TimerWheel<>(TICK_MILLIS, NUM_BUCKETS, 0L);
+    dueTimes = new long[numJobs];
+    now = 0L;
+    for (int job = 0; job < numJobs; job++) {
+      scheduleCheck(job);
+    }
+  }
+
+  /**
+   * Counters of the simulation, which are reported with the results of each iteration.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Counters {
+    public double checksPerMinute;
+    public double wakeupsPerMinute;
+    public long maxLagMillis;
+
+    private long startTime = -1L;
+    private long checks;
+    private long wakeups;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      checksPerMinute = 0;
+      wakeupsPerMinute = 0;
+      maxLagMillis = 0;
+      startTime = -1L;
+      checks = 0;
+      wakeups = 0;
+    }
+
+    void update(long startTime, long now, int checked) {
+      if (this.startTime < 0) {
+        this.startTime = startTime;
+      }
+      checks += checked;
+      wakeups++;
+      double minutes = Math.max(1L, now - this.startTime) / (double) TimeUnit.MINUTES.toMillis(1);
+      checksPerMinute = checks / minutes;
+      wakeupsPerMinute = wakeups / minutes;
+    }
+  }
+
+  @Benchmark
+  public int wakeup(Counters counters) {
+    long startTime = now;
+    // Sleep until the next due time
+    now = Math.max(now, wheel.getNextDueTime());
+    List<Integer> dueJobs = wheel.advance(now);
+    for (int job : dueJobs) {
+      counters.maxLagMillis = Math.max(counters.maxLagMillis, now - dueTimes[job]);
+      scheduleCheck(job);
+    }
+    counters.update(startTime, now, dueJobs.size());
+    return dueJobs.size();
+  }
+
+  private void scheduleCheck(int job) {
+    dueTimes[job] = now + 1 + (long) (random.nextDouble() * MAX_CHECK_DELAY_MILLIS);
+    wheel.schedule(job, dueTimes[job]);
+  }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.spi.metadata.local;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import io.cdap.cdap.api.metadata.MetadataEntity;
+import io.cdap.cdap.api.metadata.MetadataScope;
+import io.cdap.cdap.benchmark.BenchmarkData;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.guice.ConfigModule;
+import io.cdap.cdap.common.utils.DirUtils;
+import io.cdap.cdap.data.runtime.SystemDatasetRuntimeModule;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.spi.metadata.Metadata;
+import io.cdap.cdap.spi.metadata.MetadataConstants;
+import io.cdap.cdap.spi.metadata.MetadataMutation;
+import io.cdap.cdap.spi.metadata.MetadataStorage;
+import io.cdap.cdap.spi.metadata.MutationOptions;
+import io.cdap.cdap.spi.metadata.Read;
+import io.cdap.cdap.spi.metadata.ScopedName;
+import io.cdap.cdap.spi.metadata.SearchRequest;
+import io.cdap.cdap.spi.metadata.SearchResponse;
+import io.cdap.cdap.spi.metadata.Sorting;
+import io.cdap.cdap.spi.metadata.dataset.DatasetMetadataStorage;
+import org.apache.tephra.TransactionManager;
+import org.apache.tephra.runtime.TransactionInMemoryModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks searches and reads of the {@link LocalMetadataStorage} against the {@link DatasetMetadataStorage} on
+ * in-memory tables, with the metadata of {@code numEntities} datasets. Every dataset has system metadata as it is
+ * created on deployment, a description made of a few common words, and a user tag and owner property that are shared
+ * by a fraction of the datasets, so that the searches match anything from a handful to most of the entities.
+ *
+ * Loading the entities is part of the setup and is not measured. The local storage keeps its whole index on the heap,
+ * hence the forked JVM gets a large heap; run with {@code -prof gc} to compare the memory that the searches allocate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class LocalMetadataStorageBenchmark {
+
+  private static final int NUM_NAMESPACES = 10;
+  private static final int NUM_OWNERS = 1000;
+  private static final int NUM_TIERS = 4;
+  private static final int BATCH_SIZE = 1000;
+  private static final int PAGE_SIZE = 20;
+  private static final String[] WORDS = {
+    "customer", "orders", "events", "clicks", "raw", "cleansed", "daily", "hourly", "aggregate", "archive"
+  };
+
+  /**
+   * The metadata storage, either {@code local} for the {@link LocalMetadataStorage}, or {@code dataset} for the
+   * {@link DatasetMetadataStorage} on in-memory tables.
+   */
+  @Param({"local", "dataset"})
+  private String storageType;
+
+  /**
+   * Number of entities in the storage.
+   */
+  @Param({"1000000"})
+  private int numEntities;
+
+  private final Random random = BenchmarkData.newRandom();
+  private MetadataStorage storage;
+  private TransactionManager txManager;
+  private File localDir;
+
+  @Setup
+  public void setup() throws IOException {
+    if ("dataset".equals(storageType)) {
+      Injector injector = Guice.createInjector(new ConfigModule(), new TransactionInMemoryModule(),
+                                               new SystemDatasetRuntimeModule().getInMemoryModules());
+      txManager = injector.getInstance(TransactionManager.class);
+      txManager.startAndWait();
+      storage = injector.getInstance(DatasetMetadataStorage.class);
+    } else {
+      localDir = Files.createTempDirectory("metadata").toFile();
+      CConfiguration cConf = CConfiguration.create();
+      cConf.set(Constants.Metadata.LOCAL_STORAGE_DIR, localDir.getAbsolutePath());
+      storage = new LocalMetadataStorage(cConf);
+    }
+    storage.createIndex();
+
+    List<MetadataMutation> batch = new ArrayList<>(BATCH_SIZE);
+    for (int i = 0; i < numEntities; i++) {
+      batch.add(new MetadataMutation.Create(entity(i), metadata(i), Collections.emptyMap()));
+      if (batch.size() == BATCH_SIZE) {
+        storage.batch(batch, MutationOptions.DEFAULT);
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) {
+      storage.batch(batch, MutationOptions.DEFAULT);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    storage.dropIndex();
+    storage.close();
+    if (txManager != null) {
+      txManager.stopAndWait();
+    }
+    if (localDir != null) {
+      DirUtils.deleteDirectoryContents(localDir);
+    }
+  }
+
+  /**
+   * Reads the metadata of a random entity.
+   */
+  @Benchmark
+  public Metadata read() throws IOException {
+    return storage.read(new Read(entity(random.nextInt(numEntities))));
+  }
+
+  /**
+   * Searches for the datasets of one owner, which match one in {@link #NUM_OWNERS} entities.
+   */
+  @Benchmark
+  public SearchResponse searchSelectiveProperty() throws IOException {
+    return storage.search(SearchRequest.of("owner:team" + random.nextInt(NUM_OWNERS)).setLimit(PAGE_SIZE).build());
+  }
+
+  /**
+   * Searches for a tag that one in {@link #NUM_TIERS} entities has, in one namespace.
+   */
+  @Benchmark
+  public SearchResponse searchCommonTagInNamespace() throws IOException {
+    return storage.search(SearchRequest.of("tier" + random.nextInt(NUM_TIERS))
+                            .addNamespace(namespace(random.nextInt(NUM_NAMESPACES)))
+                            .setLimit(PAGE_SIZE).build());
+  }
+
+  /**
+   * Searches for a prefix of the owner, which matches the datasets of about a tenth of the owners.
+   */
+  @Benchmark
+  public SearchResponse searchWildcard() throws IOException {
+    return storage.search(SearchRequest.of("team" + random.nextInt(10) + "*").setLimit(PAGE_SIZE).build());
+  }
+
+  /**
+   * Returns a page of all entities sorted by name, as the UI does when it lists the datasets.
+   */
+  @Benchmark
+  public SearchResponse searchAllSortedByName() throws IOException {
+    return storage.search(SearchRequest.of("*")
+                            .setSorting(new Sorting(MetadataConstants.ENTITY_NAME_KEY, Sorting.Order.ASC))
+                            .setOffset(random.nextInt(100) * PAGE_SIZE).setLimit(PAGE_SIZE).build());
+  }
+
+  /**
+   * Returns the most recently created entities that contain a word of the description.
+   */
+  @Benchmark
+  public SearchResponse searchSortedByCreationTime() throws IOException {
+    return storage.search(SearchRequest.of(WORDS[random.nextInt(WORDS.length)])
+                            .setSorting(new Sorting(MetadataConstants.CREATION_TIME_KEY, Sorting.Order.DESC))
+                            .setLimit(PAGE_SIZE).build());
+  }
+
+  /**
+   * Follows the cursor through the first five pages of a sorted search in one namespace.
+   */
+  @Benchmark
+  public SearchResponse searchWithCursor() throws IOException {
+    SearchRequest.Builder builder = SearchRequest.of("*")
+      .addNamespace(namespace(random.nextInt(NUM_NAMESPACES)))
+      .setSorting(new Sorting(MetadataConstants.ENTITY_NAME_KEY, Sorting.Order.ASC))
+      .setLimit(PAGE_SIZE).setCursorRequested(true);
+    SearchResponse response = storage.search(builder.build());
+    for (int page = 1; page < 5 && response.getCursor() != null; page++) {
+      response = storage.search(builder.setCursor(response.getCursor()).build());
+    }
+    return response;
+  }
+
+  private static String namespace(int index) {
+    return "ns" + index;
+  }
+
+  private static MetadataEntity entity(int index) {
+    return new NamespaceId(namespace(index % NUM_NAMESPACES)).dataset("dataset" + index).toMetadataEntity();
+  }
+
+  private static Metadata metadata(int index) {
+    String description = WORDS[index % WORDS.length] + " " + WORDS[index / WORDS.length % WORDS.length];
+    return new Metadata(
+      ImmutableSet.of(new ScopedName(MetadataScope.SYSTEM, "batch"),
+                      new ScopedName(MetadataScope.USER, "tier" + index % NUM_TIERS)),
+      ImmutableMap.of(new ScopedName(MetadataScope.SYSTEM, MetadataConstants.ENTITY_NAME_KEY), "dataset" + index,
+                      new ScopedName(MetadataScope.SYSTEM, MetadataConstants.CREATION_TIME_KEY), String.valueOf(index),
+                      new ScopedName(MetadataScope.SYSTEM, MetadataConstants.DESCRIPTION_KEY), description,
+                      new ScopedName(MetadataScope.USER, "owner"), "team" + index % NUM_OWNERS));
+  }
+}
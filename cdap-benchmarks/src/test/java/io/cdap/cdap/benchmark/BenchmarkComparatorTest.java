@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.benchmark;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for the {@link BenchmarkComparator}.
+ */
+public class BenchmarkComparatorTest {
+
+  @Test
+  public void testCompare() {
+    String baseline = "["
+      + result("a.Bench.same", "avgt", 100d, 1d, "{\"size\": \"16\"}") + ","
+      + result("a.Bench.slower", "avgt", 100d, 1d, null) + ","
+      + result("a.Bench.faster", "avgt", 100d, 1d, null) + ","
+      + result("a.Bench.noisy", "avgt", 100d, 30d, null) + ","
+      + result("a.Bench.throughput", "thrpt", 100d, 1d, null) + ","
+      + result("a.Bench.removed", "avgt", 100d, 1d, null)
+      + "]";
+    String current = "["
+      + result("a.Bench.same", "avgt", 105d, 1d, "{\"size\": \"16\"}") + ","
+      + result("a.Bench.same", "avgt", 200d, 1d, "{\"size\": \"256\"}") + ","
+      + result("a.Bench.slower", "avgt", 120d, 1d, null) + ","
+      + result("a.Bench.faster", "avgt", 80d, 1d, null) + ","
+      + result("a.Bench.noisy", "avgt", 140d, 30d, null) + ","
+      + result("a.Bench.throughput", "thrpt", 80d, 1d, null)
+      + "]";
+
+    List<BenchmarkComparator.Comparison> comparisons =
+      new BenchmarkComparator(10).compare(new StringReader(baseline), new StringReader(current));
+    Map<String, BenchmarkComparator.Status> statuses = new HashMap<>();
+    for (BenchmarkComparator.Comparison comparison : comparisons) {
+      statuses.put(comparison.getBenchmark(), comparison.getStatus());
+    }
+
+    Assert.assertEquals(7, statuses.size());
+    Assert.assertEquals(BenchmarkComparator.Status.UNCHANGED, statuses.get("a.Bench.same:size=16"));
+    Assert.assertEquals(BenchmarkComparator.Status.NEW, statuses.get("a.Bench.same:size=256"));
+    Assert.assertEquals(BenchmarkComparator.Status.REGRESSION, statuses.get("a.Bench.slower"));
+    Assert.assertEquals(BenchmarkComparator.Status.IMPROVEMENT, statuses.get("a.Bench.faster"));
+    // The difference is within the error margins
+    Assert.assertEquals(BenchmarkComparator.Status.UNCHANGED, statuses.get("a.Bench.noisy"));
+    // A lower throughput is a regression
+    Assert.assertEquals(BenchmarkComparator.Status.REGRESSION, statuses.get("a.Bench.throughput"));
+    Assert.assertEquals(BenchmarkComparator.Status.MISSING, statuses.get("a.Bench.removed"));
+
+    Assert.assertEquals(20d, comparisons.get(2).getChangePercent(), 0.001d);
+  }
+
+  private static String result(String benchmark, String mode, double score, double error, String params) {
+    return "{\"benchmark\": \"" + benchmark + "\", \"mode\": \"" + mode + "\", "
+      + (params == null ? "" : "\"params\": " + params + ", ")
+      + "\"primaryMetric\": {\"score\": " + score + ", \"scoreError\": " + error + ", \"scoreUnit\": \"us/op\"}}";
+  }
+}
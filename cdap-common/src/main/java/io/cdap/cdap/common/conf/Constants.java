@@ -204,12 +204,16 @@ public final class Constants {
     public static final String LOCAL_DATASET_DELETER_INITIAL_DELAY_SECONDS
       = "app.program.local.dataset.deleter.initial.delay";
     public static final String SYSTEM_ARTIFACTS_DIR = "app.artifact.dir";
+    public static final String ARTIFACT_UNPACK_CACHE_DIR = "app.artifact.unpack.cache.dir";
+    public static final String ARTIFACT_UNPACK_CACHE_MAX_SIZE_MB = "app.artifact.unpack.cache.max.size.mb";
     public static final String PROGRAM_EXTRA_CLASSPATH = "app.program.extra.classpath";
     public static final String SPARK_YARN_CLIENT_REWRITE = "app.program.spark.yarn.client.rewrite.enabled";
     public static final String SPARK_COMPAT = "app.program.spark.compat";
     public static final String RUNTIME_EXT_DIR = "app.program.runtime.extensions.dir";
     public static final String PROGRAM_MAX_START_SECONDS = "app.program.max.start.seconds";
     public static final String PROGRAM_MAX_STOP_SECONDS = "app.program.max.stop.seconds";
+    public static final String PROGRAM_LAUNCH_CACHE_DIR = "app.program.launch.cache.dir";
+    public static final String PROGRAM_LAUNCH_CACHE_EXPIRATION_DAYS = "app.program.launch.cache.expiration.days";
     public static final String YARN_ATTEMPT_FAILURES_VALIDITY_INTERVAL =
       "app.program.yarn.attempt.failures.validity.interval";
 
@@ -345,18 +349,22 @@ public final class Constants {
     public static final String WORKER_THREADS = "preview.worker.threads";
 
     public static final String PREVIEW_CACHE_SIZE = "preview.cache.size";
+    public static final String RUNNER_POOL_SIZE = "preview.runner.pool.size";
   }
 
   /**
    * Scheduler options.
    */
   public class Scheduler {
-    public static final String CFG_SCHEDULER_MAX_THREAD_POOL_SIZE = "scheduler.max.thread.pool.size";
     public static final String CFG_SCHEDULER_MISFIRE_THRESHOLD_MS = "scheduler.misfire.threshold.ms";
     /**
      * Topic name for publishing time events from time scheduler to the messaging system
      */
     public static final String TIME_EVENT_TOPIC = "time.event.topic";
+    /**
+     * Maximum number of time events that are due at the same time to publish in one request
+     */
+    public static final String TIME_EVENT_PUBLISH_BATCH_SIZE = "scheduler.time.event.publish.batch.size";
 
     public static final String EVENT_POLL_DELAY_MILLIS = "scheduler.event.poll.delay.millis";
 
@@ -365,6 +373,7 @@ public final class Constants {
     public static final String PROGRAM_STATUS_EVENT_FETCH_SIZE = "scheduler.program.status.event.fetch.size";
 
     public static final String JOB_QUEUE_NUM_PARTITIONS = "scheduler.job.queue.num.partitions";
+    public static final String JOB_QUEUE_SCAN_INTERVAL_SECS = "scheduler.job.queue.scan.interval.secs";
   }
 
   /**
@@ -450,6 +459,12 @@ public final class Constants {
 
     public static final String DATASET_UNCHECKED_UPGRADE = "dataset.unchecked.upgrade";
 
+    // Program container local cache of dataset instance metadata and dataset types
+    public static final String META_CACHE_TTL_SECS = "dataset.meta.cache.ttl.secs";
+    public static final String META_CACHE_MAX_SIZE = "dataset.meta.cache.max.size";
+    public static final String META_CACHE_INVALIDATION_POLL_DELAY_MILLIS =
+      "dataset.meta.cache.invalidation.poll.delay.millis";
+
     public static final String DATA_EVENT_TOPIC = "data.event.topic";
 
     public static final String DATA_STORAGE_IMPLEMENTATION = "data.storage.implementation";
@@ -567,6 +582,7 @@ public final class Constants {
     public static final String SERVER_BOSS_THREADS = "router.server.boss.threads";
     public static final String SERVER_WORKER_THREADS = "router.server.worker.threads";
     public static final String CONNECTION_TIMEOUT_SECS = "router.connection.idle.timeout.secs";
+    public static final String BACKEND_POOL_MAX_IDLE_PER_HOST = "router.backend.connection.pool.max.idle.per.host";
     public static final String ROUTER_AUDIT_PATH_CHECK_ENABLED = "router.audit.path.check.enabled";
     public static final String ROUTER_AUDIT_LOG_ENABLED = "router.audit.log.enabled";
 
@@ -604,6 +620,12 @@ public final class Constants {
     public static final String TIME_SERIES_TABLE_ROLL_TIME = "metrics.data.table.ts.rollTime";
 
     public static final String METRICS_MINIMUM_RESOLUTION_SECONDS = "metrics.minimum.resolution.seconds";
+    // Maximum number of concurrent scans to execute a single metrics query with
+    public static final String QUERY_MAX_SPLITS = "metrics.query.max.splits";
+    // Whether metrics are only written to the minimum resolution, and rolled up into the coarser resolutions later
+    public static final String ROLLUP_ENABLED = "metrics.rollup.enabled";
+    public static final String ROLLUP_INTERVAL_SECONDS = "metrics.rollup.interval.seconds";
+    public static final String ROLLUP_DELAY_SECONDS = "metrics.rollup.delay.seconds";
     public static final String MINIMUM_RESOLUTION_RETENTION_SECONDS =
       "metrics.data.table.retention.minimum.resolution.seconds";
     // Key prefix for retention seconds. The actual key is suffixed by the table resolution.
@@ -765,6 +787,28 @@ public final class Constants {
       public static final String PROGRAM_KILLED_RUNS = "program.killed.runs";
       public static final String PROGRAM_REJECTED_RUNS = "program.rejected.runs";
       public static final String PROGRAM_NODE_MINUTES = "program.node.minutes";
+      public static final String LAUNCH_BUNDLE_MILLIS = "program.launch.bundle.ms";
+      public static final String LAUNCH_UPLOAD_BYTES = "program.launch.upload.bytes";
+      public static final String LAUNCH_CACHED_BYTES = "program.launch.cached.bytes";
+    }
+
+    /**
+     * Provisioner metrics
+     */
+    public static final class Provisioner {
+      public static final String CLUSTER_REUSE_HITS = "provisioner.cluster.reuse.hits";
+      public static final String CLUSTER_REUSE_MISSES = "provisioner.cluster.reuse.misses";
+      public static final String CLUSTER_REUSE_SAVED_MILLIS = "provisioner.cluster.reuse.saved.ms";
+      public static final String CLUSTER_IDLE_EXPIRED = "provisioner.cluster.idle.expired";
+    }
+
+    /**
+     * Preview metrics
+     */
+    public static final class Preview {
+      public static final String STARTUP_MILLIS = "preview.startup.ms";
+      public static final String RUNNER_POOL_HITS = "preview.runner.pool.hits";
+      public static final String RUNNER_POOL_MISSES = "preview.runner.pool.misses";
     }
 
     /**
@@ -900,6 +944,10 @@ public final class Constants {
     public static final String SERVICE_PROXY_ADDRESS = "app.program.runtime.service.proxy.address";
     // Configuration key for the service proxy password. It is only used within a runtime cluster.
     public static final String SERVICE_PROXY_PASSWORD = "app.program.runtime.service.proxy.password";
+
+    // Configurations for the cache of launch files on the remote hosts
+    public static final String REMOTE_CACHE_DIR = "app.program.runtime.remote.cache.dir";
+    public static final String REMOTE_CACHE_EXPIRATION_DAYS = "app.program.runtime.remote.cache.expiration.days";
   }
 
   /**
@@ -976,6 +1024,8 @@ public final class Constants {
     public static final String TOKEN_DIGEST_KEY_LENGTH = "security.token.digest.keylength";
     /** Time duration in milliseconds after which an active secret key should be retired. */
     public static final String TOKEN_DIGEST_KEY_EXPIRATION = "security.token.digest.key.expiration.ms";
+    /** Maximum number of validated tokens cached by the token validator. */
+    public static final String TOKEN_VALIDATION_CACHE_SIZE = "security.token.validation.cache.size";
     /** Parent znode used for secret key distribution in ZooKeeper. */
     public static final String DIST_KEY_PARENT_ZNODE = "security.token.distributed.parent.znode";
     /**
@@ -1317,9 +1367,16 @@ public final class Constants {
     public static final String MESSAGING_POLL_DELAY_MILLIS = "metadata.messaging.poll.delay.millis";
     public static final String MESSAGING_RETRIES_ON_CONFLICT = "metadata.messaging.retries.on.conflict";
 
+    public static final String LINEAGE_CACHE_SIZE = "metadata.lineage.cache.size";
+    public static final String LINEAGE_CACHE_EXPIRY_SECONDS = "metadata.lineage.cache.expiry.seconds";
+
     public static final String STORAGE_PROVIDER_IMPLEMENTATION = "metadata.storage.implementation";
     public static final String STORAGE_PROVIDER_NOSQL = "nosql";
     public static final String STORAGE_PROVIDER_ELASTICSEARCH = "elastic";
+    public static final String STORAGE_PROVIDER_LOCAL = "local";
+
+    public static final String LOCAL_STORAGE_DIR = "metadata.storage.local.dir";
+    public static final String LOCAL_STORAGE_SNAPSHOT_THRESHOLD = "metadata.storage.local.snapshot.threshold";
   }
 
   /**
@@ -1401,12 +1458,30 @@ public final class Constants {
     public static final String REFRESH_INTERVAL_SECS = "operational.stats.refresh.interval.secs";
   }
 
+  /**
+   * Constants for tracing of internal requests
+   */
+  public static final class Trace {
+    public static final String SAMPLE_RATE = "trace.sample.rate";
+    public static final String BUFFER_SIZE = "trace.buffer.size";
+    public static final String EXPORTERS = "trace.exporters";
+    public static final String EXPORTER_EXTENSIONS_DIR = "trace.exporter.extensions.dir";
+    public static final String EXPORTER_PROPERTIES_PREFIX = "trace.exporter.properties.";
+    public static final String EXPORT_QUEUE_SIZE = "trace.export.queue.size";
+
+    // The http header and the notification property that carry the context of a trace to another service
+    public static final String CONTEXT_HEADER = "CDAP-Trace-Context";
+    public static final String CONTEXT_PROPERTY = "trace.context";
+  }
+
   /**
    * Constants for provisioners
    */
   public static final class Provisioner {
     public static final String EXTENSIONS_DIR = "runtime.extensions.dir";
     public static final String SYSTEM_PROPERTY_PREFIX = "provisioner.system.properties.";
+    public static final String CLUSTER_REUSE_IDLE_TTL_SECS = "provisioner.cluster.reuse.idle.ttl.secs";
+    public static final String CLUSTER_REUSE_CHECK_INTERVAL_SECS = "provisioner.cluster.reuse.check.interval.secs";
   }
 
   /**
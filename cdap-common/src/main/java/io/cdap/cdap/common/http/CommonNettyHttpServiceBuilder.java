@@ -18,23 +18,32 @@ package io.cdap.cdap.common.http;
 import io.cdap.cdap.common.HttpExceptionHandler;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.trace.TraceHook;
 import io.cdap.http.ChannelPipelineModifier;
+import io.cdap.http.HandlerHook;
 import io.cdap.http.NettyHttpService;
 import io.netty.channel.ChannelPipeline;
 import io.netty.util.concurrent.EventExecutor;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import javax.annotation.Nullable;
 
 /**
  * Provides a {@link io.cdap.http.NettyHttpService.Builder} that has common settings built-in.
+ * Requests to the service are traced by a {@link TraceHook}, in addition to the handler hooks that are set.
  */
 public class CommonNettyHttpServiceBuilder extends NettyHttpService.Builder {
 
+  private final String serviceName;
   private ChannelPipelineModifier pipelineModifier;
   private ChannelPipelineModifier additionalModifier;
+  private Iterable<? extends HandlerHook> handlerHooks = Collections.emptyList();
 
   public CommonNettyHttpServiceBuilder(CConfiguration cConf, String serviceName) {
     super(serviceName);
+    this.serviceName = serviceName;
 
     if (cConf.getBoolean(Constants.Security.ENABLED)) {
       pipelineModifier = new ChannelPipelineModifier() {
@@ -58,6 +67,12 @@ public class CommonNettyHttpServiceBuilder extends NettyHttpService.Builder {
     return this;
   }
 
+  @Override
+  public NettyHttpService.Builder setHandlerHooks(Iterable<? extends HandlerHook> handlerHooks) {
+    this.handlerHooks = handlerHooks;
+    return this;
+  }
+
   public NettyHttpService.Builder addChannelPipelineModifier(ChannelPipelineModifier additionalPipelineModifier) {
     additionalModifier = combine(additionalModifier, additionalPipelineModifier);
     return this;
@@ -69,6 +84,10 @@ public class CommonNettyHttpServiceBuilder extends NettyHttpService.Builder {
     if (modifier != null) {
       super.setChannelPipelineModifier(modifier);
     }
+    List<HandlerHook> hooks = new ArrayList<>();
+    hooks.add(new TraceHook(serviceName));
+    handlerHooks.forEach(hooks::add);
+    super.setHandlerHooks(hooks);
     return super.build();
   }
 
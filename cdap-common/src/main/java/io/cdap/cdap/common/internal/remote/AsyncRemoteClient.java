@@ -0,0 +1,476 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.common.internal.remote;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Multimap;
+import com.google.common.net.HttpHeaders;
+import io.cdap.cdap.common.ServiceUnavailableException;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.discovery.EndpointStrategy;
+import io.cdap.cdap.common.discovery.RandomEndpointStrategy;
+import io.cdap.cdap.common.discovery.URIScheme;
+import io.cdap.cdap.common.trace.SpanContext;
+import io.cdap.cdap.common.trace.Tracing;
+import io.cdap.cdap.security.spi.authorization.UnauthorizedException;
+import io.cdap.common.http.HttpMethod;
+import io.cdap.common.http.HttpRequest;
+import io.cdap.common.http.HttpRequestConfig;
+import io.cdap.common.http.HttpResponse;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.AbstractChannelPoolMap;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.channel.pool.FixedChannelPool;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpChunkedInput;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.handler.stream.ChunkedStream;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.concurrent.Future;
+import org.apache.twill.discovery.Discoverable;
+import org.apache.twill.discovery.DiscoveryServiceClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import javax.net.ssl.SSLException;
+
+/**
+ * A non-blocking counterpart of {@link RemoteClient}, which performs the requests to a discovered service with Netty
+ * and completes a {@link CompletableFuture} with the response. Connections are kept in a bounded pool per endpoint
+ * and all requests share the threads of the given {@link EventLoopGroup}, so a caller with many concurrent calls does
+ * not need a thread for each of them. A request that fails to connect is retried on an endpoint picked again from the
+ * discovery, and request and response bodies can be streamed.
+ */
+public class AsyncRemoteClient implements Closeable {
+
+  private static final int MAX_CONNECT_ATTEMPTS = 3;
+
+  private final EndpointStrategy endpointStrategy;
+  private final HttpRequestConfig httpRequestConfig;
+  private final String discoverableServiceName;
+  private final String basePath;
+  private final RemoteAuthenticator authenticator;
+  private final AbstractChannelPoolMap<Endpoint, FixedChannelPool> pools;
+
+  public AsyncRemoteClient(DiscoveryServiceClient discoveryClient, String discoverableServiceName,
+                           HttpRequestConfig httpRequestConfig, String basePath,
+                           EventLoopGroup eventLoopGroup, int maxConnectionsPerEndpoint) {
+    this(discoveryClient, discoverableServiceName, httpRequestConfig, basePath, null,
+         eventLoopGroup, maxConnectionsPerEndpoint);
+  }
+
+  public AsyncRemoteClient(DiscoveryServiceClient discoveryClient, String discoverableServiceName,
+                           HttpRequestConfig httpRequestConfig, String basePath,
+                           @Nullable RemoteAuthenticator authenticator,
+                           EventLoopGroup eventLoopGroup, int maxConnectionsPerEndpoint) {
+    this.discoverableServiceName = discoverableServiceName;
+    this.httpRequestConfig = httpRequestConfig;
+    // Use a supplier to delay the discovery until the first time it is being used.
+    this.endpointStrategy = new RandomEndpointStrategy(() -> discoveryClient.discover(discoverableServiceName));
+    String cleanBasePath = basePath.startsWith("/") ? basePath.substring(1) : basePath;
+    this.basePath = cleanBasePath.endsWith("/") ? cleanBasePath : cleanBasePath + "/";
+    this.authenticator = authenticator == null ? RemoteAuthenticator.getDefaultAuthenticator() : authenticator;
+
+    SslContext sslContext = createSslContext(httpRequestConfig.isVerifySSLCert());
+    Bootstrap bootstrap = new Bootstrap()
+      .group(eventLoopGroup)
+      .channel(NioSocketChannel.class)
+      .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, httpRequestConfig.getConnectTimeout());
+    this.pools = new AbstractChannelPoolMap<Endpoint, FixedChannelPool>() {
+      @Override
+      protected FixedChannelPool newPool(Endpoint endpoint) {
+        Bootstrap endpointBootstrap = bootstrap.clone().remoteAddress(endpoint.address);
+        return new FixedChannelPool(endpointBootstrap, new AbstractChannelPoolHandler() {
+          @Override
+          public void channelCreated(Channel ch) {
+            ChannelPipeline pipeline = ch.pipeline();
+            if (endpoint.ssl) {
+              pipeline.addLast("ssl", sslContext.newHandler(ch.alloc(), endpoint.address.getHostString(),
+                                                            endpoint.address.getPort()));
+            }
+            pipeline.addLast("codec", new HttpClientCodec());
+            pipeline.addLast("chunker", new ChunkedWriteHandler());
+          }
+        }, maxConnectionsPerEndpoint);
+      }
+    };
+  }
+
+  /**
+   * Create a {@link HttpRequest.Builder} using the specified http method and resource. This client will
+   * discover the service address and combine the specified resource in order to set a URL for the builder.
+   *
+   * @param method the request method
+   * @param resource the request resource
+   * @return a builder to create the http request, with method and URL already set
+   * @throws ServiceUnavailableException if the service could not be discovered
+   */
+  public HttpRequest.Builder requestBuilder(HttpMethod method, String resource) {
+    Discoverable discoverable = endpointStrategy.pick(1L, TimeUnit.SECONDS);
+    if (discoverable == null) {
+      throw new ServiceUnavailableException(discoverableServiceName);
+    }
+    return HttpRequest.builder(method, toURL(discoverable, basePath + resource));
+  }
+
+  /**
+   * Performs the request. The returned future fails with a {@link ServiceUnavailableException} if no connection
+   * could be made to the service, or if the response was a 503, and with an {@link UnauthorizedException} if the
+   * response was a 403. Cancelling the future closes the connection of the request.
+   *
+   * @param request the request to perform
+   * @return a future that completes with the response
+   */
+  public CompletableFuture<HttpResponse> execute(HttpRequest request) {
+    return execute(request, null);
+  }
+
+  /**
+   * Performs the request, passing the response body to the given consumer as it is received instead of keeping it
+   * in the response. The consumer is called from an event loop thread, so it must not block.
+   *
+   * @param request the request to perform
+   * @param bodyConsumer the consumer for the chunks of the response body, or {@code null} to keep the body in the
+   *                     response
+   * @return a future that completes with the response after the last chunk of the body was consumed
+   * @see #execute(HttpRequest)
+   */
+  public CompletableFuture<HttpResponse> execute(HttpRequest request, @Nullable BodyConsumer bodyConsumer) {
+    CompletableFuture<HttpResponse> result = new CompletableFuture<>();
+    // The trace context is only known on the calling thread
+    SpanContext context = Tracing.currentContext();
+    execute(request, request.getURL(), context, bodyConsumer, 1, result);
+    return result;
+  }
+
+  /**
+   * Closes the connections of this client. The {@link EventLoopGroup} is owned by the caller and stays open.
+   */
+  @Override
+  public void close() {
+    pools.close();
+  }
+
+  private void execute(HttpRequest request, URL url, @Nullable SpanContext context,
+                       @Nullable BodyConsumer bodyConsumer, int attempt, CompletableFuture<HttpResponse> result) {
+    ChannelPool pool = pools.get(new Endpoint(url));
+    pool.acquire().addListener((Future<Channel> future) -> {
+      if (!future.isSuccess()) {
+        Throwable cause = future.cause();
+        if (!(cause instanceof ConnectException)) {
+          result.completeExceptionally(cause);
+          return;
+        }
+        // The request was not sent, so it is safe to send it to another instance of the service
+        Discoverable discoverable = attempt < MAX_CONNECT_ATTEMPTS ? endpointStrategy.pick() : null;
+        if (discoverable == null) {
+          result.completeExceptionally(new ServiceUnavailableException(discoverableServiceName, cause));
+          return;
+        }
+        execute(request, toURL(discoverable, url.getFile()), context, bodyConsumer, attempt + 1, result);
+        return;
+      }
+
+      Channel channel = future.getNow();
+      if (result.isDone()) {
+        // Cancelled while connecting
+        pool.release(channel);
+        return;
+      }
+      ResponseHandler handler = new ResponseHandler(pool, bodyConsumer, result);
+      channel.pipeline().addLast("response", handler);
+      result.whenComplete((response, failure) -> {
+        if (result.isCancelled()) {
+          channel.close();
+        }
+      });
+      handler.send(channel, request, url, context);
+    });
+  }
+
+  private io.netty.handler.codec.http.HttpRequest createRequest(HttpRequest request, URL url,
+                                                                @Nullable SpanContext context,
+                                                                boolean hasBody) {
+    io.netty.handler.codec.http.HttpMethod method =
+      io.netty.handler.codec.http.HttpMethod.valueOf(request.getMethod().name());
+    io.netty.handler.codec.http.HttpRequest nettyRequest = hasBody
+      ? new DefaultHttpRequest(HttpVersion.HTTP_1_1, method, url.getFile())
+      : new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, method, url.getFile(), Unpooled.EMPTY_BUFFER);
+
+    nettyRequest.headers().set(HttpHeaderNames.HOST, url.getHost() + ":" + url.getPort());
+    Multimap<String, String> headers = request.getHeaders();
+    if (headers != null) {
+      for (Map.Entry<String, String> header : headers.entries()) {
+        nettyRequest.headers().add(header.getKey(), header.getValue());
+      }
+    }
+    if (authenticator != null && !nettyRequest.headers().contains(HttpHeaders.AUTHORIZATION)) {
+      nettyRequest.headers().set(HttpHeaders.AUTHORIZATION,
+                                 String.format("%s %s", authenticator.getType(), authenticator.getCredentials()));
+    }
+    if (context != null) {
+      nettyRequest.headers().set(Constants.Trace.CONTEXT_HEADER, context.toString());
+    }
+
+    Long bodyLength = request.getBodyLength();
+    if (!hasBody) {
+      HttpUtil.setContentLength(nettyRequest, 0L);
+    } else if (bodyLength != null) {
+      HttpUtil.setContentLength(nettyRequest, bodyLength);
+    } else {
+      HttpUtil.setTransferEncodingChunked(nettyRequest, true);
+    }
+    return nettyRequest;
+  }
+
+  private URL toURL(Discoverable discoverable, String resource) {
+    try {
+      return URIScheme.createURI(discoverable, "%s", resource).toURL();
+    } catch (MalformedURLException e) {
+      // shouldn't happen. If it does, it means there is some bug in the service announcer
+      throw new IllegalStateException(String.format("Discovered service %s, but it announced malformed URL",
+                                                    discoverableServiceName), e);
+    }
+  }
+
+  private static SslContext createSslContext(boolean verifySSLCert) {
+    try {
+      SslContextBuilder builder = SslContextBuilder.forClient();
+      if (!verifySSLCert) {
+        builder.trustManager(InsecureTrustManagerFactory.INSTANCE);
+      }
+      return builder.build();
+    } catch (SSLException e) {
+      throw new IllegalStateException("Failed to create SSL context", e);
+    }
+  }
+
+  /**
+   * Consumer of the chunks of a streamed response body.
+   */
+  public interface BodyConsumer {
+
+    /**
+     * Called with each chunk of the response body, in order. The buffer is only valid during the call.
+     *
+     * @throws IOException if the chunk cannot be consumed, which fails the request
+     */
+    void onReceived(ByteBuffer chunk) throws IOException;
+  }
+
+  /**
+   * Writes a request to a pooled connection and collects its response. The connection goes back to the pool after
+   * the last chunk of the response, or is closed if the request failed or the server did not keep it alive.
+   */
+  private final class ResponseHandler extends SimpleChannelInboundHandler<HttpObject> {
+
+    private final ChannelPool pool;
+    private final BodyConsumer bodyConsumer;
+    private final CompletableFuture<HttpResponse> result;
+    private final ByteArrayOutputStream body;
+    private io.netty.handler.codec.http.HttpResponse response;
+    private ScheduledFuture<?> timeout;
+    private boolean done;
+
+    ResponseHandler(ChannelPool pool, @Nullable BodyConsumer bodyConsumer, CompletableFuture<HttpResponse> result) {
+      this.pool = pool;
+      this.bodyConsumer = bodyConsumer;
+      this.result = result;
+      this.body = new ByteArrayOutputStream();
+    }
+
+    void send(Channel channel, HttpRequest request, URL url, @Nullable SpanContext context) {
+      ChannelFutureListener failureListener = future -> {
+        if (!future.isSuccess()) {
+          fail(future.channel(), future.cause());
+        }
+      };
+      if (httpRequestConfig.getReadTimeout() > 0) {
+        timeout = channel.eventLoop().schedule(() -> fail(channel, new SocketTimeoutException("Read timed out")),
+                                               httpRequestConfig.getReadTimeout(), TimeUnit.MILLISECONDS);
+      }
+      if (request.getBody() == null) {
+        channel.writeAndFlush(createRequest(request, url, context, false)).addListener(failureListener);
+        return;
+      }
+
+      InputStream input;
+      try {
+        input = request.getBody().getInput();
+      } catch (IOException e) {
+        fail(channel, e);
+        return;
+      }
+      // The chunked writer streams the body from the input and closes it at the end
+      channel.write(createRequest(request, url, context, true)).addListener(failureListener);
+      channel.writeAndFlush(new HttpChunkedInput(new ChunkedStream(input))).addListener(failureListener);
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, HttpObject msg) throws Exception {
+      if (done) {
+        return;
+      }
+      if (msg instanceof io.netty.handler.codec.http.HttpResponse) {
+        response = (io.netty.handler.codec.http.HttpResponse) msg;
+      }
+      if (msg instanceof HttpContent) {
+        ByteBuf content = ((HttpContent) msg).content();
+        if (bodyConsumer != null) {
+          if (content.isReadable()) {
+            bodyConsumer.onReceived(content.nioBuffer());
+          }
+        } else {
+          content.readBytes(body, content.readableBytes());
+        }
+      }
+      if (msg instanceof LastHttpContent) {
+        complete(ctx.channel());
+      }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) {
+      fail(ctx.channel(), new IOException("Connection closed before the response was received"));
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+      fail(ctx.channel(), cause);
+    }
+
+    private void complete(Channel channel) {
+      boolean keepAlive = HttpUtil.isKeepAlive(response);
+      if (!finish(channel, keepAlive)) {
+        return;
+      }
+
+      Multimap<String, String> headers = ArrayListMultimap.create();
+      for (Map.Entry<String, String> header : response.headers()) {
+        headers.put(header.getKey(), header.getValue());
+      }
+      HttpResponse httpResponse = new HttpResponse(response.status().code(), response.status().reasonPhrase(),
+                                                   body.toByteArray(), headers);
+      switch (httpResponse.getResponseCode()) {
+        case HttpURLConnection.HTTP_UNAVAILABLE:
+          result.completeExceptionally(new ServiceUnavailableException(discoverableServiceName,
+                                                                       httpResponse.getResponseBodyAsString()));
+          break;
+        case HttpURLConnection.HTTP_FORBIDDEN:
+          result.completeExceptionally(new UnauthorizedException(httpResponse.getResponseBodyAsString()));
+          break;
+        default:
+          result.complete(httpResponse);
+      }
+    }
+
+    private void fail(Channel channel, Throwable cause) {
+      if (finish(channel, false)) {
+        result.completeExceptionally(cause);
+      }
+    }
+
+    /**
+     * Releases the connection back to the pool, closing it first unless it can be reused.
+     *
+     * @return {@code true} if the request was not finished before
+     */
+    private boolean finish(Channel channel, boolean reuse) {
+      if (done) {
+        return false;
+      }
+      done = true;
+      if (timeout != null) {
+        timeout.cancel(false);
+      }
+      channel.pipeline().remove(this);
+      if (!reuse) {
+        channel.close();
+      }
+      pool.release(channel);
+      return true;
+    }
+  }
+
+  /**
+   * The address and scheme of a service instance, which identifies its connection pool.
+   */
+  private static final class Endpoint {
+
+    private final InetSocketAddress address;
+    private final boolean ssl;
+
+    Endpoint(URL url) {
+      this.address = InetSocketAddress.createUnresolved(url.getHost(), url.getPort());
+      this.ssl = "https".equals(url.getProtocol());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Endpoint other = (Endpoint) o;
+      return ssl == other.ssl && address.equals(other.address);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(address, ssl);
+    }
+  }
+}
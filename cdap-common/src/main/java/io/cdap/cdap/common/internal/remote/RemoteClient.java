@@ -20,10 +20,14 @@ import com.google.common.base.Joiner;
 import com.google.common.collect.Multimap;
 import com.google.common.net.HttpHeaders;
 import io.cdap.cdap.common.ServiceUnavailableException;
+import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.discovery.EndpointStrategy;
 import io.cdap.cdap.common.discovery.RandomEndpointStrategy;
 import io.cdap.cdap.common.discovery.URIScheme;
 import io.cdap.cdap.common.security.HttpsEnabler;
+import io.cdap.cdap.common.trace.Span;
+import io.cdap.cdap.common.trace.SpanContext;
+import io.cdap.cdap.common.trace.Tracing;
 import io.cdap.cdap.security.spi.authorization.UnauthorizedException;
 import io.cdap.common.http.HttpMethod;
 import io.cdap.common.http.HttpRequest;
@@ -53,6 +57,7 @@ public class RemoteClient {
   private final String discoverableServiceName;
   private final String basePath;
   private final RemoteAuthenticator authenticator;
+  private final String spanName;
 
   public RemoteClient(DiscoveryServiceClient discoveryClient, String discoverableServiceName,
                       HttpRequestConfig httpRequestConfig, String basePath) {
@@ -69,6 +74,7 @@ public class RemoteClient {
     String cleanBasePath = basePath.startsWith("/") ? basePath.substring(1) : basePath;
     this.basePath = cleanBasePath.endsWith("/") ? cleanBasePath : cleanBasePath + "/";
     this.authenticator = authenticator == null ? RemoteAuthenticator.getDefaultAuthenticator() : authenticator;
+    this.spanName = "remote." + discoverableServiceName;
   }
 
   /**
@@ -94,6 +100,27 @@ public class RemoteClient {
    *                                     was a 503
    */
   public HttpResponse execute(HttpRequest request) throws IOException {
+    // Records a span for the request if the caller is traced, and passes the context of the span to the remote service
+    try (Span span = Tracing.startSpan(spanName)) {
+      if (!span.isRecording()) {
+        return doExecute(request);
+      }
+      span.tag("request", request.getMethod() + " " + request.getURL().getPath());
+      try {
+        HttpResponse response = doExecute(HttpRequest.builder(request)
+                                            .addHeader(Constants.Trace.CONTEXT_HEADER,
+                                                       String.valueOf(span.getContext()))
+                                            .build());
+        span.tag("status", response.getResponseCode());
+        return response;
+      } catch (IOException | RuntimeException e) {
+        span.error(e);
+        throw e;
+      }
+    }
+  }
+
+  private HttpResponse doExecute(HttpRequest request) throws IOException {
     // Add Authorization header if needed
     if (authenticator != null) {
       Multimap<String, String> headers = request.getHeaders();
@@ -136,6 +163,10 @@ public class RemoteClient {
       urlConn.setRequestProperty(HttpHeaders.AUTHORIZATION,
                                  String.format("%s %s", authenticator.getType(), authenticator.getCredentials()));
     }
+    SpanContext context = Tracing.currentContext();
+    if (context != null) {
+      urlConn.setRequestProperty(Constants.Trace.CONTEXT_HEADER, context.toString());
+    }
 
     urlConn.setRequestMethod(method.name());
     return urlConn;
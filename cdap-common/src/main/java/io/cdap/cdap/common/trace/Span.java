@@ -0,0 +1,135 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.trace;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * A timed operation within a trace, started through {@link Tracing}. A recording span becomes the current span
+ * of the thread that started it, so that spans started by the same thread become its children, until it is
+ * closed. Spans that are not sampled are not recording, and all their methods do nothing, so that instrumented
+ * code need not check whether tracing is on:
+ *
+ * <pre>
+ *   try (Span span = Tracing.startSpan("program.run")) {
+ *     span.tag("program", programId);
+ *     ...
+ *   }
+ * </pre>
+ */
+public final class Span implements AutoCloseable {
+
+  static final Span NOOP = new Span(null, null, 0L, null);
+
+  private final String name;
+  private final SpanContext context;
+  private final long parentId;
+  private final Span previous;
+  private final long startTime;
+  private final long startNanos;
+  private Map<String, String> tags;
+  private String error;
+  private boolean finished;
+
+  Span(@Nullable String name, @Nullable SpanContext context, long parentId, @Nullable Span previous) {
+    this.name = name;
+    this.context = context;
+    this.parentId = parentId;
+    this.previous = previous;
+    this.startTime = context == null ? 0L : System.currentTimeMillis();
+    this.startNanos = context == null ? 0L : System.nanoTime();
+  }
+
+  /**
+   * @return {@code true} if this span is sampled and will be recorded when it is closed
+   */
+  public boolean isRecording() {
+    return context != null;
+  }
+
+  /**
+   * @return the context of this span, or {@code null} if it is not recording
+   */
+  @Nullable
+  public SpanContext getContext() {
+    return context;
+  }
+
+  /**
+   * Adds a tag to this span. The value is only converted to a string if the span is recording.
+   */
+  public Span tag(String key, Object value) {
+    if (context == null) {
+      return this;
+    }
+    synchronized (this) {
+      if (!finished) {
+        if (tags == null) {
+          tags = new LinkedHashMap<>();
+        }
+        tags.put(key, String.valueOf(value));
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Records that the operation of this span failed.
+   */
+  public Span error(Throwable t) {
+    if (context == null) {
+      return this;
+    }
+    synchronized (this) {
+      if (!finished) {
+        error = t.getClass().getName() + ": " + t.getMessage();
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Finishes this span. If it is the current span of the calling thread, the span that was current when this
+   * span was started becomes current again. Closing a span more than once has no effect.
+   */
+  @Override
+  public void close() {
+    if (context == null) {
+      return;
+    }
+    SpanData data;
+    synchronized (this) {
+      if (finished) {
+        return;
+      }
+      finished = true;
+      long durationMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+      data = new SpanData(SpanContext.toHex(context.getTraceId()), SpanContext.toHex(context.getSpanId()),
+                          parentId == 0L ? null : SpanContext.toHex(parentId), name, startTime, durationMicros,
+                          tags == null ? new LinkedHashMap<>() : tags, error);
+    }
+    Tracing.finish(this, previous, data);
+  }
+
+  @Override
+  public String toString() {
+    return context == null ? "Span{NOOP}" : "Span{name='" + name + "', context=" + context + '}';
+  }
+}
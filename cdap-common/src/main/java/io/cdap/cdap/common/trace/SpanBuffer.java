@@ -0,0 +1,63 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+
+/**
+ * A ring buffer of the most recently finished spans. Adding a span never blocks. Reading is best effort: spans
+ * that are added while the buffer is being read may or may not be returned.
+ */
+final class SpanBuffer {
+
+  private final AtomicReferenceArray<SpanData> spans;
+  private final AtomicLong count = new AtomicLong();
+
+  SpanBuffer(int size) {
+    if (size <= 0) {
+      throw new IllegalArgumentException("Size of the span buffer must be positive: " + size);
+    }
+    this.spans = new AtomicReferenceArray<>(size);
+  }
+
+  void add(SpanData span) {
+    spans.set((int) (count.getAndIncrement() % spans.length()), span);
+  }
+
+  /**
+   * Returns the spans in the buffer that match a filter, the most recently finished span first.
+   *
+   * @param filter the filter to apply
+   * @param limit the maximum number of spans to return
+   */
+  List<SpanData> getSpans(Predicate<SpanData> filter, int limit) {
+    List<SpanData> result = new ArrayList<>();
+    long end = count.get();
+    long start = Math.max(0L, end - spans.length());
+    for (long i = end - 1; i >= start && result.size() < limit; i--) {
+      SpanData span = spans.get((int) (i % spans.length()));
+      if (span != null && filter.test(span)) {
+        result.add(span);
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.trace;
+
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+/**
+ * Identifies a {@link Span} within its trace. It is passed to other services, so that the spans they record
+ * become children of the span of the caller.
+ */
+public final class SpanContext {
+
+  private final long traceId;
+  private final long spanId;
+
+  SpanContext(long traceId, long spanId) {
+    this.traceId = traceId;
+    this.spanId = spanId;
+  }
+
+  public long getTraceId() {
+    return traceId;
+  }
+
+  public long getSpanId() {
+    return spanId;
+  }
+
+  /**
+   * Parses the string form of a context, as returned by {@link #toString()}.
+   *
+   * @return the context, or {@code null} if the string is null or malformed
+   */
+  @Nullable
+  public static SpanContext parse(@Nullable String str) {
+    if (str == null) {
+      return null;
+    }
+    int idx = str.indexOf(':');
+    if (idx <= 0 || idx == str.length() - 1) {
+      return null;
+    }
+    try {
+      return new SpanContext(Long.parseUnsignedLong(str.substring(0, idx), 16),
+                             Long.parseUnsignedLong(str.substring(idx + 1), 16));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Formats an id of a trace or a span as a hexadecimal string.
+   */
+  static String toHex(long id) {
+    return Long.toHexString(id);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    SpanContext that = (SpanContext) o;
+    return traceId == that.traceId && spanId == that.spanId;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(traceId, spanId);
+  }
+
+  /**
+   * Returns the context as a string in the form {@code [trace-id]:[span-id]}, with both ids in hexadecimal.
+   */
+  @Override
+  public String toString() {
+    return toHex(traceId) + ":" + toHex(spanId);
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.trace;
+
+import java.util.Collections;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * The immutable record of a finished {@link Span}, as it is kept in memory and passed to the
+ * {@link SpanExporter SpanExporters}. Ids are hexadecimal strings.
+ */
+public final class SpanData {
+
+  private final String traceId;
+  private final String spanId;
+  private final String parentId;
+  private final String name;
+  private final long startTime;
+  private final long durationMicros;
+  private final Map<String, String> tags;
+  private final String error;
+
+  SpanData(String traceId, String spanId, @Nullable String parentId, String name, long startTime,
+           long durationMicros, Map<String, String> tags, @Nullable String error) {
+    this.traceId = traceId;
+    this.spanId = spanId;
+    this.parentId = parentId;
+    this.name = name;
+    this.startTime = startTime;
+    this.durationMicros = durationMicros;
+    this.tags = Collections.unmodifiableMap(tags);
+    this.error = error;
+  }
+
+  public String getTraceId() {
+    return traceId;
+  }
+
+  public String getSpanId() {
+    return spanId;
+  }
+
+  /**
+   * @return the id of the parent span, or {@code null} if this span is the root of its trace
+   */
+  @Nullable
+  public String getParentId() {
+    return parentId;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return the time in milliseconds when the span started
+   */
+  public long getStartTime() {
+    return startTime;
+  }
+
+  public long getDurationMicros() {
+    return durationMicros;
+  }
+
+  public Map<String, String> getTags() {
+    return tags;
+  }
+
+  /**
+   * @return the error that the operation of the span failed with, or {@code null} if it succeeded
+   */
+  @Nullable
+  public String getError() {
+    return error;
+  }
+
+  @Override
+  public String toString() {
+    return "SpanData{" +
+      "traceId='" + traceId + '\'' +
+      ", spanId='" + spanId + '\'' +
+      ", parentId='" + parentId + '\'' +
+      ", name='" + name + '\'' +
+      ", startTime=" + startTime +
+      ", durationMicros=" + durationMicros +
+      ", tags=" + tags +
+      ", error='" + error + '\'' +
+      '}';
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.trace;
+
+import io.cdap.cdap.common.logging.LogSamplers;
+import io.cdap.cdap.common.logging.Loggers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Passes finished spans to the {@link SpanExporter SpanExporters} in batches, from a daemon thread. Spans are
+ * queued without blocking, and dropped if the queue is full.
+ */
+final class SpanExportService {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SpanExportService.class);
+  private static final Logger OUTAGE_LOG = Loggers.sampling(LOG, LogSamplers.limitRate(60000));
+  private static final int MAX_BATCH_SIZE = 1000;
+
+  private final List<SpanExporter> exporters;
+  private final BlockingQueue<SpanData> queue;
+  private final AtomicLong dropped = new AtomicLong();
+  private final Thread thread;
+
+  SpanExportService(List<SpanExporter> exporters, int queueSize) {
+    this.exporters = exporters;
+    this.queue = new ArrayBlockingQueue<>(queueSize);
+    this.thread = new Thread(this::run, "span-exporter");
+    this.thread.setDaemon(true);
+  }
+
+  void start() {
+    thread.start();
+  }
+
+  void offer(SpanData span) {
+    if (!queue.offer(span)) {
+      dropped.incrementAndGet();
+    }
+  }
+
+  private void run() {
+    while (true) {
+      List<SpanData> batch = new ArrayList<>();
+      try {
+        batch.add(queue.take());
+      } catch (InterruptedException e) {
+        break;
+      }
+      queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+      List<SpanData> spans = Collections.unmodifiableList(batch);
+      for (SpanExporter exporter : exporters) {
+        try {
+          exporter.export(spans);
+        } catch (Exception e) {
+          OUTAGE_LOG.warn("Failed to export {} spans with exporter {}", spans.size(), exporter.getName(), e);
+        }
+      }
+      long numDropped = dropped.getAndSet(0L);
+      if (numDropped > 0) {
+        OUTAGE_LOG.warn("Dropped {} spans because the span exporters could not keep up", numDropped);
+      }
+    }
+    for (SpanExporter exporter : exporters) {
+      exporter.destroy();
+    }
+  }
+}
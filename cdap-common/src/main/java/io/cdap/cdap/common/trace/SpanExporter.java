@@ -0,0 +1,54 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.trace;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * An extension that exports finished spans to an external tracing system. Exporters are loaded with the Java
+ * {@link java.util.ServiceLoader} from the configured extensions directories, and only the exporters named in the
+ * configuration are used. Spans are exported in batches from a single background thread, hence an exporter
+ * does not slow down the traced operations, but spans are dropped if it cannot keep up.
+ */
+public interface SpanExporter {
+
+  /**
+   * @return the name of the exporter, by which it is enabled in the configuration
+   */
+  String getName();
+
+  /**
+   * Initializes the exporter. This method is called once before any spans are exported.
+   *
+   * @param properties the configuration properties of this exporter
+   * @throws Exception if the exporter cannot be initialized, in which case it is not used
+   */
+  void initialize(Map<String, String> properties) throws Exception;
+
+  /**
+   * Exports a batch of finished spans.
+   *
+   * @throws Exception if the spans could not be exported. They are not retried.
+   */
+  void export(Collection<SpanData> spans) throws Exception;
+
+  /**
+   * Releases the resources of the exporter.
+   */
+  void destroy();
+}
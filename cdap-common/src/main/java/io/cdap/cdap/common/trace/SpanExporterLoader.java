@@ -0,0 +1,39 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.trace;
+
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.extension.AbstractExtensionLoader;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Loads the {@link SpanExporter SpanExporters} from the extensions directories, by their name.
+ */
+final class SpanExporterLoader extends AbstractExtensionLoader<String, SpanExporter> {
+
+  SpanExporterLoader(CConfiguration cConf) {
+    super(cConf.get(Constants.Trace.EXPORTER_EXTENSIONS_DIR, ""));
+  }
+
+  @Override
+  protected Set<String> getSupportedTypesForProvider(SpanExporter exporter) {
+    return Collections.singleton(exporter.getName());
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.trace;
+
+import com.google.common.collect.MapMaker;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.http.AbstractHandlerHook;
+import io.cdap.http.HttpResponder;
+import io.cdap.http.internal.HandlerInfo;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Records a span for every traced request to a http service. A request is traced if it carries the context of
+ * a trace in the {@link Constants.Trace#CONTEXT_HEADER} header, or if it is sampled as the start of a new trace.
+ * The span is the current span of the thread that calls the handler method.
+ */
+public class TraceHook extends AbstractHandlerHook {
+
+  private final String serviceName;
+  // The spans of the requests in progress. The requests are compared by identity.
+  private final ConcurrentMap<HttpRequest, Span> spans = new MapMaker().weakKeys().makeMap();
+
+  public TraceHook(String serviceName) {
+    this.serviceName = serviceName;
+  }
+
+  @Override
+  public boolean preCall(HttpRequest request, HttpResponder responder, HandlerInfo handlerInfo) {
+    // The handler threads are reused for other requests, so the previous request must not be the parent
+    Tracing.clearCurrent();
+    SpanContext parent = SpanContext.parse(request.headers().get(Constants.Trace.CONTEXT_HEADER));
+    Span span = parent == null
+      ? Tracing.startTrace(handlerInfo.getMethodName())
+      : Tracing.startSpan(handlerInfo.getMethodName(), parent);
+    if (span.isRecording()) {
+      span.tag("service", serviceName)
+        .tag("handler", getSimpleName(handlerInfo.getHandlerName()))
+        .tag("request", request.method().name() + " " + request.uri());
+      spans.put(request, span);
+    }
+    return true;
+  }
+
+  @Override
+  public void postCall(HttpRequest request, HttpResponseStatus status, HandlerInfo handlerInfo) {
+    if (spans.isEmpty()) {
+      return;
+    }
+    Span span = spans.remove(request);
+    if (span != null) {
+      span.tag("status", status.code());
+      span.close();
+    }
+  }
+
+  private String getSimpleName(String className) {
+    return className.substring(className.lastIndexOf('.') + 1);
+  }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.trace;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+/**
+ * Entry point for tracing the internal operations of a request, such as the calls it makes to other services.
+ *
+ * A trace is started with {@link #startTrace(String)} for a fraction of the requests, as configured by
+ * {@link Constants.Trace#SAMPLE_RATE}, or is continued with {@link #startSpan(String, SpanContext)} from the
+ * context that another service passed along with a request or a notification. Within a trace, the operations
+ * are recorded as {@link Span Spans} with {@link #startSpan(String)}, which only records a span if the calling
+ * thread is in a trace, hence instrumented code costs next to nothing for requests that are not traced.
+ *
+ * Finished spans are kept in memory for the traces endpoint of the services, and are passed to the configured
+ * {@link SpanExporter SpanExporters}. The current span of a thread is kept in a {@link ThreadLocal}, similar to
+ * the user in the {@link io.cdap.cdap.security.spi.authentication.SecurityRequestContext}.
+ */
+public final class Tracing {
+
+  private static final Logger LOG = LoggerFactory.getLogger(Tracing.class);
+  private static final int DEFAULT_BUFFER_SIZE = 10000;
+  private static final int DEFAULT_EXPORT_QUEUE_SIZE = 10000;
+
+  private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+  private static volatile double sampleRate;
+  private static volatile SpanBuffer buffer = new SpanBuffer(DEFAULT_BUFFER_SIZE);
+  private static volatile SpanExportService exportService;
+  private static boolean configured;
+
+  private Tracing() {
+  }
+
+  /**
+   * Configures tracing for this process. Only the first call has an effect, since all services in a process
+   * share the same configuration.
+   */
+  public static synchronized void configure(CConfiguration cConf) {
+    if (configured) {
+      return;
+    }
+    configured = true;
+    buffer = new SpanBuffer(cConf.getInt(Constants.Trace.BUFFER_SIZE, DEFAULT_BUFFER_SIZE));
+    List<SpanExporter> exporters = loadExporters(cConf);
+    if (!exporters.isEmpty()) {
+      SpanExportService service = new SpanExportService(exporters, cConf.getInt(Constants.Trace.EXPORT_QUEUE_SIZE,
+                                                                                DEFAULT_EXPORT_QUEUE_SIZE));
+      service.start();
+      exportService = service;
+    }
+    sampleRate = Math.max(0d, Math.min(1d, cConf.getDouble(Constants.Trace.SAMPLE_RATE, 0d)));
+    if (sampleRate > 0d || !exporters.isEmpty()) {
+      LOG.info("Tracing requests with sample rate {} and {} span exporters", sampleRate, exporters.size());
+    }
+  }
+
+  /**
+   * Sets the sample rate and creates a new span buffer, regardless of whether tracing was configured before.
+   */
+  @VisibleForTesting
+  static synchronized void reset(double rate, int bufferSize) {
+    configured = true;
+    buffer = new SpanBuffer(bufferSize);
+    sampleRate = rate;
+    CURRENT.remove();
+  }
+
+  /**
+   * Starts a new trace, if the trace is sampled.
+   *
+   * @param name the name of the root span of the trace
+   * @return the root span, or a span that is not recording if the trace is not sampled
+   */
+  public static Span startTrace(String name) {
+    double rate = sampleRate;
+    if (rate <= 0d || (rate < 1d && ThreadLocalRandom.current().nextDouble() >= rate)) {
+      return Span.NOOP;
+    }
+    return start(name, newId(), 0L);
+  }
+
+  /**
+   * Starts a span as a child of the current span of the calling thread.
+   *
+   * @return the new span, or a span that is not recording if the thread has no current span
+   */
+  public static Span startSpan(String name) {
+    Span current = CURRENT.get();
+    if (current == null) {
+      return Span.NOOP;
+    }
+    //noinspection ConstantConditions
+    return start(name, current.getContext().getTraceId(), current.getContext().getSpanId());
+  }
+
+  /**
+   * Starts a span as a child of a span in another thread or service.
+   *
+   * @param parent the context of the parent span
+   * @return the new span, or a span that is not recording if the parent is {@code null}
+   */
+  public static Span startSpan(String name, @Nullable SpanContext parent) {
+    if (parent == null) {
+      return Span.NOOP;
+    }
+    return start(name, parent.getTraceId(), parent.getSpanId());
+  }
+
+  /**
+   * @return the context of the current span of the calling thread, or {@code null} if it has none
+   */
+  @Nullable
+  public static SpanContext currentContext() {
+    Span current = CURRENT.get();
+    return current == null ? null : current.getContext();
+  }
+
+  /**
+   * Removes the current span of the calling thread, for threads that are reused for unrelated operations.
+   */
+  public static void clearCurrent() {
+    CURRENT.remove();
+  }
+
+  /**
+   * Adds the context of the current span of the calling thread to the properties of a notification, so that
+   * the subscribers of the notification can continue the trace.
+   *
+   * @return a copy of the properties with the context, or the same properties if the thread has no current span
+   */
+  public static Map<String, String> addContext(Map<String, String> properties) {
+    SpanContext context = currentContext();
+    if (context == null) {
+      return properties;
+    }
+    Map<String, String> result = new HashMap<>(properties);
+    result.put(Constants.Trace.CONTEXT_PROPERTY, context.toString());
+    return result;
+  }
+
+  /**
+   * @return the context that was added to the properties of a notification, or {@code null} if there is none
+   */
+  @Nullable
+  public static SpanContext getContext(Map<String, String> properties) {
+    return SpanContext.parse(properties.get(Constants.Trace.CONTEXT_PROPERTY));
+  }
+
+  /**
+   * Returns the recently finished spans of this process that match a filter, the most recent span first.
+   */
+  public static List<SpanData> getSpans(Predicate<SpanData> filter, int limit) {
+    return buffer.getSpans(filter, limit);
+  }
+
+  private static Span start(String name, long traceId, long parentId) {
+    Span span = new Span(name, new SpanContext(traceId, newId()), parentId, CURRENT.get());
+    CURRENT.set(span);
+    return span;
+  }
+
+  /**
+   * Called by a {@link Span} when it is closed.
+   */
+  static void finish(Span span, @Nullable Span previous, SpanData data) {
+    if (CURRENT.get() == span) {
+      if (previous == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(previous);
+      }
+    }
+    buffer.add(data);
+    SpanExportService service = exportService;
+    if (service != null) {
+      service.offer(data);
+    }
+  }
+
+  private static long newId() {
+    long id;
+    do {
+      id = ThreadLocalRandom.current().nextLong();
+    } while (id == 0L);
+    return id;
+  }
+
+  private static List<SpanExporter> loadExporters(CConfiguration cConf) {
+    Collection<String> names = cConf.getTrimmedStringCollection(Constants.Trace.EXPORTERS);
+    if (names.isEmpty()) {
+      return Collections.emptyList();
+    }
+    SpanExporterLoader loader = new SpanExporterLoader(cConf);
+    List<SpanExporter> exporters = new ArrayList<>();
+    for (String name : names) {
+      SpanExporter exporter = loader.get(name);
+      if (exporter == null) {
+        LOG.warn("Span exporter {} is not found. Spans are not exported to it.", name);
+        continue;
+      }
+      try {
+        exporter.initialize(cConf.getPropsWithPrefix(Constants.Trace.EXPORTER_PROPERTIES_PREFIX + name + "."));
+        exporters.add(exporter);
+      } catch (Exception e) {
+        LOG.warn("Failed to initialize span exporter {}. Spans are not exported to it.", name, e);
+      }
+    }
+    return exporters;
+  }
+}
@@ -27,6 +27,7 @@ import com.google.inject.Injector;
 import io.cdap.cdap.api.metrics.MetricsCollectionService;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.logging.common.UncaughtExceptionHandler;
+import io.cdap.cdap.common.trace.Tracing;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.twill.api.AbstractTwillRunnable;
@@ -92,6 +93,7 @@ public abstract class AbstractMasterTwillRunnable extends AbstractTwillRunnable
       UserGroupInformation.setConfiguration(hConf);
 
       cConf = CConfiguration.create(new File(configs.get("cConf")));
+      Tracing.configure(cConf);
 
       LOG.debug("{} cConf {}", name, cConf);
       LOG.debug("{} HBase conf {}", name, hConf);
@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.gateway.handlers;
+
+import com.google.gson.Gson;
+import io.cdap.cdap.common.BadRequestException;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.trace.SpanData;
+import io.cdap.cdap.common.trace.Tracing;
+import io.cdap.http.AbstractHttpHandler;
+import io.cdap.http.HttpResponder;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.QueryParam;
+
+/**
+ * Returns the spans of the traced requests that were recently finished in the process of the service.
+ */
+public class TraceHandler extends AbstractHttpHandler {
+
+  private static final Gson GSON = new Gson();
+
+  @Path(Constants.Gateway.API_VERSION_3 + "/system/services/{service-name}/traces")
+  @GET
+  public void traces(HttpRequest request, HttpResponder responder,
+                     @Nullable @QueryParam("traceId") String traceId,
+                     @QueryParam("minDurationMs") @DefaultValue("0") long minDurationMs,
+                     @QueryParam("limit") @DefaultValue("100") int limit) throws BadRequestException {
+    // ignore the service-name, since all services of a process share the spans. It is only used for routing
+    if (limit <= 0) {
+      throw new BadRequestException("Limit must be positive: " + limit);
+    }
+    long minDurationMicros = TimeUnit.MILLISECONDS.toMicros(minDurationMs);
+    List<SpanData> spans = Tracing.getSpans(span -> (traceId == null || traceId.equals(span.getTraceId()))
+      && span.getDurationMicros() >= minDurationMicros, limit);
+    responder.sendJson(HttpResponseStatus.OK, GSON.toJson(spans));
+  }
+}
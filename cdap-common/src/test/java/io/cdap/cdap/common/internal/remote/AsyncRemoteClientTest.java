@@ -0,0 +1,209 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.common.internal.remote;
+
+import io.cdap.cdap.common.ServiceUnavailableException;
+import io.cdap.cdap.common.http.DefaultHttpRequestConfig;
+import io.cdap.common.ContentProvider;
+import io.cdap.common.http.HttpMethod;
+import io.cdap.common.http.HttpRequest;
+import io.cdap.common.http.HttpResponse;
+import io.cdap.http.AbstractHttpHandler;
+import io.cdap.http.HttpResponder;
+import io.cdap.http.NettyHttpService;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.apache.twill.common.Cancellable;
+import org.apache.twill.common.Threads;
+import org.apache.twill.discovery.Discoverable;
+import org.apache.twill.discovery.InMemoryDiscoveryService;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+
+/**
+ * Tests for {@link AsyncRemoteClient}.
+ */
+public class AsyncRemoteClientTest {
+
+  private static NettyHttpService httpService;
+  private static EventLoopGroup eventLoopGroup;
+
+  @BeforeClass
+  public static void init() throws Exception {
+    httpService = NettyHttpService.builder("test")
+      .setHttpHandlers(new TestHandler())
+      .build();
+    httpService.start();
+    eventLoopGroup = new NioEventLoopGroup(2, Threads.createDaemonThreadFactory("async-remote-client-test-%d"));
+  }
+
+  @AfterClass
+  public static void finish() throws Exception {
+    httpService.stop();
+    eventLoopGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS).await();
+  }
+
+  @Test
+  public void testExecute() throws Exception {
+    InMemoryDiscoveryService discoveryService = new InMemoryDiscoveryService();
+    discoveryService.register(new Discoverable("test", httpService.getBindAddress()));
+
+    try (AsyncRemoteClient client = createClient(discoveryService, 2)) {
+      HttpResponse response = client.execute(client.requestBuilder(HttpMethod.GET, "echo/hello").build())
+        .get(10, TimeUnit.SECONDS);
+      Assert.assertEquals(200, response.getResponseCode());
+      Assert.assertEquals("hello", response.getResponseBodyAsString());
+
+      // A body of unknown length is sent chunked
+      byte[] body = "streamed body".getBytes(StandardCharsets.UTF_8);
+      ContentProvider<? extends InputStream> bodyProvider = () -> new ByteArrayInputStream(body);
+      response = client.execute(client.requestBuilder(HttpMethod.POST, "body").withBody(bodyProvider).build())
+        .get(10, TimeUnit.SECONDS);
+      Assert.assertEquals("streamed body", response.getResponseBodyAsString());
+
+      // Service errors fail the future like RemoteClient.execute throws
+      try {
+        client.execute(client.requestBuilder(HttpMethod.GET, "unavailable").build()).get(10, TimeUnit.SECONDS);
+        Assert.fail("Expected ServiceUnavailableException");
+      } catch (ExecutionException e) {
+        Assert.assertTrue(e.getCause() instanceof ServiceUnavailableException);
+      }
+    }
+  }
+
+  @Test
+  public void testConcurrentRequests() throws Exception {
+    InMemoryDiscoveryService discoveryService = new InMemoryDiscoveryService();
+    discoveryService.register(new Discoverable("test", httpService.getBindAddress()));
+
+    // More concurrent requests than pooled connections, which wait for a connection instead of a thread
+    try (AsyncRemoteClient client = createClient(discoveryService, 4)) {
+      List<CompletableFuture<HttpResponse>> futures = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        futures.add(client.execute(client.requestBuilder(HttpMethod.GET, "echo/" + i).build()));
+      }
+      for (int i = 0; i < 100; i++) {
+        Assert.assertEquals(String.valueOf(i), futures.get(i).get(10, TimeUnit.SECONDS).getResponseBodyAsString());
+      }
+    }
+  }
+
+  @Test
+  public void testStreamingResponse() throws Exception {
+    InMemoryDiscoveryService discoveryService = new InMemoryDiscoveryService();
+    discoveryService.register(new Discoverable("test", httpService.getBindAddress()));
+
+    try (AsyncRemoteClient client = createClient(discoveryService, 1)) {
+      ByteArrayOutputStream received = new ByteArrayOutputStream();
+      HttpResponse response = client.execute(client.requestBuilder(HttpMethod.GET, "echo/streamed").build(),
+                                             (ByteBuffer chunk) -> {
+                                               byte[] bytes = new byte[chunk.remaining()];
+                                               chunk.get(bytes);
+                                               received.write(bytes);
+                                             })
+        .get(10, TimeUnit.SECONDS);
+      Assert.assertEquals(200, response.getResponseCode());
+      Assert.assertEquals("", response.getResponseBodyAsString());
+      Assert.assertEquals("streamed", new String(received.toByteArray(), StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test
+  public void testRetryOnConnectFailure() throws Exception {
+    // An announced instance that no longer listens
+    InetSocketAddress deadAddress;
+    try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+      deadAddress = new InetSocketAddress(socket.getInetAddress(), socket.getLocalPort());
+    }
+
+    InMemoryDiscoveryService discoveryService = new InMemoryDiscoveryService();
+    Cancellable deadInstance = discoveryService.register(new Discoverable("test", deadAddress));
+    try (AsyncRemoteClient client = createClient(discoveryService, 1)) {
+      HttpRequest request = client.requestBuilder(HttpMethod.GET, "echo/retry").build();
+
+      // Fails when there is no other instance to try
+      try {
+        client.execute(request).get(10, TimeUnit.SECONDS);
+        Assert.fail("Expected ServiceUnavailableException");
+      } catch (ExecutionException e) {
+        Assert.assertTrue(e.getCause() instanceof ServiceUnavailableException);
+      }
+
+      // Retried on the instance picked from discovery once the dead instance is replaced
+      deadInstance.cancel();
+      discoveryService.register(new Discoverable("test", httpService.getBindAddress()));
+      for (int i = 0; i < 10; i++) {
+        Assert.assertEquals("retry", client.execute(request).get(10, TimeUnit.SECONDS).getResponseBodyAsString());
+      }
+    }
+  }
+
+  private AsyncRemoteClient createClient(InMemoryDiscoveryService discoveryService, int maxConnections) {
+    return new AsyncRemoteClient(discoveryService, "test", new DefaultHttpRequestConfig(false), "/test/",
+                                 eventLoopGroup, maxConnections);
+  }
+
+  /**
+   * Handler for the test requests.
+   */
+  public static final class TestHandler extends AbstractHttpHandler {
+
+    @GET
+    @Path("/test/echo/{text}")
+    public void echo(io.netty.handler.codec.http.HttpRequest request, HttpResponder responder,
+                     @PathParam("text") String text) {
+      responder.sendString(HttpResponseStatus.OK, text);
+    }
+
+    @POST
+    @Path("/test/body")
+    public void body(FullHttpRequest request, HttpResponder responder) {
+      responder.sendString(HttpResponseStatus.OK, new String(ByteBufUtil.getBytes(request.content()),
+                                                             StandardCharsets.UTF_8));
+    }
+
+    @GET
+    @Path("/test/unavailable")
+    public void unavailable(io.netty.handler.codec.http.HttpRequest request, HttpResponder responder) {
+      responder.sendString(HttpResponseStatus.SERVICE_UNAVAILABLE, "unavailable");
+    }
+  }
+}
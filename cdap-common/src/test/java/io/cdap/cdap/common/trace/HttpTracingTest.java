@@ -0,0 +1,251 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.trace;
+
+import com.google.common.base.Strings;
+import com.google.common.io.ByteStreams;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.http.DefaultHttpRequestConfig;
+import io.cdap.cdap.common.internal.remote.RemoteClient;
+import io.cdap.cdap.common.utils.Tasks;
+import io.cdap.cdap.gateway.handlers.TraceHandler;
+import io.cdap.common.http.HttpMethod;
+import io.cdap.common.http.HttpRequest;
+import io.cdap.common.http.HttpRequests;
+import io.cdap.common.http.HttpResponse;
+import io.cdap.http.AbstractHttpHandler;
+import io.cdap.http.HttpResponder;
+import io.cdap.http.NettyHttpService;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.apache.twill.discovery.Discoverable;
+import org.apache.twill.discovery.InMemoryDiscoveryService;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+
+/**
+ * Tests for tracing the http calls between services with {@link TraceHook}, {@link TraceHandler}
+ * and {@link RemoteClient}.
+ */
+public class HttpTracingTest {
+
+  private static final Gson GSON = new Gson();
+  private static final Type SPANS_TYPE = new TypeToken<List<SpanData>>() { }.getType();
+
+  private static NettyHttpService httpService;
+  private static InMemoryDiscoveryService discoveryService;
+
+  @BeforeClass
+  public static void init() throws Exception {
+    httpService = NettyHttpService.builder("test")
+      .setHttpHandlers(new EchoHandler(), new TraceHandler())
+      .setHandlerHooks(Collections.singletonList(new TraceHook("test")))
+      .build();
+    httpService.start();
+    discoveryService = new InMemoryDiscoveryService();
+    discoveryService.register(new Discoverable("test", httpService.getBindAddress()));
+  }
+
+  @AfterClass
+  public static void finish() throws Exception {
+    httpService.stop();
+  }
+
+  @After
+  public void resetTracing() {
+    Tracing.reset(0d, 16);
+  }
+
+  @Test
+  public void testNotTraced() throws Exception {
+    Tracing.reset(0d, 16);
+    HttpResponse response = HttpRequests.execute(HttpRequest.get(getURL("/echo/context")).build());
+    Assert.assertEquals(200, response.getResponseCode());
+    Assert.assertEquals("", response.getResponseBodyAsString());
+
+    // A request with a context is recorded, so once its span is there, the previous request had its chance too
+    SpanContext parent = new SpanContext(1L, 2L);
+    HttpRequests.execute(HttpRequest.get(getURL("/echo/context"))
+                           .addHeader(Constants.Trace.CONTEXT_HEADER, parent.toString()).build());
+    waitForSpans(1);
+    Assert.assertEquals(SpanContext.toHex(1L), Tracing.getSpans(span -> true, 10).get(0).getTraceId());
+  }
+
+  @Test
+  public void testContinueTrace() throws Exception {
+    // The context of the caller is honored even if requests are not sampled
+    Tracing.reset(0d, 16);
+    SpanContext parent = new SpanContext(1234L, 5678L);
+    HttpResponse response = HttpRequests.execute(HttpRequest.get(getURL("/echo/context"))
+                                                   .addHeader(Constants.Trace.CONTEXT_HEADER, parent.toString())
+                                                   .build());
+    Assert.assertEquals(200, response.getResponseCode());
+
+    // The handler runs in the span of the request
+    SpanContext context = SpanContext.parse(response.getResponseBodyAsString());
+    Assert.assertNotNull(context);
+    Assert.assertEquals(parent.getTraceId(), context.getTraceId());
+
+    waitForSpans(1);
+    SpanData span = Tracing.getSpans(s -> true, 10).get(0);
+    Assert.assertEquals("context", span.getName());
+    Assert.assertEquals(SpanContext.toHex(1234L), span.getTraceId());
+    Assert.assertEquals(SpanContext.toHex(5678L), span.getParentId());
+    Assert.assertEquals(SpanContext.toHex(context.getSpanId()), span.getSpanId());
+    Assert.assertEquals("test", span.getTags().get("service"));
+    Assert.assertEquals("EchoHandler", span.getTags().get("handler"));
+    Assert.assertEquals("200", span.getTags().get("status"));
+  }
+
+  @Test
+  public void testSampledTrace() throws Exception {
+    Tracing.reset(1d, 16);
+    HttpResponse response = HttpRequests.execute(HttpRequest.get(getURL("/echo/context")).build());
+    SpanContext context = SpanContext.parse(response.getResponseBodyAsString());
+    Assert.assertNotNull(context);
+
+    waitForSpans(1);
+    SpanData span = Tracing.getSpans(s -> true, 10).get(0);
+    Assert.assertEquals(SpanContext.toHex(context.getTraceId()), span.getTraceId());
+    Assert.assertNull(span.getParentId());
+  }
+
+  @Test
+  public void testTraceHandler() throws Exception {
+    Tracing.reset(0d, 16);
+    for (long traceId = 1L; traceId <= 3L; traceId++) {
+      HttpRequests.execute(HttpRequest.get(getURL("/echo/context"))
+                             .addHeader(Constants.Trace.CONTEXT_HEADER, new SpanContext(traceId, 1L).toString())
+                             .build());
+    }
+    waitForSpans(3);
+
+    String tracesPath = Constants.Gateway.API_VERSION_3 + "/system/services/test/traces";
+    Assert.assertEquals(3, getTraces(tracesPath).size());
+    Assert.assertEquals(2, getTraces(tracesPath + "?limit=2").size());
+
+    List<SpanData> spans = getTraces(tracesPath + "?traceId=" + SpanContext.toHex(2L));
+    Assert.assertEquals(1, spans.size());
+    Assert.assertEquals(SpanContext.toHex(2L), spans.get(0).getTraceId());
+
+    Assert.assertTrue(getTraces(tracesPath + "?minDurationMs=" + TimeUnit.HOURS.toMillis(1)).isEmpty());
+
+    HttpResponse response = HttpRequests.execute(HttpRequest.get(getURL(tracesPath + "?limit=0")).build());
+    Assert.assertEquals(400, response.getResponseCode());
+  }
+
+  @Test
+  public void testRemoteClientNotTraced() throws Exception {
+    Tracing.reset(0d, 16);
+    RemoteClient remoteClient = createRemoteClient();
+    HttpResponse response = remoteClient.execute(remoteClient.requestBuilder(HttpMethod.GET, "header").build());
+    Assert.assertEquals("", response.getResponseBodyAsString());
+    Assert.assertEquals("", read(remoteClient.openConnection(HttpMethod.GET, "header")));
+  }
+
+  @Test
+  public void testRemoteClientPropagation() throws Exception {
+    Tracing.reset(1d, 16);
+    RemoteClient remoteClient = createRemoteClient();
+    SpanContext callerContext;
+    String executeHeader;
+    String connectionHeader;
+    try (Span caller = Tracing.startTrace("caller")) {
+      callerContext = caller.getContext();
+      executeHeader = remoteClient.execute(remoteClient.requestBuilder(HttpMethod.GET, "header").build())
+        .getResponseBodyAsString();
+      connectionHeader = read(remoteClient.openConnection(HttpMethod.GET, "header"));
+    }
+
+    // execute passes the context of the span it records for the call
+    SpanContext executeContext = SpanContext.parse(executeHeader);
+    Assert.assertNotNull(executeContext);
+    Assert.assertEquals(callerContext.getTraceId(), executeContext.getTraceId());
+    List<SpanData> remoteSpans = Tracing.getSpans(span -> span.getName().equals("remote.test"), 10);
+    Assert.assertEquals(1, remoteSpans.size());
+    Assert.assertEquals(SpanContext.toHex(executeContext.getSpanId()), remoteSpans.get(0).getSpanId());
+    Assert.assertEquals(SpanContext.toHex(callerContext.getSpanId()), remoteSpans.get(0).getParentId());
+    Assert.assertEquals("200", remoteSpans.get(0).getTags().get("status"));
+
+    // openConnection passes the context of the caller
+    Assert.assertEquals(callerContext.toString(), connectionHeader);
+  }
+
+  private RemoteClient createRemoteClient() {
+    return new RemoteClient(discoveryService, "test", new DefaultHttpRequestConfig(false), "/echo/");
+  }
+
+  private List<SpanData> getTraces(String path) throws Exception {
+    HttpResponse response = HttpRequests.execute(HttpRequest.get(getURL(path)).build());
+    Assert.assertEquals(200, response.getResponseCode());
+    return GSON.fromJson(response.getResponseBodyAsString(), SPANS_TYPE);
+  }
+
+  private void waitForSpans(int count) throws Exception {
+    // The hook records the span after the response is written
+    Tasks.waitFor(count, () -> Tracing.getSpans(span -> true, count + 1).size(), 5, TimeUnit.SECONDS);
+  }
+
+  private static URL getURL(String path) throws Exception {
+    InetSocketAddress address = httpService.getBindAddress();
+    return new URL(String.format("http://%s:%d%s", address.getHostName(), address.getPort(), path));
+  }
+
+  private static String read(HttpURLConnection urlConn) throws Exception {
+    try (InputStream is = urlConn.getInputStream()) {
+      return new String(ByteStreams.toByteArray(is), StandardCharsets.UTF_8);
+    } finally {
+      urlConn.disconnect();
+    }
+  }
+
+  /**
+   * Handler that returns the trace context as seen by the service.
+   */
+  public static final class EchoHandler extends AbstractHttpHandler {
+
+    @GET
+    @Path("/echo/context")
+    public void context(io.netty.handler.codec.http.HttpRequest request, HttpResponder responder) {
+      SpanContext context = Tracing.currentContext();
+      responder.sendString(HttpResponseStatus.OK, context == null ? "" : context.toString());
+    }
+
+    @GET
+    @Path("/echo/header")
+    public void header(io.netty.handler.codec.http.HttpRequest request, HttpResponder responder) {
+      responder.sendString(HttpResponseStatus.OK,
+                           Strings.nullToEmpty(request.headers().get(Constants.Trace.CONTEXT_HEADER)));
+    }
+  }
+}
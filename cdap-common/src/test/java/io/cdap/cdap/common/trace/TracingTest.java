@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.trace;
+
+import io.cdap.cdap.common.conf.Constants;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for {@link Tracing}.
+ */
+public class TracingTest {
+
+  @After
+  public void resetTracing() {
+    Tracing.reset(0d, 16);
+  }
+
+  @Test
+  public void testNotSampled() {
+    Tracing.reset(0d, 16);
+    try (Span span = Tracing.startTrace("root")) {
+      Assert.assertFalse(span.isRecording());
+      Assert.assertNull(Tracing.currentContext());
+      // child spans of an unsampled trace are not recorded either
+      Assert.assertFalse(Tracing.startSpan("child").isRecording());
+    }
+    Map<String, String> properties = Collections.singletonMap("key", "value");
+    Assert.assertSame(properties, Tracing.addContext(properties));
+    Assert.assertTrue(Tracing.getSpans(span -> true, 10).isEmpty());
+  }
+
+  @Test
+  public void testNestedSpans() {
+    Tracing.reset(1d, 16);
+    SpanContext rootContext;
+    try (Span root = Tracing.startTrace("root")) {
+      rootContext = root.getContext();
+      try (Span child = Tracing.startSpan("child")) {
+        child.tag("key", "value");
+        Assert.assertEquals(child.getContext(), Tracing.currentContext());
+        child.error(new IllegalStateException("failed"));
+      }
+      // closing the child restores its parent as the current span
+      Assert.assertEquals(rootContext, Tracing.currentContext());
+    }
+    Assert.assertNull(Tracing.currentContext());
+
+    List<SpanData> spans = Tracing.getSpans(span -> true, 10);
+    Assert.assertEquals(2, spans.size());
+    SpanData root = spans.get(0);
+    SpanData child = spans.get(1);
+    Assert.assertEquals("root", root.getName());
+    Assert.assertNull(root.getParentId());
+    Assert.assertEquals("child", child.getName());
+    Assert.assertEquals(root.getTraceId(), child.getTraceId());
+    Assert.assertEquals(root.getSpanId(), child.getParentId());
+    Assert.assertEquals(Collections.singletonMap("key", "value"), child.getTags());
+    Assert.assertNotNull(child.getError());
+    Assert.assertNull(root.getError());
+  }
+
+  @Test
+  public void testContextPropagation() {
+    Tracing.reset(1d, 16);
+    Map<String, String> properties;
+    SpanContext parent;
+    try (Span span = Tracing.startTrace("publish")) {
+      parent = span.getContext();
+      properties = Tracing.addContext(Collections.singletonMap("key", "value"));
+    }
+    Assert.assertEquals("value", properties.get("key"));
+    Assert.assertEquals(parent.toString(), properties.get(Constants.Trace.CONTEXT_PROPERTY));
+    Assert.assertEquals(parent, Tracing.getContext(properties));
+
+    // continue the trace as if in another thread or process
+    try (Span span = Tracing.startSpan("subscribe", Tracing.getContext(properties))) {
+      Assert.assertTrue(span.isRecording());
+    }
+    SpanData data = Tracing.getSpans(span -> span.getName().equals("subscribe"), 1).get(0);
+    Assert.assertEquals(SpanContext.toHex(parent.getTraceId()), data.getTraceId());
+    Assert.assertEquals(SpanContext.toHex(parent.getSpanId()), data.getParentId());
+
+    // without a parent, no span is recorded
+    Assert.assertFalse(Tracing.startSpan("orphan", null).isRecording());
+  }
+
+  @Test
+  public void testParseContext() {
+    SpanContext context = new SpanContext(-1L, 0x1234L);
+    Assert.assertEquals(context, SpanContext.parse(context.toString()));
+    Assert.assertNull(SpanContext.parse(null));
+    Assert.assertNull(SpanContext.parse(""));
+    Assert.assertNull(SpanContext.parse("1234"));
+    Assert.assertNull(SpanContext.parse("xyz:1234"));
+  }
+
+  @Test
+  public void testBufferKeepsMostRecentSpans() {
+    Tracing.reset(1d, 4);
+    for (int i = 0; i < 10; i++) {
+      Tracing.startTrace("span" + i).close();
+    }
+    List<SpanData> spans = Tracing.getSpans(span -> true, 10);
+    Assert.assertEquals(4, spans.size());
+    Assert.assertEquals("span9", spans.get(0).getName());
+    Assert.assertEquals("span6", spans.get(3).getName());
+    Assert.assertEquals(2, Tracing.getSpans(span -> true, 2).size());
+  }
+}
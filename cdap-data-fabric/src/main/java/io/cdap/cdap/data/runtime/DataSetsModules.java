@@ -22,6 +22,7 @@ import com.google.inject.Module;
 import com.google.inject.PrivateModule;
 import com.google.inject.Provider;
 import com.google.inject.Scopes;
+import com.google.inject.name.Named;
 import com.google.inject.name.Names;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
@@ -47,6 +48,7 @@ import io.cdap.cdap.metadata.elastic.ElasticsearchMetadataStorage;
 import io.cdap.cdap.security.impersonation.OwnerStore;
 import io.cdap.cdap.spi.metadata.MetadataStorage;
 import io.cdap.cdap.spi.metadata.dataset.DatasetMetadataStorage;
+import io.cdap.cdap.spi.metadata.local.LocalMetadataStorage;
 import io.cdap.cdap.spi.metadata.noop.NoopMetadataStorage;
 import io.cdap.cdap.store.DefaultOwnerStore;
 
@@ -57,6 +59,7 @@ public class DataSetsModules extends RuntimeModule {
 
   public static final String BASE_DATASET_FRAMEWORK = "basicDatasetFramework";
   public static final String SPI_BASE_IMPL = "spiBaseImplementation";
+  static final String LOCAL_METADATA_STORAGE_ALLOWED = "localMetadataStorageAllowed";
 
   @Override
   public Module getInMemoryModules() {
@@ -104,21 +107,23 @@ public class DataSetsModules extends RuntimeModule {
 
   @Override
   public Module getStandaloneModules() {
-    return getModule();
+    return getModule(true);
   }
 
   @Override
   public Module getDistributedModules() {
-    return getModule();
+    // the local metadata storage can only be used by a single process
+    return getModule(false);
   }
 
-  private Module getModule() {
+  private Module getModule(boolean localMetadataStorageAllowed) {
     return new PrivateModule() {
       @Override
       protected void configure() {
         bind(DatasetDefinitionRegistryFactory.class)
           .to(DefaultDatasetDefinitionRegistryFactory.class).in(Scopes.SINGLETON);
 
+        bindConstant().annotatedWith(Names.named(LOCAL_METADATA_STORAGE_ALLOWED)).to(localMetadataStorageAllowed);
         bind(MetadataStorage.class).annotatedWith(Names.named(SPI_BASE_IMPL))
           .toProvider(MetadataStorageProvider.class).in(Scopes.SINGLETON);
         bind(MetadataStorage.class).to(AuditMetadataStorage.class).in(Scopes.SINGLETON);
@@ -164,11 +169,14 @@ class MetadataStorageProvider implements Provider<MetadataStorage> {
 
   private final Injector injector;
   private final CConfiguration cConf;
+  private final boolean localStorageAllowed;
 
   @Inject
-  MetadataStorageProvider(CConfiguration cConf, Injector injector) {
+  MetadataStorageProvider(CConfiguration cConf, Injector injector,
+                          @Named(DataSetsModules.LOCAL_METADATA_STORAGE_ALLOWED) boolean localStorageAllowed) {
     this.cConf = cConf;
     this.injector = injector;
+    this.localStorageAllowed = localStorageAllowed;
   }
 
   @Override
@@ -181,8 +189,16 @@ class MetadataStorageProvider implements Provider<MetadataStorage> {
     if (Constants.Metadata.STORAGE_PROVIDER_ELASTICSEARCH.equalsIgnoreCase(config)) {
       return injector.getInstance(ElasticsearchMetadataStorage.class);
     }
+    if (Constants.Metadata.STORAGE_PROVIDER_LOCAL.equalsIgnoreCase(config)) {
+      if (!localStorageAllowed) {
+        throw new IllegalArgumentException("MetadataStorage '" + config + "' can only be used by a single process, " +
+                                             "and is not supported in distributed mode.");
+      }
+      return injector.getInstance(LocalMetadataStorage.class);
+    }
     throw new IllegalArgumentException("Unsupported MetadataStorage '" + config + "'. Only '" +
-                                         Constants.Metadata.STORAGE_PROVIDER_NOSQL + "' and '" +
-                                         Constants.Metadata.STORAGE_PROVIDER_ELASTICSEARCH + "' are allowed.");
+                                         Constants.Metadata.STORAGE_PROVIDER_NOSQL + "', '" +
+                                         Constants.Metadata.STORAGE_PROVIDER_ELASTICSEARCH + "' and '" +
+                                         Constants.Metadata.STORAGE_PROVIDER_LOCAL + "' are allowed.");
   }
 }
@@ -0,0 +1,200 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.datafabric.dataset;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.cdap.cdap.api.dataset.DatasetManagementException;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.proto.DatasetMeta;
+import io.cdap.cdap.proto.DatasetModuleMeta;
+import io.cdap.cdap.proto.DatasetTypeMeta;
+import io.cdap.cdap.proto.id.DatasetId;
+import io.cdap.cdap.proto.id.NamespaceId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+/**
+ * A process local cache of {@link DatasetMeta} and {@link DatasetType} used by the {@link RemoteDatasetFramework}
+ * to avoid calling the dataset service and reloading dataset modules every time a dataset is instantiated.
+ * Instance metadata expires after a configurable TTL and can be invalidated explicitly, e.g. by the
+ * {@link DatasetMetaCacheInvalidator} when a dataset is updated or deleted.
+ *
+ * Dataset types are keyed by the dataset modules and by the {@link ClassLoader} of the last module, such that
+ * all instances of the same type that are loaded through the same module classloader share the same
+ * {@link DatasetType}.
+ */
+public final class DatasetMetaCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(DatasetMetaCache.class);
+
+  private final Cache<DatasetId, DatasetMeta> instances;
+  private final Cache<TypeKey, DatasetType> types;
+
+  public DatasetMetaCache(CConfiguration cConf) {
+    this(cConf.getLong(Constants.Dataset.META_CACHE_TTL_SECS), cConf.getInt(Constants.Dataset.META_CACHE_MAX_SIZE));
+  }
+
+  DatasetMetaCache(long ttlSeconds, int maxSize) {
+    this.instances = CacheBuilder.newBuilder()
+      .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+      .maximumSize(maxSize)
+      .build();
+    // Types are immutable for a given set of module jars, hence only evict them when not used for a while, so that
+    // classloaders of closed programs can be garbage collected.
+    this.types = CacheBuilder.newBuilder()
+      .expireAfterAccess(ttlSeconds, TimeUnit.SECONDS)
+      .maximumSize(maxSize)
+      .build();
+  }
+
+  /**
+   * Returns the {@link DatasetMeta} of the given dataset instance, loading it through the given loader if it is
+   * not in the cache. A {@code null} result from the loader is not cached.
+   *
+   * @param datasetId the dataset instance to lookup
+   * @param loader the loader for fetching the {@link DatasetMeta} if it is not cached
+   * @return the {@link DatasetMeta} or {@code null} if the dataset instance does not exist
+   * @throws DatasetManagementException if failed to load the {@link DatasetMeta}
+   */
+  @Nullable
+  public DatasetMeta getInstance(DatasetId datasetId,
+                                 MetaLoader loader) throws DatasetManagementException {
+    DatasetMeta meta = instances.getIfPresent(datasetId);
+    if (meta != null) {
+      return meta;
+    }
+    meta = loader.load();
+    if (meta != null) {
+      instances.put(datasetId, meta);
+    }
+    return meta;
+  }
+
+  /**
+   * Returns the {@link DatasetType} for the given type meta and module classloader, creating it with the given
+   * supplier if it is not in the cache.
+   *
+   * @param typeMeta the {@link DatasetTypeMeta} of the type
+   * @param classLoader the {@link ClassLoader} of the last module of the type
+   * @param typeSupplier the {@link Supplier} for creating the {@link DatasetType} if it is not cached
+   * @param <T> type of the {@link DatasetType}
+   * @return the {@link DatasetType}
+   */
+  @SuppressWarnings("unchecked")
+  public <T extends DatasetType> T getType(DatasetTypeMeta typeMeta, ClassLoader classLoader,
+                                           Supplier<T> typeSupplier) {
+    TypeKey key = new TypeKey(typeMeta, classLoader);
+    DatasetType type = types.getIfPresent(key);
+    if (type == null) {
+      type = typeSupplier.get();
+      types.put(key, type);
+    }
+    return (T) type;
+  }
+
+  /**
+   * Invalidates the cached {@link DatasetMeta} of the given dataset instance.
+   */
+  public void invalidate(DatasetId datasetId) {
+    LOG.trace("Invalidating cached dataset meta for {}", datasetId);
+    instances.invalidate(datasetId);
+  }
+
+  /**
+   * Invalidates the cached {@link DatasetMeta} of all dataset instances in the given namespace.
+   */
+  public void invalidate(NamespaceId namespaceId) {
+    LOG.trace("Invalidating cached dataset meta for all datasets in namespace {}", namespaceId);
+    List<DatasetId> toInvalidate = new ArrayList<>();
+    for (DatasetId datasetId : instances.asMap().keySet()) {
+      if (datasetId.getParent().equals(namespaceId)) {
+        toInvalidate.add(datasetId);
+      }
+    }
+    instances.invalidateAll(toInvalidate);
+  }
+
+  /**
+   * Invalidates all cached {@link DatasetMeta} and {@link DatasetType}.
+   */
+  public void invalidateAll() {
+    instances.invalidateAll();
+    types.invalidateAll();
+  }
+
+  /**
+   * Loader for fetching {@link DatasetMeta} on cache miss.
+   */
+  public interface MetaLoader {
+
+    /**
+     * Returns the {@link DatasetMeta} or {@code null} if the dataset instance does not exist.
+     */
+    @Nullable
+    DatasetMeta load() throws DatasetManagementException;
+  }
+
+  /**
+   * Cache key for {@link DatasetType}. The {@link DatasetModuleMeta#equals(Object)} doesn't include the jar
+   * location, hence the key is computed from the module class names and jar locations, together with the
+   * identity of the module {@link ClassLoader}.
+   */
+  private static final class TypeKey {
+    private final String typeName;
+    private final List<String> modules;
+    private final ClassLoader classLoader;
+    private final int hashCode;
+
+    TypeKey(DatasetTypeMeta typeMeta, ClassLoader classLoader) {
+      this.typeName = typeMeta.getName();
+      this.modules = new ArrayList<>();
+      for (DatasetModuleMeta moduleMeta : typeMeta.getModules()) {
+        modules.add(moduleMeta.getClassName() + "@" + moduleMeta.getJarLocationPath());
+      }
+      this.classLoader = classLoader;
+      this.hashCode = Objects.hash(typeName, modules, System.identityHashCode(classLoader));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      TypeKey that = (TypeKey) o;
+      return classLoader == that.classLoader
+        && Objects.equals(typeName, that.typeName)
+        && Objects.equals(modules, that.modules);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.datafabric.dataset;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.inject.Inject;
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.messaging.Message;
+import io.cdap.cdap.api.messaging.MessagingContext;
+import io.cdap.cdap.api.metadata.MetadataEntity;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.service.RetryStrategies;
+import io.cdap.cdap.common.utils.ImmutablePair;
+import io.cdap.cdap.messaging.MessagingService;
+import io.cdap.cdap.messaging.context.MultiThreadMessagingContext;
+import io.cdap.cdap.messaging.data.MessageId;
+import io.cdap.cdap.messaging.subscriber.AbstractMessagingPollingService;
+import io.cdap.cdap.proto.audit.AuditMessage;
+import io.cdap.cdap.proto.codec.AuditMessageTypeAdapter;
+import io.cdap.cdap.proto.codec.EntityIdTypeAdapter;
+import io.cdap.cdap.proto.id.DatasetId;
+import io.cdap.cdap.proto.id.EntityId;
+import io.cdap.cdap.proto.id.NamespaceId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import javax.annotation.Nullable;
+
+/**
+ * A TMS polling service that consumes the audit topic and invalidates the {@link DatasetMetaCache} when a
+ * dataset instance is created, updated or deleted. Since the cache is process local, this service doesn't
+ * persist the message id; it starts consuming from the time it is started.
+ *
+ * A change made by another process is seen after at most the poll delay, plus the time for the audit message to
+ * be published. If the audit topic cannot be fetched, the cached metadata is dropped once the retries are
+ * exhausted, so that it is not used beyond that point.
+ */
+public class DatasetMetaCacheInvalidator extends AbstractMessagingPollingService<AuditMessage> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(DatasetMetaCacheInvalidator.class);
+  private static final Gson GSON = new GsonBuilder()
+    .registerTypeAdapter(AuditMessage.class, new AuditMessageTypeAdapter())
+    .registerTypeAdapter(EntityId.class, new EntityIdTypeAdapter())
+    .create();
+
+  // Number of messages to fetch per batch
+  private static final int FETCH_SIZE = 100;
+  private static final String RETRY_PREFIX = "dataset.meta.cache.";
+
+  private final MessagingContext messagingContext;
+  private final DatasetMetaCache cache;
+  private final long pollDelayMillis;
+
+  @Inject
+  DatasetMetaCacheInvalidator(CConfiguration cConf, MetricsCollectionService metricsCollectionService,
+                              MessagingService messagingService, DatasetMetaCache cache) {
+    super(NamespaceId.SYSTEM.topic(cConf.get(Constants.Audit.TOPIC)),
+          metricsCollectionService.getContext(ImmutableMap.of(
+            Constants.Metrics.Tag.NAMESPACE, NamespaceId.SYSTEM.getNamespace(),
+            Constants.Metrics.Tag.TOPIC, cConf.get(Constants.Audit.TOPIC),
+            Constants.Metrics.Tag.CONSUMER, "dataset.meta.cache"
+          )),
+          FETCH_SIZE, cConf.getLong(Constants.Dataset.META_CACHE_INVALIDATION_POLL_DELAY_MILLIS),
+          RetryStrategies.fromConfiguration(cConf, RETRY_PREFIX));
+    this.messagingContext = new MultiThreadMessagingContext(messagingService);
+    this.cache = cache;
+    this.pollDelayMillis = cConf.getLong(Constants.Dataset.META_CACHE_INVALIDATION_POLL_DELAY_MILLIS);
+  }
+
+  @Override
+  protected long handleRetriesExhausted(Exception e) {
+    // Changes may be missed while the audit topic cannot be fetched, hence the cached metadata can't be trusted.
+    // Keep polling, since the cache is reloaded from the dataset service anyway.
+    LOG.warn("Failed to fetch dataset changes from the audit topic. Dropping the cached dataset metadata.", e);
+    cache.invalidateAll();
+    return pollDelayMillis;
+  }
+
+  @Override
+  protected MessagingContext getMessagingContext() {
+    return messagingContext;
+  }
+
+  @Override
+  protected AuditMessage decodeMessage(Message message) {
+    return GSON.fromJson(message.getPayloadAsString(), AuditMessage.class);
+  }
+
+  @Nullable
+  @Override
+  protected String loadMessageId() {
+    // Only changes happening after this service started are relevant. Everything before that is either not cached
+    // or will be fetched fresh from the dataset service.
+    byte[] rawId = new byte[MessageId.RAW_ID_SIZE];
+    MessageId.putRawId(System.currentTimeMillis(), (short) 0, 0L, (short) 0, rawId, 0);
+    return Bytes.toHexString(rawId);
+  }
+
+  @Nullable
+  @Override
+  protected String processMessages(Iterator<ImmutablePair<String, AuditMessage>> messages) {
+    String messageId = null;
+    while (messages.hasNext()) {
+      ImmutablePair<String, AuditMessage> messagePair = messages.next();
+      messageId = messagePair.getFirst();
+
+      AuditMessage message = messagePair.getSecond();
+      switch (message.getType()) {
+        case CREATE:
+        case UPDATE:
+        case DELETE:
+          break;
+        default:
+          continue;
+      }
+
+      MetadataEntity entity = message.getEntity();
+      if (!MetadataEntity.DATASET.equals(entity.getType())) {
+        continue;
+      }
+      EntityId entityId = EntityId.fromMetadataEntity(entity);
+      if (entityId instanceof DatasetId) {
+        cache.invalidate((DatasetId) entityId);
+      }
+    }
+    return messageId;
+  }
+}
@@ -65,7 +65,10 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.jar.JarEntry;
@@ -83,6 +86,7 @@ public class RemoteDatasetFramework implements DatasetFramework {
   private final CConfiguration cConf;
   private final LoadingCache<NamespaceId, DatasetServiceClient> clientCache;
   private final DatasetDefinitionRegistryFactory registryFactory;
+  private DatasetMetaCache metaCache;
 
   @Inject
   public RemoteDatasetFramework(final CConfiguration cConf, final DiscoveryServiceClient discoveryClient,
@@ -98,6 +102,15 @@ public class RemoteDatasetFramework implements DatasetFramework {
     this.registryFactory = registryFactory;
   }
 
+  /**
+   * Sets the {@link DatasetMetaCache} for caching dataset metadata and types. Without it, every dataset
+   * lookup goes to the dataset service.
+   */
+  @Inject(optional = true)
+  public void setDatasetMetaCache(DatasetMetaCache metaCache) {
+    this.metaCache = metaCache;
+  }
+
   @Override
   public void addModule(DatasetModuleId moduleId, DatasetModule module) throws DatasetManagementException {
     Class<?> moduleClass = DatasetModules.getDatasetModuleClass(module);
@@ -137,6 +150,9 @@ public class RemoteDatasetFramework implements DatasetFramework {
   @Override
   public void deleteAllModules(NamespaceId namespaceId) throws DatasetManagementException {
     clientCache.getUnchecked(namespaceId).deleteModules();
+    if (metaCache != null) {
+      metaCache.invalidate(namespaceId);
+    }
   }
 
   @Override
@@ -145,6 +161,7 @@ public class RemoteDatasetFramework implements DatasetFramework {
     throws DatasetManagementException {
     clientCache.getUnchecked(datasetInstanceId.getParent())
       .addInstance(datasetInstanceId.getEntityName(), datasetType, props, ownerPrincipal);
+    invalidate(datasetInstanceId);
   }
 
   @Override
@@ -152,6 +169,7 @@ public class RemoteDatasetFramework implements DatasetFramework {
     throws DatasetManagementException {
     clientCache.getUnchecked(datasetInstanceId.getParent())
       .updateInstance(datasetInstanceId.getEntityName(), props);
+    invalidate(datasetInstanceId);
   }
 
   @Override
@@ -169,15 +187,13 @@ public class RemoteDatasetFramework implements DatasetFramework {
   @Nullable
   @Override
   public DatasetSpecification getDatasetSpec(DatasetId datasetInstanceId) throws DatasetManagementException {
-    DatasetMeta meta = clientCache.getUnchecked(datasetInstanceId.getParent())
-      .getInstance(datasetInstanceId.getEntityName());
+    DatasetMeta meta = getInstance(datasetInstanceId);
     return meta == null ? null : meta.getSpec();
   }
 
   @Override
   public boolean hasInstance(DatasetId datasetInstanceId) throws DatasetManagementException {
-    return clientCache.getUnchecked(datasetInstanceId.getParent())
-      .getInstance(datasetInstanceId.getEntityName()) != null;
+    return getInstance(datasetInstanceId) != null;
   }
 
   @Override
@@ -197,12 +213,22 @@ public class RemoteDatasetFramework implements DatasetFramework {
 
   @Override
   public void deleteInstance(DatasetId datasetInstanceId) throws DatasetManagementException {
-    clientCache.getUnchecked(datasetInstanceId.getParent()).deleteInstance(datasetInstanceId.getEntityName());
+    try {
+      clientCache.getUnchecked(datasetInstanceId.getParent()).deleteInstance(datasetInstanceId.getEntityName());
+    } finally {
+      invalidate(datasetInstanceId);
+    }
   }
 
   @Override
   public void deleteAllInstances(NamespaceId namespaceId) throws DatasetManagementException {
-    clientCache.getUnchecked(namespaceId).deleteInstances();
+    try {
+      clientCache.getUnchecked(namespaceId).deleteInstances();
+    } finally {
+      if (metaCache != null) {
+        metaCache.invalidate(namespaceId);
+      }
+    }
   }
 
   @Override
@@ -217,8 +243,7 @@ public class RemoteDatasetFramework implements DatasetFramework {
                                              @Nullable ClassLoader parentClassLoader,
                                              DatasetClassLoaderProvider classLoaderProvider)
     throws DatasetManagementException, IOException {
-    DatasetMeta instanceInfo = clientCache.getUnchecked(datasetInstanceId.getParent())
-      .getInstance(datasetInstanceId.getEntityName());
+    DatasetMeta instanceInfo = getInstance(datasetInstanceId);
     if (instanceInfo == null) {
       return null;
     }
@@ -235,7 +260,7 @@ public class RemoteDatasetFramework implements DatasetFramework {
                                           @Nullable Iterable<? extends EntityId> owners, AccessType accessType)
     throws DatasetManagementException, IOException {
 
-    DatasetMeta datasetMeta = clientCache.getUnchecked(id.getParent()).getInstance(id.getEntityName());
+    DatasetMeta datasetMeta = getInstance(id);
     if (datasetMeta == null) {
       return null;
     }
@@ -249,6 +274,25 @@ public class RemoteDatasetFramework implements DatasetFramework {
     // no-op. The RemoteDatasetFramework doesn't need to do anything. The lineage should be recorded before this point.
   }
 
+  /**
+   * Returns the {@link DatasetMeta} of the given dataset instance, served from the {@link DatasetMetaCache} if
+   * one is set.
+   */
+  @Nullable
+  private DatasetMeta getInstance(DatasetId datasetInstanceId) throws DatasetManagementException {
+    DatasetServiceClient client = clientCache.getUnchecked(datasetInstanceId.getParent());
+    if (metaCache == null) {
+      return client.getInstance(datasetInstanceId.getEntityName());
+    }
+    return metaCache.getInstance(datasetInstanceId, () -> client.getInstance(datasetInstanceId.getEntityName()));
+  }
+
+  private void invalidate(DatasetId datasetInstanceId) {
+    if (metaCache != null) {
+      metaCache.invalidate(datasetInstanceId);
+    }
+  }
+
   private Location createDeploymentJar(Class<?> clz) throws IOException {
     File tempDir = new File(cConf.get(Constants.CFG_LOCAL_DATA_DIR),
                             cConf.get(Constants.AppFabric.TEMP_DIR)).getAbsoluteFile();
@@ -349,19 +393,36 @@ public class RemoteDatasetFramework implements DatasetFramework {
       classLoader = Objects.firstNonNull(Thread.currentThread().getContextClassLoader(), getClass().getClassLoader());
     }
 
-    DatasetDefinitionRegistry registry = registryFactory.create();
+    // adding dataset module jars to classloaders
+    List<ClassLoader> moduleClassLoaders = new ArrayList<>();
     for (DatasetModuleMeta moduleMeta : datasetTypeMeta.getModules()) {
-      // adding dataset module jar to classloader
       try {
         classLoader = classLoaderProvider.get(moduleMeta, classLoader);
+        moduleClassLoaders.add(classLoader);
       } catch (IOException e) {
         LOG.error("Was not able to init classloader for module {} while trying to load type {}",
                   moduleMeta, datasetTypeMeta, e);
         throw Throwables.propagate(e);
       }
+    }
 
+    if (metaCache == null) {
+      return createType(datasetTypeMeta, moduleClassLoaders, classLoader);
+    }
+    // Module classloaders are created by the classloader provider with the previous module classloader as the parent,
+    // hence the classloader of the last module uniquely identifies the whole chain.
+    ClassLoader typeClassLoader = classLoader;
+    return metaCache.getType(datasetTypeMeta, typeClassLoader,
+                             () -> createType(datasetTypeMeta, moduleClassLoaders, typeClassLoader));
+  }
+
+  private <T extends DatasetType> T createType(DatasetTypeMeta datasetTypeMeta, List<ClassLoader> moduleClassLoaders,
+                                               ClassLoader typeClassLoader) {
+    DatasetDefinitionRegistry registry = registryFactory.create();
+    Iterator<ClassLoader> classLoaders = moduleClassLoaders.iterator();
+    for (DatasetModuleMeta moduleMeta : datasetTypeMeta.getModules()) {
       try {
-        DatasetDefinitionRegistries.register(moduleMeta.getClassName(), classLoader, registry);
+        DatasetDefinitionRegistries.register(moduleMeta.getClassName(), classLoaders.next(), registry);
       } catch (Exception e) {
         LOG.error("Was not able to load dataset module class {} while trying to load type {}",
                   moduleMeta.getClassName(), datasetTypeMeta, e);
@@ -372,6 +433,6 @@ public class RemoteDatasetFramework implements DatasetFramework {
     // contract of DatasetTypeMeta is that the last module returned by getModules() is the one
     // that announces the dataset's type. The classloader for the returned DatasetType must be the classloader
     // for that last module.
-    return (T) new DatasetType(registry.get(datasetTypeMeta.getName()), classLoader);
+    return (T) new DatasetType(registry.get(datasetTypeMeta.getName()), typeClassLoader);
   }
 }
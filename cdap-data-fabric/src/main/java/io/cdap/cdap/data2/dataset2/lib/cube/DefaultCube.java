@@ -16,8 +16,11 @@
 
 package io.cdap.cdap.data2.dataset2.lib.cube;
 
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
@@ -26,14 +29,16 @@ import com.google.common.collect.PeekingIterator;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Table;
 import com.google.common.util.concurrent.Uninterruptibles;
-import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
 import io.cdap.cdap.api.dataset.lib.cube.AggregationOption;
 import io.cdap.cdap.api.dataset.lib.cube.Cube;
 import io.cdap.cdap.api.dataset.lib.cube.CubeDeleteQuery;
 import io.cdap.cdap.api.dataset.lib.cube.CubeExploreQuery;
 import io.cdap.cdap.api.dataset.lib.cube.CubeFact;
 import io.cdap.cdap.api.dataset.lib.cube.CubeQuery;
+import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
 import io.cdap.cdap.api.dataset.lib.cube.DimensionValue;
+import io.cdap.cdap.api.dataset.lib.cube.MeasureType;
+import io.cdap.cdap.api.dataset.lib.cube.Measurement;
 import io.cdap.cdap.api.dataset.lib.cube.TimeSeries;
 import io.cdap.cdap.api.dataset.lib.cube.TimeValue;
 import io.cdap.cdap.api.dataset.metrics.MeteredDataset;
@@ -58,6 +63,7 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -78,11 +84,22 @@ public class DefaultCube implements Cube, MeteredDataset {
   private static final int MAX_RECORDS_TO_SCAN = 100 * 1000;
   private static final EnumSet<AggregationOption> PARTITION_AGG_OPTIONS = EnumSet.of(AggregationOption.LATEST,
                                                                                      AggregationOption.SUM);
+  // roll time of all fact tables, which is the time range covered by a row
+  private static final int ROLL_TIME = 3600;
 
   private final Map<Integer, FactTable> resolutionToFactTable;
   private final Map<String, ? extends Aggregation> aggregations;
   private final Map<String, AggregationAlias> aggregationAliasMap;
+  private final int maxQuerySplits;
+  private final int finestResolution;
+  // Resolutions that facts are not added to, but rolled up into from the finest resolution
+  private final Set<Integer> rollupResolutions;
+  // whether the rollup of the rollup resolutions was started by this instance, see startRollup(List)
+  private volatile boolean rollupStarted;
   private final ExecutorService executorService;
+  // Executes the splits of queries, null if queries are not split
+  @Nullable
+  private final ExecutorService queryExecutorService;
 
   @Nullable
   private MetricsCollector metrics;
@@ -90,15 +107,72 @@ public class DefaultCube implements Cube, MeteredDataset {
   public DefaultCube(int[] resolutions, FactTableSupplier factTableSupplier,
                      Map<String, ? extends Aggregation> aggregations,
                      Map<String, AggregationAlias> aggregationAliasMap) {
+    this(resolutions, factTableSupplier, aggregations, aggregationAliasMap, 1);
+  }
+
+  /**
+   * Creates a {@link DefaultCube}.
+   *
+   * @param maxQuerySplits maximum number of concurrent scans to execute a query with. Queries are split by time
+   *                       range, and values bigger than one should only be used if the fact tables support
+   *                       concurrent scans.
+   */
+  public DefaultCube(int[] resolutions, FactTableSupplier factTableSupplier,
+                     Map<String, ? extends Aggregation> aggregations,
+                     Map<String, AggregationAlias> aggregationAliasMap, int maxQuerySplits) {
+    this(resolutions, factTableSupplier, aggregations, aggregationAliasMap, maxQuerySplits,
+         Collections.emptySet());
+  }
+
+  /**
+   * Creates a {@link DefaultCube}.
+   *
+   * @param maxQuerySplits maximum number of concurrent scans to execute a query with. Queries are split by time
+   *                       range, and values bigger than one should only be used if the fact tables support
+   *                       concurrent scans.
+   * @param rollupResolutions resolutions that facts are only written to by {@link #rollup(long, long)}, from the
+   *                          finest resolution. Each of them must be a multiple of the finest resolution and
+   *                          divide the roll time of an hour.
+   */
+  public DefaultCube(int[] resolutions, FactTableSupplier factTableSupplier,
+                     Map<String, ? extends Aggregation> aggregations,
+                     Map<String, AggregationAlias> aggregationAliasMap, int maxQuerySplits,
+                     Set<Integer> rollupResolutions) {
     this.aggregations = aggregations;
     this.resolutionToFactTable = Maps.newHashMap();
+    int finest = Integer.MAX_VALUE;
     for (int resolution : resolutions) {
-      resolutionToFactTable.put(resolution, factTableSupplier.get(resolution, 3600));
+      resolutionToFactTable.put(resolution, factTableSupplier.get(resolution, ROLL_TIME));
+      finest = Math.min(finest, resolution);
+    }
+    this.finestResolution = finest;
+    for (int resolution : rollupResolutions) {
+      Preconditions.checkArgument(resolutionToFactTable.containsKey(resolution) && resolution != finestResolution &&
+                                    resolution % finestResolution == 0 && ROLL_TIME % resolution == 0,
+                                  "Resolution %s cannot be rolled up from resolution %s",
+                                  resolution, finestResolution);
+    }
+    this.rollupResolutions = ImmutableSet.copyOf(rollupResolutions);
+    this.rollupStarted = rollupResolutions.isEmpty();
+    if (!rollupResolutions.isEmpty()) {
+      // rolling up needs to tell gauges from counters
+      resolutionToFactTable.get(finestResolution).setRecordMeasureTypes(true);
     }
     this.aggregationAliasMap = aggregationAliasMap;
+    this.maxQuerySplits = maxQuerySplits;
     this.executorService = new ThreadPoolExecutor(0, resolutions.length, 30, TimeUnit.SECONDS,
                                                   new LinkedBlockingQueue<>(),
                                                   Threads.createDaemonThreadFactory("metrics-table-%d"));
+    if (maxQuerySplits > 1) {
+      // The query thread executes one of the splits itself
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(maxQuerySplits - 1, maxQuerySplits - 1, 30, TimeUnit.SECONDS,
+                                                           new LinkedBlockingQueue<>(),
+                                                           Threads.createDaemonThreadFactory("metrics-query-%d"));
+      executor.allowCoreThreadTimeOut(true);
+      this.queryExecutorService = executor;
+    } else {
+      this.queryExecutorService = null;
+    }
   }
 
   @Override
@@ -132,9 +206,15 @@ public class DefaultCube implements Cube, MeteredDataset {
       }
     }
 
+    if (!rollupStarted && !toWrite.isEmpty()) {
+      startRollup(toWrite);
+    }
+
     Map<Integer, Future<?>> futures = new HashMap<>();
     for (Map.Entry<Integer, FactTable> table : resolutionToFactTable.entrySet()) {
-      futures.put(table.getKey(), executorService.submit(() -> table.getValue().add(toWrite)));
+      if (!rollupResolutions.contains(table.getKey())) {
+        futures.put(table.getKey(), executorService.submit(() -> table.getValue().add(toWrite)));
+      }
     }
 
     boolean failed = false;
@@ -166,7 +246,181 @@ public class DefaultCube implements Cube, MeteredDataset {
     incrementMetric("cube.cubeFact.added.count", facts.size());
     incrementMetric("cube.tsFact.created.count", toWrite.size());
     incrementMetric("cube.tsFact.created.dimValues.count", dimValuesCount);
-    incrementMetric("cube.tsFact.added.count", toWrite.size() * resolutionToFactTable.size());
+    incrementMetric("cube.tsFact.added.count", toWrite.size() * futures.size());
+  }
+
+  /**
+   * Starts the rollup of the rollup resolutions that have no checkpoint yet from the time bucket of the first fact
+   * that is no longer added to them. Facts before were added to them directly, and rolling those up again could
+   * not tell gauges from counters.
+   */
+  private void startRollup(List<Fact> facts) {
+    long startTs = Long.MAX_VALUE;
+    for (Fact fact : facts) {
+      startTs = Math.min(startTs, fact.getTimestamp());
+    }
+    for (int resolution : rollupResolutions) {
+      FactTable table = resolutionToFactTable.get(resolution);
+      // the checkpoint can only be set concurrently by another instance starting the rollup
+      long checkpoint = startTs / resolution * resolution;
+      if (table.getRollupCheckpoint() == null && table.updateRollupCheckpoint(null, checkpoint)) {
+        LOG.info("Started rollup of resolution {} at {}.", resolution, checkpoint);
+      }
+    }
+    rollupStarted = true;
+  }
+
+  /**
+   * Rolls up the facts of the finest resolution into the rollup resolutions, for the time buckets of each rollup
+   * resolution that are closed at the given end time. The progress of each rollup resolution is checkpointed in its
+   * fact table, and queries read the facts after the checkpoint from the finest resolution instead.
+   * Rolled up values are written with puts, hence rolling up a time bucket again, e.g. after a failure before the
+   * checkpoint was updated, gives the same result. The rollup of a resolution starts at the time bucket of the first
+   * fact added without it, and measures that were not added since are not rolled up, which leaves the values added
+   * to that time bucket before intact.
+   *
+   * @param startTs the time from which facts are rolled up if they were not already, in seconds. Facts of the finest
+   *                resolution before it may have been removed already, hence the facts between a checkpoint before
+   *                it and it are lost, which is logged as an error.
+   * @param endTs the time up to which facts are rolled up, in seconds
+   * @return the time up to which facts are rolled up into all rollup resolutions, in seconds,
+   *         or {@code -1} if there is no rollup resolution
+   */
+  public long rollup(long startTs, long endTs) {
+    if (rollupResolutions.isEmpty()) {
+      return -1L;
+    }
+    FactTable source = resolutionToFactTable.get(finestResolution);
+    Map<Integer, Long> readCheckpoints = new HashMap<>();
+    // the start and end of the time range to roll up, for each rollup resolution
+    Map<Integer, Long> fromTs = new HashMap<>();
+    Map<Integer, Long> toTs = new HashMap<>();
+    for (int resolution : rollupResolutions) {
+      Long checkpoint = resolutionToFactTable.get(resolution).getRollupCheckpoint();
+      readCheckpoints.put(resolution, checkpoint);
+      long to = endTs / resolution * resolution;
+      toTs.put(resolution, to);
+      if (checkpoint == null) {
+        // no fact was added without this resolution yet, hence there is nothing to roll up
+        fromTs.put(resolution, to);
+        continue;
+      }
+      long from = (Math.max(0L, startTs) + resolution - 1) / resolution * resolution;
+      if (checkpoint < from && checkpoint < to) {
+        long lost = Math.min(from, to);
+        LOG.error("Facts of resolution {} from {} to {} were removed before they were rolled up into resolution {}. " +
+                    "The rollup is lagging behind the retention of resolution {}.",
+                  finestResolution, checkpoint, lost, resolution, finestResolution);
+        incrementMetric("cube.rollup." + resolution + ".lost.seconds", lost - checkpoint);
+      }
+      fromTs.put(resolution, Math.max(checkpoint, from));
+    }
+
+    // measure name -> its type, null if it was not recorded
+    Map<String, MeasureType> measureTypes = new HashMap<>();
+    while (true) {
+      long chunkStartTs = Long.MAX_VALUE;
+      long chunkEndTs = Long.MIN_VALUE;
+      for (int resolution : rollupResolutions) {
+        if (fromTs.get(resolution) < toTs.get(resolution)) {
+          chunkStartTs = Math.min(chunkStartTs, fromTs.get(resolution));
+          chunkEndTs = Math.max(chunkEndTs, toTs.get(resolution));
+        }
+      }
+      if (chunkStartTs == Long.MAX_VALUE) {
+        break;
+      }
+      // Roll up one roll time at most at once, which is a single row of each time series in the finest resolution.
+      // Since rollup resolutions divide the roll time, time buckets never span two chunks.
+      chunkEndTs = Math.min(chunkEndTs, (chunkStartTs / ROLL_TIME + 1) * ROLL_TIME);
+
+      // resolution -> {dimension values, measure} -> {time -> value}s
+      Map<Integer, Table<List<DimensionValue>, String, TimeValueAccumulator>> rolledUp = new HashMap<>();
+      for (int resolution : rollupResolutions) {
+        rolledUp.put(resolution, HashBasedTable.create());
+      }
+      for (Aggregation agg : aggregations.values()) {
+        List<DimensionValue> anyDimensionValues = new ArrayList<>();
+        for (String dimensionName : agg.getDimensionNames()) {
+          anyDimensionValues.add(new DimensionValue(dimensionName, null));
+        }
+        FactScanner scanner = source.scan(new FactScan(chunkStartTs, chunkEndTs - 1, Collections.emptyList(),
+                                                       anyDimensionValues));
+        try {
+          while (scanner.hasNext()) {
+            FactScanResult next = scanner.next();
+            String measureName = next.getMeasureName();
+            if (!measureTypes.containsKey(measureName)) {
+              measureTypes.put(measureName, source.getMeasureType(measureName));
+            }
+            MeasureType type = measureTypes.get(measureName);
+            if (type == null) {
+              // only added before the rollup started, its rolled up values were added already
+              continue;
+            }
+            boolean gauge = type == MeasureType.GAUGE;
+            for (int resolution : rollupResolutions) {
+              long from = fromTs.get(resolution);
+              long to = Math.min(toTs.get(resolution), chunkEndTs);
+              TimeValueAccumulator accumulator = null;
+              for (TimeValue timeValue : next) {
+                long ts = timeValue.getTimestamp();
+                if (ts < from || ts >= to) {
+                  continue;
+                }
+                if (accumulator == null) {
+                  accumulator = rolledUp.get(resolution).get(next.getDimensionValues(), next.getMeasureName());
+                }
+                if (accumulator == null) {
+                  accumulator = new TimeValueAccumulator(gauge ? AggregationFunction.LATEST : AggregationFunction.SUM,
+                                                         resolution);
+                  rolledUp.get(resolution).put(next.getDimensionValues(), next.getMeasureName(), accumulator);
+                }
+                accumulator.add(ts / resolution * resolution, timeValue.getValue());
+              }
+            }
+          }
+        } finally {
+          scanner.close();
+        }
+      }
+
+      for (int resolution : rollupResolutions) {
+        long from = fromTs.get(resolution);
+        long to = Math.min(toTs.get(resolution), chunkEndTs);
+        if (from >= to) {
+          continue;
+        }
+        List<Fact> facts = new ArrayList<>();
+        for (Table.Cell<List<DimensionValue>, String, TimeValueAccumulator> cell : rolledUp.get(resolution).cellSet()) {
+          for (TimeValue timeValue : cell.getValue().getTimeValues()) {
+            // gauges are written with puts, which replace the values of a previous rollup of the same time bucket
+            facts.add(new Fact(timeValue.getTimestamp(), cell.getRowKey(),
+                               new Measurement(cell.getColumnKey(), MeasureType.GAUGE, timeValue.getValue())));
+          }
+        }
+        FactTable target = resolutionToFactTable.get(resolution);
+        target.add(facts);
+        incrementMetric("cube.rollup." + resolution + ".facts.count", facts.size());
+
+        if (!target.updateRollupCheckpoint(readCheckpoints.get(resolution), to)) {
+          // The checkpoint can only be changed by a concurrent rollup, which has rolled up the same facts
+          LOG.debug("Rollup checkpoint of resolution {} was changed concurrently, stopping rollup.", resolution);
+          return getRolledUpTs(fromTs);
+        }
+        readCheckpoints.put(resolution, to);
+        fromTs.put(resolution, to);
+      }
+    }
+    return getRolledUpTs(fromTs);
+  }
+
+  private long getRolledUpTs(Map<Integer, Long> fromTs) {
+    long rolledUpTs = Long.MAX_VALUE;
+    for (long ts : fromTs.values()) {
+      rolledUpTs = Math.min(rolledUpTs, ts);
+    }
+    return rolledUpTs;
   }
 
   @Override
@@ -249,13 +503,28 @@ public class DefaultCube implements Cube, MeteredDataset {
       dimensionValues.add(new DimensionValue(dimensionName, query.getDimensionValues().get(dimensionName)));
     }
 
-    FactScan scan = new FactScan(query.getStartTs(), query.getEndTs(),
-                                 query.getMeasurements().keySet(), dimensionValues);
-
-    // 3) execute scan query
-    FactTable table = resolutionToFactTable.get(query.getResolution());
-    FactScanner scanner = table.scan(scan);
-    Table<Map<String, String>, String, Map<Long, Long>> resultMap = getTimeSeries(query, scanner);
+    // 3) execute scan query, in time order over the tables to read
+    Table<Map<String, String>, String, TimeValueAccumulator> resultMap = null;
+    // the limit of scanned records is shared by all the tables, which are read in time order
+    int recordsLeft = MAX_RECORDS_TO_SCAN;
+    for (TableTimeRange range : getTableTimeRanges(query.getResolution(), query.getStartTs(), query.getEndTs())) {
+      if (recordsLeft <= 0) {
+        break;
+      }
+      FactScan scan = new FactScan(range.startTs, range.endTs, query.getMeasurements().keySet(), dimensionValues);
+      ScanResult scanResult = scan(query, range, scan, recordsLeft);
+      recordsLeft -= scanResult.recordsScanned;
+      Table<Map<String, String>, String, TimeValueAccumulator> rangeResult = scanResult.timeSeries;
+      if (range.finer) {
+        // tell how many queries read facts that are not rolled up yet
+        incrementMetric("cube.query.rollup.pending.count", 1);
+      }
+      if (resultMap == null) {
+        resultMap = rangeResult;
+      } else {
+        merge(resultMap, rangeResult);
+      }
+    }
 
     incrementMetric("cube.query.request.success.count", 1);
     incrementMetric("cube.query.result.size", resultMap.size());
@@ -300,12 +569,12 @@ public class DefaultCube implements Cube, MeteredDataset {
       slice.put(dimensionValue.getName(), dimensionValue.getValue());
     }
 
-    FactTable table = resolutionToFactTable.get(query.getResolution());
-
-    for (Aggregation agg : aggregations.values()) {
-      if (agg.getDimensionNames().containsAll(slice.keySet())) {
-        result.addAll(table.findSingleDimensionValue(agg.getDimensionNames(), slice,
-                                                     query.getStartTs(), query.getEndTs()));
+    for (TableTimeRange range : getTableTimeRanges(query.getResolution(), query.getStartTs(), query.getEndTs())) {
+      for (Aggregation agg : aggregations.values()) {
+        if (agg.getDimensionNames().containsAll(slice.keySet())) {
+          result.addAll(range.table.findSingleDimensionValue(agg.getDimensionNames(), slice,
+                                                             range.startTs, range.endTs));
+        }
       }
     }
 
@@ -325,11 +594,11 @@ public class DefaultCube implements Cube, MeteredDataset {
       slice.put(dimensionValue.getName(), dimensionValue.getValue());
     }
 
-    FactTable table = resolutionToFactTable.get(query.getResolution());
-
-    for (Aggregation agg : aggregations.values()) {
-      if (agg.getDimensionNames().containsAll(slice.keySet())) {
-        result.addAll(table.findMeasureNames(agg.getDimensionNames(), slice, query.getStartTs(), query.getEndTs()));
+    for (TableTimeRange range : getTableTimeRanges(query.getResolution(), query.getStartTs(), query.getEndTs())) {
+      for (Aggregation agg : aggregations.values()) {
+        if (agg.getDimensionNames().containsAll(slice.keySet())) {
+          result.addAll(range.table.findMeasureNames(agg.getDimensionNames(), slice, range.startTs, range.endTs));
+        }
       }
     }
 
@@ -374,91 +643,160 @@ public class DefaultCube implements Cube, MeteredDataset {
     return currentBest;
   }
 
-  private Table<Map<String, String>, String, Map<Long, Long>> getTimeSeries(CubeQuery query, FactScanner scanner) {
-    // {dimension values, measure} -> {time -> value}s
-    Table<Map<String, String>, String, Map<Long, Long>> result = HashBasedTable.create();
-
-    int count = 0;
-    while (scanner.hasNext()) {
-      FactScanResult next = scanner.next();
-      incrementMetric("cube.query.scan.records.count", 1);
-
-      boolean skip = false;
-      // using tree map, as we are using it as a key for a map
-      Map<String, String> seriesDimensions = Maps.newTreeMap();
-      for (String dimensionName : query.getGroupByDimensions()) {
-        // todo: use Map<String, String> instead of List<DimensionValue> into a String, String, everywhere
-        for (DimensionValue dimensionValue : next.getDimensionValues()) {
-          if (dimensionName.equals(dimensionValue.getName())) {
-            if (dimensionValue.getValue() == null) {
-              // Currently, we do NOT return null as grouped by value.
-              // Depending on whether dimension is required or not the records with null value in it may or may not be
-              // in aggregation. At this moment, the choosing of the aggregation for query doesn't look at this, so
-              // potentially null may or may not be included in results, depending on the aggregation selected
-              // querying. We don't want to produce inconsistent results varying due to different aggregations selected,
-              // so don't return nulls in any of those cases.
-              skip = true;
-              continue;
-            }
-            seriesDimensions.put(dimensionName, dimensionValue.getValue());
-            break;
-          }
+  /**
+   * Returns the fact tables and time ranges to read the facts of the given resolution in the given time range from,
+   * in time order. For a rollup resolution, the facts after its rollup checkpoint are read from the finest resolution.
+   */
+  private List<TableTimeRange> getTableTimeRanges(int resolution, long startTs, long endTs) {
+    FactTable table = resolutionToFactTable.get(resolution);
+    Long checkpoint = rollupResolutions.contains(resolution) ? table.getRollupCheckpoint() : null;
+    // if nothing was rolled up yet, all the facts were added to the table directly
+    if (checkpoint == null || endTs < checkpoint) {
+      return Collections.singletonList(new TableTimeRange(table, startTs, endTs, false));
+    }
+
+    List<TableTimeRange> ranges = new ArrayList<>(2);
+    if (startTs < checkpoint) {
+      ranges.add(new TableTimeRange(table, startTs, checkpoint - 1, false));
+    }
+    // read whole time buckets, as if they were read from the table of the resolution
+    long finestStartTs = Math.max(checkpoint, (startTs + resolution - 1) / resolution * resolution);
+    long finestEndTs = endTs > Long.MAX_VALUE - resolution ? endTs : endTs / resolution * resolution + resolution - 1;
+    ranges.add(new TableTimeRange(resolutionToFactTable.get(finestResolution), finestStartTs, finestEndTs, true));
+    return ranges;
+  }
+
+  /**
+   * Executes the given scan, concurrently over its splits if possible, and merges the results of the splits.
+   * At most the given number of records are read. The limit is applied to the splits in their order, so that
+   * the result is the same as the one of a sequential scan.
+   */
+  private ScanResult scan(CubeQuery query, TableTimeRange range, FactScan scan, int limit) {
+    FactTable table = range.table;
+    boolean roundTimestamps = range.finer;
+    List<FactScan> splits = table.getSplits(scan, maxQuerySplits);
+    if (splits.size() == 1 || queryExecutorService == null) {
+      return getTimeSeries(query, table.scan(scan), roundTimestamps, limit);
+    }
+
+    // each split may read up to the whole limit, as it is not known in advance how the records are distributed
+    List<Future<ScanResult>> futures = new ArrayList<>();
+    for (FactScan split : splits.subList(1, splits.size())) {
+      futures.add(queryExecutorService.submit(() -> getTimeSeries(query, table.scan(split), roundTimestamps, limit)));
+    }
+    try {
+      ScanResult result = getTimeSeries(query, table.scan(splits.get(0)), roundTimestamps, limit);
+      // splits are in time order, which merges the values of later splits after the earlier ones
+      for (int i = 0; i < futures.size() && result.recordsScanned < limit; i++) {
+        int recordsLeft = limit - result.recordsScanned;
+        ScanResult splitResult = Uninterruptibles.getUninterruptibly(futures.get(i));
+        if (splitResult.recordsScanned > recordsLeft) {
+          // only the first records of the split are within the limit, which are not known from its result
+          splitResult = getTimeSeries(query, table.scan(splits.get(i + 1)), roundTimestamps, recordsLeft);
         }
+        merge(result.timeSeries, splitResult.timeSeries);
+        result = new ScanResult(result.timeSeries, result.recordsScanned + splitResult.recordsScanned);
+      }
+      return result;
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    } finally {
+      // splits that are still running stop at the interrupt and close their scanners
+      for (Future<?> future : futures) {
+        future.cancel(true);
       }
+    }
+  }
 
-      if (skip) {
-        incrementMetric("cube.query.scan.skipped.count", 1);
-        continue;
+  /**
+   * Merges the time series of the given other result, which are after those of the given result, into it.
+   */
+  private static void merge(Table<Map<String, String>, String, TimeValueAccumulator> result,
+                            Table<Map<String, String>, String, TimeValueAccumulator> other) {
+    for (Table.Cell<Map<String, String>, String, TimeValueAccumulator> cell : other.cellSet()) {
+      TimeValueAccumulator accumulator = result.get(cell.getRowKey(), cell.getColumnKey());
+      if (accumulator == null) {
+        result.put(cell.getRowKey(), cell.getColumnKey(), cell.getValue());
+      } else {
+        accumulator.addAll(cell.getValue());
       }
+    }
+  }
+
+  /**
+   * Reads the time series from the given scanner.
+   *
+   * @param roundTimestamps whether the timestamps need to be rounded to the resolution of the query,
+   *                        if the facts are read from a finer resolution
+   */
+  private ScanResult getTimeSeries(CubeQuery query, FactScanner scanner, boolean roundTimestamps, int limit) {
+    // {dimension values, measure} -> {time -> value}s
+    Table<Map<String, String>, String, TimeValueAccumulator> result = HashBasedTable.create();
+    int recordsScanned = 0;
+
+    try {
+      while (recordsScanned < limit && !Thread.currentThread().isInterrupted() && scanner.hasNext()) {
+        FactScanResult next = scanner.next();
+        incrementMetric("cube.query.scan.records.count", 1);
+
+        boolean skip = false;
+        // using tree map, as we are using it as a key for a map
+        Map<String, String> seriesDimensions = Maps.newTreeMap();
+        for (String dimensionName : query.getGroupByDimensions()) {
+          // todo: use Map<String, String> instead of List<DimensionValue> into a String, String, everywhere
+          for (DimensionValue dimensionValue : next.getDimensionValues()) {
+            if (dimensionName.equals(dimensionValue.getName())) {
+              if (dimensionValue.getValue() == null) {
+                // Currently, we do NOT return null as grouped by value.
+                // Depending on whether dimension is required or not the records with null value in it may or may not
+                // be in aggregation. At this moment, the choosing of the aggregation for query doesn't look at this,
+                // so potentially null may or may not be included in results, depending on the aggregation selected
+                // querying. We don't want to produce inconsistent results varying due to different aggregations
+                // selected, so don't return nulls in any of those cases.
+                skip = true;
+                continue;
+              }
+              seriesDimensions.put(dimensionName, dimensionValue.getValue());
+              break;
+            }
+          }
+        }
 
-      for (TimeValue timeValue : next) {
-        Map<Long, Long> timeValues = result.get(seriesDimensions, next.getMeasureName());
-        if (timeValues == null) {
-          result.put(seriesDimensions, next.getMeasureName(), Maps.<Long, Long>newHashMap());
+        if (skip) {
+          incrementMetric("cube.query.scan.skipped.count", 1);
+          continue;
         }
 
-        AggregationFunction function = query.getMeasurements().get(next.getMeasureName());
-        if (AggregationFunction.SUM == function) {
-          Long value =  result.get(seriesDimensions, next.getMeasureName()).get(timeValue.getTimestamp());
-          value = value == null ? 0 : value;
-          value += timeValue.getValue();
-          result.get(seriesDimensions, next.getMeasureName()).put(timeValue.getTimestamp(), value);
-        } else if (AggregationFunction.MAX == function) {
-          Long value = result.get(seriesDimensions, next.getMeasureName()).get(timeValue.getTimestamp());
-          value = value != null && value > timeValue.getValue() ? value : timeValue.getValue();
-          result.get(seriesDimensions, next.getMeasureName()).put(timeValue.getTimestamp(), value);
-        } else if (AggregationFunction.MIN == function) {
-          Long value =  result.get(seriesDimensions, next.getMeasureName()).get(timeValue.getTimestamp());
-          value = value != null && value < timeValue.getValue() ? value : timeValue.getValue();
-          result.get(seriesDimensions, next.getMeasureName()).put(timeValue.getTimestamp(), value);
-        } else if (AggregationFunction.LATEST == function) {
-          result.get(seriesDimensions, next.getMeasureName()).put(timeValue.getTimestamp(), timeValue.getValue());
-        } else {
-          // should never happen: developer error
-          throw new RuntimeException("Unknown MeasureType: " + function);
+        TimeValueAccumulator accumulator = result.get(seriesDimensions, next.getMeasureName());
+        if (accumulator == null) {
+          accumulator = new TimeValueAccumulator(query.getMeasurements().get(next.getMeasureName()),
+                                                 query.getResolution());
+          result.put(seriesDimensions, next.getMeasureName(), accumulator);
         }
+        for (TimeValue timeValue : next) {
+          long ts = timeValue.getTimestamp();
+          accumulator.add(roundTimestamps ? ts / query.getResolution() * query.getResolution() : ts,
+                          timeValue.getValue());
+        }
+        recordsScanned++;
       }
-      if (++count >= MAX_RECORDS_TO_SCAN) {
-        break;
-      }
+    } finally {
+      scanner.close();
     }
-    return result;
+    return new ScanResult(result, recordsScanned);
   }
 
   private Collection<TimeSeries> convertToQueryResult(
-    CubeQuery query, Table<Map<String, String>, String, Map<Long, Long>> resultTable) {
+    CubeQuery query, Table<Map<String, String>, String, TimeValueAccumulator> resultTable) {
     List<TimeSeries> result = new ArrayList<>();
     // iterating each groupValue dimensions
-    for (Map.Entry<Map<String, String>, Map<String, Map<Long, Long>>> row : resultTable.rowMap().entrySet()) {
+    for (Map.Entry<Map<String, String>, Map<String, TimeValueAccumulator>> row : resultTable.rowMap().entrySet()) {
       // iterating each measure
-      for (Map.Entry<String, Map<Long, Long>> measureEntry : row.getValue().entrySet()) {
+      for (Map.Entry<String, TimeValueAccumulator> measureEntry : row.getValue().entrySet()) {
         // generating time series for a grouping and a measure
         int count = 0;
-        List<TimeValue> timeValues = new ArrayList<>();
-        for (Map.Entry<Long, Long> timeValue : measureEntry.getValue().entrySet()) {
-          timeValues.add(new TimeValue(timeValue.getKey(), timeValue.getValue()));
-        }
-        Collections.sort(timeValues);
+        // sorted by timestamp
+        List<TimeValue> timeValues = measureEntry.getValue().getTimeValues();
         List<TimeValue> resultTimeValues = new ArrayList<>();
 
         AggregationOption aggregationOption = query.getAggregationOption();
@@ -516,6 +854,40 @@ public class DefaultCube implements Cube, MeteredDataset {
       }
     } finally {
       executorService.shutdown();
+      if (queryExecutorService != null) {
+        queryExecutorService.shutdown();
+      }
+    }
+  }
+
+  /**
+   * A time range to read facts from a fact table with.
+   */
+  private static final class TableTimeRange {
+    private final FactTable table;
+    private final long startTs;
+    private final long endTs;
+    // whether the table has a finer resolution than the one read
+    private final boolean finer;
+
+    private TableTimeRange(FactTable table, long startTs, long endTs, boolean finer) {
+      this.table = table;
+      this.startTs = startTs;
+      this.endTs = endTs;
+      this.finer = finer;
+    }
+  }
+
+  /**
+   * The time series read by a scan, with the number of records read.
+   */
+  private static final class ScanResult {
+    private final Table<Map<String, String>, String, TimeValueAccumulator> timeSeries;
+    private final int recordsScanned;
+
+    private ScanResult(Table<Map<String, String>, String, TimeValueAccumulator> timeSeries, int recordsScanned) {
+      this.timeSeries = timeSeries;
+      this.recordsScanned = recordsScanned;
     }
   }
 
@@ -0,0 +1,207 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.dataset2.lib.cube;
+
+import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
+import io.cdap.cdap.api.dataset.lib.cube.TimeValue;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accumulates the data points of a single time series, combining the values with the same timestamp using an
+ * {@link AggregationFunction}.
+ *
+ * Values are kept in primitive arrays indexed by the resolution interval of their timestamps, which grow to cover
+ * the range of the timestamps added. If the data points become too sparse in that range, or if there are timestamps
+ * that are not aligned to the resolution, it falls back to a map keyed by timestamp.
+ * This class is not thread safe.
+ */
+final class TimeValueAccumulator {
+
+  private static final int INITIAL_CAPACITY = 16;
+  // Arrays are only used if at least one of this number of intervals covered has a data point,
+  // unless the number of intervals is small
+  private static final int MAX_SPARSENESS = 4;
+  private static final int MIN_SPARSE_SIZE = 64;
+
+  private final AggregationFunction function;
+  private final long resolution;
+
+  // Interval of the timestamps at index 0 of the arrays
+  private long firstInterval;
+  private long[] timestamps;
+  private long[] values;
+  private BitSet present;
+  private int size;
+  // Only used when the arrays cannot be used
+  private Map<Long, Long> sparseValues;
+
+  TimeValueAccumulator(AggregationFunction function, int resolution) {
+    if (function != AggregationFunction.SUM && function != AggregationFunction.MAX &&
+      function != AggregationFunction.MIN && function != AggregationFunction.LATEST) {
+      // should never happen: developer error
+      throw new RuntimeException("Unknown MeasureType: " + function);
+    }
+    this.function = function;
+    this.resolution = resolution;
+  }
+
+  /**
+   * Adds a data point. If there is already a value with the same timestamp, the values are combined.
+   */
+  void add(long timestamp, long value) {
+    if (sparseValues != null) {
+      Long existing = sparseValues.get(timestamp);
+      sparseValues.put(timestamp, existing == null ? value : combine(existing, value));
+      return;
+    }
+
+    long interval = Math.floorDiv(timestamp, resolution);
+    if (values == null) {
+      firstInterval = interval;
+      timestamps = new long[INITIAL_CAPACITY];
+      values = new long[INITIAL_CAPACITY];
+      present = new BitSet(INITIAL_CAPACITY);
+    }
+    long index = interval - firstInterval;
+    if ((index < 0 || index >= values.length) && !grow(interval)) {
+      toSparse();
+      add(timestamp, value);
+      return;
+    }
+
+    int i = (int) (interval - firstInterval);
+    if (!present.get(i)) {
+      present.set(i);
+      timestamps[i] = timestamp;
+      values[i] = value;
+      size++;
+    } else if (timestamps[i] == timestamp) {
+      values[i] = combine(values[i], value);
+    } else {
+      // timestamps are not aligned to the resolution
+      toSparse();
+      add(timestamp, value);
+    }
+  }
+
+  /**
+   * Adds all data points of the given accumulator, which must have been created for the same aggregation function.
+   * For {@link AggregationFunction#LATEST}, the values of the given accumulator take precedence.
+   */
+  void addAll(TimeValueAccumulator other) {
+    if (other.sparseValues != null) {
+      for (Map.Entry<Long, Long> entry : other.sparseValues.entrySet()) {
+        add(entry.getKey(), entry.getValue());
+      }
+      return;
+    }
+    if (other.values == null) {
+      return;
+    }
+    for (int i = other.present.nextSetBit(0); i >= 0; i = other.present.nextSetBit(i + 1)) {
+      add(other.timestamps[i], other.values[i]);
+    }
+  }
+
+  /**
+   * Returns the accumulated data points, sorted by timestamp.
+   */
+  List<TimeValue> getTimeValues() {
+    if (sparseValues != null) {
+      List<TimeValue> result = new ArrayList<>(sparseValues.size());
+      for (Map.Entry<Long, Long> entry : sparseValues.entrySet()) {
+        result.add(new TimeValue(entry.getKey(), entry.getValue()));
+      }
+      Collections.sort(result);
+      return result;
+    }
+    if (values == null) {
+      return Collections.emptyList();
+    }
+    List<TimeValue> result = new ArrayList<>(size);
+    for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+      result.add(new TimeValue(timestamps[i], values[i]));
+    }
+    return result;
+  }
+
+  private long combine(long existing, long value) {
+    switch (function) {
+      case SUM:
+        return existing + value;
+      case MAX:
+        return Math.max(existing, value);
+      case MIN:
+        return Math.min(existing, value);
+      default:
+        // LATEST
+        return value;
+    }
+  }
+
+  /**
+   * Grows the arrays to cover the given interval.
+   *
+   * @return {@code false} if the arrays would be too sparse to cover the given interval
+   */
+  private boolean grow(long interval) {
+    long lastInterval = firstInterval + present.length() - 1;
+    long newFirstInterval = Math.min(firstInterval, interval);
+    long span = Math.max(lastInterval, interval) - newFirstInterval + 1;
+    if (span > MIN_SPARSE_SIZE && span > (long) MAX_SPARSENESS * (size + 1)) {
+      return false;
+    }
+    // Leave room to grow after the last interval, since data points are mostly added in time order
+    long capacity = Math.max(span, Math.min((long) values.length * 2, (long) MAX_SPARSENESS * (size + 1)));
+    int newCapacity = (int) Math.min(capacity, Integer.MAX_VALUE - 8);
+    int shift = (int) (firstInterval - newFirstInterval);
+
+    long[] newTimestamps = new long[newCapacity];
+    long[] newValues = new long[newCapacity];
+    BitSet newPresent = new BitSet(newCapacity);
+    int length = Math.min(present.length(), values.length);
+    System.arraycopy(timestamps, 0, newTimestamps, shift, length);
+    System.arraycopy(values, 0, newValues, shift, length);
+    for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+      newPresent.set(i + shift);
+    }
+
+    firstInterval = newFirstInterval;
+    timestamps = newTimestamps;
+    values = newValues;
+    present = newPresent;
+    return true;
+  }
+
+  private void toSparse() {
+    sparseValues = new HashMap<>();
+    if (values != null) {
+      for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+        sparseValues.put(timestamps[i], values[i]);
+      }
+    }
+    timestamps = null;
+    values = null;
+    present = null;
+  }
+}
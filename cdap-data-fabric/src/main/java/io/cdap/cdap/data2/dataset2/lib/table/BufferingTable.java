@@ -73,8 +73,15 @@ import javax.annotation.Nullable;
  *       not in in-memory buffer twice, two times it will try to fetch it from persistent store.
  *       Given the snapshot isolation tx model, this can be improved in future implementations.
  * <p>
- * NOTE: current implementation persists changes only at the end of transaction. Beware of OOME. There should be better
- *       implementation for MapReduce case (YMMV though, for counters/aggregations this implementation looks sweet)
+ * NOTE: changes are persisted at the end of transaction. A table can opt in to a limit on the estimated size of the
+ *       in-memory buffer with the {@link #PROPERTY_WRITE_BUFFER_MAX_BYTES} table property, which is disabled by default.
+ *       If the buffer exceeds the limit, the buffered changes are persisted with the transaction write pointer before
+ *       the transaction commits. If the client fails before the transaction ends, these changes stay in the
+ *       persistent store as the data of an invalid transaction, which readers exclude, until it is cleaned up. They are visible to reads
+ *       in the same transaction and are undone if the transaction is rolled back. Only the keys of such changes are
+ *       kept in memory for conflict detection and rollback. Buffered changes are never persisted early for tables with
+ *       readless increments enabled, since a later increment of the same cell in the same transaction would overwrite
+ *       the earlier one.
  * <p>
  * NOTE: Using {@link #get(byte[], byte[], byte[], int)} is generally always not efficient since it always hits the
  *       persisted store even if all needed data is in-memory buffer. See more info at method javadoc
@@ -86,6 +93,21 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
 
   protected static final byte[] DELETE_MARKER = new byte[0];
 
+  /**
+   * Table property for the maximum estimated number of bytes of changes buffered in memory by a transaction before
+   * they get persisted. A value less than or equal to zero means no limit, which is the default, such that nothing
+   * is persisted before the transaction commits.
+   */
+  public static final String PROPERTY_WRITE_BUFFER_MAX_BYTES = "dataset.table.write.buffer.max.bytes";
+  public static final long DEFAULT_WRITE_BUFFER_MAX_BYTES = 0L;
+
+  // Estimated memory overhead of the buffer map entries and array headers for each buffered row and column
+  private static final int ROW_OVERHEAD = 96;
+  private static final int COLUMN_OVERHEAD = 80;
+
+  // Value for keys of changes which were persisted before commit. Only the keys are needed for undo and tx changes.
+  private static final Update PERSISTED = new PutValue(null);
+
   // name of the table
   private final String name;
   // conflict detection level
@@ -94,6 +116,8 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   private final byte[] nameAsTxChangePrefix;
   // Whether read-less increments should be used when increment() is called
   private final boolean enableReadlessIncrements;
+  // Estimated size of the in-memory buffer, above which buffered changes are persisted before commit
+  private final long writeBufferMaxBytes;
 
   // In-memory buffer that keeps not yet persisted data. It is row->(column->value) map. Value can be null which means
   // that the corresponded column was removed.
@@ -102,6 +126,9 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   // Keeps track of what was persisted so far
   private NavigableMap<byte[], NavigableMap<byte[], Update>> toUndo;
 
+  // Estimated size in bytes of the in-memory buffer
+  private long buffSize;
+
   // Report data ops metrics to
   private MetricsCollector metricsCollector;
 
@@ -145,6 +172,9 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     this.name = name;
     this.conflictLevel = TableProperties.getConflictDetection(properties, ConflictDetection.ROW);
     this.enableReadlessIncrements = enableReadlessIncrements;
+    String writeBufferMaxBytes = properties.get(PROPERTY_WRITE_BUFFER_MAX_BYTES);
+    this.writeBufferMaxBytes = writeBufferMaxBytes == null
+      ? DEFAULT_WRITE_BUFFER_MAX_BYTES : Long.parseLong(writeBufferMaxBytes);
     // TODO: having central dataset management service will allow us to use table ids instead of names, which will
     //       reduce changeset size transferred to/from server
     // we want it to be of format length+value to avoid conflicts like table="ab", row="cd" vs table="abc", row="d"
@@ -273,6 +303,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     }
     // starting with fresh buffer when tx starts
     buff.clear();
+    buffSize = 0L;
     toUndo = null;
     this.tx = tx;
   }
@@ -308,6 +339,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
 
   private Collection<byte[]> getRowChanges() {
     // we resolve conflicts on row level of individual table
+    NavigableMap<byte[], NavigableMap<byte[], Update>> buff = getChanges();
     List<byte[]> changes = new ArrayList<>(buff.size());
     for (byte[] changedRow : buff.keySet()) {
       changes.add(Bytes.add(getNameAsTxChangePrefix(), changedRow));
@@ -317,6 +349,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
 
   private Collection<byte[]> getColumnChanges() {
     // we resolve conflicts on row level of individual table
+    NavigableMap<byte[], NavigableMap<byte[], Update>> buff = getChanges();
     List<byte[]> changes = new ArrayList<>(buff.size());
     for (Map.Entry<byte[], NavigableMap<byte[], Update>> rowChange : buff.entrySet()) {
       if (rowChange.getValue() == null) {
@@ -336,27 +369,104 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     return changes;
   }
 
+  /**
+   * Returns all changes made in the current transaction, including the ones that were persisted before commit.
+   * For changes that were persisted before commit, only the keys are available.
+   */
+  private NavigableMap<byte[], NavigableMap<byte[], Update>> getChanges() {
+    if (toUndo == null) {
+      return buff;
+    }
+    NavigableMap<byte[], NavigableMap<byte[], Update>> changes = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+    addKeys(changes, toUndo);
+    addKeys(changes, buff);
+    return changes;
+  }
+
   @Override
   public boolean commitTx() throws Exception {
     if (!buff.isEmpty()) {
       // We first assume that all data will be persisted. So that if exception happen during persist we try to
       // rollback everything we had in in-memory buffer.
-      toUndo = buff;
-      // clearing up in-memory buffer by initializing new map.
-      // NOTE: we want to init map here so that if no changes are made we re-use same instance of the map in next tx
-      // NOTE: we could cache two maps and swap them to avoid creation of map instances, but code would be ugly
-      buff = new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR);
+      NavigableMap<byte[], NavigableMap<byte[], Update>> changes = takeBuffer();
       // TODO: tracking of persisted items can be optimized by returning a pair {succeededOrNot, persisted} which
       //       tells if persisting succeeded and what was persisted (i.e. what we will have to undo in case of rollback)
-      persist(toUndo);
+      persist(changes);
     }
     return true;
   }
 
+  /**
+   * Takes out the in-memory buffer and adds it to the changes to undo on rollback.
+   *
+   * @return the changes that were in the in-memory buffer
+   */
+  private NavigableMap<byte[], NavigableMap<byte[], Update>> takeBuffer() {
+    NavigableMap<byte[], NavigableMap<byte[], Update>> changes = buff;
+    if (toUndo == null) {
+      toUndo = changes;
+    } else {
+      // Some changes were persisted before commit, only need to remember the keys for those
+      addKeys(toUndo, changes);
+    }
+    // clearing up in-memory buffer by initializing new map.
+    // NOTE: we want to init map here so that if no changes are made we re-use same instance of the map in next tx
+    // NOTE: we could cache two maps and swap them to avoid creation of map instances, but code would be ugly
+    buff = new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR);
+    buffSize = 0L;
+    return changes;
+  }
+
+  /**
+   * Persists the in-memory buffer before the transaction commits if its estimated size exceeds the limit.
+   */
+  private void persistBufferIfFull() {
+    if (writeBufferMaxBytes <= 0 || buffSize <= writeBufferMaxBytes || enableReadlessIncrements) {
+      return;
+    }
+    // Persisted changes need to be visible to the current transaction for read-your-writes
+    if (tx == null || tx.getVisibilityLevel() == Transaction.VisibilityLevel.SNAPSHOT_EXCLUDE_CURRENT) {
+      return;
+    }
+
+    LOG.debug("Persisting {} buffered rows of estimated size {} bytes before commit for table {}",
+              buff.size(), buffSize, getTransactionAwareName());
+    NavigableMap<byte[], NavigableMap<byte[], Update>> changes = takeBuffer();
+    if (toUndo == changes) {
+      // Make sure we only keep the keys of the persisted changes
+      toUndo = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+      addKeys(toUndo, changes);
+    }
+    try {
+      persist(changes);
+    } catch (Exception e) {
+      LOG.debug("persist failed for table: " + getTransactionAwareName(), e);
+      throw new DataSetException("persist failed", e);
+    }
+  }
+
+  /**
+   * Adds the row and column keys of the given changes to the given map.
+   */
+  private static void addKeys(NavigableMap<byte[], NavigableMap<byte[], Update>> keys,
+                              NavigableMap<byte[], NavigableMap<byte[], Update>> changes) {
+    for (Map.Entry<byte[], NavigableMap<byte[], Update>> rowChange : changes.entrySet()) {
+      NavigableMap<byte[], Update> columns = keys.get(rowChange.getKey());
+      if (columns == null) {
+        columns = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+        keys.put(rowChange.getKey(), columns);
+      }
+      for (byte[] column : rowChange.getValue().keySet()) {
+        columns.put(column, PERSISTED);
+      }
+    }
+  }
+
   @Override
   public void postTxCommit() {
     // don't need buffer anymore: tx has been committed
     buff.clear();
+    buffSize = 0L;
     toUndo = null;
     tx = null;
   }
@@ -364,6 +474,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   @Override
   public boolean rollbackTx() throws Exception {
     buff.clear();
+    buffSize = 0L;
     if (toUndo != null) {
       undo(toUndo);
       toUndo = null;
@@ -505,6 +616,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     if (colVals == null) {
       colVals = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
       newRow = true;
+      buffSize += ROW_OVERHEAD + row.length;
     }
     for (int i = 0; i < columns.length; i++) {
       // NOTE: we copy passed column's and value's byte arrays to protect buffer against possible changes of these
@@ -512,12 +624,31 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
       if (values[i] != null && values[i].length == 0) {
         warnAboutEmptyValue(columns[i]);
       }
-      colVals.put(copy(columns[i]), new PutValue(copy(values[i])));
+      Update value = new PutValue(copy(values[i]));
+      buffSize += getBufferedSize(columns[i], colVals.put(copy(columns[i]), value), value);
     }
     if (newRow) {
       // NOTE: we copy passed row's byte arrays to protect buffer against possible changes of this array on client
       buff.put(copy(row), colVals);
     }
+    persistBufferIfFull();
+  }
+
+  /**
+   * Returns the change in the estimated buffer size for replacing a buffered column value.
+   */
+  private static long getBufferedSize(byte[] column, @Nullable Update oldValue, Update newValue) {
+    long size = getBufferedSize(newValue);
+    if (oldValue == null) {
+      size += COLUMN_OVERHEAD + column.length;
+    } else {
+      size -= getBufferedSize(oldValue);
+    }
+    return size;
+  }
+
+  private static long getBufferedSize(Update value) {
+    return value instanceof PutValue ? getSize(((PutValue) value).getValue()) : Bytes.SIZEOF_LONG;
   }
 
   /**
@@ -624,9 +755,11 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
       if (colVals == null) {
         colVals = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
         buff.put(row, colVals);
+        buffSize += ROW_OVERHEAD + row.length;
       }
       for (int i = 0; i < columns.length; i++) {
-        colVals.put(columns[i], Updates.mergeUpdates(colVals.get(columns[i]), new IncrementValue(amounts[i])));
+        Update value = Updates.mergeUpdates(colVals.get(columns[i]), new IncrementValue(amounts[i]));
+        buffSize += getBufferedSize(columns[i], colVals.put(columns[i], value), value);
       }
       reportWrite(1, getSize(row) + getSize(columns) + getSize(amounts));
     } else {
@@ -20,6 +20,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.dataset.lib.cube.DimensionValue;
+import io.cdap.cdap.api.dataset.lib.cube.MeasureType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +40,8 @@ public class FactCodec {
   // encoding types
   private static final String TYPE_MEASURE_NAME = "measureName";
   private static final String TYPE_DIMENSIONS_GROUP = "tagsGroup";
+  private static final String TYPE_GAUGE_MEASURE_NAME = "gaugeMeasureName";
+  private static final String TYPE_COUNTER_MEASURE_NAME = "counterMeasureName";
 
   private final EntityTable entityTable;
 
@@ -105,6 +108,31 @@ public class FactCodec {
     return entityTable.getId(TYPE_MEASURE_NAME, measureName);
   }
 
+  /**
+   * Records the type of the given measure, which can then be checked with {@link #getMeasureType(String)}.
+   * @param measureName
+   * @param type
+   */
+  public void addMeasureType(String measureName, MeasureType type) {
+    entityTable.getId(type == MeasureType.GAUGE ? TYPE_GAUGE_MEASURE_NAME : TYPE_COUNTER_MEASURE_NAME, measureName);
+  }
+
+  /**
+   * Returns the type of the given measure recorded with {@link #addMeasureType(String, MeasureType)}.
+   * @param measureName
+   * @return the type of the measure, or {@code null} if it was not recorded
+   */
+  @Nullable
+  public MeasureType getMeasureType(String measureName) {
+    if (entityTable.hasId(TYPE_GAUGE_MEASURE_NAME, measureName)) {
+      return MeasureType.GAUGE;
+    }
+    if (entityTable.hasId(TYPE_COUNTER_MEASURE_NAME, measureName)) {
+      return MeasureType.COUNTER;
+    }
+    return null;
+  }
+
   private byte[] createRowKey(List<DimensionValue> dimensionValues, String measureName, long ts, boolean stopKey,
                               boolean anyAggGroup) {
     // Row key format:
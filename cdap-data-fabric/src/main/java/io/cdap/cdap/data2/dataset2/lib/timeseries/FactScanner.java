@@ -51,6 +51,8 @@ public final class FactScanner implements Iterator<FactScanResult> {
   // set of measureNames - useful to process measures that are requested while scanning.
   private final Set<String> measureNames;
 
+  private boolean closed;
+
   /**
    * Construct a FactScanner. Should only be called by FactTable.
    */
@@ -63,8 +65,14 @@ public final class FactScanner implements Iterator<FactScanResult> {
     this.measureNames = ImmutableSet.copyOf(measureNames);
   }
 
+  /**
+   * Closes the underlying scanner. Calling it more than once has no effect.
+   */
   public void close() {
-    scanner.close();
+    if (!closed) {
+      closed = true;
+      scanner.close();
+    }
   }
 
   public int getRowScanned() {
@@ -125,15 +133,16 @@ public final class FactScanner implements Iterator<FactScanResult> {
             timeValues.add(timeValue);
           }
 
+          // The rows of other time series in the same time base can still have data in the time range
           if (timeValues.isEmpty() && exhausted) {
-            break;
+            continue;
           }
 
           // todo: can return empty list, if all data is < startTs or > endTs
           return new FactScanResult(measureName, dimensionValues, timeValues);
         }
 
-        scanner.close();
+        close();
         return endOfData();
       }
     };
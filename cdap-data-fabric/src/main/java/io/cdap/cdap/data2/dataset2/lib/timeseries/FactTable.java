@@ -66,6 +66,10 @@ public final class FactTable implements Closeable {
   private static final int MAX_RECORDS_TO_SCAN_DURING_SEARCH = 10 * 1000 * 1000;
   private static final int MAX_SCANS_DURING_SEARCH = 10 * 1000;
 
+  // Row keys of facts start with a zero version byte, hence this row is never read as a fact
+  private static final byte[] ROLLUP_CHECKPOINT_ROW = Bytes.toBytes("rollup");
+  private static final byte[] ROLLUP_CHECKPOINT_COLUMN = Bytes.toBytes("checkpoint");
+
   private final MetricsTable timeSeriesTable;
   private final EntityTable entityTable;
   private final FactCodec codec;
@@ -79,6 +83,7 @@ public final class FactTable implements Closeable {
 
   @Nullable
   private MetricsCollector metrics;
+  private volatile boolean recordMeasureTypes;
 
   /**
    * Creates an instance of {@link FactTable}.
@@ -113,6 +118,46 @@ public final class FactTable implements Closeable {
     this.metrics = metrics;
   }
 
+  /**
+   * Sets whether the types of the measures added should be recorded, so that the facts of this table can be
+   * rolled up into coarser resolutions, which needs to tell gauges from counters. See {@link #getMeasureType(String)}.
+   */
+  public void setRecordMeasureTypes(boolean recordMeasureTypes) {
+    this.recordMeasureTypes = recordMeasureTypes;
+  }
+
+  /**
+   * Returns the type the given measure was added with while the types of measures were recorded,
+   * or {@code null} if it was not added since.
+   */
+  @Nullable
+  public MeasureType getMeasureType(String measureName) {
+    return codec.getMeasureType(measureName);
+  }
+
+  /**
+   * Returns the time up to which facts of a finer resolution were rolled up into this table, in seconds,
+   * or {@code null} if there was no rollup into this table.
+   */
+  @Nullable
+  public Long getRollupCheckpoint() {
+    byte[] value = timeSeriesTable.get(ROLLUP_CHECKPOINT_ROW, ROLLUP_CHECKPOINT_COLUMN);
+    return value == null ? null : Bytes.toLong(value);
+  }
+
+  /**
+   * Updates the time up to which facts of a finer resolution were rolled up into this table, if it has not been
+   * changed since it was read with {@link #getRollupCheckpoint()}.
+   *
+   * @param expected the checkpoint read, {@code null} if there was none
+   * @param checkpoint the new checkpoint, in seconds
+   * @return whether the checkpoint was updated
+   */
+  public boolean updateRollupCheckpoint(@Nullable Long expected, long checkpoint) {
+    return timeSeriesTable.swap(ROLLUP_CHECKPOINT_ROW, ROLLUP_CHECKPOINT_COLUMN,
+                                expected == null ? null : Bytes.toBytes(expected), Bytes.toBytes(checkpoint));
+  }
+
   public void add(List<Fact> facts) {
     // Simply collecting all rows/cols/values that need to be put to the underlying table.
     NavigableMap<byte[], NavigableMap<byte[], Long>> gaugesTable = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
@@ -128,6 +173,9 @@ public final class FactTable implements Closeable {
         byte[] rowKey = codec.createRowKey(fact.getDimensionValues(), measurement.getName(), fact.getTimestamp());
         byte[] column = codec.createColumn(fact.getTimestamp());
 
+        if (recordMeasureTypes) {
+          codec.addMeasureType(measurement.getName(), measurement.getType());
+        }
         if (MeasureType.COUNTER == measurement.getType()) {
           if (factCounterCache != null) {
             // round to the resolution timestamp
@@ -449,6 +497,37 @@ public final class FactTable implements Closeable {
     return FactCodec.getSplits(aggGroupsCount);
   }
 
+  /**
+   * Splits the given scan into scans over consecutive time ranges, each of which covers whole time bases.
+   * Since the time base follows the aggregation group in the row key, the returned scans read disjoint key ranges
+   * and can be executed concurrently.
+   *
+   * @param scan the scan to split
+   * @param maxSplits the maximum number of scans to return
+   * @return the list of scans in time order, which has the given scan only if it cannot be split
+   */
+  public List<FactScan> getSplits(FactScan scan, int maxSplits) {
+    long startTs = scan.getStartTs();
+    long endTs = scan.getEndTs();
+    long numTimeBases = endTs / rollTime - startTs / rollTime + 1;
+    // all facts of the totals resolution are in the same time base
+    if (maxSplits <= 1 || resolution == Integer.MAX_VALUE || numTimeBases <= 1) {
+      return Collections.singletonList(scan);
+    }
+
+    long timeBasesPerSplit = (numTimeBases + maxSplits - 1) / maxSplits;
+    List<FactScan> splits = new ArrayList<>();
+    long splitStartTs = startTs;
+    long timeBase = startTs / rollTime;
+    while (splitStartTs <= endTs) {
+      timeBase += timeBasesPerSplit;
+      long splitEndTs = Math.min(endTs, timeBase * rollTime - 1);
+      splits.add(new FactScan(splitStartTs, splitEndTs, scan.getMeasureNames(), scan.getDimensionValues()));
+      splitStartTs = splitEndTs + 1;
+    }
+    return splits;
+  }
+
   @VisibleForTesting
   Cache<FactCacheKey, Long> getFactCounterCache() {
     return factCounterCache;
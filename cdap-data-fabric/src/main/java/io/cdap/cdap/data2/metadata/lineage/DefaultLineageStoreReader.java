@@ -26,6 +26,7 @@ import io.cdap.cdap.spi.data.transaction.TransactionRunner;
 import io.cdap.cdap.spi.data.transaction.TransactionRunners;
 import org.apache.tephra.TransactionExecutor;
 
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
 
@@ -80,6 +81,36 @@ public class DefaultLineageStoreReader implements LineageStoreReader {
     return execute(input -> input.getRelations(program, start, end, filter));
   }
 
+  /**
+   * Fetch program-dataset access information for a set of datasets for a given period, in one transaction.
+   *
+   * @param datasetInstances datasets for which to fetch access information
+   * @param start start time period
+   * @param end end time period
+   * @param filter filter to be applied on result set
+   * @return program-dataset access information of each dataset that has any
+   */
+  @Override
+  public Map<DatasetId, Set<Relation>> getDatasetRelations(final Set<DatasetId> datasetInstances, final long start,
+                                                           final long end, final Predicate<Relation> filter) {
+    return execute(input -> input.getDatasetRelations(datasetInstances, start, end, filter));
+  }
+
+  /**
+   * Fetch program-dataset access information for a set of programs for a given period, in one transaction.
+   *
+   * @param programs programs for which to fetch access information
+   * @param start start time period
+   * @param end end time period
+   * @param filter filter to be applied on result set
+   * @return program-dataset access information of each program that has any
+   */
+  @Override
+  public Map<ProgramId, Set<Relation>> getProgramRelations(final Set<ProgramId> programs, final long start,
+                                                           final long end, final Predicate<Relation> filter) {
+    return execute(input -> input.getProgramRelations(programs, start, end, filter));
+  }
+
   private <T> T execute(TransactionExecutor.Function<LineageTable, T> func) {
     return TransactionRunners.run(transactionRunner, context -> {
       LineageTable lineageTable = LineageTable.create(context);
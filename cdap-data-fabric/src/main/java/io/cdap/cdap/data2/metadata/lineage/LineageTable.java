@@ -40,9 +40,14 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
 /**
@@ -172,6 +177,46 @@ public class LineageTable {
                          filter);
   }
 
+  /**
+   * Fetch program-dataset access information for a set of datasets for a given period, using a single scan over
+   * the key ranges of all the datasets.
+   *
+   * @param datasetInstances datasets for which to fetch access information
+   * @param start start time period
+   * @param end end time period
+   * @param filter filter to be applied on result set
+   * @return program-dataset access information of each dataset that has any
+   */
+  public Map<DatasetId, Set<Relation>> getDatasetRelations(Set<DatasetId> datasetInstances, long start, long end,
+                                                           Predicate<Relation> filter) throws IOException {
+    List<Range> ranges = new ArrayList<>(datasetInstances.size());
+    for (DatasetId datasetInstance : datasetInstances) {
+      ranges.add(Range.create(getDatasetScanStartKey(datasetInstance, end), Range.Bound.INCLUSIVE,
+                              getDatasetScanEndKey(datasetInstance, start), Range.Bound.INCLUSIVE));
+    }
+    return multiScanRelations(getDatasetTable(), ranges, relation -> (DatasetId) relation.getData(), filter);
+  }
+
+  /**
+   * Fetch program-dataset access information for a set of programs for a given period, using a single scan over
+   * the key ranges of all the programs.
+   *
+   * @param programs programs for which to fetch access information
+   * @param start start time period
+   * @param end end time period
+   * @param filter filter to be applied on result set
+   * @return program-dataset access information of each program that has any
+   */
+  public Map<ProgramId, Set<Relation>> getProgramRelations(Set<ProgramId> programs, long start, long end,
+                                                           Predicate<Relation> filter) throws IOException {
+    List<Range> ranges = new ArrayList<>(programs.size());
+    for (ProgramId program : programs) {
+      ranges.add(Range.create(getProgramScanStartKey(program, end), Range.Bound.INCLUSIVE,
+                              getProgramScanEndKey(program, start), Range.Bound.INCLUSIVE));
+    }
+    return multiScanRelations(getProgramTable(), ranges, Relation::getProgram, filter);
+  }
+
   /**
    * @return a set of access times (for program and data it accesses) associated with a program run.
    */
@@ -207,6 +252,24 @@ public class LineageTable {
     return builder.build();
   }
 
+  private <T> Map<T, Set<Relation>> multiScanRelations(StructuredTable table, Collection<Range> ranges,
+                                                       Function<Relation, T> keyFunction,
+                                                       Predicate<Relation> filter) throws IOException {
+    Map<T, Set<Relation>> result = new HashMap<>();
+    if (ranges.isEmpty()) {
+      return result;
+    }
+    try (CloseableIterator<StructuredRow> iterator = table.multiScan(ranges, Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        Relation relation = toRelation(iterator.next());
+        if (filter.test(relation)) {
+          result.computeIfAbsent(keyFunction.apply(relation), k -> new HashSet<>()).add(relation);
+        }
+      }
+    }
+    return result;
+  }
+
   private List<Field<?>> getDatasetKey(DatasetId datasetInstance, ProgramRunId run, AccessType accessType) {
     List<Field<?>> fields = new ArrayList<>();
     addDataset(fields, datasetInstance);
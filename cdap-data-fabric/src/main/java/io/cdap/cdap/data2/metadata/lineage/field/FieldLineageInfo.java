@@ -33,6 +33,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -329,96 +330,74 @@ public class FieldLineageInfo {
       computeAndValidateFieldLineageInfo(this.operations);
     }
 
-    Map<String, Set<EndPointField>> operationEndPointMap = new HashMap<>();
-    Map<EndPointField, Set<EndPointField>> summary = new HashMap<>();
+    // Operations are indexed in topological order, so that the source fields of each transform can be computed
+    // once from the source fields of the operations it takes inputs from, which are always computed before it.
+    List<Operation> sortedOperations = getTopologicallySortedOperations(operations);
+    Map<String, Integer> operationIds = new HashMap<>();
+    for (Operation operation : sortedOperations) {
+      operationIds.put(operation.getName(), operationIds.size());
+    }
+
+    SourceFieldIndex sourceFieldIndex = new SourceFieldIndex();
+    BitSet[] transformSources = new BitSet[sortedOperations.size()];
+    for (Operation operation : sortedOperations) {
+      if (operation.getType() == OperationType.TRANSFORM) {
+        Map<String, BitSet> originSources = getOriginSources(((TransformOperation) operation).getInputs(),
+                                                             transformSources, operationIds, sourceFieldIndex);
+        BitSet sources = new BitSet();
+        originSources.values().forEach(sources::or);
+        transformSources[operationIds.get(operation.getName())] = sources;
+      }
+    }
+
+    Map<EndPointField, BitSet> summarySources = new HashMap<>();
     for (WriteOperation write : writeOperations) {
-      List<InputField> inputs = write.getInputs();
-      for (InputField input : inputs) {
+      Map<String, BitSet> originSources = getOriginSources(write.getInputs(), transformSources, operationIds,
+                                                           sourceFieldIndex);
+      for (InputField input : write.getInputs()) {
         EndPointField dest = new EndPointField(write.getDestination(), input.getName());
-        Set<EndPointField> fields = summary.computeIfAbsent(dest, k -> new HashSet<>());
-        if (operationEndPointMap.containsKey(input.getOrigin())) {
-          fields.addAll(operationEndPointMap.get(input.getOrigin()));
-        } else {
-          fields.addAll(computeIncomingSummaryHelper(operationsMap.get(input.getOrigin()), write,
-                                                     operationEndPointMap));
-        }
+        summarySources.computeIfAbsent(dest, k -> new BitSet()).or(originSources.get(input.getOrigin()));
       }
     }
     for (TransformOperation transform : dropTransforms) {
-      for (InputField input : transform.getInputs()) {
-        Operation previous = operationsMap.get(input.getOrigin());
-        // drop transforms uses a common NULL endpoint as key
-        Set<EndPointField> endPointFields = summary.computeIfAbsent(NULL_EPF, k -> new HashSet<>());
-        if (operationEndPointMap.containsKey(input.getOrigin())) {
-          endPointFields.addAll(new HashSet<>(operationEndPointMap.get(input.getOrigin())));
-          continue;
-        }
-        endPointFields.addAll(computeIncomingSummaryHelper(previous, transform, operationEndPointMap));
-      }
+      // drop transforms uses a common NULL endpoint as key
+      BitSet sources = summarySources.computeIfAbsent(NULL_EPF, k -> new BitSet());
+      getOriginSources(transform.getInputs(), transformSources, operationIds, sourceFieldIndex).values()
+        .forEach(sources::or);
+    }
+
+    Map<EndPointField, Set<EndPointField>> summary = new HashMap<>();
+    for (Map.Entry<EndPointField, BitSet> entry : summarySources.entrySet()) {
+      summary.put(entry.getKey(), sourceFieldIndex.getFields(entry.getValue()));
     }
     return summary;
   }
 
   /**
-   * Helper method to compute the incoming summary
+   * Computes the source fields of the inputs of an operation for each origin of the inputs. If the origin is a
+   * read operation, the source fields are the fields of all the inputs with that origin. If the origin is a transform
+   * operation, the source fields are the ones that the transform is computed from.
    *
-   * @param currentOperation the operation being processed. Since we are processing incoming this operation is on the
-   * left side if graph is imagined in horizontal orientation or this operation is the input to the to
-   * previousOperation
-   * @param previousOperation the previous operation which is processed and reside on right to the current operation if
-   * the graph is imagined to be in horizontal orientation.
-   * @param operationEndPointMap a map that contains the operation name to the final endpoint field it will generate,
-   * this is used to track the path we already computed to ensure we do not do the same computation again
+   * @param inputs the inputs of the operation
+   * @param transformSources the source fields of the transforms that were already computed, indexed by operation id
+   * @param operationIds the id of each operation
+   * @param sourceFieldIndex the index of source fields
+   * @return the map from the origin to the source fields of the inputs with that origin
    */
-  private Set<EndPointField> computeIncomingSummaryHelper(Operation currentOperation,
-                                                          Operation previousOperation,
-                                                          Map<String, Set<EndPointField>> operationEndPointMap) {
-    if (currentOperation.getType() == OperationType.READ) {
-      // if current operation is of type READ, previous operation must be of type TRANSFORM or WRITE
-      // get only the input fields from the previous operations for which the origin is current READ operation
-      Set<InputField> inputFields = new HashSet<>();
-      if (OperationType.WRITE == previousOperation.getType()) {
-        WriteOperation previousWrite = (WriteOperation) previousOperation;
-        inputFields = new HashSet<>(previousWrite.getInputs());
-      } else if (OperationType.TRANSFORM == previousOperation.getType()) {
-        TransformOperation previousTransform = (TransformOperation) previousOperation;
-        inputFields = new HashSet<>(previousTransform.getInputs());
+  private Map<String, BitSet> getOriginSources(List<InputField> inputs, BitSet[] transformSources,
+                                               Map<String, Integer> operationIds,
+                                               SourceFieldIndex sourceFieldIndex) {
+    Map<String, BitSet> originSources = new HashMap<>();
+    for (InputField input : inputs) {
+      Operation origin = operationsMap.get(input.getOrigin());
+      BitSet sources = originSources.computeIfAbsent(input.getOrigin(), k -> new BitSet());
+      if (origin.getType() == OperationType.READ) {
+        sources.set(sourceFieldIndex.getId(new EndPointField(((ReadOperation) origin).getSource(), input.getName())));
+      } else if (origin.getType() == OperationType.TRANSFORM) {
+        sources.or(transformSources[operationIds.get(origin.getName())]);
       }
-
-      Set<EndPointField> sourceEndPointFields = new HashSet<>();
-
-      // for all the input fields of the previous operation if the origin was current operation (remember we are
-      // traversing backward)
-      ReadOperation read = (ReadOperation) currentOperation;
-      EndPoint source = read.getSource();
-      for (InputField inputField : inputFields) {
-        if (inputField.getOrigin().equals(currentOperation.getName())) {
-          sourceEndPointFields.add(new EndPointField(source, inputField.getName()));
-        }
-      }
-      // reached the end of graph unwind the recursive calls
-      return sourceEndPointFields;
     }
-
-    Set<EndPointField> relatedSources = new HashSet<>();
-    // for transform we traverse backward in graph further through the inputs of the transform
-    if (currentOperation.getType() == OperationType.TRANSFORM) {
-      TransformOperation transform = (TransformOperation) currentOperation;
-      // optimization to avoid repeating work if there are input fields with the same origin
-      Set<String> transformOrigins = transform.getInputs().stream()
-        .map(InputField::getOrigin)
-        .collect(Collectors.toSet());
-      for (String transformOrigin : transformOrigins) {
-        if (operationEndPointMap.containsKey(transformOrigin)) {
-          relatedSources.addAll(operationEndPointMap.get(transformOrigin));
-        } else {
-          relatedSources.addAll(
-            computeIncomingSummaryHelper(operationsMap.get(transformOrigin), currentOperation, operationEndPointMap));
-        }
-      }
-      operationEndPointMap.put(currentOperation.getName(), relatedSources);
-    }
-    return relatedSources;
+    return originSources;
   }
 
   private Map<EndPointField, Set<EndPointField>> computeOutgoingSummary() {
@@ -766,6 +745,29 @@ public class FieldLineageInfo {
     return GSON.toJson(ops);
   }
 
+  /**
+   * Assigns an integer id to each source field, so that sets of source fields can be represented by {@link BitSet}.
+   */
+  private static final class SourceFieldIndex {
+    private final Map<EndPointField, Integer> ids = new HashMap<>();
+    private final List<EndPointField> fields = new ArrayList<>();
+
+    int getId(EndPointField field) {
+      return ids.computeIfAbsent(field, f -> {
+        fields.add(f);
+        return fields.size() - 1;
+      });
+    }
+
+    Set<EndPointField> getFields(BitSet fieldIds) {
+      Set<EndPointField> result = new HashSet<>();
+      for (int i = fieldIds.nextSetBit(0); i >= 0; i = fieldIds.nextSetBit(i + 1)) {
+        result.add(fields.get(i));
+      }
+      return result;
+    }
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -23,6 +23,8 @@ import io.cdap.cdap.api.metrics.MetricsCollectionService;
 import io.cdap.cdap.api.metrics.MetricsContext;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.trace.Span;
+import io.cdap.cdap.common.trace.Tracing;
 import io.cdap.cdap.data2.transaction.Transactions;
 import io.cdap.cdap.spi.data.nosql.dataset.NoSQLTransactionals;
 import io.cdap.cdap.spi.data.nosql.dataset.TableDatasetSupplier;
@@ -63,14 +65,18 @@ public class NoSqlTransactionRunner implements TransactionRunner {
 
   @Override
   public void run(TxRunnable runnable) throws TransactionException {
-    try {
-      MetricsContext metricsCollector = metricsCollectionService.getContext(Constants.Metrics.STORAGE_METRICS_TAGS);
-      transactional.execute(
-        datasetContext -> runnable.run(new NoSqlStructuredTableContext(tableAdmin, datasetContext,
-                                                                       metricsCollector, emitTimeMetrics))
-      );
-    } catch (TransactionFailureException e) {
-      throw new TransactionException("Failure executing NoSql transaction:", e.getCause() == null ? e : e.getCause());
+    try (Span span = Tracing.startSpan("transaction.nosql")) {
+      try {
+        MetricsContext metricsCollector = metricsCollectionService.getContext(Constants.Metrics.STORAGE_METRICS_TAGS);
+        transactional.execute(
+          datasetContext -> runnable.run(new NoSqlStructuredTableContext(tableAdmin, datasetContext,
+                                                                         metricsCollector, emitTimeMetrics))
+        );
+      } catch (TransactionFailureException e) {
+        span.error(e);
+        throw new TransactionException("Failure executing NoSql transaction:",
+                                       e.getCause() == null ? e : e.getCause());
+      }
     }
   }
 }
@@ -21,6 +21,8 @@ import io.cdap.cdap.api.metrics.MetricsCollectionService;
 import io.cdap.cdap.api.metrics.MetricsContext;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.metrics.NoOpMetricsCollectionService;
+import io.cdap.cdap.common.trace.Span;
+import io.cdap.cdap.common.trace.Tracing;
 import io.cdap.cdap.spi.data.StructuredTableAdmin;
 import io.cdap.cdap.spi.data.transaction.TransactionException;
 import io.cdap.cdap.spi.data.transaction.TransactionRunner;
@@ -58,7 +60,17 @@ public class SqlTransactionRunner implements TransactionRunner {
 
   @Override
   public void run(TxRunnable runnable) throws TransactionException {
+    try (Span span = Tracing.startSpan("transaction.sql")) {
+      try {
+        runInTransaction(runnable);
+      } catch (TransactionException e) {
+        span.error(e);
+        throw e;
+      }
+    }
+  }
 
+  private void runInTransaction(TxRunnable runnable) throws TransactionException {
     Connection connection;
     try {
       connection = dataSource.getConnection();
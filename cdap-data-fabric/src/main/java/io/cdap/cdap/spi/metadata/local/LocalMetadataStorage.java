@@ -0,0 +1,589 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.spi.metadata.local;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Splitter;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.inject.Inject;
+import io.cdap.cdap.api.metadata.MetadataEntity;
+import io.cdap.cdap.api.metadata.MetadataScope;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.metadata.Cursor;
+import io.cdap.cdap.spi.metadata.Metadata;
+import io.cdap.cdap.spi.metadata.MetadataChange;
+import io.cdap.cdap.spi.metadata.MetadataConstants;
+import io.cdap.cdap.spi.metadata.MetadataDirective;
+import io.cdap.cdap.spi.metadata.MetadataKind;
+import io.cdap.cdap.spi.metadata.MetadataMutation;
+import io.cdap.cdap.spi.metadata.MetadataRecord;
+import io.cdap.cdap.spi.metadata.MetadataStorage;
+import io.cdap.cdap.spi.metadata.MutationOptions;
+import io.cdap.cdap.spi.metadata.Read;
+import io.cdap.cdap.spi.metadata.ScopedName;
+import io.cdap.cdap.spi.metadata.ScopedNameOfKind;
+import io.cdap.cdap.spi.metadata.SearchRequest;
+import io.cdap.cdap.spi.metadata.SearchResponse;
+import io.cdap.cdap.spi.metadata.Sorting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+
+/**
+ * An implementation of the Metadata SPI that keeps a full-text index of all metadata in memory, and persists
+ * the metadata in a local directory. It answers queries the same way as the Elasticsearch metadata storage,
+ * without the need for an external service, and is meant for single-process deployments such as the sandbox.
+ * The index, including its term dictionary and posting lists, is held on the heap and rebuilt from the directory
+ * when it is created; only the snapshot and the log are kept on disk. The heap of the process must therefore be sized
+ * for the number of entities, and installations with millions of entities should use another metadata storage.
+ * The directory is locked while the index is in use, so it fails to start if another process uses the directory.
+ *
+ * Mutations are applied to the index while holding a write lock, and are visible to all searches as soon as
+ * they return. Every mutation is recorded in a {@link MetadataLog} before it is applied; synchronous mutations
+ * also flush the log. After a configurable number of changes, a snapshot of all metadata replaces the log.
+ * The snapshot is written after the write lock is released, from a copy of the documents taken under the lock.
+ */
+public class LocalMetadataStorage implements MetadataStorage {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LocalMetadataStorage.class);
+
+  // used to tokenize the query string, same as the MetadataDataset
+  private static final Pattern SPACE_SEPARATOR_PATTERN = Pattern.compile("\\s+");
+
+  // these are the only fields that are supported for sorting
+  private static final String SORT_BY_NAME = MetadataConstants.ENTITY_NAME_KEY;
+  private static final String SORT_BY_CREATION_TIME = MetadataConstants.CREATION_TIME_KEY;
+
+  private static final Set<MetadataScope> BOTH_SCOPES = EnumSet.allOf(MetadataScope.class);
+
+  private final File dir;
+  private final int snapshotThreshold;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  // held while a snapshot is written, always acquired before the write lock or with tryLock
+  private final Lock snapshotLock = new ReentrantLock();
+  private final MetadataIndex index = new MetadataIndex();
+  // guarded by the write lock, non-null while the index is created
+  private MetadataLog log;
+
+  @Inject
+  public LocalMetadataStorage(CConfiguration cConf) {
+    this(new File(cConf.get(Constants.Metadata.LOCAL_STORAGE_DIR)),
+         cConf.getInt(Constants.Metadata.LOCAL_STORAGE_SNAPSHOT_THRESHOLD));
+  }
+
+  @VisibleForTesting
+  LocalMetadataStorage(File dir, int snapshotThreshold) {
+    this.dir = dir;
+    this.snapshotThreshold = snapshotThreshold;
+  }
+
+  @Override
+  public void createIndex() throws IOException {
+    lock.writeLock().lock();
+    try {
+      if (log != null) {
+        return;
+      }
+      if (!dir.isDirectory() && !dir.mkdirs()) {
+        throw new IOException("Failed to create directory " + dir + " for the local metadata storage");
+      }
+      MetadataLog metadataLog = new MetadataLog(dir);
+      metadataLog.open((entity, metadata) -> {
+        if (metadata == null) {
+          index.remove(MetadataDocument.toDocumentId(entity));
+        } else {
+          index.put(MetadataDocument.of(entity, metadata));
+        }
+      });
+      log = metadataLog;
+      LOG.debug("Loaded metadata for {} entities from {}", index.size(), dir);
+    } catch (IOException | RuntimeException e) {
+      index.clear();
+      throw e;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void dropIndex() throws IOException {
+    snapshotLock.lock();
+    lock.writeLock().lock();
+    try {
+      index.clear();
+      if (log == null) {
+        log = new MetadataLog(dir);
+      }
+      log.delete();
+      log = null;
+    } finally {
+      lock.writeLock().unlock();
+      snapshotLock.unlock();
+    }
+  }
+
+  @Override
+  public void close() {
+    snapshotLock.lock();
+    lock.writeLock().lock();
+    try {
+      if (log != null) {
+        log.close();
+      }
+    } catch (IOException e) {
+      LOG.warn("Failed to close the log of the local metadata storage in {}", dir, e);
+    } finally {
+      log = null;
+      index.clear();
+      lock.writeLock().unlock();
+      snapshotLock.unlock();
+    }
+  }
+
+  @Override
+  public MetadataChange apply(MetadataMutation mutation, MutationOptions options) throws IOException {
+    return batch(Collections.singletonList(mutation), options).get(0);
+  }
+
+  @Override
+  public List<MetadataChange> batch(List<? extends MetadataMutation> mutations,
+                                    MutationOptions options) throws IOException {
+    if (mutations.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<MetadataChange> changes = new ArrayList<>(mutations.size());
+    MetadataLog metadataLog;
+    Collection<MetadataDocument> snapshot = null;
+    lock.writeLock().lock();
+    try {
+      metadataLog = getLog();
+      for (MetadataMutation mutation : mutations) {
+        MetadataEntity entity = mutation.getEntity();
+        String id = MetadataDocument.toDocumentId(entity);
+        MetadataDocument before = index.get(id);
+        MetadataChange change = applyMutation(before == null ? null : before.getMetadata(), mutation);
+        if (mutation.getType() == MetadataMutation.Type.DROP) {
+          metadataLog.append(entity, null);
+          index.remove(id);
+        } else {
+          metadataLog.append(entity, change.getAfter());
+          index.put(MetadataDocument.of(entity, change.getAfter()));
+        }
+        changes.add(change);
+      }
+      if (!options.isAsynchronous()) {
+        metadataLog.flush();
+      }
+      // if another snapshot is being written, the next batch will take the snapshot
+      if (metadataLog.getNumRecords() >= snapshotThreshold && snapshotLock.tryLock()) {
+        try {
+          metadataLog.rotate();
+          snapshot = index.documents();
+        } catch (IOException | RuntimeException e) {
+          snapshotLock.unlock();
+          throw e;
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+    if (snapshot != null) {
+      writeSnapshot(metadataLog, snapshot);
+    }
+    return changes;
+  }
+
+  /**
+   * Writes a snapshot of the given documents, and releases the snapshot lock. The mutations are already
+   * recorded in the logs, hence a failure is only logged. The rotated log is kept, and the snapshot is retried
+   * when the log reaches the threshold again.
+   */
+  private void writeSnapshot(MetadataLog metadataLog, Collection<MetadataDocument> documents) {
+    try {
+      long start = System.currentTimeMillis();
+      metadataLog.snapshot(documents);
+      LOG.debug("Wrote snapshot of metadata for {} entities in {} ms",
+                documents.size(), System.currentTimeMillis() - start);
+    } catch (IOException e) {
+      LOG.warn("Failed to write snapshot of the local metadata storage in {}", dir, e);
+    } finally {
+      snapshotLock.unlock();
+    }
+  }
+
+  @Override
+  public Metadata read(Read read) throws IOException {
+    MetadataDocument doc;
+    lock.readLock().lock();
+    try {
+      getLog();
+      doc = index.get(MetadataDocument.toDocumentId(read.getEntity()));
+    } finally {
+      lock.readLock().unlock();
+    }
+    return doc == null ? Metadata.EMPTY
+      : filterMetadata(doc.getMetadata(), true, read.getKinds(), read.getScopes(), read.getSelection());
+  }
+
+  @Override
+  public SearchResponse search(SearchRequest request) throws IOException {
+    SearchRequest actualRequest = request;
+    if (request.getCursor() != null && !request.getCursor().isEmpty()) {
+      actualRequest = createRequestFromCursor(request, Cursor.fromString(request.getCursor()));
+    }
+    boolean byCreationTime = false;
+    if (actualRequest.getSorting() != null) {
+      byCreationTime = isSortByCreationTime(actualRequest.getSorting());
+    }
+    int offset = actualRequest.getOffset();
+    int limit = actualRequest.getLimit();
+
+    int totalResults;
+    List<MetadataDocument> docs;
+    lock.readLock().lock();
+    try {
+      getLog();
+      List<BitSet> termMatches = new ArrayList<>();
+      BitSet matches = createQuery(actualRequest, termMatches);
+      totalResults = matches.cardinality();
+      docs = actualRequest.getSorting() != null
+        ? index.sorted(matches, byCreationTime, actualRequest.getSorting().getOrder() == Sorting.Order.DESC,
+                       offset, limit)
+        : rankByRelevance(matches, termMatches, offset, limit);
+    } finally {
+      lock.readLock().unlock();
+    }
+    List<MetadataRecord> results = docs.stream()
+      .map(doc -> new MetadataRecord(doc.getResultEntity(), doc.getMetadata()))
+      .collect(Collectors.toList());
+
+    String cursor = null;
+    int newOffset = offset + results.size();
+    if (actualRequest.isCursorRequested() && newOffset < totalResults) {
+      Sorting sorting = actualRequest.getSorting();
+      cursor = new Cursor(newOffset, limit, actualRequest.isShowHidden(), actualRequest.getScope(),
+                          actualRequest.getNamespaces(), actualRequest.getTypes(),
+                          sorting == null ? null : sorting.toString(), "", actualRequest.getQuery()).toString();
+    }
+    return new SearchResponse(request, cursor, offset, limit, totalResults, results);
+  }
+
+  private MetadataLog getLog() throws IOException {
+    if (log == null) {
+      throw new IOException("The local metadata storage in " + dir + " has not been created");
+    }
+    return log;
+  }
+
+  /**
+   * Computes the change effected by a mutation. See {@link MetadataMutation} for the semantics of each type.
+   *
+   * @param before the metadata of the mutation's entity before the change, or null if the entity is not indexed
+   */
+  private static MetadataChange applyMutation(@Nullable Metadata before, MetadataMutation mutation) {
+    MetadataEntity entity = mutation.getEntity();
+    Metadata existing = before == null ? Metadata.EMPTY : before;
+    switch (mutation.getType()) {
+      case CREATE:
+        MetadataMutation.Create create = (MetadataMutation.Create) mutation;
+        return new MetadataChange(entity, existing,
+                                  before == null ? create.getMetadata() : create(existing, create));
+      case DROP:
+        return new MetadataChange(entity, existing, Metadata.EMPTY);
+      case UPDATE:
+        Metadata updates = ((MetadataMutation.Update) mutation).getUpdates();
+        Set<ScopedName> tags = new HashSet<>(existing.getTags());
+        tags.addAll(updates.getTags());
+        Map<ScopedName, String> properties = new HashMap<>(existing.getProperties());
+        properties.putAll(updates.getProperties());
+        return new MetadataChange(entity, existing, new Metadata(tags, properties));
+      case REMOVE:
+        MetadataMutation.Remove remove = (MetadataMutation.Remove) mutation;
+        return new MetadataChange(entity, existing, filterMetadata(existing, false, remove.getKinds(),
+                                                                   remove.getScopes(), remove.getRemovals()));
+      default:
+        throw new IllegalStateException(
+          String.format("Unknown mutation type '%s' for %s", mutation.getType(), mutation));
+    }
+  }
+
+  /**
+   * Computes the metadata after a create mutation for an existing entity: the metadata replaces all existing
+   * metadata in the scopes that it contains, except for the tags and properties preserved by the directives.
+   */
+  private static Metadata create(Metadata before, MetadataMutation.Create create) {
+    Metadata meta = create.getMetadata();
+    Map<ScopedNameOfKind, MetadataDirective> directives = create.getDirectives();
+    // determine the scopes that this mutation applies to (scopes that do not occur in the metadata are no changed)
+    Set<MetadataScope> scopes = Stream.concat(meta.getTags().stream(), meta.getProperties().keySet().stream())
+      .map(ScopedName::getScope).collect(Collectors.toSet());
+    // all tags and properties that are in a scope not affected by this mutation are kept
+    Set<ScopedName> tags = new HashSet<>(meta.getTags());
+    Map<ScopedName, String> properties = new HashMap<>(meta.getProperties());
+    before.getTags().stream()
+      .filter(tag -> !scopes.contains(tag.getScope()))
+      .forEach(tags::add);
+    before.getProperties().entrySet().stream()
+      .filter(entry -> !scopes.contains(entry.getKey().getScope()))
+      .forEach(entry -> properties.put(entry.getKey(), entry.getValue()));
+    // tags and properties in affected scopes that must be kept or preserved
+    directives.forEach((key, directive) -> {
+      if (!scopes.contains(key.getScope())) {
+        return;
+      }
+      ScopedName name = new ScopedName(key.getScope(), key.getName());
+      if (key.getKind() == MetadataKind.TAG) {
+        if (before.getTags().contains(name)) {
+          tags.add(name);
+        }
+        return;
+      }
+      String existingValue = before.getProperties().get(name);
+      String newValue = meta.getProperties().get(name);
+      if (existingValue != null
+        && (directive == MetadataDirective.PRESERVE && !existingValue.equals(newValue)
+        || directive == MetadataDirective.KEEP && newValue == null)) {
+        properties.put(name, existingValue);
+      }
+    });
+    return new Metadata(tags, properties);
+  }
+
+  /**
+   * Filter the metadata based on the given scopes, kinds, and selection.
+   *
+   * @param keep if true, only matching metadata elements are kept; otherwise only non-matching elements are kept.
+   */
+  @SuppressWarnings("ConstantConditions")
+  private static Metadata filterMetadata(Metadata metadata, boolean keep, Set<MetadataKind> kinds,
+                                         Set<MetadataScope> scopes, @Nullable Set<ScopedNameOfKind> selection) {
+    if (selection != null) {
+      return new Metadata(
+        Sets.filter(metadata.getTags(), tag ->
+          keep == selection.contains(new ScopedNameOfKind(MetadataKind.TAG, tag.getScope(), tag.getName()))),
+        Maps.filterKeys(metadata.getProperties(), key ->
+          keep == selection.contains(new ScopedNameOfKind(MetadataKind.PROPERTY, key.getScope(), key.getName())))
+      );
+    }
+    return new Metadata(
+      Sets.filter(metadata.getTags(), tag ->
+        keep == (kinds.contains(MetadataKind.TAG) && scopes.contains(tag.getScope()))),
+      Maps.filterKeys(metadata.getProperties(), key ->
+        keep == (kinds.contains(MetadataKind.PROPERTY) && scopes.contains(key.getScope()))));
+  }
+
+  private static SearchRequest createRequestFromCursor(SearchRequest request, Cursor cursor) {
+    SearchRequest.Builder builder = SearchRequest.of(cursor.getQuery())
+      .setOffset(cursor.getOffset())
+      .setLimit(cursor.getLimit())
+      .setShowHidden(cursor.isShowHidden())
+      .setScope(cursor.getScope())
+      .setCursorRequested(request.isCursorRequested());
+    if (cursor.getSorting() != null) {
+      builder.setSorting(Sorting.of(cursor.getSorting()));
+    }
+    if (cursor.getNamespaces() != null) {
+      cursor.getNamespaces().forEach(builder::addNamespace);
+    }
+    if (cursor.getTypes() != null) {
+      cursor.getTypes().forEach(builder::addType);
+    }
+    return builder.build();
+  }
+
+  private static boolean isSortByCreationTime(Sorting sorting) {
+    String key = sorting.getKey().toLowerCase();
+    if (SORT_BY_NAME.equals(key) || SORT_BY_CREATION_TIME.equals(key)) {
+      return SORT_BY_CREATION_TIME.equals(key);
+    }
+    throw new IllegalArgumentException(String.format(
+      "Field '%s' cannot be used as a sort key. Only the following are supported: %s, %s.",
+      key, SORT_BY_NAME, SORT_BY_CREATION_TIME));
+  }
+
+  /**
+   * Evaluates a search request against the index. In essence, this returns the documents that match
+   *
+   * <pre>
+   *   (term1 OR ... OR termN)
+   * [ AND (namespace:ns1 OR ... OR namespace:nsK) ]
+   * [ AND (type:type1 OR ... OR type:typeM) ]
+   * [ AND NOT hidden ]
+   * </pre>
+   *
+   * @param termMatches receives the documents matching each term of the query, for ranking by relevance
+   */
+  private BitSet createQuery(SearchRequest request, List<BitSet> termMatches) {
+    BitSet result = null;
+    if (!request.getQuery().equals("*")) {
+      for (String term : Splitter.on(SPACE_SEPARATOR_PATTERN).omitEmptyStrings().trimResults()
+        .split(request.getQuery())) {
+        BitSet matches = createTermQuery(term, request.getScope());
+        termMatches.add(matches);
+        if (result == null) {
+          result = (BitSet) matches.clone();
+        } else {
+          result.or(matches);
+        }
+      }
+    }
+    if (result == null) {
+      result = index.all();
+    }
+    if (request.getTypes() != null && !request.getTypes().isEmpty()) {
+      result.and(anyOf(request.getTypes().stream()
+                         .map(type -> MetadataDocument.typeTerm(type.toLowerCase()))
+                         .collect(Collectors.toList())));
+    }
+    if (request.getNamespaces() != null) {
+      result.and(anyOf(request.getNamespaces().stream()
+                         .map(namespace -> MetadataDocument.namespaceTerm(namespace.toLowerCase()))
+                         .collect(Collectors.toList())));
+    }
+    if (!request.isShowHidden()) {
+      result.andNot(index.term(MetadataDocument.HIDDEN_TERM));
+    }
+    return result;
+  }
+
+  private BitSet anyOf(Collection<String> terms) {
+    BitSet result = new BitSet();
+    terms.forEach(term -> result.or(index.term(term)));
+    return result;
+  }
+
+  /**
+   * Evaluates a single term of the query string. A term of the form "f:t" matches either the plain text "f:t",
+   * or the text "t" in property "f". This is important for the case of schema search: If the schema contains a
+   * field f of type t, then "f:t" is indexed in the plain text as well as in the "schema" property.
+   */
+  private BitSet createTermQuery(String term, @Nullable MetadataScope scope) {
+    term = term.trim().toLowerCase();
+    Set<MetadataScope> scopes = scope == null ? BOTH_SCOPES : Collections.singleton(scope);
+    BitSet plainMatches = match(scopes.stream().map(MetadataDocument::textField).collect(Collectors.toList()), term);
+    int separator = term.indexOf(MetadataConstants.KEYVALUE_SEPARATOR);
+    if (separator < 0) {
+      return plainMatches;
+    }
+    String field = term.substring(0, separator).trim();
+    String value = term.substring(separator + 1).trim();
+    if (MetadataConstants.TTL_KEY.equals(field) && scopes.contains(MetadataScope.SYSTEM)) {
+      try {
+        // the TTL is also indexed as a number, which matches any numeric format of the same value
+        double ttl = Double.parseDouble(value);
+        return ttl == Math.rint(ttl) ? index.term(MetadataDocument.ttlTerm((long) ttl)) : new BitSet();
+      } catch (NumberFormatException e) {
+        // ignore - the follow-on code will match the property like any other
+      }
+    }
+    // all words of the value must occur in the same property, hence match each scope separately
+    BitSet result = plainMatches;
+    for (MetadataScope propertyScope : scopes) {
+      result.or(match(Collections.singletonList(MetadataDocument.propertyField(propertyScope, field)), value));
+    }
+    return result;
+  }
+
+  /**
+   * Matches a term against the text of some fields.
+   *
+   * @return the documents that contain a matching word if the term contains wildcards; otherwise the documents
+   *         in which every word of the term occurs in at least one of the fields
+   */
+  private BitSet match(List<String> fields, String term) {
+    if (term.contains("*") || term.contains("?")) {
+      return matchAny(fields, field -> index.wildcard(field, term));
+    }
+    List<String> tokens = MetadataDocument.tokenize(term);
+    if (tokens.isEmpty()) {
+      return new BitSet();
+    }
+    BitSet result = null;
+    for (String token : tokens) {
+      BitSet matches = matchAny(fields, field -> index.term(field + token));
+      if (result == null) {
+        result = matches;
+      } else {
+        result.and(matches);
+      }
+    }
+    return result;
+  }
+
+  private static BitSet matchAny(List<String> fields, Function<String, BitSet> query) {
+    BitSet result = new BitSet();
+    fields.forEach(field -> result.or(query.apply(field)));
+    return result;
+  }
+
+  /**
+   * Returns a page of the matching documents, ordered by the number of query terms that they match,
+   * and by document id for documents that match the same number of terms.
+   */
+  private List<MetadataDocument> rankByRelevance(BitSet matches, List<BitSet> termMatches, int offset, int limit) {
+    int count = matches.cardinality();
+    if (offset >= count || limit <= 0) {
+      return Collections.emptyList();
+    }
+    int end = (int) Math.min((long) offset + limit, count);
+    int[] scores = new int[index.maxNumber()];
+    for (BitSet terms : termMatches) {
+      for (int i = terms.nextSetBit(0); i >= 0; i = terms.nextSetBit(i + 1)) {
+        scores[i]++;
+      }
+    }
+    Comparator<Integer> order = Comparator.comparing((Integer number) -> -scores[number])
+      .thenComparing(number -> index.get(number).getId());
+
+    // keep the best documents up to the end of the page, with the worst of them at the head of the queue
+    PriorityQueue<Integer> best = new PriorityQueue<>(end + 1, order.reversed());
+    for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+      best.add(i);
+      if (best.size() > end) {
+        best.poll();
+      }
+    }
+    List<Integer> ranked = new ArrayList<>(best);
+    ranked.sort(order);
+    return ranked.subList(offset, end).stream().map(index::get).collect(Collectors.toList());
+  }
+}
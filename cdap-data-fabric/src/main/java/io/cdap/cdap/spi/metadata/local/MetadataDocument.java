@@ -0,0 +1,334 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.spi.metadata.local;
+
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.data.schema.SchemaWalker;
+import io.cdap.cdap.api.metadata.MetadataEntity;
+import io.cdap.cdap.api.metadata.MetadataScope;
+import io.cdap.cdap.common.metadata.MetadataUtil;
+import io.cdap.cdap.spi.metadata.Metadata;
+import io.cdap.cdap.spi.metadata.MetadataConstants;
+import io.cdap.cdap.spi.metadata.ScopedName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+/**
+ * The metadata of an entity as it is indexed by the {@link MetadataIndex}: the metadata itself, the terms that
+ * the entity can be found by, and the values it can be sorted by.
+ *
+ * The analysis is the same as for the document indexed by the Elasticsearch metadata storage: the entity type,
+ * the entity name, tags and property values are indexed as plain text of their scope, and every property is also
+ * indexed as a field, along with the fields "tags" and "properties" that contain the names of all tags and
+ * properties in a scope. Each term in the index is the name of a field followed by a token of the field's text.
+ */
+final class MetadataDocument {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MetadataDocument.class);
+
+  // the tokenization performed by the MetadataDataset and by the Elasticsearch metadata storage
+  private static final Pattern TOKEN_SEPARATOR_PATTERN = Pattern.compile("[-_,;.\\s]+");
+
+  private static final ScopedName SCHEMA_KEY = new ScopedName(MetadataScope.SYSTEM, MetadataConstants.SCHEMA_KEY);
+  private static final ScopedName TTL_KEY = new ScopedName(MetadataScope.SYSTEM, MetadataConstants.TTL_KEY);
+  private static final ScopedName CREATION_TIME_KEY = new ScopedName(MetadataScope.SYSTEM,
+                                                                     MetadataConstants.CREATION_TIME_KEY);
+
+  // separates the field name from the token in a term; it cannot occur in either of them
+  private static final char SEPARATOR = '\u0000';
+  static final String HIDDEN_TERM = "hidden";
+
+  private final String id;
+  private final MetadataEntity entity;
+  private final MetadataEntity resultEntity;
+  private final Metadata metadata;
+  private final String name;
+  private final Long created;
+  private final Set<String> terms;
+
+  private MetadataDocument(String id, MetadataEntity entity, MetadataEntity resultEntity, Metadata metadata,
+                           String name, @Nullable Long created, Set<String> terms) {
+    this.id = id;
+    this.entity = entity;
+    this.resultEntity = resultEntity;
+    this.metadata = metadata;
+    this.name = name;
+    this.created = created;
+    this.terms = terms;
+  }
+
+  /**
+   * @return the id of the document. Versioned entities have the same id regardless of their version.
+   */
+  String getId() {
+    return id;
+  }
+
+  /**
+   * @return the entity as it was given when the metadata was last changed
+   */
+  MetadataEntity getEntity() {
+    return entity;
+  }
+
+  /**
+   * @return the entity as it is returned by searches, with the default version for versioned entities
+   */
+  MetadataEntity getResultEntity() {
+    return resultEntity;
+  }
+
+  Metadata getMetadata() {
+    return metadata;
+  }
+
+  /**
+   * @return the lower case name of the entity, used for sorting by entity name
+   */
+  String getName() {
+    return name;
+  }
+
+  /**
+   * @return the creation time of the entity, used for sorting by creation time, or null if the entity has none
+   */
+  @Nullable
+  Long getCreated() {
+    return created;
+  }
+
+  /**
+   * @return all terms that this document is indexed by
+   */
+  Set<String> getTerms() {
+    return terms;
+  }
+
+  /**
+   * @return the prefix of all terms for the plain text of a scope
+   */
+  static String textField(MetadataScope scope) {
+    return scope.name() + SEPARATOR;
+  }
+
+  /**
+   * @return the prefix of all terms for a property in a scope
+   */
+  static String propertyField(MetadataScope scope, String name) {
+    return "props" + SEPARATOR + scope.name() + SEPARATOR + name + SEPARATOR;
+  }
+
+  static String namespaceTerm(String namespace) {
+    return "namespace" + SEPARATOR + namespace;
+  }
+
+  static String typeTerm(String type) {
+    return "type" + SEPARATOR + type;
+  }
+
+  static String ttlTerm(long ttl) {
+    return "ttl" + SEPARATOR + ttl;
+  }
+
+  /**
+   * Splits text into the lower case tokens that it is indexed by.
+   */
+  static List<String> tokenize(String text) {
+    return Arrays.stream(TOKEN_SEPARATOR_PATTERN.split(text.toLowerCase()))
+      .filter(token -> !token.isEmpty())
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * Computes the id of the document for an entity, ignoring the version of versioned entities.
+   */
+  static String toDocumentId(MetadataEntity entity) {
+    StringBuilder builder = new StringBuilder(entity.getType());
+    char sep = ':';
+    for (MetadataEntity.KeyValue kv : entity) {
+      if (MetadataUtil.isVersionedEntityType(entity.getType()) &&
+        MetadataEntity.VERSION.equalsIgnoreCase(kv.getKey())) {
+        continue;
+      }
+      builder.append(sep).append(kv.getKey()).append('=').append(kv.getValue());
+      sep = ',';
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Analyzes the metadata of an entity into a document.
+   */
+  static MetadataDocument of(MetadataEntity entity, Metadata metadata) {
+    return new Builder(entity).addMetadata(metadata).build();
+  }
+
+  /**
+   * Accumulates the terms and sort values of a document.
+   */
+  private static final class Builder {
+
+    private final MetadataEntity entity;
+    private final String namespace;
+    private final String type;
+    private final String name;
+    private final Set<String> terms = new HashSet<>();
+    private final List<String> userTags = new ArrayList<>();
+    private final List<String> systemTags = new ArrayList<>();
+    private final List<String> userPropertyNames = new ArrayList<>();
+    private final List<String> systemPropertyNames = new ArrayList<>();
+    private Metadata metadata = Metadata.EMPTY;
+    private Long created;
+    private Long ttl;
+
+    private Builder(MetadataEntity entity) {
+      this.entity = entity;
+      //noinspection ConstantConditions
+      this.namespace = entity.containsKey(MetadataEntity.NAMESPACE)
+        ? entity.getValue(MetadataEntity.NAMESPACE).toLowerCase() : null;
+      this.type = entity.getType().toLowerCase();
+      //noinspection ConstantConditions
+      this.name = entity.getValue(entity.getType()).toLowerCase();
+      addText(MetadataScope.SYSTEM, type);
+      addText(MetadataScope.SYSTEM, name);
+      addProperty(new ScopedName(MetadataScope.SYSTEM, type), name);
+    }
+
+    private void addText(MetadataScope scope, String text) {
+      addTerms(textField(scope), text);
+    }
+
+    private void addTerms(String field, String text) {
+      for (String token : tokenize(text)) {
+        terms.add(field + token);
+      }
+    }
+
+    private void addTag(ScopedName tag) {
+      String tagName = tag.getName().toLowerCase();
+      addText(tag.getScope(), tagName);
+      (MetadataScope.USER == tag.getScope() ? userTags : systemTags).add(tagName);
+    }
+
+    private void addProperty(ScopedName key, String value) {
+      String propertyName = key.getName().toLowerCase();
+      value = value.toLowerCase();
+      if (SCHEMA_KEY.equals(key)) {
+        value = parseSchema(entity, value);
+      }
+      addText(key.getScope(), value);
+      addTerms(propertyField(key.getScope(), propertyName), value);
+      (MetadataScope.USER == key.getScope() ? userPropertyNames : systemPropertyNames).add(propertyName);
+      if (CREATION_TIME_KEY.equals(key)) {
+        created = parseLong(key, value);
+      } else if (TTL_KEY.equals(key)) {
+        ttl = parseLong(key, value);
+      }
+    }
+
+    @Nullable
+    private Long parseLong(ScopedName key, String value) {
+      try {
+        return Long.parseLong(value);
+      } catch (NumberFormatException e) {
+        LOG.warn("Unable to parse property {} as long. Skipping indexing of {} for entity {}.",
+                 key, key.getName(), entity, e);
+        return null;
+      }
+    }
+
+    private static String parseSchema(MetadataEntity entity, String schemaStr) {
+      try {
+        Schema schema = Schema.parseJson(schemaStr);
+        StringBuilder builder = new StringBuilder();
+        SchemaWalker.walk(schema, (field, subSchema) -> {
+          if (field != null) {
+            String type = (subSchema.isNullable() ? subSchema.getNonNullable() : subSchema).getType().toString();
+            builder.append(field).append(' ')
+              .append(field).append(MetadataConstants.KEYVALUE_SEPARATOR).append(type).append(' ');
+          }
+        });
+        return builder.toString();
+      } catch (Exception e) {
+        LOG.warn("Unable to parse schema '{}' for entity {}. Indexing as plain text.", schemaStr, entity);
+        return schemaStr;
+      }
+    }
+
+    private Builder addMetadata(Metadata metadata) {
+      this.metadata = metadata;
+      metadata.getTags().forEach(this::addTag);
+      for (Map.Entry<ScopedName, String> property : metadata.getProperties().entrySet()) {
+        addProperty(property.getKey(), property.getValue());
+      }
+      return this;
+    }
+
+    private MetadataDocument build() {
+      addTerms(propertyField(MetadataScope.USER, MetadataConstants.TAGS_KEY), String.join(" ", userTags));
+      addTerms(propertyField(MetadataScope.SYSTEM, MetadataConstants.TAGS_KEY), String.join(" ", systemTags));
+      addTerms(propertyField(MetadataScope.USER, MetadataConstants.PROPERTIES_KEY),
+               String.join(" ", userPropertyNames));
+      addTerms(propertyField(MetadataScope.SYSTEM, MetadataConstants.PROPERTIES_KEY),
+               String.join(" ", systemPropertyNames));
+      if (namespace != null) {
+        terms.add(namespaceTerm(namespace));
+      }
+      terms.add(typeTerm(type));
+      if (ttl != null) {
+        terms.add(ttlTerm(ttl));
+      }
+      if (name.startsWith("_")) {
+        terms.add(HIDDEN_TERM);
+      }
+      return new MetadataDocument(toDocumentId(entity), entity, toResultEntity(entity), metadata,
+                                  name, created, terms);
+    }
+
+    /**
+     * Versioned entities are returned with the default version, because their metadata does not depend
+     * on the version.
+     */
+    private static MetadataEntity toResultEntity(MetadataEntity entity) {
+      if (!MetadataUtil.isVersionedEntityType(entity.getType())) {
+        return entity;
+      }
+      MetadataEntity.Builder builder = MetadataEntity.builder();
+      for (MetadataEntity.KeyValue kv : entity) {
+        if (MetadataEntity.VERSION.equalsIgnoreCase(kv.getKey())) {
+          continue;
+        }
+        if (kv.getKey().equals(entity.getType())) {
+          builder.appendAsType(kv.getKey(), kv.getValue());
+        } else {
+          builder.append(kv.getKey(), kv.getValue());
+        }
+      }
+      return MetadataUtil.addVersionIfNeeded(builder.build());
+    }
+  }
+}
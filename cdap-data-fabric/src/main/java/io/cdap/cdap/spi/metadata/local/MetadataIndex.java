@@ -0,0 +1,340 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.spi.metadata.local;
+
+import com.google.common.collect.Iterators;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+/**
+ * An in-memory inverted index of {@link MetadataDocument}s.
+ *
+ * The term dictionary is sorted, so that a wildcard term only visits the terms that begin with its literal prefix.
+ * Every term maps to the {@link PostingList} of the documents that contain it, and queries combine the posting
+ * lists as bit sets of document numbers. Documents are also kept sorted by name and by creation time, so that a
+ * sorted search can return a page of results without sorting all matches.
+ *
+ * Every version of a document gets a new number, and the numbers of replaced or removed documents are reclaimed
+ * by renumbering all documents once there are more of them than live documents.
+ * This class is not thread safe.
+ */
+final class MetadataIndex {
+
+  private static final int MIN_REMOVED_TO_RENUMBER = 1024;
+  // when fewer than one in this many documents match, sorting the matches is cheaper than walking the sort order
+  private static final int SORT_MATCHES_RATIO = 8;
+
+  private static final Comparator<Entry> NAME_ORDER =
+    Comparator.comparing((Entry entry) -> entry.doc.getName()).thenComparing(entry -> entry.doc.getId());
+  @SuppressWarnings("ConstantConditions")
+  private static final Comparator<Entry> CREATED_ORDER =
+    Comparator.comparingLong((Entry entry) -> entry.doc.getCreated()).thenComparing(entry -> entry.doc.getId());
+
+  private final NavigableMap<String, PostingList> dictionary = new TreeMap<>();
+  private final Map<String, Entry> byId = new HashMap<>();
+  private final NavigableSet<Entry> byName = new TreeSet<>(NAME_ORDER);
+  // only contains the documents that have a creation time
+  private final NavigableSet<Entry> byCreated = new TreeSet<>(CREATED_ORDER);
+  private final BitSet live = new BitSet();
+  private Entry[] entries = new Entry[16];
+  private int nextNumber;
+
+  /**
+   * @return the document with the given id, or null if there is none
+   */
+  @Nullable
+  MetadataDocument get(String id) {
+    Entry entry = byId.get(id);
+    return entry == null ? null : entry.doc;
+  }
+
+  /**
+   * @return the document with the given number
+   */
+  MetadataDocument get(int number) {
+    return entries[number].doc;
+  }
+
+  /**
+   * @return the number of documents in the index
+   */
+  int size() {
+    return byId.size();
+  }
+
+  /**
+   * @return an upper bound for the numbers of all documents in the index
+   */
+  int maxNumber() {
+    return nextNumber;
+  }
+
+  /**
+   * @return all documents in the index
+   */
+  Collection<MetadataDocument> documents() {
+    return byId.values().stream().map(entry -> entry.doc).collect(Collectors.toList());
+  }
+
+  /**
+   * Adds a document to the index, replacing the document with the same id if there is one.
+   */
+  void put(MetadataDocument doc) {
+    Entry existing = byId.get(doc.getId());
+    if (existing != null) {
+      unindex(existing);
+    }
+    Entry entry = new Entry(nextNumber++, doc);
+    if (entry.number == entries.length) {
+      entries = Arrays.copyOf(entries, entries.length * 2);
+    }
+    entries[entry.number] = entry;
+    live.set(entry.number);
+    byId.put(doc.getId(), entry);
+    byName.add(entry);
+    if (doc.getCreated() != null) {
+      byCreated.add(entry);
+    }
+    for (String term : doc.getTerms()) {
+      dictionary.computeIfAbsent(term, t -> new PostingList()).add(entry.number);
+    }
+    if (existing != null) {
+      renumberIfNeeded();
+    }
+  }
+
+  /**
+   * Removes the document with the given id from the index, if there is one.
+   */
+  void remove(String id) {
+    Entry entry = byId.remove(id);
+    if (entry != null) {
+      unindex(entry);
+      renumberIfNeeded();
+    }
+  }
+
+  /**
+   * Removes all documents from the index.
+   */
+  void clear() {
+    dictionary.clear();
+    byId.clear();
+    byName.clear();
+    byCreated.clear();
+    live.clear();
+    entries = new Entry[16];
+    nextNumber = 0;
+  }
+
+  /**
+   * @return the numbers of all documents in the index
+   */
+  BitSet all() {
+    return (BitSet) live.clone();
+  }
+
+  /**
+   * @return the numbers of all documents that contain the given term
+   */
+  BitSet term(String term) {
+    BitSet result = new BitSet();
+    PostingList list = dictionary.get(term);
+    if (list != null) {
+      list.addTo(result);
+      result.and(live);
+    }
+    return result;
+  }
+
+  /**
+   * Finds the documents that contain a term of a field that matches a wildcard pattern.
+   *
+   * @param field the prefix of all terms of the field
+   * @param pattern the pattern for the remainder of the term, where '*' matches any number of characters
+   *                and '?' matches a single character
+   *
+   * @return the numbers of all documents that contain a matching term
+   */
+  BitSet wildcard(String field, String pattern) {
+    int wildcard = 0;
+    while (wildcard < pattern.length() && pattern.charAt(wildcard) != '*' && pattern.charAt(wildcard) != '?') {
+      wildcard++;
+    }
+    String prefix = field + pattern.substring(0, wildcard);
+    Pattern regex = toRegex(pattern.substring(wildcard));
+    BitSet result = new BitSet();
+    for (Map.Entry<String, PostingList> entry : dictionary.tailMap(prefix, true).entrySet()) {
+      if (!entry.getKey().startsWith(prefix)) {
+        break;
+      }
+      if (regex.matcher(entry.getKey()).region(prefix.length(), entry.getKey().length()).matches()) {
+        entry.getValue().addTo(result);
+      }
+    }
+    result.and(live);
+    return result;
+  }
+
+  private static Pattern toRegex(String pattern) {
+    StringBuilder regex = new StringBuilder();
+    StringBuilder literal = new StringBuilder();
+    for (char c : pattern.toCharArray()) {
+      if (c != '*' && c != '?') {
+        literal.append(c);
+        continue;
+      }
+      if (literal.length() > 0) {
+        regex.append(Pattern.quote(literal.toString()));
+        literal.setLength(0);
+      }
+      regex.append(c == '*' ? ".*" : ".");
+    }
+    if (literal.length() > 0) {
+      regex.append(Pattern.quote(literal.toString()));
+    }
+    return Pattern.compile(regex.toString(), Pattern.DOTALL);
+  }
+
+  /**
+   * Returns a page of the matching documents, sorted by name or by creation time. Documents that have no
+   * creation time are sorted by name after all documents that have one, regardless of the sort order.
+   *
+   * @param matches the numbers of the matching documents
+   * @param byCreationTime whether to sort by creation time rather than by name
+   * @param descending whether to sort in descending order
+   * @param offset the number of sorted matches to skip
+   * @param limit the maximum number of documents to return
+   */
+  List<MetadataDocument> sorted(BitSet matches, boolean byCreationTime, boolean descending, int offset, int limit) {
+    int count = matches.cardinality();
+    if (offset >= count || limit <= 0) {
+      return Collections.emptyList();
+    }
+    int end = (int) Math.min((long) offset + limit, count);
+    List<MetadataDocument> result = new ArrayList<>(end - offset);
+
+    if ((long) count * SORT_MATCHES_RATIO < size()) {
+      // only few documents match: sort them
+      List<Entry> matching = new ArrayList<>(count);
+      for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+        matching.add(entries[i]);
+      }
+      Comparator<Entry> order;
+      if (byCreationTime) {
+        Comparator<Entry> createdOrder = descending ? CREATED_ORDER.reversed() : CREATED_ORDER;
+        order = (entry1, entry2) -> {
+          if (entry1.doc.getCreated() == null || entry2.doc.getCreated() == null) {
+            return entry1.doc.getCreated() != null ? -1
+              : entry2.doc.getCreated() != null ? 1 : NAME_ORDER.compare(entry1, entry2);
+          }
+          return createdOrder.compare(entry1, entry2);
+        };
+      } else {
+        order = descending ? NAME_ORDER.reversed() : NAME_ORDER;
+      }
+      matching.sort(order);
+      for (Entry entry : matching.subList(offset, end)) {
+        result.add(entry.doc);
+      }
+      return result;
+    }
+
+    // walk the documents in sort order, until the page is complete
+    Iterator<Entry> iterator;
+    if (byCreationTime) {
+      Iterator<Entry> withCreated = (descending ? byCreated.descendingSet() : byCreated).iterator();
+      Iterator<Entry> withoutCreated = byName.stream().filter(entry -> entry.doc.getCreated() == null).iterator();
+      iterator = Iterators.concat(withCreated, withoutCreated);
+    } else {
+      iterator = (descending ? byName.descendingSet() : byName).iterator();
+    }
+    int position = 0;
+    while (position < end && iterator.hasNext()) {
+      Entry entry = iterator.next();
+      if (!matches.get(entry.number)) {
+        continue;
+      }
+      if (position++ >= offset) {
+        result.add(entry.doc);
+      }
+    }
+    return result;
+  }
+
+  private void unindex(Entry entry) {
+    live.clear(entry.number);
+    entries[entry.number] = null;
+    byName.remove(entry);
+    byCreated.remove(entry);
+    for (String term : entry.doc.getTerms()) {
+      PostingList list = dictionary.get(term);
+      if (list.markRemoved()) {
+        list.compact(live);
+        if (list.isEmpty()) {
+          dictionary.remove(term);
+        }
+      }
+    }
+  }
+
+  /**
+   * Renumbers all documents if there are more numbers of removed documents than live documents.
+   */
+  private void renumberIfNeeded() {
+    int removed = nextNumber - size();
+    if (removed < MIN_REMOVED_TO_RENUMBER || removed < size()) {
+      return;
+    }
+    List<MetadataDocument> docs = new ArrayList<>(size());
+    for (int i = live.nextSetBit(0); i >= 0; i = live.nextSetBit(i + 1)) {
+      docs.add(entries[i].doc);
+    }
+    clear();
+    entries = new Entry[Math.max(16, docs.size() * 2)];
+    docs.forEach(this::put);
+  }
+
+  /**
+   * A document along with its number.
+   */
+  private static final class Entry {
+    private final int number;
+    private final MetadataDocument doc;
+
+    private Entry(int number, MetadataDocument doc) {
+      this.number = number;
+      this.doc = doc;
+    }
+  }
+}
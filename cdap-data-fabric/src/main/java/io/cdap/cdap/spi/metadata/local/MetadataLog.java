@@ -0,0 +1,301 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.spi.metadata.local;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import io.cdap.cdap.api.metadata.MetadataEntity;
+import io.cdap.cdap.spi.metadata.Metadata;
+import io.cdap.cdap.spi.metadata.MetadataCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiConsumer;
+import javax.annotation.Nullable;
+
+/**
+ * Persists the metadata of a {@link LocalMetadataStorage} in a local directory, as a snapshot of the metadata
+ * of all entities, followed by a log of the changes since the snapshot was taken. Every record holds the complete
+ * metadata of an entity after a change, or no metadata if the entity was dropped, hence replaying a record more
+ * than once has no effect.
+ *
+ * Appended records are buffered until {@link #flush()} is called. A record that was only partially written
+ * when the process died is discarded when the log is opened again.
+ *
+ * A snapshot is taken in two steps: {@link #rotate()} moves the log aside and starts a new one, then
+ * {@link #snapshot(Iterable)} writes the snapshot and deletes the rotated log. Only the second step writes all
+ * metadata, and it can run concurrently with appends to the new log. Until it completes, the rotated log is
+ * replayed before the new log when the log is opened.
+ *
+ * The directory is locked with a file lock while the log is open, so that no other process can use it.
+ * Apart from {@link #snapshot(Iterable)} as described above, this class is not thread safe.
+ */
+final class MetadataLog implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MetadataLog.class);
+  private static final Gson GSON = new GsonBuilder().registerTypeAdapter(Metadata.class, new MetadataCodec()).create();
+
+  private static final String SNAPSHOT_FILE = "metadata.snapshot";
+  private static final String LOG_FILE = "metadata.log";
+  private static final String ROTATED_LOG_FILE = "metadata.log.rotated";
+  private static final String LOCK_FILE = "metadata.lock";
+
+  private final File dir;
+  private final File snapshotFile;
+  private final File logFile;
+  private final File rotatedLogFile;
+  private FileChannel lockChannel;
+  private DataOutputStream out;
+  private int numRecords;
+
+  MetadataLog(File dir) {
+    this.dir = dir;
+    this.snapshotFile = new File(dir, SNAPSHOT_FILE);
+    this.logFile = new File(dir, LOG_FILE);
+    this.rotatedLogFile = new File(dir, ROTATED_LOG_FILE);
+  }
+
+  /**
+   * Reads the snapshot and all changes since, and opens the log for appending.
+   *
+   * @param consumer called with every entity and its metadata, or null metadata if the entity was dropped
+   */
+  void open(BiConsumer<MetadataEntity, Metadata> consumer) throws IOException {
+    lock();
+    try {
+      if (snapshotFile.exists()) {
+        read(snapshotFile, consumer);
+      }
+      numRecords = 0;
+      // a rotated log is left behind if the process died before the snapshot was written
+      replay(rotatedLogFile, consumer);
+      replay(logFile, consumer);
+      out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logFile, true)));
+    } catch (IOException | RuntimeException e) {
+      close();
+      throw e;
+    }
+  }
+
+  /**
+   * @return the number of records in the log since the last snapshot
+   */
+  int getNumRecords() {
+    return numRecords;
+  }
+
+  /**
+   * Appends a record for the metadata of an entity after a change.
+   *
+   * @param metadata the new metadata, or null if the entity was dropped
+   */
+  void append(MetadataEntity entity, @Nullable Metadata metadata) throws IOException {
+    write(out, entity, metadata);
+    numRecords++;
+  }
+
+  /**
+   * Flushes all appended records to the file system.
+   */
+  void flush() throws IOException {
+    out.flush();
+  }
+
+  /**
+   * Moves the current log aside and starts a new, empty log. The given metadata must be written with
+   * {@link #snapshot(Iterable)} afterwards, with the metadata of all entities as of the time of this call.
+   */
+  void rotate() throws IOException {
+    out.close();
+    if (rotatedLogFile.exists()) {
+      // the previous snapshot failed, hence its rotated log is still needed. Append the log to it, so that
+      // replaying it still gives the latest metadata if the process dies before the log is deleted.
+      try (FileOutputStream rotatedOut = new FileOutputStream(rotatedLogFile, true)) {
+        Files.copy(logFile.toPath(), rotatedOut);
+        rotatedOut.getFD().sync();
+      }
+      Files.delete(logFile.toPath());
+    } else {
+      Files.move(logFile.toPath(), rotatedLogFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    }
+    out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logFile, false)));
+    numRecords = 0;
+  }
+
+  /**
+   * Replaces the snapshot with the given documents, and deletes the log that was moved aside by
+   * {@link #rotate()}. This does not use the current log, and can be called while records are appended to it.
+   */
+  void snapshot(Iterable<MetadataDocument> documents) throws IOException {
+    File tmpFile = new File(snapshotFile.getPath() + ".tmp");
+    try (FileOutputStream fileOut = new FileOutputStream(tmpFile)) {
+      DataOutputStream snapshotOut = new DataOutputStream(new BufferedOutputStream(fileOut));
+      for (MetadataDocument doc : documents) {
+        write(snapshotOut, doc.getEntity(), doc.getMetadata());
+      }
+      snapshotOut.flush();
+      fileOut.getFD().sync();
+    }
+    Files.move(tmpFile.toPath(), snapshotFile.toPath(),
+               StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    // if the process dies before the rotated log is deleted, it is replayed on top of the new snapshot
+    Files.deleteIfExists(rotatedLogFile.toPath());
+  }
+
+  /**
+   * Closes the log and deletes all files.
+   */
+  void delete() throws IOException {
+    lock();
+    try {
+      if (out != null) {
+        out.close();
+        out = null;
+      }
+      Files.deleteIfExists(logFile.toPath());
+      Files.deleteIfExists(rotatedLogFile.toPath());
+      Files.deleteIfExists(snapshotFile.toPath());
+    } finally {
+      close();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if (out != null) {
+        out.close();
+        out = null;
+      }
+    } finally {
+      if (lockChannel != null) {
+        // closing the channel releases the lock
+        lockChannel.close();
+        lockChannel = null;
+      }
+    }
+  }
+
+  /**
+   * Locks the directory, so that it cannot be used by another process at the same time.
+   *
+   * @throws IOException if the directory is locked by another process, or if it cannot be locked
+   */
+  private void lock() throws IOException {
+    if (lockChannel != null) {
+      return;
+    }
+    FileChannel channel = FileChannel.open(new File(dir, LOCK_FILE).toPath(),
+                                           StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    FileLock fileLock;
+    try {
+      fileLock = channel.tryLock();
+    } catch (OverlappingFileLockException e) {
+      // locked by another storage in this process
+      fileLock = null;
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+    if (fileLock == null) {
+      channel.close();
+      throw new IOException(String.format("Directory %s of the local metadata storage is in use by another process. " +
+                                            "The local metadata storage can only be used by a single process.", dir));
+    }
+    lockChannel = channel;
+  }
+
+  /**
+   * Reads all complete records from a log, and discards an incomplete record at its end.
+   */
+  private void replay(File file, BiConsumer<MetadataEntity, Metadata> consumer) throws IOException {
+    if (!file.exists()) {
+      return;
+    }
+    long length = read(file, (entity, metadata) -> {
+      numRecords++;
+      consumer.accept(entity, metadata);
+    });
+    if (length < file.length()) {
+      LOG.warn("Discarding incomplete record at the end of metadata log {}", file);
+      try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+        randomAccessFile.setLength(length);
+      }
+    }
+  }
+
+  private static void write(DataOutputStream out, MetadataEntity entity, @Nullable Metadata metadata)
+    throws IOException {
+    byte[] bytes = GSON.toJson(new Record(entity, metadata)).getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Reads all complete records from a file.
+   *
+   * @return the length of the file up to the end of the last complete record
+   */
+  private static long read(File file, BiConsumer<MetadataEntity, Metadata> consumer) throws IOException {
+    long length = 0L;
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      while (true) {
+        byte[] bytes;
+        try {
+          bytes = new byte[in.readInt()];
+          in.readFully(bytes);
+        } catch (EOFException e) {
+          return length;
+        }
+        Record record = GSON.fromJson(new String(bytes, StandardCharsets.UTF_8), Record.class);
+        consumer.accept(record.entity, record.metadata);
+        length += Integer.BYTES + bytes.length;
+      }
+    }
+  }
+
+  /**
+   * A record in the snapshot or the log.
+   */
+  private static final class Record {
+    private final MetadataEntity entity;
+    private final Metadata metadata;
+
+    private Record(MetadataEntity entity, @Nullable Metadata metadata) {
+      this.entity = entity;
+      this.metadata = metadata;
+    }
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.spi.metadata.local;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The sorted numbers of the documents that contain a term.
+ *
+ * Documents are numbered in the order in which they are indexed, hence new documents are always appended.
+ * Documents that are removed from the index are not removed from the list right away, but only counted.
+ * Once most of the entries belong to removed documents, the list is compacted.
+ * This class is not thread safe.
+ */
+final class PostingList {
+
+  private static final int INITIAL_CAPACITY = 4;
+
+  private int[] docs = new int[INITIAL_CAPACITY];
+  private int size;
+  private int removed;
+
+  /**
+   * Adds a document, which must have a greater number than all documents in the list.
+   */
+  void add(int doc) {
+    if (size > 0 && docs[size - 1] >= doc) {
+      // should never happen: developer error
+      throw new IllegalStateException("Document " + doc + " is not greater than the last document " + docs[size - 1]);
+    }
+    if (size == docs.length) {
+      docs = Arrays.copyOf(docs, size * 2);
+    }
+    docs[size++] = doc;
+  }
+
+  /**
+   * Records that one of the documents in the list was removed from the index.
+   *
+   * @return whether the list should be compacted
+   */
+  boolean markRemoved() {
+    return ++removed * 2 > size;
+  }
+
+  /**
+   * Removes all documents from the list that are not live.
+   */
+  void compact(BitSet live) {
+    int newSize = 0;
+    for (int i = 0; i < size; i++) {
+      if (live.get(docs[i])) {
+        docs[newSize++] = docs[i];
+      }
+    }
+    size = newSize;
+    removed = 0;
+    if (docs.length > INITIAL_CAPACITY && size < docs.length / 4) {
+      docs = Arrays.copyOf(docs, Math.max(INITIAL_CAPACITY, size * 2));
+    }
+  }
+
+  boolean isEmpty() {
+    return size == removed;
+  }
+
+  /**
+   * Sets the bits of all documents in the list, including documents that were removed from the index.
+   */
+  void addTo(BitSet bits) {
+    for (int i = 0; i < size; i++) {
+      bits.set(docs[i]);
+    }
+  }
+}
@@ -61,7 +61,7 @@ public final class StoreDefinition {
     DatasetTypeStore.createTables(tableAdmin, overWrite);
     LineageStore.createTable(tableAdmin, overWrite);
     JobQueueStore.createTables(tableAdmin, overWrite);
-    TimeScheduleStore.createTables(tableAdmin, overWrite);
+    TimeTriggerStore.createTables(tableAdmin, overWrite);
     RemoteRuntimeStore.createTables(tableAdmin, overWrite);
     ProgramHeartbeatStore.createTables(tableAdmin, overWrite);
     LogCheckpointStore.createTable(tableAdmin, overWrite);
@@ -365,11 +365,28 @@ public final class StoreDefinition {
                        PROGRAM_TYPE_FIELD, PROGRAM_FIELD, RUN_FIELD, KEY_TYPE)
       .build();
 
+    public static final StructuredTableId IDLE_CLUSTER_TABLE = new StructuredTableId("provisioner_idle_clusters");
+    public static final String REUSE_KEY_FIELD = "reuse_key";
+    public static final String IDLE_SINCE_FIELD = "idle_since";
+    public static final String IDLE_CLUSTER_INFO_FIELD = "idle_cluster_info";
+
+    public static final StructuredTableSpecification IDLE_CLUSTER_SPEC = new StructuredTableSpecification.Builder()
+      .withId(IDLE_CLUSTER_TABLE)
+      .withFields(Fields.stringType(REUSE_KEY_FIELD),
+                  Fields.stringType(RUN_FIELD),
+                  Fields.longType(IDLE_SINCE_FIELD),
+                  Fields.stringType(IDLE_CLUSTER_INFO_FIELD))
+      .withPrimaryKeys(REUSE_KEY_FIELD, RUN_FIELD)
+      .build();
+
     public static void createTable(StructuredTableAdmin tableAdmin,
                                    boolean overWrite) throws IOException, TableAlreadyExistsException {
       if (overWrite || tableAdmin.getSpecification(PROVISIONER_TABLE) == null) {
         tableAdmin.create(PROVISIONER_STORE_SPEC);
       }
+      if (overWrite || tableAdmin.getSpecification(IDLE_CLUSTER_TABLE) == null) {
+        tableAdmin.create(IDLE_CLUSTER_SPEC);
+      }
     }
   }
   /**
@@ -789,29 +806,46 @@ public final class StoreDefinition {
   }
 
   /**
-   * Schema for time schedules.
+   * Schema for time triggers of schedules, with the next time that each trigger fires.
    */
-  public static final class TimeScheduleStore {
+  public static final class TimeTriggerStore {
 
-    public static final StructuredTableId SCHEDULES = new StructuredTableId("schedules");
+    public static final StructuredTableId TIME_TRIGGERS = new StructuredTableId("time_triggers");
 
-    public static final String TYPE_FIELD = "type";
-    public static final String NAME_FIELD = "name";
-    public static final String VALUE_FIELD = "value";
-
-    public static final StructuredTableSpecification SCHEDULES_SPEC =
+    public static final String NAMESPACE_FIELD = "namespace";
+    public static final String APPLICATION_FIELD = "application";
+    public static final String VERSION_FIELD = "version";
+    public static final String PROGRAM_TYPE_FIELD = "program_type";
+    public static final String PROGRAM_FIELD = "program";
+    public static final String SCHEDULE_FIELD = "schedule";
+    public static final String CRON_EXPRESSION_FIELD = "cron_expression";
+    public static final String COMPOSITE_FIELD = "composite";
+    public static final String STATUS_FIELD = "status";
+    public static final String NEXT_FIRE_TIME_FIELD = "next_fire_time";
+    public static final String PREVIOUS_FIRE_TIME_FIELD = "previous_fire_time";
+
+    public static final StructuredTableSpecification TIME_TRIGGERS_SPEC =
       new StructuredTableSpecification.Builder()
-        .withId(SCHEDULES)
-        .withFields(Fields.stringType(TYPE_FIELD),
-                    Fields.stringType(NAME_FIELD),
-                    Fields.bytesType(VALUE_FIELD))
-        .withPrimaryKeys(TYPE_FIELD, NAME_FIELD)
+        .withId(TIME_TRIGGERS)
+        .withFields(Fields.stringType(NAMESPACE_FIELD),
+                    Fields.stringType(APPLICATION_FIELD),
+                    Fields.stringType(VERSION_FIELD),
+                    Fields.stringType(PROGRAM_TYPE_FIELD),
+                    Fields.stringType(PROGRAM_FIELD),
+                    Fields.stringType(SCHEDULE_FIELD),
+                    Fields.stringType(CRON_EXPRESSION_FIELD),
+                    Fields.intType(COMPOSITE_FIELD),
+                    Fields.stringType(STATUS_FIELD),
+                    Fields.longType(NEXT_FIRE_TIME_FIELD),
+                    Fields.longType(PREVIOUS_FIRE_TIME_FIELD))
+        .withPrimaryKeys(NAMESPACE_FIELD, APPLICATION_FIELD, VERSION_FIELD, PROGRAM_TYPE_FIELD, PROGRAM_FIELD,
+                         SCHEDULE_FIELD, CRON_EXPRESSION_FIELD)
         .build();
 
     public static void createTables(StructuredTableAdmin tableAdmin,
                                     boolean overWrite) throws IOException, TableAlreadyExistsException {
-      if (overWrite || tableAdmin.getSpecification(SCHEDULES) == null) {
-        tableAdmin.create(SCHEDULES_SPEC);
+      if (overWrite || tableAdmin.getSpecification(TIME_TRIGGERS) == null) {
+        tableAdmin.create(TIME_TRIGGERS_SPEC);
       }
     }
   }
@@ -828,6 +828,278 @@ public class IndexedTableTest {
       dsFrameworkUtil.deleteInstance(incrTabInstance);
     }
   }
+  @Test
+  public void testBatchedIndexReads() throws Exception {
+    DatasetId batchTabInstance = DatasetFrameworkTestUtil.NAMESPACE_ID.dataset("batchtab");
+    dsFrameworkUtil.createInstance("indexedTable", batchTabInstance, DatasetProperties.builder()
+      .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, idxColString)
+      .add(IndexedTable.INDEX_SCAN_BATCH_SIZE, "3")
+      .build());
+    final IndexedTable iTable = dsFrameworkUtil.getInstance(batchTabInstance);
+    final int numRows = 20;
+
+    try {
+      TransactionExecutor tx = dsFrameworkUtil.newTransactionExecutor(iTable);
+      tx.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          // rows with even numbers are indexed with idx1, the others with idx2
+          for (int i = 0; i < numRows; i++) {
+            iTable.put(new Put(Bytes.toBytes(i)).add(idxCol, i % 2 == 0 ? idx1 : idx2).add(valCol, Bytes.toBytes(i)));
+          }
+        }
+      });
+
+      tx.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          // rows are returned in the order of the index, across multiple batches
+          try (Scanner scanner = iTable.readByIndex(idxCol, idx1)) {
+            for (int i = 0; i < numRows; i += 2) {
+              TableAssert.assertRow(scanner.next(), Bytes.toBytes(i), colIdxVal,
+                                    new byte[][] { idx1, Bytes.toBytes(i) });
+            }
+            assertEmpty(scanner);
+          }
+          try (Scanner scanner = iTable.scanByIndex(idxCol, null, null, new byte[][] { valCol })) {
+            for (int i = 0; i < numRows; i++) {
+              int expected = i < numRows / 2 ? i * 2 : (i - numRows / 2) * 2 + 1;
+              TableAssert.assertRow(scanner.next(), Bytes.toBytes(expected), new byte[][] { valCol },
+                                    new byte[][] { Bytes.toBytes(expected) });
+            }
+            assertEmpty(scanner);
+          }
+        }
+      });
+    } finally {
+      dsFrameworkUtil.deleteInstance(batchTabInstance);
+    }
+  }
+
+  @Test
+  public void testCoveredColumns() throws Exception {
+    DatasetId coveredTabInstance = DatasetFrameworkTestUtil.NAMESPACE_ID.dataset("coveredtab");
+    dsFrameworkUtil.createInstance("indexedTable", coveredTabInstance, DatasetProperties.builder()
+      .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, idxColString)
+      .build());
+    final IndexedTable iTable = dsFrameworkUtil.getInstance(coveredTabInstance);
+    final byte[] countCol = { 'c', 'n', 't' };
+    final byte[][] coveredCols = { valCol, countCol };
+    final byte[] valCC = { 'c', 'c' };
+
+    try {
+      TransactionExecutor tx = dsFrameworkUtil.newTransactionExecutor(iTable);
+      tx.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          iTable.put(new Put(keyA).add(idxCol, idx1).add(valCol, valA).add(countCol, Bytes.toBytes(1L)));
+          iTable.put(new Put(keyB).add(idxCol, idx1).add(valCol, valB));
+          iTable.put(new Put(keyC).add(idxCol, idx2).add(valCol, valC));
+        }
+      });
+
+      // make the index covering for the existing dataset
+      dsFrameworkUtil.getFramework().updateInstance(coveredTabInstance, DatasetProperties.builder()
+        .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, idxColString)
+        .add(IndexedTable.COVERED_COLUMNS_CONF_KEY, "val,cnt")
+        .build());
+      final IndexedTable coveredTable = dsFrameworkUtil.getInstance(coveredTabInstance);
+      tx = dsFrameworkUtil.newTransactionExecutor(coveredTable);
+
+      // the existing index rows do not have the covered values yet, and are read from the data table
+      final TransactionExecutor.Subroutine verifyInitial = new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          try (Scanner scanner = coveredTable.readByIndex(idxCol, idx1, coveredCols)) {
+            TableAssert.assertRow(scanner.next(), keyA, coveredCols, new byte[][] { valA, Bytes.toBytes(1L) });
+            TableAssert.assertRow(scanner.next(), keyB, new byte[][] { valCol }, new byte[][] { valB });
+            assertEmpty(scanner);
+          }
+          try (Scanner scanner = coveredTable.scanByIndex(idxCol, idx2, null, new byte[][] { valCol })) {
+            TableAssert.assertRow(scanner.next(), keyC, new byte[][] { valCol }, new byte[][] { valC });
+            assertEmpty(scanner);
+          }
+        }
+      };
+      tx.execute(verifyInitial);
+
+      // rewrite the index rows, one data row at a time
+      tx.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          byte[] startRow = null;
+          int count = 0;
+          do {
+            startRow = coveredTable.updateCoveredColumns(startRow, null, 1);
+            count++;
+          } while (startRow != null);
+          assertEquals(3, count);
+        }
+      });
+      tx.execute(verifyInitial);
+
+      tx.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          // update covered values with all kinds of mutations
+          coveredTable.put(keyB, countCol, Bytes.toBytes(5L));
+          coveredTable.incrementAndGet(keyA, countCol, 2L);
+          coveredTable.delete(keyA, valCol);
+          Assert.assertTrue(coveredTable.compareAndSwap(keyC, valCol, valC, valCC));
+          // move a row to another index value
+          coveredTable.put(keyB, idxCol, idx2);
+
+          try {
+            coveredTable.increment(keyA, countCol, 1L);
+            fail("Expected IllegalArgumentException performing increment on covered column");
+          } catch (IllegalArgumentException iae) {
+            // expected
+          }
+        }
+      });
+
+      tx.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          try (Scanner scanner = coveredTable.readByIndex(idxCol, idx1, coveredCols)) {
+            TableAssert.assertRow(scanner.next(), keyA, new byte[][] { countCol }, new byte[][] { Bytes.toBytes(3L) });
+            assertEmpty(scanner);
+          }
+          try (Scanner scanner = coveredTable.readByIndex(idxCol, idx2, coveredCols)) {
+            TableAssert.assertRow(scanner.next(), keyB, coveredCols, new byte[][] { valB, Bytes.toBytes(5L) });
+            TableAssert.assertRow(scanner.next(), keyC, new byte[][] { valCol }, new byte[][] { valCC });
+            assertEmpty(scanner);
+          }
+          // reading a column that is not covered goes to the data table
+          try (Scanner scanner = coveredTable.readByIndex(idxCol, idx2, new byte[][] { idxCol, valCol })) {
+            TableAssert.assertRow(scanner.next(), keyB, colIdxVal, new byte[][] { idx2, valB });
+            TableAssert.assertRow(scanner.next(), keyC, colIdxVal, new byte[][] { idx2, valCC });
+            assertEmpty(scanner);
+          }
+
+          coveredTable.delete(keyB);
+          try (Scanner scanner = coveredTable.readByIndex(idxCol, idx2, coveredCols)) {
+            TableAssert.assertRow(scanner.next(), keyC, new byte[][] { valCol }, new byte[][] { valCC });
+            assertEmpty(scanner);
+          }
+        }
+      });
+    } finally {
+      dsFrameworkUtil.deleteInstance(coveredTabInstance);
+    }
+  }
+
+  @Test
+  public void testCoveredColumnsToggled() throws Exception {
+    DatasetId toggledTabInstance = DatasetFrameworkTestUtil.NAMESPACE_ID.dataset("toggledtab");
+    DatasetProperties coveringProperties = DatasetProperties.builder()
+      .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, idxColString)
+      .add(IndexedTable.COVERED_COLUMNS_CONF_KEY, "val")
+      .build();
+    dsFrameworkUtil.createInstance("indexedTable", toggledTabInstance, coveringProperties);
+    final byte[][] coveredCols = { valCol };
+
+    try {
+      final IndexedTable coveringTable = dsFrameworkUtil.getInstance(toggledTabInstance);
+      dsFrameworkUtil.newTransactionExecutor(coveringTable).execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          coveringTable.put(new Put(keyA).add(idxCol, idx1).add(valCol, valA));
+        }
+      });
+
+      // turn covering off, and move the row to another index value and back while changing the covered value
+      dsFrameworkUtil.getFramework().updateInstance(toggledTabInstance, DatasetProperties.builder()
+        .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, idxColString)
+        .build());
+      final IndexedTable plainTable = dsFrameworkUtil.getInstance(toggledTabInstance);
+      dsFrameworkUtil.newTransactionExecutor(plainTable).execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          plainTable.put(keyA, idxCol, idx2);
+          plainTable.put(keyA, valCol, valB);
+          plainTable.put(keyA, idxCol, idx1);
+        }
+      });
+
+      // turn covering on again, the index row must not have kept the covered value written before
+      dsFrameworkUtil.getFramework().updateInstance(toggledTabInstance, coveringProperties);
+      final IndexedTable recoveringTable = dsFrameworkUtil.getInstance(toggledTabInstance);
+      dsFrameworkUtil.newTransactionExecutor(recoveringTable).execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          try (Scanner scanner = recoveringTable.readByIndex(idxCol, idx1, coveredCols)) {
+            TableAssert.assertRow(scanner.next(), keyA, coveredCols, new byte[][] { valB });
+            assertEmpty(scanner);
+          }
+          try (Scanner scanner = recoveringTable.readByIndex(idxCol, idx2, coveredCols)) {
+            assertEmpty(scanner);
+          }
+        }
+      });
+    } finally {
+      dsFrameworkUtil.deleteInstance(toggledTabInstance);
+    }
+  }
+
+  @Test
+  public void testCoveredColumnsChangedWhileNotCovering() throws Exception {
+    DatasetId staleTabInstance = DatasetFrameworkTestUtil.NAMESPACE_ID.dataset("staletab");
+    DatasetProperties coveringProperties = DatasetProperties.builder()
+      .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, idxColString)
+      .add(IndexedTable.COVERED_COLUMNS_CONF_KEY, "val")
+      .build();
+    dsFrameworkUtil.createInstance("indexedTable", staleTabInstance, coveringProperties);
+    final byte[][] coveredCols = { valCol };
+
+    try {
+      final IndexedTable coveringTable = dsFrameworkUtil.getInstance(staleTabInstance);
+      dsFrameworkUtil.newTransactionExecutor(coveringTable).execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          coveringTable.put(new Put(keyA).add(idxCol, idx1).add(valCol, valA));
+        }
+      });
+
+      // turn covering off, and only change the covered value, which leaves the index row untouched
+      dsFrameworkUtil.getFramework().updateInstance(staleTabInstance, DatasetProperties.builder()
+        .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, idxColString)
+        .build());
+      final IndexedTable plainTable = dsFrameworkUtil.getInstance(staleTabInstance);
+      dsFrameworkUtil.newTransactionExecutor(plainTable).execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          plainTable.put(keyA, valCol, valB);
+        }
+      });
+
+      // turn covering on again, the index row is of an earlier covering generation and is resolved through the
+      // data table, before and after it is rewritten
+      dsFrameworkUtil.getFramework().updateInstance(staleTabInstance, coveringProperties);
+      final IndexedTable recoveringTable = dsFrameworkUtil.getInstance(staleTabInstance);
+      TransactionExecutor tx = dsFrameworkUtil.newTransactionExecutor(recoveringTable);
+      final TransactionExecutor.Subroutine verify = new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          try (Scanner scanner = recoveringTable.readByIndex(idxCol, idx1, coveredCols)) {
+            TableAssert.assertRow(scanner.next(), keyA, coveredCols, new byte[][] { valB });
+            assertEmpty(scanner);
+          }
+        }
+      };
+      tx.execute(verify);
+      tx.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          Assert.assertNull(recoveringTable.updateCoveredColumns(null, null, 10));
+        }
+      });
+      tx.execute(verify);
+    } finally {
+      dsFrameworkUtil.deleteInstance(staleTabInstance);
+    }
+  }
+
   /**
    * Asserts that the given scanner contains no more rows.
    */
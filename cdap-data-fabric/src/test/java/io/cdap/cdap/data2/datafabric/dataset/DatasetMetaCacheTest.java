@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.datafabric.dataset;
+
+import io.cdap.cdap.api.dataset.DatasetSpecification;
+import io.cdap.cdap.proto.DatasetMeta;
+import io.cdap.cdap.proto.DatasetModuleMeta;
+import io.cdap.cdap.proto.DatasetTypeMeta;
+import io.cdap.cdap.proto.id.DatasetId;
+import io.cdap.cdap.proto.id.NamespaceId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for {@link DatasetMetaCache}.
+ */
+public class DatasetMetaCacheTest {
+
+  private static final DatasetTypeMeta TYPE_META = new DatasetTypeMeta(
+    "type", Collections.singletonList(new DatasetModuleMeta("module", "io.cdap.Module",
+                                                            URI.create("file:/module.jar"),
+                                                            Collections.singletonList("type"),
+                                                            Collections.emptyList())));
+
+  @Test
+  public void testInstanceCache() throws Exception {
+    DatasetMetaCache cache = new DatasetMetaCache(60, 10);
+    DatasetId ds1 = NamespaceId.DEFAULT.dataset("ds1");
+    DatasetId ds2 = NamespaceId.DEFAULT.dataset("ds2");
+    DatasetId ds3 = new NamespaceId("ns").dataset("ds3");
+
+    AtomicInteger loads = new AtomicInteger();
+    DatasetMetaCache.MetaLoader loader = () -> {
+      loads.incrementAndGet();
+      return new DatasetMeta(DatasetSpecification.builder("ds", "type").build(), TYPE_META, null);
+    };
+
+    DatasetMeta meta = cache.getInstance(ds1, loader);
+    Assert.assertSame(meta, cache.getInstance(ds1, loader));
+    Assert.assertEquals(1, loads.get());
+
+    // Non-existing instance shouldn't be cached
+    Assert.assertNull(cache.getInstance(ds2, () -> null));
+    cache.getInstance(ds2, loader);
+    Assert.assertEquals(2, loads.get());
+
+    // Invalidating one instance
+    cache.invalidate(ds1);
+    Assert.assertNotSame(meta, cache.getInstance(ds1, loader));
+    Assert.assertEquals(3, loads.get());
+
+    // Invalidating a namespace should only affect instances in that namespace
+    cache.getInstance(ds3, loader);
+    Assert.assertEquals(4, loads.get());
+    cache.invalidate(NamespaceId.DEFAULT);
+    cache.getInstance(ds3, loader);
+    Assert.assertEquals(4, loads.get());
+    cache.getInstance(ds1, loader);
+    cache.getInstance(ds2, loader);
+    Assert.assertEquals(6, loads.get());
+  }
+
+  @Test
+  public void testExpiration() throws Exception {
+    DatasetMetaCache cache = new DatasetMetaCache(0, 10);
+    DatasetId ds = NamespaceId.DEFAULT.dataset("ds");
+
+    AtomicInteger loads = new AtomicInteger();
+    DatasetMetaCache.MetaLoader loader = () -> {
+      loads.incrementAndGet();
+      return new DatasetMeta(DatasetSpecification.builder("ds", "type").build(), TYPE_META, null);
+    };
+    cache.getInstance(ds, loader);
+    cache.getInstance(ds, loader);
+    Assert.assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void testTypeCache() throws Exception {
+    DatasetMetaCache cache = new DatasetMetaCache(60, 10);
+    ClassLoader classLoader = getClass().getClassLoader();
+
+    AtomicInteger creates = new AtomicInteger();
+    DatasetType type = cache.getType(TYPE_META, classLoader, () -> {
+      creates.incrementAndGet();
+      return new DatasetType(null, classLoader);
+    });
+    Assert.assertSame(type, cache.getType(TYPE_META, classLoader, () -> {
+      creates.incrementAndGet();
+      return new DatasetType(null, classLoader);
+    }));
+    Assert.assertEquals(1, creates.get());
+
+    // A different module classloader should result in a different type
+    try (URLClassLoader otherClassLoader = new URLClassLoader(new URL[0], classLoader)) {
+      Assert.assertNotSame(type, cache.getType(TYPE_META, otherClassLoader, () -> {
+        creates.incrementAndGet();
+        return new DatasetType(null, otherClassLoader);
+      }));
+      Assert.assertEquals(2, creates.get());
+    }
+  }
+}
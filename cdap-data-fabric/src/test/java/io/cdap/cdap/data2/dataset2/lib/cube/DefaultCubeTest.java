@@ -16,13 +16,20 @@
 
 package io.cdap.cdap.data2.dataset2.lib.cube;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
 import io.cdap.cdap.api.dataset.lib.cube.Cube;
+import io.cdap.cdap.api.dataset.lib.cube.TimeSeries;
 import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryMetricsTable;
 import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableService;
 import io.cdap.cdap.data2.dataset2.lib.timeseries.EntityTable;
 import io.cdap.cdap.data2.dataset2.lib.timeseries.FactTable;
+import org.junit.Assert;
+import org.junit.Test;
 
+import java.util.Collections;
 import java.util.Map;
 
 /**
@@ -32,7 +39,138 @@ public class DefaultCubeTest extends AbstractCubeTest {
 
   @Override
   protected Cube getCube(final String name, int[] resolutions, Map<String, ? extends Aggregation> aggregations) {
-    FactTableSupplier supplier = (resolution, rollTime) -> {
+    return new DefaultCube(resolutions, getFactTableSupplier(name), aggregations,
+                           ImmutableMap.<String, AggregationAlias>of());
+  }
+
+  @Test
+  public void testSplitQuery() throws Exception {
+    Aggregation agg = new DefaultAggregation(ImmutableList.of("dim1", "dim2"));
+    int resolution = 60;
+    // each time base of the fact table covers an hour, hence the query is split into multiple scans
+    Cube cube = new DefaultCube(new int[] {resolution}, getFactTableSupplier("splitCube"), ImmutableMap.of("agg", agg),
+                                ImmutableMap.<String, AggregationAlias>of(), 3);
+
+    long hour = 3600;
+    writeInc(cube, "metric1", 60, 1, "1", "1");
+    writeInc(cube, "metric1", 60, 2, "1", "2");
+    writeInc(cube, "metric1", hour - 60, 3, "1", "1");
+    writeInc(cube, "metric1", hour, 4, "1", "1");
+    writeInc(cube, "metric1", 3 * hour + 120, 5, "1", "2");
+    writeInc(cube, "metric1", 5 * hour, 6, "2", "1");
+    writeGauge(cube, "metric2", 2 * hour, 7, "1", "1");
+    writeGauge(cube, "metric2", 4 * hour, 8, "1", "2");
+
+    verifyCountQuery(cube, 0, 6 * hour, resolution, "metric1", AggregationFunction.SUM,
+                     ImmutableMap.of("dim1", "1"), Collections.emptyList(),
+                     ImmutableList.of(new TimeSeries("metric1", Collections.emptyMap(),
+                                                     timeValues(60, 3, hour - 60, 3, hour, 4, 3 * hour + 120, 5))));
+
+    verifyCountQuery(cube, 0, 6 * hour, resolution, "metric1", AggregationFunction.SUM,
+                     Collections.emptyMap(), ImmutableList.of("dim1"),
+                     ImmutableList.of(
+                       new TimeSeries("metric1", ImmutableMap.of("dim1", "1"),
+                                      timeValues(60, 3, hour - 60, 3, hour, 4, 3 * hour + 120, 5)),
+                       new TimeSeries("metric1", ImmutableMap.of("dim1", "2"), timeValues(5 * hour, 6))));
+
+    // time range that starts and ends in the middle of time bases
+    verifyCountQuery(cube, hour - 60, 5 * hour - 1, resolution, "metric2", AggregationFunction.MAX,
+                     Collections.emptyMap(), Collections.emptyList(),
+                     ImmutableList.of(new TimeSeries("metric2", Collections.emptyMap(),
+                                                     timeValues(2 * hour, 7, 4 * hour, 8))));
+  }
+
+  @Test
+  public void testRollup() throws Exception {
+    Aggregation agg = new DefaultAggregation(ImmutableList.of("dim1", "dim2"));
+    long hour = 3600;
+    // facts are only added to the 1 second resolution, and rolled up into the others
+    DefaultCube cube = new DefaultCube(new int[] {1, 60, 3600}, getFactTableSupplier("rollupCube"),
+                                       ImmutableMap.of("agg", agg), ImmutableMap.<String, AggregationAlias>of(), 1,
+                                       ImmutableSet.of(60, 3600));
+
+    writeInc(cube, "metric1", 10, 1, "1", "1");
+    writeInc(cube, "metric1", 20, 2, "1", "1");
+    writeInc(cube, "metric1", 70, 3, "1", "2");
+    writeGauge(cube, "metric2", 10, 5, "1", "1");
+    writeGauge(cube, "metric2", 50, 6, "1", "1");
+    writeGauge(cube, "metric2", 70, 7, "1", "1");
+
+    // only the first minute is closed
+    Assert.assertEquals(0L, cube.rollup(0, 60));
+    // the first minute is read from the rolled up facts, the second from the finest resolution
+    verifyCountQuery(cube, 0, 200, 60, "metric1", AggregationFunction.SUM,
+                     Collections.emptyMap(), Collections.emptyList(),
+                     ImmutableList.of(new TimeSeries("metric1", Collections.emptyMap(), timeValues(0, 3, 60, 3))));
+    verifyCountQuery(cube, 0, 200, 60, "metric2", AggregationFunction.LATEST,
+                     Collections.emptyMap(), Collections.emptyList(),
+                     ImmutableList.of(new TimeSeries("metric2", Collections.emptyMap(), timeValues(0, 6, 60, 7))));
+
+    Assert.assertEquals(hour, cube.rollup(0, hour + 10));
+    // all the facts are read from the rolled up facts
+    verifyCountQuery(cube, 0, 200, 60, "metric1", AggregationFunction.SUM,
+                     Collections.emptyMap(), ImmutableList.of("dim2"),
+                     ImmutableList.of(new TimeSeries("metric1", ImmutableMap.of("dim2", "1"), timeValues(0, 3)),
+                                      new TimeSeries("metric1", ImmutableMap.of("dim2", "2"), timeValues(60, 3))));
+    verifyCountQuery(cube, 0, hour, 3600, "metric1", AggregationFunction.SUM,
+                     Collections.emptyMap(), Collections.emptyList(),
+                     ImmutableList.of(new TimeSeries("metric1", Collections.emptyMap(), timeValues(0, 6))));
+    verifyCountQuery(cube, 0, hour, 3600, "metric2", AggregationFunction.LATEST,
+                     Collections.emptyMap(), Collections.emptyList(),
+                     ImmutableList.of(new TimeSeries("metric2", Collections.emptyMap(), timeValues(0, 7))));
+
+    // rolling up again does not change the rolled up facts
+    Assert.assertEquals(hour, cube.rollup(0, hour + 10));
+    verifyCountQuery(cube, 0, hour, 3600, "metric1", AggregationFunction.SUM,
+                     Collections.emptyMap(), Collections.emptyList(),
+                     ImmutableList.of(new TimeSeries("metric1", Collections.emptyMap(), timeValues(0, 6))));
+  }
+
+  @Test
+  public void testRollupStart() throws Exception {
+    Aggregation agg = new DefaultAggregation(ImmutableList.of("dim1", "dim2"));
+    long hour = 3600;
+    FactTableSupplier factTableSupplier = getFactTableSupplier("rollupStartCube");
+    // facts added before the rollup is enabled are added to all the resolutions
+    Cube cube = new DefaultCube(new int[] {1, 60, 3600}, factTableSupplier, ImmutableMap.of("agg", agg),
+                                ImmutableMap.<String, AggregationAlias>of(), 1);
+    writeInc(cube, "metric1", 10, 1, "1", "1");
+    writeGauge(cube, "metric2", 10, 5, "1", "1");
+    writeGauge(cube, "metric2", 20, 3, "1", "1");
+
+    DefaultCube rollupCube = new DefaultCube(new int[] {1, 60, 3600}, factTableSupplier, ImmutableMap.of("agg", agg),
+                                             ImmutableMap.<String, AggregationAlias>of(), 1,
+                                             ImmutableSet.of(60, 3600));
+    // nothing to roll up before a fact is added without the rollup resolutions
+    Assert.assertEquals(hour, rollupCube.rollup(0, hour + 10));
+    verifyCountQuery(rollupCube, 0, hour, 3600, "metric2", AggregationFunction.LATEST,
+                     Collections.emptyMap(), Collections.emptyList(),
+                     ImmutableList.of(new TimeSeries("metric2", Collections.emptyMap(), timeValues(0, 3))));
+
+    // the rollup starts at the time bucket of the first fact added without the rollup resolutions
+    writeInc(rollupCube, "metric1", 70, 2, "1", "1");
+    Assert.assertEquals(hour, rollupCube.rollup(0, hour + 10));
+    verifyCountQuery(rollupCube, 0, 200, 60, "metric1", AggregationFunction.SUM,
+                     Collections.emptyMap(), Collections.emptyList(),
+                     ImmutableList.of(new TimeSeries("metric1", Collections.emptyMap(), timeValues(0, 1, 60, 2))));
+    verifyCountQuery(rollupCube, 0, hour, 3600, "metric1", AggregationFunction.SUM,
+                     Collections.emptyMap(), Collections.emptyList(),
+                     ImmutableList.of(new TimeSeries("metric1", Collections.emptyMap(), timeValues(0, 3))));
+    // the gauge was only added before the rollup started, hence its type is unknown and it is not rolled up
+    verifyCountQuery(rollupCube, 0, hour, 3600, "metric2", AggregationFunction.LATEST,
+                     Collections.emptyMap(), Collections.emptyList(),
+                     ImmutableList.of(new TimeSeries("metric2", Collections.emptyMap(), timeValues(0, 3))));
+
+    // facts removed from the finest resolution before they were rolled up are skipped
+    writeInc(rollupCube, "metric1", hour + 10, 4, "1", "1");
+    Assert.assertEquals(3 * hour, rollupCube.rollup(2 * hour, 3 * hour + 10));
+    verifyCountQuery(rollupCube, 0, 3 * hour, 3600, "metric1", AggregationFunction.SUM,
+                     Collections.emptyMap(), Collections.emptyList(),
+                     ImmutableList.of(new TimeSeries("metric1", Collections.emptyMap(), timeValues(0, 3))));
+  }
+
+  private FactTableSupplier getFactTableSupplier(String name) {
+    return (resolution, rollTime) -> {
       String entityTableName = "EntityTable-" + name;
       InMemoryTableService.create(entityTableName);
       String dataTableName = "DataTable-" + name + "-" + resolution;
@@ -40,9 +178,6 @@ public class DefaultCubeTest extends AbstractCubeTest {
       return new FactTable(new InMemoryMetricsTable(dataTableName),
                            new EntityTable(new InMemoryMetricsTable(entityTableName)),
                            resolution, rollTime);
-
     };
-
-    return new DefaultCube(resolutions, supplier, aggregations, ImmutableMap.<String, AggregationAlias>of());
   }
 }
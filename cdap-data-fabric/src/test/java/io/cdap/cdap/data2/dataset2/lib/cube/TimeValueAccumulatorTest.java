@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.dataset2.lib.cube;
+
+import com.google.common.collect.ImmutableList;
+import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
+import io.cdap.cdap.api.dataset.lib.cube.TimeValue;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit tests for {@link TimeValueAccumulator}.
+ */
+public class TimeValueAccumulatorTest {
+
+  @Test
+  public void testAggregationFunctions() {
+    TimeValueAccumulator sum = new TimeValueAccumulator(AggregationFunction.SUM, 10);
+    TimeValueAccumulator max = new TimeValueAccumulator(AggregationFunction.MAX, 10);
+    TimeValueAccumulator min = new TimeValueAccumulator(AggregationFunction.MIN, 10);
+    TimeValueAccumulator latest = new TimeValueAccumulator(AggregationFunction.LATEST, 10);
+    for (TimeValueAccumulator accumulator : ImmutableList.of(sum, max, min, latest)) {
+      Assert.assertEquals(Collections.emptyList(), accumulator.getTimeValues());
+      accumulator.add(20, 5);
+      accumulator.add(10, 3);
+      accumulator.add(20, 2);
+      accumulator.add(20, 4);
+    }
+    Assert.assertEquals(ImmutableList.of(new TimeValue(10, 3), new TimeValue(20, 11)), sum.getTimeValues());
+    Assert.assertEquals(ImmutableList.of(new TimeValue(10, 3), new TimeValue(20, 5)), max.getTimeValues());
+    Assert.assertEquals(ImmutableList.of(new TimeValue(10, 3), new TimeValue(20, 2)), min.getTimeValues());
+    Assert.assertEquals(ImmutableList.of(new TimeValue(10, 3), new TimeValue(20, 4)), latest.getTimeValues());
+  }
+
+  @Test
+  public void testSparseValues() {
+    // Values far apart and not aligned to the resolution are kept as well
+    TimeValueAccumulator accumulator = new TimeValueAccumulator(AggregationFunction.SUM, 60);
+    List<TimeValue> expected = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      accumulator.add(i * 60, i);
+      expected.add(new TimeValue(i * 60, i));
+    }
+    accumulator.add(1000000 * 60, 1);
+    accumulator.add(-60, 2);
+    accumulator.add(61, 3);
+    accumulator.add(61, 3);
+    expected.add(0, new TimeValue(-60, 2));
+    expected.add(3, new TimeValue(61, 6));
+    expected.add(new TimeValue(1000000 * 60, 1));
+    Assert.assertEquals(expected, accumulator.getTimeValues());
+  }
+
+  @Test
+  public void testAddAll() {
+    TimeValueAccumulator first = new TimeValueAccumulator(AggregationFunction.LATEST, 1);
+    TimeValueAccumulator second = new TimeValueAccumulator(AggregationFunction.LATEST, 1);
+    first.add(1, 1);
+    first.add(2, 2);
+    second.add(2, 3);
+    second.add(3, 4);
+    first.addAll(second);
+    Assert.assertEquals(ImmutableList.of(new TimeValue(1, 1), new TimeValue(2, 3), new TimeValue(3, 4)),
+                        first.getTimeValues());
+  }
+}
@@ -21,6 +21,7 @@ import com.google.common.collect.Maps;
 import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.dataset.DatasetAdmin;
 import io.cdap.cdap.api.dataset.DatasetProperties;
+import io.cdap.cdap.api.dataset.table.ConflictDetection;
 import io.cdap.cdap.api.dataset.table.Get;
 import io.cdap.cdap.api.dataset.table.Row;
 import io.cdap.cdap.api.dataset.table.Scan;
@@ -428,6 +429,63 @@ public abstract class BufferingTableTest<T extends BufferingTable> extends Table
     }
   }
 
+  @Test
+  public void testPersistBufferBeforeCommit() throws Exception {
+    // Use a tiny write buffer such that every write gets persisted before commit
+    DatasetProperties props = TableProperties.builder()
+      .setConflictDetection(ConflictDetection.ROW)
+      .add(BufferingTable.PROPERTY_WRITE_BUFFER_MAX_BYTES, 1)
+      .build();
+    DatasetAdmin admin = getTableAdmin(CONTEXT1, MY_TABLE, props);
+    admin.create();
+    try (BufferingTable table = getTable(CONTEXT1, MY_TABLE, props)) {
+      Transaction tx1 = txClient.startShort();
+      table.startTx(tx1);
+      table.put(R1, a(C1), a(V1));
+      table.put(R2, a(C2), a(V2));
+      table.put(R3, a(C3), a(V3));
+      table.delete(R3, a(C3));
+
+      // changes persisted before commit should be visible in the same tx
+      TableAssert.assertRow(a(C1, V1), table.get(R1, a(C1)));
+      TableAssert.assertRow(a(C2, V2), table.get(R2, a(C2)));
+      TableAssert.assertRow(a(), table.get(R3, a(C3)));
+      TableAssert.assertScan(a(R1, R2), aa(a(C1, V1), a(C2, V2)), table, new Scan(null, null));
+
+      // persisted changes should still be part of the tx changes
+      Assert.assertEquals(3, table.getTxChanges().size());
+
+      // changes persisted before commit should be undone on rollback
+      Assert.assertTrue(table.rollbackTx());
+      txClient.abort(tx1);
+
+      Transaction tx2 = txClient.startShort();
+      table.startTx(tx2);
+      TableAssert.assertRow(a(), table.get(R1, a(C1)));
+      TableAssert.assertRow(a(), table.get(R2, a(C2)));
+
+      table.put(R1, a(C1), a(V1));
+      table.put(R2, a(C2), a(V2));
+      Collection<byte[]> txChanges = table.getTxChanges();
+      Assert.assertEquals(2, txChanges.size());
+      txClient.canCommitOrThrow(tx2, txChanges);
+      Assert.assertTrue(table.commitTx());
+      txClient.commitOrThrow(tx2);
+      table.postTxCommit();
+
+      // committed changes should be visible to other tx
+      Transaction tx3 = txClient.startShort();
+      try (Table table2 = getTable(CONTEXT1, MY_TABLE)) {
+        ((TransactionAware) table2).startTx(tx3);
+        TableAssert.assertRow(a(C1, V1), table2.get(R1, a(C1)));
+        TableAssert.assertRow(a(C2, V2), table2.get(R2, a(C2)));
+      }
+      txClient.commitOrThrow(tx3);
+    } finally {
+      admin.drop();
+    }
+  }
+
   @Test
   public void testMultiGetIncludesBuffer() throws Exception {
     DatasetAdmin admin = getTableAdmin(CONTEXT1, MY_TABLE);
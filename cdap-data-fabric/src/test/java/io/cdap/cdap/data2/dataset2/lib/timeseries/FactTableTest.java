@@ -565,6 +565,38 @@ public class FactTableTest {
     Assert.assertEquals(3, splitsWithRows.size());
   }
 
+  @Test
+  public void testScanSplits() throws Exception {
+    InMemoryTableService.create("scanSplitsEntityTable");
+    InMemoryTableService.create("scanSplitsDataTable");
+    int resolution = 60;
+    int rollTimebaseInterval = 3600;
+    FactTable table = new FactTable(new InMemoryMetricsTable("scanSplitsDataTable"),
+                                    new EntityTable(new InMemoryMetricsTable("scanSplitsEntityTable")),
+                                    resolution, rollTimebaseInterval);
+
+    List<DimensionValue> dimValues = ImmutableList.of(new DimensionValue("dim1", "value1"));
+    // Scan within a single time base is not split
+    FactScan scan = new FactScan(100, 3000, "metric1", dimValues);
+    Assert.assertEquals(ImmutableList.of(scan), table.getSplits(scan, 4));
+
+    // Splits cover whole time bases, except at the start and end of the scan
+    scan = new FactScan(100, 5 * 3600 + 100, "metric1", dimValues);
+    List<FactScan> splits = table.getSplits(scan, 3);
+    Assert.assertEquals(3, splits.size());
+    long[][] ranges = {{100, 2 * 3600 - 1}, {2 * 3600, 4 * 3600 - 1}, {4 * 3600, 5 * 3600 + 100}};
+    for (int i = 0; i < ranges.length; i++) {
+      Assert.assertEquals(ranges[i][0], splits.get(i).getStartTs());
+      Assert.assertEquals(ranges[i][1], splits.get(i).getEndTs());
+      Assert.assertEquals(scan.getMeasureNames(), splits.get(i).getMeasureNames());
+      Assert.assertEquals(scan.getDimensionValues(), splits.get(i).getDimensionValues());
+    }
+
+    // No more splits than time bases
+    Assert.assertEquals(6, table.getSplits(scan, 10).size());
+    Assert.assertEquals(ImmutableList.of(scan), table.getSplits(scan, 1));
+  }
+
   @Test
   public void testCache() throws Exception {
     String tableName = "testCacheTable";
@@ -124,6 +124,27 @@ public class FieldLineageInfoTest {
     Assert.assertEquals(expectedIncoming, info.getIncomingSummary());
   }
 
+  @Test(timeout = 30000)
+  public void testWideDeepLineage() {
+    int numFields = 300;
+    int numStages = 40;
+    FieldLineageInfo info = new FieldLineageInfo(generateWideDeepLineage(numFields, numStages));
+
+    // each stage combines a field with the next one, so each destination field is computed from the source field
+    // with the same index and the numStages fields after it
+    Map<EndPointField, Set<EndPointField>> expectedIncoming = new HashMap<>();
+    for (int i = 0; i < numFields; i++) {
+      Set<EndPointField> sources = new HashSet<>();
+      for (int j = 0; j <= numStages; j++) {
+        sources.add(new EndPointField(EndPoint.of("ns", "src"), "field" + (i + j) % numFields));
+      }
+      expectedIncoming.put(new EndPointField(EndPoint.of("ns", "dest"), "field" + i), sources);
+    }
+    Assert.assertEquals(expectedIncoming, info.getIncomingSummary());
+    Assert.assertEquals(numStages + 1, info.getOutgoingSummary()
+      .get(new EndPointField(EndPoint.of("ns", "src"), "field0")).size());
+  }
+
   @Test
   public void testInvalidOperations() {
     ReadOperation read = new ReadOperation("read", "some read", EndPoint.of("endpoint1"), "offset", "body");
@@ -984,6 +1005,41 @@ public class FieldLineageInfoTest {
     Assert.assertTrue(aIndex < bIndex);
   }
 
+  /**
+   * Generates the operations of a pipeline with the given number of fields and stages. Each stage has a transform
+   * for each field that combines the field with the next field of the previous stage.
+   */
+  private List<Operation> generateWideDeepLineage(int numFields, int numStages) {
+    List<String> fields = new ArrayList<>();
+    for (int i = 0; i < numFields; i++) {
+      fields.add("field" + i);
+    }
+    List<Operation> operations = new ArrayList<>();
+    operations.add(new ReadOperation("read", "read", EndPoint.of("ns", "src"), fields));
+
+    List<String> previous = Collections.nCopies(numFields, "read");
+    for (int stage = 0; stage < numStages; stage++) {
+      List<String> current = new ArrayList<>();
+      for (int i = 0; i < numFields; i++) {
+        String name = "stage" + stage + "." + fields.get(i);
+        int next = (i + 1) % numFields;
+        operations.add(new TransformOperation(name, "combine",
+                                              Arrays.asList(InputField.of(previous.get(i), fields.get(i)),
+                                                            InputField.of(previous.get(next), fields.get(next))),
+                                              fields.get(i)));
+        current.add(name);
+      }
+      previous = current;
+    }
+
+    List<InputField> inputs = new ArrayList<>();
+    for (int i = 0; i < numFields; i++) {
+      inputs.add(InputField.of(previous.get(i), fields.get(i)));
+    }
+    operations.add(new WriteOperation("write", "write", EndPoint.of("ns", "dest"), inputs));
+    return operations;
+  }
+
   private void generateLineage(List<String> inputs, List<Operation> operations, String identityNamePrefix,
                                String identityOrigin, String transform) {
     // emit identity transform for all fields
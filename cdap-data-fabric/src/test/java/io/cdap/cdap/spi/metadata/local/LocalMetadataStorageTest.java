@@ -0,0 +1,180 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.spi.metadata.local;
+
+import com.google.common.collect.ImmutableList;
+import io.cdap.cdap.api.metadata.MetadataEntity;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.metadata.Cursor;
+import io.cdap.cdap.spi.metadata.Metadata;
+import io.cdap.cdap.spi.metadata.MetadataMutation.Drop;
+import io.cdap.cdap.spi.metadata.MetadataMutation.Update;
+import io.cdap.cdap.spi.metadata.MetadataRecord;
+import io.cdap.cdap.spi.metadata.MetadataStorage;
+import io.cdap.cdap.spi.metadata.MetadataStorageTest;
+import io.cdap.cdap.spi.metadata.MutationOptions;
+import io.cdap.cdap.spi.metadata.Read;
+import io.cdap.cdap.spi.metadata.SearchRequest;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static io.cdap.cdap.api.metadata.MetadataScope.SYSTEM;
+import static io.cdap.cdap.api.metadata.MetadataScope.USER;
+
+public class LocalMetadataStorageTest extends MetadataStorageTest {
+
+  @ClassRule
+  public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
+
+  private static LocalMetadataStorage storage;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.Metadata.LOCAL_STORAGE_DIR, TEMP_FOLDER.newFolder().getAbsolutePath());
+    storage = new LocalMetadataStorage(cConf);
+    storage.createIndex();
+  }
+
+  @AfterClass
+  public static void teardown() throws IOException {
+    storage.dropIndex();
+    storage.close();
+  }
+
+  @Override
+  protected MetadataStorage getMetadataStorage() {
+    return storage;
+  }
+
+  @Override
+  protected void validateCursor(String cursor, int expectedOffset, int expectedPageSize) {
+    Cursor c = Cursor.fromString(cursor);
+    Assert.assertEquals(expectedOffset, c.getOffset());
+    Assert.assertEquals(expectedPageSize, c.getLimit());
+  }
+
+  @Override
+  protected List<String> getAdditionalTTLQueries() {
+    return ImmutableList.of("ttl:0003600", "TtL:03600", "TtL:03600.00");
+  }
+
+  @Test
+  public void testRecovery() throws IOException {
+    File dir = TEMP_FOLDER.newFolder();
+    MetadataEntity ds1 = MetadataEntity.ofDataset("ns1", "ds1");
+    MetadataEntity ds2 = MetadataEntity.ofDataset("ns1", "ds2");
+    MetadataEntity ds3 = MetadataEntity.ofDataset("ns2", "ds3");
+    Metadata meta1 = new Metadata(USER, tags("tag1", "shared"), props("key1", "value1"));
+    Metadata meta2 = union(new Metadata(USER, tags("shared")), new Metadata(SYSTEM, props("key2", "value2")));
+    Metadata meta3 = new Metadata(USER, tags("tag3"));
+
+    // a threshold of 3 records causes a snapshot in the middle of the mutations
+    LocalMetadataStorage mds = new LocalMetadataStorage(dir, 3);
+    try {
+      mds.createIndex();
+      mds.apply(new Update(ds1, meta1), MutationOptions.DEFAULT);
+      mds.batch(ImmutableList.of(new Update(ds2, meta2), new Update(ds3, meta3)), MutationOptions.DEFAULT);
+      mds.apply(new Drop(ds3), MutationOptions.DEFAULT);
+      mds.apply(new Update(ds1, new Metadata(USER, tags("tag2"))), MutationOptions.DEFAULT);
+    } finally {
+      mds.close();
+    }
+
+    // all metadata must be recovered from the snapshot and the log
+    mds = new LocalMetadataStorage(dir, 3);
+    try {
+      mds.createIndex();
+      Metadata expected1 = new Metadata(USER, tags("tag1", "tag2", "shared"), props("key1", "value1"));
+      Assert.assertEquals(expected1, mds.read(new Read(ds1)));
+      Assert.assertEquals(meta2, mds.read(new Read(ds2)));
+      Assert.assertEquals(Metadata.EMPTY, mds.read(new Read(ds3)));
+      assertResults(mds, SearchRequest.of("shared").build(),
+                    new MetadataRecord(ds1, expected1), new MetadataRecord(ds2, meta2));
+      assertResults(mds, SearchRequest.of("tag2").build(), new MetadataRecord(ds1, expected1));
+      assertInOrder(mds, SearchRequest.of("tag3").build());
+    } finally {
+      mds.dropIndex();
+      mds.close();
+    }
+  }
+
+  @Test
+  public void testRecoveryFromRotatedLog() throws IOException {
+    File dir = TEMP_FOLDER.newFolder();
+    MetadataEntity ds1 = MetadataEntity.ofDataset("ns1", "ds1");
+    MetadataEntity ds2 = MetadataEntity.ofDataset("ns1", "ds2");
+    Metadata meta1 = new Metadata(USER, tags("tag1"));
+    Metadata meta2 = new Metadata(USER, tags("tag2"));
+    Metadata meta3 = new Metadata(USER, tags("tag3"));
+
+    // simulate a process that dies after the log was rotated, but before the snapshot was written
+    MetadataLog log = new MetadataLog(dir);
+    try {
+      log.open((entity, metadata) -> { });
+      log.append(ds1, meta1);
+      log.append(ds2, meta2);
+      log.rotate();
+      log.append(ds1, meta3);
+    } finally {
+      log.close();
+    }
+
+    // the rotated log must be replayed before the current log
+    LocalMetadataStorage mds = new LocalMetadataStorage(dir, 100);
+    try {
+      mds.createIndex();
+      Assert.assertEquals(meta3, mds.read(new Read(ds1)));
+      Assert.assertEquals(meta2, mds.read(new Read(ds2)));
+    } finally {
+      mds.dropIndex();
+      mds.close();
+    }
+  }
+
+  @Test
+  public void testDirectoryLocked() throws IOException {
+    File dir = TEMP_FOLDER.newFolder();
+    LocalMetadataStorage mds1 = new LocalMetadataStorage(dir, 100);
+    LocalMetadataStorage mds2 = new LocalMetadataStorage(dir, 100);
+    try {
+      mds1.createIndex();
+      try {
+        mds2.createIndex();
+        Assert.fail("Expected the directory to be locked by the first storage");
+      } catch (IOException e) {
+        // expected
+      }
+      // the directory can be used once the first storage is closed
+      mds1.close();
+      mds2.createIndex();
+    } finally {
+      mds1.close();
+      mds2.dropIndex();
+      mds2.close();
+    }
+  }
+}
@@ -16,74 +16,86 @@
 
 package io.cdap.cdap.explore.executor;
 
-import com.google.gson.Gson;
+import com.google.common.base.Throwables;
 import io.cdap.cdap.explore.service.ExploreException;
 import io.cdap.cdap.explore.service.ExploreService;
 import io.cdap.cdap.explore.service.HandleNotFoundException;
-import io.cdap.cdap.proto.ColumnDesc;
 import io.cdap.cdap.proto.QueryHandle;
 import io.cdap.cdap.proto.QueryResult;
 import io.cdap.http.BodyProducer;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.Unpooled;
+import org.apache.twill.common.Threads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
-import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * BodyProducer used for returning the results of a Query, chunk by chunk.
+ *
+ * The next batch of results is fetched in the background while the current batch is encoded and sent, and each
+ * chunk is encoded directly into a pooled buffer, which is released once it is written to the response.
  */
 final class QueryResultsBodyProducer extends BodyProducer {
 
   private static final Logger LOG = LoggerFactory.getLogger(QueryResultsBodyProducer.class);
-  private static final Gson GSON = new Gson();
 
   private final ExploreService exploreService;
   private final QueryHandle handle;
-
-  private final ByteBuf buffer;
-  private final PrintWriter writer;
+  private final QueryResultsCSVEncoder encoder;
+  private final ExecutorService fetchExecutor;
 
   private List<QueryResult> results;
+  private Future<List<QueryResult>> nextResults;
 
   QueryResultsBodyProducer(ExploreService exploreService,
                            QueryHandle handle) throws HandleNotFoundException, SQLException, ExploreException {
     this.exploreService = exploreService;
     this.handle = handle;
-
-    this.buffer = Unpooled.buffer();
-    this.writer = new PrintWriter(new OutputStreamWriter(new ByteBufOutputStream(buffer), StandardCharsets.UTF_8));
+    this.encoder = new QueryResultsCSVEncoder();
+    this.fetchExecutor = Executors.newSingleThreadExecutor(
+      Threads.createDaemonThreadFactory("explore-download-" + handle.getHandle()));
   }
 
   @Override
   public ByteBuf nextChunk() throws Exception {
-    buffer.clear();
-
-    if (results == null) {
-      initialize();
-    }
+    ByteBuf buffer = PooledByteBufAllocator.DEFAULT.buffer();
+    try {
+      if (results == null) {
+        initialize(buffer);
+      } else {
+        results = getNextResults();
+      }
 
-    if (results.isEmpty()) {
-      return Unpooled.EMPTY_BUFFER;
-    }
+      if (results.isEmpty() && buffer.readableBytes() == 0) {
+        buffer.release();
+        return Unpooled.EMPTY_BUFFER;
+      }
 
-    for (QueryResult result : results) {
-      appendCSVRow(writer, result);
+      // Fetch the next batch while the current one is being encoded and sent
+      if (!results.isEmpty()) {
+        fetchNextResults();
+      }
+      for (QueryResult result : results) {
+        encoder.writeRow(result, buffer);
+      }
+      return buffer;
+    } catch (Throwable t) {
+      buffer.release();
+      throw t;
     }
-    writer.flush();
-
-    results = exploreService.nextResults(handle, AbstractExploreQueryExecutorHttpHandler.DOWNLOAD_FETCH_CHUNK_SIZE);
-    return buffer.copy();
   }
 
-  private void initialize() throws HandleNotFoundException, SQLException, ExploreException {
-    writer.println(getCSVHeaders(exploreService.getResultSchema(handle)));
+  private void initialize(ByteBuf buffer) throws HandleNotFoundException, SQLException, ExploreException {
+    encoder.writeHeader(exploreService.getResultSchema(handle), buffer);
 
     results = exploreService.previewResults(handle);
     if (results.isEmpty()) {
@@ -91,43 +103,31 @@ final class QueryResultsBodyProducer extends BodyProducer {
     }
   }
 
+  private void fetchNextResults() {
+    nextResults = fetchExecutor.submit(
+      () -> exploreService.nextResults(handle, AbstractExploreQueryExecutorHttpHandler.DOWNLOAD_FETCH_CHUNK_SIZE));
+  }
+
+  private List<QueryResult> getNextResults() throws Exception {
+    if (nextResults == null) {
+      return Collections.emptyList();
+    }
+    try {
+      return nextResults.get();
+    } catch (ExecutionException e) {
+      Throwables.propagateIfInstanceOf(e.getCause(), Exception.class);
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
   @Override
   public void finished() throws Exception {
-
+    fetchExecutor.shutdownNow();
   }
 
   @Override
   public void handleError(Throwable cause) {
+    fetchExecutor.shutdownNow();
     LOG.error("Received error while chunking query results.", cause);
   }
-
-  private String getCSVHeaders(List<ColumnDesc> schema)
-    throws HandleNotFoundException, SQLException, ExploreException {
-    StringBuilder sb = new StringBuilder();
-    boolean first = true;
-    for (ColumnDesc columnDesc : schema) {
-      if (first) {
-        first = false;
-      } else {
-        sb.append(',');
-      }
-      sb.append(columnDesc.getName());
-    }
-    return sb.toString();
-  }
-
-  private void appendCSVRow(PrintWriter printWriter, QueryResult result)
-    throws HandleNotFoundException, SQLException, ExploreException {
-    boolean first = true;
-    for (Object o : result.getColumns()) {
-      if (first) {
-        first = false;
-      } else {
-        printWriter.append(',');
-      }
-      // Using GSON toJson will serialize objects - in particular, strings will be quoted
-      GSON.toJson(o, printWriter);
-    }
-    writer.println();
-  }
 }
@@ -0,0 +1,148 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.explore.executor;
+
+import com.google.gson.Gson;
+import io.cdap.cdap.proto.ColumnDesc;
+import io.cdap.cdap.proto.QueryResult;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Encodes query results as CSV directly into a {@link ByteBuf}. The columns are encoded the same way as they
+ * would be by {@link Gson}, that is, strings are quoted and escaped as JSON strings, without going through
+ * {@link Gson} for the common column types.
+ * This class is not thread safe.
+ */
+final class QueryResultsCSVEncoder {
+
+  private static final Gson GSON = new Gson();
+  private static final byte COMMA = ',';
+  private static final byte NEW_LINE = '\n';
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  private final StringBuilder builder = new StringBuilder();
+
+  /**
+   * Writes the names of the columns as the CSV header line.
+   */
+  void writeHeader(List<ColumnDesc> schema, ByteBuf buffer) {
+    boolean first = true;
+    for (ColumnDesc columnDesc : schema) {
+      if (first) {
+        first = false;
+      } else {
+        buffer.writeByte(COMMA);
+      }
+      ByteBufUtil.writeUtf8(buffer, columnDesc.getName());
+    }
+    buffer.writeByte(NEW_LINE);
+  }
+
+  /**
+   * Writes the columns of the given result as a CSV line.
+   */
+  void writeRow(QueryResult result, ByteBuf buffer) {
+    boolean first = true;
+    for (Object column : result.getColumns()) {
+      if (first) {
+        first = false;
+      } else {
+        buffer.writeByte(COMMA);
+      }
+      builder.setLength(0);
+      appendColumn(column, builder);
+      ByteBufUtil.writeUtf8(buffer, builder);
+    }
+    buffer.writeByte(NEW_LINE);
+  }
+
+  private void appendColumn(@Nullable Object column, StringBuilder builder) {
+    if (column == null) {
+      builder.append("null");
+    } else if (column instanceof String) {
+      appendString((String) column, builder);
+    } else if (column instanceof Boolean || column instanceof Integer || column instanceof Long
+      || column instanceof Short || column instanceof Byte) {
+      builder.append(column);
+    } else {
+      // Rare types, such as floating point numbers which may not be finite, are left to Gson
+      GSON.toJson(column, builder);
+    }
+  }
+
+  /**
+   * Appends a string quoted and escaped in the same way as the default (html safe) {@link Gson} does.
+   */
+  private void appendString(String value, StringBuilder builder) {
+    builder.append('"');
+    int length = value.length();
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          builder.append("\\\"");
+          break;
+        case '\\':
+          builder.append("\\\\");
+          break;
+        case '\t':
+          builder.append("\\t");
+          break;
+        case '\b':
+          builder.append("\\b");
+          break;
+        case '\n':
+          builder.append("\\n");
+          break;
+        case '\r':
+          builder.append("\\r");
+          break;
+        case '\f':
+          builder.append("\\f");
+          break;
+        case '<':
+        case '>':
+        case '&':
+        case '=':
+        case '\'':
+        case '\u2028':
+        case '\u2029':
+          appendUnicodeEscape(c, builder);
+          break;
+        default:
+          if (c < 0x20) {
+            appendUnicodeEscape(c, builder);
+          } else {
+            builder.append(c);
+          }
+      }
+    }
+    builder.append('"');
+  }
+
+  private void appendUnicodeEscape(char c, StringBuilder builder) {
+    builder.append("\\u")
+      .append(HEX_DIGITS[(c >> 12) & 0xf])
+      .append(HEX_DIGITS[(c >> 8) & 0xf])
+      .append(HEX_DIGITS[(c >> 4) & 0xf])
+      .append(HEX_DIGITS[c & 0xf]);
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.explore.executor;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gson.Gson;
+import io.cdap.cdap.proto.ColumnDesc;
+import io.cdap.cdap.proto.QueryResult;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit tests for {@link QueryResultsCSVEncoder}.
+ */
+public class QueryResultsCSVEncoderTest {
+
+  private static final Gson GSON = new Gson();
+
+  @Test
+  public void testHeader() {
+    ByteBuf buffer = Unpooled.buffer();
+    new QueryResultsCSVEncoder().writeHeader(ImmutableList.of(new ColumnDesc("a", "INT", 1, null),
+                                                              new ColumnDesc("b", "STRING", 2, null)), buffer);
+    Assert.assertEquals("a,b\n", buffer.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testSameAsGson() {
+    List<Object> columns = Arrays.asList(
+      null, true, 1, 2L, (short) 3, (byte) 4, 1.5d, 2.5f, new BigDecimal("123.456"),
+      "plain", "quote \" backslash \\ tab \t newline \n return \r", "<html> & 'x' = y",
+      "control \u0001 \u001f \b \f", "line \u2028 paragraph \u2029", "unicode \u00e9 \u4e2d \ud83d\ude00", "");
+
+    ByteBuf buffer = Unpooled.buffer();
+    QueryResultsCSVEncoder encoder = new QueryResultsCSVEncoder();
+    encoder.writeRow(new QueryResult(columns), buffer);
+    encoder.writeRow(new QueryResult(ImmutableList.<Object>of("second")), buffer);
+
+    StringBuilder expected = new StringBuilder();
+    boolean first = true;
+    for (Object column : columns) {
+      if (!first) {
+        expected.append(',');
+      }
+      first = false;
+      GSON.toJson(column, expected);
+    }
+    expected.append("\n\"second\"\n");
+    Assert.assertEquals(expected.toString(), buffer.toString(StandardCharsets.UTF_8));
+  }
+}
@@ -18,10 +18,14 @@ package io.cdap.cdap.gateway.router;
 
 import com.google.common.base.Strings;
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.api.metrics.MetricsContext;
+import io.cdap.cdap.api.metrics.NoopMetricsContext;
 import io.cdap.cdap.common.ServiceBindException;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
@@ -30,8 +34,10 @@ import io.cdap.cdap.common.security.HttpsEnabler;
 import io.cdap.cdap.common.security.KeyStores;
 import io.cdap.cdap.gateway.router.handlers.AuditLogHandler;
 import io.cdap.cdap.gateway.router.handlers.AuthenticationHandler;
+import io.cdap.cdap.gateway.router.handlers.BackendConnectionPool;
 import io.cdap.cdap.gateway.router.handlers.HttpRequestRouter;
 import io.cdap.cdap.gateway.router.handlers.HttpStatusRequestHandler;
+import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.security.auth.AccessTokenTransformer;
 import io.cdap.cdap.security.auth.TokenValidator;
 import io.cdap.http.SSLConfig;
@@ -88,6 +94,8 @@ public class NettyRouter extends AbstractIdleService {
   private final TokenValidator tokenValidator;
   private final AccessTokenTransformer accessTokenTransformer;
   private final boolean sslEnabled;
+  private MetricsCollectionService metricsCollectionService;
+  private BackendConnectionPool connectionPool;
   private InetSocketAddress boundAddress;
 
   private DiscoveryServiceClient discoveryServiceClient;
@@ -115,6 +123,15 @@ public class NettyRouter extends AbstractIdleService {
       : cConf.getInt(Constants.Router.ROUTER_PORT);
   }
 
+  /**
+   * Optional guice injection for the {@link MetricsCollectionService} to emit the metrics of the router. It is
+   * optional because the router doesn't have a metrics collection service in distributed mode.
+   */
+  @Inject(optional = true)
+  void setMetricsCollectionService(MetricsCollectionService metricsCollectionService) {
+    this.metricsCollectionService = metricsCollectionService;
+  }
+
   /**
    * Returns an {@link Optional} {@link InetSocketAddress} that this router is bound to. If the router is not
    * running, an empty {@link Optional} will be returned.
@@ -126,6 +143,13 @@ public class NettyRouter extends AbstractIdleService {
   @Override
   protected void startUp() throws Exception {
     tokenValidator.startAndWait();
+    MetricsContext metricsContext = metricsCollectionService == null
+      ? new NoopMetricsContext()
+      : metricsCollectionService.getContext(ImmutableMap.of(
+          Constants.Metrics.Tag.NAMESPACE, NamespaceId.SYSTEM.getNamespace(),
+          Constants.Metrics.Tag.COMPONENT, Constants.Service.GATEWAY));
+    connectionPool = new BackendConnectionPool(cConf.getInt(Constants.Router.BACKEND_POOL_MAX_IDLE_PER_HOST),
+                                               metricsContext);
     ChannelGroup channelGroup = new DefaultChannelGroup(ImmediateEventExecutor.INSTANCE);
     serverCancellable = startServer(createServerBootstrap(channelGroup), channelGroup);
   }
@@ -135,6 +159,7 @@ public class NettyRouter extends AbstractIdleService {
     boundAddress = null;
     LOG.info("Stopping Netty Router...");
 
+    connectionPool.close();
     serverCancellable.cancel();
     tokenValidator.stopAndWait();
 
@@ -211,7 +236,7 @@ public class NettyRouter extends AbstractIdleService {
           // Always let the client to continue sending the request body after the authentication passed
           pipeline.addLast("expect-continue", new HttpServerExpectContinueHandler());
           // for now there's only one hardcoded rule, but if there will be more, we may want it generic and configurable
-          pipeline.addLast("http-request-handler", new HttpRequestRouter(cConf, serviceLookup));
+          pipeline.addLast("http-request-handler", new HttpRequestRouter(cConf, serviceLookup, connectionPool));
         }
       });
   }
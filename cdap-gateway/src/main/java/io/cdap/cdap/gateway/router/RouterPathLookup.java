@@ -31,7 +31,6 @@ import javax.annotation.Nullable;
  */
 public final class RouterPathLookup extends AbstractHttpHandler {
 
-  @SuppressWarnings("unused")
   private enum AllowedMethod {
     GET, PUT, POST, DELETE
   }
@@ -60,12 +59,16 @@ public final class RouterPathLookup extends AbstractHttpHandler {
    */
   @Nullable
   public RouteDestination getRoutingService(String requestPath, HttpRequest httpRequest) {
+    // Requests that are not handled by any of the rules below are routed to app-fabric. They are detected upfront
+    // instead of relying on exceptions, since they can be frequent (e.g. HEAD requests) and exceptions are costly.
+    AllowedMethod requestMethod = getAllowedMethod(httpRequest.method().name());
+    if (requestMethod == null) {
+      return APP_FABRIC_HTTP;
+    }
     try {
-      String method = httpRequest.method().name();
-      AllowedMethod requestMethod = AllowedMethod.valueOf(method);
       String[] uriParts = StringUtils.split(requestPath, '/');
 
-      if (uriParts[0].equals(Constants.Gateway.API_VERSION_3_TOKEN)) {
+      if (uriParts.length >= 2 && uriParts[0].equals(Constants.Gateway.API_VERSION_3_TOKEN)) {
         return getV3RoutingService(uriParts, requestMethod);
       }
     } catch (Exception e) {
@@ -74,6 +77,22 @@ public final class RouterPathLookup extends AbstractHttpHandler {
     return APP_FABRIC_HTTP;
   }
 
+  @Nullable
+  private AllowedMethod getAllowedMethod(String method) {
+    switch (method) {
+      case "GET":
+        return AllowedMethod.GET;
+      case "PUT":
+        return AllowedMethod.PUT;
+      case "POST":
+        return AllowedMethod.POST;
+      case "DELETE":
+        return AllowedMethod.DELETE;
+      default:
+        return null;
+    }
+  }
+
   private boolean isUserServiceType(String uriPart) {
     for (ProgramType type : ServiceDiscoverable.getUserServiceTypes()) {
       if (type.getCategoryName().equals(uriPart)) {
@@ -158,7 +177,8 @@ public final class RouterPathLookup extends AbstractHttpHandler {
     } else if ((uriParts.length == 3) && uriParts[1].equals("explore") && uriParts[2].equals("status")) {
       return EXPLORE_HTTP_USER_SERVICE;
     } else if (beginsWith(uriParts, "v3", "system", "services", null, "status")
-      || beginsWith(uriParts, "v3", "system", "services", null, "stacks")) {
+      || beginsWith(uriParts, "v3", "system", "services", null, "stacks")
+      || beginsWith(uriParts, "v3", "system", "services", null, "traces")) {
       switch (uriParts[3]) {
         case Constants.Service.LOGSAVER: return LOG_SAVER;
         case Constants.Service.TRANSACTION: return TRANSACTION;
@@ -16,6 +16,7 @@
 
 package io.cdap.cdap.gateway.router;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
@@ -71,7 +72,7 @@ public class RouterServiceLookup {
   @Nullable
   public EndpointStrategy getDiscoverable(HttpRequest httpRequest) {
     // Normalize the path once and strip off any query string. Just keep the URI path.
-    String path = URI.create(httpRequest.uri()).normalize().getPath();
+    String path = getPath(httpRequest.uri());
 
     try {
       // Check if the requested path shouldn't be routed (internal URL).
@@ -89,6 +90,94 @@ public class RouterServiceLookup {
     }
   }
 
+  /**
+   * Returns the normalized path of the given request URI. URIs that are plain, already normalized paths, which
+   * is the case for almost all requests, are handled without parsing them as {@link URI}.
+   */
+  @VisibleForTesting
+  static String getPath(String uri) {
+    int pathEnd = getNormalizedPathEnd(uri);
+    if (pathEnd < 0) {
+      return URI.create(uri).normalize().getPath();
+    }
+    return uri.substring(0, pathEnd);
+  }
+
+  /**
+   * Returns the end index of the path in the given URI if the URI consists of an absolute path that needs no
+   * normalization nor decoding, followed by an optional query and fragment that consist of characters that need no
+   * escaping. Returns {@code -1} otherwise.
+   */
+  private static int getNormalizedPathEnd(String uri) {
+    int length = uri.length();
+    if (length == 0 || uri.charAt(0) != '/') {
+      return -1;
+    }
+    int pathEnd = -1;
+    // Start index of the current path segment
+    int segmentStart = 1;
+    for (int i = 1; i < length; i++) {
+      char c = uri.charAt(i);
+      if (pathEnd < 0 && (c == '/' || c == '?' || c == '#')) {
+        // Empty, "." and ".." segments need normalization
+        int segmentLength = i - segmentStart;
+        if ((segmentLength == 0 && c == '/') || isDotSegment(uri, segmentStart, segmentLength)) {
+          return -1;
+        }
+        if (c == '/') {
+          segmentStart = i + 1;
+          continue;
+        }
+        pathEnd = i;
+      } else if (!isPlainUriChar(c) && !(pathEnd >= 0 && (c == '/' || c == '?'))) {
+        return -1;
+      }
+    }
+    if (pathEnd < 0) {
+      pathEnd = length;
+      if (isDotSegment(uri, segmentStart, length - segmentStart)) {
+        return -1;
+      }
+    }
+    return pathEnd;
+  }
+
+  private static boolean isDotSegment(String uri, int start, int length) {
+    return (length == 1 && uri.charAt(start) == '.')
+      || (length == 2 && uri.charAt(start) == '.' && uri.charAt(start + 1) == '.');
+  }
+
+  /**
+   * Returns whether the given character can appear in a path segment without escaping.
+   */
+  private static boolean isPlainUriChar(char c) {
+    if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+      return true;
+    }
+    switch (c) {
+      case '-':
+      case '.':
+      case '_':
+      case '~':
+      case '!':
+      case '$':
+      case '&':
+      case '\'':
+      case '(':
+      case ')':
+      case '*':
+      case '+':
+      case ',':
+      case ';':
+      case '=':
+      case ':':
+      case '@':
+        return true;
+      default:
+        return false;
+    }
+  }
+
   private EndpointStrategy discover(RouteDestination routeDestination) {
     String serviceName = routeDestination.getServiceName();
 
@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.gateway.router.handlers;
+
+import io.cdap.cdap.api.metrics.MetricsContext;
+import io.cdap.cdap.api.metrics.NoopMetricsContext;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.EventLoop;
+import io.netty.util.AttributeKey;
+import org.apache.twill.discovery.Discoverable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+/**
+ * A pool of idle keep-alive connections to the internal services, shared by all client connections of the router.
+ *
+ * Connections are pooled per {@link EventLoop}, since a connection to an internal service must be served by the same
+ * event loop as the client connection it forwards for. Each per event loop pool is only accessed from the thread of
+ * that event loop, hence needs no synchronization. Idle connections that are closed, either by the internal service
+ * or by the idle timeout of the router, are removed from the pool.
+ *
+ * The pool emits the number of requests served by pooled connections as {@code backend.pool.hits}, the number of
+ * new connections made as {@code backend.pool.misses}, and the number of connections closed instead of being
+ * reused, either because the pool is full or because they were closed while idle, as {@code backend.pool.evictions}.
+ */
+public final class BackendConnectionPool {
+
+  private static final Logger LOG = LoggerFactory.getLogger(BackendConnectionPool.class);
+  private static final AttributeKey<Boolean> POOLED = AttributeKey.valueOf("backend.connection.pooled");
+
+  private final int maxIdlePerHost;
+  private final MetricsContext metricsContext;
+  private final ConcurrentMap<EventLoop, Map<Discoverable, Deque<Channel>>> pools;
+  private final AtomicLong hits;
+  private final AtomicLong connects;
+  private final AtomicLong connectNanos;
+
+  /**
+   * Creates a pool that keeps at most the given number of idle connections per internal service endpoint
+   * and event loop. A value of zero disables pooling.
+   */
+  public BackendConnectionPool(int maxIdlePerHost) {
+    this(maxIdlePerHost, new NoopMetricsContext());
+  }
+
+  /**
+   * Creates a pool that keeps at most the given number of idle connections per internal service endpoint
+   * and event loop, and emits its usage to the given {@link MetricsContext}. A value of zero disables pooling.
+   */
+  public BackendConnectionPool(int maxIdlePerHost, MetricsContext metricsContext) {
+    this.maxIdlePerHost = maxIdlePerHost;
+    this.metricsContext = metricsContext;
+    this.pools = new ConcurrentHashMap<>();
+    this.hits = new AtomicLong();
+    this.connects = new AtomicLong();
+    this.connectNanos = new AtomicLong();
+  }
+
+  /**
+   * Returns an idle connection to the given endpoint that is served by the given event loop, or {@code null}
+   * if there is none. This method must be called from the thread of the given event loop.
+   */
+  @Nullable
+  Channel acquire(EventLoop eventLoop, Discoverable discoverable) {
+    Deque<Channel> channels = getPool(eventLoop).get(discoverable);
+    if (channels == null) {
+      return null;
+    }
+    Channel channel = channels.pollFirst();
+    while (channel != null && !channel.isActive()) {
+      channel = channels.pollFirst();
+    }
+    if (channel != null) {
+      hits.incrementAndGet();
+      metricsContext.increment("backend.pool.hits", 1);
+    }
+    return channel;
+  }
+
+  /**
+   * Returns a connection to the given endpoint to the pool, or closes it if the pool for the endpoint is full.
+   * This method must be called from the thread of the event loop of the given channel.
+   */
+  void release(Channel channel, Discoverable discoverable) {
+    if (!channel.isActive()) {
+      return;
+    }
+    Deque<Channel> channels = getPool(channel.eventLoop()).computeIfAbsent(discoverable, k -> new ArrayDeque<>());
+    if (channels.size() >= maxIdlePerHost) {
+      LOG.trace("Closing connection to {} since the connection pool is full", discoverable);
+      metricsContext.increment("backend.pool.evictions", 1);
+      channel.close();
+      return;
+    }
+    // Most recently used connections are reused first, so that the least used ones get closed on idle timeout
+    channels.addFirst(channel);
+    // Only remove the channel from the pool on close once, no matter how many times it is released
+    if (channel.attr(POOLED).setIfAbsent(Boolean.TRUE) == null) {
+      channel.closeFuture().addListener((ChannelFutureListener) future -> {
+        // A channel that is not in the pool is in use, and is not evicted
+        if (channels.remove(channel)) {
+          metricsContext.increment("backend.pool.evictions", 1);
+        }
+      });
+    }
+  }
+
+  /**
+   * Records the time it took to make a new connection to an internal service.
+   */
+  void connected(long nanos) {
+    connects.incrementAndGet();
+    connectNanos.addAndGet(nanos);
+    metricsContext.increment("backend.pool.misses", 1);
+  }
+
+  /**
+   * Closes all idle connections and logs the usage statistics of the pool.
+   */
+  public void close() {
+    long numConnects = connects.get();
+    LOG.debug("Backend connection pool served {} requests from pooled connections and made {} new connections, " +
+                "taking {} ms on average", hits.get(), numConnects,
+              numConnects == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(connectNanos.get() / numConnects));
+    for (Map.Entry<EventLoop, Map<Discoverable, Deque<Channel>>> entry : pools.entrySet()) {
+      entry.getKey().execute(() -> {
+        for (Deque<Channel> channels : entry.getValue().values()) {
+          for (Channel channel : channels.toArray(new Channel[0])) {
+            channel.close();
+          }
+        }
+      });
+    }
+  }
+
+  private Map<Discoverable, Deque<Channel>> getPool(EventLoop eventLoop) {
+    return pools.computeIfAbsent(eventLoop, k -> new HashMap<>());
+  }
+}
@@ -79,14 +79,17 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
 
   private final CConfiguration cConf;
   private final RouterServiceLookup serviceLookup;
+  private final BackendConnectionPool connectionPool;
   private final Map<Discoverable, Queue<MessageSender>> messageSenders;
   private int inflightRequests;
   private MessageSender currentMessageSender;
   private ChannelFutureListener failureResponseListener;
 
-  public HttpRequestRouter(CConfiguration cConf, RouterServiceLookup serviceLookup) {
+  public HttpRequestRouter(CConfiguration cConf, RouterServiceLookup serviceLookup,
+                           BackendConnectionPool connectionPool) {
     this.cConf = cConf;
     this.serviceLookup = serviceLookup;
+    this.connectionPool = connectionPool;
     this.messageSenders = new HashMap<>();
   }
 
@@ -98,6 +101,8 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
 
       if (msg instanceof HttpRequest) {
         HttpRequest request = (HttpRequest) msg;
+        // External clients can't continue or force traces in the services. Only internal callers pass the context.
+        request.headers().remove(Constants.Trace.CONTEXT_HEADER);
 
         // For "/" request, response with 200. This is for load balancer health check
         if ("/".equals(request.uri())) {
@@ -250,7 +255,7 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
     }
 
     // Create new MessageSender
-    sender = new MessageSender(cConf, inboundChannel, discoverable);
+    sender = new MessageSender(cConf, inboundChannel, discoverable, connectionPool);
     LOG.trace("Create new message sender for {}", discoverable);
     return sender;
   }
@@ -279,27 +284,38 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
   /**
    * For sending messages to outbound channel while maintaining the order of messages according to
    * the order that {@link #send(Object, ChannelFutureListener)} method is called.
+   * The outbound channel is taken from the {@link BackendConnectionPool} if there is an idle one, and it is returned
+   * to the pool when this sender is closed, if the last response was completed.
    */
   private static final class MessageSender implements Flushable, Closeable {
 
+    private final Channel inboundChannel;
     private final Discoverable discoverable;
+    private final BackendConnectionPool connectionPool;
     private final Queue<OutboundMessage> pendingMessages;
     private final Bootstrap clientBootstrap;
+    private final ChannelFutureListener onCloseResetListener;
     private volatile SslContext sslContext;
     private Channel outboundChannel;
     private boolean closed;
     private boolean connecting;
 
-    private MessageSender(final CConfiguration cConf, final Channel inboundChannel, final Discoverable discoverable) {
+    private MessageSender(final CConfiguration cConf, final Channel inboundChannel, final Discoverable discoverable,
+                          BackendConnectionPool connectionPool) {
+      this.inboundChannel = inboundChannel;
       this.discoverable = discoverable;
+      this.connectionPool = connectionPool;
       this.pendingMessages = new LinkedList<>();
 
       // A channel listener for resetting the state of this message sender on closing of outbound channel
-      final ChannelFutureListener onCloseResetListener = new ChannelFutureListener() {
+      this.onCloseResetListener = new ChannelFutureListener() {
         @Override
         public void operationComplete(ChannelFuture future) {
-          outboundChannel = null;
-          connecting = false;
+          // The channel may have been returned to the pool and be used by another sender
+          if (outboundChannel == null || outboundChannel == future.channel()) {
+            outboundChannel = null;
+            connecting = false;
+          }
         }
       };
 
@@ -348,7 +364,19 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
         return;
       }
 
+      // Reuse an idle connection if there is one
+      Channel pooledChannel = connectionPool.acquire(inboundChannel.eventLoop(), discoverable);
+      if (pooledChannel != null) {
+        LOG.trace("Reuse pooled connection {} for {}", pooledChannel, discoverable);
+        pooledChannel.pipeline().get(OutboundHandler.class).setInboundChannel(inboundChannel);
+        pooledChannel.closeFuture().addListener(onCloseResetListener);
+        outboundChannel = pooledChannel;
+        pendingMessages.poll().write(outboundChannel);
+        return;
+      }
+
       // Make a new connection
+      long connectStartNanos = System.nanoTime();
       ChannelFuture connectFuture = clientBootstrap.connect(discoverable.getSocketAddress());
       connectFuture.addListener(new ChannelFutureListener() {
         @Override
@@ -359,6 +387,7 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
           connecting = false;
 
           if (future.isSuccess()) {
+            connectionPool.connected(System.nanoTime() - connectStartNanos);
             // If this sender is closed (because inbound channel is closed), just close the outbound channel
             if (closed) {
               Channels.closeOnFlush(outboundChannel);
@@ -390,11 +419,28 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
       if (!closed) {
         closed = true;
         if (outboundChannel != null) {
-          Channels.closeOnFlush(outboundChannel);
+          releaseOutboundChannel();
         }
       }
     }
 
+    /**
+     * Returns the outbound channel to the pool if the last response was completed, otherwise closes it.
+     */
+    private void releaseOutboundChannel() {
+      Channel channel = outboundChannel;
+      OutboundHandler handler = channel.pipeline().get(OutboundHandler.class);
+      if (handler == null || !channel.isActive() || !handler.isReusable()) {
+        Channels.closeOnFlush(channel);
+        return;
+      }
+      channel.closeFuture().removeListener(onCloseResetListener);
+      handler.setInboundChannel(null);
+      outboundChannel = null;
+      channel.flush();
+      connectionPool.release(channel, discoverable);
+    }
+
     Discoverable getDiscoverable() {
       return discoverable;
     }
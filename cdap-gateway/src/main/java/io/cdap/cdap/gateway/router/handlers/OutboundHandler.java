@@ -27,26 +27,56 @@ import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.ReferenceCountUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+
 /**
  * A {@link ChannelDuplexHandler} for forwarding requests/responses between the router and the internal service.
  * It also handle idle state event for closing idled internal connections.
+ * The connection can be reused for different inbound channels once a response is completed, as long as it is only
+ * used by inbound channels of the same event loop.
  */
 public class OutboundHandler extends ChannelDuplexHandler {
   private static final Logger LOG = LoggerFactory.getLogger(OutboundHandler.class);
 
-  private final Channel inboundChannel;
+  private Channel inboundChannel;
   private boolean requestInProgress;
+  private boolean requestWritten;
   private boolean keepAlive;
 
   public OutboundHandler(Channel inboundChannel) {
     this.inboundChannel = inboundChannel;
   }
 
+  /**
+   * Sets the inbound channel to forward responses to, or {@code null} if the connection is not used by any
+   * inbound channel.
+   */
+  void setInboundChannel(@Nullable Channel inboundChannel) {
+    this.inboundChannel = inboundChannel;
+  }
+
+  /**
+   * Returns {@code true} if the last response was completed and the connection can be used for another request.
+   * The last request must have been written completely too, since the internal service can respond before the
+   * request body is received, e.g. with an error. Another request would otherwise be read as part of that body.
+   */
+  boolean isReusable() {
+    return !requestInProgress && requestWritten && keepAlive;
+  }
+
   @Override
   public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+    if (inboundChannel == null) {
+      // Nothing is expected from the internal service while the connection is not used, hence don't reuse it
+      LOG.trace("Unexpected message received on idle connection {}, closing it.", ctx.channel());
+      ReferenceCountUtil.release(msg);
+      ctx.close();
+      return;
+    }
     // One receiving messages from the internal service, forward it to the inbound channel
     inboundChannel.write(msg);
 
@@ -62,7 +92,9 @@ public class OutboundHandler extends ChannelDuplexHandler {
 
   @Override
   public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
-    inboundChannel.flush();
+    if (inboundChannel != null) {
+      inboundChannel.flush();
+    }
   }
 
   @Override
@@ -70,15 +102,22 @@ public class OutboundHandler extends ChannelDuplexHandler {
     // A request starts with a HttpRequest
     if (msg instanceof HttpRequest) {
       requestInProgress = true;
+      requestWritten = false;
       keepAlive = HttpUtil.isKeepAlive((HttpRequest) msg);
     }
+    // A request is completed by writing the last http content
+    if (msg instanceof LastHttpContent) {
+      promise = promise.unvoid();
+      promise.addListener(future -> requestWritten = future.isSuccess());
+    }
     ctx.write(msg, promise);
   }
 
   @Override
   public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
-    if (requestInProgress) {
+    if (requestInProgress && inboundChannel != null) {
       final Channel channel = ctx.channel();
+      final Channel inboundChannel = this.inboundChannel;
       ctx.executor().execute(() -> {
         // If outboundChannel is not saturated anymore, continue accepting
         // the incoming traffic from the inboundChannel.
@@ -98,7 +137,7 @@ public class OutboundHandler extends ChannelDuplexHandler {
   @Override
   public void channelInactive(ChannelHandlerContext ctx) throws Exception {
     // Close the inbound channel if there is request in progress, or the last request/response has keep-alive == false
-    if (requestInProgress || !keepAlive) {
+    if (inboundChannel != null && (requestInProgress || !keepAlive)) {
       Channels.closeOnFlush(inboundChannel);
     }
     ctx.fireChannelInactive();
@@ -55,6 +55,7 @@ import org.apache.http.Header;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.message.BasicHeader;
 import org.apache.http.util.EntityUtils;
 import org.apache.twill.common.Cancellable;
 import org.apache.twill.common.Threads;
@@ -257,6 +258,15 @@ public abstract class NettyRouterTestBase {
     Assert.assertEquals(APP_FABRIC_SERVICE, EntityUtils.toString(response.getEntity()));
   }
 
+  @Test
+  public void testTraceContextRemoved() throws Exception {
+    // External clients must not be able to continue or force traces in the services
+    HttpResponse response = get(resolveURI("/v1/header/" + Constants.Trace.CONTEXT_HEADER),
+                                new Header[] { new BasicHeader(Constants.Trace.CONTEXT_HEADER, "1234:5678") });
+    Assert.assertEquals(HttpResponseStatus.OK.code(), response.getStatusLine().getStatusCode());
+    Assert.assertEquals("", EntityUtils.toString(response.getEntity()));
+  }
+
   @Test
   public void testUpload() throws Exception {
     AsyncHttpClientConfig.Builder configBuilder = new AsyncHttpClientConfig.Builder();
@@ -382,6 +392,40 @@ public abstract class NettyRouterTestBase {
     return firstLine;
   }
 
+  @Test (timeout = 10000L)
+  public void testEarlyResponse() throws Exception {
+    // Only use server1
+    defaultServer2.cancelRegistration();
+
+    URI uri = new URI(resolveURI("/v1/reject"));
+    try (Socket socket = getSocketFactory().createSocket(uri.getHost(), uri.getPort())) {
+      // Only send part of the request body, which the server responds to without waiting for the rest
+      PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+      out.print("POST " + uri.getPath() + " HTTP/1.1\r\n" +
+                  "Host: " + uri.getHost() + "\r\n" +
+                  "Connection: keep-alive\r\n" +
+                  "Content-Length: 1000\r\n\r\n" +
+                  Strings.repeat("x", 10));
+      out.flush();
+
+      BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                                                                       StandardCharsets.UTF_8));
+      Assert.assertTrue(reader.readLine().startsWith("HTTP/1.1 413"));
+    }
+    // Give the router time to release the server side connection of the closed client connection
+    TimeUnit.MILLISECONDS.sleep(500);
+
+    // The server side connection is still reading the body of the first request, hence it must not be reused,
+    // which would make this request the rest of that body
+    try (Socket socket = getSocketFactory().createSocket(uri.getHost(), uri.getPort())) {
+      socket.setSoTimeout(5000);
+      PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+      Assert.assertEquals("HTTP/1.1 200 OK", makeRequest(new URI(resolveURI("/v2/ping")), out,
+                                                         socket.getInputStream()));
+    }
+    Assert.assertEquals(2, defaultServer1.getNumRequests());
+  }
+
   @Test
   public void testConnectionIdleTimeoutWithMultipleServers() throws Exception {
     defaultServer2.cancelRegistration();
@@ -726,6 +770,13 @@ public abstract class NettyRouterTestBase {
         responder.sendString(HttpResponseStatus.OK, serviceName);
       }
 
+      @GET
+      @Path("/v1/header/{name}")
+      public void header(HttpRequest request, HttpResponder responder, @PathParam("name") String name) {
+        numRequests.incrementAndGet();
+        responder.sendString(HttpResponseStatus.OK, Strings.nullToEmpty(request.headers().get(name)));
+      }
+
       @GET
       @Path("/v2/ping")
       public void gateway(@SuppressWarnings("UnusedParameters") HttpRequest request, final HttpResponder responder) {
@@ -794,6 +845,15 @@ public abstract class NettyRouterTestBase {
         };
       }
 
+      @POST
+      @Path("/v1/reject")
+      public BodyConsumer reject(HttpRequest request, HttpResponder responder) {
+        numRequests.incrementAndGet();
+        // Responds before the request body is received
+        responder.sendStatus(HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE);
+        return null;
+      }
+
       @POST
       @Path("/v1/sleep")
       public void sleep(FullHttpRequest request, HttpResponder responder) throws Exception {
@@ -52,6 +52,20 @@ public class RouterPathLookupTest {
     Assert.assertEquals(RouterPathLookup.APP_FABRIC_HTTP, result);
   }
 
+  @Test
+  public void testDefaultRouting() {
+    // Methods not handled by the routing rules
+    for (HttpMethod method : ImmutableList.of(HttpMethod.HEAD, HttpMethod.OPTIONS, HttpMethod.PATCH)) {
+      String path = "/v3/namespaces/n1/previews";
+      RouteDestination result = pathLookup.getRoutingService(path, new DefaultHttpRequest(VERSION, method, path));
+      Assert.assertEquals(RouterPathLookup.APP_FABRIC_HTTP, result);
+    }
+    // Paths too short for any of the rules
+    for (String path : ImmutableList.of("", "/", "/v3", "/v3/", "/ping", "/v2/metrics")) {
+      assertRouting(path, RouterPathLookup.APP_FABRIC_HTTP);
+    }
+  }
+
   @Test
   public void testBatchRunsPath() {
     String path = "/v3/namespaces/n1/runs";
@@ -426,6 +440,17 @@ public class RouterPathLookupTest {
     assertRouting(String.format("/v3/system/services/%s/stacks", "unknown.service"), null);
   }
 
+  @Test
+  public void testSystemServiceTracesPaths() {
+    assertRouting(String.format("/v3/system/services/%s/traces", Constants.Service.APP_FABRIC_HTTP),
+                  RouterPathLookup.APP_FABRIC_HTTP);
+    assertRouting(String.format("/v3/system/services/%s/traces", Constants.Service.MESSAGING_SERVICE),
+                  RouterPathLookup.MESSAGING);
+    assertRouting(String.format("/v3/system/services/%s/traces", Constants.Service.DATASET_EXECUTOR),
+                  RouterPathLookup.DATASET_EXECUTOR);
+    assertRouting(String.format("/v3/system/services/%s/traces", "unknown.service"), null);
+  }
+
   @Test
   public void testProfilePaths() {
     assertRouting("v3/profiles", RouterPathLookup.APP_FABRIC_HTTP);
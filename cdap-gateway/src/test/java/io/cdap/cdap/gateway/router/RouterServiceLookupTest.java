@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.gateway.router;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.Random;
+
+/**
+ * Unit tests for {@link RouterServiceLookup}.
+ */
+public class RouterServiceLookupTest {
+
+  @Test
+  public void testGetPath() {
+    for (String uri : ImmutableList.of("/", "/v3", "/v3/", "/v3/namespaces/default/apps?limit=10#top",
+                                       "/v3/namespaces/default/apps/app1/services/s1/methods/a:b@c;d=e,f",
+                                       "/?", "/#", "/a?b/c?d#e/f?g", "/a/?b", "/a/./b", "/a/../b", "/a/.", "/a/..",
+                                       "/a//b", "//a/b", "/a/%20b", "/a/b?c=%20", "/a/.b/..c/...", "/a?b#c#d",
+                                       "/a b", "/a?b c", "http://host/a/./b?c")) {
+      assertSamePath(uri);
+    }
+  }
+
+  @Test
+  public void testGetRandomPath() {
+    // Generate URIs made of characters that are significant for parsing and normalization
+    String alphabet = "/?#.%20a:@ ";
+    Random random = new Random(0);
+    for (int i = 0; i < 100000; i++) {
+      StringBuilder uri = new StringBuilder("/");
+      int length = random.nextInt(12);
+      for (int j = 0; j < length; j++) {
+        uri.append(alphabet.charAt(random.nextInt(alphabet.length())));
+      }
+      assertSamePath(uri.toString());
+    }
+  }
+
+  private void assertSamePath(String uri) {
+    String expected;
+    try {
+      expected = URI.create(uri).normalize().getPath();
+    } catch (IllegalArgumentException e) {
+      try {
+        RouterServiceLookup.getPath(uri);
+        Assert.fail("Expected invalid URI " + uri);
+      } catch (IllegalArgumentException expectedException) {
+        // expected
+      }
+      return;
+    }
+    Assert.assertEquals("Path of " + uri, expected, RouterServiceLookup.getPath(uri));
+  }
+}
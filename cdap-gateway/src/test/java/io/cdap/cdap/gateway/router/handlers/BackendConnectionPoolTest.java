@@ -0,0 +1,151 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.gateway.router.handlers;
+
+import io.cdap.cdap.api.metrics.MetricsContext;
+import io.netty.channel.Channel;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.apache.twill.discovery.Discoverable;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Unit tests for {@link BackendConnectionPool}.
+ */
+public class BackendConnectionPoolTest {
+
+  private static final Discoverable SERVICE1 = new Discoverable("service1", new InetSocketAddress("localhost", 1000));
+  private static final Discoverable SERVICE2 = new Discoverable("service2", new InetSocketAddress("localhost", 2000));
+
+  @Test
+  public void testReuse() {
+    BackendConnectionPool pool = new BackendConnectionPool(2);
+    EmbeddedChannel channel = new EmbeddedChannel();
+    Assert.assertNull(pool.acquire(channel.eventLoop(), SERVICE1));
+
+    pool.release(channel, SERVICE1);
+    Assert.assertNull(pool.acquire(channel.eventLoop(), SERVICE2));
+    Assert.assertNull(pool.acquire(new EmbeddedChannel().eventLoop(), SERVICE1));
+    Assert.assertSame(channel, pool.acquire(channel.eventLoop(), SERVICE1));
+    Assert.assertNull(pool.acquire(channel.eventLoop(), SERVICE1));
+
+    // Released again after being reused
+    pool.release(channel, SERVICE1);
+    Assert.assertSame(channel, pool.acquire(channel.eventLoop(), SERVICE1));
+  }
+
+  @Test
+  public void testEviction() {
+    BackendConnectionPool pool = new BackendConnectionPool(2);
+    EmbeddedChannel channel1 = new EmbeddedChannel();
+    // All channels must be of the same event loop
+    Channel channel2 = new EmbeddedChannel(false, false);
+    channel1.eventLoop().register(channel2);
+    Channel channel3 = new EmbeddedChannel(false, false);
+    channel1.eventLoop().register(channel3);
+
+    pool.release(channel1, SERVICE1);
+    pool.release(channel2, SERVICE1);
+    // The pool is full, hence the channel is closed
+    pool.release(channel3, SERVICE1);
+    Assert.assertFalse(channel3.isOpen());
+
+    // Closed channels are removed from the pool
+    channel2.close();
+    Assert.assertSame(channel1, pool.acquire(channel1.eventLoop(), SERVICE1));
+    Assert.assertNull(pool.acquire(channel1.eventLoop(), SERVICE1));
+
+    // Closed channels are not added to the pool
+    channel1.close();
+    pool.release(channel1, SERVICE1);
+    Assert.assertNull(pool.acquire(channel1.eventLoop(), SERVICE1));
+  }
+
+  @Test
+  public void testMetrics() {
+    CountingMetricsContext metricsContext = new CountingMetricsContext();
+    BackendConnectionPool pool = new BackendConnectionPool(1, metricsContext);
+    EmbeddedChannel channel1 = new EmbeddedChannel();
+    Channel channel2 = new EmbeddedChannel(false, false);
+    channel1.eventLoop().register(channel2);
+
+    Assert.assertNull(pool.acquire(channel1.eventLoop(), SERVICE1));
+    pool.connected(1000L);
+    pool.connected(2000L);
+    Assert.assertEquals(2L, metricsContext.get("backend.pool.misses"));
+
+    pool.release(channel2, SERVICE1);
+    Assert.assertSame(channel2, pool.acquire(channel1.eventLoop(), SERVICE1));
+    Assert.assertEquals(1L, metricsContext.get("backend.pool.hits"));
+
+    // A connection that is in use is not evicted when it is closed
+    channel2.close();
+    Assert.assertEquals(0L, metricsContext.get("backend.pool.evictions"));
+
+    // Connections are evicted when the pool is full, and when they are closed while idle
+    pool.release(channel1, SERVICE1);
+    Channel channel3 = new EmbeddedChannel(false, false);
+    channel1.eventLoop().register(channel3);
+    pool.release(channel3, SERVICE1);
+    Assert.assertEquals(1L, metricsContext.get("backend.pool.evictions"));
+    channel1.close();
+    Assert.assertEquals(2L, metricsContext.get("backend.pool.evictions"));
+    Assert.assertEquals(1L, metricsContext.get("backend.pool.hits"));
+  }
+
+  /**
+   * A {@link MetricsContext} that keeps the totals of the incremented metrics.
+   */
+  private static final class CountingMetricsContext implements MetricsContext {
+
+    private final Map<String, Long> counts = new HashMap<>();
+
+    long get(String metricName) {
+      return counts.getOrDefault(metricName, 0L);
+    }
+
+    @Override
+    public MetricsContext childContext(Map<String, String> tags) {
+      return this;
+    }
+
+    @Override
+    public MetricsContext childContext(String tagName, String tagValue) {
+      return this;
+    }
+
+    @Override
+    public Map<String, String> getTags() {
+      return Collections.emptyMap();
+    }
+
+    @Override
+    public void increment(String metricName, long value) {
+      counts.merge(metricName, value, Long::sum);
+    }
+
+    @Override
+    public void gauge(String metricName, long value) {
+      // no-op
+    }
+  }
+}
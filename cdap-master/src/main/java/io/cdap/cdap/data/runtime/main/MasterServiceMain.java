@@ -54,6 +54,7 @@ import io.cdap.cdap.common.runtime.DaemonMain;
 import io.cdap.cdap.common.service.RetryOnStartFailureService;
 import io.cdap.cdap.common.service.RetryStrategies;
 import io.cdap.cdap.common.service.Services;
+import io.cdap.cdap.common.trace.Tracing;
 import io.cdap.cdap.common.twill.HadoopClassExcluder;
 import io.cdap.cdap.common.utils.DirUtils;
 import io.cdap.cdap.common.zookeeper.election.LeaderElectionInfoService;
@@ -216,6 +217,7 @@ public class MasterServiceMain extends DaemonMain {
     Injector injector = createProcessInjector(cConf, hConf);
     this.cConf = injector.getInstance(CConfiguration.class);
     this.hConf = injector.getInstance(Configuration.class);
+    Tracing.configure(this.cConf);
     this.logAppenderInitializer = injector.getInstance(LogAppenderInitializer.class);
     this.zkClient = injector.getInstance(ZKClientService.class);
     this.shutdownLock = new ReentrantDistributedLock(zkClient, "/lock/" + Constants.Service.MASTER_SERVICES);
@@ -30,6 +30,7 @@ import java.io.IOException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.crypto.KeyGenerator;
 import javax.crypto.Mac;
 import javax.crypto.SecretKey;
@@ -52,6 +53,7 @@ public abstract class AbstractKeyManager extends AbstractIdleService implements
    * means no expiration.
    */
   protected long keyExpirationPeriod = 0;
+  private final AtomicLong keyGeneration = new AtomicLong();
 
 
   /**
@@ -107,6 +109,18 @@ public abstract class AbstractKeyManager extends AbstractIdleService implements
    */
   protected abstract void addKey(KeyIdentifier key);
 
+  /**
+   * Signals that secret keys may have been removed or replaced, which changes the key generation.
+   */
+  protected final void keysChanged() {
+    keyGeneration.incrementAndGet();
+  }
+
+  @Override
+  public final long getKeyGeneration() {
+    return keyGeneration.get();
+  }
+
   /**
    * Generates a new KeyIdentifier and sets that to be the current key being used.
    * @return A new KeyIdentifier.
@@ -16,28 +16,43 @@
 
 package io.cdap.cdap.security.auth;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.inject.Inject;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.io.Codec;
 import org.apache.commons.codec.binary.Base64;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 /**
  * This class validates the accessToken and returns the different states
  * of accessToken validation.
+ *
+ * Tokens that are validated successfully are cached, so that the same token is not decoded and its digest not
+ * recomputed for every request. A cached token is validated again if it expired or if the secret keys changed.
+ * The cache is keyed by the SHA-256 digest of the token, so that the tokens themselves are not kept in memory.
  */
 public class AccessTokenValidator extends AbstractIdleService implements TokenValidator {
   private static final Logger LOG = LoggerFactory.getLogger(AccessTokenValidator.class);
   private final TokenManager tokenManager;
   private final Codec<AccessToken> accessTokenCodec;
+  private final Cache<HashCode, ValidToken> validTokens;
 
   @Inject
-  public AccessTokenValidator(TokenManager tokenManager, Codec<AccessToken> accessTokenCodec) {
+  public AccessTokenValidator(TokenManager tokenManager, Codec<AccessToken> accessTokenCodec, CConfiguration cConf) {
     this.tokenManager = tokenManager;
     this.accessTokenCodec = accessTokenCodec;
+    this.validTokens = CacheBuilder.newBuilder()
+      .maximumSize(cConf.getInt(Constants.Security.TOKEN_VALIDATION_CACHE_SIZE))
+      .build();
   }
 
   @Override
@@ -58,11 +73,24 @@ public class AccessTokenValidator extends AbstractIdleService implements TokenVa
       LOG.debug("Token is missing");
       return TokenState.MISSING;
     }
+
+    // Read the key generation before validating, so that a key change during validation invalidates the result
+    long keyGeneration = tokenManager.getKeyGeneration();
+    HashCode tokenHash = Hashing.sha256().hashString(token, StandardCharsets.UTF_8);
+    ValidToken validToken = validTokens.getIfPresent(tokenHash);
+    if (validToken != null) {
+      if (validToken.expireTimestamp >= System.currentTimeMillis() && validToken.keyGeneration == keyGeneration) {
+        return TokenState.VALID;
+      }
+      validTokens.invalidate(tokenHash);
+    }
+
     byte[] decodedToken = Base64.decodeBase64(token);
 
     try {
       accessToken = accessTokenCodec.decode(decodedToken);
       tokenManager.validateSecret(accessToken);
+      validTokens.put(tokenHash, new ValidToken(accessToken.getIdentifier().getExpireTimestamp(), keyGeneration));
     } catch (IOException ioe) {
       state = TokenState.INVALID;
       LOG.debug("Unknown Schema version for Access Token. {}", ioe);
@@ -72,4 +100,17 @@ public class AccessTokenValidator extends AbstractIdleService implements TokenVa
     }
     return state;
   }
+
+  /**
+   * Information about a token that was validated successfully.
+   */
+  private static final class ValidToken {
+    private final long expireTimestamp;
+    private final long keyGeneration;
+
+    private ValidToken(long expireTimestamp, long keyGeneration) {
+      this.expireTimestamp = expireTimestamp;
+      this.keyGeneration = keyGeneration;
+    }
+  }
 }
@@ -170,6 +170,8 @@ public class DistributedKeyManager extends AbstractKeyManager implements Resourc
   @Override
   public synchronized void onUpdate() {
     LOG.debug("SharedResourceCache triggered update on key: leader={}", leader);
+    // all keys were reloaded, some may have been removed
+    keysChanged();
     for (KeyIdentifier keyEntry : keyCache.getResources()) {
       if (currentKey == null || keyEntry.getExpiration() > currentKey.getExpiration()) {
         currentKey = keyEntry;
@@ -181,6 +183,8 @@ public class DistributedKeyManager extends AbstractKeyManager implements Resourc
   @Override
   public synchronized void onResourceUpdate(String name, KeyIdentifier instance) {
     LOG.debug("SharedResourceCache triggered update: leader={}, resource key={}", leader, name);
+    // the key may replace an existing one with the same id, hence tokens validated with the old one are not valid
+    keysChanged();
     if (currentKey == null || instance.getExpiration() > currentKey.getExpiration()) {
       currentKey = instance;
       LOG.debug("Set current key: leader={}, key={}", leader, currentKey.getKeyId());
@@ -190,6 +194,7 @@ public class DistributedKeyManager extends AbstractKeyManager implements Resourc
   @Override
   public void onResourceDelete(String name) {
     LOG.debug("Removed key: leader={}, key={}", leader, name);
+    keysChanged();
   }
 
   @Override
@@ -64,4 +64,10 @@ public interface KeyManager extends Service {
   <T> void validateMAC(Codec<T> codec, Signed<T> signedMessage)
     throws InvalidDigestException, InvalidKeyException;
 
+  /**
+   * Returns the generation of the secret keys, which changes whenever secret keys may have been removed or replaced.
+   * Results of previous digest validations must not be reused once the generation changed.
+   */
+  long getKeyGeneration();
+
 }
@@ -86,4 +86,13 @@ public class TokenManager extends AbstractIdleService {
       throw new InvalidTokenException(TokenState.INTERNAL, "Invalid key for token.", ike);
     }
   }
+
+  /**
+   * Returns the generation of the secret keys used to validate tokens.
+   *
+   * @see KeyManager#getKeyGeneration()
+   */
+  public long getKeyGeneration() {
+    return keyManager.getKeyGeneration();
+  }
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.security.auth;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import io.cdap.cdap.common.guice.ConfigModule;
+import io.cdap.cdap.common.guice.IOModule;
+import io.cdap.cdap.common.guice.InMemoryDiscoveryModule;
+import io.cdap.cdap.common.io.Codec;
+import io.cdap.cdap.security.guice.SecurityModules;
+import org.apache.commons.codec.binary.Base64;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link AccessTokenValidator}.
+ */
+public class AccessTokenValidatorTest {
+
+  private static TokenManager tokenManager;
+  private static Codec<AccessToken> tokenCodec;
+  private static TokenValidator validator;
+
+  @BeforeClass
+  public static void init() {
+    Injector injector = Guice.createInjector(new IOModule(), new SecurityModules().getInMemoryModules(),
+                                             new ConfigModule(), new InMemoryDiscoveryModule());
+    tokenManager = injector.getInstance(TokenManager.class);
+    tokenCodec = injector.getInstance(AccessTokenCodec.class);
+    validator = injector.getInstance(TokenValidator.class);
+    validator.startAndWait();
+  }
+
+  @AfterClass
+  public static void finish() {
+    validator.stopAndWait();
+  }
+
+  @Test
+  public void testValidation() throws Exception {
+    long now = System.currentTimeMillis();
+    String token = encode(new AccessTokenIdentifier("user", ImmutableList.of("users"), now,
+                                                    now + TimeUnit.HOURS.toMillis(1)));
+    Assert.assertEquals(TokenState.MISSING, validator.validate(null));
+    // validate twice, the second validation is served from the cache
+    Assert.assertEquals(TokenState.VALID, validator.validate(token));
+    Assert.assertEquals(TokenState.VALID, validator.validate(token));
+
+    String expiredToken = encode(new AccessTokenIdentifier("user", ImmutableList.of("users"), now - 1000, now - 1));
+    Assert.assertEquals(TokenState.EXPIRED, validator.validate(expiredToken));
+
+    AccessToken accessToken = tokenCodec.decode(Base64.decodeBase64(token));
+    byte[] digest = accessToken.getDigestBytes();
+    digest[0]++;
+    String invalidToken = Base64.encodeBase64String(
+      tokenCodec.encode(new AccessToken(accessToken.getIdentifier(), accessToken.getKeyId(), digest)));
+    Assert.assertEquals(TokenState.INVALID, validator.validate(invalidToken));
+  }
+
+  @Test
+  public void testCachedTokenExpiration() throws Exception {
+    long now = System.currentTimeMillis();
+    String token = encode(new AccessTokenIdentifier("user", ImmutableList.of("users"), now, now + 500));
+    Assert.assertEquals(TokenState.VALID, validator.validate(token));
+    TimeUnit.MILLISECONDS.sleep(now + 600 - System.currentTimeMillis());
+    Assert.assertEquals(TokenState.EXPIRED, validator.validate(token));
+  }
+
+  private String encode(AccessTokenIdentifier identifier) throws Exception {
+    return Base64.encodeBase64String(tokenCodec.encode(tokenManager.signIdentifier(identifier)));
+  }
+}
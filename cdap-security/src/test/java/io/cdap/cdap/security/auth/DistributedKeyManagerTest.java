@@ -115,6 +115,24 @@ public class DistributedKeyManagerTest extends TestTokenManager {
     tokenManager2.stopAndWait();
   }
 
+  @Test
+  public void testKeyGeneration() throws Exception {
+    WaitableDistributedKeyManager manager = (WaitableDistributedKeyManager) getKeyManager(injector1, true);
+    try {
+      // updating a key may replace the secret of an existing key id, hence the key generation changes
+      long generation = manager.getKeyGeneration();
+      KeyIdentifier currentKey = manager.getCurrentKey();
+      manager.onResourceUpdate(Integer.toString(currentKey.getKeyId()), currentKey);
+      Assert.assertTrue(manager.getKeyGeneration() > generation);
+
+      generation = manager.getKeyGeneration();
+      manager.onResourceDelete(Integer.toString(currentKey.getKeyId()));
+      Assert.assertTrue(manager.getKeyGeneration() > generation);
+    } finally {
+      manager.stopAndWait();
+    }
+  }
+
   @Test
   public void testGetACLs() throws Exception {
     CConfiguration kerbConf = CConfiguration.create();
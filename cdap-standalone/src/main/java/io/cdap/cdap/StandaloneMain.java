@@ -47,6 +47,7 @@ import io.cdap.cdap.common.guice.ZKClientModule;
 import io.cdap.cdap.common.io.URLConnections;
 import io.cdap.cdap.common.logging.common.UncaughtExceptionHandler;
 import io.cdap.cdap.common.startup.ConfigurationLogger;
+import io.cdap.cdap.common.trace.Tracing;
 import io.cdap.cdap.common.twill.NoopTwillRunnerService;
 import io.cdap.cdap.common.utils.DirUtils;
 import io.cdap.cdap.common.utils.OSDetector;
@@ -152,6 +153,7 @@ public class StandaloneMain {
   private StandaloneMain(List<Module> modules, CConfiguration cConf) {
     Thread.setDefaultUncaughtExceptionHandler(new UncaughtExceptionHandler());
     this.cConf = cConf;
+    Tracing.configure(cConf);
 
     injector = Guice.createInjector(modules);
 
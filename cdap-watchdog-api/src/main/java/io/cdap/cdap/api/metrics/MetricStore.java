@@ -61,6 +61,18 @@ public interface MetricStore {
    */
   void deleteTTLExpired();
 
+  /**
+   * Rolls up the metric data only written to the minimum resolution into the coarser resolutions, for the time
+   * intervals that end before the given timestamp. Does nothing if rollup of metrics is not enabled.
+   *
+   * @param timestamp time up to which to roll up metrics data, in seconds since epoch
+   * @return the time up to which metrics data is rolled up, in seconds since epoch,
+   *         or {@code -1} if rollup of metrics is not enabled
+   */
+  default long rollup(long timestamp) {
+    return -1L;
+  }
+
   /**
    * Deletes all metric data specified by the {@link MetricDeleteQuery}
    * @param query specifies what to delete
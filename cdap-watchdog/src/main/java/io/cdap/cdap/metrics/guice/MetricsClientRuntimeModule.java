@@ -31,6 +31,7 @@ import io.cdap.cdap.metrics.process.DirectMetricsSystemClient;
 import io.cdap.cdap.metrics.process.MessagingMetricsProcessorManagerService;
 import io.cdap.cdap.metrics.process.MessagingMetricsProcessorServiceFactory;
 import io.cdap.cdap.metrics.store.MetricsCleanUpService;
+import io.cdap.cdap.metrics.store.MetricsRollupService;
 
 /**
  * A {@link RuntimeModule} that defines Guice modules for metrics collection in different runtime mode.
@@ -83,6 +84,7 @@ public final class MetricsClientRuntimeModule extends RuntimeModule {
     binder.install(new MetricsStoreModule());
     binder.expose(MetricStore.class);
     binder.expose(MetricsCleanUpService.class);
+    binder.expose(MetricsRollupService.class);
 
     binder.bind(MetricsCollectionService.class).to(LocalMetricsCollectionService.class).in(Scopes.SINGLETON);
     binder.expose(MetricsCollectionService.class);
@@ -45,10 +45,16 @@ import io.cdap.cdap.proto.MetricTagValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
@@ -143,10 +149,67 @@ public class MetricsQueryHelper {
 
   public Map<String, MetricQueryResult> executeBatchQueries(Map<String, QueryRequestFormat> queries) throws Exception {
     LOG.trace("Received Queries {}", queries);
-    Map<String, MetricQueryResult> queryFinalResponse = Maps.newHashMap();
+    Map<String, MetricQueryRequest> queryRequests = new LinkedHashMap<>();
     for (Map.Entry<String, QueryRequestFormat> query : queries.entrySet()) {
-      MetricQueryRequest queryRequest = getQueryRequestFromFormat(query.getValue());
-      queryFinalResponse.put(query.getKey(), executeQuery(queryRequest));
+      queryRequests.put(query.getKey(), getQueryRequestFromFormat(query.getValue()));
+    }
+    return executeBatchQueryRequests(queryRequests);
+  }
+
+  /**
+   * Executes the given queries. Queries for the same slice, grouping and time range are executed together as a
+   * single query for all of their metrics, which reads the data of the slice only once.
+   *
+   * @param queryRequests the queries to execute, keyed by an id
+   * @return the result of each query, keyed by the id of the query
+   */
+  public Map<String, MetricQueryResult> executeBatchQueryRequests(Map<String, MetricQueryRequest> queryRequests)
+    throws Exception {
+    Map<List<Object>, Map<String, MetricQueryRequest>> groups = new LinkedHashMap<>();
+    Map<String, MetricQueryResult> queryFinalResponse = Maps.newHashMap();
+    for (Map.Entry<String, MetricQueryRequest> queryRequest : queryRequests.entrySet()) {
+      List<Object> sliceKey = getSliceKey(queryRequest.getValue());
+      if (sliceKey == null) {
+        queryFinalResponse.put(queryRequest.getKey(), executeQuery(queryRequest.getValue()));
+      } else {
+        groups.computeIfAbsent(sliceKey, k -> new LinkedHashMap<>())
+          .put(queryRequest.getKey(), queryRequest.getValue());
+      }
+    }
+
+    for (Map<String, MetricQueryRequest> group : groups.values()) {
+      if (group.size() == 1) {
+        Map.Entry<String, MetricQueryRequest> queryRequest = group.entrySet().iterator().next();
+        queryFinalResponse.put(queryRequest.getKey(), executeQuery(queryRequest.getValue()));
+        continue;
+      }
+
+      // Query all metrics of the group together, and then split the result by metric
+      Set<String> metrics = new LinkedHashSet<>();
+      for (MetricQueryRequest queryRequest : group.values()) {
+        metrics.addAll(queryRequest.getMetrics());
+      }
+      MetricQueryRequest first = group.values().iterator().next();
+      MetricQueryRequest.TimeRange timeRange = first.getTimeRange();
+      MetricQueryRequest combined = new MetricQueryRequest(first.getTags(), new ArrayList<>(metrics),
+                                                           first.getGroupBy());
+      combined.setTimeRange(timeRange.getStart(), timeRange.getEnd(), timeRange.getCount(),
+                            timeRange.getResolutionInSeconds(), null, timeRange.getAggregation());
+      MetricQueryResult result = executeQuery(combined);
+
+      for (Map.Entry<String, MetricQueryRequest> queryRequest : group.entrySet()) {
+        Set<String> requestMetrics = new HashSet<>(queryRequest.getValue().getMetrics());
+        List<MetricQueryResult.TimeSeries> series = new ArrayList<>();
+        for (MetricQueryResult.TimeSeries timeSeries : result.getSeries()) {
+          if (requestMetrics.contains(timeSeries.getMetricName())) {
+            series.add(timeSeries);
+          }
+        }
+        queryFinalResponse.put(queryRequest.getKey(),
+                               new MetricQueryResult(result.getStartTime(), result.getEndTime(),
+                                                     series.toArray(new MetricQueryResult.TimeSeries[0]),
+                                                     timeRange.getResolutionInSeconds()));
+      }
     }
     return queryFinalResponse;
   }
@@ -349,6 +412,21 @@ public class MetricsQueryHelper {
     return null;
   }
 
+  /**
+   * Returns the key of the slice, grouping and time range of the given query, which is the same for queries that can
+   * be executed together, or {@code null} if the query has to be executed on its own.
+   */
+  @Nullable
+  private List<Object> getSliceKey(MetricQueryRequest queryRequest) {
+    MetricQueryRequest.TimeRange timeRange = queryRequest.getTimeRange();
+    // Interpolators cannot be compared, and invalid queries are executed on their own to fail individually
+    if (queryRequest.getMetrics().isEmpty() || timeRange.getInterpolate() != null) {
+      return null;
+    }
+    return Arrays.asList(queryRequest.getTags(), queryRequest.getGroupBy(), timeRange.getStart(), timeRange.getEnd(),
+                         timeRange.getCount(), timeRange.getResolutionInSeconds(), timeRange.getAggregation());
+  }
+
   private MetricQueryResult executeQuery(MetricQueryRequest queryRequest) throws Exception {
     if (queryRequest.getMetrics().size() == 0) {
       throw new IllegalArgumentException("Missing metrics parameter in the query");
@@ -24,7 +24,6 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.inject.Inject;
-import io.cdap.cdap.api.dataset.lib.cube.Cube;
 import io.cdap.cdap.api.dataset.lib.cube.CubeDeleteQuery;
 import io.cdap.cdap.api.dataset.lib.cube.CubeExploreQuery;
 import io.cdap.cdap.api.dataset.lib.cube.CubeFact;
@@ -63,8 +62,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
@@ -90,11 +91,12 @@ public class DefaultMetricStore implements MetricStore {
                     new AggregationAlias(ImmutableMap.of(Constants.Metrics.Tag.RUN_ID,
                                                          Constants.Metrics.Tag.WORKFLOW_RUN_ID)));
 
-  private final Supplier<Cube> cube;
+  private final Supplier<DefaultCube> cube;
   private final Supplier<MetricsConsumerMetaTable> metaTableSupplier;
   private MetricsContext metricsContext;
   private final List<TopicId> metricsTopics;
   private final Map<Integer, Long> resolutionTTLMap;
+  private final int finestResolution;
 
 
   static {
@@ -212,15 +214,29 @@ public class DefaultMetricStore implements MetricStore {
       builder.put(minimumResolution, cConf.getLong(Constants.Metrics.MINIMUM_RESOLUTION_RETENTION_SECONDS));
     }
     this.resolutionTTLMap = builder.build();
+    this.finestResolution = resolutions[0];
+    // With rollup, metrics are only added to the finest resolution and the totals,
+    // which cannot be rebuilt from the finest resolution due to its retention
+    Set<Integer> rollupResolutions = new HashSet<>();
+    if (cConf.getBoolean(Constants.Metrics.ROLLUP_ENABLED)) {
+      for (int resolution : resolutions) {
+        if (resolution != finestResolution && resolution != TOTALS_RESOLUTION) {
+          rollupResolutions.add(resolution);
+        }
+      }
+    }
     FactTableSupplier factTableSupplier = (resolution, ignoredRollTime) -> {
       // roll time will be taken from configuration
       // TODO: remove roll time from the supplier api, https://issues.cask.co/browse/CDAP-14730
       return dsFactory.getOrCreateFactTable(resolution);
     };
-    this.cube = Suppliers.memoize(new Supplier<Cube>() {
+    // metrics tables support concurrent scans, hence queries can be split
+    int maxQuerySplits = cConf.getInt(Constants.Metrics.QUERY_MAX_SPLITS);
+    this.cube = Suppliers.memoize(new Supplier<DefaultCube>() {
       @Override
-      public Cube get() {
-        DefaultCube cube = new DefaultCube(resolutions, factTableSupplier, AGGREGATIONS, AGGREGATIONS_ALIAS_DIMENSIONS);
+      public DefaultCube get() {
+        DefaultCube cube = new DefaultCube(resolutions, factTableSupplier, AGGREGATIONS, AGGREGATIONS_ALIAS_DIMENSIONS,
+                                           maxQuerySplits, rollupResolutions);
         cube.setMetricsCollector(metricsContext);
         return cube;
       }
@@ -301,6 +317,12 @@ public class DefaultMetricStore implements MetricStore {
     }
   }
 
+  @Override
+  public long rollup(long timestamp) {
+    // metrics older than the retention of the finest resolution may have been removed from it already
+    return cube.get().rollup(timestamp - resolutionTTLMap.get(finestResolution), timestamp);
+  }
+
   @Override
   public void delete(MetricDeleteQuery query) {
     cube.get().delete(buildCubeDeleteQuery(query));
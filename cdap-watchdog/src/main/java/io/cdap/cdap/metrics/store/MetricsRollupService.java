@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.metrics.store;
+
+import com.google.common.util.concurrent.AbstractScheduledService;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import io.cdap.cdap.api.metrics.MetricStore;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.api.metrics.MetricsContext;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import org.apache.twill.common.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The metrics rollup service that periodically rolls up the metrics only written to the minimum resolution table
+ * into the coarser resolution tables, if rollup of metrics is enabled.
+ */
+public class MetricsRollupService extends AbstractScheduledService {
+  private static final Logger LOG = LoggerFactory.getLogger(MetricsRollupService.class);
+
+  private final MetricStore metricStore;
+  // The metrics collection service depends on this service in local mode, hence it is provided lazily
+  private final Provider<MetricsCollectionService> metricsCollectionServiceProvider;
+  private final boolean enabled;
+  private final long rollupInterval;
+  private final long rollupDelay;
+  private ScheduledExecutorService executor;
+  private MetricsContext metricsContext;
+
+  @Inject
+  MetricsRollupService(MetricStore metricStore, CConfiguration cConf,
+                       Provider<MetricsCollectionService> metricsCollectionServiceProvider) {
+    this.metricStore = metricStore;
+    this.metricsCollectionServiceProvider = metricsCollectionServiceProvider;
+    this.enabled = cConf.getBoolean(Constants.Metrics.ROLLUP_ENABLED);
+    this.rollupInterval = cConf.getLong(Constants.Metrics.ROLLUP_INTERVAL_SECONDS);
+    this.rollupDelay = cConf.getLong(Constants.Metrics.ROLLUP_DELAY_SECONDS);
+  }
+
+  @Override
+  protected void startUp() throws Exception {
+    if (enabled) {
+      metricsContext = metricsCollectionServiceProvider.get().getContext(Constants.Metrics.METRICS_PROCESSOR_CONTEXT);
+      metricStore.setMetricsContext(metricsContext);
+    }
+  }
+
+  @Override
+  protected final ScheduledExecutorService executor() {
+    executor = Executors.newSingleThreadScheduledExecutor(Threads.createDaemonThreadFactory("metrics-rollup"));
+    return executor;
+  }
+
+  @Override
+  protected void runOneIteration() {
+    if (!enabled) {
+      return;
+    }
+    long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+    try {
+      long rolledUpTs = metricStore.rollup(now - rollupDelay);
+      if (rolledUpTs >= 0) {
+        // how far behind the coarser resolution tables are, which queries cover by reading the minimum resolution
+        metricsContext.gauge("metrics.rollup.lag.seconds", now - rolledUpTs);
+      }
+    } catch (Exception e) {
+      LOG.warn("Failed to roll up metrics, will retry in {} seconds.", rollupInterval, e);
+    }
+  }
+
+  @Override
+  protected Scheduler scheduler() {
+    return Scheduler.newFixedDelaySchedule(1, rollupInterval, TimeUnit.SECONDS);
+  }
+
+  @Override
+  protected void shutDown() throws Exception {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+}